@@ -0,0 +1,172 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import static org.dcache.util.ChecksumType.ADLER32;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.DCapProtocolInfo;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.PoolMgrSelectReadPoolMsg;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.Subject;
+import org.dcache.auth.FQANPrincipal;
+import org.dcache.auth.GidPrincipal;
+import org.dcache.auth.Origin;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.auth.UserNamePrincipal;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the standard (JOS) and the compact message payload serializer. The benchmarks report
+ * ns per message; run with the gc profiler ({@code -prof gc}) to compare the bytes allocated per
+ * message, which follow the encoded size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+public class MsgSerializerBenchmark {
+
+    @Param({"standard", "compact"})
+    private String serializer;
+
+    @Param({"PnfsId", "FileAttributes", "PnfsGetFileAttributes", "PoolMgrSelectReadPoolMsg"})
+    private String payload;
+
+    private SerializationHandler.Serializer _serializer;
+    private Serializable _message;
+    private byte[] _encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        _serializer = SerializationHandler.enumFromConfigString(serializer);
+
+        PnfsId pnfsId = new PnfsId("0000D5E2B7A6C3E64B5F9E1A2C3D4E5F6A7B");
+
+        StorageInfo storageInfo = GenericStorageInfo.valueOf("atlas:raw@osm", "*");
+        storageInfo.addLocation(URI.create("osm://osm/?store=atlas&group=raw&bfid=0123456789"));
+
+        FileAttributes attributes = FileAttributes.of()
+              .pnfsId(pnfsId)
+              .size(3_221_225_472L)
+              .accessLatency(AccessLatency.NEARLINE)
+              .retentionPolicy(RetentionPolicy.CUSTODIAL)
+              .checksum(new Checksum(ADLER32, "1a2b3c4d"))
+              .fileType(FileType.REGULAR)
+              .locations(List.of("pool-a-01", "pool-b-17"))
+              .mode(0644)
+              .uid(31415)
+              .gid(1000)
+              .creationTime(1_700_000_000_000L)
+              .modificationTime(1_700_000_000_000L)
+              .accessTime(1_700_000_000_000L)
+              .storageInfo(storageInfo)
+              .hsm("osm")
+              .storageClass("atlas:raw")
+              .build();
+
+        Subject subject = new Subject();
+        subject.getPrincipals().add(new UidPrincipal(31415));
+        subject.getPrincipals().add(new GidPrincipal(1000, true));
+        subject.getPrincipals().add(new UserNamePrincipal("atlasprd"));
+        subject.getPrincipals().add(new FQANPrincipal("/atlas/Role=production", true));
+        subject.getPrincipals().add(new Origin("127.0.0.1"));
+
+        switch (payload) {
+            case "PnfsId":
+                _message = pnfsId;
+                break;
+            case "FileAttributes":
+                _message = attributes;
+                break;
+            case "PnfsGetFileAttributes":
+                PnfsGetFileAttributes getAttributes = new PnfsGetFileAttributes(pnfsId,
+                      EnumSet.allOf(FileAttribute.class));
+                getAttributes.setFileAttributes(attributes);
+                getAttributes.setSubject(subject);
+                _message = getAttributes;
+                break;
+            case "PoolMgrSelectReadPoolMsg":
+                PoolMgrSelectReadPoolMsg select = new PoolMgrSelectReadPoolMsg(attributes,
+                      new DCapProtocolInfo("DCap", 3, 0,
+                            new InetSocketAddress("127.0.0.1", 22125)),
+                      new PoolMgrSelectReadPoolMsg.Context());
+                select.setSubject(subject);
+                _message = select;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+
+        _encoded = SerializationHandler.encode(_message, _serializer);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SerializationHandler.encode(_message, _serializer);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return SerializationHandler.decode(_encoded);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return SerializationHandler.decode(SerializationHandler.encode(_message, _serializer));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(MsgSerializerBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,171 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.oidc.jwt;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import org.dcache.gplazma.oidc.ExtractResult;
+import org.dcache.gplazma.oidc.IdentityProvider;
+import org.dcache.gplazma.oidc.helpers.JsonHttpClient;
+import org.dcache.gplazma.oidc.profiles.OidcProfileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of verifying RS256 signed JWTs offline, with and without the cache of verified
+ * tokens.  The discovery document and the JWKS of the OP are served by a local HTTP server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class OfflineJwtVerificationBenchmark {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    @Param({"0", "10000"})
+    private int cacheSize;
+
+    @Param({"1000"})
+    private int distinctTokens;
+
+    private HttpServer server;
+    private OfflineJwtVerification verification;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup
+    public void setUp() throws IOException, GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys = generator.generateKeyPair();
+        String kid = "benchmark";
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String issuer = "http://localhost:" + server.getAddress().getPort() + "/";
+        RSAPublicKey publicKey = (RSAPublicKey) keys.getPublic();
+        serve("/.well-known/openid-configuration",
+                "{\"issuer\":\"" + issuer + "\",\"jwks_uri\":\"" + issuer + "jwks\"}");
+        serve("/jwks", "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"kid\":\"" + kid + "\","
+                + "\"n\":\"" + encode(publicKey.getModulus()) + "\","
+                + "\"e\":\"" + encode(publicKey.getPublicExponent()) + "\"}]}");
+        server.start();
+
+        Properties properties = new Properties();
+        properties.setProperty("gplazma.oidc.verified-jwt-cache.size", String.valueOf(cacheSize));
+        properties.setProperty("gplazma.oidc.verified-jwt-cache.lifetime", "5");
+        properties.setProperty("gplazma.oidc.verified-jwt-cache.lifetime.unit", "MINUTES");
+
+        JsonHttpClient client = new JsonHttpClient(10, 10, 5_000);
+        IdentityProvider provider = new IdentityProvider("BENCHMARK", URI.create(issuer),
+                new OidcProfileFactory().create(Map.of()), client.getClient(),
+                Duration.ofHours(1), List.of());
+        verification = new OfflineJwtVerification(properties, client.getClient(),
+                Set.of(provider));
+
+        long exp = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        tokens = new String[distinctTokens];
+        for (int i = 0; i < distinctTokens; i++) {
+            String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}";
+            String payload = "{\"iss\":\"" + issuer + "\",\"sub\":\"" + UUID.randomUUID()
+                    + "\",\"exp\":" + exp + "}";
+            String signed = encode(header) + "." + encode(payload);
+            signature.initSign(keys.getPrivate());
+            signature.update(signed.getBytes(StandardCharsets.US_ASCII));
+            tokens[i] = signed + "." + BASE64URL.encodeToString(signature.sign());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void serve(String path, String body) {
+        byte[] data = body.getBytes(StandardCharsets.UTF_8);
+        server.createContext(path, exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(data);
+            }
+        });
+    }
+
+    private static String encode(String value) {
+        return BASE64URL.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return BASE64URL.encodeToString(bytes);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ExtractResult extract(Cursor cursor) throws Exception {
+        String token = tokens[cursor.next];
+        cursor.next = (cursor.next + 1) % tokens.length;
+        return verification.extract(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(OfflineJwtVerificationBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import diskCacheV111.pools.PoolCostInfo.NamedPoolQueueInfo;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.vehicles.ProtocolInfo;
+import dmg.cells.nucleus.CellPath;
+import java.net.InetSocketAddress;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.security.auth.Subject;
+import org.dcache.pool.classic.MoverRequestScheduler.Order;
+import org.dcache.pool.classic.MoverRequestScheduler.QueueType;
+import org.dcache.pool.movers.Mover;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+import org.dcache.util.IoPriority;
+import org.dcache.vehicles.FileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the latency from submitting a mover to a {@link MoverRequestScheduler} until the
+ * mover is started, with many threads submitting concurrently while a monitoring thread polls
+ * the queue statistics. The number of job slots is small compared to the number of submitting
+ * threads, so most movers are queued before they start. Transfers complete immediately on a
+ * separate executor.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 2)
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+public class MoverRequestSchedulerBenchmark {
+
+    @Param({"LOCKING", "CONCURRENT"})
+    private QueueType queueType;
+
+    @Param({"LIFO", "FIFO"})
+    private Order order;
+
+    @Param({"4"})
+    private int maxActive;
+
+    private final AtomicLong _requestIds = new AtomicLong();
+
+    private MoverRequestScheduler _scheduler;
+    private ExecutorService _transfers;
+
+    @Setup
+    public void setUp() {
+        _scheduler = new MoverRequestScheduler("benchmark", 0, order, queueType);
+        _scheduler.setMaxActiveJobs(maxActive);
+        _transfers = Executors.newFixedThreadPool(maxActive);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        _scheduler.shutdown();
+        _transfers.shutdownNow();
+    }
+
+    @Benchmark
+    @Group("submit")
+    @GroupThreads(31)
+    public Void submitToStart() throws CacheException {
+        BenchmarkMover mover = new BenchmarkMover(_transfers);
+        _scheduler.getOrCreateMover(() -> mover, "door-" + _requestIds.incrementAndGet(),
+              IoPriority.REGULAR);
+        return mover.started.join();
+    }
+
+    @Benchmark
+    @Group("submit")
+    @GroupThreads(1)
+    public NamedPoolQueueInfo queueInfo() {
+        return _scheduler.getQueueInfo();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(MoverRequestSchedulerBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+
+    /**
+     * A mover that signals when it is started and completes its transfer right away.
+     */
+    private static class BenchmarkMover implements Mover<ProtocolInfo> {
+
+        private final CompletableFuture<Void> started = new CompletableFuture<>();
+        private final ExecutorService _executor;
+
+        BenchmarkMover(ExecutorService executor) {
+            _executor = executor;
+        }
+
+        @Override
+        public Cancellable execute(CompletionHandler<Void, Void> completionHandler) {
+            started.complete(null);
+            _executor.execute(() -> completionHandler.completed(null, null));
+            return explanation -> {
+            };
+        }
+
+        @Override
+        public void close(CompletionHandler<Void, Void> completionHandler) {
+            completionHandler.completed(null, null);
+        }
+
+        @Override
+        public Set<? extends OpenOption> getIoMode() {
+            return FileStore.O_READ;
+        }
+
+        @Override
+        public FileAttributes getFileAttributes() {
+            return new FileAttributes();
+        }
+
+        @Override
+        public ProtocolInfo getProtocolInfo() {
+            return null;
+        }
+
+        @Override
+        public long getTransferTime() {
+            return 0;
+        }
+
+        @Override
+        public long getBytesTransferred() {
+            return 0;
+        }
+
+        @Override
+        public long getLastTransferred() {
+            return 0;
+        }
+
+        @Override
+        public long getClientId() {
+            return 0;
+        }
+
+        @Override
+        public void setTransferStatus(int errorCode, String errorMessage) {
+        }
+
+        @Override
+        public String getQueueName() {
+            return "benchmark";
+        }
+
+        @Override
+        public int getErrorCode() {
+            return 0;
+        }
+
+        @Override
+        public String getErrorMessage() {
+            return "";
+        }
+
+        @Override
+        public String getInitiator() {
+            return "";
+        }
+
+        @Override
+        public boolean isPoolToPoolTransfer() {
+            return false;
+        }
+
+        @Override
+        public Subject getSubject() {
+            return new Subject();
+        }
+
+        @Override
+        public ReplicaDescriptor getIoHandle() {
+            return null;
+        }
+
+        @Override
+        public Optional<RepositoryChannel> getChannel() {
+            return Optional.empty();
+        }
+
+        @Override
+        public CellPath getPathToDoor() {
+            return new CellPath("door");
+        }
+
+        @Override
+        public Set<Checksum> getActualChecksums() {
+            return Set.of();
+        }
+
+        @Override
+        public void addChecksumType(ChecksumType checksum) {
+        }
+
+        @Override
+        public Set<Checksum> getExpectedChecksums() {
+            return Set.of();
+        }
+
+        @Override
+        public String getBillingPath() {
+            return "";
+        }
+
+        @Override
+        public String getTransferPath() {
+            return "";
+        }
+
+        @Override
+        public Optional<InetSocketAddress> getLocalEndpoint() {
+            return Optional.empty();
+        }
+    }
+}
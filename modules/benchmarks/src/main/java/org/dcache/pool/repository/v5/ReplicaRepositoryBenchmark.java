@@ -0,0 +1,487 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.v5;
+
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskSpace;
+import diskCacheV111.util.PnfsHandler;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import dmg.cells.nucleus.CellAddressCore;
+import dmg.cells.nucleus.CellEndpoint;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellMessageAnswerable;
+import dmg.cells.nucleus.CellPath;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.OpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dcache.pool.repository.Account;
+import org.dcache.pool.repository.CacheEntry;
+import org.dcache.pool.repository.DuplicateEntryException;
+import org.dcache.pool.repository.FileStoreState;
+import org.dcache.pool.repository.ModifiableReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaDescriptor;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore;
+import org.dcache.pool.repository.Repository.OpenFlags;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.SpaceSweeperPolicy;
+import org.dcache.pool.repository.StickyRecord;
+import org.dcache.vehicles.FileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of concurrent repository operations on a pool with many replicas. The
+ * replica meta data is kept in memory and messages to the name space are discarded, so the
+ * benchmark measures the locking and bookkeeping of the repository itself.
+ * <p>
+ * The {@code mixed} group models a busy pool: movers opening replicas, frequent state queries,
+ * and a trickle of state changes and new uploads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1)
+@Measurement(iterations = 5, time = 2)
+@Warmup(iterations = 3, time = 2)
+public class ReplicaRepositoryBenchmark {
+
+    private static final Set<OpenFlags> NOATIME = EnumSet.of(OpenFlags.NOATIME);
+
+    private static final Set<OpenFlags> NO_FLAGS = EnumSet.noneOf(OpenFlags.class);
+
+    @Param({"100000"})
+    private int replicas;
+
+    private ReplicaRepository repository;
+    private ScheduledExecutorService executor;
+    private PnfsId[] ids;
+    private final AtomicLong nextId = new AtomicLong(1L << 40);
+
+    @Setup
+    public void setUp() throws Exception {
+        MemoryReplicaStore store = new MemoryReplicaStore();
+        ids = new PnfsId[replicas];
+        for (int i = 0; i < replicas; i++) {
+            ids[i] = new PnfsId(String.format("%024X", i));
+            store.add(ids[i], i % 2 == 0 ? ReplicaState.PRECIOUS : ReplicaState.CACHED);
+        }
+
+        PnfsHandler pnfs = new PnfsHandler(new CellPath("PnfsManager"), "pool");
+        pnfs.setCellEndpoint(new DiscardingEndpoint());
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        repository = new ReplicaRepository();
+        repository.setCellAddress(new CellAddressCore("pool", "benchmark"));
+        repository.setPnfsHandler(pnfs);
+        repository.setAccount(new Account());
+        repository.setReplicaStore(store);
+        repository.setExecutor(executor);
+        repository.setSpaceSweeperPolicy(new NoSweeper());
+        repository.setMaxDiskSpace(new DiskSpace(Long.MAX_VALUE / 2));
+        repository.setScanThreads(1);
+        repository.init();
+        repository.load();
+    }
+
+    @TearDown
+    public void tearDown() {
+        repository.shutdown();
+        executor.shutdown();
+    }
+
+    private PnfsId randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private void openAndClose() throws CacheException {
+        ReplicaDescriptor handle = repository.openEntry(randomId(), NOATIME);
+        handle.close();
+    }
+
+    private ReplicaState toggleState() throws CacheException, InterruptedException {
+        PnfsId id = randomId();
+        ReplicaState state = repository.getState(id) == ReplicaState.CACHED
+              ? ReplicaState.PRECIOUS : ReplicaState.CACHED;
+        repository.setState(id, state, "benchmark");
+        return state;
+    }
+
+    private void createAndAbort() throws CacheException {
+        PnfsId id = new PnfsId(String.format("%024X", nextId.getAndIncrement()));
+        FileAttributes attributes = FileAttributes.of()
+              .pnfsId(id)
+              .size(0L)
+              .storageInfo(GenericStorageInfo.valueOf("test:benchmark@osm", "*"))
+              .build();
+        ModifiableReplicaDescriptor handle = repository.createEntry(attributes,
+              ReplicaState.FROM_STORE, ReplicaState.CACHED, List.of(), NO_FLAGS,
+              OptionalLong.empty());
+        handle.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void open() throws CacheException {
+        openAndClose();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ReplicaState getState() throws CacheException, InterruptedException {
+        return repository.getState(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public CacheEntry getEntry() throws CacheException, InterruptedException {
+        return repository.getEntry(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ReplicaState setState() throws CacheException, InterruptedException {
+        return toggleState();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void createEntry() throws CacheException {
+        createAndAbort();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public void mixedOpen() throws CacheException {
+        openAndClose();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public ReplicaState mixedGetState() throws CacheException, InterruptedException {
+        return repository.getState(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public ReplicaState mixedSetState() throws CacheException, InterruptedException {
+        return toggleState();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedCreateEntry() throws CacheException {
+        createAndAbort();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ReplicaRepositoryBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+
+    /**
+     * Cell endpoint silently discarding all messages.
+     */
+    private static class DiscardingEndpoint implements CellEndpoint {
+
+        @Override
+        public void sendMessage(CellMessage envelope, SendFlag... flags) {
+        }
+
+        @Override
+        public void sendMessage(CellMessage envelope, CellMessageAnswerable callback,
+              Executor executor, long timeout, SendFlag... flags) {
+        }
+
+        @Override
+        public Map<String, Object> getDomainContext() {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Sweeper policy that never considers any replica removable.
+     */
+    private static class NoSweeper implements SpaceSweeperPolicy {
+
+        @Override
+        public boolean isRemovable(CacheEntry entry) {
+            return false;
+        }
+
+        @Override
+        public long getLru() {
+            return 0;
+        }
+
+        @Override
+        public double getMargin() {
+            return 0;
+        }
+    }
+
+    /**
+     * Replica store keeping all meta data in memory. Replicas have no data.
+     */
+    private static class MemoryReplicaStore implements ReplicaStore {
+
+        private final ConcurrentMap<PnfsId, MemoryReplicaRecord> records =
+              new ConcurrentHashMap<>();
+
+        void add(PnfsId id, ReplicaState state) {
+            MemoryReplicaRecord record = new MemoryReplicaRecord(id);
+            record.state = state;
+            record.attributes = FileAttributes.of()
+                  .pnfsId(id)
+                  .size(0L)
+                  .storageInfo(GenericStorageInfo.valueOf("test:benchmark@osm", "*"))
+                  .build();
+            records.put(id, record);
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public Set<PnfsId> index(IndexOption... options) {
+            return new HashSet<>(records.keySet());
+        }
+
+        @Override
+        public ReplicaRecord get(PnfsId id) {
+            return records.get(id);
+        }
+
+        @Override
+        public ReplicaRecord create(PnfsId id, Set<? extends OpenOption> flags)
+              throws DuplicateEntryException {
+            MemoryReplicaRecord record = new MemoryReplicaRecord(id);
+            if (records.putIfAbsent(id, record) != null) {
+                throw new DuplicateEntryException(id);
+            }
+            return record;
+        }
+
+        @Override
+        public void remove(PnfsId id) {
+            records.remove(id);
+        }
+
+        @Override
+        public FileStoreState isOk() {
+            return FileStoreState.OK;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public long getFreeSpace() {
+            return Long.MAX_VALUE / 2;
+        }
+
+        @Override
+        public long getTotalSpace() {
+            return Long.MAX_VALUE / 2;
+        }
+
+        @Override
+        public String toString() {
+            return "memory";
+        }
+    }
+
+    private static class MemoryReplicaRecord implements ReplicaRecord,
+          ReplicaRecord.UpdatableRecord {
+
+        private final PnfsId id;
+        private final long creationTime = System.currentTimeMillis();
+        private final Map<String, StickyRecord> sticky = new HashMap<>();
+        private ReplicaState state = ReplicaState.NEW;
+        private FileAttributes attributes;
+        private long lastAccessTime = creationTime;
+        private int linkCount;
+
+        MemoryReplicaRecord(PnfsId id) {
+            this.id = id;
+            this.attributes = FileAttributes.ofPnfsId(id);
+        }
+
+        @Override
+        public PnfsId getPnfsId() {
+            return id;
+        }
+
+        @Override
+        public long getReplicaSize() {
+            return 0;
+        }
+
+        @Override
+        public synchronized FileAttributes getFileAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public synchronized ReplicaState getState() {
+            return state;
+        }
+
+        @Override
+        public URI getReplicaUri() {
+            return URI.create("memory:" + id);
+        }
+
+        @Override
+        public RepositoryChannel openChannel(Set<? extends OpenOption> mode)
+              throws IOException {
+            throw new IOException("Replica has no data");
+        }
+
+        @Override
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public synchronized long getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        @Override
+        public synchronized void setLastAccessTime(long time) {
+            lastAccessTime = time;
+        }
+
+        @Override
+        public synchronized int decrementLinkCount() {
+            return --linkCount;
+        }
+
+        @Override
+        public synchronized int incrementLinkCount() {
+            return ++linkCount;
+        }
+
+        @Override
+        public synchronized int getLinkCount() {
+            return linkCount;
+        }
+
+        @Override
+        public synchronized boolean isSticky() {
+            return !sticky.isEmpty();
+        }
+
+        @Override
+        public synchronized Collection<StickyRecord> removeExpiredStickyFlags() {
+            List<StickyRecord> removed = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            Iterator<StickyRecord> i = sticky.values().iterator();
+            while (i.hasNext()) {
+                StickyRecord record = i.next();
+                if (!record.isValidAt(now)) {
+                    i.remove();
+                    removed.add(record);
+                }
+            }
+            return removed;
+        }
+
+        @Override
+        public synchronized Collection<StickyRecord> stickyRecords() {
+            return new ArrayList<>(sticky.values());
+        }
+
+        @Override
+        public synchronized <T> T update(String why, Update<T> update) throws CacheException {
+            return update.apply(this);
+        }
+
+        @Override
+        public synchronized boolean setSticky(String owner, long validTill, boolean overwrite) {
+            if (validTill == -1 || validTill > System.currentTimeMillis()) {
+                sticky.put(owner, new StickyRecord(owner, validTill));
+            } else {
+                sticky.remove(owner);
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized Void setState(ReplicaState state) {
+            this.state = state;
+            return null;
+        }
+
+        @Override
+        public synchronized Void setFileAttributes(FileAttributes attributes) {
+            this.attributes = attributes;
+            return null;
+        }
+    }
+}
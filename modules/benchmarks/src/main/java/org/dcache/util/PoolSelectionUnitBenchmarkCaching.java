@@ -32,6 +32,7 @@ import org.dcache.vehicles.FileAttributes;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -41,13 +42,23 @@ import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
-@State(Scope.Thread)
+/**
+ * All threads share a single selection unit, like the threads of pool manager do. The number of
+ * additional net and store units may be raised to model sites with large unit tables.
+ */
+@State(Scope.Benchmark)
 @BenchmarkMode(Mode.Throughput)
 public class PoolSelectionUnitBenchmarkCaching {
 
     private PoolSelectionUnitV2 psu;
     private final Predicate<String> excludeNoPools = p -> false;
 
+    @Param({"0", "1000"})
+    private int additionalUnits;
+
+    @Param({"false", "true"})
+    private boolean caching;
+
     private FileAttributes fileAttributes = FileAttributes.of()
           .storageInfo(GenericStorageInfo.valueOf("a:b@osm", "*"))
           .build();
@@ -336,7 +347,17 @@ public class PoolSelectionUnitBenchmarkCaching {
         ci.command(new Args("psu addto link default-read-link-in default-read-pools"));
         ci.command(new Args("psu addto link default-write-link-in default-write-pools"));
 
+        // additional units, none of them matching the requests
+        for (int i = 0; i < additionalUnits; i++) {
+            String net = String.format("10.%d.%d.0/255.255.255.0", i / 256, i % 256);
+            ci.command(new Args("psu create unit -net " + net));
+            ci.command(new Args("psu addto ugroup intern " + net));
+            ci.command(new Args("psu create unit -store exp" + i + ":raw@osm"));
+            ci.command(new Args("psu addto ugroup all exp" + i + ":raw@osm"));
+        }
+
         ci.command("psu set allpoolsactive on");
+        psu.setCachingEnabeled(caching);
 
     }
 
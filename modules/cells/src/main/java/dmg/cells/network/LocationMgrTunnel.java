@@ -26,6 +26,7 @@ import dmg.cells.nucleus.CellRoute;
 import dmg.cells.nucleus.CellTunnel;
 import dmg.cells.nucleus.CellTunnelInfo;
 import dmg.cells.nucleus.MessageEvent;
+import dmg.cells.nucleus.MsgSerializerCompact;
 import dmg.cells.nucleus.NoRouteToCellException;
 import dmg.cells.nucleus.RoutedMessageEvent;
 import dmg.cells.nucleus.SerializationHandler;
@@ -101,7 +102,8 @@ public class LocationMgrTunnel
         _localDomainInfo = new CellDomainInfo(_nucleus.getCellDomainName(),
               Version.of(LocationMgrTunnel.class).getVersion(),
               role,
-              _nucleus.getZone());
+              _nucleus.getZone(),
+              Optional.of(MsgSerializerCompact.getCodecSignature()));
     }
 
     @Override
@@ -179,6 +181,15 @@ public class LocationMgrTunnel
 
                 SerializationHandler.Serializer serializer = samedVersionEndpoint ?
                       _nucleus.getMsgSerialization() : SerializationHandler.Serializer.JOS;
+
+                // The compact serializer requires both ends to agree on the payload codecs
+                if (serializer == SerializationHandler.Serializer.COMPACT
+                      && !_remoteDomainInfo.getPayloadCodecs()
+                      .equals(_localDomainInfo.getPayloadCodecs())) {
+                    _log.info("Peer {} does not support the same payload codecs; using {}.",
+                          _remoteDomainInfo, SerializationHandler.Serializer.JOS);
+                    serializer = SerializationHandler.Serializer.JOS;
+                }
                 this._serializer = serializer;
                 /* Since dCache 3.0 we use raw encoding of CellMessage. */
                 _input = new RawObjectSource(_rawIn);
@@ -371,9 +382,7 @@ public class LocationMgrTunnel
         public void writeObject(CellMessage message) throws IOException {
             // Older versions do not support the new serialization format
             // Due to lack of message versioning support, always use JOS with different dCache versions
-            message.ensureEncodedWith(serializer);
-
-            message.writeTo(out);
+            message.ensureEncodedWith(serializer).writeTo(out);
             out.flush();
         }
     }
@@ -31,13 +31,20 @@ public class CellDomainInfo implements Serializable {
     private final String _version;
     private final String _zone;
     private CellDomainRole _role;
+    private final String _payloadCodecs;
 
     public CellDomainInfo(String name, String version, CellDomainRole role,
           Optional<String> zone) {
+        this(name, version, role, zone, Optional.empty());
+    }
+
+    public CellDomainInfo(String name, String version, CellDomainRole role,
+          Optional<String> zone, Optional<String> payloadCodecs) {
         _domainName = requireNonNull(name);
         _version = requireNonNull(version);
         _role = requireNonNull(role);
         _zone = zone.orElse(null);
+        _payloadCodecs = payloadCodecs.orElse(null);
     }
 
     public String getVersion() {
@@ -67,6 +74,15 @@ public class CellDomainInfo implements Serializable {
         return Optional.ofNullable(_zone);
     }
 
+    /**
+     * Returns the signature of the compact payload codecs supported by the domain, as provided by
+     * {@link MsgSerializerCompact#getCodecSignature()}. Empty if the domain does not support the
+     * compact serializer.
+     */
+    public Optional<String> getPayloadCodecs() {
+        return Optional.ofNullable(_payloadCodecs);
+    }
+
     public String toString() {
         return _domainName + ',' + _version + ',' + _role;
     }
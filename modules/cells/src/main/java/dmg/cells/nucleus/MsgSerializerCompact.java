@@ -0,0 +1,248 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.joining;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class contains methods for serializing and deserializing objects to/from a compact byte
+ * array representation.
+ * <p>
+ * The format is Java Object Serialization with a twist: every object in the payload graph for
+ * which a {@link PayloadCodec} is registered is replaced by a small envelope carrying the codec
+ * identifier and the hand-written binary form of the object. This avoids the class descriptors,
+ * field names and per-field type information that make JOS expensive for the vehicles found in
+ * nearly every message, while any other object is still serialized by JOS.
+ * <p>
+ * Encoded byte arrays start with a two byte header that cannot be confused with the JOS stream
+ * magic, allowing {@link SerializationHandler} to select the decoder by inspecting the data.
+ */
+public final class MsgSerializerCompact {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MsgSerializerCompact.class);
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final byte[] HEADER = {(byte) 0xDC, (byte) 0x01};
+
+    /**
+     * Strings no longer than this are guaranteed to fit into the modified UTF-8 encoding of
+     * {@link java.io.DataOutput#writeUTF}.
+     */
+    private static final int MAX_UTF_CHARS = 0xFFFF / 3;
+
+    private static final byte NULL_STRING = 0;
+    private static final byte UTF_STRING = 1;
+    private static final byte OBJECT_STRING = 2;
+
+    private static final Map<Class<?>, PayloadCodec<?>> CODECS_BY_TYPE;
+    private static final Map<Integer, PayloadCodec<?>> CODECS_BY_ID;
+    private static final String CODEC_SIGNATURE;
+
+    static {
+        Map<Class<?>, PayloadCodec<?>> byType = new HashMap<>();
+        Map<Integer, PayloadCodec<?>> byId = new TreeMap<>();
+        for (PayloadCodec<?> codec : ServiceLoader.load(PayloadCodec.class,
+              MsgSerializerCompact.class.getClassLoader())) {
+            PayloadCodec<?> existing = byId.get(codec.getId());
+            if (existing != null) {
+                LOGGER.error("Ignoring codec {} for {}: identifier {} is already used by {}.",
+                      codec.getClass().getName(), codec.getType().getName(), codec.getId(),
+                      existing.getClass().getName());
+            } else if (byType.containsKey(codec.getType())) {
+                LOGGER.error("Ignoring codec {}: {} is already handled by {}.",
+                      codec.getClass().getName(), codec.getType().getName(),
+                      byType.get(codec.getType()).getClass().getName());
+            } else {
+                byId.put(codec.getId(), codec);
+                byType.put(codec.getType(), codec);
+            }
+        }
+        CODECS_BY_TYPE = Collections.unmodifiableMap(byType);
+        CODECS_BY_ID = Collections.unmodifiableMap(byId);
+        CODEC_SIGNATURE = byId.values().stream()
+              .map(c -> c.getId() + ":" + c.getType().getName())
+              .collect(joining(","));
+    }
+
+    private MsgSerializerCompact() {
+    }
+
+    /**
+     * Returns a canonical description of the codecs known to this domain. Two domains can exchange
+     * compact encoded messages only if their signatures are equal.
+     */
+    public static String getCodecSignature() {
+        return CODEC_SIGNATURE;
+    }
+
+    public static boolean isEncoded(byte[] messageStream) {
+        return messageStream.length >= HEADER.length
+              && messageStream[0] == HEADER[0] && messageStream[1] == HEADER[1];
+    }
+
+    public static byte[] encode(Object message) {
+        checkState(message != null, "Unencoded message payload is null.");
+        ByteArrayOutputStream array = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        array.write(HEADER, 0, HEADER.length);
+        try (ObjectOutputStream out = new CodecObjectOutputStream(array)) {
+            out.writeObject(message);
+        } catch (InvalidClassException e) {
+            throw new SerializationException("Failed to serialize object: "
+                  + e + "(this is usually a bug)", e);
+        } catch (NotSerializableException e) {
+            throw new SerializationException(
+                  "Failed to serialize object because the object is not serializable (this is usually a bug)",
+                  e);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize object: " + e, e);
+        }
+
+        return array.toByteArray();
+    }
+
+    public static Object decode(byte[] messageStream) {
+        checkState(messageStream != null, "Encoded message payload is null.");
+        checkState(isEncoded(messageStream), "Message payload is not compact encoded.");
+        try (ObjectInputStream stream = new ObjectInputStream(
+              new ByteArrayInputStream(messageStream, HEADER.length,
+                    messageStream.length - HEADER.length))) {
+            return stream.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new SerializationException(
+                  "Failed to deserialize object: The class could not be found. Is there a software version mismatch in your installation?",
+                  e);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to deserialize object: " + e, e);
+        }
+    }
+
+    /**
+     * Writes a possibly null string. Unlike {@link ObjectOutput#writeUTF}, strings of any length
+     * are supported.
+     */
+    public static void writeString(ObjectOutput out, String s) throws IOException {
+        if (s == null) {
+            out.writeByte(NULL_STRING);
+        } else if (s.length() <= MAX_UTF_CHARS) {
+            out.writeByte(UTF_STRING);
+            out.writeUTF(s);
+        } else {
+            out.writeByte(OBJECT_STRING);
+            out.writeObject(s);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     */
+    public static String readString(ObjectInput in) throws IOException, ClassNotFoundException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL_STRING:
+                return null;
+            case UTF_STRING:
+                return in.readUTF();
+            case OBJECT_STRING:
+                return (String) in.readObject();
+            default:
+                throw new StreamCorruptedException("Invalid string type: " + type);
+        }
+    }
+
+    /**
+     * Object output stream replacing objects with a registered codec by their compact envelope.
+     */
+    private static class CodecObjectOutputStream extends ObjectOutputStream {
+
+        CodecObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            PayloadCodec<?> codec = CODECS_BY_TYPE.get(obj.getClass());
+            return codec == null ? obj : new Envelope(codec, obj);
+        }
+    }
+
+    /**
+     * The serialized form of an object with a registered codec. Upon deserialization the envelope
+     * resolves to the decoded object.
+     */
+    static final class Envelope implements Externalizable {
+
+        private static final long serialVersionUID = 1L;
+
+        private PayloadCodec<Object> _codec;
+        private Object _object;
+
+        public Envelope() {
+        }
+
+        @SuppressWarnings("unchecked")
+        Envelope(PayloadCodec<?> codec, Object object) {
+            _codec = (PayloadCodec<Object>) codec;
+            _object = object;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeShort(_codec.getId());
+            _codec.encode(_object, out);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            int id = in.readShort();
+            _codec = (PayloadCodec<Object>) CODECS_BY_ID.get(id);
+            if (_codec == null) {
+                throw new InvalidClassException("No payload codec with identifier " + id
+                      + ". Is there a software version mismatch in your installation?");
+            }
+            _object = _codec.decode(in);
+        }
+
+        private Object readResolve() {
+            return _object;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A hand-written binary codec for a frequently exchanged message payload type.
+ * <p>
+ * Codecs are used by {@link MsgSerializerCompact} in place of the default Java serialization
+ * whenever an object of exactly {@link #getType()} is encountered anywhere in the payload graph.
+ * Objects of any other type, including subclasses of the codec type, are serialized with Java
+ * Object Serialization. Implementations are discovered through {@link java.util.ServiceLoader}.
+ * <p>
+ * The identifier and the wire format of a codec are only guaranteed to be stable within a single
+ * dCache release; {@link dmg.cells.network.LocationMgrTunnel} only negotiates the compact
+ * serializer with peers that advertise the very same set of codecs.
+ *
+ * @param <T> the type handled by this codec
+ */
+public interface PayloadCodec<T> {
+
+    /**
+     * Returns the identifier written in place of the class descriptor. Must be unique among all
+     * codecs.
+     */
+    int getId();
+
+    /**
+     * Returns the class of objects handled by this codec.
+     */
+    Class<T> getType();
+
+    /**
+     * Write the state of {@code object} to {@code out}. Nested objects without a compact
+     * representation may be written with {@link ObjectOutput#writeObject}.
+     */
+    void encode(T object, ObjectOutput out) throws IOException;
+
+    /**
+     * Reconstruct an object from the state written by {@link #encode}.
+     */
+    T decode(ObjectInput in) throws IOException, ClassNotFoundException;
+}
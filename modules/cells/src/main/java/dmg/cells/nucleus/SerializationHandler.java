@@ -26,14 +26,14 @@ import org.slf4j.LoggerFactory;
  * The class contains methods for serializing and deserializing objects to/from a byte array
  * representation. It selects the deserialization method based on a header that is appended to
  * serialized byte arrays based on the used serializer. Currently the class can differentiate
- * between JOS and FST.
+ * between JOS and the compact serializer.
  */
 public final class SerializationHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SerializationHandler.class);
 
     public enum Serializer {
-        UNDEFINED("undefined"), JOS("standard");
+        UNDEFINED("undefined"), JOS("standard"), COMPACT("compact");
 
         private final String displayName;
 
@@ -57,8 +57,9 @@ public final class SerializationHandler {
         switch (serializerString) {
             case "standard":
                 return Serializer.JOS;
+            case "compact":
             case "experimental":
-                // keep the keyword for the future use.
+                return Serializer.COMPACT;
             default:
                 LOGGER.warn("Unknown serializer specified in configuration. Defaulting to {}.",
                       Serializer.JOS);
@@ -68,13 +69,23 @@ public final class SerializationHandler {
     }
 
     public static boolean isEncodedWith(byte[] msgStream, Serializer serializer) {
-        return true; // we expect only one serialization type
+        switch (serializer) {
+            case JOS:
+                return !MsgSerializerCompact.isEncoded(msgStream);
+            case COMPACT:
+                return MsgSerializerCompact.isEncoded(msgStream);
+            case UNDEFINED:
+            default:
+                return false;
+        }
     }
 
     public static byte[] encode(Object message, Serializer serializer) {
         switch (serializer) {
             case JOS:
                 return MsgSerializerJos.encode(message);
+            case COMPACT:
+                return MsgSerializerCompact.encode(message);
             case UNDEFINED:
             default:
                 throw new UnsupportedOperationException(
@@ -83,6 +94,9 @@ public final class SerializationHandler {
     }
 
     public static Object decode(byte[] messageStream) {
+        if (MsgSerializerCompact.isEncoded(messageStream)) {
+            return MsgSerializerCompact.decode(messageStream);
+        }
         return MsgSerializerJos.decode(messageStream);
     }
 
@@ -0,0 +1,136 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import static dmg.cells.nucleus.MsgSerializerCompact.readString;
+import static dmg.cells.nucleus.MsgSerializerCompact.writeString;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.security.Principal;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import javax.security.auth.Subject;
+import org.dcache.auth.FQANPrincipal;
+import org.dcache.auth.GidPrincipal;
+import org.dcache.auth.GroupNamePrincipal;
+import org.dcache.auth.LoginNamePrincipal;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.auth.UserNamePrincipal;
+
+/**
+ * Compact codec for {@link Subject}. Like the Java serialized form, only the principals and the
+ * read-only flag are preserved. The most common principal types are written as tagged primitive
+ * values, any other principal is written with Java serialization.
+ */
+public class SubjectCodec implements PayloadCodec<Subject> {
+
+    private static final byte OTHER = 0;
+    private static final byte UID = 1;
+    private static final byte GID = 2;
+    private static final byte USER_NAME = 3;
+    private static final byte GROUP_NAME = 4;
+    private static final byte LOGIN_NAME = 5;
+    private static final byte FQAN = 6;
+
+    @Override
+    public int getId() {
+        return 1;
+    }
+
+    @Override
+    public Class<Subject> getType() {
+        return Subject.class;
+    }
+
+    @Override
+    public void encode(Subject subject, ObjectOutput out) throws IOException {
+        Set<Principal> principals = subject.getPrincipals();
+        out.writeBoolean(subject.isReadOnly());
+        out.writeInt(principals.size());
+        for (Principal principal : principals) {
+            Class<?> type = principal.getClass();
+            if (type == UidPrincipal.class) {
+                out.writeByte(UID);
+                out.writeLong(((UidPrincipal) principal).getUid());
+            } else if (type == GidPrincipal.class) {
+                GidPrincipal gid = (GidPrincipal) principal;
+                out.writeByte(GID);
+                out.writeLong(gid.getGid());
+                out.writeBoolean(gid.isPrimaryGroup());
+            } else if (type == UserNamePrincipal.class) {
+                out.writeByte(USER_NAME);
+                writeString(out, principal.getName());
+            } else if (type == GroupNamePrincipal.class) {
+                out.writeByte(GROUP_NAME);
+                writeString(out, principal.getName());
+                out.writeBoolean(((GroupNamePrincipal) principal).isPrimaryGroup());
+            } else if (type == LoginNamePrincipal.class) {
+                out.writeByte(LOGIN_NAME);
+                writeString(out, principal.getName());
+            } else if (type == FQANPrincipal.class) {
+                out.writeByte(FQAN);
+                writeString(out, principal.getName());
+                out.writeBoolean(((FQANPrincipal) principal).isPrimaryGroup());
+            } else {
+                out.writeByte(OTHER);
+                out.writeObject(principal);
+            }
+        }
+    }
+
+    @Override
+    public Subject decode(ObjectInput in) throws IOException, ClassNotFoundException {
+        boolean isReadOnly = in.readBoolean();
+        int count = in.readInt();
+        Set<Principal> principals = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            switch (type) {
+                case UID:
+                    principals.add(new UidPrincipal(in.readLong()));
+                    break;
+                case GID:
+                    principals.add(new GidPrincipal(in.readLong(), in.readBoolean()));
+                    break;
+                case USER_NAME:
+                    principals.add(new UserNamePrincipal(readString(in)));
+                    break;
+                case GROUP_NAME:
+                    principals.add(new GroupNamePrincipal(readString(in), in.readBoolean()));
+                    break;
+                case LOGIN_NAME:
+                    principals.add(new LoginNamePrincipal(readString(in)));
+                    break;
+                case FQAN:
+                    principals.add(new FQANPrincipal(readString(in), in.readBoolean()));
+                    break;
+                case OTHER:
+                    principals.add((Principal) in.readObject());
+                    break;
+                default:
+                    throw new StreamCorruptedException("Invalid principal type: " + type);
+            }
+        }
+        return new Subject(isReadOnly, principals, Collections.emptySet(),
+              Collections.emptySet());
+    }
+}
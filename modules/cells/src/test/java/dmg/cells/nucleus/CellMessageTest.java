@@ -3,6 +3,7 @@ package dmg.cells.nucleus;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -63,6 +64,38 @@ public class CellMessageTest {
     }
      */
 
+    @Test
+    public void shouldDeserializeSerializedMessage_Compact() throws Exception {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        CellMessage encoded = message.encodeWith(SerializationHandler.Serializer.COMPACT);
+
+        CellMessage decoded = writeAndRead(encoded).decode();
+
+        assertEquals(message.getUOID(), decoded.getUOID());
+        assertEquals(message.getDestinationPath(), decoded.getDestinationPath());
+        assertEquals("payload", decoded.getMessageObject());
+    }
+
+    @Test
+    public void shouldDeserializeSerializedMessage_RepackedToJos() throws Exception {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        CellMessage encoded = message.encodeWith(SerializationHandler.Serializer.COMPACT)
+              .ensureEncodedWith(SerializationHandler.Serializer.JOS);
+
+        CellMessage deserialized = writeAndRead(encoded);
+
+        assertSame(deserialized,
+              deserialized.ensureEncodedWith(SerializationHandler.Serializer.JOS));
+        assertEquals("payload", deserialized.decode().getMessageObject());
+    }
+
+    private static CellMessage writeAndRead(CellMessage message) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        message.writeTo(new DataOutputStream(out));
+        return CellMessage.createFrom(
+              new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void shouldFailToSerializedUnencodedMessages() throws Exception {
         CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
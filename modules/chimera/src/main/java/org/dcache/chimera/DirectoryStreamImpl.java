@@ -16,66 +16,106 @@
  */
 package org.dcache.chimera;
 
-import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import org.springframework.dao.DataAccessException;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DataSourceUtils;
-import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Reads the entries of a directory in pages ordered by name.
+ * <p>
+ * Every page is fetched by a separate query that continues after the name of the last entry of
+ * the previous page (keyset pagination on the primary key of t_dirs). No connection or cursor is
+ * held between pages, so a slow consumer does not tie up a database connection and the memory
+ * used is bounded by the page size, no matter how large the directory is. The first page is small
+ * to make the first entries available quickly; the size of subsequent pages doubles up to the
+ * maximum page size.
+ * <p>
+ * The entries "." and ".." are returned first. Entries added or removed while the directory is
+ * read may or may not be returned, but no entry is returned twice.
+ * <p>
+ * A stream may start after a given name, in which case only the entries with a greater name are
+ * returned, without "." and "..". This allows a listing to be continued in a later stream.
+ */
+public class DirectoryStreamImpl<T> {
 
-public class DirectoryStreamImpl {
+    private static final int FIRST_PAGE_SIZE = 64;
 
-    private static final String QUERY =
-          "SELECT i.*, d.iname FROM t_inodes i JOIN t_dirs d ON i.inumber = d.ichild WHERE d.iparent=? "
-                +
-                "UNION ALL " +
-                "SELECT i.*, '.' FROM t_inodes i WHERE i.inumber=? " +
-                "UNION ALL " +
-                "SELECT i.*, '..' FROM t_inodes i JOIN t_dirs d ON i.inumber = d.iparent WHERE d.ichild=?";
+    /* The entries "." and ".." are fetched by separate queries, as a union would pad the shorter
+     * name on some databases.
+     */
+    private static final String DOT_QUERY =
+          "SELECT i.*, '.' AS iname FROM t_inodes i WHERE i.inumber=?";
+
+    private static final String DOT_DOT_QUERY =
+          "SELECT i.*, '..' AS iname FROM t_inodes i JOIN t_dirs d ON i.inumber = d.iparent WHERE d.ichild=?";
+
+    private static final String PAGE_QUERY =
+          "SELECT i.*, d.iname FROM t_dirs d JOIN t_inodes i ON i.inumber = d.ichild " +
+                "WHERE d.iparent=? AND d.iname > ? ORDER BY d.iname LIMIT ?";
 
-    private final ResultSet _resultSet;
     private final JdbcTemplate _jdbc;
-    private final Connection _connection;
-    private final PreparedStatement _statement;
+    private final RowMapper<T> _mapper;
+    private final long _dir;
+    private final int _maxPageSize;
+    private final Deque<T> _page = new ArrayDeque<>();
 
-    DirectoryStreamImpl(FsInode dir, JdbcTemplate jdbc) {
-        _jdbc = jdbc;
+    private int _pageSize;
+    private String _lastName;
+    private boolean _isLastPage;
 
-        Connection connection = null;
-        PreparedStatement ps = null;
-        ResultSet rs;
-        try {
-            connection = DataSourceUtils.getConnection(_jdbc.getDataSource());
-            ps = connection.prepareStatement(QUERY);
-            ps.setFetchSize(50);
-            ps.setLong(1, dir.ino());
-            ps.setLong(2, dir.ino());
-            ps.setLong(3, dir.ino());
-            rs = ps.executeQuery();
-        } catch (SQLException ex) {
-            JdbcUtils.closeStatement(ps);
-            DataSourceUtils.releaseConnection(connection, _jdbc.getDataSource());
-            throw _jdbc.getExceptionTranslator().translate("StatementExecution", QUERY, ex);
+    DirectoryStreamImpl(FsInode dir, JdbcTemplate jdbc, RowMapper<T> mapper, int maxPageSize) {
+        this(dir, jdbc, mapper, maxPageSize, null);
+    }
+
+    /**
+     * @param startAfter if not null, only entries with a name greater than this name are returned
+     */
+    DirectoryStreamImpl(FsInode dir, JdbcTemplate jdbc, RowMapper<T> mapper, int maxPageSize,
+          String startAfter) {
+        checkArgument(maxPageSize > 0, "Page size must be positive");
+        _jdbc = jdbc;
+        _mapper = mapper;
+        _dir = dir.ino();
+        _maxPageSize = maxPageSize;
+        _pageSize = Math.min(FIRST_PAGE_SIZE, maxPageSize);
+        _lastName = startAfter;
+        if (startAfter == null) {
+            _page.addAll(_jdbc.query(DOT_QUERY, _mapper, _dir));
+            _page.addAll(_jdbc.query(DOT_DOT_QUERY, _mapper, _dir));
         }
-        _connection = connection;
-        _resultSet = rs;
-        _statement = ps;
     }
 
-    public void close() throws IOException {
-        try {
-            JdbcUtils.closeResultSet(_resultSet);
-            JdbcUtils.closeStatement(_statement);
-            DataSourceUtils.releaseConnection(_connection, _jdbc.getDataSource());
-        } catch (DataAccessException e) {
-            throw new IOException(e.getMessage(), e);
+    /**
+     * Returns the next entry, or null if all entries have been read.
+     */
+    public T next() {
+        if (_page.isEmpty() && !_isLastPage) {
+            fetchPage();
         }
+        return _page.poll();
+    }
+
+    private void fetchPage() {
+        int limit = _pageSize;
+        _jdbc.query(PAGE_QUERY,
+              ps -> {
+                  ps.setLong(1, _dir);
+                  ps.setString(2, _lastName == null ? "" : _lastName);
+                  ps.setInt(3, limit);
+              },
+              rs -> {
+                  _lastName = rs.getString("iname");
+                  _page.add(_mapper.mapRow(rs, _page.size()));
+              });
+        _isLastPage = _page.size() < limit;
+        _pageSize = Math.min(_pageSize * 2, _maxPageSize);
     }
 
-    public ResultSet next() throws SQLException {
-        return _resultSet.next() ? _resultSet : null;
+    public void close() {
+        _page.clear();
+        _isLastPage = true;
     }
 }
@@ -159,6 +159,22 @@ public interface FileSystemProvider extends Closeable {
     DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir)
           throws ChimeraFsException;
 
+    /**
+     * Returns {@link DirectoryStreamB} of the ChimeraDirectoryEntry in the directory with a name
+     * greater than {@code startAfter}, in order of their names. The entries "." and ".." are not
+     * included.
+     * <p>
+     * The returned stream may keep system resources allocated. The try-with-resources construct
+     * should be used to ensure that the stream's close method is invoked after the stream
+     * operations are completed.
+     *
+     * @param dir        inode of the directory to list
+     * @param startAfter name of the entry after which to start the listing
+     * @return stream of directory entries
+     */
+    DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir, String startAfter)
+          throws ChimeraFsException;
+
 
     /**
      * Returns {@link DirectoryStreamB} of ChimeraDirectoryEntry in the directory.
@@ -273,6 +289,19 @@ public interface FileSystemProvider extends Closeable {
      */
     FsInode id2inode(String id, StatCacheOption stat) throws ChimeraFsException;
 
+    /**
+     * Find the inodes with the given ids. The stat cache of the returned inodes is pre-filled and
+     * up to date as of this call. Ids of inodes that do not exist are not included in the result.
+     * <p>
+     * In contrast to calling {@link #id2inode} for every id, the inodes are looked up with a small
+     * number of queries.
+     *
+     * @param ids
+     * @return inodes by id
+     * @throws ChimeraFsException
+     */
+    Map<String, FsInode> id2inodes(Collection<String> ids) throws ChimeraFsException;
+
     List<FsInode> path2inodes(String path)
           throws ChimeraFsException;
 
@@ -349,6 +378,17 @@ public interface FileSystemProvider extends Closeable {
     List<StorageLocatable> getInodeLocations(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Get the locations of several inodes. Inodes without locations are not included in the
+     * result.
+     *
+     * @param inodes
+     * @return locations by inode
+     * @throws ChimeraFsException
+     */
+    Map<FsInode, List<StorageLocatable>> getInodeLocations(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     void addInodeLocation(FsInode inode, int type,
           String location) throws ChimeraFsException;
 
@@ -421,6 +461,17 @@ public interface FileSystemProvider extends Closeable {
     Set<Checksum> getInodeChecksums(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Get the checksums of several inodes. Inodes without checksums are not included in the
+     * result.
+     *
+     * @param inodes
+     * @return checksums by inode
+     * @throws ChimeraFsException
+     */
+    Map<FsInode, Set<Checksum>> getInodeChecksums(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     String getInfo();
 
     /**
@@ -444,6 +495,17 @@ public interface FileSystemProvider extends Closeable {
      */
     List<ACE> getACL(FsInode inode) throws ChimeraFsException;
 
+    /**
+     * Get the Access Control Lists of several inodes. Inodes without ACL are not included in the
+     * result.
+     *
+     * @param inodes
+     * @return ordered lists of {@link ACE} by inode
+     * @throws ChimeraFsException
+     */
+    Map<FsInode, List<ACE>> getACLs(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException;
+
     /**
      * Set Access Control Entries list for specified inode.
      *
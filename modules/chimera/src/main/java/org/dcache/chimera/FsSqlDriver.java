@@ -86,6 +86,11 @@ import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
  * SQL driver
  */
 public class FsSqlDriver implements AutoCloseable {
+
+    /**
+     * Maximum number of values bound to a single set-based query.
+     */
+    protected static final int MAX_BATCH_SIZE = 1000;
     /**
      * Simple class to hold a tag assignment's directory inumber and its value.
      */
@@ -232,19 +237,43 @@ public class FsSqlDriver implements AutoCloseable {
     }
 
     /**
-     * Returns {@link DirectoryStreamB} of ChimeraDirectoryEntry in the directory.
+     * Returns {@link DirectoryStreamB} of ChimeraDirectoryEntry in the directory. The entries are
+     * read in pages of at most {@code pageSize} entries as the stream is iterated.
      *
      * @param dir
+     * @param pageSize maximum number of entries fetched with a single query
      * @return stream of directory entries
      */
-    DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir) {
+    DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir, int pageSize) {
+        return newDirectoryStream(dir, pageSize, null);
+    }
+
+    /**
+     * Returns {@link DirectoryStreamB} of ChimeraDirectoryEntry in the directory with a name
+     * greater than {@code startAfter}. The entries "." and ".." are not returned if
+     * {@code startAfter} is not null.
+     *
+     * @param dir
+     * @param pageSize   maximum number of entries fetched with a single query
+     * @param startAfter name after which the listing starts, or null to list all entries
+     * @return stream of directory entries
+     */
+    DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir, int pageSize,
+          String startAfter) {
         return new DirectoryStreamB<ChimeraDirectoryEntry>() {
-            final DirectoryStreamImpl stream = new DirectoryStreamImpl(dir, _jdbc);
+            final DirectoryStreamImpl<ChimeraDirectoryEntry> stream =
+                  new DirectoryStreamImpl<>(dir, _jdbc, (rs, rowNum) -> {
+                      Stat stat = toStat(rs);
+                      FsInode inode = new FsInode(dir.getFs(), rs.getLong("inumber"),
+                            FsInodeType.INODE, 0, stat);
+                      inode.setParent(dir);
+                      return new ChimeraDirectoryEntry(rs.getString("iname"), inode, stat);
+                  }, pageSize, startAfter);
 
             @Override
             public Iterator<ChimeraDirectoryEntry> iterator() {
                 return new Iterator<ChimeraDirectoryEntry>() {
-                    private ChimeraDirectoryEntry current = innerNext();
+                    private ChimeraDirectoryEntry current = stream.next();
 
                     @Override
                     public boolean hasNext() {
@@ -257,31 +286,14 @@ public class FsSqlDriver implements AutoCloseable {
                             throw new NoSuchElementException("No more entries");
                         }
                         ChimeraDirectoryEntry entry = current;
-                        current = innerNext();
+                        current = stream.next();
                         return entry;
                     }
-
-                    protected ChimeraDirectoryEntry innerNext() {
-                        try {
-                            ResultSet rs = stream.next();
-                            if (rs == null) {
-                                return null;
-                            }
-                            Stat stat = toStat(rs);
-                            FsInode inode = new FsInode(dir.getFs(), rs.getLong("inumber"),
-                                  FsInodeType.INODE, 0, stat);
-                            inode.setParent(dir);
-                            return new ChimeraDirectoryEntry(rs.getString("iname"), inode, stat);
-                        } catch (SQLException e) {
-                            LOGGER.error("failed to fetch next entry: {}", e.getMessage());
-                            return null;
-                        }
-                    }
                 };
             }
 
             @Override
-            public void close() throws IOException {
+            public void close() {
                 stream.close();
             }
         };
@@ -387,6 +399,25 @@ public class FsSqlDriver implements AutoCloseable {
               rs -> rs.next() ? toStat(rs) : null);
     }
 
+    /**
+     * Returns the stat of all inodes with the given ids. Inodes that do not exist are not
+     * included in the result. Label ids are not supported.
+     *
+     * @param ids
+     * @return
+     */
+    List<Stat> stat(Collection<String> ids) {
+        List<Stat> stats = new ArrayList<>(ids.size());
+        for (List<String> batch : Lists.partition(new ArrayList<>(ids), MAX_BATCH_SIZE)) {
+            _jdbc.query("SELECT * FROM t_inodes WHERE " + anyOf("ipnfsid", batch.size()),
+                  ps -> setAnyOf(ps, 1, "varchar", batch),
+                  rs -> {
+                      stats.add(toStat(rs));
+                  });
+        }
+        return stats;
+    }
+
     public Stat stat(FsInode inode) {
         return stat(inode, 0);
     }
@@ -1151,14 +1182,38 @@ public class FsSqlDriver implements AutoCloseable {
               ps -> {
                   ps.setLong(1, inode.ino());
               },
-              (rs, rowNum) -> {
-                  int type = rs.getInt("itype");
-                  long ctime = rs.getTimestamp("ictime").getTime();
-                  long atime = rs.getTimestamp("iatime").getTime();
-                  int priority = rs.getInt("ipriority");
-                  String location = rs.getString("ilocation");
-                  return new StorageGenericLocation(type, priority, location, ctime, atime, true);
-              });
+              (rs, rowNum) -> toLocation(rs));
+    }
+
+    /**
+     * returns the 'online' locations of several inodes by inode number. Inodes without locations
+     * are not included in the result.
+     *
+     * @param inumbers
+     * @return
+     */
+    Map<Long, List<StorageLocatable>> getInodeLocations(Collection<Long> inumbers) {
+        Map<Long, List<StorageLocatable>> locations = new HashMap<>();
+        for (List<Long> batch : Lists.partition(new ArrayList<>(inumbers), MAX_BATCH_SIZE)) {
+            _jdbc.query("SELECT inumber,itype,ilocation,ipriority,ictime,iatime FROM t_locationinfo "
+                        + "WHERE " + anyOf("inumber", batch.size())
+                        + " AND istate=1 ORDER BY ipriority DESC",
+                  ps -> setAnyOf(ps, 1, "bigint", batch),
+                  rs -> {
+                      locations.computeIfAbsent(rs.getLong("inumber"), i -> new ArrayList<>())
+                            .add(toLocation(rs));
+                  });
+        }
+        return locations;
+    }
+
+    private StorageLocatable toLocation(ResultSet rs) throws SQLException {
+        int type = rs.getInt("itype");
+        long ctime = rs.getTimestamp("ictime").getTime();
+        long atime = rs.getTimestamp("iatime").getTime();
+        int priority = rs.getInt("ipriority");
+        String location = rs.getString("ilocation");
+        return new StorageGenericLocation(type, priority, location, ctime, atime, true);
     }
 
 
@@ -1700,11 +1755,33 @@ public class FsSqlDriver implements AutoCloseable {
     List<Checksum> getInodeChecksums(FsInode inode) {
         return _jdbc.query("SELECT isum, itype FROM t_inodes_checksum WHERE inumber=?",
               ps -> ps.setLong(1, inode.ino()),
-              (rs, rowNum) -> {
-                  String checksum = rs.getString("isum");
-                  int type = rs.getInt("itype");
-                  return new Checksum(ChecksumType.getChecksumType(type), checksum);
-              });
+              (rs, rowNum) -> toChecksum(rs));
+    }
+
+    /**
+     * Returns the checksums of several inodes by inode number. Inodes without checksums are not
+     * included in the result.
+     *
+     * @param inumbers
+     */
+    Map<Long, List<Checksum>> getInodeChecksums(Collection<Long> inumbers) {
+        Map<Long, List<Checksum>> checksums = new HashMap<>();
+        for (List<Long> batch : Lists.partition(new ArrayList<>(inumbers), MAX_BATCH_SIZE)) {
+            _jdbc.query("SELECT inumber, isum, itype FROM t_inodes_checksum WHERE "
+                        + anyOf("inumber", batch.size()),
+                  ps -> setAnyOf(ps, 1, "bigint", batch),
+                  rs -> {
+                      checksums.computeIfAbsent(rs.getLong("inumber"), i -> new ArrayList<>())
+                            .add(toChecksum(rs));
+                  });
+        }
+        return checksums;
+    }
+
+    private Checksum toChecksum(ResultSet rs) throws SQLException {
+        String checksum = rs.getString("isum");
+        int type = rs.getInt("itype");
+        return new Checksum(ChecksumType.getChecksumType(type), checksum);
     }
 
     /**
@@ -1855,17 +1932,61 @@ public class FsSqlDriver implements AutoCloseable {
     List<ACE> readAcl(FsInode inode) {
         return _jdbc.query("SELECT * FROM t_acl WHERE inumber =  ? ORDER BY ace_order",
               ps -> ps.setLong(1, inode.ino()),
-              (rs, rowNum) -> {
-                  AceType type =
-                        (rs.getInt("type") == 0)
-                              ? AceType.ACCESS_ALLOWED_ACE_TYPE
-                              : AceType.ACCESS_DENIED_ACE_TYPE;
-                  return new ACE(type,
-                        rs.getInt("flags"),
-                        rs.getInt("access_msk"),
-                        Who.valueOf(rs.getInt("who")),
-                        rs.getInt("who_id"));
-              });
+              (rs, rowNum) -> toAce(rs));
+    }
+
+    /**
+     * Returns the Access Control Lists of several inodes by inode number. Inodes without ACL are
+     * not included in the result.
+     *
+     * @param inumbers
+     * @return
+     */
+    Map<Long, List<ACE>> readAcl(Collection<Long> inumbers) {
+        Map<Long, List<ACE>> acls = new HashMap<>();
+        for (List<Long> batch : Lists.partition(new ArrayList<>(inumbers), MAX_BATCH_SIZE)) {
+            _jdbc.query("SELECT * FROM t_acl WHERE " + anyOf("inumber", batch.size())
+                        + " ORDER BY ace_order",
+                  ps -> setAnyOf(ps, 1, "bigint", batch),
+                  rs -> {
+                      acls.computeIfAbsent(rs.getLong("inumber"), i -> new ArrayList<>())
+                            .add(toAce(rs));
+                  });
+        }
+        return acls;
+    }
+
+    private ACE toAce(ResultSet rs) throws SQLException {
+        AceType type =
+              (rs.getInt("type") == 0)
+                    ? AceType.ACCESS_ALLOWED_ACE_TYPE
+                    : AceType.ACCESS_DENIED_ACE_TYPE;
+        return new ACE(type,
+              rs.getInt("flags"),
+              rs.getInt("access_msk"),
+              Who.valueOf(rs.getInt("who")),
+              rs.getInt("who_id"));
+    }
+
+    /**
+     * Returns an SQL condition that matches {@code column} against a set of {@code count}
+     * values. The values are bound with {@link #setAnyOf}.
+     */
+    protected String anyOf(String column, int count) {
+        return column + " IN (" + String.join(",", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Binds the values of a condition created by {@link #anyOf} starting at parameter {@code
+     * index}.
+     *
+     * @param sqlType SQL name of the type of the values
+     */
+    protected void setAnyOf(PreparedStatement ps, int index, String sqlType, List<?> values)
+          throws SQLException {
+        for (Object value : values) {
+            ps.setObject(index++, value);
+        }
     }
 
     /**
@@ -0,0 +1,278 @@
+/*
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this program (see the file COPYING.LIB for more
+ * details); if not, write to the Free Software Foundation, Inc.,
+ * 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.dcache.chimera;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.dcache.chimera.posix.Stat;
+
+/**
+ * A bounded cache of directory entries and inode attributes.
+ * <p>
+ * Directory entries map a parent inode number and a name to the inode number of the entry.
+ * Entries of symbolic links are never cached, thus an entry found in the cache can be followed
+ * without checking the type of the inode. Inode attributes map an inode number to the attributes
+ * of level zero of the inode.
+ * <p>
+ * The cache does not load values itself. Callers that looked up a value in the database store it
+ * with the generation observed before the lookup. Every invalidation is assigned the next
+ * generation, which is recorded for the inode it affects: the inode itself for attributes, the
+ * parent directory for directory entries. A value is not stored if its inode was invalidated
+ * since the value was read. This prevents a slow lookup from caching a value that was changed
+ * concurrently, while modifications of unrelated inodes do not prevent caching. Generations are
+ * recorded in a fixed number of stripes, so an invalidation occasionally prevents caching the
+ * values of a few unrelated inodes as well.
+ * <p>
+ * Invalidations caused by local modifications are reported to an {@link InvalidationListener},
+ * which may propagate them to other instances. Those apply them with the {@code discard} methods,
+ * which do not notify the listener.
+ * <p>
+ * A cache with a maximum size of zero is disabled: nothing is stored and all lookups miss.
+ * Invalidations are still reported to the listener, as other instances may cache values.
+ */
+public class InodeCache {
+
+    /**
+     * Receives the invalidations caused by local modifications.
+     */
+    public interface InvalidationListener {
+
+        void statInvalidated(long ino);
+
+        void entryInvalidated(long parent, String name);
+    }
+
+    private static final InvalidationListener NOP_LISTENER = new InvalidationListener() {
+        @Override
+        public void statInvalidated(long ino) {
+        }
+
+        @Override
+        public void entryInvalidated(long parent, String name) {
+        }
+    };
+
+    private final Cache<Entry, Long> _entries;
+
+    private final Cache<Long, Stat> _stats;
+
+    private static final int STRIPES = 1 << 14;
+
+    private final AtomicLong _generation = new AtomicLong();
+
+    /**
+     * The generation of the last invalidation of the inodes of each stripe.
+     */
+    private final AtomicLongArray _invalidated = new AtomicLongArray(STRIPES);
+
+    private final boolean _enabled;
+
+    private volatile InvalidationListener _listener = NOP_LISTENER;
+
+    public InodeCache(long maximumSize, long lifetime, TimeUnit unit) {
+        _enabled = maximumSize > 0;
+        _entries = CacheBuilder.newBuilder()
+              .maximumSize(maximumSize)
+              .expireAfterWrite(lifetime, unit)
+              .recordStats()
+              .build();
+        _stats = CacheBuilder.newBuilder()
+              .maximumSize(maximumSize)
+              .expireAfterWrite(lifetime, unit)
+              .recordStats()
+              .build();
+    }
+
+    public static InodeCache disabled() {
+        return new InodeCache(0, 1, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    /**
+     * Returns whether modifications have to be reported to this cache, either because it stores
+     * values or because an invalidation listener is registered.
+     */
+    public boolean isTrackingInvalidations() {
+        return _enabled || _listener != NOP_LISTENER;
+    }
+
+    public void setInvalidationListener(InvalidationListener listener) {
+        _listener = requireNonNull(listener);
+    }
+
+    /**
+     * Returns the current generation. Must be called before the database is queried for a value
+     * that is to be stored in the cache. The value must not be stored before the transaction it
+     * was read in, if any, has committed.
+     */
+    public long generation() {
+        return _generation.get();
+    }
+
+    /**
+     * Returns the inode number of a directory entry, or null if the entry is not cached.
+     */
+    public Long getEntry(long parent, String name) {
+        return _enabled ? _entries.getIfPresent(new Entry(parent, name)) : null;
+    }
+
+    public void putEntry(long generation, long parent, String name, long ino) {
+        if (_enabled) {
+            put(_entries, generation, parent, new Entry(parent, name), ino);
+        }
+    }
+
+    /**
+     * Returns a copy of the cached attributes of an inode, or null if they are not cached.
+     */
+    public Stat getStat(long ino) {
+        if (!_enabled) {
+            return null;
+        }
+        Stat stat = _stats.getIfPresent(ino);
+        return (stat == null) ? null : new Stat(stat);
+    }
+
+    public void putStat(long generation, Stat stat) {
+        if (_enabled) {
+            put(_stats, generation, stat.getIno(), stat.getIno(), new Stat(stat));
+        }
+    }
+
+    /**
+     * Returns whether the given inode has been invalidated after the given generation.
+     */
+    private boolean isInvalidatedSince(long ino, long generation) {
+        return _invalidated.get(stripe(ino)) > generation;
+    }
+
+    private <K, V> void put(Cache<K, V> cache, long generation, long ino, K key, V value) {
+        if (!isInvalidatedSince(ino, generation)) {
+            cache.put(key, value);
+            /* An invalidation may have happened between the check and the put, in which case
+             * it may or may not have removed the value.
+             */
+            if (isInvalidatedSince(ino, generation)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private void invalidated(long ino) {
+        long generation = _generation.incrementAndGet();
+        _invalidated.accumulateAndGet(stripe(ino), generation, Math::max);
+    }
+
+    private static int stripe(long ino) {
+        return (Long.hashCode(ino) * 0x9E3779B9 >>> 18) & (STRIPES - 1);
+    }
+
+    /**
+     * Removes the attributes of an inode and notifies the invalidation listener.
+     */
+    public void invalidateStat(long ino) {
+        discardStat(ino);
+        _listener.statInvalidated(ino);
+    }
+
+    /**
+     * Removes a directory entry and notifies the invalidation listener.
+     */
+    public void invalidateEntry(long parent, String name) {
+        discardEntry(parent, name);
+        _listener.entryInvalidated(parent, name);
+    }
+
+    public void discardStat(long ino) {
+        if (_enabled) {
+            invalidated(ino);
+            _stats.invalidate(ino);
+        }
+    }
+
+    public void discardEntry(long parent, String name) {
+        if (_enabled) {
+            invalidated(parent);
+            _entries.invalidate(new Entry(parent, name));
+        }
+    }
+
+    public void discardAll() {
+        if (_enabled) {
+            long generation = _generation.incrementAndGet();
+            for (int i = 0; i < STRIPES; i++) {
+                _invalidated.accumulateAndGet(i, generation, Math::max);
+            }
+            _entries.invalidateAll();
+            _stats.invalidateAll();
+        }
+    }
+
+    public CacheStats getEntryStats() {
+        return _entries.stats();
+    }
+
+    public CacheStats getStatStats() {
+        return _stats.stats();
+    }
+
+    public long getEntryCount() {
+        return _entries.size();
+    }
+
+    public long getStatCount() {
+        return _stats.size();
+    }
+
+    private static class Entry {
+
+        private final long _parent;
+        private final String _name;
+
+        Entry(long parent, String name) {
+            _parent = parent;
+            _name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry that = (Entry) o;
+            return _parent == that._parent && _name.equals(that._name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_parent, _name);
+        }
+    }
+}
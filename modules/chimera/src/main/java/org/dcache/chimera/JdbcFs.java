@@ -18,6 +18,7 @@ package org.dcache.chimera;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
 import static org.dcache.acl.enums.AceFlags.DIRECTORY_INHERIT_ACE;
 import static org.dcache.acl.enums.AceFlags.FILE_INHERIT_ACE;
 import static org.dcache.acl.enums.AceFlags.INHERIT_ONLY_ACE;
@@ -26,10 +27,12 @@ import static org.dcache.chimera.FileSystemProvider.StatCacheOption.STAT;
 import static org.dcache.util.ByteUnit.EiB;
 import static org.dcache.util.SqlHelper.tryToClose;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.io.ByteSource;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -39,8 +42,11 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +75,8 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * JDBC-FS is THE building block of Chimera. It's an abstraction layer, which allows to build
@@ -153,6 +161,22 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                 .maximumSize(100000)
                 .build();
 
+    /**
+     * Directory entries and inode attributes; disabled unless configured.
+     */
+    private InodeCache _inodeCache = InodeCache.disabled();
+
+    /**
+     * Maximum number of directory entries fetched with a single query when listing a directory.
+     */
+    private int _directoryPageSize = 1000;
+
+    /**
+     * Whether the current thread executes a file system operation in a transaction. Such
+     * operations bypass the inode cache to see the current state of the database.
+     */
+    private final ThreadLocal<Boolean> _inTransaction = ThreadLocal.withInitial(() -> false);
+
     private QuotaHandler _quota;
 
     /**
@@ -238,6 +262,19 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         _defaultRetentionPolicy = rp;
     }
 
+    public void setInodeCache(InodeCache cache) {
+        _inodeCache = cache;
+    }
+
+    public InodeCache getInodeCache() {
+        return _inodeCache;
+    }
+
+    public void setDirectoryPageSize(int pageSize) {
+        checkArgument(pageSize > 0, "Page size must be positive");
+        _directoryPageSize = pageSize;
+    }
+
     private FsInode getWormID() throws ChimeraFsException {
 
         return this.path2inode("/admin/etc/config");
@@ -245,25 +282,31 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
 
     private <T> T inTransaction(FallibleTransactionCallback<T> callback)
           throws ChimeraFsException {
-        TransactionStatus status = _tx.getTransaction(_txDefinition);
-        T result;
+        boolean inTransaction = _inTransaction.get();
+        _inTransaction.set(true);
         try {
-            result = callback.doInTransaction(status);
-            _tx.commit(status);
-        } catch (ChimeraFsException e) {
-            rollbackOnException(status, e);
-            throw e;
-        } catch (NonTransientDataAccessResourceException e) {
-            rollbackOnException(status, e);
-            throw new BackEndErrorChimeraFsException(e.getMessage(), e);
-        } catch (DataAccessException e) {
-            rollbackOnException(status, e);
-            throw new ChimeraFsException(e.getMessage(), e);
-        } catch (Exception e) {
-            rollbackOnException(status, e);
-            throw e;
+            TransactionStatus status = _tx.getTransaction(_txDefinition);
+            T result;
+            try {
+                result = callback.doInTransaction(status);
+                _tx.commit(status);
+            } catch (ChimeraFsException e) {
+                rollbackOnException(status, e);
+                throw e;
+            } catch (NonTransientDataAccessResourceException e) {
+                rollbackOnException(status, e);
+                throw new BackEndErrorChimeraFsException(e.getMessage(), e);
+            } catch (DataAccessException e) {
+                rollbackOnException(status, e);
+                throw new ChimeraFsException(e.getMessage(), e);
+            } catch (Exception e) {
+                rollbackOnException(status, e);
+                throw e;
+            }
+            return result;
+        } finally {
+            _inTransaction.set(inTransaction);
         }
-        return result;
     }
 
     /**
@@ -291,6 +334,223 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
     }
 
+    private boolean useInodeCache() {
+        return _inodeCache.isEnabled() && !_inTransaction.get();
+    }
+
+    /**
+     * Removes the attributes of the given inodes from the inode cache. Since a concurrent lookup
+     * may cache the old attributes until the modification is committed, they are removed again
+     * when the surrounding transaction completes. Only then are other instances notified.
+     */
+    private void invalidateStat(FsInode... inodes) {
+        if (_inodeCache.isTrackingInvalidations()) {
+            long[] inos = Arrays.stream(inodes).mapToLong(FsInode::ino).toArray();
+            for (long ino : inos) {
+                _inodeCache.discardStat(ino);
+            }
+            afterCompletion(() -> {
+                for (long ino : inos) {
+                    _inodeCache.invalidateStat(ino);
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes a directory entry and the attributes of its parent directory from the inode cache.
+     *
+     * @see #invalidateStat
+     */
+    private void invalidateEntry(FsInode parent, String name) {
+        if (_inodeCache.isTrackingInvalidations()) {
+            long ino = parent.ino();
+            _inodeCache.discardEntry(ino, name);
+            _inodeCache.discardStat(ino);
+            afterCompletion(() -> {
+                _inodeCache.invalidateEntry(ino, name);
+                _inodeCache.invalidateStat(ino);
+            });
+        }
+    }
+
+    /**
+     * Stores the attributes of an inode in the inode cache. If they were read within a
+     * transaction, they are only stored once the transaction has committed, as otherwise
+     * uncommitted changes might become visible to other threads.
+     */
+    private void cacheStat(long generation, Stat stat) {
+        Stat copy = new Stat(stat);
+        afterCommit(() -> _inodeCache.putStat(generation, copy));
+    }
+
+    /**
+     * Stores a directory entry in the inode cache.
+     *
+     * @see #cacheStat
+     */
+    private void cacheEntry(long generation, long parent, String name, long ino) {
+        afterCommit(() -> _inodeCache.putEntry(generation, parent, name, ino));
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+              && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                  new TransactionSynchronization() {
+                      @Override
+                      public void afterCommit() {
+                          task.run();
+                      }
+                  });
+        } else {
+            task.run();
+        }
+    }
+
+    private static void afterCompletion(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                  new TransactionSynchronization() {
+                      @Override
+                      public void afterCompletion(int status) {
+                          task.run();
+                      }
+                  });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Looks up a regular directory entry through the inode cache. Returns null if the entry does
+     * not exist.
+     */
+    private FsInode lookup(FsInode parent, String name, StatCacheOption option)
+          throws ChimeraFsException {
+        if (!useInodeCache() || parent.type() != FsInodeType.INODE
+              || name.equals(".") || name.equals("..")) {
+            return _sqlDriver.inodeOf(parent, name, option);
+        }
+
+        Long ino = _inodeCache.getEntry(parent.ino(), name);
+        if (ino != null) {
+            if (option == NO_STAT) {
+                return new FsInode(this, ino);
+            }
+            Stat stat = _inodeCache.getStat(ino);
+            if (stat != null) {
+                return new FsInode(this, ino, FsInodeType.INODE, 0, stat);
+            }
+        }
+
+        long generation = _inodeCache.generation();
+        FsInode inode = _sqlDriver.inodeOf(parent, name, STAT);
+        if (inode != null) {
+            Stat stat = inode.getStatCache();
+            if (UnixPermission.getType(stat.getMode()) != UnixPermission.S_IFLNK) {
+                cacheEntry(generation, parent.ino(), name, inode.ino());
+            }
+            cacheStat(generation, stat);
+        }
+        return inode;
+    }
+
+    /**
+     * Resolves a path through the inode cache. Path elements are followed through cached
+     * directory entries; the remaining elements are resolved in a single database query, and the
+     * entries found are added to the cache.
+     *
+     * @param withStat whether the returned inodes must carry their attributes
+     * @return the inodes of {@code startFrom} and of all path elements, an empty list if the path
+     * does not exist, or null if the path contains special names the cache cannot resolve
+     */
+    private List<FsInode> cachedPath2inodes(FsInode startFrom, String path, boolean withStat)
+          throws ChimeraFsException {
+        List<String> names = Splitter.on('/').omitEmptyStrings().splitToList(path);
+        for (String name : names) {
+            if (name.equals(".") || name.equals("..") || name.startsWith(".(")) {
+                return null;
+            }
+        }
+
+        List<FsInode> inodes = new ArrayList<>(names.size() + 1);
+        inodes.add(startFrom);
+        FsInode parent = startFrom;
+        int i = 0;
+        for (; i < names.size(); i++) {
+            Long ino = _inodeCache.getEntry(parent.ino(), names.get(i));
+            if (ino == null) {
+                break;
+            }
+            FsInode inode;
+            if (withStat) {
+                Stat stat = _inodeCache.getStat(ino);
+                if (stat == null) {
+                    break;
+                }
+                inode = new FsInode(this, ino, FsInodeType.INODE, 0, stat);
+            } else {
+                inode = new FsInode(this, ino);
+            }
+            inodes.add(inode);
+            parent = inode;
+        }
+        if (i == names.size()) {
+            return inodes;
+        }
+
+        List<String> remaining = names.subList(i, names.size());
+        long generation = _inodeCache.generation();
+        List<FsInode> resolved = _sqlDriver.path2inodes(parent, String.join("/", remaining));
+        if (resolved.isEmpty()) {
+            return resolved;
+        }
+        resolved = resolved.subList(1, resolved.size());
+
+        /* Symbolic links add the inodes of their targets, in which case the resolved inodes no
+         * longer correspond to the path elements.
+         */
+        if (resolved.size() == remaining.size()) {
+            for (int j = 0; j < resolved.size(); j++) {
+                FsInode inode = resolved.get(j);
+                Stat stat = inode.getStatCache();
+                if (stat == null
+                      || UnixPermission.getType(stat.getMode()) == UnixPermission.S_IFLNK) {
+                    break;
+                }
+                cacheEntry(generation, parent.ino(), remaining.get(j), inode.ino());
+                parent = inode;
+            }
+        }
+
+        if (withStat) {
+            /* The attributes returned by path2inodes may be incomplete, thus they are
+             * fetched separately before they are cached.
+             */
+            Map<Long, Stat> stats = new HashMap<>(resolved.size());
+            List<String> ids = new ArrayList<>(resolved.size());
+            for (FsInode inode : resolved) {
+                Stat stat = inode.getStatCache();
+                if (stat != null) {
+                    ids.add(stat.getId());
+                }
+            }
+            for (Stat stat : _sqlDriver.stat(ids)) {
+                cacheStat(generation, stat);
+                stats.put(stat.getIno(), stat);
+            }
+            for (FsInode inode : resolved) {
+                Stat stat = stats.get(inode.ino());
+                inodes.add(stat == null ? inode
+                      : new FsInode(this, inode.ino(), FsInodeType.INODE, 0, stat));
+            }
+        } else {
+            inodes.addAll(resolved);
+        }
+        return inodes;
+    }
+
     //////////////////////////////////////////////////////////
     ////
     ////
@@ -330,6 +590,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                       EnumSet.of(INHERIT_ONLY_ACE, DIRECTORY_INHERIT_ACE, FILE_INHERIT_ACE),
                       EnumSet.of(FILE_INHERIT_ACE));
                 fillIdCaches(inode);
+                invalidateEntry(parent, name);
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
             }
@@ -377,6 +638,8 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                 _sqlDriver.createEntryInParent(parent, name, inode);
                 _sqlDriver.incNlinkForFile(inode);
                 _sqlDriver.incNlinkForDir(parent, 0);
+                invalidateEntry(parent, name);
+                invalidateStat(inode);
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
             }
@@ -491,6 +754,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                       EnumSet.of(INHERIT_ONLY_ACE, DIRECTORY_INHERIT_ACE, FILE_INHERIT_ACE),
                       EnumSet.of(FILE_INHERIT_ACE));
                 fillIdCaches(inode);
+                invalidateEntry(parent, name);
                 return inode;
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
@@ -537,6 +801,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                       EnumSet.of(INHERIT_ONLY_ACE, DIRECTORY_INHERIT_ACE, FILE_INHERIT_ACE),
                       EnumSet.of(FILE_INHERIT_ACE));
                 fillIdCaches(inode);
+                invalidateEntry(parent, name);
                 return null;
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
@@ -552,10 +817,17 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }else if ((dir.type() == FsInodeType.LABEL)) {
             return _sqlDriver.virtualDirectoryStream(dir, _sqlDriver.getLabelById(dir.ino()));
         } else {
-            return _sqlDriver.newDirectoryStream(dir);
+            return _sqlDriver.newDirectoryStream(dir, _directoryPageSize);
         }
     }
 
+    @Override
+    public DirectoryStreamB<ChimeraDirectoryEntry> newDirectoryStream(FsInode dir,
+          String startAfter) throws ChimeraFsException {
+        checkArgument(dir.type() == FsInodeType.INODE, "Not a regular directory: %s", dir);
+        return _sqlDriver.newDirectoryStream(dir, _directoryPageSize, requireNonNull(startAfter));
+    }
+
     @Override
     public DirectoryStreamB<ChimeraDirectoryEntry> virtualDirectoryStream(FsInode dir,
           String labelname) throws ChimeraFsException {
@@ -587,6 +859,8 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             if (inode == null || !_sqlDriver.remove(parent, name, inode)) {
                 throw FileNotFoundChimeraFsException.ofPath(path);
             }
+            invalidateEntry(parent, name);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -597,6 +871,8 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             if (!_sqlDriver.remove(directory, name, inode)) {
                 throw FileNotFoundChimeraFsException.ofFileInDirectory(directory, name);
             }
+            invalidateEntry(directory, name);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -617,7 +893,13 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             if (inode.isDirectory() && inode.statCache().getNlink() > 2) {
                 throw new DirNotEmptyChimeraFsException("Directory is not empty");
             }
+            if (_inodeCache.isTrackingInvalidations()) {
+                for (Link link : _sqlDriver.find(inode)) {
+                    invalidateEntry(link.getParent(), link.getName());
+                }
+            }
             _sqlDriver.remove(inode);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -634,6 +916,14 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
 
     @Override
     public Stat stat(FsInode inode, int level) throws ChimeraFsException {
+        boolean isCacheable = level == 0 && inode.type() == FsInodeType.INODE && useInodeCache();
+        if (isCacheable) {
+            Stat stat = _inodeCache.getStat(inode.ino());
+            if (stat != null) {
+                return stat;
+            }
+        }
+        long generation = _inodeCache.generation();
         Stat stat = _sqlDriver.stat(inode, level);
         if (stat == null) {
             throw FileNotFoundChimeraFsException.of(inode);
@@ -642,6 +932,9 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             _inoCache.put(stat.getId(), stat.getIno());
             _idCache.put(stat.getIno(), stat.getId());
         }
+        if (isCacheable) {
+            cacheStat(generation, stat);
+        }
         return stat;
     }
 
@@ -686,6 +979,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                 _sqlDriver.copyAcl(parent, inode, RsType.DIR, EnumSet.of(INHERIT_ONLY_ACE),
                       EnumSet.of(FILE_INHERIT_ACE, DIRECTORY_INHERIT_ACE));
                 fillIdCaches(inode);
+                invalidateEntry(parent, name);
                 return inode;
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(name, e);
@@ -725,6 +1019,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                 _sqlDriver.createTags(inode, owner, gid, perm & 0666, tags);
                 _sqlDriver.writeAcl(inode, RsType.DIR, acl);
                 fillIdCaches(inode);
+                invalidateEntry(parent, name);
                 return inode;
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(name, e);
@@ -772,6 +1067,17 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             FsInode labelInode = new FsInode_LABEL(this, labelId, stat);
             return labelInode;
         }
+        if (useInodeCache() && startFrom.type() == FsInodeType.INODE) {
+            List<FsInode> inodes = cachedPath2inodes(startFrom, path, false);
+            if (inodes != null) {
+                if (inodes.isEmpty()) {
+                    throw FileNotFoundChimeraFsException.ofPath(path);
+                }
+                FsInode inode = inodes.get(inodes.size() - 1);
+                fillIdCaches(inode);
+                return inode;
+            }
+        }
         FsInode inode = _sqlDriver.path2inode(startFrom, path);
         if (inode == null) {
             throw FileNotFoundChimeraFsException.ofPath(path);
@@ -832,6 +1138,29 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
     }
 
+    @Override
+    public Map<String, FsInode> id2inodes(Collection<String> ids) throws ChimeraFsException {
+        Map<String, FsInode> inodes = new HashMap<>(ids.size());
+        List<String> regular = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (id.startsWith("FFFF")) {
+                try {
+                    inodes.put(id, id2inode(id, STAT));
+                } catch (FileNotFoundChimeraFsException ignored) {
+                }
+            } else {
+                regular.add(id);
+            }
+        }
+        for (Stat stat : _sqlDriver.stat(regular)) {
+            _inoCache.put(stat.getId(), stat.getIno());
+            _idCache.put(stat.getIno(), stat.getId());
+            inodes.put(stat.getId(),
+                  new FsInode(this, stat.getIno(), FsInodeType.INODE, 0, stat));
+        }
+        return inodes;
+    }
+
     @Override
     public List<FsInode> path2inodes(String path) throws ChimeraFsException {
         return path2inodes(path, new RootInode(this, _sqlDriver.getRootInumber()));
@@ -840,7 +1169,13 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     @Override
     public List<FsInode> path2inodes(String path, FsInode startFrom)
           throws ChimeraFsException {
-        List<FsInode> inodes = _sqlDriver.path2inodes(startFrom, path);
+        List<FsInode> inodes = null;
+        if (useInodeCache() && startFrom.type() == FsInodeType.INODE) {
+            inodes = cachedPath2inodes(startFrom, path, true);
+        }
+        if (inodes == null) {
+            inodes = _sqlDriver.path2inodes(startFrom, path);
+        }
         if (inodes.isEmpty()) {
             throw FileNotFoundChimeraFsException.ofPath(path);
         }
@@ -1089,7 +1424,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             }
         }
 
-        FsInode inode = _sqlDriver.inodeOf(parent, name, cacheOption);
+        FsInode inode = lookup(parent, name, cacheOption);
         if (inode == null) {
             throw FileNotFoundChimeraFsException.ofFileInDirectory(parent, name);
         }
@@ -1146,6 +1481,9 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                         }
                         throw new InvalidArgumentChimeraException();
                     }
+                    if (level == 0) {
+                        invalidateStat(inode);
+                    }
                     break;
                 case TAG:
                     if (stat.isDefined(Stat.StatAttributes.MODE)) {
@@ -1172,6 +1510,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     public void setInodeIo(FsInode inode, boolean enable) throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.setInodeIo(inode, enable);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -1190,7 +1529,11 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     LOGGER.debug("{}: IO (write) not allowed", inode);
                     return -1;
                 }
-                return _sqlDriver.write(inode, level, beginIndex, data, offset, len);
+                int n = _sqlDriver.write(inode, level, beginIndex, data, offset, len);
+                if (level == 0) {
+                    invalidateStat(inode);
+                }
+                return n;
             } catch (ForeignKeyViolationException e) {
                 throw FileNotFoundChimeraFsException.ofLevel(inode, level, e);
             }
@@ -1253,11 +1596,15 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     // Concurrent modification - retry
                     return rename(inode, srcDir, source, destDir, dest);
                 }
+                invalidateStat(destInode);
             }
 
             if (!_sqlDriver.rename(inode, srcDir, source, destDir, dest)) {
                 throw FileNotFoundChimeraFsException.ofPath(source);
             }
+            invalidateEntry(srcDir, source);
+            invalidateEntry(destDir, dest);
+            invalidateStat(inode);
             return true;
         });
     }
@@ -1278,12 +1625,31 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return _sqlDriver.getInodeLocations(inode);
     }
 
+    @Override
+    public Map<FsInode, List<StorageLocatable>> getInodeLocations(
+          Collection<? extends FsInode> inodes) throws ChimeraFsException {
+        Map<Long, FsInode> byIno = byIno(inodes);
+        Map<FsInode, List<StorageLocatable>> locations = new HashMap<>();
+        _sqlDriver.getInodeLocations(byIno.keySet())
+              .forEach((ino, l) -> locations.put(byIno.get(ino), l));
+        return locations;
+    }
+
+    private static Map<Long, FsInode> byIno(Collection<? extends FsInode> inodes) {
+        Map<Long, FsInode> byIno = new HashMap<>(inodes.size());
+        for (FsInode inode : inodes) {
+            byIno.put(inode.ino(), inode);
+        }
+        return byIno;
+    }
+
     @Override
     public void addInodeLocation(FsInode inode, int type, String location)
           throws ChimeraFsException {
         inTransaction(status -> {
             try {
                 _sqlDriver.addInodeLocation(inode, type, location);
+                invalidateStat(inode);
             } catch (ForeignKeyViolationException e) {
                 throw FileNotFoundChimeraFsException.of(inode, e);
             }
@@ -1296,6 +1662,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
           throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.clearInodeLocation(inode, type, location);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -1304,6 +1671,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     public void clearTapeLocations(FsInode inode) throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.clearTapeLocations(inode);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -1334,6 +1702,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         inTransaction(status -> {
             try {
                 _sqlDriver.createTag(inode, name, uid, gid, mode);
+                invalidateStat(inode);
                 return null;
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException();
@@ -1349,13 +1718,18 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     @Override
     public int setTag(FsInode inode, String tagName, byte[] data, int offset, int len)
           throws ChimeraFsException {
-        return inTransaction(status -> _sqlDriver.setTag(inode, tagName, data, offset, len));
+        return inTransaction(status -> {
+            int n = _sqlDriver.setTag(inode, tagName, data, offset, len);
+            invalidateStat(inode);
+            return n;
+        });
     }
 
     @Override
     public void removeTag(FsInode dir, String tagName) throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.removeTag(dir, tagName);
+            invalidateStat(dir);
             return null;
         });
     }
@@ -1426,6 +1800,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         inTransaction(status -> {
             try {
                 _sqlDriver.setInodeChecksum(inode, type, checksum);
+                invalidateStat(inode);
             } catch (ForeignKeyViolationException e) {
                 throw FileNotFoundChimeraFsException.of(inode, e);
             }
@@ -1437,6 +1812,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     public void removeInodeChecksum(FsInode inode, int type) throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.removeInodeChecksum(inode, type);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -1446,6 +1822,16 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return new HashSet<>(_sqlDriver.getInodeChecksums(inode));
     }
 
+    @Override
+    public Map<FsInode, Set<Checksum>> getInodeChecksums(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException {
+        Map<Long, FsInode> byIno = byIno(inodes);
+        Map<FsInode, Set<Checksum>> checksums = new HashMap<>();
+        _sqlDriver.getInodeChecksums(byIno.keySet())
+              .forEach((ino, c) -> checksums.put(byIno.get(ino), new HashSet<>(c)));
+        return checksums;
+    }
+
     /**
      * Get inode's Access Control List. An empty list is returned if there are no ACL assigned to
      * the <code>inode</code>.
@@ -1458,6 +1844,15 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return _sqlDriver.readAcl(inode);
     }
 
+    @Override
+    public Map<FsInode, List<ACE>> getACLs(Collection<? extends FsInode> inodes)
+          throws ChimeraFsException {
+        Map<Long, FsInode> byIno = byIno(inodes);
+        Map<FsInode, List<ACE>> acls = new HashMap<>();
+        _sqlDriver.readAcl(byIno.keySet()).forEach((ino, acl) -> acls.put(byIno.get(ino), acl));
+        return acls;
+    }
+
     /**
      * Set inode's Access Control List. The existing ACL will be replaced.
      *
@@ -1475,6 +1870,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             if (modified) {
                 // empty stat will update ctime
                 _sqlDriver.setInodeAttributes(inode, 0, new Stat());
+                invalidateStat(inode);
             }
             return null;
         });
@@ -1541,9 +1937,23 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
         sb.append("FsId      : ").append(_fsId).append('\n');
         sb.append("Wcc       : ").append(_attributeConsistency).append("\n");
+        if (_inodeCache.isEnabled()) {
+            appendCacheStats(sb, "Entries   : ", _inodeCache.getEntryCount(),
+                  _inodeCache.getEntryStats());
+            appendCacheStats(sb, "Inodes    : ", _inodeCache.getStatCount(),
+                  _inodeCache.getStatStats());
+        }
         return sb.toString();
     }
 
+    private static void appendCacheStats(StringBuilder sb, String label, long size,
+          CacheStats stats) {
+        sb.append(label).append(size).append(" cached, ")
+              .append(stats.hitCount()).append(" hits, ")
+              .append(stats.missCount()).append(" misses, ")
+              .append(stats.evictionCount()).append(" evictions\n");
+    }
+
 
     /*
      * (non-Javadoc)
@@ -1588,6 +1998,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         inTransaction(status -> {
             try {
                 _sqlDriver.setXattr(inode, attr, value, mode);
+                invalidateStat(inode);
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
             }
@@ -1606,6 +2017,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         inTransaction(status -> {
             try {
                 _sqlDriver.addLabel(inode, labelname);
+                invalidateStat(inode);
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
             }
@@ -1627,6 +2039,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         inTransaction(status -> {
             try {
                 _sqlDriver.removeLabel(inode, labelname);
+                invalidateStat(inode);
             } catch (DuplicateKeyException e) {
                 throw new FileExistsChimeraFsException(e);
             }
@@ -1639,6 +2052,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     public void removeXattr(FsInode inode, String attr) throws ChimeraFsException {
         inTransaction(status -> {
             _sqlDriver.removeXattr(inode, attr);
+            invalidateStat(inode);
             return null;
         });
     }
@@ -562,4 +562,15 @@ public class PgSQL95FsSqlDriver extends FsSqlDriver {
         }
         return stat;
     }
+
+    @Override
+    protected String anyOf(String column, int count) {
+        return column + " = ANY(?)";
+    }
+
+    @Override
+    protected void setAnyOf(PreparedStatement ps, int index, String sqlType, List<?> values)
+          throws SQLException {
+        ps.setArray(index, ps.getConnection().createArrayOf(sqlType, values.toArray()));
+    }
 }
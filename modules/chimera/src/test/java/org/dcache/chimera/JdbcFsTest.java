@@ -29,7 +29,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.dcache.acl.ACE;
 import org.dcache.acl.enums.AccessMask;
 import org.dcache.acl.enums.AceType;
@@ -43,6 +45,8 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 public class JdbcFsTest extends ChimeraTestCaseHelper {
 
@@ -728,6 +732,200 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         }
     }
 
+    @Test
+    public void testBatchedAttributes() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        _fs.setInodeChecksum(file1, 1, "abc");
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool1");
+        _fs.addInodeLocation(file2, StorageGenericLocation.DISK, "pool2");
+        _fs.setACL(file2, List.of(new ACE(AceType.ACCESS_ALLOWED_ACE_TYPE, 0,
+              AccessMask.READ_DATA.getValue(), Who.USER, 1001)));
+
+        Map<String, FsInode> inodes = _fs.id2inodes(
+              List.of(file1.getId(), file2.getId(), "0000000000000000000000000000000000FF"));
+
+        assertThat(inodes.keySet(), containsInAnyOrder(file1.getId(), file2.getId()));
+        assertThat(inodes.get(file1.getId()).ino(), is(file1.ino()));
+        assertThat(inodes.get(file2.getId()).statCache().getIno(), is(file2.ino()));
+
+        Map<FsInode, List<StorageLocatable>> locations =
+              _fs.getInodeLocations(inodes.values());
+        assertThat(locations.get(file1).get(0).location(), is("pool1"));
+        assertThat(locations.get(file2).get(0).location(), is("pool2"));
+
+        Map<FsInode, Set<Checksum>> checksums = _fs.getInodeChecksums(inodes.values());
+        assertThat(checksums.keySet(), contains(file1));
+        assertThat(checksums.get(file1),
+              contains(new Checksum(ChecksumType.getChecksumType(1), "abc")));
+
+        Map<FsInode, List<ACE>> acls = _fs.getACLs(inodes.values());
+        assertThat(acls.keySet(), contains(file2));
+        assertThat(acls.get(file2).get(0).getWhoID(), is(1001));
+    }
+
+    @Test
+    public void testInodeCacheLookups() throws Exception {
+        InodeCache cache = new InodeCache(1000, 1, TimeUnit.MINUTES);
+        ((JdbcFs) _fs).setInodeCache(cache);
+
+        FsInode dir = _rootInode.mkdir("junit").mkdir("dir");
+        FsInode file = dir.create("file", 0, 0, 0644);
+
+        assertThat(_fs.path2inode("/junit/dir/file").ino(), is(file.ino()));
+        assertThat(_fs.path2inode("/junit/dir/file").ino(), is(file.ino()));
+        assertThat(cache.getEntryStats().hitCount(), is(greaterThan(0L)));
+
+        List<FsInode> inodes = _fs.path2inodes("/junit/dir/file");
+        assertThat(inodes.get(3).ino(), is(file.ino()));
+        assertThat(inodes.get(3).statCache().getMode() & 0777, is(0644));
+        assertThat(_fs.inodeOf(dir, "file", STAT).ino(), is(file.ino()));
+
+        Stat stat = new Stat();
+        stat.setMode(0600);
+        _fs.setInodeAttributes(file, 0, stat);
+        assertThat(_fs.stat(file).getMode() & 0777, is(0600));
+
+        _fs.rename(file, dir, "file", dir, "renamed");
+        assertThat(_fs.path2inode("/junit/dir/renamed").ino(), is(file.ino()));
+        try {
+            _fs.path2inode("/junit/dir/file");
+            fail("Lookup of renamed file succeeded");
+        } catch (FileNotFoundChimeraFsException expected) {
+        }
+
+        _fs.remove(dir, "renamed", file);
+        try {
+            _fs.inodeOf(dir, "renamed", NO_STAT);
+            fail("Lookup of removed file succeeded");
+        } catch (FileNotFoundChimeraFsException expected) {
+        }
+        assertThat(_fs.stat(dir).getNlink(), is(2));
+    }
+
+    @Test
+    public void testInodeCacheNotifiesInvalidations() throws Exception {
+        InodeCache cache = new InodeCache(1000, 1, TimeUnit.MINUTES);
+        List<Long> stats = new ArrayList<>();
+        List<String> entries = new ArrayList<>();
+        cache.setInvalidationListener(new InodeCache.InvalidationListener() {
+            @Override
+            public void statInvalidated(long ino) {
+                stats.add(ino);
+            }
+
+            @Override
+            public void entryInvalidated(long parent, String name) {
+                entries.add(name);
+            }
+        });
+        ((JdbcFs) _fs).setInodeCache(cache);
+
+        FsInode dir = _rootInode.mkdir("junit");
+        FsInode file = dir.create("file", 0, 0, 0644);
+        assertThat(entries, contains("junit", "file"));
+        assertThat(stats, hasItem(dir.ino()));
+
+        _fs.path2inode("/junit/file");
+        cache.discardEntry(dir.ino(), "file");
+        cache.discardStat(file.ino());
+        assertThat(cache.getEntry(dir.ino(), "file"), is(nullValue()));
+        assertThat(cache.getStat(file.ino()), is(nullValue()));
+        assertThat(entries, hasSize(2));
+    }
+
+    @Test
+    public void testInodeCacheIsPopulatedOnlyAfterCommit() throws Exception {
+        InodeCache cache = new InodeCache(1000, 1, TimeUnit.MINUTES);
+        ((JdbcFs) _fs).setInodeCache(cache);
+        FsInode dir = _rootInode.mkdir("junit");
+        FsInode file = dir.create("file", 0, 0, 0644);
+        cache.discardAll();
+
+        TransactionTemplate tx = new TransactionTemplate(
+              new DataSourceTransactionManager(_dataSource));
+        tx.executeWithoutResult(status -> {
+            try {
+                _fs.stat(file);
+            } catch (ChimeraFsException e) {
+                throw new RuntimeException(e);
+            }
+            assertThat(cache.getStat(file.ino()), is(nullValue()));
+            status.setRollbackOnly();
+        });
+        assertThat(cache.getStat(file.ino()), is(nullValue()));
+
+        tx.executeWithoutResult(status -> {
+            try {
+                _fs.path2inode("/junit/file");
+                _fs.stat(file);
+            } catch (ChimeraFsException e) {
+                throw new RuntimeException(e);
+            }
+            assertThat(cache.getEntry(dir.ino(), "file"), is(nullValue()));
+            assertThat(cache.getStat(file.ino()), is(nullValue()));
+        });
+        assertThat(cache.getStat(file.ino()), is(notNullValue()));
+        assertThat(cache.getEntry(dir.ino(), "file"), is(file.ino()));
+    }
+
+    @Test
+    public void testInodeCacheInvalidationIsPerInode() throws Exception {
+        InodeCache cache = new InodeCache(1000, 1, TimeUnit.MINUTES);
+        ((JdbcFs) _fs).setInodeCache(cache);
+        FsInode dir = _rootInode.mkdir("junit");
+        FsInode file = dir.create("file", 0, 0, 0644);
+        FsInode other = dir.create("other", 0, 0, 0644);
+        Stat stat = _fs.stat(file);
+        cache.discardAll();
+
+        long generation = cache.generation();
+        cache.discardStat(other.ino());
+        cache.discardEntry(other.ino(), "child");
+        cache.putStat(generation, stat);
+        cache.putEntry(generation, dir.ino(), "file", file.ino());
+        assertThat(cache.getStat(file.ino()), is(notNullValue()));
+        assertThat(cache.getEntry(dir.ino(), "file"), is(file.ino()));
+
+        cache.discardStat(file.ino());
+        cache.discardEntry(dir.ino(), "other");
+        cache.putStat(generation, stat);
+        cache.putEntry(generation, dir.ino(), "file", file.ino());
+        assertThat(cache.getStat(file.ino()), is(nullValue()));
+        assertThat(cache.getEntry(dir.ino(), "file"), is(file.ino()));
+
+        cache.discardEntry(dir.ino(), "file");
+        cache.putEntry(generation, dir.ino(), "file", file.ino());
+        assertThat(cache.getEntry(dir.ino(), "file"), is(nullValue()));
+    }
+
+    @Test
+    public void testDisabledInodeCacheNotifiesInvalidations() throws Exception {
+        InodeCache cache = InodeCache.disabled();
+        List<Long> stats = new ArrayList<>();
+        List<String> entries = new ArrayList<>();
+        cache.setInvalidationListener(new InodeCache.InvalidationListener() {
+            @Override
+            public void statInvalidated(long ino) {
+                stats.add(ino);
+            }
+
+            @Override
+            public void entryInvalidated(long parent, String name) {
+                entries.add(name);
+            }
+        });
+        ((JdbcFs) _fs).setInodeCache(cache);
+
+        FsInode dir = _rootInode.mkdir("junit");
+        FsInode file = dir.create("file", 0, 0, 0644);
+        _fs.remove(file);
+
+        assertThat(entries, contains("junit", "file", "file"));
+        assertThat(stats, hasItem(file.ino()));
+    }
+
     @Test
     public void testUpdateChecksum() throws Exception {
         String sum = "abc";
@@ -1456,6 +1654,53 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         }
     }
 
+    @Test
+    public void testReaddirInPages() throws Exception {
+        ((JdbcFs) _fs).setDirectoryPageSize(7);
+        FsInode dir = _rootInode.mkdir("junit");
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            String name = "file" + i;
+            dir.create(name, 0, 0, 0644);
+            expected.add(name);
+        }
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStreamB<ChimeraDirectoryEntry> dirStream = _fs.newDirectoryStream(dir)) {
+            for (ChimeraDirectoryEntry entry : dirStream) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names.subList(0, 2), contains(".", ".."));
+        assertThat(new HashSet<>(names.subList(2, names.size())), is(expected));
+        assertThat(names.size(), is(expected.size() + 2));
+    }
+
+    @Test
+    public void testReaddirAfterName() throws Exception {
+        ((JdbcFs) _fs).setDirectoryPageSize(7);
+        FsInode dir = _rootInode.mkdir("junit");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String name = "file" + i;
+            dir.create(name, 0, 0, 0644);
+            if (name.compareTo("file3") > 0) {
+                expected.add(name);
+            }
+        }
+        Collections.sort(expected);
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStreamB<ChimeraDirectoryEntry> dirStream = dir.newDirectoryStream("file3")) {
+            for (ChimeraDirectoryEntry entry : dirStream) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names, is(expected));
+    }
+
     private void assertHasChecksum(Checksum expectedChecksum, FsInode inode) throws Exception {
         for (Checksum checksum : _fs.getInodeChecksums(inode)) {
             if (checksum.equals(expectedChecksum)) {
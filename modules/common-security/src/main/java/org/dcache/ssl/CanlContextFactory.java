@@ -48,6 +48,10 @@ import eu.emi.security.authn.x509.impl.CertificateUtils;
 import eu.emi.security.authn.x509.impl.KeystoreCredential;
 import eu.emi.security.authn.x509.impl.OpensslCertChainValidator;
 import eu.emi.security.authn.x509.impl.ValidatorParams;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import java.io.File;
@@ -71,6 +75,7 @@ import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import javax.net.ssl.KeyManager;
@@ -99,6 +104,9 @@ public class CanlContextFactory implements SslContextFactory {
     private final SecureRandom secureRandom = new SecureRandom();
     private final TrustManager[] trustManagers;
     private final boolean startTls;
+    private final long sessionCacheSize;
+    private final long sessionTimeout;
+    private final List<String> applicationProtocols;
 
     private static final AutoCloseable NOOP = new AutoCloseable() {
         @Override
@@ -107,7 +115,15 @@ public class CanlContextFactory implements SslContextFactory {
     };
 
     protected CanlContextFactory(boolean startTls, TrustManager... trustManagers) {
+        this(startTls, 0, 0, List.of(), trustManagers);
+    }
+
+    protected CanlContextFactory(boolean startTls, long sessionCacheSize, long sessionTimeout,
+          List<String> applicationProtocols, TrustManager... trustManagers) {
         this.startTls = startTls;
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+        this.applicationProtocols = applicationProtocols;
         this.trustManagers = trustManagers;
     }
 
@@ -146,6 +162,12 @@ public class CanlContextFactory implements SslContextFactory {
         }
         SSLContext context = SSLContext.getInstance("TLS");
         context.init(keyManagers, trustManagers, secureRandom);
+        if (sessionCacheSize > 0) {
+            context.getServerSessionContext().setSessionCacheSize((int) sessionCacheSize);
+        }
+        if (sessionTimeout > 0) {
+            context.getServerSessionContext().setSessionTimeout((int) sessionTimeout);
+        }
         return context;
     }
 
@@ -154,6 +176,18 @@ public class CanlContextFactory implements SslContextFactory {
         KeyManager keyManager = credential == null ? null : credential.getKeyManager();
         SslContextBuilder builder = startTls ? SslContextBuilder.forServer(keyManager)
               : SslContextBuilder.forClient();
+        if (sessionCacheSize > 0) {
+            builder.sessionCacheSize(sessionCacheSize);
+        }
+        if (sessionTimeout > 0) {
+            builder.sessionTimeout(sessionTimeout);
+        }
+        if (!applicationProtocols.isEmpty()) {
+            builder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN,
+                  SelectorFailureBehavior.NO_ADVERTISE,
+                  SelectedListenerFailureBehavior.ACCEPT,
+                  applicationProtocols));
+        }
         try {
             return builder.trustManager(trustManagers[0]).startTls(startTls).build();
         } catch (SSLException e) {
@@ -179,6 +213,9 @@ public class CanlContextFactory implements SslContextFactory {
         private Supplier<AutoCloseable> loggingContextSupplier = () -> NOOP;
         private long validationCacheLifetime = 300000;
         private boolean startTls = true; // default/server mode
+        private long sessionCacheSize; // 0 means the provider's default
+        private long sessionTimeout; // in seconds, 0 means the provider's default
+        private List<String> applicationProtocols = List.of();
 
         private Builder() {
         }
@@ -259,6 +296,29 @@ public class CanlContextFactory implements SslContextFactory {
             return this;
         }
 
+        /**
+         * Sets the maximum number of TLS sessions kept for resumption by clients reconnecting
+         * to a server.
+         */
+        public Builder withSessionCacheSize(long size) {
+            this.sessionCacheSize = size;
+            return this;
+        }
+
+        public Builder withSessionTimeout(long duration, TimeUnit unit) {
+            this.sessionTimeout = unit.toSeconds(duration);
+            return this;
+        }
+
+        /**
+         * Sets the protocols offered through ALPN, in order of preference. Only applies to Netty
+         * contexts.
+         */
+        public Builder withApplicationProtocols(List<String> protocols) {
+            this.applicationProtocols = List.copyOf(protocols);
+            return this;
+        }
+
         public CanlContextFactory build() throws IOException {
             File caPath = new File(certificateAuthorityPath.toString());
             if (!caPath.isDirectory()) {
@@ -320,7 +380,8 @@ public class CanlContextFactory implements SslContextFactory {
                 }
                 return false;
             });
-            return new CanlContextFactory(startTls, new SSLTrustManager(v));
+            return new CanlContextFactory(startTls, sessionCacheSize, sessionTimeout,
+                  applicationProtocols, new SSLTrustManager(v));
         }
 
         public <T> Callable<T> buildWithCaching(Class<T> contextType) throws Exception {
@@ -67,6 +67,7 @@ import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import javax.security.auth.Subject;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.namespace.FileAttribute;
@@ -105,6 +106,7 @@ public abstract class BulkActivity<R> {
     protected Subject subject;
     protected Restriction restriction;
     protected RateLimiter rateLimiter;
+    protected Semaphore outstandingSemaphore;
     protected BulkTargetRetryPolicy retryPolicy;
     protected Set<BulkActivityArgumentDescriptor> descriptors;
 
@@ -144,6 +146,18 @@ public abstract class BulkActivity<R> {
         this.rateLimiter = rateLimiter;
     }
 
+    /**
+     * @return the permits bounding the number of targets of this kind of activity, across all
+     * requests, which have been started but have not completed; null if unbounded.
+     */
+    public Semaphore getOutstandingSemaphore() {
+        return outstandingSemaphore;
+    }
+
+    public void setOutstandingSemaphore(Semaphore outstandingSemaphore) {
+        this.outstandingSemaphore = outstandingSemaphore;
+    }
+
     public TargetType getTargetType() {
         return targetType;
     }
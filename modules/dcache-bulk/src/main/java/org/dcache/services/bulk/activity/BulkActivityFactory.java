@@ -71,6 +71,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import javax.security.auth.Subject;
 import org.dcache.auth.Subjects;
@@ -105,6 +106,7 @@ public final class BulkActivityFactory implements CellMessageSender, Environment
 
     private Map<String, BulkTargetRetryPolicy> retryPolicies;
     private Map<String, RateLimiter> rateLimiters;
+    private Map<String, Semaphore> outstandingSemaphores = Map.of();
     private Map<String, String> rateLimiterActivityIndex;
     private Map<String, Object> environment;
 
@@ -148,6 +150,8 @@ public final class BulkActivityFactory implements CellMessageSender, Environment
             bulkActivity.setRateLimiter(rateLimiters.get(rateLimiterType));
         }
 
+        bulkActivity.setOutstandingSemaphore(outstandingSemaphores.get(activity));
+
         BulkTargetRetryPolicy retryPolicy = retryPolicies.get(activity);
         if (retryPolicy != null) {
             bulkActivity.setRetryPolicy(retryPolicy);
@@ -188,6 +192,15 @@ public final class BulkActivityFactory implements CellMessageSender, Environment
         this.endpoint = endpoint;
     }
 
+    /**
+     * @param maxOutstanding for each activity, the maximum number of its targets, across all
+     *                       requests, which may have been started without having completed.
+     */
+    public void setMaxOutstanding(Map<String, Integer> maxOutstanding) {
+        outstandingSemaphores = maxOutstanding.entrySet().stream()
+              .collect(Collectors.toMap(Map.Entry::getKey, e -> new Semaphore(e.getValue())));
+    }
+
     @Required
     public void setPinManager(CellStub pinManager) {
         this.pinManager = pinManager;
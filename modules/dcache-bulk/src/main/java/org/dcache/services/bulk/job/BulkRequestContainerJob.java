@@ -78,8 +78,11 @@ import diskCacheV111.util.FsPath;
 import diskCacheV111.util.NamespaceHandlerAware;
 import diskCacheV111.util.PnfsHandler;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -96,6 +99,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import javax.security.auth.Subject;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.cells.AbstractMessageCallback;
@@ -113,10 +117,11 @@ import org.dcache.services.bulk.util.BulkRequestTarget.PID;
 import org.dcache.services.bulk.util.BulkRequestTarget.State;
 import org.dcache.services.bulk.util.BulkRequestTargetBuilder;
 import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.BulkTargetFilter;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
 import org.dcache.util.CacheExceptionFactory;
 import org.dcache.util.SignalAware;
 import org.dcache.util.list.DirectoryEntry;
-import org.dcache.util.list.DirectoryStream;
 import org.dcache.util.list.ListDirectoryHandler;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
@@ -127,6 +132,30 @@ import org.slf4j.LoggerFactory;
  * Container job for a list of targets which may or may not be associated with each other via a
  * common parent. It handles all file targets asynchronously, recurs if directory listing is
  * enabled, and processes directory targets serially last in depth-first reverse order.
+ * <p>
+ * Expansion is streamed: directories are listed in pages of bounded size, and each discovered
+ * file is handed to the activity as soon as an in-flight permit is available.  The in-flight
+ * permits are shared by all requests, so a task releases its permit once the activity has been
+ * started.  The number of started targets which have not completed is bounded separately for
+ * each activity; a target acquires such a permit before its in-flight permit and holds it
+ * until it is removed, so that listing is throttled by the rate at which targets complete
+ * without long running activities holding up other requests.  Subdirectories are queued on a
+ * depth-first frontier and
+ * picked up by the listing tasks of this job as directory-listing permits become free; a
+ * listing task never blocks on a directory-listing permit while holding one.
+ * <p>
+ * Entries are listed in order of their names, and each page continues after the name of the
+ * last entry of the previous page, so that a page does not depend on how many entries were
+ * added to or removed from the directory before it.  A listing which times out is resumed
+ * after the last entry handled.  A PnfsManager which does not support listing after a name is
+ * detected by the first listing, after which directories are listed in one go.
+ * <p>
+ * For requests whose targets are files only, the progress of each directory is recorded
+ * as an {@link ExpansionCheckpoint}, so that a restarted service skips completed subtrees
+ * and resumes a partially processed directory after the last entry of its done pages.
+ * Targets of pages that were not done may already have been discovered before the restart;
+ * the entries of a resumed request are therefore looked up in batches and those which
+ * already have a target are skipped.
  */
 public final class BulkRequestContainerJob
       implements Runnable, NamespaceHandlerAware, Comparable<BulkRequestContainerJob>,
@@ -138,6 +167,17 @@ public final class BulkRequestContainerJob
 
     static final AtomicLong taskCounter = new AtomicLong(0L);
 
+    /**
+     * Number of consecutive times a directory listing may time out without any entries having
+     * been received before the listing fails.
+     */
+    static final int MAX_LIST_RETRIES = 3;
+
+    /**
+     * Maximum number of entries of a resumed request looked up together.
+     */
+    static final int LOOKUP_BATCH_SIZE = 256;
+
     public static FsPath findAbsolutePath(String prefix, String path) {
         return computeFsPath(prefix, path);
     }
@@ -173,6 +213,108 @@ public final class BulkRequestContainerJob
         }
     }
 
+    /**
+     * Tracks the expansion of a directory.  Its listing is consumed in pages; a page is done
+     * once every file target listed in it has terminated and every subdirectory listed in it
+     * is itself done.  The directory is done when its listing is exhausted and all of its pages
+     * are.  Progress is recorded as a checkpoint, holding the name of the last entry of the done
+     * pages, whenever the prefix of done pages grows.
+     */
+    class DirNode {
+
+        final FsPath path;
+        final DirNode parent;
+        final int parentPage;
+        final String startAfter;
+
+        private final Map<Integer, Integer> outstanding = new HashMap<>();
+        private final Map<Integer, String> lastNames = new HashMap<>();
+        private int pages;
+        private int donePages;
+        private String doneName;
+        private boolean listed;
+        private boolean done;
+
+        DirNode(FsPath path, DirNode parent, int parentPage, String startAfter) {
+            this.path = path;
+            this.parent = parent;
+            this.parentPage = parentPage;
+            this.startAfter = startAfter;
+            doneName = startAfter;
+        }
+
+        synchronized void open(int page) {
+            outstanding.put(page, 1);
+            pages = page + 1;
+        }
+
+        synchronized void acquire(int page) {
+            outstanding.merge(page, 1, Integer::sum);
+        }
+
+        /**
+         * The listing of the page is complete.
+         *
+         * @param lastName name of the last entry of the page; null if the page is empty
+         */
+        void close(int page, boolean last, String lastName) {
+            synchronized (this) {
+                listed |= last;
+                if (lastName != null) {
+                    lastNames.put(page, lastName);
+                }
+            }
+            release(page);
+        }
+
+        void release(int page) {
+            ExpansionCheckpoint checkpoint;
+            boolean finished;
+
+            synchronized (this) {
+                if (outstanding.merge(page, -1, Integer::sum) > 0) {
+                    return;
+                }
+
+                outstanding.remove(page);
+                int before = donePages;
+                while (donePages < pages && !outstanding.containsKey(donePages)) {
+                    String lastName = lastNames.remove(donePages++);
+                    if (lastName != null) {
+                        doneName = lastName;
+                    }
+                }
+
+                finished = listed && donePages == pages && !done;
+                if (!finished && donePages == before) {
+                    return;
+                }
+
+                done |= finished;
+                checkpoint = new ExpansionCheckpoint(rid, path.toString(), doneName, finished);
+            }
+
+            storeCheckpoint(checkpoint);
+
+            if (finished && parent != null) {
+                parent.release(parentPage);
+            }
+        }
+
+        /**
+         * The subtree was completed before a restart.
+         */
+        void skip() {
+            synchronized (this) {
+                done = true;
+            }
+
+            if (parent != null) {
+                parent.release(parentPage);
+            }
+        }
+    }
+
     /**
      * Encapsulates manipulation of the semaphore.
      */
@@ -181,6 +323,20 @@ public final class BulkRequestContainerJob
         private final AtomicBoolean holdingPermit = new AtomicBoolean(false);
         private Semaphore taskSemaphore;
 
+        /**
+         * The permit was acquired on behalf of the task.
+         */
+        void acquired() {
+            holdingPermit.set(true);
+        }
+
+        /**
+         * Gives up the permit without releasing it, so that it can be passed on.
+         */
+        boolean handOff() {
+            return holdingPermit.compareAndSet(true, false);
+        }
+
         void acquireIfNotHoldingPermit() throws InterruptedException {
             if (taskSemaphore == null) {
                 return;
@@ -254,12 +410,31 @@ public final class BulkRequestContainerJob
             remove();
         }
 
-        void expandDepthFirst(Long id, PID pid, FsPath path, FileAttributes dirAttributes)
+        /**
+         * Queues the directory on the expansion frontier.  Only a caller which does not itself
+         * hold a directory-listing permit may block waiting for one.
+         */
+        void expandDepthFirst(Long id, PID pid, FsPath path, FileAttributes dirAttributes,
+              DirNode parent, int parentPage, boolean mayBlock)
               throws BulkServiceException, CacheException {
             LOGGER.debug("{} - expandDepthFirst, {}, {}, {}, {}", ruid, id, pid, path,
                   dirAttributes);
+            if (parent != null) {
+                parent.acquire(parentPage);
+            }
+
+            DirListTask task = new DirListTask(id, pid, path, dirAttributes, parent, parentPage);
+
+            synchronized (running) {
+                if (jobTarget.isTerminated()) {
+                    return;
+                }
+                running.put(task.seqNo, task);
+                pendingDirs.push(task);
+            }
+
             try {
-                new DirListTask(id, pid, path, dirAttributes).submitAsync();
+                dispatchDirs(mayBlock);
             } catch (InterruptedException e) {
                 LOGGER.trace("{} - expandDepthFirst {} interrupted.", ruid, id);
             }
@@ -309,12 +484,19 @@ public final class BulkRequestContainerJob
         final PID pid;
         final FsPath path;
         final FileAttributes dirAttributes;
+        final DirNode node;
+        final boolean completed;
 
-        DirListTask(Long id, PID pid, FsPath path, FileAttributes dirAttributes) {
+        DirListTask(Long id, PID pid, FsPath path, FileAttributes dirAttributes,
+              DirNode parent, int parentPage) {
             this.id = id;
             this.pid = pid;
             this.path = path;
             this.dirAttributes = dirAttributes;
+            ExpansionCheckpoint checkpoint = checkpoints.get(path.toString());
+            completed = checkpoint != null && checkpoint.isComplete();
+            node = new DirNode(path, parent, parentPage,
+                  checkpoint == null ? null : checkpoint.getLastName());
             taskExecutor = listExecutor;
             permitHolder.setTaskSemaphore(dirListSemaphore);
         }
@@ -322,44 +504,11 @@ public final class BulkRequestContainerJob
         void doInner() {
             try {
                 checkForRequestCancellation();
-                DirectoryStream stream = getDirectoryListing(path);
-                for (DirectoryEntry entry : stream) {
-                    checkForRequestCancellation();
-                    LOGGER.debug("{} - DirListTask, directory {}, entry {}", ruid, path,
-                          entry.getName());
-                    FsPath childPath = path.child(entry.getName());
-                    FileAttributes childAttributes = entry.getFileAttributes();
-
-                    switch (childAttributes.getFileType()) {
-                        case DIR:
-                            switch (depth) {
-                                case ALL:
-                                    expandDepthFirst(null, PID.DISCOVERED, childPath,
-                                          childAttributes);
-                                    break;
-                                case TARGETS:
-                                    switch (targetType) {
-                                        case BOTH:
-                                        case DIR:
-                                            addDirTarget(null, PID.DISCOVERED, childPath,
-                                                  childAttributes);
-                                    }
-                                    break;
-                            }
-                            break;
-                        case LINK:
-                        case REGULAR:
-                            new TargetTask(
-                                  toTarget(null, PID.DISCOVERED, childPath,
-                                        Optional.of(childAttributes), CREATED, null),
-                                  TaskState.HANDLE_TARGET).submitAsync();
-                            break;
-                        case SPECIAL:
-                        default:
-                            LOGGER.trace("{} - DirListTask, cannot handle special file {}.",
-                                  ruid, childPath);
-                            break;
-                    }
+                if (completed) {
+                    LOGGER.debug("{} - DirListTask, {} completed before restart.", ruid, path);
+                    node.skip();
+                } else {
+                    listPages();
                 }
 
                 checkForRequestCancellation();
@@ -394,21 +543,230 @@ public final class BulkRequestContainerJob
                 jobTarget.setErrorObject(e);
                 update();
             } finally {
+                passPermitOn();
                 remove();
             }
         }
 
+        /**
+         * Hands this task's permit to the next directory on the frontier, if any.
+         */
+        private void passPermitOn() {
+            List<DirListTask> abandoned = List.of();
+            synchronized (running) {
+                if (containerState == ContainerState.STOP || jobTarget.isTerminated()) {
+                    abandoned = List.copyOf(pendingDirs);
+                    pendingDirs.clear();
+                } else {
+                    DirListTask next = pendingDirs.poll();
+                    if (next != null && permitHolder.handOff()) {
+                        next.permitHolder.acquired();
+                        next.taskFuture = listExecutor.submit(next);
+                        return;
+                    } else if (next != null) {
+                        pendingDirs.push(next);
+                    }
+                }
+                --activeListers;
+            }
+            abandoned.forEach(DirListTask::remove);
+        }
+
+        /*
+         *  Name of the last entry handled.
+         */
+        private String lastName;
+
+        /*
+         *  Whether entries are looked up before they are handled.
+         */
+        private boolean deduplicate;
+
+        private void listPages() throws BulkServiceException, CacheException,
+              InterruptedException {
+            lastName = node.startAfter;
+            deduplicate = resumed;
+            for (int page = 0; ; ++page) {
+                checkForRequestCancellation();
+                node.open(page);
+                if (pagedListing) {
+                    String pageStart = lastName;
+                    try {
+                        int count = listPage(page);
+                        boolean last = count < listPageSize;
+                        node.close(page, last,
+                              Objects.equals(lastName, pageStart) ? null : lastName);
+                        if (last) {
+                            return;
+                        }
+                        continue;
+                    } catch (ListDirectoryHandler.StartAfterNotSupportedException e) {
+                        LOGGER.warn("{} - {} Listing directories in one go.", ruid,
+                              e.getMessage());
+                        pagedListing = false;
+                    }
+                }
+                listUnpaged(page);
+                node.close(page, true, null);
+                return;
+            }
+        }
+
+        /**
+         * Handles the remaining entries of the directory from a single listing.  The listing is
+         * not in order of the names, so no further progress is recorded for the directory, and
+         * entries handled by earlier pages are skipped.
+         */
+        private void listUnpaged(int page) throws BulkServiceException, CacheException,
+              InterruptedException {
+            deduplicate |= lastName != null;
+            LOGGER.debug("{} - DirListTask, getDirectoryListing for path {}, calling list ...",
+                  ruid, path);
+            try (ListDirectoryHandler.Stream stream = listHandler.list(subject, restriction,
+                  path, null, null, Range.closedOpen(0, Integer.MAX_VALUE),
+                  MINIMALLY_REQUIRED_ATTRIBUTES)) {
+                handleEntries(stream, page);
+                checkForRequestCancellation();
+                stream.checkComplete();
+            }
+        }
+
+        /**
+         * Handles the entries of the next page of the listing.  A listing which times out, for
+         * instance because PnfsManager gave up on a listing stalled by flow control while the
+         * entries were waiting for in-flight permits, is resumed after the last entry handled.
+         *
+         * @return the number of entries in the page
+         */
+        private int listPage(int page) throws BulkServiceException, CacheException,
+              InterruptedException {
+            int count = 0;
+            int failures = 0;
+            while (true) {
+                int before = count;
+                try (ListDirectoryHandler.Stream stream = getDirectoryListing(path, lastName,
+                      listPageSize - count)) {
+                    count += handleEntries(stream, page);
+                    checkForRequestCancellation();
+                    stream.checkComplete();
+                    return count;
+                } catch (CacheException e) {
+                    failures = count > before ? 1 : failures + 1;
+                    if (e.getRc() != CacheException.TIMEOUT || failures > MAX_LIST_RETRIES) {
+                        throw e;
+                    }
+                    LOGGER.warn("{} - listing of {} timed out, resuming after {}.", ruid, path,
+                          lastName);
+                    if (count == listPageSize) {
+                        return count;
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the number of entries listed
+         */
+        private int handleEntries(Iterable<DirectoryEntry> entries, int page)
+              throws BulkServiceException, CacheException, InterruptedException {
+            int count = 0;
+            List<DirectoryEntry> batch = new ArrayList<>();
+            for (DirectoryEntry entry : entries) {
+                ++count;
+                checkForRequestCancellation();
+                if (deduplicate) {
+                    batch.add(entry);
+                    if (batch.size() == LOOKUP_BATCH_SIZE) {
+                        handleUndiscovered(batch, page);
+                    }
+                } else {
+                    handleEntry(entry, page);
+                    lastName = entry.getName();
+                }
+            }
+            handleUndiscovered(batch, page);
+            return count;
+        }
+
+        /**
+         * Handles those of the entries for which no target was discovered before.
+         */
+        private void handleUndiscovered(List<DirectoryEntry> batch, int page)
+              throws BulkServiceException, CacheException, InterruptedException {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Set<String> discovered = targetStore.getDiscoveredPaths(rid, batch.stream()
+                  .map(e -> path.child(e.getName()).toString()).collect(Collectors.toList()));
+            for (DirectoryEntry entry : batch) {
+                if (discovered.contains(path.child(entry.getName()).toString())) {
+                    LOGGER.debug("{} - DirListTask, directory {}, entry {} already discovered.",
+                          ruid, path, entry.getName());
+                } else {
+                    handleEntry(entry, page);
+                }
+                lastName = entry.getName();
+            }
+            batch.clear();
+        }
+
+        private void handleEntry(DirectoryEntry entry, int page)
+              throws BulkServiceException, CacheException, InterruptedException {
+            LOGGER.debug("{} - DirListTask, directory {}, entry {}", ruid, path,
+                  entry.getName());
+            FsPath childPath = path.child(entry.getName());
+            FileAttributes childAttributes = entry.getFileAttributes();
+
+            switch (childAttributes.getFileType()) {
+                case DIR:
+                    switch (depth) {
+                        case ALL:
+                            expandDepthFirst(null, PID.DISCOVERED, childPath, childAttributes,
+                                  node, page, false);
+                            break;
+                        case TARGETS:
+                            switch (targetType) {
+                                case BOTH:
+                                case DIR:
+                                    addDirTarget(null, PID.DISCOVERED, childPath,
+                                          childAttributes);
+                            }
+                            break;
+                    }
+                    break;
+                case LINK:
+                case REGULAR:
+                    node.acquire(page);
+                    new TargetTask(
+                          toTarget(null, PID.DISCOVERED, childPath,
+                                Optional.of(childAttributes), CREATED, null),
+                          TaskState.HANDLE_TARGET, node, page).submitAsync();
+                    break;
+                case SPECIAL:
+                default:
+                    LOGGER.trace("{} - DirListTask, cannot handle special file {}.",
+                          ruid, childPath);
+                    break;
+            }
+        }
+
         private void addDirTarget(Long id, PID pid, FsPath path, FileAttributes attributes) {
             LOGGER.debug("{} - DirListTask, addDirTarget, adding directory {} ...", ruid, path);
             dirs.add(new DirTarget(id, pid, path, attributes));
         }
 
-        private DirectoryStream getDirectoryListing(FsPath path)
-              throws CacheException, InterruptedException {
-            LOGGER.debug("{} - DirListTask, getDirectoryListing for path {}, calling list ...",
-                  ruid, path);
+        private ListDirectoryHandler.Stream getDirectoryListing(FsPath path, String startAfter,
+              int limit) throws CacheException, InterruptedException {
+            LOGGER.debug("{} - DirListTask, getDirectoryListing for path {}, after {}, "
+                  + "calling list ...", ruid, path, startAfter);
+            /*
+             *  An empty name lists the directory from the start, but lets a PnfsManager
+             *  which cannot list after a name be detected.
+             */
             return listHandler.list(subject, restriction, path, null,
-                  Range.closedOpen(0, Integer.MAX_VALUE), MINIMALLY_REQUIRED_ATTRIBUTES);
+                  startAfter == null ? "" : startAfter, Range.closedOpen(0, limit),
+                  MINIMALLY_REQUIRED_ATTRIBUTES);
         }
     }
 
@@ -416,6 +774,19 @@ public final class BulkRequestContainerJob
 
         final BulkRequestTarget target;
 
+        /*
+         * The directory (and page of its listing) in which a discovered target was found.
+         */
+        final DirNode node;
+        final int page;
+        final AtomicBoolean released = new AtomicBoolean(false);
+
+        /*
+         * Held from submission until removal, bounding the targets of the activity which
+         * have not completed.
+         */
+        final PermitHolder outstandingPermitHolder = new PermitHolder();
+
         /*
          * From activity.perform()
          */
@@ -427,10 +798,44 @@ public final class BulkRequestContainerJob
         TaskState state;
 
         TargetTask(BulkRequestTarget target, TaskState initialState) {
+            this(target, initialState, null, 0);
+        }
+
+        TargetTask(BulkRequestTarget target, TaskState initialState, DirNode node, int page) {
             this.target = target;
+            this.node = node;
+            this.page = page;
             state = initialState;
             taskExecutor = BulkRequestContainerJob.this.executor;
             permitHolder.setTaskSemaphore(inFlightSemaphore);
+            outstandingPermitHolder.setTaskSemaphore(activity.getOutstandingSemaphore());
+        }
+
+        /**
+         * The outstanding permit is acquired before the in-flight permit, so that a task
+         * waiting for targets of its activity to complete does not hold an in-flight permit.
+         */
+        @Override
+        void submitAsync() throws InterruptedException {
+            outstandingPermitHolder.acquireIfNotHoldingPermit();
+            try {
+                super.submitAsync();
+            } finally {
+                synchronized (running) {
+                    if (!running.containsKey(seqNo)) {
+                        outstandingPermitHolder.releaseIfHoldingPermit();
+                    }
+                }
+            }
+        }
+
+        @Override
+        void remove() {
+            if (node != null && released.compareAndSet(false, true)) {
+                node.release(page);
+            }
+            outstandingPermitHolder.releaseIfHoldingPermit();
+            super.remove();
         }
 
         void cancel() {
@@ -540,7 +945,13 @@ public final class BulkRequestContainerJob
             try {
                 if (type == FileType.DIR) {
                     storeOrUpdate(null);
-                    expandDepthFirst(target.getId(), target.getPid(), target.getPath(), attributes);
+                    /*
+                     * Give up the in-flight permit first, since we may block waiting for
+                     * a directory-listing permit.
+                     */
+                    permitHolder.releaseIfHoldingPermit();
+                    expandDepthFirst(target.getId(), target.getPid(), target.getPath(), attributes,
+                          null, 0, true);
                     /*
                      * Swap out for the directory listing task.
                      * (We must do this AFTER the directory task has been added to running.)
@@ -694,6 +1105,8 @@ public final class BulkRequestContainerJob
     private final Map<Long, ContainerTask> running;
     private final Set<FsPath> cancelledPaths;
     private final Queue<DirTarget> dirs;
+    private final Deque<DirListTask> pendingDirs;
+    private final boolean checkpointing;
 
     private BulkTargetStore targetStore;
     private PnfsHandler pnfsHandler;
@@ -705,7 +1118,24 @@ public final class BulkRequestContainerJob
     private ExecutorService callbackExecutor;
     private Semaphore dirListSemaphore;
     private Semaphore inFlightSemaphore;
+    private int listPageSize = Integer.MAX_VALUE;
 
+    /*
+     *  Guarded by running.
+     */
+    private int activeListers;
+
+    private volatile Map<String, ExpansionCheckpoint> checkpoints = Map.of();
+
+    /*
+     *  Targets of the request may have been discovered before a restart.
+     */
+    private volatile boolean resumed;
+
+    /*
+     *  Cleared once PnfsManager turns out not to support listing after a name.
+     */
+    private volatile boolean pagedListing = true;
     private volatile ContainerState containerState;
 
     public BulkRequestContainerJob(BulkActivity activity, BulkRequestTarget jobTarget,
@@ -726,6 +1156,12 @@ public final class BulkRequestContainerJob
         running = new HashMap<>();
         cancelledPaths = new HashSet<>();
         dirs = new ConcurrentLinkedQueue<>();
+        pendingDirs = new ArrayDeque<>();
+
+        /*
+         *  Directories are only skipped on resumption if they are not targets themselves.
+         */
+        checkpointing = depth != Depth.NONE && targetType == TargetType.FILE;
 
         containerState = ContainerState.START;
     }
@@ -890,6 +1326,10 @@ public final class BulkRequestContainerJob
         this.inFlightSemaphore = inFlightSemaphore;
     }
 
+    public void setListPageSize(int listPageSize) {
+        this.listPageSize = listPageSize;
+    }
+
     public void setListHandler(ListDirectoryHandler listHandler) {
         this.listHandler = listHandler;
     }
@@ -958,6 +1398,41 @@ public final class BulkRequestContainerJob
         }
     }
 
+    /**
+     * Starts listing tasks for queued directories while permits are available.  If none is,
+     * and no listing task of this job is active to pick up the queue, a caller that is
+     * allowed to block waits for one.
+     */
+    private void dispatchDirs(boolean mayBlock) throws InterruptedException {
+        while (true) {
+            synchronized (running) {
+                if (pendingDirs.isEmpty()) {
+                    return;
+                }
+            }
+
+            if (!dirListSemaphore.tryAcquire()) {
+                synchronized (running) {
+                    if (!mayBlock || activeListers > 0) {
+                        return;
+                    }
+                }
+                dirListSemaphore.acquire();
+            }
+
+            synchronized (running) {
+                DirListTask next = jobTarget.isTerminated() ? null : pendingDirs.poll();
+                if (next == null) {
+                    dirListSemaphore.release();
+                    return;
+                }
+                ++activeListers;
+                next.permitHolder.acquired();
+                next.taskFuture = listExecutor.submit(next);
+            }
+        }
+    }
+
     private boolean hasBeenSpecificallyCancelled(TargetTask task) {
         synchronized (cancelledPaths) {
             BulkRequestTarget target = task.target;
@@ -1025,6 +1500,20 @@ public final class BulkRequestContainerJob
     private void processFileTargets() {
         List<BulkRequestTarget> requestTargets = targetStore.getInitialTargets(rid, true);
 
+        if (checkpointing) {
+            try {
+                checkpoints = targetStore.getExpansionCheckpoints(rid);
+                resumed = !checkpoints.isEmpty() || targetStore.count(
+                      new BulkTargetFilter(Set.of(ruid), null, Set.of(PID.DISCOVERED.ordinal()),
+                            null, null, null, null)) > 0;
+                LOGGER.debug("{} - processFileTargets, {} expansion checkpoints, resumed {}.",
+                      ruid, checkpoints.size(), resumed);
+            } catch (BulkStorageException e) {
+                LOGGER.error("{} - could not load expansion checkpoints: {}.", ruid,
+                      e.toString());
+            }
+        }
+
         LOGGER.debug("{} - processFileTargets, initial size {}.", ruid, requestTargets.size());
 
         if (requestTargets.isEmpty()) {
@@ -1077,6 +1566,19 @@ public final class BulkRequestContainerJob
               .errorMessage(errorMessage).path(path).build();
     }
 
+    private void storeCheckpoint(ExpansionCheckpoint checkpoint) {
+        if (!checkpointing || containerState == ContainerState.STOP
+              || jobTarget.isTerminated()) {
+            return;
+        }
+
+        try {
+            targetStore.storeExpansionCheckpoint(checkpoint);
+        } catch (BulkStorageException e) {
+            LOGGER.error("{}, could not store {}: {}.", ruid, checkpoint, e.toString());
+        }
+    }
+
     private void update() {
         try {
             targetStore.update(jobTarget.getId(), jobTarget.getState(),
@@ -103,6 +103,7 @@ public final class RequestContainerJobFactory {
     private BulkServiceStatistics statistics;
     private Semaphore dirListSemaphore;
     private Semaphore inFlightSemaphore;
+    private int listPageSize;
     private BoundedCachedExecutor taskExecutor;
     private BoundedCachedExecutor callbackExecutor;
     private BoundedCachedExecutor listExecutor;
@@ -134,6 +135,7 @@ public final class RequestContainerJobFactory {
         containerJob.setNamespaceHandler(pnfsHandler);
         containerJob.setTargetStore(targetStore);
         containerJob.setListHandler(listHandler);
+        containerJob.setListPageSize(listPageSize);
         containerJob.setDirListSemaphore(dirListSemaphore);
         containerJob.setInFlightSemaphore(inFlightSemaphore);
         containerJob.setExecutor(taskExecutor);
@@ -166,6 +168,11 @@ public final class RequestContainerJobFactory {
         this.listHandler = listHandler;
     }
 
+    @Required
+    public void setListPageSize(int listPageSize) {
+        this.listPageSize = listPageSize;
+    }
+
     @Required
     public void setListExecutor(BoundedCachedExecutor listExecutor) {
         this.listExecutor = listExecutor;
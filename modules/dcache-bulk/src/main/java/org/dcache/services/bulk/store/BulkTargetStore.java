@@ -59,14 +59,17 @@ documents or software obtained from this server.
  */
 package org.dcache.services.bulk.store;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.dcache.namespace.FileType;
 import org.dcache.services.bulk.BulkStorageException;
 import org.dcache.services.bulk.util.BulkRequestTarget;
 import org.dcache.services.bulk.util.BulkRequestTarget.State;
 import org.dcache.services.bulk.util.BulkTargetFilter;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
 
 /**
  * Provides a higher-level programmatic wrapper around calls to the underlying target DAO.
@@ -136,6 +139,23 @@ public interface BulkTargetStore {
     List<BulkRequestTarget> find(BulkTargetFilter filter, Integer limit)
           throws BulkStorageException;
 
+    /**
+     * @param rid   of the request.
+     * @param paths of namespace entries.
+     * @return those of the paths for which the request already has a discovered target.
+     * @throws BulkStorageException
+     */
+    Set<String> getDiscoveredPaths(Long rid, Collection<String> paths)
+          throws BulkStorageException;
+
+    /**
+     * @param rid of the request.
+     * @return the directory expansion checkpoints recorded for the request, by path.
+     * @throws BulkStorageException
+     */
+    Map<String, ExpansionCheckpoint> getExpansionCheckpoints(Long rid)
+          throws BulkStorageException;
+
     /**
      * @param rid of the request the targets belong to.
      * @param nonterminal only the initial targets which have not yet run.
@@ -168,6 +188,15 @@ public interface BulkTargetStore {
      */
      boolean store(BulkRequestTarget target) throws BulkStorageException;
 
+    /**
+     * Record the progress of a directory expansion.  The checkpoint must not become visible
+     * before the targets it covers have been stored.
+     *
+     * @param checkpoint to record.
+     * @throws BulkStorageException
+     */
+    void storeExpansionCheckpoint(ExpansionCheckpoint checkpoint) throws BulkStorageException;
+
     /**
      * Store or update the target if it already exists.
      *
@@ -530,6 +530,7 @@ public final class JdbcBulkRequestStore implements BulkRequestStore {
          *  - delete ROOT
          *  - delete DISCOVERED
          *  - set INITIAL to CREATED
+         *  - unless skipping terminated targets, forget expansion checkpoints
          *
          *  NOTE that without actually querying the database, we cannot know whether
          *  to decrement state counts here or not, since the reset may have been issued
@@ -546,6 +547,7 @@ public final class JdbcBulkRequestStore implements BulkRequestStore {
                   requestTargetDao.set().state(CREATED).errorType(null).errorMessage(null));
         } else {
             requestTargetDao.delete(requestTargetDao.where().pids(DISCOVERED.ordinal()).ruids(uid));
+            requestTargetDao.deleteExpansionCheckpoints(uid);
             requestTargetDao.update(requestTargetDao.where().pids(INITIAL.ordinal()).ruids(uid),
                   requestTargetDao.set().state(CREATED).errorType(null).errorMessage(null));
         }
@@ -63,9 +63,11 @@ import static org.dcache.services.bulk.util.BulkRequestTarget.NON_TERMINAL;
 import static org.dcache.services.bulk.util.BulkRequestTarget.PID.DISCOVERED;
 import static org.dcache.services.bulk.util.BulkRequestTarget.State.CREATED;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.dcache.namespace.FileType;
 import org.dcache.services.bulk.BulkStorageException;
 import org.dcache.services.bulk.store.BulkTargetStore;
@@ -73,6 +75,7 @@ import org.dcache.services.bulk.util.BulkRequestTarget;
 import org.dcache.services.bulk.util.BulkRequestTarget.PID;
 import org.dcache.services.bulk.util.BulkRequestTarget.State;
 import org.dcache.services.bulk.util.BulkTargetFilter;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -151,6 +154,18 @@ public final class JdbcBulkTargetStore implements BulkTargetStore {
         return targetDao.get(targetDao.where().filter(jobFilter).sorter("request_target.id"), limit);
     }
 
+    @Override
+    public Set<String> getDiscoveredPaths(Long rid, Collection<String> paths)
+          throws BulkStorageException {
+        return targetDao.getDiscoveredPaths(rid, paths);
+    }
+
+    @Override
+    public Map<String, ExpansionCheckpoint> getExpansionCheckpoints(Long rid)
+          throws BulkStorageException {
+        return targetDao.getExpansionCheckpoints(rid);
+    }
+
     @Override
     public List<BulkRequestTarget> getInitialTargets(Long rid, boolean nonterminal) {
         JdbcRequestTargetCriterion criterion = targetDao.where().rid(rid).pids(PID.INITIAL.ordinal())
@@ -184,24 +199,29 @@ public final class JdbcBulkTargetStore implements BulkTargetStore {
 
     @Override
     public boolean store(BulkRequestTarget target) throws BulkStorageException {
-        targetDao.insert(prepareUpdate(target))
-              .ifPresent(keyHolder -> target.setId((Long) keyHolder.getKeys().get("id")));
+        targetDao.insertDeferred(prepareUpdate(target)).ifPresent(target::setId);
         return target.getId() != null;
     }
 
+    @Override
+    public void storeExpansionCheckpoint(ExpansionCheckpoint checkpoint)
+          throws BulkStorageException {
+        targetDao.storeExpansionCheckpoint(checkpoint);
+    }
+
     @Override
     public void storeOrUpdate(BulkRequestTarget target) throws BulkStorageException {
         Long id = target.getId();
         if (id == null) {
             store(target);
         } else {
-            targetDao.update(targetDao.where().id(id), prepareUpdate(target));
+            targetDao.updateDeferred(id, prepareUpdate(target));
         }
     }
 
     @Override
     public void update(Long id, State state, String errorType, String errorMessage) throws BulkStorageException {
-        targetDao.update(targetDao.where().id(id),
+        targetDao.updateDeferred(id,
               targetDao.set().state(state).errorType(errorType).errorMessage(errorMessage));
     }
 
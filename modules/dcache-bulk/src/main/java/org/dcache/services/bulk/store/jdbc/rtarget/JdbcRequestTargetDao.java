@@ -71,6 +71,9 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +89,7 @@ import org.dcache.services.bulk.util.BulkRequestTarget.PID;
 import org.dcache.services.bulk.util.BulkRequestTarget.State;
 import org.dcache.services.bulk.util.BulkRequestTargetBuilder;
 import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
 import org.dcache.vehicles.FileAttributes;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
@@ -94,6 +98,10 @@ import org.springframework.jdbc.support.KeyHolder;
 
 /**
  * CRUD for the request target table.
+ * <p>
+ * When a write-behind buffer is configured, single-target inserts and updates can be
+ * deferred; every other operation flushes the buffer first so that callers always
+ * read their own writes.
  */
 public final class JdbcRequestTargetDao extends JdbcDaoSupport {
 
@@ -124,6 +132,25 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
           "(SELECT * FROM request_target t WHERE r.id = t.rid AND t.state = 'FAILED')";
 
 
+    /*
+     *  Paths may exceed the btree entry size limit; the index is on their hash instead.
+     */
+    static final String SELECT_DISCOVERED_PATHS = "SELECT path FROM " + TABLE_NAME
+          + " WHERE rid = ? AND pid = " + PID.DISCOVERED.ordinal() + " AND md5(path) IN (%s)";
+
+    static final String CHECKPOINT_TABLE_NAME = "request_expansion_checkpoint";
+
+    static final String SELECT_CHECKPOINTS = "SELECT path, last_name, complete FROM "
+          + CHECKPOINT_TABLE_NAME + " WHERE rid = ?";
+
+    static final String UPSERT_CHECKPOINTS = "INSERT INTO " + CHECKPOINT_TABLE_NAME
+          + " (rid, path, last_name, complete) VALUES %s "
+          + "ON CONFLICT (rid, md5(path)) DO UPDATE SET last_name = EXCLUDED.last_name, "
+          + "complete = EXCLUDED.complete";
+
+    static final String DELETE_CHECKPOINTS = "DELETE FROM " + CHECKPOINT_TABLE_NAME
+          + " c USING " + JdbcBulkRequestDao.TABLE_NAME + " r WHERE c.rid = r.id AND r.uid = ?";
+
     static final ParameterizedPreparedStatementSetter<TargetPlaceholder> SETTER = (ps, target) -> {
         Instant now = Instant.now();
         ps.setInt(1, PID.INITIAL.ordinal());
@@ -146,32 +173,92 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
 
     private BulkServiceStatistics statistics;
     private JdbcBulkDaoUtils utils;
+    private JdbcRequestTargetWriteBehind writeBehind;
 
     public int count(JdbcRequestTargetCriterion criterion) {
+        flush();
         return utils.count(criterion, tableNameForSelect(criterion), this);
     }
 
     public Map<String, Long> count(JdbcRequestTargetCriterion criterion, String classifier) {
+        flush();
         return utils.countGrouped(criterion.classifier(classifier), tableNameForSelect(criterion), this);
     }
 
     public Map<String, Long> countStates() {
+        flush();
         return utils.countGrouped(where().classifier("state"), TABLE_NAME, this);
     }
 
+    /**
+     * Removes the expansion checkpoints of the request so that it is expanded from scratch.
+     */
+    public int deleteExpansionCheckpoints(String ruid) {
+        flush();
+        return getJdbcTemplate().update(DELETE_CHECKPOINTS, ruid);
+    }
+
     public int delete(JdbcRequestTargetCriterion criterion) {
+        flush();
         if (criterion.isJoined()) {
             return utils.delete(criterion, TABLE_NAME, SECONDARY_TABLE_NAME, this);
         }
         return utils.delete(criterion, TABLE_NAME, this);
     }
 
+    /**
+     * Writes out any buffered target writes.
+     */
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+
     public List<BulkRequestTarget> get(JdbcRequestTargetCriterion criterion, int limit) {
+        flush();
         return utils.get(getSelect(criterion), criterion, limit, tableNameForSelect(criterion),
               this, criterion.isJoined() ? this::toFullRequestTarget : this::toRequestTarget);
     }
 
+    public Map<String, ExpansionCheckpoint> getExpansionCheckpoints(Long rid) {
+        flush();
+        Map<String, ExpansionCheckpoint> checkpoints = new HashMap<>();
+        getJdbcTemplate().query(SELECT_CHECKPOINTS, rs -> {
+            String path = rs.getString("path");
+            checkpoints.put(path, new ExpansionCheckpoint(rid, path, rs.getString("last_name"),
+                  rs.getBoolean("complete")));
+        }, rid);
+        return checkpoints;
+    }
+
+    /**
+     * @return those of the paths for which the request already has a discovered target.
+     */
+    public Set<String> getDiscoveredPaths(Long rid, Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return Set.of();
+        }
+
+        flush();
+        Set<String> candidates = new HashSet<>(paths);
+        List<Object> args = new ArrayList<>(candidates.size() + 1);
+        args.add(rid);
+        args.addAll(candidates);
+        Set<String> discovered = new HashSet<>();
+        getJdbcTemplate().query(String.format(SELECT_DISCOVERED_PATHS,
+                    String.join(", ", Collections.nCopies(candidates.size(), "md5(?)"))),
+              rs -> {
+                  String path = rs.getString("path");
+                  if (candidates.contains(path)) {
+                      discovered.add(path);
+                  }
+              }, args.toArray());
+        return discovered;
+    }
+
     public List<String> getRequestsOfFailed() {
+        flush();
         return getJdbcTemplate().queryForList(UIDS_OF_FAILED, String.class);
     }
 
@@ -179,6 +266,18 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         return utils.insert(update, TABLE_NAME, this);
     }
 
+    /**
+     * Inserts through the write-behind buffer if there is one.
+     *
+     * @return the id of the new row, if it could be stored.
+     */
+    public Optional<Long> insertDeferred(JdbcRequestTargetUpdate update) {
+        if (writeBehind != null) {
+            return Optional.of(writeBehind.insert(update));
+        }
+        return insert(update).map(keyHolder -> (Long) keyHolder.getKeys().get("id"));
+    }
+
     public void insertInitialTargets(BulkRequest request) {
         List<TargetPlaceholder> targets = new ArrayList<>();
         Set<String> seen = new HashSet<>();
@@ -206,6 +305,27 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         return new JdbcRequestTargetUpdate();
     }
 
+    /**
+     * Records the checkpoint through the write-behind buffer if there is one, in which case
+     * it is written after the target rows buffered before it.
+     */
+    public void storeExpansionCheckpoint(ExpansionCheckpoint checkpoint) {
+        if (checkpoint.getPath().length() > REQUEST_TARGET_PATH_LENGTH) {
+            /*
+             *  Cannot be stored without truncation; the directory is simply listed again.
+             */
+            return;
+        }
+
+        if (writeBehind != null) {
+            writeBehind.checkpoint(checkpoint);
+        } else {
+            getJdbcTemplate().update(String.format(UPSERT_CHECKPOINTS, "(?, ?, ?, ?)"),
+                  checkpoint.getRid(), checkpoint.getPath(), checkpoint.getLastName(),
+                  checkpoint.isComplete());
+        }
+    }
+
     @Required
     public void setStatistics(BulkServiceStatistics statistics) {
         this.statistics = statistics;
@@ -216,6 +336,10 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         this.utils = utils;
     }
 
+    public void setWriteBehind(JdbcRequestTargetWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
     public BulkRequestTarget toFullRequestTarget(ResultSet rs, int row) throws SQLException {
         BulkRequestTarget target = toRequestTarget(rs, row);
         target.setRuid(rs.getString("ruid"));
@@ -262,6 +386,7 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
     }
 
     public int update(JdbcRequestTargetCriterion criterion, JdbcRequestTargetUpdate update) {
+        flush();
         if (criterion.isJoined()) {
             return utils.update(criterion, update, TABLE_NAME, SECONDARY_TABLE_NAME, this);
         }
@@ -269,6 +394,17 @@ public final class JdbcRequestTargetDao extends JdbcDaoSupport {
         return utils.update(criterion, update, TABLE_NAME, this);
     }
 
+    /**
+     * Updates a single row through the write-behind buffer if there is one.
+     */
+    public void updateDeferred(long id, JdbcRequestTargetUpdate update) {
+        if (writeBehind != null) {
+            writeBehind.update(id, update);
+        } else {
+            update(where().id(id), update);
+        }
+    }
+
     public JdbcRequestTargetCriterion where() {
         return new JdbcRequestTargetCriterion();
     }
@@ -0,0 +1,465 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.store.jdbc.rtarget;
+
+import static java.util.Collections.nCopies;
+import static java.util.stream.Collectors.joining;
+import static org.dcache.services.bulk.store.jdbc.rtarget.JdbcRequestTargetDao.TABLE_NAME;
+import static org.dcache.services.bulk.store.jdbc.rtarget.JdbcRequestTargetDao.UPSERT_CHECKPOINTS;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.support.JdbcDaoSupport;
+
+/**
+ * Write-behind buffer for request target inserts and state transitions.
+ * <p>
+ * Writes are coalesced per target id, so that a target which is discovered, started and
+ * completed within one flush window results in a single row insert.  The buffer is written
+ * out in multi-row statements whenever it reaches its maximum size (in which case the
+ * enqueuing thread performs the flush, providing back-pressure), at a fixed interval,
+ * or whenever the dao needs to read the table.
+ * <p>
+ * Ids for deferred inserts are reserved in blocks from the table's sequence so that
+ * callers can be handed the id of a target before its row exists.
+ * <p>
+ * Directory expansion checkpoints are buffered as well; they are only written once all the
+ * target rows buffered before them have been, so that a checkpoint never covers targets
+ * which are not yet in the table.
+ * <p>
+ * Losing the buffer on a crash is safe:  on reload, non-terminal discovered targets
+ * are deleted and non-terminal initial targets are reset, so an unwritten transition
+ * only causes the target to be processed again.  Request completion is always decided
+ * on the basis of a read, which flushes the buffer first.
+ */
+public final class JdbcRequestTargetWriteBehind extends JdbcDaoSupport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(
+          JdbcRequestTargetWriteBehind.class);
+
+    private static final String RESERVE_IDS =
+          "SELECT nextval(pg_get_serial_sequence('" + TABLE_NAME + "', 'id')) "
+                + "FROM generate_series(1, ?)";
+
+    /**
+     * Maximum number of bind parameters in a single PostgreSQL statement.
+     */
+    private static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+    private static final Map<String, String> COLUMN_TYPES = Map.ofEntries(
+          Map.entry("id", "bigint"),
+          Map.entry("pid", "bigint"),
+          Map.entry("rid", "bigint"),
+          Map.entry("pnfsid", "varchar"),
+          Map.entry("path", "varchar"),
+          Map.entry("type", "varchar"),
+          Map.entry("state", "varchar"),
+          Map.entry("created_at", "timestamp"),
+          Map.entry("started_at", "timestamp"),
+          Map.entry("last_updated", "timestamp"),
+          Map.entry("error_type", "varchar"),
+          Map.entry("error_message", "text"));
+
+    /**
+     * The coalesced columns of a single target row.
+     */
+    static final class PendingWrite {
+
+        private boolean insert;
+        private final Map<String, Object> columns = new TreeMap<>();
+
+        PendingWrite(boolean insert, Map<String, Object> columns) {
+            this.insert = insert;
+            this.columns.putAll(columns);
+        }
+
+        /**
+         * Applies the columns of a more recent write on top of this one.
+         */
+        void merge(PendingWrite newer) {
+            insert |= newer.insert;
+            columns.putAll(newer.columns);
+        }
+
+        String signature() {
+            return (insert ? "I:" : "U:") + String.join(",", columns.keySet());
+        }
+    }
+
+    private final Object lock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Deque<Long> reservedIds = new ArrayDeque<>();
+
+    /*
+     *  Guarded by lock.
+     */
+    private Map<Long, PendingWrite> pending = new LinkedHashMap<>();
+    private Map<String, ExpansionCheckpoint> checkpoints = new LinkedHashMap<>();
+
+    private BulkServiceStatistics statistics;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> flushTask;
+    private int maxPending;
+    private int idBlockSize;
+    private long flushInterval;
+    private TimeUnit flushIntervalUnit;
+
+    public void initialize() {
+        flushTask = executor.scheduleWithFixedDelay(this::scheduledFlush, flushInterval,
+              flushInterval, flushIntervalUnit);
+    }
+
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        scheduledFlush();
+    }
+
+    /**
+     * Defers the insert of a new target row.
+     *
+     * @return the id reserved for the row.
+     */
+    public long insert(JdbcRequestTargetUpdate update) {
+        long id = nextId();
+        enqueue(id, new PendingWrite(true, update.updates()));
+        return id;
+    }
+
+    /**
+     * Defers the update of the target row with the given id.
+     */
+    public void update(long id, JdbcRequestTargetUpdate update) {
+        enqueue(id, new PendingWrite(false, update.updates()));
+    }
+
+    /**
+     * Defers recording an expansion checkpoint; only the latest for a directory is kept.
+     */
+    public void checkpoint(ExpansionCheckpoint checkpoint) {
+        synchronized (lock) {
+            checkpoints.put(checkpoint.getKey(), checkpoint);
+        }
+    }
+
+    /**
+     * Writes out everything currently buffered.  Concurrent callers are serialized, so
+     * that on return all writes enqueued before the call are visible in the table.
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (pending.isEmpty() && checkpoints.isEmpty() && !flushLock.isLocked()) {
+                return;
+            }
+        }
+
+        flushLock.lock();
+        try {
+            Map<Long, PendingWrite> toWrite;
+            Map<String, ExpansionCheckpoint> toCheckpoint;
+            synchronized (lock) {
+                if (pending.isEmpty() && checkpoints.isEmpty()) {
+                    return;
+                }
+                toWrite = pending;
+                pending = new LinkedHashMap<>();
+                toCheckpoint = checkpoints;
+                checkpoints = new LinkedHashMap<>();
+            }
+            statistics.setPendingTargetWrites(0);
+            try {
+                write(toWrite);
+            } catch (DataAccessException e) {
+                requeueCheckpoints(toCheckpoint);
+                throw e;
+            }
+            writeCheckpoints(toCheckpoint);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Required
+    public void setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    @Required
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    @Required
+    public void setFlushIntervalUnit(TimeUnit flushIntervalUnit) {
+        this.flushIntervalUnit = flushIntervalUnit;
+    }
+
+    @Required
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+        this.idBlockSize = Math.max(1, maxPending);
+    }
+
+    @Required
+    public void setStatistics(BulkServiceStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    private void enqueue(long id, PendingWrite write) {
+        int size;
+        synchronized (lock) {
+            PendingWrite current = pending.get(id);
+            if (current == null) {
+                pending.put(id, write);
+            } else {
+                current.merge(write);
+            }
+            size = pending.size();
+        }
+
+        statistics.setPendingTargetWrites(size);
+
+        if (size >= maxPending) {
+            flush();
+        }
+    }
+
+    private long nextId() {
+        synchronized (reservedIds) {
+            if (reservedIds.isEmpty()) {
+                reservedIds.addAll(getJdbcTemplate().queryForList(RESERVE_IDS, Long.class,
+                      idBlockSize));
+            }
+            return reservedIds.removeFirst();
+        }
+    }
+
+    /**
+     * Writes that fail for transient reasons are put back into the buffer (without
+     * overwriting any more recent transitions) and the error is propagated.  Otherwise,
+     * the rows of a failed statement are retried one by one, so that a single bad row
+     * (for instance, one belonging to a request which has since been cleared) does not
+     * hold up the rest.
+     */
+    private void write(Map<Long, PendingWrite> toWrite) {
+        long start = System.currentTimeMillis();
+
+        Map<String, List<Entry<Long, PendingWrite>>> groups = new LinkedHashMap<>();
+        for (Entry<Long, PendingWrite> entry : toWrite.entrySet()) {
+            groups.computeIfAbsent(entry.getValue().signature(), s -> new ArrayList<>())
+                  .add(entry);
+        }
+
+        int statements = 0;
+        List<Entry<Long, PendingWrite>> unwritten = new ArrayList<>();
+        for (List<Entry<Long, PendingWrite>> group : groups.values()) {
+            PendingWrite first = group.get(0).getValue();
+            if (first.insert) {
+                fillInsertDefaults(group);
+            }
+
+            int perRow = first.columns.size() + 1;
+            int chunkSize = Math.max(1, MAX_PARAMETERS / perRow);
+            for (int i = 0; i < group.size(); i += chunkSize) {
+                List<Entry<Long, PendingWrite>> chunk
+                      = group.subList(i, Math.min(group.size(), i + chunkSize));
+                if (!unwritten.isEmpty()) {
+                    unwritten.addAll(chunk);
+                    continue;
+                }
+                try {
+                    statements += writeChunk(chunk);
+                } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                    unwritten.addAll(chunk);
+                    LOGGER.warn("Failed to flush {} buffered target writes: {}.",
+                          chunk.size(), e.getMessage());
+                } catch (DataAccessException e) {
+                    LOGGER.debug("Batched target write failed ({}); writing rows singly.",
+                          e.getMessage());
+                    statements += writeSingly(chunk);
+                }
+            }
+        }
+
+        if (!unwritten.isEmpty()) {
+            requeue(unwritten);
+        }
+
+        statistics.targetWritesFlushed(toWrite.size() - unwritten.size(), statements,
+              System.currentTimeMillis() - start);
+
+        if (!unwritten.isEmpty()) {
+            throw new DataAccessResourceFailureException(
+                  "could not flush " + unwritten.size() + " target writes; requeued.");
+        }
+    }
+
+    private int writeChunk(List<Entry<Long, PendingWrite>> chunk) {
+        PendingWrite first = chunk.get(0).getValue();
+        List<String> columns = new ArrayList<>(first.columns.keySet());
+        List<Object> arguments = new ArrayList<>(chunk.size() * (columns.size() + 1));
+        for (Entry<Long, PendingWrite> entry : chunk) {
+            arguments.add(entry.getKey());
+            for (String column : columns) {
+                arguments.add(entry.getValue().columns.get(column));
+            }
+        }
+
+        String sql = first.insert ? insertSql(columns, chunk.size())
+              : updateSql(columns, chunk.size());
+        LOGGER.trace("flush {} rows: {}.", chunk.size(), sql);
+        getJdbcTemplate().update(sql, arguments.toArray());
+        return 1;
+    }
+
+    private int writeSingly(List<Entry<Long, PendingWrite>> chunk) {
+        int statements = 0;
+        for (Entry<Long, PendingWrite> entry : chunk) {
+            try {
+                statements += writeChunk(List.of(entry));
+            } catch (DataAccessException e) {
+                LOGGER.warn("Dropping buffered write for target {}: {}.", entry.getKey(),
+                      e.getMessage());
+            }
+        }
+        return statements;
+    }
+
+    private void requeue(List<Entry<Long, PendingWrite>> unwritten) {
+        int size;
+        synchronized (lock) {
+            Map<Long, PendingWrite> merged = new LinkedHashMap<>();
+            for (Entry<Long, PendingWrite> entry : unwritten) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+            for (Entry<Long, PendingWrite> entry : pending.entrySet()) {
+                PendingWrite older = merged.get(entry.getKey());
+                if (older == null) {
+                    merged.put(entry.getKey(), entry.getValue());
+                } else {
+                    older.merge(entry.getValue());
+                }
+            }
+            pending = merged;
+            size = pending.size();
+        }
+        statistics.setPendingTargetWrites(size);
+    }
+
+    private void writeCheckpoints(Map<String, ExpansionCheckpoint> toCheckpoint) {
+        if (toCheckpoint.isEmpty()) {
+            return;
+        }
+
+        List<ExpansionCheckpoint> all = new ArrayList<>(toCheckpoint.values());
+        int chunkSize = MAX_PARAMETERS / 4;
+        for (int i = 0; i < all.size(); i += chunkSize) {
+            List<ExpansionCheckpoint> chunk = all.subList(i, Math.min(all.size(), i + chunkSize));
+            try {
+                upsertCheckpoints(chunk);
+            } catch (TransientDataAccessException | DataAccessResourceFailureException e) {
+                requeueCheckpoints(all.subList(i, all.size()));
+                throw e;
+            } catch (DataAccessException e) {
+                for (ExpansionCheckpoint checkpoint : chunk) {
+                    try {
+                        upsertCheckpoints(List.of(checkpoint));
+                    } catch (DataAccessException e1) {
+                        LOGGER.warn("Dropping {}: {}.", checkpoint, e1.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void upsertCheckpoints(List<ExpansionCheckpoint> chunk) {
+        List<Object> arguments = new ArrayList<>(chunk.size() * 4);
+        for (ExpansionCheckpoint checkpoint : chunk) {
+            arguments.add(checkpoint.getRid());
+            arguments.add(checkpoint.getPath());
+            arguments.add(checkpoint.getLastName());
+            arguments.add(checkpoint.isComplete());
+        }
+        getJdbcTemplate().update(String.format(UPSERT_CHECKPOINTS,
+              String.join(",", nCopies(chunk.size(), "(?, ?, ?, ?)"))), arguments.toArray());
+    }
+
+    private void requeueCheckpoints(Map<String, ExpansionCheckpoint> unwritten) {
+        requeueCheckpoints(new ArrayList<>(unwritten.values()));
+    }
+
+    private void requeueCheckpoints(List<ExpansionCheckpoint> unwritten) {
+        synchronized (lock) {
+            for (ExpansionCheckpoint checkpoint : unwritten) {
+                checkpoints.putIfAbsent(checkpoint.getKey(), checkpoint);
+            }
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.error("Scheduled flush of target writes failed: {}.", e.getMessage());
+        }
+    }
+
+    private static void fillInsertDefaults(List<Entry<Long, PendingWrite>> group) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (Entry<Long, PendingWrite> entry : group) {
+            entry.getValue().columns.putIfAbsent("created_at", now);
+            entry.getValue().columns.putIfAbsent("last_updated", now);
+        }
+    }
+
+    private static String insertSql(List<String> columns, int rows) {
+        String row = columns.stream().map(c -> "?")
+              .collect(joining(",", "(?,", ")"));
+        return "INSERT INTO " + TABLE_NAME + " (id," + String.join(",", columns) + ") VALUES "
+              + String.join(",", nCopies(rows, row));
+    }
+
+    private static String updateSql(List<String> columns, int rows) {
+        String row = columns.stream().map(c -> "CAST(? AS " + COLUMN_TYPES.get(c) + ")")
+              .collect(joining(",", "(CAST(? AS bigint),", ")"));
+        return "UPDATE " + TABLE_NAME + " t SET "
+              + columns.stream().map(c -> c + " = v." + c).collect(joining(","))
+              + " FROM (VALUES " + String.join(",", nCopies(rows, row))
+              + ") AS v(id," + String.join(",", columns) + ") WHERE t.id = v.id";
+    }
+}
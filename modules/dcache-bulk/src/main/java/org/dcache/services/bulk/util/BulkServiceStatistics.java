@@ -108,6 +108,12 @@ public final class BulkServiceStatistics implements CellInfoProvider {
     private static final String LAST_SWEEP_DURATION = "Last job sweep took %s seconds";
     private static final String STATS_FORMAT = "%-20s :    %10s";
     private static final String CONCURRENCY_FORMAT = "%-45s :  %10s";
+    private static final String RATE_FORMAT = "%-20s :    %10.1f";
+
+    /**
+     * Number of one-second buckets over which the recent target throughput is computed.
+     */
+    private static final int THROUGHPUT_WINDOW = 60;
 
     private final Date started = new Date();
 
@@ -122,6 +128,17 @@ public final class BulkServiceStatistics implements CellInfoProvider {
           FAILED.name(), new AtomicLong(0L),
           SKIPPED.name(), new AtomicLong(0L));
 
+    /*
+     *  Terminated targets per second over the last THROUGHPUT_WINDOW seconds;
+     *  guarded by this.
+     */
+    private final long[] throughputSeconds = new long[THROUGHPUT_WINDOW];
+    private final long[] throughputCounts = new long[THROUGHPUT_WINDOW];
+
+    private final AtomicLong targetWritesFlushed = new AtomicLong(0L);
+    private final AtomicLong targetWriteStatements = new AtomicLong(0L);
+    private final AtomicInteger pendingTargetWrites = new AtomicInteger(0);
+    private volatile long lastTargetFlushDuration = 0;
 
     private RequestContainerJobFactory factory;
     private long lastSweep = started.getTime();
@@ -153,6 +170,16 @@ public final class BulkServiceStatistics implements CellInfoProvider {
               TimeUnit.MILLISECONDS.toSeconds(lastSweepDuration)));
         pw.println();
 
+        pw.println("------------------ TARGET THROUGHPUT -----------------");
+        pw.println(String.format(RATE_FORMAT, "Targets/s (last min)", getRecentTargetThroughput()));
+        pw.println(String.format(RATE_FORMAT, "Targets/s (average)",
+              getAverageTargetThroughput(duration)));
+        pw.println(String.format(STATS_FORMAT, "Rows flushed", targetWritesFlushed.get()));
+        pw.println(String.format(STATS_FORMAT, "Flush statements", targetWriteStatements.get()));
+        pw.println(String.format(STATS_FORMAT, "Pending writes", pendingTargetWrites.get()));
+        pw.println(String.format(STATS_FORMAT, "Last flush (ms)", lastTargetFlushDuration));
+        pw.println();
+
         pw.println("------------------ TARGETS BY STATE ------------------");
         pw.println("         (cumulative from last service start)");
         counts.entrySet().stream().filter(e->!e.getKey().equals(RUNNING.name()))
@@ -185,6 +212,29 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         pw.println();
     }
 
+    /**
+     * @return the mean number of targets terminated per second since service start.
+     */
+    public double getAverageTargetThroughput(Duration uptime) {
+        long seconds = Math.max(1L, uptime.toSeconds());
+        long terminated = counts.values().stream().mapToLong(AtomicLong::get).sum();
+        return (double) terminated / seconds;
+    }
+
+    /**
+     * @return the mean number of targets terminated per second over the last minute.
+     */
+    public synchronized double getRecentTargetThroughput() {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long terminated = 0L;
+        for (int i = 0; i < THROUGHPUT_WINDOW; ++i) {
+            if (now - throughputSeconds[i] < THROUGHPUT_WINDOW) {
+                terminated += throughputCounts[i];
+            }
+        }
+        return (double) terminated / THROUGHPUT_WINDOW;
+    }
+
     public String getOwnerCounts() {
         StringBuilder builder = new StringBuilder();
         builder.append("----------------- USERS (since start) ----------------\n");
@@ -209,6 +259,7 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         AtomicLong counter = counts.get(targetState);
         if (counter != null) {
             counter.incrementAndGet();
+            targetTerminated();
         }
     }
 
@@ -223,6 +274,10 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         requestTypes.computeIfAbsent(activity, v -> new AtomicLong(0)).incrementAndGet();
     }
 
+    public void setPendingTargetWrites(int count) {
+        pendingTargetWrites.set(count);
+    }
+
     public void setActive(int count) {
         activeRequests.set(count);
     }
@@ -236,4 +291,20 @@ public final class BulkServiceStatistics implements CellInfoProvider {
         lastSweep = System.currentTimeMillis();
         lastSweepDuration = duration;
     }
+
+    public void targetWritesFlushed(int rows, int statements, long duration) {
+        targetWritesFlushed.addAndGet(rows);
+        targetWriteStatements.addAndGet(statements);
+        lastTargetFlushDuration = duration;
+    }
+
+    private synchronized void targetTerminated() {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        int bucket = (int) (now % THROUGHPUT_WINDOW);
+        if (throughputSeconds[bucket] != now) {
+            throughputSeconds[bucket] = now;
+            throughputCounts[bucket] = 0L;
+        }
+        ++throughputCounts[bucket];
+    }
 }
@@ -0,0 +1,66 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.util;
+
+/**
+ * Records how far the expansion of a directory belonging to a recursive request has
+ * progressed.  Directories are listed in order of the names of their entries; the entries
+ * up to and including {@code lastName}, including the subtrees of any directories among them,
+ * have been fully processed.  If {@code lastName} is null, none have.  If {@code complete},
+ * the entire subtree has been processed.
+ */
+public final class ExpansionCheckpoint {
+
+    private final Long rid;
+    private final String path;
+    private final String lastName;
+    private final boolean complete;
+
+    public ExpansionCheckpoint(Long rid, String path, String lastName, boolean complete) {
+        this.rid = rid;
+        this.path = path;
+        this.lastName = lastName;
+        this.complete = complete;
+    }
+
+    public Long getRid() {
+        return rid;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public String getKey() {
+        return rid + ":" + path;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpansionCheckpoint{" + getKey() + ", last name " + lastName + ", complete "
+              + complete + "}";
+    }
+}
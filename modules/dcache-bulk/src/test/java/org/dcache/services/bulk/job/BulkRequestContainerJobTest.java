@@ -0,0 +1,574 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.job;
+
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.COMPLETED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.CREATED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.FAILED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.FsPath;
+import diskCacheV111.util.PnfsHandler;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.dcache.namespace.FileType;
+import org.dcache.services.bulk.BulkRequest;
+import org.dcache.services.bulk.BulkRequest.Depth;
+import org.dcache.services.bulk.activity.BulkActivity;
+import org.dcache.services.bulk.store.BulkTargetStore;
+import org.dcache.services.bulk.util.BulkRequestTarget;
+import org.dcache.services.bulk.util.BulkRequestTarget.PID;
+import org.dcache.services.bulk.util.BulkRequestTargetBuilder;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
+import org.dcache.util.list.DirectoryEntry;
+import org.dcache.util.list.ListDirectoryHandler;
+import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BulkRequestContainerJobTest {
+
+    private static final long RID = 1L;
+
+    /**
+     * Records the targets it is asked to process; completion may be deferred.
+     */
+    private static class Activity extends BulkActivity<Object> {
+
+        private final List<String> performed = Collections.synchronizedList(new ArrayList<>());
+        private final BlockingQueue<SettableFuture<Object>> pending = new LinkedBlockingQueue<>();
+        private volatile boolean deferCompletion;
+
+        Activity() {
+            super("test", TargetType.FILE);
+        }
+
+        @Override
+        public ListenableFuture<Object> perform(String rid, long tid, String prefix, FsPath path,
+              FileAttributes attributes) {
+            performed.add(path.toString());
+            SettableFuture<Object> future = SettableFuture.create();
+            if (deferCompletion) {
+                pending.add(future);
+            } else {
+                future.set(path);
+            }
+            return future;
+        }
+
+        @Override
+        protected void configure(Map<String, String> arguments) {
+        }
+
+        @Override
+        public void handleCompletion(BulkRequestTarget target, Future<Object> future) {
+            target.setState(COMPLETED);
+        }
+
+        void completeNext() throws InterruptedException {
+            SettableFuture<Object> future = pending.poll(5, TimeUnit.SECONDS);
+            if (future == null) {
+                fail("Activity was not performed");
+            }
+            future.set(null);
+        }
+    }
+
+    /**
+     * The directories of the namespace; entries of directories end with a slash.
+     */
+    private final Map<String, NavigableMap<String, FileAttributes>> directories = new HashMap<>();
+
+    /**
+     * Listings requested as "path after name [0..limit)".
+     */
+    private final List<String> listings = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * For each directory, the number of entries returned by its next listings before they time
+     * out.
+     */
+    private final Map<String, Deque<Integer>> stalls = new HashMap<>();
+
+    /**
+     * Whether the listings behave like those of a PnfsManager which cannot list after a name.
+     */
+    private volatile boolean ignoresStartAfter;
+
+    private final AtomicInteger openListings = new AtomicInteger();
+    private volatile int maxOpenListings;
+
+    private Activity activity;
+    private BulkTargetStore targetStore;
+    private ListDirectoryHandler listHandler;
+    private ExecutorService executor;
+    private Semaphore dirListSemaphore;
+    private Semaphore inFlightSemaphore;
+    private BulkRequestContainerJob job;
+
+    @Before
+    public void setUp() throws Exception {
+        activity = new Activity();
+        targetStore = mock(BulkTargetStore.class);
+        listHandler = mock(ListDirectoryHandler.class);
+        executor = Executors.newCachedThreadPool();
+        dirListSemaphore = new Semaphore(10);
+        inFlightSemaphore = new Semaphore(100);
+
+        given(listHandler.list(any(), any(), any(), any(), any(), any(), any()))
+              .willAnswer(i -> list(i.getArgument(2), i.getArgument(4), i.getArgument(5)));
+        given(targetStore.getDiscoveredPaths(any(), any())).willReturn(Set.of());
+
+        BulkRequest request = new BulkRequest();
+        request.setId(RID);
+        request.setUid("request");
+        request.setExpandDirectories(Depth.ALL);
+        BulkServiceStatistics statistics = new BulkServiceStatistics();
+        BulkRequestTarget jobTarget = BulkRequestTargetBuilder.builder(statistics)
+              .activity(activity.getName()).rid(RID).ruid("request").pid(PID.ROOT)
+              .path(BulkRequestTarget.ROOT_REQUEST_PATH).build();
+
+        PnfsHandler pnfsHandler = mock(PnfsHandler.class);
+        given(pnfsHandler.requestAsync(any(PnfsGetFileAttributes.class))).willAnswer(i -> {
+            PnfsGetFileAttributes message = i.getArgument(0);
+            message.setFileAttributes(FileAttributes.ofFileType(FileType.DIR));
+            return Futures.immediateFuture(message);
+        });
+
+        job = new BulkRequestContainerJob(activity, jobTarget, request, statistics);
+        job.setNamespaceHandler(pnfsHandler);
+        job.setTargetStore(targetStore);
+        job.setListHandler(listHandler);
+        job.setListPageSize(2);
+        job.setDirListSemaphore(dirListSemaphore);
+        job.setInFlightSemaphore(inFlightSemaphore);
+        job.setExecutor(executor);
+        job.setListExecutor(executor);
+        job.setCallbackExecutor(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldListPagesAfterLastNameOfPreviousPage() throws Exception {
+        givenDirectory("/dir", "f1", "f2", "f3", "f4", "f5");
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after \"\" [0..2)", "/dir after f2 [0..2)",
+              "/dir after f4 [0..2)"));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f1", "/dir/f2", "/dir/f3",
+              "/dir/f4", "/dir/f5"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+        verify(targetStore, never()).getDiscoveredPaths(any(), any());
+    }
+
+    @Test
+    public void shouldListDirectoriesInOneGoIfPnfsManagerCannotListAfterName()
+          throws Exception {
+        ignoresStartAfter = true;
+        givenDirectory("/dir", "a/", "f1", "f2", "f3");
+        givenDirectory("/dir/a", "x1");
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after \"\" [0..2)",
+              "/dir after null [0..2147483647)", "/dir/a after null [0..2147483647)"));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f1", "/dir/f2", "/dir/f3",
+              "/dir/a/x1"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldSkipTargetsDiscoveredBeforeRestart() throws Exception {
+        givenDirectory("/dir", "f1", "f2", "f3", "f4", "f5");
+        givenCheckpoint("/dir", "f1", false);
+        givenDiscovered("/dir/f3", "/dir/f4");
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after f1 [0..2)", "/dir after f3 [0..2)",
+              "/dir after f5 [0..2)"));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f2", "/dir/f5"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldResumeTimedOutListingAfterLastEntry() throws Exception {
+        givenDirectory("/dir", "f1", "f2", "f3", "f4", "f5");
+        givenListingsStall("/dir", 1, 0);
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after \"\" [0..2)", "/dir after f1 [0..1)",
+              "/dir after f1 [0..1)", "/dir after f2 [0..2)", "/dir after f4 [0..2)"));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f1", "/dir/f2", "/dir/f3",
+              "/dir/f4", "/dir/f5"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldFailListingThatKeepsTimingOutWithoutProgress() throws Exception {
+        givenDirectory("/dir", "f1", "f2", "f3");
+        givenListingsStall("/dir", 0, 0, 0, 0);
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings.size(), is(BulkRequestContainerJob.MAX_LIST_RETRIES + 1));
+        assertThat(activity.performed, is(empty()));
+        assertThat(job.getTarget().getState(), is(FAILED));
+    }
+
+    @Test
+    public void shouldResumeDirectoryAfterCheckpointedName() throws Exception {
+        givenDirectory("/dir", "f1", "f2", "f3", "f4", "f5");
+        givenCheckpoint("/dir", "f2", false);
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after f2 [0..2)", "/dir after f4 [0..2)"));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f3", "/dir/f4", "/dir/f5"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldSkipDirectoryCompletedBeforeRestart() throws Exception {
+        givenDirectory("/dir", "sub/", "f1");
+        givenDirectory("/dir/sub", "f2");
+        givenCheckpoint("/dir/sub", "f2", true);
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after \"\" [0..2)", "/dir after sub [0..2)"));
+        assertThat(activity.performed, contains("/dir/f1"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldCheckpointLastNameOfCompletedDirectory() throws Exception {
+        List<ExpansionCheckpoint> stored = givenStoredCheckpoints();
+        givenDirectory("/dir", "f1", "f2", "f3");
+
+        whenJobIsRun("/dir");
+
+        ExpansionCheckpoint last = stored.stream().filter(ExpansionCheckpoint::isComplete)
+              .findAny().orElseThrow();
+        assertThat(last.getPath(), is("/dir"));
+        assertThat(last.getLastName(), is("f3"));
+    }
+
+    @Test
+    public void shouldHandPermitToNextDirectory() throws Exception {
+        dirListSemaphore = new Semaphore(1);
+        job.setDirListSemaphore(dirListSemaphore);
+        givenDirectory("/dir", "a/", "b/", "f1");
+        givenDirectory("/dir/a", "x1", "x2");
+        givenDirectory("/dir/b", "y1");
+
+        whenJobIsRun("/dir");
+
+        assertThat(listings, contains("/dir after \"\" [0..2)", "/dir after b [0..2)",
+              "/dir/b after \"\" [0..2)", "/dir/a after \"\" [0..2)",
+              "/dir/a after x2 [0..2)"));
+        assertThat(maxOpenListings, is(1));
+        assertThat(dirListSemaphore.availablePermits(), is(1));
+        assertThat(activity.performed, containsInAnyOrder("/dir/f1", "/dir/a/x1", "/dir/a/x2",
+              "/dir/b/y1"));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldReleaseInFlightPermitOnceActivityIsStarted() throws Exception {
+        inFlightSemaphore = new Semaphore(1);
+        job.setInFlightSemaphore(inFlightSemaphore);
+        activity.deferCompletion = true;
+        givenDirectory("/dir", "f1", "f2", "f3");
+
+        whenJobIsStarted("/dir");
+        awaitPerformed(3);
+
+        assertThat(inFlightSemaphore.availablePermits(), is(1));
+
+        for (int i = 0; i < 3; i++) {
+            activity.completeNext();
+        }
+        awaitTermination();
+
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldLimitOutstandingTargetsOfActivity() throws Exception {
+        Semaphore outstanding = new Semaphore(2);
+        activity.setOutstandingSemaphore(outstanding);
+        activity.deferCompletion = true;
+        givenDirectory("/dir", "f1", "f2", "f3", "f4");
+
+        whenJobIsStarted("/dir");
+        awaitPerformed(2);
+        Thread.sleep(100);
+
+        assertThat(activity.performed.size(), is(2));
+        assertThat(outstanding.availablePermits(), is(0));
+        assertThat(inFlightSemaphore.availablePermits(), is(100));
+
+        activity.completeNext();
+        awaitPerformed(3);
+        for (int i = 0; i < 3; i++) {
+            activity.completeNext();
+        }
+        awaitTermination();
+
+        assertThat(activity.performed, containsInAnyOrder("/dir/f1", "/dir/f2", "/dir/f3",
+              "/dir/f4"));
+        assertThat(outstanding.availablePermits(), is(2));
+        assertThat(job.getTarget().getState(), is(COMPLETED));
+    }
+
+    @Test
+    public void shouldCheckpointPagesOnlyOnceAllPreviousPagesAreDone() throws Exception {
+        List<ExpansionCheckpoint> stored = givenStoredCheckpoints();
+        BulkRequestContainerJob.DirNode node = job.new DirNode(FsPath.create("/dir"), null, 0,
+              null);
+
+        node.open(0);
+        node.acquire(0);
+        node.close(0, false, "b");
+        node.open(1);
+        node.acquire(1);
+        node.close(1, true, "d");
+        node.release(1);
+
+        assertThat(stored, is(empty()));
+
+        node.release(0);
+
+        assertThat(stored.size(), is(1));
+        assertThat(stored.get(0).getLastName(), is("d"));
+        assertThat(stored.get(0).isComplete(), is(true));
+    }
+
+    @Test
+    public void shouldCheckpointPrefixOfDonePages() throws Exception {
+        List<ExpansionCheckpoint> stored = givenStoredCheckpoints();
+        BulkRequestContainerJob.DirNode node = job.new DirNode(FsPath.create("/dir"), null, 0,
+              "a");
+
+        node.open(0);
+        node.acquire(0);
+        node.close(0, false, "c");
+        node.open(1);
+        node.acquire(1);
+        node.close(1, false, "e");
+        node.release(0);
+
+        assertThat(stored.size(), is(1));
+        assertThat(stored.get(0).getLastName(), is("c"));
+        assertThat(stored.get(0).isComplete(), is(false));
+
+        node.open(2);
+        node.close(2, true, null);
+        node.release(1);
+
+        assertThat(stored.size(), is(2));
+        assertThat(stored.get(1).getLastName(), is("e"));
+        assertThat(stored.get(1).isComplete(), is(true));
+    }
+
+    @Test
+    public void shouldCheckpointStartNameOfEmptyDirectory() throws Exception {
+        List<ExpansionCheckpoint> stored = givenStoredCheckpoints();
+        BulkRequestContainerJob.DirNode node = job.new DirNode(FsPath.create("/dir"), null, 0,
+              null);
+
+        node.open(0);
+        node.close(0, true, null);
+
+        assertThat(stored.size(), is(1));
+        assertThat(stored.get(0).getLastName(), is(nullValue()));
+        assertThat(stored.get(0).isComplete(), is(true));
+    }
+
+    @Test
+    public void shouldReleaseParentPageWhenSubdirectoryIsDone() throws Exception {
+        List<ExpansionCheckpoint> stored = givenStoredCheckpoints();
+        BulkRequestContainerJob.DirNode parent = job.new DirNode(FsPath.create("/dir"), null,
+              0, null);
+        parent.open(0);
+        parent.acquire(0);
+        BulkRequestContainerJob.DirNode child = job.new DirNode(FsPath.create("/dir/sub"),
+              parent, 0, null);
+        parent.close(0, true, "sub");
+
+        child.open(0);
+        child.acquire(0);
+        child.close(0, true, "f1");
+
+        assertThat(stored, is(empty()));
+
+        child.release(0);
+
+        assertThat(stored.stream().map(ExpansionCheckpoint::getPath)
+              .collect(Collectors.toList()), contains("/dir/sub", "/dir"));
+        assertThat(stored.get(1).getLastName(), is("sub"));
+        assertThat(stored.get(1).isComplete(), is(true));
+    }
+
+    private ListDirectoryHandler.Stream list(FsPath path, String startAfter,
+          Range<Integer> range) throws CacheException {
+        listings.add(path + " after " + (startAfter != null && startAfter.isEmpty() ? "\"\""
+              : startAfter) + " " + range);
+        if (ignoresStartAfter && startAfter != null) {
+            throw new ListDirectoryHandler.StartAfterNotSupportedException(path.toString());
+        }
+        NavigableMap<String, FileAttributes> entries = directories.get(path.toString());
+        List<DirectoryEntry> page = (startAfter == null ? entries
+              : entries.tailMap(startAfter, false)).entrySet().stream()
+              .limit(range.upperEndpoint())
+              .map(e -> new DirectoryEntry(e.getKey(), e.getValue()))
+              .collect(Collectors.toList());
+
+        ListDirectoryHandler.Stream stream = mock(ListDirectoryHandler.Stream.class);
+        Deque<Integer> stall = stalls.get(path.toString());
+        if (stall != null && !stall.isEmpty()) {
+            page = page.subList(0, Math.min(page.size(), stall.poll()));
+            willThrow(new CacheException(CacheException.TIMEOUT,
+                  "Timeout during directory listing.")).given(stream).checkComplete();
+        }
+        given(stream.iterator()).willReturn(page.iterator());
+
+        maxOpenListings = Math.max(maxOpenListings, openListings.incrementAndGet());
+        willAnswer(i -> openListings.decrementAndGet()).given(stream).close();
+        return stream;
+    }
+
+    private void givenDirectory(String path, String... names) {
+        NavigableMap<String, FileAttributes> entries = new TreeMap<>();
+        for (String name : names) {
+            if (name.endsWith("/")) {
+                entries.put(name.substring(0, name.length() - 1),
+                      FileAttributes.ofFileType(FileType.DIR));
+            } else {
+                entries.put(name, FileAttributes.ofFileType(FileType.REGULAR));
+            }
+        }
+        directories.put(path, entries);
+    }
+
+    private void givenListingsStall(String path, Integer... entries) {
+        stalls.put(path, new ArrayDeque<>(List.of(entries)));
+    }
+
+    private void givenCheckpoint(String path, String lastName, boolean complete)
+          throws Exception {
+        given(targetStore.getExpansionCheckpoints(RID))
+              .willReturn(Map.of(path, new ExpansionCheckpoint(RID, path, lastName, complete)));
+    }
+
+    private void givenDiscovered(String... paths) throws Exception {
+        given(targetStore.getDiscoveredPaths(any(), any())).willAnswer(i -> {
+            Set<String> discovered = new HashSet<>(i.getArgument(1));
+            discovered.retainAll(List.of(paths));
+            return discovered;
+        });
+    }
+
+    private List<ExpansionCheckpoint> givenStoredCheckpoints() throws Exception {
+        List<ExpansionCheckpoint> stored = Collections.synchronizedList(new ArrayList<>());
+        willAnswer(i -> stored.add(i.getArgument(0))).given(targetStore)
+              .storeExpansionCheckpoint(any());
+        return stored;
+    }
+
+    private void whenJobIsRun(String path) throws InterruptedException {
+        whenJobIsStarted(path);
+        awaitTermination();
+    }
+
+    private void whenJobIsStarted(String path) {
+        BulkRequestTarget target = BulkRequestTargetBuilder.builder(new BulkServiceStatistics())
+              .activity(activity.getName()).id(2L).rid(RID).ruid("request").pid(PID.INITIAL)
+              .path(FsPath.create(path)).state(CREATED).build();
+        given(targetStore.getInitialTargets(RID, true)).willReturn(List.of(target));
+
+        job.initialize();
+        executor.submit(job);
+    }
+
+    private void awaitPerformed(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (activity.performed.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Activity was not performed on " + count + " targets");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitTermination() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.getTarget().isTerminated()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Job did not terminate");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
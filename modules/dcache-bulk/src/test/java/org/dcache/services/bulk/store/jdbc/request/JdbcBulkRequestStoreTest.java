@@ -0,0 +1,99 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.store.jdbc.request;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dcache.services.bulk.store.jdbc.JdbcBulkDaoUtils;
+import org.dcache.services.bulk.store.jdbc.rtarget.JdbcRequestTargetDao;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+public class JdbcBulkRequestStoreTest {
+
+    private static final String DELETE_CHECKPOINTS = "DELETE FROM request_expansion_checkpoint";
+
+    /**
+     * Records the statements it is asked to execute instead of talking to a database.
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<String> statements = new ArrayList<>();
+
+        @Override
+        public int update(String sql, Object... args) {
+            statements.add(sql);
+            return 0;
+        }
+
+        @Override
+        public <T> List<T> query(String sql, Object[] args, RowMapper<T> rowMapper) {
+            statements.add(sql);
+            return List.of();
+        }
+    }
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private JdbcBulkRequestStore store;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        JdbcBulkDaoUtils utils = new JdbcBulkDaoUtils();
+        utils.setFetchSize(100);
+
+        JdbcBulkRequestDao requestDao = new JdbcBulkRequestDao();
+        requestDao.setJdbcTemplate(jdbcTemplate);
+        requestDao.setUtils(utils);
+
+        JdbcRequestTargetDao requestTargetDao = new JdbcRequestTargetDao();
+        requestTargetDao.setJdbcTemplate(jdbcTemplate);
+        requestTargetDao.setUtils(utils);
+
+        store = new JdbcBulkRequestStore();
+        store.setRequestDao(requestDao);
+        store.setRequestTargetDao(requestTargetDao);
+        store.setExpiry(1);
+        store.setExpiryUnit(TimeUnit.MINUTES);
+        store.setCapacity(10);
+        store.initialize();
+    }
+
+    @Test
+    public void shouldForgetExpansionCheckpointsWhenResettingAllTargets() throws Exception {
+        store.reset("uid-1", false);
+
+        assertThat(jdbcTemplate.statements, hasItem(startsWith(DELETE_CHECKPOINTS)));
+    }
+
+    @Test
+    public void shouldKeepExpansionCheckpointsWhenSkippingTerminatedTargets() throws Exception {
+        store.reset("uid-1", true);
+
+        assertThat(jdbcTemplate.statements, not(hasItem(startsWith(DELETE_CHECKPOINTS))));
+        assertThat(jdbcTemplate.statements, hasItem(startsWith("UPDATE bulk_request ")));
+    }
+}
@@ -0,0 +1,225 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.store.jdbc.rtarget;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+public class JdbcRequestTargetDaoTest {
+
+    /**
+     * Emulates the checkpoint table for the statements issued by the dao and the write-behind
+     * buffer.
+     */
+    private static class CheckpointTable extends JdbcTemplate {
+
+        private final Map<String, Long> requests = Map.of("uid-1", 1L, "uid-2", 2L);
+        private final Map<String, Object[]> rows = new TreeMap<>();
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (sql.startsWith("INSERT INTO " + JdbcRequestTargetDao.CHECKPOINT_TABLE_NAME)) {
+                for (int i = 0; i < args.length; i += 4) {
+                    rows.put(args[i] + ":" + args[i + 1],
+                          new Object[]{args[i], args[i + 1], args[i + 2], args[i + 3]});
+                }
+                return args.length / 4;
+            }
+            if (sql.equals(JdbcRequestTargetDao.DELETE_CHECKPOINTS)) {
+                Long rid = requests.get(args[0]);
+                int before = rows.size();
+                rows.values().removeIf(row -> row[0].equals(rid));
+                return before - rows.size();
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler handler, Object... args)
+              throws DataAccessException {
+            assertThat(sql, is(equalTo(JdbcRequestTargetDao.SELECT_CHECKPOINTS)));
+            try {
+                for (Object[] row : rows.values()) {
+                    if (row[0].equals(args[0])) {
+                        ResultSet rs = mock(ResultSet.class);
+                        given(rs.getString("path")).willReturn((String) row[1]);
+                        given(rs.getString("last_name")).willReturn((String) row[2]);
+                        given(rs.getBoolean("complete")).willReturn((Boolean) row[3]);
+                        handler.processRow(rs);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new UncategorizedSQLException("query", sql, e);
+            }
+        }
+    }
+
+    private CheckpointTable table;
+    private ScheduledExecutorService executor;
+    private JdbcRequestTargetDao dao;
+
+    @Before
+    public void setUp() {
+        table = new CheckpointTable();
+        executor = Executors.newSingleThreadScheduledExecutor();
+        dao = new JdbcRequestTargetDao();
+        dao.setJdbcTemplate(table);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRestoreStoredCheckpoints() {
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir/sub", null, true));
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(2L, "/other", "x", false));
+
+        Map<String, ExpansionCheckpoint> checkpoints = dao.getExpansionCheckpoints(1L);
+
+        assertThat(checkpoints, is(aMapWithSize(2)));
+        assertCheckpoint(checkpoints.get("/dir"), "file10", false);
+        assertCheckpoint(checkpoints.get("/dir/sub"), null, true);
+    }
+
+    @Test
+    public void shouldRestoreLatestCheckpointOfDirectory() {
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file20", true));
+
+        Map<String, ExpansionCheckpoint> checkpoints = dao.getExpansionCheckpoints(1L);
+
+        assertThat(checkpoints, is(aMapWithSize(1)));
+        assertCheckpoint(checkpoints.get("/dir"), "file20", true);
+    }
+
+    @Test
+    public void shouldDeleteCheckpointsOfRequestOnly() {
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(2L, "/other", "x", false));
+
+        assertThat(dao.deleteExpansionCheckpoints("uid-1"), is(1));
+
+        assertThat(dao.getExpansionCheckpoints(1L), is(anEmptyMap()));
+        assertCheckpoint(dao.getExpansionCheckpoints(2L).get("/other"), "x", false);
+    }
+
+    @Test
+    public void shouldNotStoreCheckpointOfPathTooLongToStore() {
+        String path = "/" + "x".repeat(JdbcRequestTargetDao.REQUEST_TARGET_PATH_LENGTH);
+
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, path, "file10", false));
+
+        assertThat(dao.getExpansionCheckpoints(1L), is(anEmptyMap()));
+    }
+
+    @Test
+    public void shouldRestoreAndDeleteCheckpointsWrittenBehind() {
+        givenWriteBehind();
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", "file20", false));
+        assertThat(table.rows, is(anEmptyMap()));
+
+        assertCheckpoint(dao.getExpansionCheckpoints(1L).get("/dir"), "file20", false);
+
+        dao.storeExpansionCheckpoint(new ExpansionCheckpoint(1L, "/dir", null, true));
+        dao.deleteExpansionCheckpoints("uid-1");
+
+        assertThat(dao.getExpansionCheckpoints(1L), is(anEmptyMap()));
+    }
+
+    @Test
+    public void shouldReturnOnlyRequestedPathsWithMatchingHash() {
+        List<Object> arguments = new ArrayList<>();
+        dao.setJdbcTemplate(new JdbcTemplate() {
+            @Override
+            public void query(String sql, RowCallbackHandler handler, Object... args)
+                  throws DataAccessException {
+                assertThat(sql, is(equalTo(String.format(
+                      JdbcRequestTargetDao.SELECT_DISCOVERED_PATHS, "md5(?), md5(?)"))));
+                arguments.addAll(List.of(args));
+                try {
+                    for (String path : List.of("/dir/f1", "/dir/colliding")) {
+                        ResultSet rs = mock(ResultSet.class);
+                        given(rs.getString("path")).willReturn(path);
+                        handler.processRow(rs);
+                    }
+                } catch (SQLException e) {
+                    throw new UncategorizedSQLException("query", sql, e);
+                }
+            }
+        });
+
+        Set<String> discovered = dao.getDiscoveredPaths(1L, List.of("/dir/f1", "/dir/f2"));
+
+        assertThat(discovered, contains("/dir/f1"));
+        assertThat(arguments.get(0), is(1L));
+        assertThat(dao.getDiscoveredPaths(1L, List.of()), is(empty()));
+    }
+
+    private void givenWriteBehind() {
+        JdbcRequestTargetWriteBehind writeBehind = new JdbcRequestTargetWriteBehind();
+        writeBehind.setJdbcTemplate(table);
+        writeBehind.setStatistics(new BulkServiceStatistics());
+        writeBehind.setExecutor(executor);
+        writeBehind.setFlushInterval(1);
+        writeBehind.setFlushIntervalUnit(TimeUnit.HOURS);
+        writeBehind.setMaxPending(100);
+        dao.setWriteBehind(writeBehind);
+    }
+
+    private static void assertCheckpoint(ExpansionCheckpoint checkpoint, String lastName,
+          boolean complete) {
+        if (lastName == null) {
+            assertThat(checkpoint.getLastName(), is(nullValue()));
+        } else {
+            assertThat(checkpoint.getLastName(), is(equalTo(lastName)));
+        }
+        assertThat(checkpoint.isComplete(), is(complete));
+    }
+}
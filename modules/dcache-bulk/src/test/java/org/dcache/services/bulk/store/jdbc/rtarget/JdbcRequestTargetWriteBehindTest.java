@@ -0,0 +1,366 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.bulk.store.jdbc.rtarget;
+
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.COMPLETED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.CREATED;
+import static org.dcache.services.bulk.util.BulkRequestTarget.State.RUNNING;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.fail;
+
+import diskCacheV111.util.FsPath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.dcache.services.bulk.util.BulkServiceStatistics;
+import org.dcache.services.bulk.util.ExpansionCheckpoint;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class JdbcRequestTargetWriteBehindTest {
+
+    private static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+    /**
+     * Records the statements it is asked to execute instead of talking to a database.
+     */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<Statement> statements = new ArrayList<>();
+        private long nextId = 1;
+        private int reservations;
+        private Runnable beforeNextUpdate;
+        private DataAccessException nextFailure;
+
+        @Override
+        public int update(String sql, Object... args) {
+            Runnable hook = beforeNextUpdate;
+            beforeNextUpdate = null;
+            if (hook != null) {
+                hook.run();
+            }
+            DataAccessException failure = nextFailure;
+            nextFailure = null;
+            if (failure != null) {
+                throw failure;
+            }
+            statements.add(new Statement(sql, args));
+            return 1;
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            if (sql.contains("nextval")) {
+                reservations++;
+                int count = (Integer) args[0];
+                List<T> ids = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    ids.add(elementType.cast(nextId++));
+                }
+                return ids;
+            }
+            statements.add(new Statement(sql, args));
+            return List.of();
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> elementType) {
+            return queryForList(sql, elementType, new Object[0]);
+        }
+    }
+
+    private static class Statement {
+
+        private final String sql;
+        private final Object[] args;
+
+        Statement(String sql, Object[] args) {
+            this.sql = sql;
+            this.args = args;
+        }
+
+        boolean isInsert() {
+            return sql.startsWith("INSERT INTO " + JdbcRequestTargetDao.TABLE_NAME + " ");
+        }
+
+        boolean isUpdate() {
+            return sql.startsWith("UPDATE " + JdbcRequestTargetDao.TABLE_NAME + " ");
+        }
+
+        /**
+         * Returns the columns of each row written by an insert or update of targets.
+         */
+        List<Map<String, Object>> rows() {
+            String list;
+            if (isInsert()) {
+                list = sql.substring(sql.indexOf('(') + 1, sql.indexOf(')'));
+            } else {
+                int start = sql.indexOf("AS v(") + 5;
+                list = sql.substring(start, sql.indexOf(')', start));
+            }
+            String[] columns = list.split(",");
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < args.length; i += columns.length) {
+                Map<String, Object> row = new HashMap<>();
+                for (int j = 0; j < columns.length; j++) {
+                    row.put(columns[j], args[i + j]);
+                }
+                rows.add(row);
+            }
+            return rows;
+        }
+    }
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private ScheduledExecutorService executor;
+    private JdbcRequestTargetWriteBehind writeBehind;
+    private JdbcRequestTargetDao dao;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new RecordingJdbcTemplate();
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        writeBehind = new JdbcRequestTargetWriteBehind();
+        writeBehind.setJdbcTemplate(jdbcTemplate);
+        writeBehind.setStatistics(new BulkServiceStatistics());
+        writeBehind.setExecutor(executor);
+        writeBehind.setFlushInterval(1);
+        writeBehind.setFlushIntervalUnit(TimeUnit.HOURS);
+        writeBehind.setMaxPending(100_000);
+
+        dao = new JdbcRequestTargetDao();
+        dao.setJdbcTemplate(jdbcTemplate);
+        dao.setWriteBehind(writeBehind);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCoalesceWritesOfTargetIntoSingleInsert() {
+        long id = writeBehind.insert(aNewTarget("/a"));
+        writeBehind.update(id, new JdbcRequestTargetUpdate().state(RUNNING));
+        writeBehind.update(id, new JdbcRequestTargetUpdate().state(COMPLETED));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        Statement statement = jdbcTemplate.statements.get(0);
+        assertThat(statement.isInsert(), is(true));
+        List<Map<String, Object>> rows = statement.rows();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0).get("id"), is(equalTo(id)));
+        assertThat(rows.get(0).get("path"), is(equalTo("/a")));
+        assertThat(rows.get(0).get("state"), is(equalTo(COMPLETED.name())));
+        assertThat(rows.get(0), hasKey("started_at"));
+    }
+
+    @Test
+    public void shouldCoalesceUpdatesOfTargetIntoSingleRow() {
+        writeBehind.update(42, new JdbcRequestTargetUpdate().state(RUNNING));
+        writeBehind.update(42, new JdbcRequestTargetUpdate().state(COMPLETED));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        Statement statement = jdbcTemplate.statements.get(0);
+        assertThat(statement.isUpdate(), is(true));
+        List<Map<String, Object>> rows = statement.rows();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0).get("id"), is(equalTo(42L)));
+        assertThat(rows.get(0).get("state"), is(equalTo(COMPLETED.name())));
+    }
+
+    @Test
+    public void shouldWriteUpdatesOfSeveralTargetsWithOneStatement() {
+        writeBehind.update(1, new JdbcRequestTargetUpdate().state(COMPLETED));
+        writeBehind.update(2, new JdbcRequestTargetUpdate().state(COMPLETED));
+        writeBehind.update(3, new JdbcRequestTargetUpdate().state(COMPLETED));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        assertThat(ids(jdbcTemplate.statements.get(0)), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    public void shouldFlushWhenBufferIsFull() {
+        writeBehind.setMaxPending(3);
+
+        writeBehind.update(1, new JdbcRequestTargetUpdate().state(COMPLETED));
+        writeBehind.update(2, new JdbcRequestTargetUpdate().state(COMPLETED));
+        assertThat(jdbcTemplate.statements, is(empty()));
+        writeBehind.update(3, new JdbcRequestTargetUpdate().state(COMPLETED));
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        assertThat(ids(jdbcTemplate.statements.get(0)), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    public void shouldRequeueFailedWritesWithoutOverwritingNewerWrites() {
+        writeBehind.update(1, new JdbcRequestTargetUpdate().state(RUNNING));
+        jdbcTemplate.beforeNextUpdate = () ->
+              writeBehind.update(1, new JdbcRequestTargetUpdate().state(COMPLETED));
+        jdbcTemplate.nextFailure = new TransientDataAccessResourceException("connection lost");
+
+        try {
+            writeBehind.flush();
+            fail("Flush succeeded although the database failed");
+        } catch (DataAccessResourceFailureException expected) {
+        }
+        assertThat(jdbcTemplate.statements, is(empty()));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        List<Map<String, Object>> rows = jdbcTemplate.statements.get(0).rows();
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0).get("state"), is(equalTo(COMPLETED.name())));
+        assertThat(rows.get(0), hasKey("started_at"));
+    }
+
+    @Test
+    public void shouldWriteRowsSinglyIfBatchIsRejected() {
+        writeBehind.update(1, new JdbcRequestTargetUpdate().state(COMPLETED));
+        writeBehind.update(2, new JdbcRequestTargetUpdate().state(COMPLETED));
+        jdbcTemplate.nextFailure = new DataIntegrityViolationException("bad row");
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(2));
+        assertThat(ids(jdbcTemplate.statements.get(0)), contains(1L));
+        assertThat(ids(jdbcTemplate.statements.get(1)), contains(2L));
+    }
+
+    @Test
+    public void shouldSplitUpdatesAtMaximumNumberOfParameters() {
+        int perStatement = MAX_PARAMETERS / 2;
+        for (long id = 1; id <= perStatement + 1; id++) {
+            writeBehind.update(id, new JdbcRequestTargetUpdate().errorType("x"));
+        }
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(2));
+        assertThat(jdbcTemplate.statements.get(0).args.length, is(2 * perStatement));
+        assertThat(jdbcTemplate.statements.get(1).args.length, is(2));
+        assertThat(ids(jdbcTemplate.statements.get(1)), contains(perStatement + 1L));
+    }
+
+    @Test
+    public void shouldSplitInsertsAtMaximumNumberOfParameters() {
+        int count = MAX_PARAMETERS / 5;
+        List<Long> inserted = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            inserted.add(writeBehind.insert(aNewTarget("/" + i)));
+        }
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(2));
+        List<Long> written = new ArrayList<>();
+        for (Statement statement : jdbcTemplate.statements) {
+            assertThat(statement.isInsert(), is(true));
+            assertThat(statement.args.length, is(lessThanOrEqualTo(MAX_PARAMETERS)));
+            written.addAll(ids(statement));
+        }
+        assertThat(written, is(equalTo(inserted)));
+    }
+
+    @Test
+    public void shouldReserveIdsInBlocks() {
+        writeBehind.setMaxPending(10);
+
+        List<Long> ids = LongStream.range(0, 25)
+              .mapToObj(i -> writeBehind.insert(aNewTarget("/" + i)))
+              .collect(Collectors.toList());
+
+        assertThat(ids, is(equalTo(LongStream.rangeClosed(1, 25).boxed()
+              .collect(Collectors.toList()))));
+        assertThat(jdbcTemplate.reservations, is(3));
+    }
+
+    @Test
+    public void shouldWriteCheckpointsAfterTargets() {
+        writeBehind.checkpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        writeBehind.insert(aNewTarget("/dir/file"));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(2));
+        assertThat(jdbcTemplate.statements.get(0).isInsert(), is(true));
+        assertThat(jdbcTemplate.statements.get(1).sql,
+              is(equalTo(String.format(JdbcRequestTargetDao.UPSERT_CHECKPOINTS,
+                    "(?, ?, ?, ?)"))));
+    }
+
+    @Test
+    public void shouldKeepLatestCheckpointOfDirectory() {
+        writeBehind.checkpoint(new ExpansionCheckpoint(1L, "/dir", "file10", false));
+        writeBehind.checkpoint(new ExpansionCheckpoint(1L, "/dir", "file20", false));
+
+        writeBehind.flush();
+
+        assertThat(jdbcTemplate.statements.size(), is(1));
+        assertThat(jdbcTemplate.statements.get(0).args[2], is(equalTo("file20")));
+    }
+
+    @Test
+    public void shouldFlushBeforeReading() {
+        long id = dao.insertDeferred(aNewTarget("/a")).orElseThrow();
+        dao.updateDeferred(id, new JdbcRequestTargetUpdate().state(COMPLETED));
+        assertThat(jdbcTemplate.statements, is(empty()));
+
+        dao.getRequestsOfFailed();
+
+        assertThat(jdbcTemplate.statements.size(), is(2));
+        assertThat(jdbcTemplate.statements.get(0).isInsert(), is(true));
+        assertThat(jdbcTemplate.statements.get(0).rows().get(0).get("state"),
+              is(equalTo(COMPLETED.name())));
+    }
+
+    private static JdbcRequestTargetUpdate aNewTarget(String path) {
+        return new JdbcRequestTargetUpdate().rid(1L).path(FsPath.create(path)).state(CREATED);
+    }
+
+    private static List<Long> ids(Statement statement) {
+        return statement.rows().stream().map(r -> (Long) r.get("id"))
+              .collect(Collectors.toList());
+    }
+}
@@ -356,6 +356,16 @@ public class DCacheAwareJdbcFs extends JdbcFs implements CellIdentityAware {
             File destinationPath = new File(destinationDirectory, dest);
             pnfsHandler.renameEntry(sourcePath.getCanonicalPath(),
                   destinationPath.getCanonicalPath(), true);
+
+            /* PnfsManager notifies all instances once the rename is committed; the local
+             * cache is updated right away so that the caller observes its own change.
+             */
+            InodeCache cache = getInodeCache();
+            cache.discardEntry(srcDir.ino(), source);
+            cache.discardEntry(destDir.ino(), dest);
+            cache.discardStat(srcDir.ino());
+            cache.discardStat(destDir.ino());
+            cache.discardStat(inode.ino());
         } catch (PermissionDeniedCacheException e) {
             throw new PermissionDeniedChimeraFsException(e.getMessage());
         } catch (CacheException | IOException e) {
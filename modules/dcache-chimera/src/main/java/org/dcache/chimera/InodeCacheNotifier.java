@@ -0,0 +1,168 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera;
+
+import dmg.cells.nucleus.AbstractCellComponent;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellMessageReceiver;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.dcache.cells.CellStub;
+import org.dcache.vehicles.InodeCacheInvalidationMessage;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * Propagates invalidations of the {@link InodeCache} between all services sharing a Chimera
+ * database.
+ * <p>
+ * Invalidations caused by local modifications are collected for a short delay and then published
+ * on a topic. Invalidations received on the topic from other services are applied to the local
+ * cache. Since a service may observe a stale entry until the invalidation arrives, the cache
+ * lifetime still bounds the staleness in case a notification is lost.
+ */
+public class InodeCacheNotifier extends AbstractCellComponent
+      implements InodeCache.InvalidationListener, CellMessageReceiver, CellInfoProvider {
+
+    /**
+     * Maximum number of invalidations in a single message.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final LongAdder _sentMessages = new LongAdder();
+    private final LongAdder _receivedMessages = new LongAdder();
+    private final LongAdder _receivedInvalidations = new LongAdder();
+
+    private InodeCache _cache;
+    private CellStub _topic;
+    private ScheduledExecutorService _executor;
+    private long _delay;
+    private TimeUnit _delayUnit;
+
+    private Set<Long> _inodes = new LinkedHashSet<>();
+    private List<Long> _entryParents = new ArrayList<>();
+    private List<String> _entryNames = new ArrayList<>();
+    private boolean _isFlushScheduled;
+
+    @Required
+    public void setInodeCache(InodeCache cache) {
+        _cache = cache;
+        cache.setInvalidationListener(this);
+    }
+
+    @Required
+    public void setTopic(CellStub topic) {
+        _topic = topic;
+    }
+
+    @Required
+    public void setExecutor(ScheduledExecutorService executor) {
+        _executor = executor;
+    }
+
+    @Required
+    public void setDelay(long delay) {
+        _delay = delay;
+    }
+
+    @Required
+    public void setDelayUnit(TimeUnit unit) {
+        _delayUnit = unit;
+    }
+
+    @Override
+    public synchronized void statInvalidated(long ino) {
+        _inodes.add(ino);
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void entryInvalidated(long parent, String name) {
+        _entryParents.add(parent);
+        _entryNames.add(name);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (!_isFlushScheduled) {
+            _isFlushScheduled = true;
+            _executor.schedule(this::flush, _delay, _delayUnit);
+        }
+    }
+
+    private void flush() {
+        Set<Long> inodes;
+        List<Long> entryParents;
+        List<String> entryNames;
+        synchronized (this) {
+            inodes = _inodes;
+            entryParents = _entryParents;
+            entryNames = _entryNames;
+            _inodes = new LinkedHashSet<>();
+            _entryParents = new ArrayList<>();
+            _entryNames = new ArrayList<>();
+            _isFlushScheduled = false;
+        }
+
+        List<Long> inodeList = new ArrayList<>(inodes);
+        int i = 0;
+        int j = 0;
+        while (i < inodeList.size() || j < entryNames.size()) {
+            int inodeCount = Math.min(inodeList.size() - i, MAX_BATCH_SIZE);
+            int entryCount = Math.min(entryNames.size() - j, MAX_BATCH_SIZE - inodeCount);
+            _topic.notify(new InodeCacheInvalidationMessage(
+                  inodeList.subList(i, i + inodeCount).stream().mapToLong(Long::longValue)
+                        .toArray(),
+                  entryParents.subList(j, j + entryCount).stream().mapToLong(Long::longValue)
+                        .toArray(),
+                  entryNames.subList(j, j + entryCount).toArray(String[]::new)));
+            _sentMessages.increment();
+            i += inodeCount;
+            j += entryCount;
+        }
+    }
+
+    public void messageArrived(CellMessage envelope, InodeCacheInvalidationMessage message) {
+        if (envelope.getSourceAddress().equals(getCellAddress())) {
+            return;
+        }
+        _receivedMessages.increment();
+        for (long ino : message.getInodes()) {
+            _cache.discardStat(ino);
+        }
+        long[] parents = message.getEntryParents();
+        String[] names = message.getEntryNames();
+        for (int i = 0; i < names.length; i++) {
+            _cache.discardEntry(parents[i], names[i]);
+        }
+        _receivedInvalidations.add(message.getInodes().length + names.length);
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.printf("Inode cache notifications sent     : %d\n", _sentMessages.sum());
+        pw.printf("Inode cache notifications received : %d (%d invalidations)\n",
+              _receivedMessages.sum(), _receivedInvalidations.sum());
+    }
+}
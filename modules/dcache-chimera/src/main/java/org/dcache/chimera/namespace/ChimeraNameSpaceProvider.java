@@ -1108,6 +1108,63 @@ public class ChimeraNameSpaceProvider
         }
     }
 
+    @Override
+    public Map<PnfsId, FileAttributes> getFileAttributes(Subject subject,
+          Collection<PnfsId> pnfsIds, Set<FileAttribute> attr)
+          throws CacheException {
+        try {
+            boolean isExempt = Subjects.isExemptFromNamespaceChecks(subject);
+            Set<FileAttribute> required = EnumSet.noneOf(FileAttribute.class);
+            required.addAll(attr);
+            if (!isExempt) {
+                required.addAll(_permissionHandler.getRequiredAttributes());
+            }
+
+            Map<String, FsInode> found = _fs.id2inodes(
+                  pnfsIds.stream().map(PnfsId::toString).collect(Collectors.toList()));
+            Map<PnfsId, ExtendedInode> inodes = new HashMap<>(found.size());
+            for (PnfsId pnfsId : pnfsIds) {
+                FsInode inode = found.get(pnfsId.toString());
+                if (inode != null) {
+                    inodes.put(pnfsId, new ExtendedInode(_fs, inode));
+                }
+            }
+
+            /* Fetch the extended data of all inodes up front rather than
+             * with one query per inode and attribute.
+             */
+            Collection<ExtendedInode> values = inodes.values();
+            if (required.contains(CHECKSUM)) {
+                ExtendedInode.prefetchChecksums(_fs, values);
+            }
+            if (required.contains(LOCATIONS) || required.contains(STORAGEINFO)
+                  || required.contains(STORAGECLASS) || required.contains(CACHECLASS)
+                  || required.contains(HSM)) {
+                ExtendedInode.prefetchLocations(_fs, values);
+            }
+            if (required.contains(FileAttribute.ACL) && _aclEnabled) {
+                ExtendedInode.prefetchAcls(_fs, values);
+            }
+
+            Map<PnfsId, FileAttributes> result = new HashMap<>(inodes.size());
+            for (Map.Entry<PnfsId, ExtendedInode> entry : inodes.entrySet()) {
+                try {
+                    FileAttributes fileAttributes = getFileAttributes(entry.getValue(), required);
+                    if (isExempt || _permissionHandler.canGetAttributes(subject, fileAttributes,
+                          attr) == ACCESS_ALLOWED) {
+                        result.put(entry.getKey(), fileAttributes);
+                    }
+                } catch (FileNotFoundChimeraFsException e) {
+                    // deleted after the inode was looked up
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            throw new CacheException(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                  e.getMessage());
+        }
+    }
+
     @Override
     public FileAttributes setFileAttributes(Subject subject, PnfsId pnfsId,
           FileAttributes attr, Set<FileAttribute> acquire)
@@ -1272,6 +1329,13 @@ public class ChimeraNameSpaceProvider
     public void list(Subject subject, String path, Glob glob, Range<Integer> range,
           Set<FileAttribute> attrs, ListHandler handler)
           throws CacheException {
+        list(subject, path, glob, null, range, attrs, handler);
+    }
+
+    @Override
+    public void list(Subject subject, String path, Glob glob, String startAfter,
+          Range<Integer> range, Set<FileAttribute> attrs, ListHandler handler)
+          throws CacheException {
         try {
             Pattern pattern = (glob == null) ? null : glob.toPattern();
             ExtendedInode dir = pathToInode(subject, path);
@@ -1292,32 +1356,41 @@ public class ChimeraNameSpaceProvider
             }
 
             int counter = 0;
-            try (DirectoryStreamB<ChimeraDirectoryEntry> dirStream = dir
-                  .newDirectoryStream()) {
+            try (DirectoryStreamB<ChimeraDirectoryEntry> dirStream = startAfter == null
+                  ? dir.newDirectoryStream() : dir.newDirectoryStream(startAfter)) {
                 for (ChimeraDirectoryEntry entry : dirStream) {
-                    try {
-                        String name = entry.getName();
-                        if (!name.equals(".") && !name.equals("..") &&
-                              (pattern == null || pattern.matcher(name)
-                                    .matches()) &&
-                              range.contains(counter++)) {
+                    if (range.hasUpperBound() && counter > range.upperEndpoint()) {
+                        /* Past the requested range; no need to read the rest. */
+                        break;
+                    }
+                    String name = entry.getName();
+                    if (!name.equals(".") && !name.equals("..") &&
+                          (pattern == null || pattern.matcher(name)
+                                .matches()) &&
+                          range.contains(counter++)) {
+                        FileAttributes fa;
+                        try {
                             // FIXME: actually, ChimeraDirectoryEntry
                             // already contains most of attributes
-                            FileAttributes fa =
-                                  attrs.isEmpty()
-                                        ? null
-                                        : getFileAttributes(
-                                              new ExtendedInode(_fs, entry.getInode()), attrs);
-                            handler.addEntry(name, fa);
+                            fa = attrs.isEmpty()
+                                  ? null
+                                  : getFileAttributes(
+                                        new ExtendedInode(_fs, entry.getInode()), attrs);
+                        } catch (FileNotFoundChimeraFsException e) {
+                            /* Not an error; files may be deleted during the
+                             * list operation.
+                             */
+                            continue;
+                        } catch (CacheException e) {
+                            LOGGER.error(AlarmMarkerFactory.getMarker(PredefinedAlarm.INACCESSIBLE_FILE,
+                                            "namespace"),
+                                    "Failed to retrieve file attributes {} : {}", entry.getStat().getId(), e.toString());
+                            continue;
                         }
-                    } catch (FileNotFoundChimeraFsException e) {
-                        /* Not an error; files may be deleted during the
-                         * list operation.
+                        /* Failures of the handler, e.g. a cancelled listing, abort the list
+                         * operation.
                          */
-                    } catch (CacheException e) {
-                        LOGGER.error(AlarmMarkerFactory.getMarker(PredefinedAlarm.INACCESSIBLE_FILE,
-                                        "namespace"),
-                                "Failed to retrieve file attributes {} : {}", entry.getStat().getId(), e.toString());
+                        handler.addEntry(name, fa);
                     }
                 }
             }
@@ -26,10 +26,12 @@ import com.google.common.io.ByteSource;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsId;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.dcache.acl.ACE;
 import org.dcache.acl.ACL;
 import org.dcache.acl.enums.RsType;
@@ -159,7 +161,7 @@ public class ExtendedInode extends FsInode {
     }
 
     public ImmutableList<String> getLocations(int type) throws ChimeraFsException {
-        return _fs.getInodeLocations(this).stream().filter(l -> l.type() == type)
+        return getLocations().stream().filter(l -> l.type() == type)
                 .map(StorageLocatable::location)
                 .collect(ImmutableList.toImmutableList());
     }
@@ -179,6 +181,41 @@ public class ExtendedInode extends FsInode {
         return acl;
     }
 
+    /**
+     * Fills the checksum cache of several inodes with a single lookup.
+     */
+    static void prefetchChecksums(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        Map<FsInode, Set<Checksum>> checksums = fs.getInodeChecksums(inodes);
+        for (ExtendedInode inode : inodes) {
+            inode.checksums = ImmutableList.copyOf(checksums.getOrDefault(inode, Set.of()));
+        }
+    }
+
+    /**
+     * Fills the location cache of several inodes with a single lookup.
+     */
+    static void prefetchLocations(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        Map<FsInode, List<StorageLocatable>> locations = fs.getInodeLocations(inodes);
+        for (ExtendedInode inode : inodes) {
+            inode.locations = ImmutableList.copyOf(locations.getOrDefault(inode, List.of()));
+        }
+    }
+
+    /**
+     * Fills the ACL cache of several inodes with a single lookup. The stat cache of the inodes
+     * must be filled.
+     */
+    static void prefetchAcls(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        Map<FsInode, List<ACE>> acls = fs.getACLs(inodes);
+        for (ExtendedInode inode : inodes) {
+            RsType rsType = inode.isDirectory() ? RsType.DIR : RsType.FILE;
+            inode.acl = new ACL(rsType, acls.getOrDefault(inode, List.of()));
+        }
+    }
+
     public ExtendedInode getLevel(int level) {
         if (levels == null) {
             levels = new HashMap<>();
@@ -73,6 +73,7 @@ import org.dcache.util.Checksum;
 import org.dcache.util.ChecksumType;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsSetFileAttributes;
 import org.junit.After;
 import org.junit.Before;
@@ -363,6 +364,48 @@ public class PnfsManagerTest {
     }
 
 
+    @Test
+    public void testGetFileAttributesCoalesced() {
+        PnfsCreateEntryMessage first = new PnfsCreateEntryMessage(
+              "/pnfs/testRoot/testGetFileAttributesCoalesced1", FileAttributes.ofFileType(REGULAR));
+        _pnfsManager.createEntry(first);
+        PnfsCreateEntryMessage second = new PnfsCreateEntryMessage(
+              "/pnfs/testRoot/testGetFileAttributesCoalesced2", FileAttributes.ofFileType(REGULAR));
+        _pnfsManager.createEntry(second);
+
+        Set<FileAttribute> requested = EnumSet.of(PNFSID, TYPE, STORAGEINFO);
+        PnfsGetFileAttributes request1 = new PnfsGetFileAttributes(first.getPnfsId(), requested);
+        PnfsGetFileAttributes request2 = new PnfsGetFileAttributes(second.getPnfsId(), requested);
+        PnfsGetFileAttributes missing = new PnfsGetFileAttributes(
+              new PnfsId(FsInode.generateNewID()), requested);
+        _pnfsManager.getFileAttributes(List.of(request1, missing, request2));
+
+        assertThat(request1.getReturnCode(), is(0));
+        assertThat(request1.getFileAttributes().getPnfsId(), is(first.getPnfsId()));
+        assertThat(request1.getFileAttributes().getStorageInfo().getKey("path"),
+              is("/pnfs/testRoot/testGetFileAttributesCoalesced1"));
+        assertThat(request2.getReturnCode(), is(0));
+        assertThat(request2.getFileAttributes().getPnfsId(), is(second.getPnfsId()));
+        assertThat(missing.getReturnCode(), is(CacheException.FILE_NOT_FOUND));
+    }
+
+    @Test
+    public void testGetFileAttributesBatch() {
+        PnfsCreateEntryMessage entry = new PnfsCreateEntryMessage(
+              "/pnfs/testRoot/testGetFileAttributesBatch", FileAttributes.ofFileType(REGULAR));
+        _pnfsManager.createEntry(entry);
+        PnfsId missing = new PnfsId(FsInode.generateNewID());
+
+        PnfsGetFileAttributesBatch message = new PnfsGetFileAttributesBatch(
+              List.of(entry.getPnfsId(), missing), EnumSet.of(TYPE, SIZE));
+        _pnfsManager.getFileAttributes(message);
+
+        assertThat(message.getReturnCode(), is(0));
+        assertThat(message.getFileAttributes().keySet(), is(Set.of(entry.getPnfsId())));
+        assertThat(message.getFileAttributes().get(entry.getPnfsId()).getFileType(),
+              is(REGULAR));
+    }
+
     @Test
     public void testWriteTokenTag() throws ChimeraFsException {
 
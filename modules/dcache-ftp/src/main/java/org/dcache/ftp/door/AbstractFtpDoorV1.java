@@ -1651,6 +1651,7 @@ public abstract class AbstractFtpDoorV1
         _pnfs.setSubject(mappedSubject);
         _pnfs.setRestriction(_authz);
         _listSource = new ListDirectoryHandler(_pnfs);
+        _listSource.setWindow(_settings.getListWindow());
 
         _subject = mappedSubject;
         _cwd = cwd;
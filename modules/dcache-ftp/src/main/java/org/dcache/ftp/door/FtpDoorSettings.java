@@ -114,6 +114,11 @@ public class FtpDoorSettings {
           defaultValue = "SECONDS")
     protected TimeUnit pnfsTimeoutUnit;
 
+    @Option(name = "listWindow",
+          description = "Number of list replies PnfsManager may send ahead of the door",
+          defaultValue = "16")
+    protected int listWindow;
+
     @Option(name = "poolTimeout",
           defaultValue = "300")
     protected int poolTimeout;
@@ -316,6 +321,10 @@ public class FtpDoorSettings {
         return root;
     }
 
+    public int getListWindow() {
+        return listWindow;
+    }
+
     public String getListFormat() {
         return listFormat;
     }
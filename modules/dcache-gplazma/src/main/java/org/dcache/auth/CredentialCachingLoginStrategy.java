@@ -0,0 +1,413 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.auth;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.PermissionDeniedCacheException;
+import diskCacheV111.util.TimeoutCacheException;
+import dmg.cells.nucleus.CellCommandListener;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.util.command.Command;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.Principal;
+import java.security.SecureRandom;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.security.auth.Subject;
+import org.dcache.auth.attributes.Expiry;
+import org.dcache.gplazma.ReloadObserver;
+import org.dcache.gplazma.util.JsonWebToken;
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * A LoginStrategy that caches the outcome of login requests within the gPlazma service, so the
+ * result is shared by all doors.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 fingerprint of the subject's principals and credentials;
+ * the credentials themselves are not retained.  The HMAC key is chosen at random when the class
+ * is loaded, so that the fingerprints cannot be used to guess passwords or tokens.  A successful login is cached no longer than the
+ * configured lifetime, the expiry of the X.509 certificate chain or JWT bearer token, and any
+ * {@link Expiry} login attribute.  Failed logins are cached for a separate, typically shorter,
+ * time.  Subjects with credentials of an unknown type are never cached.
+ * <p>
+ * The cache is cleared whenever the gPlazma configuration is reloaded.
+ */
+public class CredentialCachingLoginStrategy implements LoginStrategy, ReloadObserver,
+      CellCommandListener, CellInfoProvider {
+
+    private static final HashFunction FINGERPRINT = Hashing.hmacSha256(randomKey());
+
+    /**
+     * The kind of credential with which a user authenticates, used to report hit rates.
+     */
+    enum CredentialType {
+        X509("X.509"),
+        BEARER_TOKEN("bearer token"),
+        PASSWORD("password"),
+        OTHER("other");
+
+        private final String _label;
+
+        CredentialType(String label) {
+            _label = label;
+        }
+
+        static CredentialType of(Subject subject) {
+            if (!subject.getPublicCredentials(X509Certificate[].class).isEmpty()
+                  || !subject.getPublicCredentials(X509Certificate.class).isEmpty()) {
+                return X509;
+            }
+            if (!subject.getPrivateCredentials(BearerTokenCredential.class).isEmpty()) {
+                return BEARER_TOKEN;
+            }
+            if (!subject.getPrivateCredentials(PasswordCredential.class).isEmpty()) {
+                return PASSWORD;
+            }
+            return OTHER;
+        }
+    }
+
+    private static class Entry {
+
+        private final LoginReply _reply;
+        private final String _failure;
+        private final Instant _expiry;
+
+        Entry(LoginReply reply, String failure, Instant expiry) {
+            _reply = reply;
+            _failure = failure;
+            _expiry = expiry;
+        }
+
+        boolean isValid(Instant now) {
+            return now.isBefore(_expiry);
+        }
+
+        LoginReply result() throws PermissionDeniedCacheException {
+            if (_failure != null) {
+                throw new PermissionDeniedCacheException(_failure);
+            }
+            return _reply;
+        }
+    }
+
+    private static class Counters {
+
+        private final LongAdder _hits = new LongAdder();
+        private final LongAdder _misses = new LongAdder();
+        private final LongAdder _failureHits = new LongAdder();
+    }
+
+    private final Map<CredentialType, Counters> _counters = new EnumMap<>(CredentialType.class);
+    private final LongAdder _uncacheable = new LongAdder();
+
+    private LoginStrategy _inner;
+    private int _maximumSize;
+    private long _lifetime;
+    private TimeUnit _lifetimeUnit;
+    private long _failureLifetime;
+    private TimeUnit _failureLifetimeUnit;
+
+    private Cache<HashCode, Entry> _cache;
+
+    public CredentialCachingLoginStrategy() {
+        for (CredentialType type : CredentialType.values()) {
+            _counters.put(type, new Counters());
+        }
+    }
+
+    @Required
+    public void setLoginStrategy(LoginStrategy inner) {
+        _inner = inner;
+    }
+
+    @Required
+    public void setMaximumSize(int size) {
+        _maximumSize = size;
+    }
+
+    @Required
+    public void setLifetime(long lifetime) {
+        _lifetime = lifetime;
+    }
+
+    @Required
+    public void setLifetimeUnit(TimeUnit unit) {
+        _lifetimeUnit = unit;
+    }
+
+    @Required
+    public void setFailureLifetime(long lifetime) {
+        _failureLifetime = lifetime;
+    }
+
+    @Required
+    public void setFailureLifetimeUnit(TimeUnit unit) {
+        _failureLifetimeUnit = unit;
+    }
+
+    public void init() {
+        long maxLifetime = Math.max(_lifetimeUnit.toMillis(_lifetime),
+              _failureLifetimeUnit.toMillis(_failureLifetime));
+        _cache = CacheBuilder.newBuilder()
+              .maximumSize(_maximumSize)
+              .expireAfterWrite(Math.max(1, maxLifetime), TimeUnit.MILLISECONDS)
+              .build();
+    }
+
+    @Override
+    public LoginReply login(Subject subject) throws CacheException {
+        Optional<HashCode> fingerprint = _maximumSize > 0
+              ? fingerprint(subject)
+              : Optional.empty();
+        if (fingerprint.isEmpty()) {
+            _uncacheable.increment();
+            return _inner.login(subject);
+        }
+        HashCode key = fingerprint.orElseThrow();
+
+        Counters counters = _counters.get(CredentialType.of(subject));
+        Instant now = Instant.now();
+        boolean[] isLoaded = new boolean[1];
+        Callable<Entry> loader = () -> {
+            isLoaded[0] = true;
+            return load(subject);
+        };
+
+        try {
+            Entry entry = _cache.get(key, loader);
+            if (!isLoaded[0] && !entry.isValid(now)) {
+                _cache.asMap().remove(key, entry);
+                entry = _cache.get(key, loader);
+            }
+
+            if (isLoaded[0]) {
+                counters._misses.increment();
+            } else if (entry._failure != null) {
+                counters._failureHits.increment();
+            } else {
+                counters._hits.increment();
+            }
+            return entry.result();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CacheException) {
+                throw (CacheException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw new TimeoutCacheException("Request interrupted");
+            }
+            Throwables.throwIfUnchecked(cause);
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private Entry load(Subject subject) throws CacheException {
+        Instant now = Instant.now();
+        try {
+            LoginReply reply = _inner.login(subject);
+            Instant expiry = now.plusMillis(_lifetimeUnit.toMillis(_lifetime));
+            expiry = earliest(expiry, credentialExpiry(subject));
+            for (Expiry attribute : reply.getLoginAttributes(Expiry.class)) {
+                expiry = earliest(expiry, Optional.of(attribute.getExpiry()));
+            }
+            return new Entry(reply, null, expiry);
+        } catch (PermissionDeniedCacheException e) {
+            Instant expiry = now.plusMillis(_failureLifetimeUnit.toMillis(_failureLifetime));
+            return new Entry(null, e.getMessage(), expiry);
+        }
+    }
+
+    private static Instant earliest(Instant instant, Optional<Instant> other) {
+        return other.filter(instant::isAfter).orElse(instant);
+    }
+
+    @Override
+    public Principal map(Principal principal) throws CacheException {
+        return _inner.map(principal);
+    }
+
+    @Override
+    public Set<Principal> reverseMap(Principal principal) throws CacheException {
+        return _inner.reverseMap(principal);
+    }
+
+    @Override
+    public void configReloaded() {
+        if (_cache != null) {
+            _cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns a fingerprint that identifies the subject's principals and credentials, or nothing
+     * if the subject holds a credential that cannot be fingerprinted.
+     */
+    static Optional<HashCode> fingerprint(Subject subject) {
+        List<String> components = new ArrayList<>();
+        for (Principal principal : subject.getPrincipals()) {
+            components.add(hash("principal", principal.getClass().getName(),
+                  principal.getName()));
+        }
+        for (Object credential : subject.getPublicCredentials()) {
+            Optional<String> component = fingerprintCredential(credential);
+            if (component.isEmpty()) {
+                return Optional.empty();
+            }
+            components.add(component.orElseThrow());
+        }
+        for (Object credential : subject.getPrivateCredentials()) {
+            Optional<String> component = fingerprintCredential(credential);
+            if (component.isEmpty()) {
+                return Optional.empty();
+            }
+            components.add(component.orElseThrow());
+        }
+
+        Hasher hasher = FINGERPRINT.newHasher();
+        components.stream().sorted().forEach(c -> hasher.putString(c, UTF_8));
+        return Optional.of(hasher.hash());
+    }
+
+    private static Optional<String> fingerprintCredential(Object credential) {
+        if (credential instanceof BearerTokenCredential) {
+            return Optional.of(hash("bearer", ((BearerTokenCredential) credential).getToken()));
+        }
+        if (credential instanceof PasswordCredential) {
+            PasswordCredential password = (PasswordCredential) credential;
+            return Optional.of(hash("password", password.getUsername(),
+                  password.getPassword()));
+        }
+        try {
+            if (credential instanceof X509Certificate) {
+                return Optional.of(hashCertificates((X509Certificate) credential));
+            }
+            if (credential instanceof X509Certificate[]) {
+                return Optional.of(hashCertificates((X509Certificate[]) credential));
+            }
+        } catch (CertificateEncodingException e) {
+            return Optional.empty();
+        }
+        return Optional.empty();
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static String hash(String... parts) {
+        Hasher hasher = FINGERPRINT.newHasher();
+        for (String part : parts) {
+            hasher.putInt(part.length()).putString(part, UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    private static String hashCertificates(X509Certificate... chain)
+          throws CertificateEncodingException {
+        Hasher hasher = FINGERPRINT.newHasher().putString("x509", UTF_8);
+        for (X509Certificate certificate : chain) {
+            byte[] encoded = certificate.getEncoded();
+            hasher.putInt(encoded.length).putBytes(encoded);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Returns the earliest instant at which one of the subject's credentials expires, if known.
+     */
+    static Optional<Instant> credentialExpiry(Subject subject) {
+        List<Instant> expiries = new ArrayList<>();
+        for (X509Certificate[] chain : subject.getPublicCredentials(X509Certificate[].class)) {
+            for (X509Certificate certificate : chain) {
+                expiries.add(certificate.getNotAfter().toInstant());
+            }
+        }
+        for (X509Certificate certificate : subject.getPublicCredentials(X509Certificate.class)) {
+            expiries.add(certificate.getNotAfter().toInstant());
+        }
+        for (BearerTokenCredential credential
+              : subject.getPrivateCredentials(BearerTokenCredential.class)) {
+            String token = credential.getToken();
+            if (JsonWebToken.isCompatibleFormat(token)) {
+                try {
+                    new JsonWebToken(token).getPayloadInstant("exp").ifPresent(expiries::add);
+                } catch (IOException | RuntimeException e) {
+                    // Not a valid JWT; the configured lifetime applies.
+                }
+            }
+        }
+        return expiries.stream().min(Instant::compareTo);
+    }
+
+    @Command(name = "login cache clear", hint = "clear cached login results",
+          description = "Removes all successful and failed login results from the cache.")
+    public class LoginCacheClearCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            _cache.invalidateAll();
+            return "";
+        }
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        pw.println("Login cache:");
+        pw.println("    Max size: " + _maximumSize);
+        pw.println("    Lifetime: " + _lifetime + " " + _lifetimeUnit.name().toLowerCase()
+              + ", failures " + _failureLifetime + " "
+              + _failureLifetimeUnit.name().toLowerCase());
+        pw.println("    Entries: " + (_cache == null ? 0 : _cache.size()));
+        for (CredentialType type : CredentialType.values()) {
+            Counters counters = _counters.get(type);
+            long hits = counters._hits.sum();
+            long failureHits = counters._failureHits.sum();
+            long misses = counters._misses.sum();
+            long total = hits + failureHits + misses;
+            pw.printf("    %s: %d hits, %d failure hits, %d misses (%.1f%% hit rate)\n",
+                  type._label, hits, failureHits, misses,
+                  total == 0 ? 0.0 : 100.0 * (hits + failureHits) / total);
+        }
+        pw.println("    Not cacheable: " + _uncacheable.sum());
+    }
+}
@@ -13,6 +13,8 @@ import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import dmg.cells.nucleus.CellCommandListener;
 import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.security.Principal;
 import java.util.Collection;
@@ -37,6 +39,7 @@ import org.dcache.gplazma.GPlazma;
 import org.dcache.gplazma.NoSuchPrincipalException;
 import org.dcache.gplazma.monitor.LoginResult;
 import org.dcache.gplazma.monitor.LoginResultPrinter;
+import org.dcache.gplazma.monitor.PluginLatencyMonitor;
 import org.dcache.gplazma.monitor.RecordingLoginMonitor;
 import org.dcache.util.Args;
 import org.slf4j.Logger;
@@ -328,6 +331,27 @@ public class Gplazma2LoginStrategy implements LoginStrategy, CellCommandListener
         return printer.print();
     }
 
+    public static final String fh_show_plugin_latency =
+            "Shows the number of calls, the number of failed calls and the time taken by\n" +
+            "each plugin in each phase since gPlazma was started or the statistics were\n" +
+            "last reset.  Percentiles are approximated by the upper bound of the histogram\n" +
+            "bucket holding them.\n\n" +
+            "Logins answered from the login cache do not call any plugins and are not\n" +
+            "included.  Use -reset to clear the statistics after showing them.";
+    public static final String hh_show_plugin_latency = "[-reset] # show the time taken by plugins";
+
+    public String ac_show_plugin_latency(Args args) {
+        PluginLatencyMonitor monitor = _gplazma.getPluginLatencyMonitor();
+        StringWriter out = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(out)) {
+            monitor.print(pw);
+        }
+        if (args.hasOption("reset")) {
+            monitor.reset();
+        }
+        return out.toString();
+    }
+
     @Required
     public void setUploadPath(String s) {
         _uploadPath = Optional.ofNullable(Strings.emptyToNull(s));
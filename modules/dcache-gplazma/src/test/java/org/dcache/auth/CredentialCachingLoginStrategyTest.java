@@ -0,0 +1,207 @@
+package org.dcache.auth;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import diskCacheV111.util.PermissionDeniedCacheException;
+import diskCacheV111.util.TimeoutCacheException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.Subject;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CredentialCachingLoginStrategyTest {
+
+    private LoginStrategy inner;
+    private CredentialCachingLoginStrategy strategy;
+
+    @Before
+    public void setUp() {
+        inner = mock(LoginStrategy.class);
+        strategy = new CredentialCachingLoginStrategy();
+        strategy.setLoginStrategy(inner);
+        strategy.setMaximumSize(100);
+        strategy.setLifetime(1);
+        strategy.setLifetimeUnit(TimeUnit.HOURS);
+        strategy.setFailureLifetime(1);
+        strategy.setFailureLifetimeUnit(TimeUnit.HOURS);
+        strategy.init();
+    }
+
+    @Test
+    public void shouldCacheSuccessfulLogin() throws Exception {
+        LoginReply reply = new LoginReply();
+        given(inner.login(any())).willReturn(reply);
+
+        LoginReply first = strategy.login(withToken("token-1"));
+        LoginReply second = strategy.login(withToken("token-1"));
+
+        assertThat(first, is(sameInstance(reply)));
+        assertThat(second, is(sameInstance(reply)));
+        verify(inner, times(1)).login(any());
+    }
+
+    @Test
+    public void shouldNotShareResultBetweenDifferentTokens() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+
+        strategy.login(withToken("token-1"));
+        strategy.login(withToken("token-2"));
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldNotShareResultBetweenDifferentPrincipals() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+        Subject first = withToken("token-1");
+        first.getPrincipals().add(new Origin("192.168.1.1"));
+        Subject second = withToken("token-1");
+        second.getPrincipals().add(new Origin("192.168.1.2"));
+
+        strategy.login(first);
+        strategy.login(second);
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldCacheFailedLogin() throws Exception {
+        given(inner.login(any())).willThrow(new PermissionDeniedCacheException("login failed"));
+
+        assertLoginFails(withToken("bad-token"));
+        assertLoginFails(withToken("bad-token"));
+
+        verify(inner, times(1)).login(any());
+    }
+
+    @Test
+    public void shouldNotCacheTimeout() throws Exception {
+        given(inner.login(any())).willThrow(new TimeoutCacheException("timeout"));
+
+        assertTimesOut(withToken("token-1"));
+        assertTimesOut(withToken("token-1"));
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldNotCacheLoginWithExpiredJwt() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+        String jwt = jwt(Instant.now().minusSeconds(60));
+
+        strategy.login(withToken(jwt));
+        strategy.login(withToken(jwt));
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldCacheLoginWithValidJwt() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+        String jwt = jwt(Instant.now().plusSeconds(600));
+
+        strategy.login(withToken(jwt));
+        strategy.login(withToken(jwt));
+
+        verify(inner, times(1)).login(any());
+    }
+
+    @Test
+    public void shouldClearCacheOnReload() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+
+        strategy.login(withToken("token-1"));
+        strategy.configReloaded();
+        strategy.login(withToken("token-1"));
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldNotCacheUnknownCredential() throws Exception {
+        given(inner.login(any())).willReturn(new LoginReply());
+        Subject subject = new Subject();
+        subject.getPrivateCredentials().add(new Object());
+
+        strategy.login(subject);
+        strategy.login(subject);
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldNotCacheIfDisabled() throws Exception {
+        strategy.setMaximumSize(0);
+        strategy.init();
+        given(inner.login(any())).willReturn(new LoginReply());
+
+        strategy.login(withToken("token-1"));
+        strategy.login(withToken("token-1"));
+
+        verify(inner, times(2)).login(any());
+    }
+
+    @Test
+    public void shouldProduceDifferentFingerprintsForDifferentPasswords() {
+        Subject first = new Subject();
+        first.getPrivateCredentials().add(new PasswordCredential("user", "secret-1"));
+        Subject second = new Subject();
+        second.getPrivateCredentials().add(new PasswordCredential("user", "secret-2"));
+
+        assertThat(CredentialCachingLoginStrategy.fingerprint(first),
+              is(not(CredentialCachingLoginStrategy.fingerprint(second))));
+    }
+
+    @Test
+    public void shouldExtractJwtExpiry() {
+        Instant exp = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 600);
+
+        Optional<Instant> expiry = CredentialCachingLoginStrategy.credentialExpiry(
+              withToken(jwt(exp)));
+
+        assertThat(expiry, is(Optional.of(exp)));
+    }
+
+    private void assertLoginFails(Subject subject) throws Exception {
+        try {
+            strategy.login(subject);
+            throw new AssertionError("Login did not fail");
+        } catch (PermissionDeniedCacheException expected) {
+        }
+    }
+
+    private void assertTimesOut(Subject subject) throws Exception {
+        try {
+            strategy.login(subject);
+            throw new AssertionError("Login did not time out");
+        } catch (TimeoutCacheException expected) {
+        }
+    }
+
+    private static Subject withToken(String token) {
+        Subject subject = new Subject();
+        subject.getPrivateCredentials().add(new BearerTokenCredential(token));
+        return subject;
+    }
+
+    private static String jwt(Instant expiry) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(UTF_8));
+        String payload = encoder.encodeToString(
+              ("{\"exp\":" + expiry.getEpochSecond() + "}").getBytes(UTF_8));
+        String signature = encoder.encodeToString("signature".getBytes(UTF_8));
+        return header + "." + payload + "." + signature;
+    }
+}
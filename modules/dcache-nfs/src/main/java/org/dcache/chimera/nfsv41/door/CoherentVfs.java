@@ -0,0 +1,261 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.security.auth.Subject;
+import org.dcache.chimera.FileSystemProvider;
+import org.dcache.chimera.FsInode;
+import org.dcache.nfs.v4.xdr.nfsace4;
+import org.dcache.nfs.vfs.AclCheckable;
+import org.dcache.nfs.vfs.DirectoryStream;
+import org.dcache.nfs.vfs.ForwardingFileSystem;
+import org.dcache.nfs.vfs.Inode;
+import org.dcache.nfs.vfs.Stat;
+import org.dcache.nfs.vfs.VfsCache;
+import org.dcache.nfs.vfs.VfsCacheConfig;
+import org.dcache.nfs.vfs.VirtualFileSystem;
+import org.dcache.vehicles.InodeCacheInvalidationMessage;
+
+/**
+ * A VirtualFileSystem that keeps the caches of a {@link VfsCache} consistent with modifications
+ * made by other doors and PnfsManager, and that caches the outcome of ACL checks.
+ * <p>
+ * All services sharing the Chimera database publish the inodes and directory entries they
+ * modify on the inode cache topic. Cached attributes of modified inodes are discarded from the
+ * {@code VfsCache}. Cached lookups and directory listings cannot be discarded individually;
+ * instead, modified entries and directories are remembered until the corresponding {@code
+ * VfsCache} entries have expired, and requests for them bypass the cache.
+ * <p>
+ * As notifications are delivered asynchronously, a client may still observe a stale entry for a
+ * short time. The lifetime of the caches bounds the staleness should a notification get lost.
+ */
+public class CoherentVfs extends ForwardingFileSystem implements AclCheckable {
+
+    private final VfsCache _cache;
+    private final ChimeraVfs _inner;
+    private final FileSystemProvider _fs;
+
+    /**
+     * Directory entries modified elsewhere whose lookups may be cached.
+     */
+    private final Cache<Entry, Boolean> _modifiedEntries;
+
+    /**
+     * Directories modified elsewhere whose listings may be cached.
+     */
+    private final Cache<Long, Boolean> _modifiedDirectories;
+
+    /**
+     * Outcome of ACL checks by inode number.
+     */
+    private final Cache<Long, Map<AclKey, Access>> _acls;
+
+    private final LongAdder _invalidatedInodes = new LongAdder();
+    private final LongAdder _invalidatedEntries = new LongAdder();
+    private final LongAdder _bypasses = new LongAdder();
+    private final LongAdder _aclHits = new LongAdder();
+    private final LongAdder _aclMisses = new LongAdder();
+
+    public CoherentVfs(VfsCache cache, ChimeraVfs inner, FileSystemProvider fs,
+          VfsCacheConfig config) {
+        _cache = requireNonNull(cache);
+        _inner = requireNonNull(inner);
+        _fs = requireNonNull(fs);
+        _modifiedEntries = CacheBuilder.newBuilder()
+              .maximumSize(config.getMaxEntries())
+              .expireAfterWrite(config.getLifeTime(), config.getTimeUnit())
+              .build();
+        _modifiedDirectories = CacheBuilder.newBuilder()
+              .maximumSize(config.getReaddirMaxEntries())
+              .expireAfterWrite(config.getReaddirLifeTime(), config.getReaddirLifeTimeUnit())
+              .build();
+        _acls = CacheBuilder.newBuilder()
+              .maximumSize(config.getMaxEntries())
+              .expireAfterWrite(config.getLifeTime(), config.getTimeUnit())
+              .build();
+    }
+
+    @Override
+    protected VirtualFileSystem delegate() {
+        return _cache;
+    }
+
+    /**
+     * Applies the invalidations published by another service.
+     */
+    public void invalidate(InodeCacheInvalidationMessage message) {
+        for (long ino : message.getInodes()) {
+            _cache.invalidateStatCache(toInode(ino));
+            _acls.invalidate(ino);
+        }
+        long[] parents = message.getEntryParents();
+        String[] names = message.getEntryNames();
+        for (int i = 0; i < names.length; i++) {
+            _modifiedEntries.put(new Entry(parents[i], names[i]), Boolean.TRUE);
+            _modifiedDirectories.put(parents[i], Boolean.TRUE);
+        }
+        _invalidatedInodes.add(message.getInodes().length);
+        _invalidatedEntries.add(names.length);
+    }
+
+    private Inode toInode(long ino) {
+        return Inode.forFile(new FsInode(_fs, ino).getIdentifier());
+    }
+
+    private long toIno(Inode inode) throws IOException {
+        return _inner.toFsInode(inode).ino();
+    }
+
+    @Override
+    public Inode lookup(Inode parent, String name) throws IOException {
+        if (_modifiedEntries.size() > 0
+              && _modifiedEntries.getIfPresent(new Entry(toIno(parent), name)) != null) {
+            _bypasses.increment();
+            return _inner.lookup(parent, name);
+        }
+        return super.lookup(parent, name);
+    }
+
+    @Override
+    public DirectoryStream list(Inode inode, byte[] verifier, long cookie) throws IOException {
+        if (_modifiedDirectories.size() > 0
+              && _modifiedDirectories.getIfPresent(toIno(inode)) != null) {
+            _bypasses.increment();
+            return _inner.list(inode, verifier, cookie);
+        }
+        return super.list(inode, verifier, cookie);
+    }
+
+    @Override
+    public void setattr(Inode inode, Stat stat) throws IOException {
+        _acls.invalidate(toIno(inode));
+        super.setattr(inode, stat);
+    }
+
+    @Override
+    public void setAcl(Inode inode, nfsace4[] acl) throws IOException {
+        _acls.invalidate(toIno(inode));
+        super.setAcl(inode, acl);
+    }
+
+    @Override
+    public AclCheckable getAclCheckable() {
+        return this;
+    }
+
+    @Override
+    public Access checkAcl(Subject subject, Inode inode, int access) throws IOException {
+        long ino = toIno(inode);
+        AclKey key = new AclKey(subject.getPrincipals(), access);
+        Map<AclKey, Access> acls = _acls.getIfPresent(ino);
+        if (acls != null) {
+            Access result = acls.get(key);
+            if (result != null) {
+                _aclHits.increment();
+                return result;
+            }
+        }
+        _aclMisses.increment();
+        Access result = _inner.checkAcl(subject, inode, access);
+        if (acls == null) {
+            acls = new ConcurrentHashMap<>();
+            Map<AclKey, Access> existing = _acls.asMap().putIfAbsent(ino, acls);
+            if (existing != null) {
+                acls = existing;
+            }
+        }
+        acls.put(key, result);
+        return result;
+    }
+
+    public void getInfo(PrintWriter pw) {
+        pw.printf("  Remote invalidations    : %d inodes, %d entries\n",
+              _invalidatedInodes.sum(), _invalidatedEntries.sum());
+        pw.printf("  Cache bypasses          : %d\n", _bypasses.sum());
+        pw.printf("  ACL check cache         : %d hits, %d misses\n",
+              _aclHits.sum(), _aclMisses.sum());
+    }
+
+    private static final class Entry {
+
+        private final long _parent;
+        private final String _name;
+
+        Entry(long parent, String name) {
+            _parent = parent;
+            _name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return _parent == other._parent && _name.equals(other._name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_parent, _name);
+        }
+    }
+
+    private static final class AclKey {
+
+        private final Set<Principal> _principals;
+        private final int _access;
+
+        AclKey(Set<Principal> principals, int access) {
+            _principals = Set.copyOf(principals);
+            _access = access;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AclKey)) {
+                return false;
+            }
+            AclKey other = (AclKey) o;
+            return _access == other._access && _principals.equals(other._principals);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_principals, _access);
+        }
+    }
+}
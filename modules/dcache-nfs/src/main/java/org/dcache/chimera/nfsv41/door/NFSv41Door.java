@@ -31,6 +31,7 @@ import dmg.cells.nucleus.CDC;
 import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellCommandListener;
 import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
 import dmg.cells.nucleus.CellPath;
 import dmg.cells.services.login.LoginBrokerPublisher;
@@ -188,6 +189,7 @@ import org.dcache.util.TransferRetryPolicy;
 import org.dcache.util.Version;
 import org.dcache.vehicles.DoorValidateMoverMessage;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.InodeCacheInvalidationMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -310,6 +312,7 @@ public class NFSv41Door extends AbstractCellComponent implements
 
     private EventNotifier _eventNotifier;
     private VfsCache _vfsCache;
+    private volatile CoherentVfs _coherentVfs;
     private ChimeraVfs _chimeraVfs;
     private VirtualFileSystem _vfs;
 
@@ -317,6 +320,11 @@ public class NFSv41Door extends AbstractCellComponent implements
 
     private ProxyIoFactory _proxyIoFactory;
 
+    private int _proxyIoMaxReadAhead;
+    private long _proxyIoReadAheadMemory;
+    private int _proxyIoMaxGatheredWrite;
+    private int _proxyIoMaxConcurrentWrites;
+
     private Consumer<DoorRequestInfoMessage> _kafkaSender = (s) -> {
     };
 
@@ -490,6 +498,26 @@ public class NFSv41Door extends AbstractCellComponent implements
         _enableTls = enableTls;
     }
 
+    @Required
+    public void setProxyIoMaxReadAhead(int bytes) {
+        _proxyIoMaxReadAhead = bytes;
+    }
+
+    @Required
+    public void setProxyIoReadAheadMemory(long bytes) {
+        _proxyIoReadAheadMemory = bytes;
+    }
+
+    @Required
+    public void setProxyIoMaxGatheredWrite(int bytes) {
+        _proxyIoMaxGatheredWrite = bytes;
+    }
+
+    @Required
+    public void setProxyIoMaxConcurrentWrites(int writes) {
+        _proxyIoMaxConcurrentWrites = writes;
+    }
+
     public VirtualFileSystem wrapWithMonitoring(VirtualFileSystem inner) {
         MonitoringVfs monitor = new MonitoringVfs();
         monitor.setInner(inner);
@@ -503,7 +531,9 @@ public class NFSv41Door extends AbstractCellComponent implements
         _chimeraVfs = new ChimeraVfs(_fileFileSystemProvider, _idMapper);
         var quotaSvc = new QuotaSvc(_chimeraVfs, _exportFile);
         _vfsCache = new VfsCache(_chimeraVfs, _vfsCacheConfig);
-        _vfs = _eventNotifier == null ? _vfsCache : wrapWithMonitoring(_vfsCache);
+        _coherentVfs = new CoherentVfs(_vfsCache, _chimeraVfs, _fileFileSystemProvider,
+              _vfsCacheConfig);
+        _vfs = _eventNotifier == null ? _coherentVfs : wrapWithMonitoring(_coherentVfs);
 
         OncRpcSvcBuilder oncRpcSvcBuilder = new OncRpcSvcBuilder()
               .withPort(_port)
@@ -546,7 +576,9 @@ public class NFSv41Door extends AbstractCellComponent implements
                     break;
                 case V41:
                     final NFSv41DeviceManager _dm = this;
-                    _proxyIoFactory = new NfsProxyIoFactory(_dm);
+                    _proxyIoFactory = new NfsProxyIoFactory(_dm, _proxyIoMaxReadAhead,
+                          _proxyIoReadAheadMemory, _proxyIoMaxGatheredWrite,
+                          _proxyIoMaxConcurrentWrites);
                     _executor = new StatsDecoratedOperationExecutor(
                           new DoorOperationFactory(
                                 _proxyIoFactory,
@@ -656,6 +688,16 @@ public class NFSv41Door extends AbstractCellComponent implements
         }
     }
 
+    /**
+     * Invalidate cached namespace entries modified by other doors or PnfsManager.
+     */
+    public void messageArrived(CellMessage envelope, InodeCacheInvalidationMessage message) {
+        CoherentVfs vfs = _coherentVfs;
+        if (vfs != null && !envelope.getSourceAddress().equals(getCellAddress())) {
+            vfs.invalidate(message);
+        }
+    }
+
     public void messageArrived(DoorTransferFinishedMessage transferFinishedMessage) {
 
         NFS4ProtocolInfo protocolInfo = (NFS4ProtocolInfo) transferFinishedMessage.getProtocolInfo();
@@ -1046,6 +1088,12 @@ public class NFSv41Door extends AbstractCellComponent implements
             pw.printf("  Total pools (DS) used   : %d\n", _poolDeviceMap.getDevices().size());
             pw.printf("  Active transfers        : %d\n", _transfers.values().size());
             pw.printf("  Known proxy adapters    : %d\n", _proxyIoFactory.getCount());
+            pw.printf("  Proxy read-ahead memory : %d of %d bytes available\n",
+                  _proxyIoFactory.getAvailableReadAheadMemory(), _proxyIoReadAheadMemory);
+        }
+        CoherentVfs vfs = _coherentVfs;
+        if (vfs != null) {
+            vfs.getInfo(pw);
         }
     }
 
@@ -1360,6 +1408,7 @@ public class NFSv41Door extends AbstractCellComponent implements
             _proxyIoFactory.forEach(p -> {
                 NfsTransfer t = _transfers.get(p.getStateId());
                 sb.append(t).append('\n');
+                sb.append(p.getStatistics());
             });
             return sb.toString();
         }
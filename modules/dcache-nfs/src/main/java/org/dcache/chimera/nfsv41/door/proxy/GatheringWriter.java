@@ -0,0 +1,226 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import org.dcache.nfs.vfs.VirtualFileSystem;
+
+/**
+ * Forwards the client writes of a file to the pool, combining queued writes into larger pool
+ * writes.
+ * <p>
+ * At most a fixed number of pool writes are in flight. Writes arriving while this limit is
+ * reached are queued. Once a pool write completes, the oldest queued write is sent together with
+ * the queued writes that directly follow it, up to a maximum size. A client write returns once
+ * the pool write containing it has completed. There is no dedicated thread: pool writes are sent
+ * by the threads of the client writes, each sending queued writes only until its own write has
+ * been sent.
+ */
+class GatheringWriter {
+
+    /**
+     * Sends a single write to the pool.
+     */
+    @FunctionalInterface
+    interface PoolWriter {
+
+        VirtualFileSystem.WriteResult write(ByteBuffer data, long position) throws IOException;
+    }
+
+    private final PoolWriter pool;
+    private final int maxGatheredWrite;
+    private final int maxConcurrentWrites;
+
+    /**
+     * Writes waiting to be sent to the pool.
+     */
+    private final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+    private int activeWrites;
+
+    /**
+     * @param pool                the pool to write to
+     * @param maxGatheredWrite    maximum number of bytes combined into a single pool write
+     * @param maxConcurrentWrites maximum number of concurrent pool writes
+     */
+    GatheringWriter(PoolWriter pool, int maxGatheredWrite, int maxConcurrentWrites) {
+        this.pool = pool;
+        this.maxGatheredWrite = maxGatheredWrite;
+        this.maxConcurrentWrites = maxConcurrentWrites;
+    }
+
+    /**
+     * Writes the remaining content of the buffer at the given position of the file. Blocks until
+     * the pool has acknowledged the write.
+     */
+    VirtualFileSystem.WriteResult write(ByteBuffer src, long position) throws IOException {
+        PendingWrite write = new PendingWrite(src, position);
+        synchronized (pendingWrites) {
+            pendingWrites.add(write);
+        }
+        sendPendingWrites(write);
+        return write.get();
+    }
+
+    /**
+     * Returns the number of writes waiting to be sent to the pool.
+     */
+    int getQueuedWrites() {
+        synchronized (pendingWrites) {
+            return pendingWrites.size();
+        }
+    }
+
+    /**
+     * Sends queued writes to the pool until the given write has been sent, waiting while the
+     * maximum number of concurrent writes is reached. Each pool write combines the oldest queued
+     * write with the queued writes that directly follow it. Writes queued behind the given write
+     * are left to their own threads.
+     */
+    private void sendPendingWrites(PendingWrite write) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                List<PendingWrite> batch;
+                synchronized (pendingWrites) {
+                    while (!write.isSent && activeWrites >= maxConcurrentWrites) {
+                        try {
+                            pendingWrites.wait();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
+                    if (write.isSent) {
+                        return;
+                    }
+                    batch = takeContiguousWrites();
+                    activeWrites++;
+                }
+                try {
+                    sendWrites(batch);
+                } finally {
+                    synchronized (pendingWrites) {
+                        activeWrites--;
+                        pendingWrites.notifyAll();
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<PendingWrite> takeContiguousWrites() {
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite write = pendingWrites.poll();
+        long end = write.position + write.length;
+        int size = write.length;
+        write.isSent = true;
+        batch.add(write);
+
+        boolean found = true;
+        while (found) {
+            found = false;
+            Iterator<PendingWrite> i = pendingWrites.iterator();
+            while (i.hasNext()) {
+                PendingWrite next = i.next();
+                if (next.position == end && size + next.length <= maxGatheredWrite) {
+                    i.remove();
+                    next.isSent = true;
+                    batch.add(next);
+                    end += next.length;
+                    size += next.length;
+                    found = true;
+                }
+            }
+        }
+        return batch;
+    }
+
+    private void sendWrites(List<PendingWrite> batch) {
+        try {
+            ByteBuffer data;
+            if (batch.size() == 1) {
+                data = batch.get(0).data;
+            } else {
+                data = ByteBuffer.allocate(batch.stream().mapToInt(w -> w.length).sum());
+                for (PendingWrite write : batch) {
+                    data.put(write.data.duplicate());
+                }
+                data.flip();
+            }
+            long start = batch.get(0).position;
+            VirtualFileSystem.WriteResult result = pool.write(data, start);
+
+            /* In case of a short write, only a prefix of the gathered writes was written. */
+            long written = result.getBytesWritten();
+            for (PendingWrite write : batch) {
+                int count = (int) Math.max(0,
+                      Math.min(write.length, written - (write.position - start)));
+                write.result.set(new VirtualFileSystem.WriteResult(result.getStabilityLevel(),
+                      count));
+            }
+        } catch (IOException | RuntimeException e) {
+            batch.forEach(w -> w.result.setException(e));
+        }
+    }
+
+    /**
+     * A client write waiting to be sent to the pool.
+     */
+    private static class PendingWrite {
+
+        private final ByteBuffer data;
+        private final long position;
+        private final int length;
+        private final SettableFuture<VirtualFileSystem.WriteResult> result =
+              SettableFuture.create();
+
+        /**
+         * Whether the write was taken from the queue. Guarded by the queue.
+         */
+        private boolean isSent;
+
+        PendingWrite(ByteBuffer data, long position) {
+            this.data = data;
+            this.position = position;
+            this.length = data.remaining();
+        }
+
+        VirtualFileSystem.WriteResult get() throws IOException {
+            try {
+                return Uninterruptibles.getUninterruptibly(result);
+            } catch (ExecutionException e) {
+                Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+                Throwables.throwIfUnchecked(e.getCause());
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+}
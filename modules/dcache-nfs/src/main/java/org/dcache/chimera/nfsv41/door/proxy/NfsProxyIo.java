@@ -43,6 +43,11 @@ import org.dcache.util.NetworkUtils;
 
 /**
  * A {@link ProxyIoAdapter} which proxies requests to another NFSv4.1 server.
+ * <p>
+ * Requests are not serialized: concurrent client requests are forwarded as concurrent RPCs,
+ * limited only by the slots of the session with the pool. Sequential reads are served from data
+ * read ahead in the background by a {@link ReadAhead}. Writes that queue up while the maximum number of writes is in flight are
+ * combined with contiguous queued writes into a single, larger pool write.
  */
 public class NfsProxyIo implements ProxyIoAdapter {
 
@@ -79,6 +84,12 @@ public class NfsProxyIo implements ProxyIoAdapter {
 
     private ClientSession clientSession;
 
+    private final ProxyIoOptions options;
+    private final ProxyIoStatistics statistics = new ProxyIoStatistics();
+
+    private final ReadAhead reader;
+    private final GatheringWriter writer;
+
     /**
      * Creates a NfsProxyIo instance.
      *
@@ -86,11 +97,17 @@ public class NfsProxyIo implements ProxyIoAdapter {
      * @param context     Original request compound context.
      * @param inode       inode to access.
      * @param stateid     stateid to use.
+     * @param options     read-ahead and write gathering settings.
      * @throws IOException if an I/O error occurs.
      */
-    public NfsProxyIo(InetSocketAddress poolAddress, CompoundContext context, Inode inode,
-                      stateid4 stateid, long timeout, TimeUnit timeUnit) throws IOException {
+    NfsProxyIo(InetSocketAddress poolAddress, CompoundContext context, Inode inode,
+                      stateid4 stateid, long timeout, TimeUnit timeUnit, ProxyIoOptions options)
+          throws IOException {
         this.remoteClient = context.getRemoteSocketAddress();
+        this.options = options;
+        this.reader = new ReadAhead(this::readFromPool, options, statistics);
+        this.writer = new GatheringWriter(this::writeToPool, options.getMaxGatheredWrite(),
+              options.getMaxConcurrentWrites());
         rpcsvc = new OncRpcSvcBuilder()
               .withClientMode()
               .withPort(0)
@@ -124,8 +141,11 @@ public class NfsProxyIo implements ProxyIoAdapter {
     }
 
     @Override
-    public synchronized ReadResult read(ByteBuffer dst, long position) throws IOException {
+    public ReadResult read(ByteBuffer dst, long position) throws IOException {
+        return reader.read(dst, position);
+    }
 
+    private ReadResult readFromPool(ByteBuffer dst, long position) throws IOException {
         int needToRead = dst.remaining();
         COMPOUND4args args = new CompoundBuilder()
               .withPutfh(fh)
@@ -139,9 +159,23 @@ public class NfsProxyIo implements ProxyIoAdapter {
     }
 
     @Override
-    public synchronized VirtualFileSystem.WriteResult write(ByteBuffer src, long position)
+    public VirtualFileSystem.WriteResult write(ByteBuffer src, long position)
           throws IOException {
+        long started = System.nanoTime();
+        int count = src.remaining();
 
+        try {
+            VirtualFileSystem.WriteResult result = writer.write(src, position);
+            statistics.writeCompleted(result.getBytesWritten(), System.nanoTime() - started);
+            return result;
+        } finally {
+            /* Data read ahead before the write reached the pool is stale. */
+            reader.writeCompleted(position, count);
+        }
+    }
+
+    private VirtualFileSystem.WriteResult writeToPool(ByteBuffer src, long position)
+          throws IOException {
         COMPOUND4args args = new CompoundBuilder()
               .withPutfh(fh)
               .withWrite(position, src, stateid)
@@ -150,10 +184,16 @@ public class NfsProxyIo implements ProxyIoAdapter {
 
         COMPOUND4res compound4res = sendCompoundInSession(args);
         WRITE4resok res = compound4res.resarray.get(2).opwrite.resok4;
+        statistics.poolWriteCompleted();
         return new VirtualFileSystem.WriteResult(
               VirtualFileSystem.StabilityLevel.fromStableHow(res.committed), res.count.value);
     }
 
+    @Override
+    public ProxyIoStatistics getStatistics() {
+        return statistics;
+    }
+
     @Override
     public String toString() {
         return String.format("    OS=%s, cl=[%s], pool=[%s]",
@@ -169,6 +209,7 @@ public class NfsProxyIo implements ProxyIoAdapter {
 
     @Override
     public void close() throws IOException {
+        reader.close();
         sessionThread.shutdown();
         try {
             destroy_session();
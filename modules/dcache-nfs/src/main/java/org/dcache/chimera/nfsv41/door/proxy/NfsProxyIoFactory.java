@@ -7,11 +7,14 @@ import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -70,6 +73,7 @@ public class NfsProxyIoFactory implements ProxyIoFactory {
 
     private final NFSv41DeviceManager deviceManager;
     private final ExponentialBackoffAlgorithmFactory backoffFactory;
+    private final ProxyIoOptions options;
 
 
     /**
@@ -91,8 +95,23 @@ public class NfsProxyIoFactory implements ProxyIoFactory {
         }
     }
 
-    public NfsProxyIoFactory(NFSv41DeviceManager deviceManager) {
+    /**
+     * @param deviceManager       device manager used to obtain layouts for proxied files
+     * @param maxReadAhead        maximum number of bytes read ahead per file, 0 disables
+     *                            read-ahead
+     * @param readAheadMemory     maximum number of bytes in read-ahead buffers of all files
+     * @param maxGatheredWrite    maximum number of bytes combined into a single pool write
+     * @param maxConcurrentWrites maximum number of concurrent pool writes per file
+     */
+    public NfsProxyIoFactory(NFSv41DeviceManager deviceManager, int maxReadAhead,
+          long readAheadMemory, int maxGatheredWrite, int maxConcurrentWrites) {
         this.deviceManager = deviceManager;
+        options = new ProxyIoOptions(maxReadAhead, readAheadMemory, maxGatheredWrite,
+              maxConcurrentWrites, MoreExecutors.listeningDecorator(
+              Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                    .setNameFormat("proxy-io-read-ahead-%d")
+                    .setDaemon(true)
+                    .build())));
         backoffFactory = new ExponentialBackoffAlgorithmFactory();
         backoffFactory.setMinDelay(TIMEOUT_STEP);
         backoffFactory.setMinUnit(TIMEOUT_STEP_UNIT);
@@ -221,7 +240,7 @@ public class NfsProxyIoFactory implements ProxyIoFactory {
                             });
                             return new NfsProxyIo(poolSocketAddress,
                                   context, inode, ffLayoutSegment.ffl_mirrors[0].ffm_data_servers[0].ffds_stateid , timeout,
-                                  TIMEOUT_STEP_UNIT);
+                                  TIMEOUT_STEP_UNIT, options);
                         } catch (IOException e) {
                             _log.warn("Failed to connect to remote mover {} : {}", address,
                                   e.getMessage());
@@ -271,6 +290,7 @@ public class NfsProxyIoFactory implements ProxyIoFactory {
 
     @Override
     public void shutdown() {
+        options.getReadAheadExecutor().shutdownNow();
     }
 
     @Override
@@ -283,6 +303,11 @@ public class NfsProxyIoFactory implements ProxyIoFactory {
         return (int) _proxyIO.size();
     }
 
+    @Override
+    public long getAvailableReadAheadMemory() {
+        return options.getAvailableReadAheadMemory();
+    }
+
     public static ff_layout4 decodeLayoutId(byte[] data) throws IOException {
         XdrDecodingStream xdr = new Xdr(data);
         xdr.beginDecoding();
@@ -38,6 +38,11 @@ public interface ProxyIoAdapter extends Closeable {
      */
     stateid4 getStateId();
 
+    /**
+     * Returns throughput and latency of the requests proxied by this adapter.
+     */
+    ProxyIoStatistics getStatistics();
+
     // FIXME: move into generic NFS code
     class ReadResult {
 
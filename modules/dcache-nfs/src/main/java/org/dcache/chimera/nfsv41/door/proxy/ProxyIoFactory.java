@@ -41,6 +41,11 @@ public interface ProxyIoFactory {
      */
     int getCount();
 
+    /**
+     * Get number of bytes that may still be used for reading ahead.
+     */
+    long getAvailableReadAheadMemory();
+
     /**
      * Close all active proxies and free up any additional resources. After calling this method, the
      * behavior of all other methods is not guaranteed.
@@ -0,0 +1,96 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settings and resources shared by all {@link NfsProxyIo} adapters of a door.
+ * <p>
+ * Read-ahead buffers of all adapters are accounted against a common memory budget. Once the
+ * budget is exhausted, no further data is read ahead until buffers are consumed or discarded.
+ */
+class ProxyIoOptions {
+
+    private final int _maxReadAhead;
+    private final int _maxGatheredWrite;
+    private final int _maxConcurrentWrites;
+    private final ListeningExecutorService _readAheadExecutor;
+    private final AtomicLong _readAheadBudget;
+
+    /**
+     * @param maxReadAhead        maximum number of bytes read ahead per file, 0 disables
+     *                            read-ahead
+     * @param readAheadMemory     maximum number of bytes in read-ahead buffers of all files
+     * @param maxGatheredWrite    maximum number of bytes combined into a single pool write
+     * @param maxConcurrentWrites maximum number of concurrent pool writes per file
+     * @param readAheadExecutor   executor on which data is read ahead
+     */
+    ProxyIoOptions(int maxReadAhead, long readAheadMemory, int maxGatheredWrite,
+          int maxConcurrentWrites, ListeningExecutorService readAheadExecutor) {
+        checkArgument(maxConcurrentWrites > 0, "At least one concurrent write is required");
+        _maxReadAhead = maxReadAhead;
+        _maxGatheredWrite = maxGatheredWrite;
+        _maxConcurrentWrites = maxConcurrentWrites;
+        _readAheadExecutor = readAheadExecutor;
+        _readAheadBudget = new AtomicLong(readAheadMemory);
+    }
+
+    int getMaxReadAhead() {
+        return _maxReadAhead;
+    }
+
+    int getMaxGatheredWrite() {
+        return _maxGatheredWrite;
+    }
+
+    int getMaxConcurrentWrites() {
+        return _maxConcurrentWrites;
+    }
+
+    ListeningExecutorService getReadAheadExecutor() {
+        return _readAheadExecutor;
+    }
+
+    /**
+     * Reserves memory for a read-ahead buffer of the given size.
+     *
+     * @return true if the memory was reserved, false if the budget is exhausted
+     */
+    boolean tryReserveReadAhead(int bytes) {
+        long available;
+        do {
+            available = _readAheadBudget.get();
+            if (available < bytes) {
+                return false;
+            }
+        } while (!_readAheadBudget.compareAndSet(available, available - bytes));
+        return true;
+    }
+
+    void releaseReadAhead(int bytes) {
+        _readAheadBudget.addAndGet(bytes);
+    }
+
+    long getAvailableReadAheadMemory() {
+        return _readAheadBudget.get();
+    }
+}
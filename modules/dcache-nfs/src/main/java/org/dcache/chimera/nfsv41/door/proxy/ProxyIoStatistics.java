@@ -0,0 +1,96 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and latency of the requests proxied for a single file.
+ * <p>
+ * Latencies are recorded in a histogram with buckets of exponentially growing width, the first
+ * bucket holding requests that took less than 64 microseconds.
+ */
+public class ProxyIoStatistics {
+
+    private static final int BUCKETS = 16;
+    private static final long FIRST_BUCKET_MICROS = 64;
+
+    private final long _created = System.nanoTime();
+
+    private final LongAdder _bytesRead = new LongAdder();
+    private final LongAdder _bytesWritten = new LongAdder();
+    private final LongAdder _readAheadHits = new LongAdder();
+    private final LongAdder _readAheadMisses = new LongAdder();
+    private final LongAdder _poolWrites = new LongAdder();
+    private final AtomicLongArray _readLatency = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray _writeLatency = new AtomicLongArray(BUCKETS);
+
+    void readCompleted(int bytes, long nanos, boolean isReadAheadHit) {
+        _bytesRead.add(bytes);
+        (isReadAheadHit ? _readAheadHits : _readAheadMisses).increment();
+        _readLatency.incrementAndGet(bucketOf(nanos));
+    }
+
+    void writeCompleted(int bytes, long nanos) {
+        _bytesWritten.add(bytes);
+        _writeLatency.incrementAndGet(bucketOf(nanos));
+    }
+
+    void poolWriteCompleted() {
+        _poolWrites.increment();
+    }
+
+    private static int bucketOf(long nanos) {
+        long slots = TimeUnit.NANOSECONDS.toMicros(nanos) / FIRST_BUCKET_MICROS;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(slots));
+    }
+
+    private static void appendHistogram(StringBuilder sb, String label, AtomicLongArray buckets) {
+        sb.append("        ").append(label).append(" latency:");
+        long upper = FIRST_BUCKET_MICROS;
+        for (int i = 0; i < BUCKETS; i++, upper *= 2) {
+            long count = buckets.get(i);
+            if (count > 0) {
+                if (i < BUCKETS - 1) {
+                    sb.append(String.format(" <%.2fms:%d", upper / 1000.0, count));
+                } else {
+                    sb.append(String.format(" >=%.2fms:%d", upper / 2000.0, count));
+                }
+            }
+        }
+        sb.append('\n');
+    }
+
+    @Override
+    public String toString() {
+        double seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - _created));
+        long read = _bytesRead.sum();
+        long written = _bytesWritten.sum();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(
+              "        read: %d bytes (%.1f MiB/s), read-ahead: %d hits, %d misses\n",
+              read, read / seconds / (1 << 20), _readAheadHits.sum(), _readAheadMisses.sum()));
+        sb.append(String.format("        written: %d bytes (%.1f MiB/s) in %d pool writes\n",
+              written, written / seconds / (1 << 20), _poolWrites.sum()));
+        appendHistogram(sb, "read", _readLatency);
+        appendHistogram(sb, "write", _writeLatency);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,253 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import org.dcache.chimera.nfsv41.door.proxy.ProxyIoAdapter.ReadResult;
+
+/**
+ * Serves the client reads of a file, reading ahead of sequential reads.
+ * <p>
+ * Sequential reads are detected and served from data read ahead in the background, the
+ * read-ahead window growing with the length of the sequential run. Data read ahead is discarded
+ * once a write overlapping it completes, so that a read following a write returns the written
+ * data.
+ */
+class ReadAhead {
+
+    /**
+     * Sends a single read to the pool.
+     */
+    @FunctionalInterface
+    interface PoolReader {
+
+        ReadResult read(ByteBuffer dst, long position) throws IOException;
+    }
+
+    private final PoolReader pool;
+    private final ProxyIoOptions options;
+    private final ProxyIoStatistics statistics;
+
+    /**
+     * Data read ahead by file offset.
+     */
+    private final TreeMap<Long, Prefetch> prefetches = new TreeMap<>();
+
+    /**
+     * End of the furthest client read, used to detect sequential access.
+     */
+    private long readEnd = -1;
+
+    /**
+     * End of the furthest scheduled read-ahead.
+     */
+    private long prefetchEnd;
+
+    /**
+     * Number of reads to keep ahead of the client.
+     */
+    private int readAheadWindow;
+
+    private boolean isEofPrefetched;
+    private boolean isClosed;
+
+    /**
+     * @param pool       the pool to read from
+     * @param options    read-ahead settings
+     * @param statistics to which reads are reported
+     */
+    ReadAhead(PoolReader pool, ProxyIoOptions options, ProxyIoStatistics statistics) {
+        this.pool = pool;
+        this.options = options;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Reads into the remaining space of the buffer from the given position of the file.
+     */
+    ReadResult read(ByteBuffer dst, long position) throws IOException {
+        long started = System.nanoTime();
+        int count = dst.remaining();
+
+        ReadResult result = null;
+        Prefetch prefetch = takePrefetch(position, count);
+        if (prefetch != null) {
+            result = prefetch.copyTo(dst, count);
+        }
+        boolean isHit = result != null;
+        if (!isHit) {
+            result = pool.read(dst, position);
+        }
+        scheduleReadAhead(position + count, count, result.isEof());
+
+        statistics.readCompleted(result.getBytesRead(), System.nanoTime() - started, isHit);
+        return result;
+    }
+
+    /**
+     * Discards the data read ahead for the given range of the file, which has been written.
+     * Reading ahead beyond the end of the file resumes, as the write may have extended it.
+     */
+    synchronized void writeCompleted(long position, int length) {
+        Iterator<Prefetch> overlapping = prefetches.headMap(position + length).values()
+              .iterator();
+        while (overlapping.hasNext()) {
+            Prefetch prefetch = overlapping.next();
+            if (prefetch.position + prefetch.length > position) {
+                prefetch.discard();
+                overlapping.remove();
+            }
+        }
+        isEofPrefetched = false;
+    }
+
+    synchronized void close() {
+        isClosed = true;
+        discardPrefetches();
+    }
+
+    /**
+     * Returns the number of reads for which data is read ahead.
+     */
+    synchronized int getPrefetched() {
+        return prefetches.size();
+    }
+
+    /**
+     * Updates the access pattern with a client read and returns the data read ahead for it, if
+     * any.
+     */
+    private synchronized Prefetch takePrefetch(long position, int count) {
+        int maxWindow = options.getMaxReadAhead() / Math.max(1, count);
+        boolean isSequential = readEnd >= 0 && Math.abs(position - readEnd)
+              <= (long) Math.max(readAheadWindow, 1) * count;
+        if (isSequential && maxWindow > 0) {
+            readAheadWindow = Math.min(maxWindow, Math.max(1, readAheadWindow * 2));
+        } else {
+            discardPrefetches();
+            readAheadWindow = 0;
+        }
+        readEnd = Math.max(isSequential ? readEnd : 0, position + count);
+
+        /* Data read ahead for offsets the client has skipped is not going to be used. Some
+         * slack is left as concurrent client reads may arrive out of order.
+         */
+        long oldest = position - (long) readAheadWindow * count;
+        Iterator<Prefetch> skipped = prefetches.headMap(oldest).values().iterator();
+        while (skipped.hasNext()) {
+            skipped.next().discard();
+            skipped.remove();
+        }
+
+        Prefetch prefetch = prefetches.remove(position);
+        if (prefetch != null && prefetch.length < count) {
+            prefetch.discard();
+            return null;
+        }
+        return prefetch;
+    }
+
+    /**
+     * Starts reading ahead of the client until the read-ahead window is filled.
+     */
+    private synchronized void scheduleReadAhead(long offset, int count, boolean isEof) {
+        if (isEof || isClosed || readAheadWindow == 0 || count == 0) {
+            return;
+        }
+        if (prefetches.isEmpty()) {
+            prefetchEnd = offset;
+            isEofPrefetched = false;
+        }
+        prefetchEnd = Math.max(prefetchEnd, offset);
+        while (!isEofPrefetched && prefetches.size() < readAheadWindow
+              && options.tryReserveReadAhead(count)) {
+            long position = prefetchEnd;
+            Prefetch prefetch = new Prefetch(position, count);
+            prefetch.start();
+            prefetches.put(position, prefetch);
+            prefetchEnd += count;
+        }
+    }
+
+    private synchronized void discardPrefetches() {
+        prefetches.values().forEach(Prefetch::discard);
+        prefetches.clear();
+        isEofPrefetched = false;
+    }
+
+    /**
+     * Data read ahead of the client.
+     */
+    private class Prefetch {
+
+        private final long position;
+        private final int length;
+        private ListenableFuture<ReadResult> future;
+        private ByteBuffer data;
+
+        Prefetch(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+
+        void start() {
+            data = ByteBuffer.allocate(length);
+            future = options.getReadAheadExecutor().submit(() -> {
+                ReadResult result = pool.read(data, position);
+                data.flip();
+                if (result.isEof()) {
+                    synchronized (ReadAhead.this) {
+                        isEofPrefetched = true;
+                    }
+                }
+                return result;
+            });
+        }
+
+        /**
+         * Copies up to count bytes of the read-ahead data into dst and releases the buffer.
+         *
+         * @return the result of the read, or null if reading ahead failed
+         */
+        ReadResult copyTo(ByteBuffer dst, int count) {
+            try {
+                ReadResult result = Uninterruptibles.getUninterruptibly(future);
+                int n = Math.min(count, data.remaining());
+                dst.put(data.duplicate().limit(data.position() + n));
+                return new ReadResult(n, result.isEof() && n == data.remaining());
+            } catch (ExecutionException e) {
+                return null;
+            } finally {
+                options.releaseReadAhead(length);
+            }
+        }
+
+        void discard() {
+            future.cancel(false);
+            future.addListener(() -> options.releaseReadAhead(length), directExecutor());
+        }
+    }
+}
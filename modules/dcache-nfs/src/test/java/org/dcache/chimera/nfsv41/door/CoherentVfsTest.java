@@ -0,0 +1,240 @@
+package org.dcache.chimera.nfsv41.door;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+import com.google.common.io.Resources;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.URL;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.dcache.chimera.FsFactory;
+import org.dcache.chimera.FsInode;
+import org.dcache.chimera.InodeCache;
+import org.dcache.chimera.JdbcFs;
+import org.dcache.chimera.posix.Stat;
+import org.dcache.nfs.status.NoEntException;
+import org.dcache.nfs.vfs.DirectoryEntry;
+import org.dcache.nfs.vfs.Inode;
+import org.dcache.nfs.vfs.VfsCache;
+import org.dcache.nfs.vfs.VfsCacheConfig;
+import org.dcache.vehicles.InodeCacheInvalidationMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class CoherentVfsTest {
+
+    private final static URL DB_TEST_PROPERTIES =
+          Resources.getResource("org/dcache/chimera/chimera-test.properties");
+
+    private HikariDataSource _dataSource;
+
+    /**
+     * File system used by the door.
+     */
+    private JdbcFs _fs;
+
+    /**
+     * File system used by another door or PnfsManager sharing the database.
+     */
+    private JdbcFs _otherFs;
+
+    private CoherentVfs _vfs;
+
+    /**
+     * Invalidations published by the other file system.
+     */
+    private final List<Long> _invalidatedInodes = new ArrayList<>();
+    private final List<Long> _invalidatedParents = new ArrayList<>();
+    private final List<String> _invalidatedNames = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        Properties dbProperties = new Properties();
+        try (InputStream input = Resources.asByteSource(DB_TEST_PROPERTIES).openStream()) {
+            dbProperties.load(input);
+        }
+
+        _dataSource = FsFactory.getDataSource(
+              dbProperties.getProperty("chimera.db.url"),
+              dbProperties.getProperty("chimera.db.user"),
+              dbProperties.getProperty("chimera.db.password"));
+
+        try (Connection conn = _dataSource.getConnection()) {
+            conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+            Database database = DatabaseFactory.getInstance()
+                  .findCorrectDatabaseImplementation(new JdbcConnection(conn));
+            Liquibase liquibase = new Liquibase("org/dcache/chimera/changelog/changelog-master.xml",
+                  new ClassLoaderResourceAccessor(), database);
+
+            liquibase.update("");
+        }
+
+        PlatformTransactionManager txManager = new DataSourceTransactionManager(_dataSource);
+        _fs = new JdbcFs(_dataSource, txManager, "strong");
+        _otherFs = new JdbcFs(_dataSource, txManager, "strong");
+
+        InodeCache cache = InodeCache.disabled();
+        cache.setInvalidationListener(new InodeCache.InvalidationListener() {
+            @Override
+            public void statInvalidated(long ino) {
+                _invalidatedInodes.add(ino);
+            }
+
+            @Override
+            public void entryInvalidated(long parent, String name) {
+                _invalidatedParents.add(parent);
+                _invalidatedNames.add(name);
+            }
+        });
+        _otherFs.setInodeCache(cache);
+
+        VfsCacheConfig config = new VfsCacheConfig();
+        config.setMaxEntries(1000);
+        config.setLifeTime(1);
+        config.setTimeUnit(TimeUnit.HOURS);
+        config.setReaddirMaxEntries(1000);
+        config.setReaddirLifeTime(1);
+        config.setReaddirLifeTimeUnit(TimeUnit.HOURS);
+
+        ChimeraVfs chimeraVfs = new ChimeraVfs(_fs, null);
+        _vfs = new CoherentVfs(new VfsCache(chimeraVfs, config), chimeraVfs, _fs, config);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Connection conn = _dataSource.getConnection();
+        conn.createStatement().execute("SHUTDOWN;");
+        _dataSource.close();
+        _fs.close();
+        _otherFs.close();
+    }
+
+    @Test
+    public void shouldDiscardAttributesModifiedElsewhere() throws Exception {
+        FsInode file = _otherFs.path2inode("/").mkdir("dir").create("file", 0, 0, 0644);
+        Inode inode = _vfs.lookup(_vfs.lookup(_vfs.getRootInode(), "dir"), "file");
+        assertThat(_vfs.getattr(inode).getMode() & 0777, is(0644));
+
+        Stat stat = new Stat();
+        stat.setMode(0600);
+        _otherFs.setInodeAttributes(file, 0, stat);
+        assertThat(_vfs.getattr(inode).getMode() & 0777, is(0644));
+
+        deliverInvalidations();
+        assertThat(_vfs.getattr(inode).getMode() & 0777, is(0600));
+    }
+
+    @Test
+    public void shouldBypassCachedLookupOfEntryRemovedElsewhere() throws Exception {
+        FsInode dir = _otherFs.path2inode("/").mkdir("dir");
+        FsInode file = dir.create("file", 0, 0, 0644);
+        Inode parent = _vfs.lookup(_vfs.getRootInode(), "dir");
+        _vfs.lookup(parent, "file");
+
+        _otherFs.remove(dir, "file", file);
+        _vfs.lookup(parent, "file");
+
+        deliverInvalidations();
+        try {
+            _vfs.lookup(parent, "file");
+            fail("Lookup of file removed elsewhere succeeded");
+        } catch (NoEntException expected) {
+        }
+    }
+
+    @Test
+    public void shouldFindEntryCreatedElsewhere() throws Exception {
+        FsInode dir = _otherFs.path2inode("/").mkdir("dir");
+        Inode parent = _vfs.lookup(_vfs.getRootInode(), "dir");
+        try {
+            _vfs.lookup(parent, "file");
+            fail("Lookup of missing file succeeded");
+        } catch (NoEntException expected) {
+        }
+
+        dir.create("file", 0, 0, 0644);
+        deliverInvalidations();
+
+        _vfs.lookup(parent, "file");
+    }
+
+    @Test
+    public void shouldBypassCachedListingOfDirectoryModifiedElsewhere() throws Exception {
+        FsInode dir = _otherFs.path2inode("/").mkdir("dir");
+        dir.create("file", 0, 0, 0644);
+        Inode parent = _vfs.lookup(_vfs.getRootInode(), "dir");
+        assertThat(list(parent), not(hasItem("other")));
+
+        dir.create("other", 0, 0, 0644);
+        deliverInvalidations();
+
+        assertThat(list(parent), hasItem("other"));
+        assertThat(list(parent), hasItem("file"));
+    }
+
+    @Test
+    public void shouldNotBypassCacheForDirectoriesNotModifiedElsewhere() throws Exception {
+        FsInode root = _otherFs.path2inode("/");
+        FsInode modified = root.mkdir("modified");
+        root.mkdir("unmodified").create("file", 0, 0, 0644);
+        Inode parent = _vfs.lookup(_vfs.getRootInode(), "unmodified");
+        _invalidatedInodes.clear();
+        _invalidatedParents.clear();
+        _invalidatedNames.clear();
+
+        modified.create("file", 0, 0, 0644);
+        deliverInvalidations();
+        _vfs.lookup(parent, "file");
+        list(parent);
+
+        assertThat(bypasses(), is(0L));
+    }
+
+    private void deliverInvalidations() {
+        _vfs.invalidate(new InodeCacheInvalidationMessage(
+              _invalidatedInodes.stream().mapToLong(Long::longValue).toArray(),
+              _invalidatedParents.stream().mapToLong(Long::longValue).toArray(),
+              _invalidatedNames.toArray(String[]::new)));
+        _invalidatedInodes.clear();
+        _invalidatedParents.clear();
+        _invalidatedNames.clear();
+    }
+
+    private Set<String> list(Inode inode) throws Exception {
+        Set<String> names = new HashSet<>();
+        for (DirectoryEntry entry : _vfs.list(inode, new byte[8], 0)) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private long bypasses() {
+        StringWriter info = new StringWriter();
+        _vfs.getInfo(new PrintWriter(info));
+        String line = info.toString().lines()
+              .filter(l -> l.contains("Cache bypasses"))
+              .findFirst().orElseThrow();
+        return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+    }
+}
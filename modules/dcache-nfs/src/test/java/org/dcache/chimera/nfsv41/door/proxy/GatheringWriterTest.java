@@ -0,0 +1,307 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.nfs.vfs.VirtualFileSystem;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GatheringWriterTest {
+
+    private static final int MAX_GATHERED_WRITE = 1024 * 1024;
+
+    private ExecutorService executor;
+    private Pool pool;
+
+    /**
+     * A pool that records the writes it receives and that can be made to block writes.
+     */
+    private static class Pool implements GatheringWriter.PoolWriter {
+
+        private final List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        private final byte[] file = new byte[10_000];
+        private final Semaphore started = new Semaphore(0);
+        private final AtomicInteger active = new AtomicInteger();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile int maxActive;
+        private volatile int maxBytes = Integer.MAX_VALUE;
+        private volatile IOException failure;
+
+        @Override
+        public VirtualFileSystem.WriteResult write(ByteBuffer data, long position)
+              throws IOException {
+            maxActive = Math.max(maxActive, active.incrementAndGet());
+            try {
+                writes.add(position + "+" + data.remaining());
+                started.release();
+                Uninterruptibles.awaitUninterruptibly(gate);
+                if (failure != null) {
+                    throw failure;
+                }
+                int count = Math.min(maxBytes, data.remaining());
+                synchronized (file) {
+                    data.get(file, (int) position, count);
+                }
+                return new VirtualFileSystem.WriteResult(
+                      VirtualFileSystem.StabilityLevel.FILE_SYNC, count);
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            gate.countDown();
+        }
+
+        void awaitWrites(int count) throws InterruptedException {
+            if (!started.tryAcquire(count, 5, TimeUnit.SECONDS)) {
+                fail("Pool did not receive expected writes");
+            }
+        }
+    }
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        pool = new Pool();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldForwardSingleWrite() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        VirtualFileSystem.WriteResult result = writer.write(data(100, 50), 100);
+
+        assertThat(result.getBytesWritten(), is(50));
+        assertThat(pool.writes, contains("100+50"));
+        assertWritten(100, 150);
+    }
+
+    @Test
+    public void shouldGatherContiguousQueuedWrites() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 100, 100, 1);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 2);
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third), contains(100, 100, 100));
+        assertThat(pool.writes, contains("0+100", "100+200"));
+        assertWritten(0, 300);
+    }
+
+    @Test
+    public void shouldGatherQueuedWritesInFileOrder() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 100, 100, 1);
+        Future<VirtualFileSystem.WriteResult> fourth = givenQueuedWrite(writer, 300, 100, 2);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 3);
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third, fourth), contains(100, 100, 100, 100));
+        assertThat(pool.writes, contains("0+100", "100+300"));
+        assertWritten(0, 400);
+    }
+
+    @Test
+    public void shouldSendNonContiguousWritesInQueueOrder() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 500, 100, 1);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 2);
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third), contains(100, 100, 100));
+        assertThat(pool.writes, contains("0+100", "500+100", "200+100"));
+        assertWritten(500, 600);
+        assertWritten(200, 300);
+    }
+
+    @Test
+    public void shouldNotGatherBeyondMaximumSize() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, 250, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 100, 100, 1);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 2);
+        Future<VirtualFileSystem.WriteResult> fourth = givenQueuedWrite(writer, 300, 100, 3);
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third, fourth), contains(100, 100, 100, 100));
+        assertThat(pool.writes, contains("0+100", "100+200", "300+100"));
+        assertWritten(0, 400);
+    }
+
+    @Test
+    public void shouldAcknowledgeOnlyWrittenPrefixOfShortWrite() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 100, 100, 1);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 2);
+        Future<VirtualFileSystem.WriteResult> fourth = givenQueuedWrite(writer, 300, 100, 3);
+        pool.maxBytes = 150;
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third, fourth), contains(100, 100, 50, 0));
+        assertThat(pool.writes, contains("0+100", "100+300"));
+    }
+
+    @Test
+    public void shouldFailAllGatheredWritesIfPoolWriteFails() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 100, 100, 1);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 200, 100, 2);
+        pool.failure = new IOException("disk full");
+        pool.unblock();
+
+        for (Future<VirtualFileSystem.WriteResult> write : List.of(first, second, third)) {
+            try {
+                write.get(5, TimeUnit.SECONDS);
+                fail("Failed pool write was acknowledged");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(IOException.class)));
+            }
+        }
+        assertThat(pool.writes, contains("0+100", "100+200"));
+    }
+
+    @Test
+    public void shouldReturnOnceOwnWriteIsDone() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 1);
+
+        Future<VirtualFileSystem.WriteResult> first = givenBlockedWrite(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = givenQueuedWrite(writer, 500, 100, 1);
+        CountDownLatch gate = pool.gate;
+        pool.block();
+        gate.countDown();
+
+        assertThat(bytesWritten(first), contains(100));
+        pool.awaitWrites(1);
+        assertThat(second.isDone(), is(false));
+
+        pool.unblock();
+
+        assertThat(bytesWritten(second), contains(100));
+        assertThat(pool.writes, contains("0+100", "500+100"));
+    }
+
+    @Test
+    public void shouldLimitConcurrentPoolWrites() throws Exception {
+        GatheringWriter writer = new GatheringWriter(pool, MAX_GATHERED_WRITE, 2);
+        pool.block();
+
+        Future<VirtualFileSystem.WriteResult> first = submit(writer, 0, 100);
+        Future<VirtualFileSystem.WriteResult> second = submit(writer, 1000, 100);
+        pool.awaitWrites(2);
+        Future<VirtualFileSystem.WriteResult> third = givenQueuedWrite(writer, 2000, 100, 1);
+        pool.unblock();
+
+        assertThat(bytesWritten(first, second, third), contains(100, 100, 100));
+        assertThat(pool.maxActive, is(2));
+        assertThat(pool.writes.size(), is(3));
+    }
+
+    private Future<VirtualFileSystem.WriteResult> givenBlockedWrite(GatheringWriter writer,
+          long position, int length) throws InterruptedException {
+        pool.block();
+        Future<VirtualFileSystem.WriteResult> write = submit(writer, position, length);
+        pool.awaitWrites(1);
+        return write;
+    }
+
+    private Future<VirtualFileSystem.WriteResult> givenQueuedWrite(GatheringWriter writer,
+          long position, int length, int queued) throws InterruptedException {
+        Future<VirtualFileSystem.WriteResult> write = submit(writer, position, length);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getQueuedWrites() < queued) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Write was not queued");
+            }
+            Thread.sleep(1);
+        }
+        return write;
+    }
+
+    private Future<VirtualFileSystem.WriteResult> submit(GatheringWriter writer, long position,
+          int length) {
+        return executor.submit(() -> writer.write(data(position, length), position));
+    }
+
+    @SafeVarargs
+    private static List<Integer> bytesWritten(Future<VirtualFileSystem.WriteResult>... writes)
+          throws Exception {
+        List<Integer> counts = new ArrayList<>();
+        for (Future<VirtualFileSystem.WriteResult> write : writes) {
+            counts.add(write.get(5, TimeUnit.SECONDS).getBytesWritten());
+        }
+        return counts;
+    }
+
+    private static ByteBuffer data(long position, int length) {
+        ByteBuffer data = ByteBuffer.allocate(length);
+        for (int i = 0; i < length; i++) {
+            data.put((byte) (position + i));
+        }
+        return data.flip();
+    }
+
+    private void assertWritten(int start, int end) {
+        synchronized (pool.file) {
+            for (int i = start; i < end; i++) {
+                assertThat("Byte at offset " + i, pool.file[i], is((byte) i));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.chimera.nfsv41.door.proxy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.dcache.chimera.nfsv41.door.proxy.ProxyIoAdapter.ReadResult;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadAheadTest {
+
+    private static final int READ_SIZE = 100;
+
+    /**
+     * A pool that records the reads it receives.
+     */
+    private static class Pool implements ReadAhead.PoolReader {
+
+        private final List<String> reads = Collections.synchronizedList(new ArrayList<>());
+        private final byte[] file = new byte[1000];
+
+        @Override
+        public ReadResult read(ByteBuffer dst, long position) {
+            reads.add(position + "+" + dst.remaining());
+            synchronized (file) {
+                int count = (int) Math.max(0, Math.min(dst.remaining(), file.length - position));
+                dst.put(file, (int) position, count);
+                return new ReadResult(count, position + count >= file.length);
+            }
+        }
+
+        void write(int position, int length, byte value) {
+            synchronized (file) {
+                for (int i = position; i < position + length; i++) {
+                    file[i] = value;
+                }
+            }
+        }
+    }
+
+    private Pool pool;
+    private ProxyIoStatistics statistics;
+    private ReadAhead reader;
+
+    @Before
+    public void setUp() {
+        pool = new Pool();
+        pool.write(0, pool.file.length, (byte) 1);
+        statistics = new ProxyIoStatistics();
+        ProxyIoOptions options = new ProxyIoOptions(10 * READ_SIZE, 100 * READ_SIZE,
+              READ_SIZE, 1, MoreExecutors.newDirectExecutorService());
+        reader = new ReadAhead(pool, options, statistics);
+    }
+
+    @Test
+    public void shouldServeSequentialReadsFromDataReadAhead() throws Exception {
+        for (int position = 0; position < 400; position += READ_SIZE) {
+            assertRead(position, (byte) 1);
+        }
+
+        assertThat(pool.reads, contains("0+100", "100+100", "200+100", "300+100", "400+100",
+              "500+100", "600+100", "700+100"));
+        assertThat(statistics.toString(), containsString("read-ahead: 2 hits, 2 misses"));
+    }
+
+    @Test
+    public void shouldNotReadAheadOfRandomReads() throws Exception {
+        assertRead(500, (byte) 1);
+        assertRead(0, (byte) 1);
+        assertRead(800, (byte) 1);
+
+        assertThat(pool.reads, contains("500+100", "0+100", "800+100"));
+    }
+
+    @Test
+    public void shouldReadWrittenDataAfterWriteCompleted() throws Exception {
+        for (int position = 0; position < 300; position += READ_SIZE) {
+            assertRead(position, (byte) 1);
+        }
+        assertThat(reader.getPrefetched(), is(2));
+
+        pool.write(300, READ_SIZE, (byte) 2);
+        reader.writeCompleted(300, READ_SIZE);
+
+        assertThat(reader.getPrefetched(), is(1));
+        assertRead(300, (byte) 2);
+        assertRead(400, (byte) 1);
+    }
+
+    private void assertRead(int position, byte value) throws Exception {
+        ByteBuffer data = ByteBuffer.allocate(READ_SIZE);
+        ReadResult result = reader.read(data, position);
+        assertThat(result.getBytesRead(), is(READ_SIZE));
+        for (int i = 0; i < READ_SIZE; i++) {
+            assertThat("Byte at offset " + (position + i), data.get(i), is(value));
+        }
+    }
+}
@@ -51,6 +51,22 @@ public class PnfsId implements Serializable, Comparable<PnfsId> {
         _a = HexFormat.of().parseHex(expandedId.toUpperCase());
     }
 
+    /**
+     * Creates a PnfsId from its binary form, as returned by {@link #toBinary()}.
+     */
+    PnfsId(byte[] a) {
+        checkArgument(a.length * 2 == PNFS_ID_SIZE || a.length * 2 == CHIMERA_ID_SIZE,
+              "Illegal pnfsid length");
+        _a = a;
+    }
+
+    /**
+     * Returns the binary form of this PnfsId. The returned array must not be modified.
+     */
+    byte[] toBinary() {
+        return _a;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,58 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.util;
+
+import dmg.cells.nucleus.PayloadCodec;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+
+/**
+ * Compact codec for {@link PnfsId}: a length byte followed by the binary form of the id.
+ */
+public class PnfsIdCodec implements PayloadCodec<PnfsId> {
+
+    @Override
+    public int getId() {
+        return 2;
+    }
+
+    @Override
+    public Class<PnfsId> getType() {
+        return PnfsId.class;
+    }
+
+    @Override
+    public void encode(PnfsId id, ObjectOutput out) throws IOException {
+        byte[] a = id.toBinary();
+        out.writeByte(a.length);
+        out.write(a);
+    }
+
+    @Override
+    public PnfsId decode(ObjectInput in) throws IOException {
+        byte[] a = new byte[in.readUnsignedByte()];
+        in.readFully(a);
+        try {
+            return new PnfsId(a);
+        } catch (IllegalArgumentException e) {
+            throw new StreamCorruptedException(e.getMessage());
+        }
+    }
+}
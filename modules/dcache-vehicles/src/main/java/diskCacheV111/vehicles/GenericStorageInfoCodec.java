@@ -0,0 +1,126 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.vehicles;
+
+import static dmg.cells.nucleus.MsgSerializerCompact.readString;
+import static dmg.cells.nucleus.MsgSerializerCompact.writeString;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.RetentionPolicy;
+import dmg.cells.nucleus.PayloadCodec;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact codec for {@link GenericStorageInfo}. Subclasses, such as {@link OSMStorageInfo}, are
+ * not handled by this codec and fall back to Java serialization.
+ */
+public class GenericStorageInfoCodec implements PayloadCodec<GenericStorageInfo> {
+
+    private static final String UNKNOWN_BITFILE_ID = "<Unknown>";
+
+    private static final int SET_HSM = 1;
+    private static final int SET_STORAGE_CLASS = 1 << 1;
+    private static final int SET_BITFILE_ID = 1 << 2;
+    private static final int SET_LOCATION = 1 << 3;
+    private static final int IS_NEW = 1 << 4;
+
+    @Override
+    public int getId() {
+        return 4;
+    }
+
+    @Override
+    public Class<GenericStorageInfo> getType() {
+        return GenericStorageInfo.class;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void encode(GenericStorageInfo info, ObjectOutput out) throws IOException {
+        int flags = (info.isSetHsm() ? SET_HSM : 0)
+              | (info.isSetStorageClass() ? SET_STORAGE_CLASS : 0)
+              | (info.isSetBitFileId() ? SET_BITFILE_ID : 0)
+              | (info.isSetAddLocation() ? SET_LOCATION : 0)
+              | (info.isCreatedOnly() ? IS_NEW : 0);
+        out.writeByte(flags);
+        writeString(out, info.getHsm());
+        writeString(out, info.getStorageClass());
+        writeString(out, info.getCacheClass());
+        String bitfileId = info.getBitfileId();
+        writeString(out, UNKNOWN_BITFILE_ID.equals(bitfileId) ? null : bitfileId);
+        out.writeLong(info.getLegacySize());
+        AccessLatency al = info.getLegacyAccessLatency();
+        out.writeByte(al == null ? -1 : al.getId());
+        RetentionPolicy rp = info.getLegacyRetentionPolicy();
+        out.writeByte(rp == null ? -1 : rp.getId());
+
+        Map<String, String> keys = info.getMap();
+        out.writeInt(keys.size());
+        for (Map.Entry<String, String> e : keys.entrySet()) {
+            writeString(out, e.getKey());
+            writeString(out, e.getValue());
+        }
+
+        List<URI> locations = info.locations();
+        out.writeInt(locations.size());
+        for (URI location : locations) {
+            writeString(out, location.toString());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public GenericStorageInfo decode(ObjectInput in) throws IOException, ClassNotFoundException {
+        GenericStorageInfo info = new GenericStorageInfo();
+        int flags = in.readUnsignedByte();
+        info.isSetHsm((flags & SET_HSM) != 0);
+        info.isSetStorageClass((flags & SET_STORAGE_CLASS) != 0);
+        info.isSetBitFileId((flags & SET_BITFILE_ID) != 0);
+        info.isSetAddLocation((flags & SET_LOCATION) != 0);
+        info.setIsNew((flags & IS_NEW) != 0);
+        info.setHsm(intern(readString(in)));
+        info.setStorageClass(intern(readString(in)));
+        info.setCacheClass(intern(readString(in)));
+        info.setBitfileId(readString(in));
+        info.setLegacySize(in.readLong());
+        byte al = in.readByte();
+        info.setLegacyAccessLatency(al < 0 ? null : AccessLatency.getAccessLatency(al));
+        byte rp = in.readByte();
+        info.setLegacyRetentionPolicy(rp < 0 ? null : RetentionPolicy.getRetentionPolicy(rp));
+
+        int keys = in.readInt();
+        for (int i = 0; i < keys; i++) {
+            info.setKey(readString(in).intern(), readString(in));
+        }
+
+        int locations = in.readInt();
+        for (int i = 0; i < locations; i++) {
+            info.addLocation(URI.create(readString(in)));
+        }
+        return info;
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+}
@@ -0,0 +1,320 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static dmg.cells.nucleus.MsgSerializerCompact.readString;
+import static dmg.cells.nucleus.MsgSerializerCompact.writeString;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.StorageInfo;
+import dmg.cells.nucleus.PayloadCodec;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dcache.acl.ACL;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+
+/**
+ * Compact codec for {@link FileAttributes}. The set of defined attributes is written as a bit
+ * mask, followed by the value of each defined attribute in {@link FileAttribute} order. ACLs are
+ * written with Java serialization, PNFS IDs and storage info are delegated to their own codecs.
+ */
+public class FileAttributesCodec implements PayloadCodec<FileAttributes> {
+
+    private static final FileAttribute[] ATTRIBUTES = FileAttribute.values();
+
+    private static final FileType[] FILE_TYPES = FileType.values();
+
+    private static final ChecksumType[] CHECKSUM_TYPES = ChecksumType.values();
+
+    @Override
+    public int getId() {
+        return 3;
+    }
+
+    @Override
+    public Class<FileAttributes> getType() {
+        return FileAttributes.class;
+    }
+
+    @Override
+    public void encode(FileAttributes attributes, ObjectOutput out) throws IOException {
+        long mask = 0;
+        for (FileAttribute attribute : attributes.getDefinedAttributes()) {
+            mask |= 1L << attribute.ordinal();
+        }
+        out.writeLong(mask);
+
+        for (FileAttribute attribute : attributes.getDefinedAttributes()) {
+            switch (attribute) {
+                case ACCESS_LATENCY:
+                    AccessLatency al = attributes.getAccessLatency();
+                    out.writeByte(al == null ? -1 : al.getId());
+                    break;
+                case ACCESS_TIME:
+                    out.writeLong(attributes.getAccessTime());
+                    break;
+                case ACL:
+                    out.writeObject(attributes.getAcl());
+                    break;
+                case CACHECLASS:
+                    writeString(out, attributes.getCacheClass());
+                    break;
+                case CHECKSUM:
+                    Set<Checksum> checksums = attributes.getChecksums();
+                    out.writeInt(checksums.size());
+                    for (Checksum checksum : checksums) {
+                        out.writeByte(checksum.getType().ordinal());
+                        writeString(out, checksum.getValue());
+                    }
+                    break;
+                case CHANGE_TIME:
+                    out.writeLong(attributes.getChangeTime());
+                    break;
+                case CREATION_TIME:
+                    out.writeLong(attributes.getCreationTime());
+                    break;
+                case FLAGS:
+                    writeMap(out, attributes.getFlags());
+                    break;
+                case HSM:
+                    writeString(out, attributes.getHsm());
+                    break;
+                case LOCATIONS:
+                    writeStrings(out, attributes.getLocations());
+                    break;
+                case MODE:
+                    out.writeInt(attributes.getMode());
+                    break;
+                case MODIFICATION_TIME:
+                    out.writeLong(attributes.getModificationTime());
+                    break;
+                case OWNER:
+                    out.writeInt(attributes.getOwner());
+                    break;
+                case OWNER_GROUP:
+                    out.writeInt(attributes.getGroup());
+                    break;
+                case RETENTION_POLICY:
+                    RetentionPolicy rp = attributes.getRetentionPolicy();
+                    out.writeByte(rp == null ? -1 : rp.getId());
+                    break;
+                case SIZE:
+                    out.writeLong(attributes.getSize());
+                    break;
+                case STORAGECLASS:
+                    writeString(out, attributes.getStorageClass());
+                    break;
+                case STORAGEINFO:
+                    out.writeObject(attributes.getStorageInfo());
+                    break;
+                case TYPE:
+                    FileType type = attributes.getFileType();
+                    out.writeByte(type == null ? -1 : type.ordinal());
+                    break;
+                case PNFSID:
+                    out.writeObject(attributes.getPnfsId());
+                    break;
+                case NLINK:
+                    out.writeInt(attributes.getNlink());
+                    break;
+                case XATTR:
+                    writeMap(out, attributes.getXattrs());
+                    break;
+                case LABELS:
+                    writeStrings(out, attributes.getLabels());
+                    break;
+                case QOS_POLICY:
+                    writeString(out, attributes.getQosPolicy());
+                    break;
+                case QOS_STATE:
+                    out.writeInt(attributes.getQosState());
+                    break;
+                default:
+                    throw new IOException("Unsupported file attribute: " + attribute);
+            }
+        }
+    }
+
+    @Override
+    public FileAttributes decode(ObjectInput in) throws IOException, ClassNotFoundException {
+        FileAttributes attributes = new FileAttributes();
+        long mask = in.readLong();
+        for (FileAttribute attribute : ATTRIBUTES) {
+            if ((mask & (1L << attribute.ordinal())) == 0) {
+                continue;
+            }
+            switch (attribute) {
+                case ACCESS_LATENCY:
+                    byte al = in.readByte();
+                    attributes.setAccessLatency(al < 0 ? null : AccessLatency.getAccessLatency(al));
+                    break;
+                case ACCESS_TIME:
+                    attributes.setAccessTime(in.readLong());
+                    break;
+                case ACL:
+                    attributes.setAcl((ACL) in.readObject());
+                    break;
+                case CACHECLASS:
+                    attributes.setCacheClass(intern(readString(in)));
+                    break;
+                case CHECKSUM:
+                    int count = in.readInt();
+                    List<Checksum> checksums = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        ChecksumType checksumType = CHECKSUM_TYPES[in.readUnsignedByte()];
+                        checksums.add(new Checksum(checksumType, readString(in)));
+                    }
+                    attributes.setChecksums(checksums);
+                    break;
+                case CHANGE_TIME:
+                    attributes.setChangeTime(in.readLong());
+                    break;
+                case CREATION_TIME:
+                    attributes.setCreationTime(in.readLong());
+                    break;
+                case FLAGS:
+                    attributes.setFlags(readMap(in));
+                    break;
+                case HSM:
+                    attributes.setHsm(intern(readString(in)));
+                    break;
+                case LOCATIONS:
+                    attributes.setLocations(readStrings(in, new ArrayList<>()));
+                    break;
+                case MODE:
+                    attributes.setMode(in.readInt());
+                    break;
+                case MODIFICATION_TIME:
+                    attributes.setModificationTime(in.readLong());
+                    break;
+                case OWNER:
+                    attributes.setOwner(in.readInt());
+                    break;
+                case OWNER_GROUP:
+                    attributes.setGroup(in.readInt());
+                    break;
+                case RETENTION_POLICY:
+                    byte rp = in.readByte();
+                    attributes.setRetentionPolicy(
+                          rp < 0 ? null : RetentionPolicy.getRetentionPolicy(rp));
+                    break;
+                case SIZE:
+                    attributes.setSize(in.readLong());
+                    break;
+                case STORAGECLASS:
+                    attributes.setStorageClass(intern(readString(in)));
+                    break;
+                case STORAGEINFO:
+                    attributes.setStorageInfo((StorageInfo) in.readObject());
+                    break;
+                case TYPE:
+                    byte type = in.readByte();
+                    attributes.setFileType(type < 0 ? null : FILE_TYPES[type]);
+                    break;
+                case PNFSID:
+                    attributes.setPnfsId((PnfsId) in.readObject());
+                    break;
+                case NLINK:
+                    attributes.setNlink(in.readInt());
+                    break;
+                case XATTR:
+                    attributes.setXattrs(readMap(in));
+                    break;
+                case LABELS:
+                    attributes.setLabels(readStrings(in, new HashSet<>()));
+                    break;
+                case QOS_POLICY:
+                    attributes.setQosPolicy(readString(in));
+                    break;
+                case QOS_STATE:
+                    attributes.setQosState(in.readInt());
+                    break;
+                default:
+                    throw new StreamCorruptedException("Unsupported file attribute: " + attribute);
+            }
+        }
+        return attributes;
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    private static void writeStrings(ObjectOutput out, Collection<String> strings)
+          throws IOException {
+        if (strings == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                writeString(out, s);
+            }
+        }
+    }
+
+    private static <C extends Collection<String>> C readStrings(ObjectInput in, C strings)
+          throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeMap(ObjectOutput out, Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(map.size());
+            for (Map.Entry<String, String> e : map.entrySet()) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readMap(ObjectInput in)
+          throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(intern(readString(in)), readString(in));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,73 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import diskCacheV111.vehicles.Message;
+
+/**
+ * Announces namespace modifications to all services that cache directory entries and inode
+ * attributes of the Chimera database.
+ * <p>
+ * Inodes are identified by their inode number, directory entries by the inode number of the parent
+ * directory and the name of the entry.
+ */
+public class InodeCacheInvalidationMessage extends Message {
+
+    private static final long serialVersionUID = -2416520879914311268L;
+
+    private final long[] _inodes;
+    private final long[] _entryParents;
+    private final String[] _entryNames;
+
+    public InodeCacheInvalidationMessage(long[] inodes, long[] entryParents, String[] entryNames) {
+        checkArgument(entryParents.length == entryNames.length);
+        _inodes = inodes;
+        _entryParents = entryParents;
+        _entryNames = entryNames;
+    }
+
+    /**
+     * Returns the inode numbers of inodes with modified attributes.
+     */
+    public long[] getInodes() {
+        return _inodes;
+    }
+
+    /**
+     * Returns the parent inode numbers of modified directory entries.
+     */
+    public long[] getEntryParents() {
+        return _entryParents;
+    }
+
+    /**
+     * Returns the names of modified directory entries. The name at a given index is the name of
+     * the entry in the directory at the same index of {@link #getEntryParents}.
+     */
+    public String[] getEntryNames() {
+        return _entryNames;
+    }
+
+    @Override
+    public String toString() {
+        return "InodeCacheInvalidation{inodes=" + _inodes.length
+              + ",entries=" + _entryNames.length + "}";
+    }
+}
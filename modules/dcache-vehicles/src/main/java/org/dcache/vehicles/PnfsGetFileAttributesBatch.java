@@ -0,0 +1,84 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.PnfsMessage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.dcache.namespace.FileAttribute;
+
+/**
+ * Vehicle for getting the attributes of several files by PnfsId in a single request.
+ * <p>
+ * In contrast to {@link PnfsGetFileAttributes}, the request does not fail if some of the files do
+ * not exist or their attributes may not be read by the subject of the request. Such files are
+ * instead omitted from the reply.
+ */
+public class PnfsGetFileAttributesBatch extends PnfsMessage {
+
+    private static final long serialVersionUID = 4725871035648213052L;
+
+    private final List<PnfsId> _pnfsIds;
+    private final Set<FileAttribute> _attributes;
+    private Map<PnfsId, FileAttributes> _fileAttributes;
+
+    public PnfsGetFileAttributesBatch(Collection<PnfsId> pnfsIds, Set<FileAttribute> attr) {
+        _pnfsIds = new ArrayList<>(pnfsIds);
+        _attributes = requireNonNull(attr);
+        setReplyRequired(true);
+    }
+
+    public List<PnfsId> getPnfsIds() {
+        return _pnfsIds;
+    }
+
+    /**
+     * Get set of requested {@link FileAttributes}. Note that PnfsManager may return less
+     * attributes than requested.
+     */
+    public Set<FileAttribute> getRequestedAttributes() {
+        return _attributes;
+    }
+
+    public void setFileAttributes(Map<PnfsId, FileAttributes> fileAttributes) {
+        _fileAttributes = new HashMap<>(fileAttributes);
+    }
+
+    /**
+     * Returns the attributes of the files by PnfsId. Files that do not exist or whose attributes
+     * may not be read are not included.
+     */
+    public Map<PnfsId, FileAttributes> getFileAttributes() {
+        return _fileAttributes;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ";files=" + _pnfsIds.size() + ';' +
+              ((_fileAttributes == null)
+                    ? "[noMetaData]"
+                    : "found=" + _fileAttributes.size());
+    }
+}
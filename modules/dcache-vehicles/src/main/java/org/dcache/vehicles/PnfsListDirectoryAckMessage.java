@@ -0,0 +1,78 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.vehicles.Message;
+import java.util.UUID;
+
+/**
+ * Acknowledges replies of a flow controlled {@link PnfsListDirectoryMessage}, or cancels the
+ * listing. Sent by the requestor to the PnfsManager instance that replied.
+ */
+public class PnfsListDirectoryAckMessage extends Message {
+
+    private static final long serialVersionUID = 3417282465541927370L;
+
+    private final UUID _uuid;
+    private final int _acknowledged;
+    private final boolean _isCancelled;
+
+    private PnfsListDirectoryAckMessage(UUID uuid, int acknowledged, boolean isCancelled) {
+        _uuid = requireNonNull(uuid);
+        _acknowledged = acknowledged;
+        _isCancelled = isCancelled;
+        setReplyRequired(false);
+    }
+
+    /**
+     * Acknowledges the first {@code count} replies of the listing identified by {@code uuid}.
+     */
+    public static PnfsListDirectoryAckMessage acknowledge(UUID uuid, int count) {
+        return new PnfsListDirectoryAckMessage(uuid, count, false);
+    }
+
+    /**
+     * Cancels the listing identified by {@code uuid}. No further replies are sent.
+     */
+    public static PnfsListDirectoryAckMessage cancel(UUID uuid) {
+        return new PnfsListDirectoryAckMessage(uuid, 0, true);
+    }
+
+    public UUID getUUID() {
+        return _uuid;
+    }
+
+    /**
+     * Returns the number of replies consumed by the requestor.
+     */
+    public int getAcknowledged() {
+        return _acknowledged;
+    }
+
+    public boolean isCancelled() {
+        return _isCancelled;
+    }
+
+    @Override
+    public String toString() {
+        return "PnfsListDirectoryAck{uuid=" + _uuid
+              + (_isCancelled ? ",cancelled" : ",acknowledged=" + _acknowledged) + "}";
+    }
+}
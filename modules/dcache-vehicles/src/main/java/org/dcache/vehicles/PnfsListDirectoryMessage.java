@@ -21,6 +21,11 @@ import org.dcache.util.list.DirectoryEntry;
  * in multiple replies. The request is identified by a UUID and the replies will contain the same
  * UUID. The last reply is flagged as final. It is assumed that point-to-point message ordering is
  * guaranteed.
+ * <p>
+ * A requestor may limit the number of replies in flight by setting a window. The replies then
+ * carry the same window and the requestor acknowledges consumed replies with a
+ * {@link PnfsListDirectoryAckMessage}, which may also cancel the listing. A window of zero, as
+ * seen in replies from versions without flow control, means no limit.
  */
 public class PnfsListDirectoryMessage extends PnfsMessage {
 
@@ -46,6 +51,15 @@ public class PnfsListDirectoryMessage extends PnfsMessage {
     private boolean _isFinal;
     private int _messageCount = 0;
 
+    /**
+     * Maximum number of unacknowledged replies; zero if not limited.
+     */
+    private int _window;
+
+    /**
+     * Name after which the listing starts; null to list from the start of the directory.
+     */
+    private String _startAfter;
 
 
     /**
@@ -171,6 +185,30 @@ public class PnfsListDirectoryMessage extends PnfsMessage {
         return _messageCount;
     }
 
+    /**
+     * Sets the maximum number of replies that may be sent before earlier replies have been
+     * acknowledged. Zero disables flow control.
+     */
+    public void setWindow(int window) {
+        _window = window;
+    }
+
+    public int getWindow() {
+        return _window;
+    }
+
+    /**
+     * Limits the listing to the entries with a name greater than the given name, in order of
+     * their names. The range then applies to these entries.
+     */
+    public void setStartAfter(String startAfter) {
+        _startAfter = startAfter;
+    }
+
+    public String getStartAfter() {
+        return _startAfter;
+    }
+
     public void setMessageCount(int messageCount) {
         _messageCount = messageCount;
     }
@@ -0,0 +1,173 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles;
+
+import static org.dcache.util.ChecksumType.ADLER32;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.OSMStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import dmg.cells.nucleus.MsgSerializerCompact;
+import dmg.cells.nucleus.SerializationHandler;
+import dmg.cells.nucleus.SerializationHandler.Serializer;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.security.auth.Subject;
+import org.dcache.auth.FQANPrincipal;
+import org.dcache.auth.GidPrincipal;
+import org.dcache.auth.Origin;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.auth.UserNamePrincipal;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.junit.Test;
+
+public class FileAttributesCodecTest {
+
+    private static final PnfsId PNFSID = new PnfsId("0000D5E2B7A6C3E64B5F9E1A2C3D4E5F6A7B");
+
+    @Test
+    public void shouldRegisterVehicleCodecs() {
+        assertThat(MsgSerializerCompact.getCodecSignature(),
+              allOf(containsString(FileAttributes.class.getName()),
+                    containsString(PnfsId.class.getName()),
+                    containsString(GenericStorageInfo.class.getName())));
+    }
+
+    @Test
+    public void shouldRoundTripPnfsId() {
+        assertThat(roundTrip(PNFSID), is(PNFSID));
+        assertThat(roundTrip(new PnfsId("000100000000000000001060")),
+              is(new PnfsId("000100000000000000001060")));
+    }
+
+    @Test
+    public void shouldRoundTripFileAttributes() {
+        StorageInfo info = GenericStorageInfo.valueOf("a:b@osm", "cc");
+        info.addLocation(URI.create("osm://osm/?store=a&group=b&bfid=1234"));
+        info.setKey("path", "/data/file");
+        info.setIsNew(false);
+
+        FileAttributes attributes = FileAttributes.of()
+              .pnfsId(PNFSID)
+              .size(1024L)
+              .accessLatency(AccessLatency.ONLINE)
+              .retentionPolicy(RetentionPolicy.REPLICA)
+              .checksum(new Checksum(ADLER32, "12345678"))
+              .fileType(FileType.REGULAR)
+              .locations(List.of("pool1", "pool2"))
+              .flag("key", "value")
+              .mode(0644)
+              .uid(1000)
+              .gid(100)
+              .modificationTime(42L)
+              .storageInfo(info)
+              .build();
+        attributes.setStorageClass("a:b");
+        attributes.setHsm("osm");
+        attributes.setXattrs(Map.of("foo", "bar"));
+        attributes.setLabels(Set.of("red"));
+        attributes.setQosPolicy("policy");
+        attributes.setQosState(2);
+
+        FileAttributes decoded = roundTrip(attributes);
+
+        assertThat(decoded.getDefinedAttributes(), is(attributes.getDefinedAttributes()));
+        assertThat(decoded.getPnfsId(), is(PNFSID));
+        assertThat(decoded.getSize(), is(1024L));
+        assertThat(decoded.getAccessLatency(), is(AccessLatency.ONLINE));
+        assertThat(decoded.getRetentionPolicy(), is(RetentionPolicy.REPLICA));
+        assertThat(decoded.getChecksums(), is(attributes.getChecksums()));
+        assertThat(decoded.getFileType(), is(FileType.REGULAR));
+        assertThat(decoded.getLocations(), contains("pool1", "pool2"));
+        assertThat(decoded.getFlags(), is(Map.of("key", "value")));
+        assertThat(decoded.getMode(), is(0644));
+        assertThat(decoded.getOwner(), is(1000));
+        assertThat(decoded.getGroup(), is(100));
+        assertThat(decoded.getModificationTime(), is(42L));
+        assertThat(decoded.getStorageInfo(), is(info));
+        assertThat(decoded.getStorageInfo().getKey("path"), is("/data/file"));
+        assertThat(decoded.getStorageClass(), is("a:b"));
+        assertThat(decoded.getHsm(), is("osm"));
+        assertThat(decoded.getXattrs(), is(Map.of("foo", "bar")));
+        assertThat(decoded.getLabels(), contains("red"));
+        assertThat(decoded.getQosPolicy(), is("policy"));
+        assertThat(decoded.getQosState(), is(2));
+    }
+
+    @Test
+    public void shouldFallBackToJavaSerializationForUnknownTypes() {
+        OSMStorageInfo info = new OSMStorageInfo("store", "group");
+        FileAttributes attributes = FileAttributes.ofStorageInfo(info);
+
+        FileAttributes decoded = roundTrip(attributes);
+
+        assertThat(decoded.getStorageInfo(), is(instanceOf(OSMStorageInfo.class)));
+        assertThat(decoded.getStorageInfo(), is(info));
+    }
+
+    @Test
+    public void shouldRoundTripNestedVehiclesInMessages() throws Exception {
+        Subject subject = new Subject();
+        subject.getPrincipals().add(new UidPrincipal(1000));
+        subject.getPrincipals().add(new GidPrincipal(100, true));
+        subject.getPrincipals().add(new UserNamePrincipal("alice"));
+        subject.getPrincipals().add(new FQANPrincipal("/atlas/Role=production", false));
+        subject.getPrincipals().add(new Origin("127.0.0.1"));
+        FileAttributes attributes = FileAttributes.of().pnfsId(PNFSID).size(1L).build();
+        PnfsGetFileAttributes message =
+              new PnfsGetFileAttributes(PNFSID, EnumSet.of(FileAttribute.SIZE));
+        message.setFileAttributes(attributes);
+        message.setSubject(subject);
+
+        PnfsGetFileAttributes decoded = roundTrip(message);
+
+        assertThat(decoded.getPnfsId(), is(PNFSID));
+        assertThat(decoded.getFileAttributes().getSize(), is(1L));
+        assertThat(decoded.getSubject().getPrincipals(), is(subject.getPrincipals()));
+    }
+
+    @Test
+    public void shouldBeSmallerThanJavaSerialization() {
+        FileAttributes attributes = FileAttributes.of()
+              .pnfsId(PNFSID)
+              .size(1024L)
+              .storageInfo(GenericStorageInfo.valueOf("a:b@osm", "*"))
+              .build();
+
+        assertThat(SerializationHandler.encode(attributes, Serializer.COMPACT).length,
+              is(lessThan(SerializationHandler.encode(attributes, Serializer.JOS).length / 2)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T object) {
+        byte[] encoded = SerializationHandler.encode(object, Serializer.COMPACT);
+        assertThat(SerializationHandler.isEncodedWith(encoded, Serializer.COMPACT), is(true));
+        return (T) SerializationHandler.decode(encoded);
+    }
+}
@@ -43,7 +43,9 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.EvictingQueue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 import diskCacheV111.services.TransferManagerHandler;
 import diskCacheV111.util.CacheException;
@@ -63,6 +65,7 @@ import diskCacheV111.vehicles.IoJobInfo;
 import diskCacheV111.vehicles.IpProtocolInfo;
 import diskCacheV111.vehicles.Message;
 import diskCacheV111.vehicles.PnfsCreateEntryMessage;
+import diskCacheV111.vehicles.PnfsDeleteEntryMessage;
 import diskCacheV111.vehicles.RemoteHttpDataTransferProtocolInfo;
 import diskCacheV111.vehicles.RemoteHttpsDataTransferProtocolInfo;
 import diskCacheV111.vehicles.transferManager.CancelTransferMessage;
@@ -119,6 +122,7 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
 import javax.security.auth.Subject;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletResponseWrapper;
@@ -127,6 +131,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.dcache.acl.enums.AccessMask;
 import org.dcache.auth.OpenIdCredential;
 import org.dcache.auth.attributes.Restriction;
+import org.dcache.cells.AbstractMessageCallback;
 import org.dcache.cells.CellStub;
 import org.dcache.namespace.FileAttribute;
 import org.dcache.namespace.FileType;
@@ -143,6 +148,7 @@ import org.dcache.util.Strings;
 import org.dcache.util.URIs;
 import org.dcache.util.Xattrs;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
 import org.dcache.webdav.transfer.CopyFilter.CredentialSource;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.io.EndPoint;
@@ -712,7 +718,7 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
         messageArrived(Duration.of(envelope.getLocalAge(), MILLIS));
         RemoteTransfer transfer = _transfers.get(getTransferId(envelope, message));
         if (transfer != null) {
-            _activity.execute(() -> transfer.completed(null));
+            transfer.completed(null);
         }
     }
 
@@ -720,8 +726,7 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
         messageArrived(Duration.of(envelope.getLocalAge(), MILLIS));
         RemoteTransfer transfer = _transfers.get(getTransferId(envelope, message));
         if (transfer != null) {
-            String error = String.valueOf(message.getErrorObject());
-            _activity.execute(() -> transfer.completed(error));
+            transfer.completed(String.valueOf(message.getErrorObject()));
         }
     }
 
@@ -784,6 +789,10 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
         private Optional<Instant> _failTransferAfter = Optional.empty();
         private long _size;
         private ScheduledFuture<?> _sendingMarkers;
+        private volatile boolean _isQueryingStatus;
+        private volatile boolean _isCancelling;
+        @GuardedBy("this")
+        private boolean _isFinished;
         private AsyncContext _async;
         private CellStub _transferManager = _genericTransferManager;
 
@@ -1011,27 +1020,32 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
          * be called after output has been written to the client.
          */
         private void checkClientConnected() {
-            if (!_endpoint.isOpen()) {
+            if (!_endpoint.isOpen() && !_isCancelling) {
+                _isCancelling = true;
                 CancelTransferMessage message =
                       new CancelTransferMessage(_id, DUMMY_LONG);
                 message.setExplanation("client went away");
-                try {
-                    _transferManager.sendAndWait(message);
-
-                    /* We don't explicitly finish the transfer, but wait for
-                     * the transfer manager to send a message notifying us that
-                     * the transfer has completed.
-                     */
-                } catch (NoRouteToCellException | CacheException e) {
-                    /* We tried to cancel a transfer, but the transfer-manager reported some kind
-                     * of problem.  There's no guarantee that this failure is transitory, so
-                     * retrying may not help.  Instead, we just fail the transfer.
-                     */
-                    completed("client went away, but failed to cancel transfer: "
-                          + e.getMessage());
-                } catch (InterruptedException e) {
-                    completed("dCache is shutting down");
-                }
+                CellStub.addCallback(_transferManager.send(message),
+                      new AbstractMessageCallback<CancelTransferMessage>() {
+                          @Override
+                          public void success(CancelTransferMessage message) {
+                              /* We don't explicitly finish the transfer, but wait for
+                               * the transfer manager to send a message notifying us that
+                               * the transfer has completed.
+                               */
+                          }
+
+                          @Override
+                          public void failure(int rc, Object error) {
+                              /* We tried to cancel a transfer, but the transfer-manager
+                               * reported some kind of problem.  There's no guarantee that
+                               * this failure is transitory, so retrying may not help.
+                               * Instead, we just fail the transfer.
+                               */
+                              completed("client went away, but failed to cancel transfer: "
+                                    + error);
+                          }
+                      }, _activity);
             }
         }
 
@@ -1106,21 +1120,23 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
                   .orElse(null);
         }
 
-        private void fetchChecksums() {
-            if (_direction == Direction.PULL && _wantDigest.isPresent()) {
-                Optional<String> empty = Optional.empty();
-                _digestValue = _wantDigest.map(h -> {
-                    try {
-                        FileAttributes attributes = _pnfs.getFileAttributes(_path,
-                              EnumSet.of(CHECKSUM));
-                        return Checksums.digestHeader(h, attributes);
-                    } catch (CacheException e) {
-                        LOGGER.warn("Failed to acquire checksum of fetched file: {}",
-                              e.getMessage());
-                        return empty;
-                    }
-                }).orElse(empty);
+        private ListenableFuture<Optional<String>> fetchChecksums() {
+            if (_direction != Direction.PULL || _wantDigest.isEmpty()) {
+                return Futures.immediateFuture(Optional.empty());
             }
+
+            String wantDigest = _wantDigest.get();
+            ListenableFuture<PnfsGetFileAttributes> reply = _pnfs.requestAsync(
+                  new PnfsGetFileAttributes(_path.toString(), EnumSet.of(CHECKSUM)));
+            return Futures.catching(
+                  CellStub.transform(reply,
+                        msg -> Checksums.digestHeader(wantDigest, msg.getFileAttributes())),
+                  Exception.class,
+                  e -> {
+                      LOGGER.warn("Failed to acquire checksum of fetched file: {}",
+                            e.getMessage());
+                      return Optional.empty();
+                  }, MoreExecutors.directExecutor());
         }
 
         private void addTrailerCallback() {
@@ -1175,54 +1191,71 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
             // Note: must be `false` as this method may be called by the task.
             _sendingMarkers.cancel(false);
 
-            String error = transferError;
+            /* Any interaction with the namespace is asynchronous, so no thread is
+             * blocked while finalising the transfer.  Only writing the result to
+             * the client is delegated to the finaliser threads.
+             */
+            ListenableFuture<Optional<String>> result;
             if (transferError == null) {
-                fetchChecksums();
+                result = Futures.transform(fetchChecksums(), digest -> {
+                    _digestValue = digest;
+                    return Optional.empty();
+                }, MoreExecutors.directExecutor());
+            } else if (_direction == Direction.PULL) {
+                result = Futures.transform(deleteFile(),
+                      e -> Optional.of(e.map(d -> transferError + " (" + d + ")")
+                            .orElse(transferError)),
+                      MoreExecutors.directExecutor());
             } else {
-                if (_direction == Direction.PULL) {
-                    error = deleteFile()
-                          .map(e -> transferError + " (" + e + ")")
-                          .orElse(transferError);
-                }
+                result = Futures.immediateFuture(Optional.of(transferError));
             }
 
-            sendResult(error);
-            _transferResult.set(Optional.ofNullable(error));
+            result.addListener(() -> finish(Futures.getUnchecked(result)), _activity);
+        }
+
+        private synchronized void finish(Optional<String> error) {
+            _isFinished = true;
+            sendResult(error.orElse(null));
+            _transferResult.set(error);
             _async.complete();
         }
 
-        private Optional<String> deleteFile() {
-            try {
-                /* There is a subtlety here: when pulling a remote file, a
-                 * user may be using a macaroon that allows the UPLOAD
-                 * activity but not the DELETE activity.  This will allow
-                 * the transfer to start, provided the file did not already
-                 * exist.
-                 *
-                 * Failed pull transfers are deleted.  However, if the
-                 * macaroon does not allow the DELETE activity then the user
-                 * cannot delete the incomplete file.
-                 *
-                 * It is better to provide consistent behaviour: that
-                 * incomplete pull transfers are deleted.  Therefore the
-                 * delete operation is make without any restriction.  To
-                 * achieve this, we create a new PnfsHandler with any
-                 * restrictions removed.
-                 */
-                PnfsHandler pnfs = new PnfsHandler(_pnfs, null);
-                pnfs.deletePnfsEntry(_pnfsId, _path.toString(),
-                      EnumSet.of(FileType.REGULAR), EnumSet.noneOf(FileAttribute.class));
-            } catch (FileNotFoundCacheException e) {
-                // This is OK: either a new upload has started or the user
-                // has deleted the file some other way.
-                LOGGER.debug("Failed to clear up after failed transfer: {}",
-                      e.getMessage());
-            } catch (CacheException e) {
-                LOGGER.warn("Failed to clear up after failed transfer: {}",
-                      e.getMessage());
-                return Optional.of("failed to remove badly transferred file");
-            }
-            return Optional.empty();
+        private ListenableFuture<Optional<String>> deleteFile() {
+            /* There is a subtlety here: when pulling a remote file, a
+             * user may be using a macaroon that allows the UPLOAD
+             * activity but not the DELETE activity.  This will allow
+             * the transfer to start, provided the file did not already
+             * exist.
+             *
+             * Failed pull transfers are deleted.  However, if the
+             * macaroon does not allow the DELETE activity then the user
+             * cannot delete the incomplete file.
+             *
+             * It is better to provide consistent behaviour: that
+             * incomplete pull transfers are deleted.  Therefore the
+             * delete operation is make without any restriction.  To
+             * achieve this, we create a new PnfsHandler with any
+             * restrictions removed.
+             */
+            PnfsHandler pnfs = new PnfsHandler(_pnfs, null);
+            ListenableFuture<PnfsDeleteEntryMessage> reply = pnfs.requestAsync(
+                  new PnfsDeleteEntryMessage(_pnfsId, _path.toString(),
+                        EnumSet.of(FileType.REGULAR), EnumSet.noneOf(FileAttribute.class)));
+            return Futures.catching(
+                  CellStub.transform(reply, msg -> Optional.<String>empty()),
+                  Exception.class,
+                  e -> {
+                      if (e instanceof FileNotFoundCacheException) {
+                          // This is OK: either a new upload has started or the user
+                          // has deleted the file some other way.
+                          LOGGER.debug("Failed to clear up after failed transfer: {}",
+                                e.getMessage());
+                          return Optional.empty();
+                      }
+                      LOGGER.warn("Failed to clear up after failed transfer: {}",
+                            e.getMessage());
+                      return Optional.of("failed to remove badly transferred file");
+                  }, MoreExecutors.directExecutor());
         }
 
         private void sendResult(@Nullable String error) {
@@ -1240,11 +1273,26 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
             }
         }
 
+        /**
+         * Query the transfer's status.  The reply is processed asynchronously, so the
+         * scheduler thread is never blocked waiting for the transfer manager.  A query is
+         * skipped if the previous one is still outstanding.
+         */
         private void generateMarker() {
+            if (_isQueryingStatus) {
+                return;
+            }
+            _isQueryingStatus = true;
+
             TransferStatusQueryMessage message =
                   new TransferStatusQueryMessage(_id);
             ListenableFuture<TransferStatusQueryMessage> future =
                   _transferManager.send(message, _performanceMarkerPeriod / 2);
+            future.addListener(() -> statusArrived(future), _activity);
+        }
+
+        private void statusArrived(ListenableFuture<TransferStatusQueryMessage> future) {
+            _isQueryingStatus = false;
 
             int state = TransferManagerHandler.UNKNOWN_ID;
             IoJobInfo info = null;
@@ -1351,7 +1399,10 @@ public class RemoteTransferHandler implements CellMessageReceiver, CellCommandLi
          * Perf Marker Timestamp: 1360578938 Stripe Index: 0 Stripe Bytes Transferred: 49397760
          * Total Stripe Count: 2 End
          */
-        private void sendMarker(int state, @Nullable IoJobInfo info) {
+        private synchronized void sendMarker(int state, @Nullable IoJobInfo info) {
+            if (_isFinished) {
+                return;
+            }
             try {
                 var out = _async.getResponse().getWriter();
 
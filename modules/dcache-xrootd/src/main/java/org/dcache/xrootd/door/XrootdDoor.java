@@ -39,6 +39,10 @@ import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_xset;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Range;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.poolManager.PoolMonitorV5;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileExistsCacheException;
@@ -84,10 +88,12 @@ import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
@@ -185,6 +191,9 @@ public class XrootdDoor
           new ACLPermissionHandler(),
           new PosixPermissionHandler());
 
+    private int _maxConcurrentOpens = Integer.MAX_VALUE;
+    private Semaphore _openPermits = new Semaphore(_maxConcurrentOpens);
+
     private int _moverTimeout = 180000;
     private TimeUnit _moverTimeoutUnit = TimeUnit.MILLISECONDS;
 
@@ -396,6 +405,35 @@ public class XrootdDoor
         _moverTimeout = timeout;
     }
 
+    /**
+     * Limits the number of open requests processed concurrently. Open requests beyond this
+     * limit are asked to retry later.
+     */
+    @Required
+    public void setMaxConcurrentOpens(int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        _maxConcurrentOpens = max;
+        _openPermits = new Semaphore(max);
+    }
+
+    /**
+     * Reserves capacity for processing an open request.
+     *
+     * @return false if the limit of concurrent open requests is reached
+     */
+    public boolean tryBeginOpen() {
+        return _openPermits.tryAcquire();
+    }
+
+    /**
+     * Releases the capacity reserved by {@link #tryBeginOpen}.
+     */
+    public void endOpen() {
+        _openPermits.release();
+    }
+
     public void setMoverTimeoutUnit(TimeUnit unit) {
         _moverTimeoutUnit = requireNonNull(unit);
     }
@@ -453,6 +491,8 @@ public class XrootdDoor
         pw.println(String.format("Protocol Version %d.%d",
               XrootdProtocol.PROTOCOL_VERSION_MAJOR,
               XrootdProtocol.PROTOCOL_VERSION_MINOR));
+        pw.println(String.format("Open requests: %d of %d",
+              _maxConcurrentOpens - _openPermits.availablePermits(), _maxConcurrentOpens));
     }
 
     /**
@@ -532,11 +572,16 @@ public class XrootdDoor
         return local;
     }
 
-    public XrootdTransfer
-    read(InetSocketAddress client, FsPath path, Set<String> tried,
+    /**
+     * Starts a mover for reading the file at {@code path}. No thread is blocked while waiting
+     * for the name space, pool manager, pool and mover; the returned future completes once the
+     * mover has sent its redirect. If the future fails or is cancelled, the mover is killed.
+     */
+    public ListenableFuture<XrootdTransfer>
+    readAsync(InetSocketAddress client, FsPath path, Set<String> tried,
           String ioQueue, UUID uuid, InetSocketAddress local,
           Subject subject, Restriction restriction, Map<String, String> opaque)
-          throws CacheException, InterruptedException, ParseException, SocketException {
+          throws CacheException, ParseException, SocketException {
         if (!isReadAllowed(path)) {
             throw new PermissionDeniedCacheException("Read permission denied");
         }
@@ -544,41 +589,55 @@ public class XrootdDoor
         XrootdTransfer transfer = createTransfer(client, path, tried, ioQueue,
               uuid, local, subject, restriction, opaque);
         int handle = transfer.getFileHandle();
-
-        InetSocketAddress address = null;
         _transfers.put(handle, transfer);
-        String explanation = "unspecified problem";
-        try {
-            transfer.readNameSpaceEntry(false);
-            transfer.selectPoolAndStartMover(RETRY_POLICY);
-            address = transfer.waitForRedirect(_moverTimeout, _moverTimeoutUnit);
-            if (address == null) {
-                throw new CacheException(transfer.getPool() + " failed to open TCP socket");
+
+        ListenableFuture<Void> started = Futures.transformAsync(
+              transfer.readNameSpaceEntryAsync(false),
+              ignored -> transfer.selectPoolAndStartMoverAsync(RETRY_POLICY),
+              MoreExecutors.directExecutor());
+        ListenableFuture<InetSocketAddress> redirect = Futures.transformAsync(started,
+              ignored -> transfer.redirectAsync(_moverTimeout, _moverTimeoutUnit,
+                    _scheduledExecutor),
+              MoreExecutors.directExecutor());
+        ListenableFuture<XrootdTransfer> future = Futures.transformAsync(redirect,
+              address -> address == null
+                    ? Futures.immediateFailedFuture(
+                          new CacheException(transfer.getPool() + " failed to open TCP socket"))
+                    : Futures.immediateFuture(transfer),
+              MoreExecutors.directExecutor());
+
+        Futures.addCallback(future, new FutureCallback<>() {
+            @Override
+            public void onSuccess(XrootdTransfer result) {
+                transfer.setStatus("Mover " + transfer.getPool() + "/" +
+                      transfer.getMoverId() + ": Sending");
             }
 
-            transfer.setStatus("Mover " + transfer.getPool() + "/" +
-                  transfer.getMoverId() + ": Sending");
-        } catch (CacheException e) {
-            explanation = e.getMessage();
-            transfer.notifyBilling(e.getRc(), e.getMessage());
-            throw e;
-        } catch (InterruptedException e) {
-            explanation = "transfer interrupted";
-            transfer.notifyBilling(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
-                  "Transfer interrupted");
-            throw e;
-        } catch (RuntimeException e) {
-            explanation = "bug found: " + e.toString();
-            transfer.notifyBilling(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
-                  e.toString());
-            throw e;
-        } finally {
-            if (address == null) {
+            @Override
+            public void onFailure(Throwable t) {
+                String explanation;
+                if (t instanceof CacheException) {
+                    CacheException e = (CacheException) t;
+                    explanation = e.getMessage();
+                    transfer.notifyBilling(e.getRc(), e.getMessage());
+                } else if (t instanceof NoRouteToCellException) {
+                    explanation = t.getMessage();
+                    transfer.notifyBilling(CacheException.TIMEOUT, t.getMessage());
+                } else if (t instanceof CancellationException) {
+                    explanation = "transfer interrupted";
+                    transfer.notifyBilling(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                          "Transfer interrupted");
+                } else {
+                    explanation = "bug found: " + t.toString();
+                    transfer.notifyBilling(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                          t.toString());
+                }
                 transfer.killMover(0, "killed by door: " + explanation);
                 _transfers.remove(handle);
             }
-        }
-        return transfer;
+        }, MoreExecutors.directExecutor());
+
+        return future;
     }
 
     private FsPath getUploadPath(Subject subject, Restriction restriction,
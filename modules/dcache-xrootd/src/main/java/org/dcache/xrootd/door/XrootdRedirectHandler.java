@@ -59,6 +59,10 @@ import static org.dcache.xrootd.util.TriedRc.IOERR;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.net.InetAddresses;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileExistsCacheException;
 import diskCacheV111.util.FileIsNewCacheException;
@@ -68,7 +72,9 @@ import diskCacheV111.util.NotFileCacheException;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import diskCacheV111.util.QuotaExceededCacheException;
 import diskCacheV111.util.TimeoutCacheException;
+import dmg.cells.nucleus.CDC;
 import dmg.cells.nucleus.CellPath;
+import dmg.cells.nucleus.NoRouteToCellException;
 import io.netty.channel.ChannelHandlerContext;
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -86,7 +92,10 @@ import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.security.auth.Subject;
@@ -146,6 +155,11 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
 
     private static final String EFFECTIVE_ROOT_NAME = "org.dcache.effectiveRoot";
 
+    /**
+     * Seconds after which a client is asked to retry an open when the door is busy.
+     */
+    private static final int OPEN_RETRY_DELAY = 1;
+
     private static Map<String, String> safelyExtractOpaque(String opaqueString) {
         Map<String, String> opaque;
         try {
@@ -250,6 +264,12 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
      */
     private volatile Thread onOpenThread;
 
+    /**
+     * Asynchronous opens waiting for a redirect. They are cancelled in case an inactive event
+     * occurs on the channel.
+     */
+    private final Set<Future<?>> _pendingOpens = ConcurrentHashMap.newKeySet();
+
     public XrootdRedirectHandler(XrootdDoor door,
 				 FsPath rootPath,
 				 ExecutorService executor,
@@ -301,6 +321,7 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
          * If the doOnOpen call has not yet returned, interrupt its thread.
          */
         interruptOnOpenThread();
+        _pendingOpens.forEach(f -> f.cancel(true));
         ctx.fireChannelInactive();
     }
 
@@ -340,18 +361,19 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
     @Override
     protected XrootdResponse<OpenRequest> doOnOpen(ChannelHandlerContext ctx, OpenRequest req) {
         /*
+         * Reads are processed asynchronously: the calling thread returns as soon as the
+         * name space lookup has been sent and the redirect is sent once the mover is ready.
+         * The reply is still a plain redirect, as the xrootd 3.x client introduces an
+         * artificial 1 second delay when processing an asynchronous reply.
+         *
          * TODO
          *
-         * We ought to process this asynchronously to not block the calling thread during
-         * staging or queuing. We should also switch to an asynchronous reply model if
-         * the request is nearline or is queued on a pool. The naive approach to always
-         * use an asynchronous reply model doesn't work because the xrootd 3.x client
-         * introduces an artificial 1 second delay when processing such a response.
+         * Uploads still block the calling thread while creating the name space entry and
+         * waiting for the mover.
          */
 
         /**
          * Register this thread, so that it can be interrupted.
-         * (If and when the above suggestion is implemented, this will no longer be necessary.)
          */
         setOnOpenThread();
 
@@ -406,10 +428,15 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
             opaque.put("org.dcache.xrootd.client", getTpcClientId(req.getSession()));
             String opaqueString = OpaqueStringParser.buildOpaqueString(opaque);
 
+            if (!_door.tryBeginOpen()) {
+                _log.info("Too many concurrent open requests; asking client to retry {}.",
+                      req.getPath());
+                return new WaitRetryResponse<>(req, OPEN_RETRY_DELAY);
+            }
+
             /*
              * Interact with core dCache to open the requested file.
              */
-            XrootdTransfer transfer;
             if (neededPerm == FilePerm.WRITE) {
                 /**
                  *  boolean createDir = req.isMkPath() has
@@ -421,100 +448,171 @@ public class XrootdRedirectHandler extends ConcurrentXrootdRequestHandler {
                 boolean persistOnSuccessfulClose = (req.getOptions()
                       & XrootdProtocol.kXR_posc) == XrootdProtocol.kXR_posc;
                 // TODO: replace with req.isPersistOnSuccessfulClose() with the latest xrootd4j
-                transfer = _door.write(remoteAddress, path, triedHosts,
-                      ioQueue, uuid, true, overwrite, size,
-                      loginSessionInfo.getMaximumUploadSize(),
-                      localAddress(),
-                      loginSessionInfo.getSubject(),
-                      loginSessionInfo.getRestriction(),
-                      persistOnSuccessfulClose,
-                      effectiveRoot(),
-                      req.getSession().getDelegatedCredential(),
-                      opaque);
-            } else {
-                /*
-                 * If this is a tpc transfer, then dCache is source here.
-                 *
-                 * Since we accept (from the destination server) any
-                 * valid form of authentication, but without requiring
-                 * the associated user to be mapped, we can override
-                 * file permission restrictions (since we possess the
-                 * 'token' rendezvous key, and the client file permissions
-                 * have been checked during its open request).
-                 */
-                Subject subject;
-
-                if (opaque.get("tpc.key") == null) {
-                    subject = loginSessionInfo.getSubject();
-                } else {
-                    subject = Subjects.ROOT;
+                XrootdTransfer transfer;
+                try {
+                    transfer = _door.write(remoteAddress, path, triedHosts,
+                          ioQueue, uuid, true, overwrite, size,
+                          loginSessionInfo.getMaximumUploadSize(),
+                          localAddress(),
+                          loginSessionInfo.getSubject(),
+                          loginSessionInfo.getRestriction(),
+                          persistOnSuccessfulClose,
+                          effectiveRoot(),
+                          req.getSession().getDelegatedCredential(),
+                          opaque);
+                } finally {
+                    _door.endOpen();
                 }
+                return redirect(req, transfer, opaqueString);
+            }
+
+            /*
+             * If this is a tpc transfer, then dCache is source here.
+             *
+             * Since we accept (from the destination server) any
+             * valid form of authentication, but without requiring
+             * the associated user to be mapped, we can override
+             * file permission restrictions (since we possess the
+             * 'token' rendezvous key, and the client file permissions
+             * have been checked during its open request).
+             */
+            Subject subject;
+
+            if (opaque.get("tpc.key") == null) {
+                subject = loginSessionInfo.getSubject();
+            } else {
+                subject = Subjects.ROOT;
+            }
 
-                transfer = _door.read(remoteAddress, path, triedHosts, ioQueue,
+            ListenableFuture<XrootdTransfer> future;
+            try {
+                future = _door.readAsync(remoteAddress, path, triedHosts, ioQueue,
                       uuid, localAddress(), subject,
                       loginSessionInfo.getRestriction(), opaque);
+            } catch (Exception e) {
+                _door.endOpen();
+                throw e;
+            }
+            future.addListener(_door::endOpen, MoreExecutors.directExecutor());
+            _pendingOpens.add(future);
+
+            CDC cdc = new CDC();
+            Futures.addCallback(future, new FutureCallback<>() {
+                @Override
+                public void onSuccess(XrootdTransfer transfer) {
+                    try (CDC ignored = cdc.restore()) {
+                        _pendingOpens.remove(future);
+                        setTpcOriginAsClient(transfer, opaque);
+                        XrootdResponse<OpenRequest> response;
+                        try {
+                            response = redirect(req, transfer, opaqueString);
+                        } catch (IOException e) {
+                            response = withError(ctx, req, kXR_IOError, e.getMessage());
+                        }
+                        respond(ctx, response);
+                    }
+                }
 
-                /*
-                 * Again, if this is a tpc transfer, then dCache is source here.
-                 * The transfer is initiated by the destination server
-                 * (= current session).  However, we wish the doorinfo
-                 * client in billing to reflect the original user connection,
-                 * so we overwrite the transfer client address, which
-                 * is unused by the mover.
-                 */
-                String client = opaque.get("tpc.org");
-                if (client != null) {
-                    int index = client.indexOf("@");
-                    if (index != -1 && index < client.length() - 1) {
-                        client = client.substring(index + 1);
-                        transfer.setClientAddress(new InetSocketAddress(client,
-                              0));
+                @Override
+                public void onFailure(Throwable t) {
+                    try (CDC ignored = cdc.restore()) {
+                        _pendingOpens.remove(future);
+                        /* Cancelled when the client disconnected. */
+                        if (!(t instanceof CancellationException)) {
+                            respond(ctx, openFailed(ctx, req, t));
+                        }
                     }
                 }
+            }, MoreExecutors.directExecutor());
+            return null;
+        } catch (ParseException e) {
+            return openFailed(ctx, req, e);
+        } catch (CacheException | InterruptedException | XrootdException | IOException e) {
+            return openFailed(ctx, req, e);
+        } finally {
+            unsetOnOpenThread();
+        }
+    }
+
+    /**
+     * Again, if this is a tpc transfer, then dCache is source here.
+     * The transfer is initiated by the destination server
+     * (= current session).  However, we wish the doorinfo
+     * client in billing to reflect the original user connection,
+     * so we overwrite the transfer client address, which
+     * is unused by the mover.
+     */
+    private static void setTpcOriginAsClient(XrootdTransfer transfer,
+          Map<String, String> opaque) {
+        String client = opaque.get("tpc.org");
+        if (client != null) {
+            int index = client.indexOf("@");
+            if (index != -1 && index < client.length() - 1) {
+                client = client.substring(index + 1);
+                transfer.setClientAddress(new InetSocketAddress(client,
+                      0));
             }
+        }
+    }
 
-            /*
-             * ok, open was successful
-             */
-            InetSocketAddress address = getRedirect(transfer);
+    /**
+     * ok, open was successful
+     */
+    private XrootdResponse<OpenRequest> redirect(OpenRequest req, XrootdTransfer transfer,
+          String opaqueString) throws IOException {
+        InetSocketAddress address = getRedirect(transfer);
 
-            String token = LoginTokens.encodeToken(localAddress());
+        String token = LoginTokens.encodeToken(localAddress());
 
-            return new RedirectResponse<>(req, address.getHostName(), address.getPort(),
-                  opaqueString, token);
-        } catch (ParseException e) {
+        return new RedirectResponse<>(req, address.getHostName(), address.getPort(),
+              opaqueString, token);
+    }
+
+    private XrootdResponse<OpenRequest> openFailed(ChannelHandlerContext ctx, OpenRequest req,
+          Throwable t) {
+        if (t instanceof NoRouteToCellException) {
+            t = new TimeoutCacheException(t.getMessage(), t);
+        }
+        if (t instanceof ParseException) {
             return withError(ctx, req, kXR_ArgInvalid, "Path arguments do not parse");
-        } catch (FileNotFoundCacheException e) {
-            return withError(ctx, req, xrootdErrorCode(e.getRc()), "No such file");
-        } catch (FileExistsCacheException e) {
+        } else if (t instanceof FileNotFoundCacheException) {
+            return withError(ctx, req, xrootdErrorCode(((CacheException) t).getRc()),
+                  "No such file");
+        } else if (t instanceof FileExistsCacheException) {
             return withError(ctx, req, kXR_ItExists, "File already exists");
-        } catch (QuotaExceededCacheException e) {
+        } else if (t instanceof QuotaExceededCacheException) {
             return withError(ctx, req, kXR_overQuota, "Quota exceeded");
-        } catch (TimeoutCacheException e) {
-            return withError(ctx, req, xrootdErrorCode(e.getRc()), "Internal timeout");
-        } catch (PermissionDeniedCacheException e) {
-            return withError(ctx, req, xrootdErrorCode(e.getRc()), e.getMessage());
-        } catch (FileIsNewCacheException e) {
-            return withError(ctx, req, xrootdErrorCode(e.getRc()), "File is locked by upload");
-        } catch (NotFileCacheException e) {
-            return withError(ctx, req, xrootdErrorCode(e.getRc()), "Not a file");
-        } catch (CacheException e) {
+        } else if (t instanceof TimeoutCacheException) {
+            return withError(ctx, req, xrootdErrorCode(((CacheException) t).getRc()),
+                  "Internal timeout");
+        } else if (t instanceof PermissionDeniedCacheException) {
+            return withError(ctx, req, xrootdErrorCode(((CacheException) t).getRc()),
+                  t.getMessage());
+        } else if (t instanceof FileIsNewCacheException) {
+            return withError(ctx, req, xrootdErrorCode(((CacheException) t).getRc()),
+                  "File is locked by upload");
+        } else if (t instanceof NotFileCacheException) {
+            return withError(ctx, req, xrootdErrorCode(((CacheException) t).getRc()),
+                  "Not a file");
+        } else if (t instanceof CacheException) {
+            CacheException e = (CacheException) t;
             return withError(ctx, req, xrootdErrorCode(e.getRc()),
                   String.format("Failed to open file (%s [%d])",
                         e.getMessage(), e.getRc()));
-        } catch (InterruptedException e) {
+        } else if (t instanceof InterruptedException) {
             /* Interrupt may be caused by cell shutdown or client
              * disconnect.  If the client disconnected, then the error
              * message will never reach the client, so saying that the
              * server shut down is okay.
              */
             return withError(ctx, req, kXR_ServerError, "Server shutdown");
-        } catch (XrootdException e) {
-            return withError(ctx, req, e.getError(), e.getMessage());
-        } catch (IOException e) {
-            return withError(ctx, req, kXR_IOError, e.getMessage());
-        } finally {
-            unsetOnOpenThread();
+        } else if (t instanceof XrootdException) {
+            return withError(ctx, req, ((XrootdException) t).getError(), t.getMessage());
+        } else if (t instanceof IOException) {
+            return withError(ctx, req, kXR_IOError, t.getMessage());
+        } else {
+            _log.error("Failed to open {}: {}", req.getPath(), t.toString(), t);
+            return withError(ctx, req, kXR_ServerError, t.toString());
         }
     }
 
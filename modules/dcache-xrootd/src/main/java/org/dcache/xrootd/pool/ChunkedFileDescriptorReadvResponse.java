@@ -7,20 +7,113 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.util.ReferenceCountUtil;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import org.dcache.xrootd.core.XrootdException;
+import org.dcache.xrootd.protocol.messages.GenericReadRequestMessage.EmbeddedReadRequest;
 import org.dcache.xrootd.protocol.messages.ReadVRequest;
 import org.dcache.xrootd.stream.AbstractChunkedReadvResponse;
 
+/**
+ * Vector read response reading the requested segments from file descriptors.
+ * <p>
+ * If a buffer pool is provided, segments of the same file that are adjacent or separated by
+ * small gaps are read from disk with a single read into a pooled buffer, from which the
+ * individual segments are then copied. The segments of a vector read are typically small and
+ * close to each other, so this replaces many small random reads by a few larger ones.
+ * <p>
+ * Segments bypass the read-ahead of the file descriptors, as they are already read in as few
+ * disk reads as possible and read-ahead would only copy them once more.
+ */
 public class ChunkedFileDescriptorReadvResponse extends AbstractChunkedReadvResponse {
 
+    /**
+     * A contiguous region of a file covering several requested segments.
+     */
+    private static class Range {
+
+        private final long start;
+        private long end;
+        private int segments;
+
+        private Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.segments = 1;
+        }
+    }
+
     private final List<FileDescriptor> descriptors;
+    private final ReadBufferPool buffers;
+
+    /**
+     * Merged ranges by file descriptor, indexed by their start offset.
+     */
+    private final Map<Integer, TreeMap<Long, Range>> ranges = new HashMap<>();
+
+    /**
+     * The range currently held in {@code buffer}.
+     */
+    private Range current;
+    private ByteBuffer buffer;
 
     public ChunkedFileDescriptorReadvResponse(ReadVRequest request,
           int maxFrameSize,
           List<FileDescriptor> descriptors) {
+        this(request, maxFrameSize, descriptors, null);
+    }
+
+    public ChunkedFileDescriptorReadvResponse(ReadVRequest request,
+          int maxFrameSize,
+          List<FileDescriptor> descriptors,
+          ReadBufferPool buffers) {
         super(request, maxFrameSize);
         this.descriptors = descriptors;
+        this.buffers = buffers;
+        if (buffers != null && buffers.isCoalescingEnabled()) {
+            coalesce(request.getReadRequestList());
+        }
+    }
+
+    /**
+     * Merges the requested segments into ranges of at most the buffer size. Ranges covering
+     * only a single segment are dropped, as these are read directly into the response.
+     */
+    private void coalesce(EmbeddedReadRequest[] list) {
+        EmbeddedReadRequest[] sorted = list.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(EmbeddedReadRequest::getFileHandle)
+              .thenComparingLong(EmbeddedReadRequest::getOffset));
+
+        int reads = 0;
+        Range range = null;
+        int rangeFd = -1;
+        for (EmbeddedReadRequest segment : sorted) {
+            int fd = segment.getFileHandle();
+            long start = segment.getOffset();
+            long end = start + segment.BytesToRead();
+            if (range != null && fd == rangeFd && start <= range.end + buffers.getMaxGap()
+                  && Math.max(end, range.end) - range.start <= buffers.getBufferSize()) {
+                range.end = Math.max(end, range.end);
+                range.segments++;
+            } else {
+                addRange(rangeFd, range);
+                range = new Range(start, end);
+                rangeFd = fd;
+                reads++;
+            }
+        }
+        addRange(rangeFd, range);
+        buffers.recordVectorRead(list.length, reads);
+    }
+
+    private void addRange(int fd, Range range) {
+        if (range != null && range.segments > 1) {
+            ranges.computeIfAbsent(fd, k -> new TreeMap<>()).put(range.start, range);
+        }
     }
 
     @Override
@@ -40,10 +133,15 @@ public class ChunkedFileDescriptorReadvResponse extends AbstractChunkedReadvResp
 
         FileDescriptor descriptor = descriptors.get(fd);
 
+        Range range = findRange(fd, position, length);
+        if (range != null) {
+            return readFromRange(alloc, descriptor, range, position, length);
+        }
+
         ByteBuf chunk = alloc.ioBuffer(length);
         try {
             ByteBuffer buffer = chunk.nioBuffer(0, length);
-            descriptor.read(buffer, position);
+            descriptor.readDirect(buffer, position);
             chunk.writerIndex(buffer.position());
             return chunk;
         } catch (RuntimeException | IOException e) {
@@ -51,4 +149,50 @@ public class ChunkedFileDescriptorReadvResponse extends AbstractChunkedReadvResp
             throw e;
         }
     }
+
+    private Range findRange(int fd, long position, int length) {
+        TreeMap<Long, Range> map = ranges.get(fd);
+        if (map == null) {
+            return null;
+        }
+        Map.Entry<Long, Range> entry = map.floorEntry(position);
+        if (entry == null || position + length > entry.getValue().end) {
+            return null;
+        }
+        return entry.getValue();
+    }
+
+    private ByteBuf readFromRange(ByteBufAllocator alloc, FileDescriptor descriptor,
+          Range range, long position, int length) throws IOException {
+        if (current != range) {
+            releaseBuffer();
+            ByteBuffer data = buffers.allocate();
+            data.limit((int) (range.end - range.start));
+            descriptor.readDirect(data, range.start);
+            data.flip();
+            buffer = data;
+            current = range;
+        }
+
+        /* The range may be shorter than requested if it extends beyond the end of the file. */
+        int offset = (int) (position - range.start);
+        int available = Math.max(0, Math.min(length, buffer.limit() - offset));
+        ByteBuf chunk = alloc.ioBuffer(length);
+        if (available > 0) {
+            chunk.writeBytes(buffer.duplicate().position(offset).limit(offset + available));
+        }
+
+        if (--range.segments == 0) {
+            releaseBuffer();
+        }
+        return chunk;
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            buffers.release(buffer);
+            buffer = null;
+            current = null;
+        }
+    }
 }
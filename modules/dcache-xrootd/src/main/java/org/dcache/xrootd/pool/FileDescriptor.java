@@ -25,6 +25,17 @@ public interface FileDescriptor {
      */
     void read(ByteBuffer buffer, long position) throws IOException;
 
+    /**
+     * Reads data from the file like {@link #read}, but bypasses any read-ahead.  Used by vector
+     * reads, whose segments would otherwise be copied through the read-ahead buffer.
+     *
+     * @throws ClosedChannelException if the descriptor is closed.
+     * @throws IOException            if the operation failed.
+     */
+    default void readDirect(ByteBuffer buffer, long position) throws IOException {
+        read(buffer, position);
+    }
+
     /**
      * Forces unwritten data to disk.
      *
@@ -0,0 +1,142 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.xrootd.pool;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of direct buffers used to read larger blocks than requested by the client.
+ * <p>
+ * Buffers are used for two purposes: to serve several nearby segments of a vector read with a
+ * single read from disk, and to read ahead of sequential reads of a file. Read-ahead buffers are
+ * held as long as the file is open and are limited by a memory budget; once the budget is
+ * exhausted, files are read without read-ahead. Buffers for vector reads are only held while a
+ * response is generated and are not accounted against the budget. A buffer that is not returned,
+ * e.g. because a response was abandoned, is simply garbage collected.
+ * <p>
+ * The pool also collects statistics on the effect of both optimizations.
+ */
+public class ReadBufferPool {
+
+    private final int _bufferSize;
+    private final int _maxReadAheadBuffers;
+    private final int _maxGap;
+    private final boolean _isReadAheadEnabled;
+    private final BlockingQueue<ByteBuffer> _free;
+    private final AtomicInteger _readAheadBuffers = new AtomicInteger();
+
+    private final LongAdder _requestedSegments = new LongAdder();
+    private final LongAdder _segmentReads = new LongAdder();
+    private final LongAdder _readAheadHits = new LongAdder();
+    private final LongAdder _readAheadMisses = new LongAdder();
+
+    /**
+     * @param bufferSize         size of the buffers, and thus of the largest read from disk
+     * @param maxGap             maximum number of bytes between two segments of a vector read
+     *                           that are read together, or -1 to not merge segments
+     * @param isReadAheadEnabled whether to read ahead of sequential reads
+     * @param readAheadMemory    maximum number of bytes used for read-ahead buffers
+     */
+    public ReadBufferPool(int bufferSize, int maxGap, boolean isReadAheadEnabled,
+          long readAheadMemory) {
+        checkArgument(bufferSize > 0, "Buffer size must be positive");
+        _bufferSize = bufferSize;
+        _maxGap = maxGap;
+        _isReadAheadEnabled = isReadAheadEnabled;
+        _maxReadAheadBuffers = (int) Math.min(Integer.MAX_VALUE, readAheadMemory / bufferSize);
+        _free = new ArrayBlockingQueue<>(Math.max(1, _maxReadAheadBuffers));
+    }
+
+    public int getBufferSize() {
+        return _bufferSize;
+    }
+
+    public boolean isCoalescingEnabled() {
+        return _maxGap >= 0;
+    }
+
+    public int getMaxGap() {
+        return _maxGap;
+    }
+
+    /**
+     * Returns a cleared buffer for serving a vector read.
+     */
+    ByteBuffer allocate() {
+        ByteBuffer buffer = _free.poll();
+        return buffer == null ? ByteBuffer.allocateDirect(_bufferSize) : buffer.clear();
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #allocate} to the pool.
+     */
+    void release(ByteBuffer buffer) {
+        _free.offer(buffer);
+    }
+
+    /**
+     * Returns a cleared buffer for reading ahead, or null if read-ahead is disabled or the memory
+     * budget is exhausted.
+     */
+    ByteBuffer allocateReadAhead() {
+        if (!_isReadAheadEnabled) {
+            return null;
+        }
+        if (_readAheadBuffers.incrementAndGet() > _maxReadAheadBuffers) {
+            _readAheadBuffers.decrementAndGet();
+            return null;
+        }
+        return allocate();
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #allocateReadAhead} to the pool.
+     */
+    void releaseReadAhead(ByteBuffer buffer) {
+        _readAheadBuffers.decrementAndGet();
+        release(buffer);
+    }
+
+    void recordVectorRead(int segments, int reads) {
+        _requestedSegments.add(segments);
+        _segmentReads.add(reads);
+    }
+
+    void recordReadAhead(boolean isHit) {
+        (isHit ? _readAheadHits : _readAheadMisses).increment();
+    }
+
+    public void getInfo(PrintWriter pw) {
+        long segments = _requestedSegments.sum();
+        long reads = _segmentReads.sum();
+        pw.printf("   Vector read segments: %d requested, %d disk reads (%.1f segments per read)\n",
+              segments, reads, reads == 0 ? 0.0 : (double) segments / reads);
+        if (_isReadAheadEnabled) {
+            pw.printf("   Read-ahead: %d hits, %d misses, %d of %d buffers in use\n",
+                  _readAheadHits.sum(), _readAheadMisses.sum(), _readAheadBuffers.get(),
+                  _maxReadAheadBuffers);
+        }
+    }
+}
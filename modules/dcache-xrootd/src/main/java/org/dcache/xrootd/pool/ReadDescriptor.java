@@ -19,12 +19,49 @@ public class ReadDescriptor implements FileDescriptor {
      */
     protected NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel _channel;
 
+    /**
+     * Source of read-ahead buffers, or null if reads are not read ahead.
+     */
+    private final ReadBufferPool _buffers;
+
+    /**
+     * Data read ahead, starting at {@code _readAheadPosition} in the file.
+     */
+    private ByteBuffer _readAhead;
+    private long _readAheadPosition;
+
+    /**
+     * Position following the last read; a read at this position is sequential.
+     */
+    private long _nextPosition;
+
+    private boolean _isClosed;
+
     public ReadDescriptor(NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel) {
+        this(channel, null);
+    }
+
+    public ReadDescriptor(NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel,
+          ReadBufferPool buffers) {
         _channel = channel;
+        _buffers = buffers;
     }
 
     @Override
     public void read(ByteBuffer buffer, long position) throws IOException {
+        if (_buffers != null && buffer.remaining() < _buffers.getBufferSize()
+              && readAhead(buffer, position)) {
+            return;
+        }
+        readFully(buffer, position);
+    }
+
+    @Override
+    public void readDirect(ByteBuffer buffer, long position) throws IOException {
+        readFully(buffer, position);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
         while (buffer.hasRemaining()) {
             /* use position independent thread safe call */
             int bytes = _channel.read(buffer, position);
@@ -35,6 +72,57 @@ public class ReadDescriptor implements FileDescriptor {
         }
     }
 
+    /**
+     * Serves the read from the read-ahead buffer. The buffer is refilled, starting at the
+     * requested position, if the read is sequential and not covered by the buffer.
+     *
+     * @return false if the read was not served, in which case the caller has to read the data
+     */
+    private synchronized boolean readAhead(ByteBuffer buffer, long position) throws IOException {
+        if (_isClosed) {
+            return false;
+        }
+        long end = position + buffer.remaining();
+        boolean isSequential = position == _nextPosition;
+        _nextPosition = end;
+
+        if (_readAhead != null && position >= _readAheadPosition
+              && end <= _readAheadPosition + _readAhead.limit()) {
+            _buffers.recordReadAhead(true);
+        } else if (isSequential) {
+            if (_readAhead == null) {
+                _readAhead = _buffers.allocateReadAhead();
+                if (_readAhead == null) {
+                    return false;
+                }
+            }
+            _buffers.recordReadAhead(false);
+            _readAhead.clear();
+            readFully(_readAhead, position);
+            _readAhead.flip();
+            _readAheadPosition = position;
+        } else {
+            return false;
+        }
+
+        /* Near the end of the file less data than requested may be available. */
+        int offset = (int) (position - _readAheadPosition);
+        int length = Math.min(buffer.remaining(), _readAhead.limit() - offset);
+        if (length > 0) {
+            buffer.put(_readAhead.duplicate().position(offset).limit(offset + length));
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        _isClosed = true;
+        if (_readAhead != null) {
+            _buffers.releaseReadAhead(_readAhead);
+            _readAhead = null;
+        }
+    }
+
     @Override
     public XrootdResponse<SyncRequest> sync(SyncRequest msg) throws IOException,
           InterruptedException {
@@ -42,6 +42,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileCorruptedCacheException;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import java.io.IOException;
@@ -165,6 +166,16 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
      */
     private final Map<String, String> _queryConfig;
 
+    /**
+     * Whether plain reads are sent with sendfile instead of being copied through the pipeline.
+     */
+    private boolean _isZeroCopyEnabled;
+
+    /**
+     * Buffers for vector reads and read-ahead, or null if neither is used.
+     */
+    private ReadBufferPool _readBuffers;
+
     /**
      * The switch from synchronized collection to read-write lock is to facilitate removing write
      * descriptors on inactive channel events. This is to avoid allowing a subsequent write call to
@@ -182,6 +193,14 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
         _queryConfig = queryConfig;
     }
 
+    public void setZeroCopyEnabled(boolean isZeroCopyEnabled) {
+        _isZeroCopyEnabled = isZeroCopyEnabled;
+    }
+
+    public void setReadBufferPool(ReadBufferPool readBuffers) {
+        _readBuffers = readBuffers;
+    }
+
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
         if (evt instanceof IdleStateEvent) {
@@ -446,7 +465,7 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
                         descriptor = new WriteDescriptor(file, posc);
                     }
                 } else {
-                    descriptor = new ReadDescriptor(file);
+                    descriptor = new ReadDescriptor(file, _readBuffers);
                 }
 
                 FileStatus stat = msg.isRetStat() ? stat(file) : null;
@@ -615,9 +634,36 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
 
         if (msg.bytesToRead() == 0) {
             return withOk(msg);
-        } else {
-            return new ChunkedFileDescriptorReadResponse(msg, _maxFrameSize, getDescriptor(fd));
         }
+
+        FileDescriptor descriptor = getDescriptor(fd);
+        if (canZeroCopy(ctx, msg, descriptor)) {
+            try {
+                long offset = msg.getReadOffset();
+                long available = Math.max(0, descriptor.getChannel().size() - offset);
+                int length = (int) Math.min(msg.bytesToRead(), available);
+                return new ZeroCopyReadResponse(msg.getStreamId(), descriptor.getChannel(),
+                      offset, length);
+            } catch (IOException e) {
+                throw new XrootdException(kXR_IOError, e.getMessage());
+            }
+        }
+        return new ChunkedFileDescriptorReadResponse(msg, _maxFrameSize, descriptor);
+    }
+
+    /**
+     * Data can only be sent directly from the file to the socket if the read is served by a
+     * single frame and the connection is not encrypted, as otherwise the data has to pass through
+     * the pipeline.  Files open for writing are excluded, as {@link WriteDescriptor} extends
+     * {@link ReadDescriptor} but the file may still change while the data is sent.
+     */
+    private boolean canZeroCopy(ChannelHandlerContext ctx, ReadRequest msg,
+          FileDescriptor descriptor) {
+        return _isZeroCopyEnabled
+              && descriptor instanceof ReadDescriptor
+              && !(descriptor instanceof WriteDescriptor)
+              && msg.bytesToRead() <= _maxFrameSize
+              && ctx.pipeline().get(SslHandler.class) == null;
     }
 
     /**
@@ -656,7 +702,8 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
             }
         }
 
-        return new ChunkedFileDescriptorReadvResponse(msg, _maxFrameSize, copyDescriptors());
+        return new ChunkedFileDescriptorReadvResponse(msg, _maxFrameSize, copyDescriptors(),
+              _readBuffers);
     }
 
     /**
@@ -42,6 +42,7 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.handler.logging.LoggingHandler;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.util.EnumSet;
@@ -146,6 +147,13 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
     }
 
     private int maxFrameSize;
+    private boolean isZeroCopyEnabled;
+    private boolean isReadvCoalescingEnabled;
+    private int readvMaxGap;
+    private int readBufferSize;
+    private boolean isReadAheadEnabled;
+    private long readAheadMaxMemory;
+    private ReadBufferPool readBufferPool;
     private int maxWriteBufferSize;
     private List<ChannelHandlerFactory> plugins;
     private List<ChannelHandlerFactory> accessLogPlugins;
@@ -193,6 +201,17 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
               .build();
         thirdPartyClientGroup = new NioEventLoopGroup(0, new CDCThreadFactory(factory));
         reconnectTimers = new HashMap<>();
+        readBufferPool = new ReadBufferPool(readBufferSize,
+              isReadvCoalescingEnabled ? readvMaxGap : -1, isReadAheadEnabled,
+              readAheadMaxMemory);
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        super.getInfo(pw);
+        if (readBufferPool != null) {
+            readBufferPool.getInfo(pw);
+        }
     }
 
     @Required
@@ -320,6 +339,36 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
         return maxFrameSize;
     }
 
+    @Required
+    public void setZeroCopyEnabled(boolean isZeroCopyEnabled) {
+        this.isZeroCopyEnabled = isZeroCopyEnabled;
+    }
+
+    @Required
+    public void setReadvCoalescingEnabled(boolean isReadvCoalescingEnabled) {
+        this.isReadvCoalescingEnabled = isReadvCoalescingEnabled;
+    }
+
+    @Required
+    public void setReadvMaxGap(int readvMaxGap) {
+        this.readvMaxGap = readvMaxGap;
+    }
+
+    @Required
+    public void setReadBufferSize(int readBufferSize) {
+        this.readBufferSize = readBufferSize;
+    }
+
+    @Required
+    public void setReadAheadEnabled(boolean isReadAheadEnabled) {
+        this.isReadAheadEnabled = isReadAheadEnabled;
+    }
+
+    @Required
+    public void setReadAheadMaxMemory(long readAheadMaxMemory) {
+        this.readAheadMaxMemory = readAheadMaxMemory;
+    }
+
     @Required
     public void setMaxWriteBufferSize(int maxWriteBufferSize) {
         this.maxWriteBufferSize = maxWriteBufferSize;
@@ -454,6 +503,8 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
               queryConfig);
         handler.setSigningPolicy(signingPolicy);
         handler.setTlsSessionInfo(tlsSessionInfo);
+        handler.setZeroCopyEnabled(isZeroCopyEnabled);
+        handler.setReadBufferPool(readBufferPool);
         pipeline.addLast("transfer", handler);
     }
 
@@ -0,0 +1,146 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.xrootd.pool;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ok;
+
+import io.netty.channel.FileRegion;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+
+/**
+ * Response to a kXR_read request that is written to the socket without copying the data through
+ * user space.
+ * <p>
+ * The response consists of the eight byte xrootd response header followed by the requested range
+ * of the file. Both are written by a single {@link FileRegion} so that the header and the data
+ * cannot be separated by other responses on the same connection. The data is transferred with
+ * {@link java.nio.channels.FileChannel#transferTo} through the mover channel, so the mover still
+ * accounts for the transferred bytes.
+ * <p>
+ * As the data never passes through the pipeline, this response must not be used when the
+ * connection is encrypted.
+ */
+public class ZeroCopyReadResponse extends AbstractReferenceCounted implements FileRegion {
+
+    private static final int HEADER_LENGTH = 8;
+
+    private final NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel file;
+    private final ByteBuffer header;
+    private final long offset;
+    private final int length;
+
+    private long transferred;
+
+    /**
+     * @param streamId the stream id of the request
+     * @param file     the mover channel of the file to read
+     * @param offset   the position within the file of the first byte to send
+     * @param length   the number of bytes to send; must not extend beyond the end of the file
+     */
+    public ZeroCopyReadResponse(int streamId,
+          NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel file, long offset,
+          int length) {
+        checkArgument(offset >= 0L, "Offset can't be negative.");
+        checkArgument(length >= 0, "Length can't be negative.");
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.header = ByteBuffer.allocate(HEADER_LENGTH)
+              .putShort((short) streamId)
+              .putShort((short) kXR_ok)
+              .putInt(length)
+              .flip();
+    }
+
+    @Override
+    public long position() {
+        return 0;
+    }
+
+    @Override
+    public long transfered() {
+        return transferred();
+    }
+
+    @Override
+    public long transferred() {
+        return transferred;
+    }
+
+    @Override
+    public long count() {
+        return HEADER_LENGTH + length;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long position) throws IOException {
+        checkArgument(position >= 0L && position <= count(),
+              "The position must be within region [0 - " + count() + "]");
+        if (refCnt() == 0) {
+            throw new IllegalReferenceCountException(0);
+        }
+
+        long written;
+        if (position < HEADER_LENGTH) {
+            written = target.write(header.duplicate().position((int) position));
+        } else if (position < count()) {
+            written = file.transferTo(offset + position - HEADER_LENGTH,
+                  count() - position, target);
+        } else {
+            written = 0;
+        }
+        if (written > 0) {
+            transferred += written;
+        }
+        return written;
+    }
+
+    @Override
+    public FileRegion retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public FileRegion retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public FileRegion touch() {
+        return this;
+    }
+
+    @Override
+    public FileRegion touch(Object o) {
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        // the mover closes the file channel
+    }
+}
@@ -0,0 +1,214 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.xrootd.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dcache.xrootd.protocol.messages.GenericReadRequestMessage.EmbeddedReadRequest;
+import org.dcache.xrootd.protocol.messages.ReadVRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedFileDescriptorReadvResponseTest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_GAP = 4096;
+
+    private final ByteBufAllocator alloc = UnpooledByteBufAllocator.DEFAULT;
+
+    private byte[] data;
+    private FileDescriptor file;
+    private FileDescriptor otherFile;
+
+    /**
+     * Disk reads of each file as "position+length".
+     */
+    private List<String> fileReads;
+    private List<String> otherFileReads;
+
+    @Before
+    public void setUp() throws Exception {
+        data = new byte[1024 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        fileReads = new ArrayList<>();
+        otherFileReads = new ArrayList<>();
+        file = givenFileDescriptor(fileReads);
+        otherFile = givenFileDescriptor(otherFileReads);
+    }
+
+    @Test
+    public void shouldReadNearbySegmentsWithSingleRead() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 0, 100), segment(0, 200, 100), segment(0, 1000, 100));
+
+        assertSegment(response.read(alloc, 0, 0, 100), 0, 100);
+        assertSegment(response.read(alloc, 0, 200, 100), 200, 100);
+        assertSegment(response.read(alloc, 0, 1000, 100), 1000, 100);
+
+        assertThat(fileReads, contains("0+1100"));
+    }
+
+    @Test
+    public void shouldMergeSegmentsRegardlessOfRequestOrder() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 1000, 100), segment(0, 0, 100));
+
+        assertSegment(response.read(alloc, 0, 1000, 100), 1000, 100);
+        assertSegment(response.read(alloc, 0, 0, 100), 0, 100);
+
+        assertThat(fileReads, contains("0+1100"));
+    }
+
+    @Test
+    public void shouldNotMergeSegmentsSeparatedByLargeGap() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 0, 100), segment(0, 100 + MAX_GAP + 1, 100));
+
+        assertSegment(response.read(alloc, 0, 0, 100), 0, 100);
+        assertSegment(response.read(alloc, 0, 100 + MAX_GAP + 1, 100), 100 + MAX_GAP + 1, 100);
+
+        assertThat(fileReads, contains("0+100", (100 + MAX_GAP + 1) + "+100"));
+    }
+
+    @Test
+    public void shouldNotMergeBeyondBufferSize() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 0, 1000), segment(0, 1000, BUFFER_SIZE - 1000),
+              segment(0, BUFFER_SIZE, 1000), segment(0, BUFFER_SIZE + 1000, 1000));
+
+        assertSegment(response.read(alloc, 0, 0, 1000), 0, 1000);
+        assertSegment(response.read(alloc, 0, 1000, BUFFER_SIZE - 1000), 1000,
+              BUFFER_SIZE - 1000);
+        assertSegment(response.read(alloc, 0, BUFFER_SIZE, 1000), BUFFER_SIZE, 1000);
+        assertSegment(response.read(alloc, 0, BUFFER_SIZE + 1000, 1000), BUFFER_SIZE + 1000,
+              1000);
+
+        assertThat(fileReads, contains("0+" + BUFFER_SIZE, BUFFER_SIZE + "+2000"));
+    }
+
+    @Test
+    public void shouldNotMergeSegmentsOfDifferentFiles() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 0, 100), segment(1, 100, 100));
+
+        assertSegment(response.read(alloc, 0, 0, 100), 0, 100);
+        assertSegment(response.read(alloc, 1, 100, 100), 100, 100);
+
+        assertThat(fileReads, contains("0+100"));
+        assertThat(otherFileReads, contains("100+100"));
+    }
+
+    @Test
+    public void shouldReadSegmentsIndividuallyWhenCoalescingIsDisabled() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, -1, false, 0);
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, 0, 100), segment(0, 100, 100));
+
+        assertSegment(response.read(alloc, 0, 0, 100), 0, 100);
+        assertSegment(response.read(alloc, 0, 100, 100), 100, 100);
+
+        assertThat(fileReads, contains("0+100", "100+100"));
+    }
+
+    @Test
+    public void shouldReturnShortSegmentAtEndOfFile() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        int size = data.length;
+        ChunkedFileDescriptorReadvResponse response = givenResponse(pool,
+              segment(0, size - 300, 100), segment(0, size - 100, 200));
+
+        assertSegment(response.read(alloc, 0, size - 300, 100), size - 300, 100);
+        assertSegment(response.read(alloc, 0, size - 100, 200), size - 100, 100);
+    }
+
+    @Test
+    public void shouldRecordSegmentsPerRead() throws Exception {
+        ReadBufferPool pool = new ReadBufferPool(BUFFER_SIZE, MAX_GAP, false, 0);
+        givenResponse(pool, segment(0, 0, 100), segment(0, 200, 100),
+              segment(0, 1000, 100), segment(0, 500_000, 100));
+
+        StringWriter info = new StringWriter();
+        pool.getInfo(new PrintWriter(info));
+
+        assertThat(info.toString(), containsString("4 requested, 2 disk reads"));
+    }
+
+    private FileDescriptor givenFileDescriptor(List<String> reads) throws Exception {
+        FileDescriptor descriptor = mock(FileDescriptor.class);
+        doAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            long position = invocation.getArgument(1);
+            reads.add(position + "+" + buffer.remaining());
+            int length = (int) Math.max(0, Math.min(buffer.remaining(), data.length - position));
+            buffer.put(data, (int) position, length);
+            return null;
+        }).when(descriptor).readDirect(any(), anyLong());
+        return descriptor;
+    }
+
+    private ChunkedFileDescriptorReadvResponse givenResponse(ReadBufferPool pool,
+          EmbeddedReadRequest... segments) {
+        ReadVRequest request = mock(ReadVRequest.class);
+        when(request.getReadRequestList()).thenReturn(segments);
+        List<FileDescriptor> descriptors = Arrays.asList(file, otherFile);
+        return new ChunkedFileDescriptorReadvResponse(request, 1024 * 1024, descriptors, pool);
+    }
+
+    private static EmbeddedReadRequest segment(int fd, long offset, int length) {
+        EmbeddedReadRequest segment = mock(EmbeddedReadRequest.class);
+        when(segment.getFileHandle()).thenReturn(fd);
+        when(segment.getOffset()).thenReturn(offset);
+        when(segment.BytesToRead()).thenReturn(length);
+        return segment;
+    }
+
+    private void assertSegment(ByteBuf chunk, int offset, int length) {
+        try {
+            byte[] bytes = new byte[chunk.readableBytes()];
+            chunk.readBytes(bytes);
+            assertThat(bytes, is(equalTo(Arrays.copyOfRange(data, offset, offset + length))));
+        } finally {
+            chunk.release();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.xrootd.pool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReadDescriptorTest {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private byte[] data;
+
+    /**
+     * Reads from the mover channel as "position+length".
+     */
+    private List<String> reads;
+
+    private NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel;
+    private ReadBufferPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[10 * BUFFER_SIZE + 500];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        reads = new ArrayList<>();
+        channel = mock(NettyTransferService.NettyMoverChannel.class);
+        when(channel.read(any(), anyLong())).thenAnswer(invocation -> {
+            ByteBuffer buffer = invocation.getArgument(0);
+            long position = invocation.getArgument(1);
+            reads.add(position + "+" + buffer.remaining());
+            if (position >= data.length) {
+                return -1;
+            }
+            int length = (int) Math.min(buffer.remaining(), data.length - position);
+            buffer.put(data, (int) position, length);
+            return length;
+        });
+        pool = new ReadBufferPool(BUFFER_SIZE, -1, true, 2 * BUFFER_SIZE);
+    }
+
+    @Test
+    public void shouldServeSequentialReadsFromReadAhead() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+
+        for (int position = 0; position < 2000; position += 100) {
+            assertRead(descriptor, position, 100);
+        }
+
+        assertThat(reads, contains("0+1024", "1000+1024"));
+    }
+
+    @Test
+    public void shouldReadRandomReadsDirectly() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+
+        assertRead(descriptor, 5000, 100);
+        assertRead(descriptor, 3000, 100);
+
+        assertThat(reads, contains("5000+100", "3000+100"));
+    }
+
+    @Test
+    public void shouldServeRereadsWithinReadAheadBuffer() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+
+        assertRead(descriptor, 0, 100);
+        assertRead(descriptor, 500, 100);
+        assertRead(descriptor, 200, 100);
+
+        assertThat(reads, contains("0+1024"));
+    }
+
+    @Test
+    public void shouldReadLargeReadsDirectly() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+
+        assertRead(descriptor, 0, BUFFER_SIZE);
+        assertRead(descriptor, BUFFER_SIZE, BUFFER_SIZE);
+
+        assertThat(reads, contains("0+1024", "1024+1024"));
+    }
+
+    @Test
+    public void shouldReturnShortReadAtEndOfFile() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+        int start = data.length - 150;
+        descriptor.read(ByteBuffer.allocate(50), start - 50);
+
+        ByteBuffer buffer = ByteBuffer.allocate(200);
+        descriptor.read(buffer, start);
+
+        assertThat(buffer.position(), is(150));
+        assertThat(Arrays.copyOf(buffer.array(), 150),
+              is(equalTo(Arrays.copyOfRange(data, start, data.length))));
+    }
+
+    @Test
+    public void shouldReadDirectlyWhenBudgetIsExhausted() throws Exception {
+        ReadDescriptor first = new ReadDescriptor(channel, pool);
+        ReadDescriptor second = new ReadDescriptor(channel, pool);
+        ReadDescriptor third = new ReadDescriptor(channel, pool);
+
+        assertRead(first, 0, 100);
+        assertRead(second, 0, 100);
+        assertRead(third, 0, 100);
+        assertRead(third, 100, 100);
+
+        assertThat(reads, contains("0+1024", "0+1024", "0+100", "100+100"));
+    }
+
+    @Test
+    public void shouldReturnBufferToBudgetOnClose() throws Exception {
+        ReadDescriptor first = new ReadDescriptor(channel, pool);
+        ReadDescriptor second = new ReadDescriptor(channel, pool);
+        ReadDescriptor third = new ReadDescriptor(channel, pool);
+        assertRead(first, 0, 100);
+        assertRead(second, 0, 100);
+
+        first.close();
+        assertRead(third, 0, 100);
+        assertRead(third, 100, 100);
+
+        assertThat(reads, contains("0+1024", "0+1024", "0+1024"));
+    }
+
+    @Test
+    public void shouldReadDirectlyAfterClose() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+        assertRead(descriptor, 0, 100);
+
+        descriptor.close();
+        assertRead(descriptor, 100, 100);
+
+        assertThat(reads, contains("0+1024", "100+100"));
+    }
+
+    @Test
+    public void shouldReadDirectlyWithoutPool() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel);
+
+        assertRead(descriptor, 0, 100);
+        assertRead(descriptor, 100, 100);
+
+        assertThat(reads, contains("0+100", "100+100"));
+    }
+
+    @Test
+    public void shouldNotReadAheadOfDirectReads() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+
+        for (int position = 0; position < 300; position += 100) {
+            ByteBuffer buffer = ByteBuffer.allocate(100);
+            descriptor.readDirect(buffer, position);
+            assertThat(buffer.array(),
+                  is(equalTo(Arrays.copyOfRange(data, position, position + 100))));
+        }
+
+        assertThat(reads, contains("0+100", "100+100", "200+100"));
+    }
+
+    @Test
+    public void shouldRecordReadAheadHitsAndMisses() throws Exception {
+        ReadDescriptor descriptor = new ReadDescriptor(channel, pool);
+        for (int position = 0; position < 1000; position += 100) {
+            assertRead(descriptor, position, 100);
+        }
+
+        StringWriter info = new StringWriter();
+        pool.getInfo(new PrintWriter(info));
+
+        assertThat(info.toString(), containsString("Read-ahead: 9 hits, 1 misses, 1 of 2"));
+    }
+
+    private void assertRead(ReadDescriptor descriptor, int position, int length)
+          throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        descriptor.read(buffer, position);
+        assertThat(buffer.position(), is(length));
+        assertThat(buffer.array(),
+              is(equalTo(Arrays.copyOfRange(data, position, position + length))));
+    }
+}
@@ -0,0 +1,199 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.xrootd.pool;
+
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ok;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.netty.util.IllegalReferenceCountException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZeroCopyReadResponseTest {
+
+    private static final int STREAM_ID = 4711;
+
+    private byte[] data;
+    private NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel file;
+
+    /**
+     * A channel that accepts at most a few bytes per write, like a socket with a full send
+     * buffer.
+     */
+    private static class SlowChannel implements WritableByteChannel {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int limit;
+
+        SlowChannel(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = Math.min(limit, src.remaining());
+            byte[] bytes = new byte[n];
+            src.get(bytes);
+            out.write(bytes, 0, n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        file = mock(NettyTransferService.NettyMoverChannel.class);
+        when(file.transferTo(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long position = invocation.getArgument(0);
+            long count = invocation.getArgument(1);
+            WritableByteChannel target = invocation.getArgument(2);
+            int length = (int) Math.min(count, data.length - position);
+            return (long) target.write(ByteBuffer.wrap(data, (int) position, length));
+        });
+    }
+
+    @Test
+    public void shouldCountHeaderAndData() {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 100, 200);
+
+        assertThat(response.count(), is(208L));
+        assertThat(response.position(), is(0L));
+        assertThat(response.transferred(), is(0L));
+    }
+
+    @Test
+    public void shouldWriteHeaderFollowedByRequestedRange() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 100, 200);
+        SlowChannel target = new SlowChannel(Integer.MAX_VALUE);
+
+        transferAll(response, target);
+
+        ByteBuffer written = ByteBuffer.wrap(target.toByteArray());
+        assertThat(written.remaining(), is(208));
+        assertThat(written.getShort(), is((short) STREAM_ID));
+        assertThat(written.getShort(), is((short) kXR_ok));
+        assertThat(written.getInt(), is(200));
+        byte[] payload = new byte[200];
+        written.get(payload);
+        assertThat(payload, is(equalTo(Arrays.copyOfRange(data, 100, 300))));
+        assertThat(response.transferred(), is(208L));
+    }
+
+    @Test
+    public void shouldResumePartialWrites() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 0, 1000);
+        SlowChannel target = new SlowChannel(3);
+
+        transferAll(response, target);
+
+        byte[] written = target.toByteArray();
+        assertThat(written.length, is(1008));
+        assertThat(Arrays.copyOfRange(written, 8, 1008), is(equalTo(data)));
+        assertThat(response.transferred(), is(1008L));
+    }
+
+    @Test
+    public void shouldTransferFromFileRelativeToOffset() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 100, 200);
+        SlowChannel target = new SlowChannel(Integer.MAX_VALUE);
+
+        response.transferTo(target, 58);
+
+        verify(file).transferTo(150, 150, target);
+    }
+
+    @Test
+    public void shouldNotTouchFileWhileWritingHeader() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 100, 200);
+        SlowChannel target = new SlowChannel(Integer.MAX_VALUE);
+
+        assertThat(response.transferTo(target, 2), is(6L));
+
+        verify(file, never()).transferTo(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void shouldWriteOnlyHeaderForEmptyRead() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 1000, 0);
+        SlowChannel target = new SlowChannel(Integer.MAX_VALUE);
+
+        transferAll(response, target);
+
+        assertThat(target.toByteArray().length, is(8));
+        assertThat(response.transferTo(target, 8), is(0L));
+        verify(file, never()).transferTo(anyLong(), anyLong(), any());
+    }
+
+    @Test(expected = IllegalReferenceCountException.class)
+    public void shouldFailTransferAfterRelease() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 0, 100);
+        response.release();
+
+        response.transferTo(new SlowChannel(Integer.MAX_VALUE), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPositionBeyondRegion() throws Exception {
+        ZeroCopyReadResponse response = new ZeroCopyReadResponse(STREAM_ID, file, 0, 100);
+
+        response.transferTo(new SlowChannel(Integer.MAX_VALUE), 109);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeOffset() {
+        new ZeroCopyReadResponse(STREAM_ID, file, -1, 100);
+    }
+
+    private static void transferAll(ZeroCopyReadResponse response, WritableByteChannel target)
+          throws IOException {
+        while (response.transferred() < response.count()) {
+            response.transferTo(target, response.transferred());
+        }
+    }
+}
@@ -26,6 +26,7 @@ import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.security.auth.Subject;
 import org.dcache.namespace.CreateOption;
@@ -137,6 +138,12 @@ public abstract class ForwardingNameSpaceProvider implements NameSpaceProvider {
         return delegate().getFileAttributes(subject, pnfsId, attr);
     }
 
+    @Override
+    public Map<PnfsId, FileAttributes> getFileAttributes(Subject subject,
+          Collection<PnfsId> pnfsIds, Set<FileAttribute> attr) throws CacheException {
+        return delegate().getFileAttributes(subject, pnfsIds, attr);
+    }
+
     @Override
     public FileAttributes setFileAttributes(Subject subject, PnfsId pnfsId,
           FileAttributes attr, Set<FileAttribute> fetch) throws CacheException {
@@ -149,6 +156,13 @@ public abstract class ForwardingNameSpaceProvider implements NameSpaceProvider {
         delegate().list(subject, path, glob, range, attrs, handler);
     }
 
+    @Override
+    public void list(Subject subject, String path, Glob glob, String startAfter,
+          Range<Integer> range, Set<FileAttribute> attrs, ListHandler handler)
+          throws CacheException {
+        delegate().list(subject, path, glob, startAfter, range, attrs, handler);
+    }
+
 
     @Override
     public void listVirtualDirectory(Subject subject, String path, Range<Integer> range,
@@ -32,6 +32,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -179,7 +180,20 @@ public class MonitoringNameSpaceProvider extends ForwardingNameSpaceProvider {
     public FileAttributes getFileAttributes(Subject subject, PnfsId id,
           Set<FileAttribute> requestAttributes) throws CacheException {
         FileAttributes ret = super.getFileAttributes(subject, id, requestAttributes);
+        addLinks(id, ret);
+        return ret;
+    }
+
+    @Override
+    public Map<PnfsId, FileAttributes> getFileAttributes(Subject subject,
+          Collection<PnfsId> ids, Set<FileAttribute> requestAttributes) throws CacheException {
+        Map<PnfsId, FileAttributes> ret = super.getFileAttributes(subject, ids,
+              requestAttributes);
+        ret.forEach(this::addLinks);
+        return ret;
+    }
 
+    private void addLinks(PnfsId id, FileAttributes ret) {
         // REVISIT: we only need to do this if this getFileAttributes is for
         // a file open.  Can we somehow avoid doing this for other
         // getFileAttribute calls?
@@ -201,8 +215,6 @@ public class MonitoringNameSpaceProvider extends ForwardingNameSpaceProvider {
                 LOGGER.warn("Unable to find {}: {}", id, e.getMessage());
             }
         }
-
-        return ret;
     }
 
     @Override
@@ -268,6 +280,21 @@ public class MonitoringNameSpaceProvider extends ForwardingNameSpaceProvider {
     @Override
     public void list(Subject subject, String path, Glob glob, Range<Integer> range,
           Set<FileAttribute> attrs, ListHandler handler) throws CacheException {
+        MonitoringListHandler monitoringHandler = monitoringListHandler(path, handler);
+        super.list(subject, path, glob, range, attrs, monitoringHandler);
+        monitoringHandler.sendClose();
+    }
+
+    @Override
+    public void list(Subject subject, String path, Glob glob, String startAfter,
+          Range<Integer> range, Set<FileAttribute> attrs, ListHandler handler)
+          throws CacheException {
+        MonitoringListHandler monitoringHandler = monitoringListHandler(path, handler);
+        super.list(subject, path, glob, startAfter, range, attrs, monitoringHandler);
+        monitoringHandler.sendClose();
+    }
+
+    private MonitoringListHandler monitoringListHandler(String path, ListHandler handler) {
         PnfsId target;
         Collection<Link> links;
         try {
@@ -278,9 +305,7 @@ public class MonitoringNameSpaceProvider extends ForwardingNameSpaceProvider {
             links = Collections.emptyList();
         }
 
-        MonitoringListHandler monitoringHandler = new MonitoringListHandler(handler, target, links);
-        super.list(subject, path, glob, range, attrs, monitoringHandler);
-        monitoringHandler.sendClose();
+        return new MonitoringListHandler(handler, target, links);
     }
 
 
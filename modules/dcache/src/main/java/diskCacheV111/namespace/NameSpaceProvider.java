@@ -12,6 +12,7 @@ import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import javax.security.auth.Subject;
@@ -257,6 +258,21 @@ public interface NameSpaceProvider {
           Set<FileAttribute> attr)
           throws CacheException;
 
+    /**
+     * Get attributes defined by <code>attr</code> of several files. Files that do not exist or
+     * whose attributes may not be read by <code>subject</code> are not included in the result.
+     * Implementations should fetch the attributes with fewer round trips than the equivalent
+     * sequence of single file calls.
+     *
+     * @param subject Subject of user who invoked this method.
+     * @param pnfsIds of the files
+     * @param attr    array of requested attributes
+     * @return attributes by PnfsId
+     */
+    Map<PnfsId, FileAttributes> getFileAttributes(Subject subject, Collection<PnfsId> pnfsIds,
+          Set<FileAttribute> attr)
+          throws CacheException;
+
     /**
      * Set files attributes defined by <code>attr</code>.
      * <p>
@@ -297,6 +313,24 @@ public interface NameSpaceProvider {
           Set<FileAttribute> attrs, ListHandler handler)
           throws CacheException;
 
+    /**
+     * Lists the entries of a directory with a name greater than {@code startAfter}, in order of
+     * their names. This allows a listing to be continued after the last entry received, even if
+     * entries have been added to or removed from the directory in the meantime. The entries "."
+     * and ".." are not listed. The range is relative to the first entry after {@code startAfter}.
+     *
+     * @param subject    Subject of user who invoked this method
+     * @param path       Path to directory to list
+     * @param glob       Pattern to limit the result set; may be null
+     * @param startAfter Name after which the listing starts
+     * @param range      The range of entries to return; may be null
+     * @param attrs      The file attributes to query for each entry
+     * @param handler    Handler called for each entry
+     */
+    void list(Subject subject, String path, Glob glob, String startAfter, Range<Integer> range,
+          Set<FileAttribute> attrs, ListHandler handler)
+          throws CacheException;
+
     /**
      * Set up a temporary upload location for a file.
      * <p>
@@ -47,6 +47,7 @@ import diskCacheV111.util.NotDirCacheException;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.util.TimeoutCacheException;
 import diskCacheV111.vehicles.DoorCancelledUploadNotificationMessage;
 import diskCacheV111.vehicles.Message;
 import diskCacheV111.vehicles.PnfsAddCacheLocationMessage;
@@ -94,7 +95,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -104,14 +107,17 @@ import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -150,7 +156,9 @@ import org.dcache.util.TimeUtils;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsCreateSymLinkMessage;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsListLabelsMessage;
+import org.dcache.vehicles.PnfsListDirectoryAckMessage;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsResolveSymlinksMessage;
@@ -204,6 +212,7 @@ public class PnfsManagerV3
           PnfsCreateEntryMessage.class,
           PnfsCreateUploadPath.class,
           PnfsGetFileAttributes.class,
+          PnfsGetFileAttributesBatch.class,
           PnfsListDirectoryMessage.class
     };
 
@@ -213,6 +222,12 @@ public class PnfsManagerV3
     private int _listThreads;
     private long _logSlowThreshold;
 
+    /**
+     * Maximum number of queued PnfsGetFileAttributes requests that are served with a single name
+     * space lookup. A value of one disables coalescing.
+     */
+    private int _attributeBatchSize = 1;
+
     private ScheduledFuture<?> updateFsFuture;
     private ScheduledExecutorService scheduledExecutor;
     private TimeUnit updateFsStatIntervalUnit;
@@ -238,6 +253,22 @@ public class PnfsManagerV3
      */
     private BlockingQueue<CellMessage>[] _listQueues;
 
+    /**
+     * Active list operations that are flow controlled by the requestor.
+     */
+    private final Map<UUID, ListHandlerImpl> _flowControlledListings = new ConcurrentHashMap<>();
+
+    /**
+     * Limits the number of list threads waiting for the acknowledgement of list replies.
+     */
+    private Semaphore _listCreditWaiters = new Semaphore(1);
+
+    /**
+     * How long a flow controlled list operation waits for the requestor to acknowledge replies.
+     */
+    private long _listAcknowledgementTimeout;
+    private TimeUnit _listAcknowledgementTimeoutUnit;
+
     /**
      * Tasks queues used for messages that do not operate on cache locations.
      */
@@ -417,6 +448,26 @@ public class PnfsManagerV3
         _directoryListLimit = limit;
     }
 
+    @Required
+    public void setListAcknowledgementTimeout(long timeout) {
+        _listAcknowledgementTimeout = timeout;
+    }
+
+    @Required
+    public void setListAcknowledgementTimeoutUnit(TimeUnit unit) {
+        _listAcknowledgementTimeoutUnit = unit;
+    }
+
+    public void setMaxListAcknowledgementWaiters(int waiters) {
+        checkArgument(waiters >= 0, "Number of waiters must not be negative");
+        _listCreditWaiters = new Semaphore(waiters);
+    }
+
+    public void setAttributeBatchSize(int size) {
+        checkArgument(size > 0, "Batch size must be positive");
+        _attributeBatchSize = size;
+    }
+
     @Required
     public void setAtimeGap(long gap) {
         if (gap < 0) {
@@ -2170,6 +2221,14 @@ public class PnfsManagerV3
      * This filter collects entries and sends partial replies for the PnfsListDirectoryMessage when
      * a certain number of entries have been collected. The filter will not send the final reply
      * (the caller has to do that).
+     * <p>
+     * If the requestor asked for flow control, no more than the requested window of partial
+     * replies is sent ahead of the replies acknowledged by the requestor. The listing fails if
+     * the requestor does not acknowledge replies in time and stops if the requestor cancels it.
+     * Waiting for acknowledgements occupies a list thread, thus only a limited number of
+     * listings wait at a time. A listing that would have to wait while the limit is reached
+     * fails, so that slow clients can neither stall the list threads nor make the requestor
+     * buffer an unbounded number of replies.
      */
     private class ListHandlerImpl implements ListHandler {
 
@@ -2183,6 +2242,9 @@ public class PnfsManagerV3
         private long _deadline;
         private int _messageCount;
         private final BlockingQueue<CellMessage> _fifo;
+        private final int _window;
+        private int _acknowledged;
+        private boolean _isCancelled;
 
         public ListHandlerImpl(CellPath requestor, UOID uoid,
               PnfsListDirectoryMessage msg,
@@ -2201,9 +2263,74 @@ public class PnfsManagerV3
                         ? Long.MAX_VALUE
                         : System.currentTimeMillis() + initialDelay;
             _fifo = fifo;
+            _window = msg.getWindow();
+        }
+
+        private boolean isFlowControlled() {
+            return _window > 0;
+        }
+
+        private synchronized void acknowledge(int count) {
+            _acknowledged = Math.max(_acknowledged, count);
+            notifyAll();
+        }
+
+        private synchronized void cancel() {
+            _isCancelled = true;
+            notifyAll();
+        }
+
+        private synchronized boolean isCancelled() {
+            return _isCancelled;
+        }
+
+        private synchronized boolean hasCredit() {
+            return _messageCount - _acknowledged < _window;
+        }
+
+        /**
+         * Blocks until the requestor has acknowledged enough replies for another reply to be
+         * sent. Fails right away if too many other listings are waiting already.
+         */
+        private void awaitCredit() throws CacheException {
+            if (!hasCredit()) {
+                if (!_listCreditWaiters.tryAcquire()) {
+                    throw new MissingResourceCacheException(
+                          "Too many directory listings waiting for slow clients");
+                }
+                try {
+                    waitForCredit();
+                } finally {
+                    _listCreditWaiters.release();
+                }
+            }
+            if (isCancelled()) {
+                throw new CacheException("Directory listing cancelled by client");
+            }
         }
 
-        private void sendPartialReply() {
+        private synchronized void waitForCredit() throws CacheException {
+            long deadline = System.currentTimeMillis()
+                  + _listAcknowledgementTimeoutUnit.toMillis(_listAcknowledgementTimeout);
+            try {
+                while (!_isCancelled && _messageCount - _acknowledged >= _window) {
+                    long timeout = deadline - System.currentTimeMillis();
+                    if (timeout <= 0) {
+                        throw new TimeoutCacheException(
+                              "Client did not acknowledge directory listing");
+                    }
+                    wait(timeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheException("Directory listing interrupted");
+            }
+        }
+
+        private void sendPartialReply() throws CacheException {
+            if (isFlowControlled()) {
+                awaitCredit();
+            }
             _msg.setReply();
             CellMessage envelope = new CellMessage(_requestor, _msg);
             envelope.setLastUOID(_uoid);
@@ -2212,9 +2339,11 @@ public class PnfsManagerV3
             _msg.setMessageCount(_messageCount);
 
 
-            if (!useParallelListing) {
+            if (!useParallelListing && !isFlowControlled()) {
                 /**
-                 * fold other list requests for the same target in the queue
+                 * fold other list requests for the same target in the queue; not
+                 * done for flow controlled listings as these are paced by, and may be
+                 * cancelled by, their own requestor
                  */
 
                 for (CellMessage message : _fifo) {
@@ -2238,7 +2367,7 @@ public class PnfsManagerV3
         }
 
         @Override
-        public void addEntry(String name, FileAttributes attrs) {
+        public void addEntry(String name, FileAttributes attrs) throws CacheException {
             if (Subjects.isRoot(_subject)
                   || !_restriction.isRestricted(READ_METADATA, _directory, name, true)) {
                 long now = System.currentTimeMillis();
@@ -2263,6 +2392,7 @@ public class PnfsManagerV3
             return;
         }
 
+        ListHandlerImpl handler = null;
         try {
             String path = msg.getPnfsPath();
 
@@ -2275,9 +2405,11 @@ public class PnfsManagerV3
                         ? Long.MAX_VALUE
                         : delay - envelope.getLocalAge();
             CellPath source = envelope.getSourcePath().revert();
-            ListHandlerImpl handler =
-                  new ListHandlerImpl(source, envelope.getUOID(),
-                        msg, initialDelay, delay, fifo);
+            handler = new ListHandlerImpl(source, envelope.getUOID(),
+                  msg, initialDelay, delay, fifo);
+            if (handler.isFlowControlled()) {
+                _flowControlledListings.put(msg.getUUID(), handler);
+            }
 
             if (msg.getPathType() == PnfsListDirectoryMessage.PathType.LABEL) {
                 _nameSpaceProvider.listVirtualDirectory(msg.getSubject(), path.substring(1),
@@ -2285,6 +2417,13 @@ public class PnfsManagerV3
                       msg.getRequestedAttributes(),
                       handler);
 
+            } else if (msg.getStartAfter() != null) {
+                _nameSpaceProvider.list(msg.getSubject(), path,
+                      msg.getPattern(),
+                      msg.getStartAfter(),
+                      msg.getRange(),
+                      msg.getRequestedAttributes(),
+                      handler);
             } else {
                 _nameSpaceProvider.list(msg.getSubject(), path,
                       msg.getPattern(),
@@ -2296,12 +2435,22 @@ public class PnfsManagerV3
         } catch (FileNotFoundCacheException | NotDirCacheException e) {
             msg.setFailed(e.getRc(), e.getMessage());
         } catch (CacheException e) {
+            if (handler != null && handler.isCancelled()) {
+                /* The requestor is no longer interested in the result. Failing
+                 * the request prevents queued requests from being folded with it.
+                 */
+                msg.setFailed(e.getRc(), e.getMessage());
+                msg.setReplyRequired(false);
+                return;
+            }
             LOGGER.warn(e.toString());
             msg.setFailed(e.getRc(), e.getMessage());
         } catch (RuntimeException e) {
             LOGGER.error(e.toString(), e);
             msg.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
                   e.getMessage());
+        } finally {
+            _flowControlledListings.remove(msg.getUUID());
         }
     }
 
@@ -2438,7 +2587,14 @@ public class PnfsManagerV3
                             sendTimeout(message, "TTL exceeded");
                             continue;
                         }
-                        if (!(pnfs instanceof PnfsListDirectoryMessage)) {
+                        if (pnfs instanceof PnfsGetFileAttributes && _attributeBatchSize > 1
+                              && pnfs.getPnfsId() != null) {
+                            List<CellMessage> batch =
+                                  coalesce(message, (PnfsGetFileAttributes) pnfs);
+                            processGetFileAttributes(batch);
+                            batch.stream().skip(1)
+                                  .forEach(m -> fold((PnfsMessage) m.getMessageObject()));
+                        } else if (!(pnfs instanceof PnfsListDirectoryMessage)) {
                             processPnfsMessage(message, pnfs);
                         } else {
                             long ctime = System.currentTimeMillis();
@@ -2467,6 +2623,35 @@ public class PnfsManagerV3
             }
         }
 
+        /**
+         * Removes queued PnfsGetFileAttributes requests that can be served together with {@code
+         * message} from the queue. The scan stops at the first request of a different type, so
+         * that no request is served ahead of a preceding update of the same file.
+         *
+         * @return a list of requests starting with {@code envelope}
+         */
+        private List<CellMessage> coalesce(CellMessage envelope, PnfsGetFileAttributes message) {
+            List<CellMessage> batch = new ArrayList<>();
+            batch.add(envelope);
+            Iterator<CellMessage> i = _fifo.iterator();
+            while (i.hasNext() && batch.size() < _attributeBatchSize) {
+                CellMessage other = i.next();
+                if (!(other.getMessageObject() instanceof PnfsGetFileAttributes)) {
+                    break;
+                }
+                PnfsGetFileAttributes request = (PnfsGetFileAttributes) other.getMessageObject();
+                if (other.getLocalAge() <= other.getAdjustedTtl()
+                      && request.getPnfsId() != null
+                      && request.getUpdateAtime() == message.getUpdateAtime()
+                      && request.getRequestedAttributes().equals(message.getRequestedAttributes())
+                      && request.getSubject().equals(message.getSubject())) {
+                    i.remove();
+                    batch.add(other);
+                }
+            }
+            return batch;
+        }
+
         protected void fold(PnfsMessage message) {
             if (_canFold && message.getReturnCode() == 0) {
                 Iterator<CellMessage> i = _fifo.iterator();
@@ -2755,6 +2940,17 @@ public class PnfsManagerV3
      *  ----------------------------------------------------------------------------------------
      */
 
+    public void messageArrived(PnfsListDirectoryAckMessage message) {
+        ListHandlerImpl handler = _flowControlledListings.get(message.getUUID());
+        if (handler != null) {
+            if (message.isCancelled()) {
+                handler.cancel();
+            } else {
+                handler.acknowledge(message.getAcknowledged());
+            }
+        }
+    }
+
     public void messageArrived(CellMessage envelope, PnfsListDirectoryMessage message)
           throws CacheException {
 
@@ -2867,6 +3063,55 @@ public class PnfsManagerV3
         postProcessMessage(message, pnfsMessage);
     }
 
+    /**
+     * Processes several PnfsGetFileAttributes requests of the same subject for the same set of
+     * attributes with a single name space lookup.
+     */
+    @VisibleForTesting
+    void processGetFileAttributes(List<CellMessage> envelopes) {
+        if (envelopes.size() == 1) {
+            CellMessage envelope = envelopes.get(0);
+            processPnfsMessage(envelope, (PnfsMessage) envelope.getMessageObject());
+            return;
+        }
+
+        long ctime = System.currentTimeMillis();
+        List<PnfsGetFileAttributes> messages = envelopes.stream()
+              .map(e -> (PnfsGetFileAttributes) e.getMessageObject())
+              .collect(Collectors.toList());
+        try {
+            getFileAttributesTransactionally(messages);
+        } catch (TransactionException e) {
+            LOGGER.error("Name space transaction failed: {}", e.getMessage());
+            for (PnfsGetFileAttributes message : messages) {
+                if (message.getReturnCode() == 0) {
+                    message.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
+                          "Name space transaction failed.");
+                }
+            }
+        }
+
+        long duration = System.currentTimeMillis() - ctime;
+        if (_logSlowThreshold != THRESHOLD_DISABLED && duration > _logSlowThreshold) {
+            LOGGER.warn("{} x {} processed in {} ms", messages.size(),
+                  PnfsGetFileAttributes.class, duration);
+        } else {
+            LOGGER.info("{} x {} processed in {} ms", messages.size(),
+                  PnfsGetFileAttributes.class, duration);
+        }
+
+        for (CellMessage envelope : envelopes) {
+            PnfsMessage message = (PnfsMessage) envelope.getMessageObject();
+            _gauges.update(message.getClass(), duration / envelopes.size());
+            postProcessMessage(envelope, message);
+        }
+    }
+
+    @Transactional
+    void getFileAttributesTransactionally(List<PnfsGetFileAttributes> messages) {
+        getFileAttributes(messages);
+    }
+
     @Transactional
     boolean processMessageTransactionally(CellMessage message, PnfsMessage pnfsMessage) {
         if (pnfsMessage instanceof PnfsAddCacheLocationMessage) {
@@ -2895,6 +3140,8 @@ public class PnfsManagerV3
             getParent((PnfsGetParentMessage) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsGetFileAttributes) {
             getFileAttributes((PnfsGetFileAttributes) pnfsMessage);
+        } else if (pnfsMessage instanceof PnfsGetFileAttributesBatch) {
+            getFileAttributes((PnfsGetFileAttributesBatch) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsSetFileAttributes) {
             setFileAttributes((PnfsSetFileAttributes) pnfsMessage);
         } else if (pnfsMessage instanceof PnfsRemoveChecksumMessage) {
@@ -3071,62 +3318,105 @@ public class PnfsManagerV3
             Subject subject = message.getSubject();
             PnfsId pnfsId = populatePnfsId(message);
             checkMask(message);
-            Set<FileAttribute> requested = message.getRequestedAttributes();
-            if (message.getUpdateAtime() && _atimeGap >= 0) {
-                requested.add(ACCESS_TIME);
-            }
-            if (requested.contains(FileAttribute.STORAGEINFO)) {
-                /*
-                 * TODO: The 'classic' result of getFileAttributes was a
-                 * cobination of fileMetadata + storageInfo. This was
-                 * used to add the owner and group information into
-                 * storageInfo's internal Map. Uid and Gid are used by the
-                 * HSM flush scripts.
-                 *
-                 * This atavism will have to be cut out when HSM
-                 * interface will undestand Subject or FileAttributes
-                 * will be passed to HSM interface.
-                 */
-                requested = EnumSet.copyOf(requested);
-                requested.add(FileAttribute.OWNER);
-                requested.add(FileAttribute.OWNER_GROUP);
-                requested.add(FileAttribute.XATTR);
-                requested.add(FileAttribute.CREATION_TIME);
-            }
             FileAttributes attrs =
                   _nameSpaceProvider.getFileAttributes(subject,
                         pnfsId,
-                        requested);
-
-            if (attrs.isDefined(FileAttribute.STORAGEINFO)) {
-                StorageInfo storageInfo = attrs.getStorageInfo();
-                if (storageInfo.getKey("path") == null) {
-                    String path = message.getPnfsPath() != null ?
-                          message.getPnfsPath() : _nameSpaceProvider.pnfsidToPath(subject, pnfsId);
-                    storageInfo.setKey("path", path);
-                }
-                storageInfo.setKey("uid", Integer.toString(attrs.getOwner()));
-                storageInfo.setKey("gid", Integer.toString(attrs.getGroup()));
+                        getRequestedAttributes(message));
+            setFileAttributes(message, attrs);
+        } catch (FileNotFoundCacheException e) {
+            message.setFailed(e.getRc(), e);
+        } catch (CacheException e) {
+            LOGGER.warn("Error while retrieving file attributes: {}", e.getMessage());
+            message.setFailed(e.getRc(), e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error while retrieving file attributes: " + e.getMessage(), e);
+            message.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION, e);
+        }
+    }
+
+    /**
+     * Serves several PnfsGetFileAttributes requests by PnfsId with a single name space lookup.
+     * All requests must have the same subject, requested attributes and atime update flag.
+     * Requests for files not found by the lookup are served individually, so that they fail
+     * with the same error as when not batched.
+     */
+    @VisibleForTesting
+    void getFileAttributes(List<PnfsGetFileAttributes> messages) {
+        List<PnfsGetFileAttributes> pending = new ArrayList<>(messages.size());
+        for (PnfsGetFileAttributes message : messages) {
+            try {
+                checkRestriction(message, READ_METADATA);
+                pending.add(message);
+            } catch (CacheException e) {
+                LOGGER.warn("Error while retrieving file attributes: {}", e.getMessage());
+                message.setFailed(e.getRc(), e);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
 
-                // REVISIT: consider removing xattr injection once pools can accept FileAttribute.XATTR
-                if (attrs.isDefined(XATTR)) {
-                    attrs.getXattrs()
-                          .forEach((k, v) -> storageInfo.setKey(STORAGE_INFO_XATTR_PREFIX + k, v));
+        PnfsGetFileAttributes first = pending.get(0);
+        Subject subject = first.getSubject();
+        Set<FileAttribute> requested = getRequestedAttributes(first);
+        Set<PnfsId> ids = new LinkedHashSet<>();
+        pending.forEach(m -> ids.add(m.getPnfsId()));
+
+        Map<PnfsId, FileAttributes> found;
+        try {
+            found = _nameSpaceProvider.getFileAttributes(subject, ids, requested);
+        } catch (CacheException | RuntimeException e) {
+            LOGGER.warn("Batched retrieval of file attributes failed: {}", e.getMessage());
+            found = Collections.emptyMap();
+        }
+
+        boolean isExempt = Subjects.isExemptFromNamespaceChecks(subject);
+        Set<PnfsId> served = new HashSet<>();
+        for (PnfsGetFileAttributes message : pending) {
+            FileAttributes attrs = found.get(message.getPnfsId());
+            if (attrs == null) {
+                getFileAttributes(message);
+                continue;
+            }
+            try {
+                /* The attributes of a non-exempt subject include those
+                 * required by the permission handler.
+                 */
+                Set<AccessMask> mask = message.getAccessMask();
+                if (!isExempt && !mask.isEmpty() && !checkMask(subject, mask, attrs)) {
+                    throw new PermissionDeniedCacheException("Access denied");
+                }
+                /* Requests for the same file must not share the attributes.
+                 */
+                if (!served.add(message.getPnfsId())) {
+                    attrs = attrs.clone();
                 }
+                setFileAttributes(message, attrs);
+            } catch (FileNotFoundCacheException e) {
+                message.setFailed(e.getRc(), e);
+            } catch (CacheException e) {
+                LOGGER.warn("Error while retrieving file attributes: {}", e.getMessage());
+                message.setFailed(e.getRc(), e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while retrieving file attributes: " + e.getMessage(), e);
+                message.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION, e);
             }
+        }
+    }
 
+    public void getFileAttributes(PnfsGetFileAttributesBatch message) {
+        try {
+            checkRestriction(message, READ_METADATA);
+            Subject subject = message.getSubject();
+            Set<FileAttribute> requested = message.getRequestedAttributes();
+            Map<PnfsId, FileAttributes> attrs =
+                  _nameSpaceProvider.getFileAttributes(subject, message.getPnfsIds(), requested);
+            Set<AccessMask> mask = message.getAccessMask();
+            if (!Subjects.isExemptFromNamespaceChecks(subject) && !mask.isEmpty()) {
+                attrs.values().removeIf(a -> !checkMask(subject, mask, a));
+            }
             message.setFileAttributes(attrs);
             message.setSucceeded();
-            if (message.getUpdateAtime() && _atimeGap >= 0) {
-                long now = System.currentTimeMillis();
-                if (attrs.getFileType() == FileType.REGULAR
-                      && Math.abs(now - attrs.getAccessTime()) > _atimeGap) {
-                    _nameSpaceProvider.setFileAttributes(Subjects.ROOT, pnfsId,
-                          FileAttributes.ofAccessTime(now), EnumSet.noneOf(FileAttribute.class));
-                }
-            }
-        } catch (FileNotFoundCacheException e) {
-            message.setFailed(e.getRc(), e);
         } catch (CacheException e) {
             LOGGER.warn("Error while retrieving file attributes: {}", e.getMessage());
             message.setFailed(e.getRc(), e);
@@ -3136,6 +3426,65 @@ public class PnfsManagerV3
         }
     }
 
+    private Set<FileAttribute> getRequestedAttributes(PnfsGetFileAttributes message) {
+        Set<FileAttribute> requested = message.getRequestedAttributes();
+        if (message.getUpdateAtime() && _atimeGap >= 0) {
+            requested.add(ACCESS_TIME);
+        }
+        if (requested.contains(FileAttribute.STORAGEINFO)) {
+            /*
+             * TODO: The 'classic' result of getFileAttributes was a
+             * cobination of fileMetadata + storageInfo. This was
+             * used to add the owner and group information into
+             * storageInfo's internal Map. Uid and Gid are used by the
+             * HSM flush scripts.
+             *
+             * This atavism will have to be cut out when HSM
+             * interface will undestand Subject or FileAttributes
+             * will be passed to HSM interface.
+             */
+            requested = EnumSet.copyOf(requested);
+            requested.add(FileAttribute.OWNER);
+            requested.add(FileAttribute.OWNER_GROUP);
+            requested.add(FileAttribute.XATTR);
+            requested.add(FileAttribute.CREATION_TIME);
+        }
+        return requested;
+    }
+
+    private void setFileAttributes(PnfsGetFileAttributes message, FileAttributes attrs)
+          throws CacheException {
+        Subject subject = message.getSubject();
+        PnfsId pnfsId = message.getPnfsId();
+        if (attrs.isDefined(FileAttribute.STORAGEINFO)) {
+            StorageInfo storageInfo = attrs.getStorageInfo();
+            if (storageInfo.getKey("path") == null) {
+                String path = message.getPnfsPath() != null ?
+                      message.getPnfsPath() : _nameSpaceProvider.pnfsidToPath(subject, pnfsId);
+                storageInfo.setKey("path", path);
+            }
+            storageInfo.setKey("uid", Integer.toString(attrs.getOwner()));
+            storageInfo.setKey("gid", Integer.toString(attrs.getGroup()));
+
+            // REVISIT: consider removing xattr injection once pools can accept FileAttribute.XATTR
+            if (attrs.isDefined(XATTR)) {
+                attrs.getXattrs()
+                      .forEach((k, v) -> storageInfo.setKey(STORAGE_INFO_XATTR_PREFIX + k, v));
+            }
+        }
+
+        message.setFileAttributes(attrs);
+        message.setSucceeded();
+        if (message.getUpdateAtime() && _atimeGap >= 0) {
+            long now = System.currentTimeMillis();
+            if (attrs.getFileType() == FileType.REGULAR
+                  && Math.abs(now - attrs.getAccessTime()) > _atimeGap) {
+                _nameSpaceProvider.setFileAttributes(Subjects.ROOT, pnfsId,
+                      FileAttributes.ofAccessTime(now), EnumSet.noneOf(FileAttribute.class));
+            }
+        }
+    }
+
     public void setFileAttributes(PnfsSetFileAttributes message) {
         try {
             checkRestriction(message, UPDATE_METADATA);
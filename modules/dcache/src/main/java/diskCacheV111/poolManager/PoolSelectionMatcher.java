@@ -0,0 +1,590 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.poolManager;
+
+import static diskCacheV111.poolManager.PoolSelectionUnit.UnitType.DCACHE;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import diskCacheV111.poolManager.PoolSelectionUnit.DirectionType;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable, precompiled form of the unit, link and pool group configuration of a
+ * {@link PoolSelectionUnitV2}.
+ * <p>
+ * A matcher is compiled from the configuration while holding the read lock of the selection unit
+ * and is discarded as a whole whenever that configuration changes, thus readers holding a matcher
+ * never need to lock. Units are resolved by hash lookups, net units by one lookup per distinct
+ * netmask length, and the ordered candidate pools of every combination of units, link group and
+ * direction are memoized. Only the dynamic state of the candidate pools, e.g. whether they are
+ * enabled, active or read-only, has to be evaluated for each request.
+ */
+final class PoolSelectionMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolSelectionMatcher.class);
+
+    private static final String DEFAULT_IPV4_NET_UNIT = "0.0.0.0/0.0.0.0";
+    private static final String DEFAULT_IPV6_NET_UNIT = "::/0";
+
+    private static final int MAX_CACHED_LEVELS = 100000;
+    private static final int MAX_CACHED_STORE_UNITS = 10000;
+
+    private final boolean _useRegex;
+    private final Map<String, CompiledUnit> _units = new HashMap<>();
+    private final List<CompiledUnit> _storeUnits = new ArrayList<>();
+    private final Map<String, CompiledLinkGroup> _linkGroups = new HashMap<>();
+    private final NetIndex _netIndexV4;
+    private final NetIndex _netIndexV6;
+
+    private final Cache<MatchKey, Level[]> _levels = CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_LEVELS)
+          .build();
+
+    /**
+     * Store units resolved through regular expressions, only used if regex matching is enabled.
+     */
+    private final Cache<String, CompiledUnit> _regexMatches = CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_STORE_UNITS)
+          .build();
+
+    /**
+     * Compiles the given configuration. Must be called while the configuration cannot change.
+     */
+    PoolSelectionMatcher(Collection<Unit> units, NetHandler netHandler,
+          Collection<LinkGroup> linkGroups, boolean useRegex) {
+        _useRegex = useRegex;
+
+        for (Unit unit : units) {
+            CompiledUnit compiled = new CompiledUnit(unit, _units.size());
+            _units.put(unit.getName(), compiled);
+            if (unit.getType() == PoolSelectionUnit.UnitType.STORE) {
+                _storeUnits.add(compiled);
+            }
+        }
+
+        for (LinkGroup linkGroup : linkGroups) {
+            _linkGroups.put(linkGroup.getName(),
+                  new CompiledLinkGroup(linkGroup, _linkGroups.size()));
+        }
+
+        _netIndexV4 = new NetIndex(netHandler._netList, _units);
+        _netIndexV6 = new NetIndex(netHandler._netListV6, _units);
+    }
+
+    /**
+     * Resolves the units and the link group of a request. Fails in the same way as the
+     * resolution in {@link PoolSelectionUnitV2} did when it was walking the live configuration.
+     */
+    MatchKey resolve(DirectionType type, String storeUnitName, String protocolUnitName,
+          String dCacheUnitName, String netUnitName, String linkGroupName) {
+        CompiledUnit store = resolveStorageUnit(storeUnitName);
+        CompiledUnit protocol = resolveProtocolUnit(protocolUnitName);
+        CompiledUnit dCache = resolveDCacheUnit(dCacheUnitName);
+        CompiledUnit net = resolveNetUnit(netUnitName);
+        CompiledLinkGroup linkGroup = resolveLinkGroup(linkGroupName);
+        return new MatchKey(type, store, protocol, dCache, net, linkGroup);
+    }
+
+    /**
+     * Returns the memoized preference levels for the given key, or null if they have not been
+     * computed yet.
+     */
+    Level[] getLevels(MatchKey key) {
+        return _levels.getIfPresent(key);
+    }
+
+    /**
+     * Computes and memoizes the preference levels for the given key. Must be called while the
+     * configuration cannot change, as the links and pool groups are still live objects.
+     */
+    Level[] computeLevels(MatchKey key) {
+        return _levels.asMap().computeIfAbsent(key, PoolSelectionMatcher::buildLevels);
+    }
+
+    private CompiledUnit resolveStorageUnit(String storeUnitName) {
+        CompiledUnit unit;
+        if (_useRegex) {
+            unit = _regexMatches.getIfPresent(storeUnitName);
+            if (unit == null) {
+                unit = matchStorageUnit(storeUnitName);
+                _regexMatches.put(storeUnitName, unit);
+            }
+        } else {
+            unit = _units.get(storeUnitName);
+            if (unit == null) {
+                int ind = storeUnitName.lastIndexOf('@');
+                if ((ind > 0) && (ind < (storeUnitName.length() - 1))) {
+                    unit = _units.get("*@" + storeUnitName.substring(ind + 1));
+                    if (unit == null) {
+                        unit = _units.get("*@*");
+                        if (unit == null) {
+                            LOGGER.debug("no matching storage unit found for: {}",
+                                  storeUnitName);
+                            throw new IllegalArgumentException(
+                                  "Unit not found : " + storeUnitName);
+                        }
+                    }
+                } else {
+                    throw new IllegalArgumentException(
+                          "IllegalUnitFormat : " + storeUnitName);
+                }
+            }
+        }
+        LOGGER.debug("matching storage unit found for: {}", storeUnitName);
+        return unit;
+    }
+
+    private CompiledUnit matchStorageUnit(String storeUnitName) {
+        CompiledUnit universalCoverage = null;
+        CompiledUnit classCoverage = null;
+
+        for (CompiledUnit unit : _storeUnits) {
+            String name = unit.getName();
+            if (name.equals("*@*")) {
+                universalCoverage = unit;
+            } else if (name.equals("*@" + storeUnitName)) {
+                classCoverage = unit;
+            } else if (unit.getPattern().matcher(storeUnitName).matches()) {
+                return unit;
+            }
+        }
+
+        if (classCoverage != null) {
+            return classCoverage;
+        } else if (universalCoverage != null) {
+            return universalCoverage;
+        } else {
+            throw new IllegalArgumentException("Unit not found : " + storeUnitName);
+        }
+    }
+
+    //
+    // Legal formats : <protocol>/<version>
+    //
+    private CompiledUnit resolveProtocolUnit(String protocolUnitName) {
+        if ((protocolUnitName == null) || protocolUnitName.isEmpty()) {
+            return null;
+        }
+
+        int position = protocolUnitName.indexOf('/');
+        if ((position < 0) || (position == 0)
+              || (position == (protocolUnitName.length() - 1))) {
+            throw new IllegalArgumentException(
+                  "Not a valid protocol specification : " + protocolUnitName);
+        }
+
+        //
+        // we try :
+        // <protocol>/<majorVersion>
+        // <protocol>/*
+        // */*
+        //
+        CompiledUnit unit = _units.get(protocolUnitName);
+        if (unit == null) {
+            unit = _units.get(protocolUnitName.substring(0, position) + "/*");
+            if (unit == null) {
+                unit = _units.get("*/*");
+            }
+        }
+
+        if (unit == null) {
+            LOGGER.debug("no matching protocol unit found for: {}", protocolUnitName);
+            /* for backward compatibility, do not throw exception */
+        } else {
+            LOGGER.debug("matching protocol unit found: {}", unit);
+        }
+        return unit;
+    }
+
+    private CompiledUnit resolveDCacheUnit(String dCacheUnitName) {
+        if (dCacheUnitName == null) {
+            return null;
+        }
+
+        CompiledUnit unit = _units.get(dCacheUnitName);
+        if (unit == null || unit._unit.getType() != DCACHE) {
+            LOGGER.debug("no matching dCache unit found for: {}", dCacheUnitName);
+            throw new IllegalArgumentException("Unit not found : " + dCacheUnitName);
+        }
+
+        LOGGER.debug("matching dCache unit found: {}", unit);
+        return unit;
+    }
+
+    private CompiledUnit resolveNetUnit(String netUnitName) {
+        if (netUnitName == null) {
+            return null;
+        }
+
+        CompiledUnit unit;
+        if (DEFAULT_IPV4_NET_UNIT.equals(netUnitName)
+              || DEFAULT_IPV6_NET_UNIT.equals(netUnitName)) {
+            unit = _units.get(netUnitName);
+        } else {
+            try {
+                InetAddress address = InetAddress.getByName(netUnitName);
+                unit = address instanceof Inet4Address
+                      ? _netIndexV4.match(address)
+                      : _netIndexV6.match(address);
+            } catch (UnknownHostException uhe) {
+                throw new IllegalArgumentException(
+                      "NetUnit not resolved : " + netUnitName);
+            }
+        }
+
+        if (unit == null) {
+            LOGGER.debug("no matching net unit found for: {}", netUnitName);
+            /* for backward compatibility, do not throw exception */
+        } else {
+            LOGGER.debug("matching net unit found: {}", unit);
+        }
+        return unit;
+    }
+
+    private CompiledLinkGroup resolveLinkGroup(String linkGroupName) {
+        if (linkGroupName == null) {
+            return null;
+        }
+
+        CompiledLinkGroup linkGroup = _linkGroups.get(linkGroupName);
+        if (linkGroup == null) {
+            LOGGER.debug("LinkGroup not found : {}", linkGroupName);
+            throw new IllegalArgumentException("LinkGroup not found : " + linkGroupName);
+        }
+        return linkGroup;
+    }
+
+    /**
+     * Matches using logical AND: a link qualifies if every unit group of the link contains one of
+     * the resolved units, and there are at least as many resolved units as the link has unit
+     * groups.
+     */
+    private static Level[] buildLevels(MatchKey key) {
+        LinkGroup linkGroup = key._linkGroup == null ? null : key._linkGroup._linkGroup;
+
+        Map<Link, Integer> hits = new HashMap<>();
+        int fitCount = 0;
+        for (CompiledUnit unit : key.getUnits()) {
+            if (unit == null) {
+                continue;
+            }
+            fitCount++;
+            for (Link link : unit.getLinks()) {
+                if (isEligible(link, linkGroup, key._type)) {
+                    LOGGER.debug("link {} matching to unit {}", link.getName(), unit);
+                    hits.merge(link, 1, Integer::sum);
+                }
+            }
+        }
+
+        Set<Link> sortedSet = new TreeSet<>(new LinkComparator(key._type));
+        for (Map.Entry<Link, Integer> hit : hits.entrySet()) {
+            int required = hit.getKey()._uGroupList.size();
+            if (hit.getValue() >= required && required <= fitCount) {
+                sortedSet.add(hit.getKey());
+            }
+        }
+
+        List<Level> levels = new ArrayList<>();
+        int pref = -1;
+        String tag = null;
+        List<Pool> pools = null;
+        for (Link link : sortedSet) {
+            int linkPref = getPreference(link, key._type);
+            if (linkPref < 1) {
+                continue;
+            }
+            if (linkPref != pref) {
+                if (pools != null) {
+                    levels.add(new Level(pools, tag));
+                }
+                pools = new ArrayList<>();
+                tag = null;
+                pref = linkPref;
+            }
+            if ((tag == null) && (link.getTag() != null)) {
+                tag = link.getTag();
+            }
+            for (PoolCore poolCore : link._poolList.values()) {
+                if (poolCore instanceof Pool) {
+                    pools.add((Pool) poolCore);
+                } else {
+                    pools.addAll(((PGroup) poolCore)._poolList.values());
+                }
+            }
+        }
+        if (pools != null) {
+            levels.add(new Level(pools, tag));
+        }
+        return levels.toArray(Level[]::new);
+    }
+
+    private static boolean isEligible(Link link, LinkGroup linkGroup, DirectionType type) {
+        if (linkGroup == null) {
+            //
+            // no link group specified
+            // only consider link if it isn't in any link group
+            // ( "default link group" )
+            //
+            return type == DirectionType.READ || link.getLinkGroup() == null;
+        }
+        //
+        // only take link if it is in the specified link group
+        //
+        return linkGroup.contains(link);
+    }
+
+    private static int getPreference(Link link, DirectionType type) {
+        switch (type) {
+            case READ:
+                return link.getReadPref();
+            case CACHE:
+                return link.getCachePref();
+            case P2P:
+                return link.getP2pPref() < 0 ? link.getReadPref() : link.getP2pPref();
+            case WRITE:
+                return link.getWritePref();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * A unit together with the links reachable through its unit groups.
+     */
+    private static final class CompiledUnit {
+
+        private final Unit _unit;
+        private final int _id;
+        private final Link[] _links;
+        private final Pattern _pattern;
+        private final PatternSyntaxException _patternError;
+
+        private CompiledUnit(Unit unit, int id) {
+            _unit = unit;
+            _id = id;
+            _links = unit._uGroupList.values().stream()
+                  .flatMap(g -> g._linkList.values().stream())
+                  .collect(LinkedHashSet<Link>::new, Set::add, Set::addAll)
+                  .toArray(Link[]::new);
+
+            Pattern pattern = null;
+            PatternSyntaxException patternError = null;
+            if (unit.getType() == PoolSelectionUnit.UnitType.STORE) {
+                try {
+                    pattern = Pattern.compile(unit.getName());
+                } catch (PatternSyntaxException e) {
+                    patternError = e;
+                }
+            }
+            _pattern = pattern;
+            _patternError = patternError;
+        }
+
+        private String getName() {
+            return _unit.getName();
+        }
+
+        private Link[] getLinks() {
+            return _links;
+        }
+
+        private Pattern getPattern() {
+            if (_pattern == null) {
+                throw new PatternSyntaxException(_patternError.getDescription(),
+                      _patternError.getPattern(), _patternError.getIndex());
+            }
+            return _pattern;
+        }
+
+        @Override
+        public String toString() {
+            return _unit.toString();
+        }
+    }
+
+    private static final class CompiledLinkGroup {
+
+        private final LinkGroup _linkGroup;
+        private final int _id;
+
+        private CompiledLinkGroup(LinkGroup linkGroup, int id) {
+            _linkGroup = linkGroup;
+            _id = id;
+        }
+    }
+
+    /**
+     * The resolved units, link group and direction of a request. Two keys are equal if they refer
+     * to the same compiled objects of the same matcher.
+     */
+    static final class MatchKey {
+
+        private final DirectionType _type;
+        private final CompiledUnit _store;
+        private final CompiledUnit _protocol;
+        private final CompiledUnit _dCache;
+        private final CompiledUnit _net;
+        private final CompiledLinkGroup _linkGroup;
+        private final int _hashCode;
+
+        private MatchKey(DirectionType type, CompiledUnit store, CompiledUnit protocol,
+              CompiledUnit dCache, CompiledUnit net, CompiledLinkGroup linkGroup) {
+            _type = type;
+            _store = store;
+            _protocol = protocol;
+            _dCache = dCache;
+            _net = net;
+            _linkGroup = linkGroup;
+
+            int hash = type.ordinal();
+            hash = 31 * hash + id(store);
+            hash = 31 * hash + id(protocol);
+            hash = 31 * hash + id(dCache);
+            hash = 31 * hash + id(net);
+            hash = 31 * hash + (linkGroup == null ? -1 : linkGroup._id);
+            _hashCode = hash;
+        }
+
+        private static int id(CompiledUnit unit) {
+            return unit == null ? -1 : unit._id;
+        }
+
+        private CompiledUnit[] getUnits() {
+            return new CompiledUnit[]{_store, _protocol, _dCache, _net};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MatchKey)) {
+                return false;
+            }
+            MatchKey other = (MatchKey) o;
+            return _hashCode == other._hashCode
+                  && _type == other._type
+                  && _store == other._store
+                  && _protocol == other._protocol
+                  && _dCache == other._dCache
+                  && _net == other._net
+                  && _linkGroup == other._linkGroup;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hashCode;
+        }
+    }
+
+    /**
+     * A preference level with its candidate pools, before the dynamic state of the pools is taken
+     * into account.
+     */
+    static final class Level {
+
+        private final Pool[] _pools;
+        private final String _tag;
+
+        private Level(List<Pool> pools, String tag) {
+            _pools = pools.toArray(Pool[]::new);
+            _tag = tag;
+        }
+
+        Pool[] getPools() {
+            return _pools;
+        }
+
+        String getTag() {
+            return _tag;
+        }
+    }
+
+    /**
+     * Net units of one address family, indexed by netmask length and masked address. Lookups
+     * probe the masks from the most to the least specific one, hence the cost depends on the
+     * number of distinct netmasks rather than on the number of net units.
+     */
+    private static final class NetIndex {
+
+        private final int[] _masks;
+        private final List<Map<ByteBuffer, CompiledUnit>> _byMask = new ArrayList<>();
+
+        /**
+         * @param netUnits net units sorted by descending netmask length
+         * @param units    all compiled units by name
+         */
+        private NetIndex(Collection<NetUnit> netUnits, Map<String, CompiledUnit> units) {
+            Map<Integer, Map<ByteBuffer, CompiledUnit>> byMask =
+                  new TreeMap<>((a, b) -> Integer.compare(b, a));
+            for (NetUnit netUnit : netUnits) {
+                CompiledUnit unit = units.get(netUnit.getName());
+                if (unit == null) {
+                    continue;
+                }
+                byte[] address = mask(netUnit.getHostAddress().getAddress(), netUnit.getMask());
+                byMask.computeIfAbsent(netUnit.getMask(), m -> new HashMap<>())
+                      .putIfAbsent(ByteBuffer.wrap(address), unit);
+            }
+            _masks = byMask.keySet().stream().mapToInt(Integer::intValue).toArray();
+            _byMask.addAll(byMask.values());
+        }
+
+        private CompiledUnit match(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            for (int i = 0; i < _masks.length; i++) {
+                CompiledUnit unit = _byMask.get(i)
+                      .get(ByteBuffer.wrap(mask(bytes.clone(), _masks[i])));
+                if (unit != null) {
+                    return unit;
+                }
+            }
+            return null;
+        }
+
+        private static byte[] mask(byte[] address, int mask) {
+            for (int i = 0; i < address.length; i++) {
+                int bits = mask - i * 8;
+                if (bits <= 0) {
+                    address[i] = 0;
+                } else if (bits < 8) {
+                    address[i] &= (byte) (0xFF << (8 - bits));
+                }
+            }
+            return address;
+        }
+    }
+}
@@ -52,7 +52,6 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -96,18 +95,23 @@ public class PoolSelectionUnitV2
     private final Map<String, LinkGroup> _linkGroups = new HashMap<>();
     private final Map<String, UGroup> _uGroups = new HashMap<>();
     private final Map<String, Unit> _units = new HashMap<>();
-    private final Cache<String, PoolPreferenceLevel[]> cachedMatchValue =
+    private final Cache<PoolSelectionMatcher.MatchKey, PoolPreferenceLevel[]> cachedMatchValue =
           CacheBuilder.newBuilder()
                 .maximumSize(100000)
                 .build();
     private boolean _useRegex;
-    private boolean _allPoolsActive;
+    private volatile boolean _allPoolsActive;
     public  boolean _cachingEnabeled;
 
     /**
      * Ok, this is the critical part of PoolManager, but (!!!) the whole select path is READ-ONLY,
      * unless we change setup. So ReadWriteLock is what we are looking for, while is a point of
      * serialization.
+     * <p>
+     * The select path does not take the lock at all: it uses a compiled snapshot of the setup,
+     * which is built on demand under the read lock and discarded when the write lock is released.
+     * Commands that only change the state of pools keep the snapshot, as pool state is evaluated
+     * for every request.
      */
 
     private final ReentrantReadWriteLock _psuReadWriteLock = new ReentrantReadWriteLock();
@@ -116,6 +120,7 @@ public class PoolSelectionUnitV2
 
     private final NetHandler _netHandler = new NetHandler();
     private transient PnfsHandler _pnfsHandler;
+    private transient volatile PoolSelectionMatcher _matcher;
 
     public void setCachingEnabeled(boolean cachingEnabeled) {
         _cachingEnabeled = cachingEnabeled;
@@ -439,7 +444,7 @@ public class PoolSelectionUnitV2
                 pool.setActive(active);
             }
         } finally {
-            wunlock();
+            wunlockPoolState();
         }
     }
 
@@ -453,7 +458,7 @@ public class PoolSelectionUnitV2
             }
             return count;
         } finally {
-            wunlock();
+            wunlockPoolState();
         }
     }
 
@@ -601,15 +606,6 @@ public class PoolSelectionUnitV2
         return resultMap;
     }
 
-    private LinkMap match(LinkMap linkMap, Unit unit, LinkGroup linkGroup,
-          DirectionType ioType) {
-        Map<String, Link> map = match(unit, linkGroup, ioType);
-        for (Link link : map.values()) {
-            linkMap.addLink(link);
-        }
-        return linkMap;
-    }
-
     /**
      * Matches using logical AND.
      * <p>
@@ -655,71 +651,65 @@ public class PoolSelectionUnitV2
         String storeUnitName = storageClass + "@" + hsm;
 
         Map<String, String> variableMap = storageInfo.getMap();
-        String netUnitGroup = null;
 
         LOGGER.debug(
               "running match: type={} store={} dCacheUnit={} net={} protocol={} keys={} locations={} linkGroup={}",
               type, storeUnitName, dCacheUnitName, netUnitName, protocolUnitName,
               variableMap, storageInfo.locations(), linkGroupName);
 
+        PoolSelectionMatcher matcher = getMatcher();
+        PoolSelectionMatcher.MatchKey key = matcher.resolve(type, storeUnitName,
+              protocolUnitName, dCacheUnitName, netUnitName, linkGroupName);
 
-
-        String cacheKey = null;
         if (_cachingEnabeled) {
-
-            try {
-                Unit unit = _netHandler.match(netUnitName);
-                netUnitGroup = unit._uGroupList.values()
-                      .stream()
-                      .map(UGroup::getName).findFirst().get();
-
-            LOGGER.debug("this IP address  belongs to {} in uGroup {} ", netUnitName, netUnitGroup);
-
-
-            } catch (UnknownHostException e) {
-                LOGGER.error("Caching did not work, please check the configuration " + e);
-            }
-
-            cacheKey = type.toString() + storeUnitName + dCacheUnitName +
-                  netUnitGroup + protocolUnitName + linkGroupName;
-
-            PoolPreferenceLevel[] cachedMatchValueTmp = cachedMatchValue.getIfPresent(cacheKey);
+            PoolPreferenceLevel[] cachedMatchValueTmp = cachedMatchValue.getIfPresent(key);
             if (cachedMatchValueTmp != null) {
-                //counter = counter + 1;
-                //System.out.println("counter " + counter);
                 return cachedMatchValueTmp;
-
             }
         }
 
-        PoolPreferenceLevel[] result = null;
-        rlock();
-        try {
-            List<Unit> units = new ArrayList<>();
-
-            resolveStorageUnit(units, storeUnitName);
-            addProtocolUnit(units, protocolUnitName);
-            addDCacheUnit(units, dCacheUnitName);
-            addNetUnit(units, netUnitName);
-
-            LinkGroup linkGroup = resolveLinkGroup(linkGroupName);
-            Set<Link> sortedSet = findMatchingLinks(units, linkGroup, type);
-
-            List<List<Link>> linkLists = matchPreferences(type, sortedSet);
-            result = buildPreferenceLevels(type, linkLists, fileAttributes, exclude);
-        } finally {
-            runlock();
+        PoolSelectionMatcher.Level[] levels = matcher.getLevels(key);
+        if (levels == null) {
+            rlock();
+            try {
+                levels = matcher.computeLevels(key);
+            } finally {
+                runlock();
+            }
         }
+        PoolPreferenceLevel[] result = buildPreferenceLevels(type, levels, fileAttributes, exclude);
 
         if (LOGGER.isDebugEnabled()) {
             logResult(result);
         }
         if (_cachingEnabeled){
-            cachedMatchValue.put(cacheKey, result);
+            cachedMatchValue.put(key, result);
         }
         return result;
     }
 
+    /**
+     * Returns the compiled snapshot of the current setup, compiling it if the setup has changed
+     * since the last call.
+     */
+    private PoolSelectionMatcher getMatcher() {
+        PoolSelectionMatcher matcher = _matcher;
+        if (matcher == null) {
+            rlock();
+            try {
+                matcher = _matcher;
+                if (matcher == null) {
+                    matcher = new PoolSelectionMatcher(_units.values(), _netHandler,
+                          _linkGroups.values(), _useRegex);
+                    _matcher = matcher;
+                }
+            } finally {
+                runlock();
+            }
+        }
+        return matcher;
+    }
+
     private void resolveStorageUnit(List<Unit> list, String storeUnitName) {
         if (_useRegex) {
             Unit universalCoverage = null;
@@ -779,213 +769,31 @@ public class PoolSelectionUnitV2
         }
     }
 
-    private void addProtocolUnit(List<Unit> list, String protocolUnitName) {
-        if (protocolUnitName != null) {
-            Unit unit = findProtocolUnit(protocolUnitName);
-            if (unit == null) {
-                LOGGER.debug("no matching protocol unit found for: {}", protocolUnitName);
-                /* for backward compatibility, do not throw exception */
-                return;
-            }
-
-            LOGGER.debug("matching protocol unit found: {}", unit);
-            list.add(unit);
-        }
-    }
-
-    private void addDCacheUnit(List<Unit> list, String dCacheUnitName) {
-        if (dCacheUnitName != null) {
-            Unit unit = _units.get(dCacheUnitName);
-
-            if (unit == null || unit.getType() != DCACHE) {
-                LOGGER.debug("no matching dCache unit found for: {}", dCacheUnitName);
-                throw new IllegalArgumentException("Unit not found : "
-                      + dCacheUnitName);
-            }
-
-            LOGGER.debug("matching dCache unit found: {}", unit);
-            list.add(unit);
-        }
-    }
-
-    private void addNetUnit(List<Unit> list, String netUnitName) {
-        if (netUnitName != null) {
-            try {
-                Unit unit;
-                if (DEFAULT_IPV4_NET_UNIT.equals(netUnitName)
-                      || DEFAULT_IPV6_NET_UNIT.equals(netUnitName)) {
-                    unit = _units.get(netUnitName);
-                } else {
-                    unit = _netHandler.match(netUnitName);
-                }
-
-                if (unit == null) {
-                    LOGGER.debug("no matching net unit found for: {}", netUnitName);
-                    /* for backward compatibility, do not throw exception */
-                    return;
-                }
-
-                LOGGER.debug("matching net unit found: {}", unit);
-                list.add(unit);
-            } catch (UnknownHostException uhe) {
-                throw new IllegalArgumentException(
-                      "NetUnit not resolved : " + netUnitName);
-            }
-        }
-    }
-
-    private LinkGroup resolveLinkGroup(String linkGroupName) {
-        LinkGroup linkGroup = null;
-        if (linkGroupName != null) {
-            linkGroup = _linkGroups.get(linkGroupName);
-            if (linkGroup == null) {
-                LOGGER.debug("LinkGroup not found : {}", linkGroupName);
-                throw new IllegalArgumentException("LinkGroup not found : "
-                      + linkGroupName);
-            }
-        }
-        return linkGroup;
-    }
-
-    private Set<Link> findMatchingLinks(List<Unit> units, LinkGroup linkGroup,
-          DirectionType type) {
-        Set<Link> sortedSet = new TreeSet<>(new LinkComparator(type));
-        LinkMap matchingLinks = new LinkMap();
-        int fitCount = units.size();
-        for (Unit unit : units) {
-            matchingLinks = match(matchingLinks, unit, linkGroup, type);
-        }
-
-        Iterator<Link> linkIterator = matchingLinks.iterator();
-        while (linkIterator.hasNext()) {
-            Link link = linkIterator.next();
-            if (link._uGroupList.size() <= fitCount) {
-                sortedSet.add(link);
-            }
-        }
-
-        return sortedSet;
-    }
-
-    private List<List<Link>> matchPreferences(DirectionType type, Set<Link> sortedSet) {
-        int pref = -1;
-        List<List<Link>> linkLists = new ArrayList<>();
-        List<Link> currentList = null;
-
-        switch (type) {
-            case READ:
-                for (Link link : sortedSet) {
-                    if (link.getReadPref() < 1) {
-                        continue;
-                    }
-                    if (link.getReadPref() != pref) {
-                        linkLists.add(currentList = new ArrayList<>());
-                        pref = link.getReadPref();
-                    }
-                    currentList.add(link);
-                }
-                break;
-            case CACHE:
-                for (Link link : sortedSet) {
-                    if (link.getCachePref() < 1) {
-                        continue;
-                    }
-                    if (link.getCachePref() != pref) {
-                        linkLists.add(currentList = new ArrayList<>());
-                        pref = link.getCachePref();
-                    }
-                    currentList.add(link);
-                }
-                break;
-            case P2P:
-                for (Link link : sortedSet) {
-                    int tmpPref = link.getP2pPref() < 0 ? link.getReadPref()
-                          : link.getP2pPref();
-                    if (tmpPref < 1) {
-                        continue;
-                    }
-                    if (tmpPref != pref) {
-                        linkLists.add(currentList = new ArrayList<>());
-                        pref = tmpPref;
-                    }
-                    currentList.add(link);
-                }
-                break;
-            case WRITE:
-                for (Link link : sortedSet) {
-                    if (link.getWritePref() < 1) {
-                        continue;
-                    }
-                    if (link.getWritePref() != pref) {
-                        linkLists.add(currentList = new ArrayList<>());
-                        pref = link.getWritePref();
-                    }
-                    currentList.add(link);
-                }
-        }
-
-        return linkLists;
-    }
-
     private PoolPreferenceLevel[] buildPreferenceLevels(DirectionType type,
-          List<List<Link>> linkLists, FileAttributes fileAttributes, Predicate<String> exclude) {
-        List<Link>[] linkListsArray = linkLists.toArray(List[]::new);
-        PoolPreferenceLevel[] result = new PoolPreferenceLevel[linkListsArray.length];
+          PoolSelectionMatcher.Level[] levels, FileAttributes fileAttributes,
+          Predicate<String> exclude) {
+        PoolPreferenceLevel[] result = new PoolPreferenceLevel[levels.length];
 
-        for (int i = 0; i < linkListsArray.length; i++) {
-            List<Link> linkList = linkListsArray[i];
+        for (int i = 0; i < levels.length; i++) {
             List<String> resultList = new ArrayList<>();
-            String tag = null;
-
-            for (Link link : linkList) {
-                if ((tag == null) && (link.getTag() != null)) {
-                    tag = link.getTag();
-                }
-
-                for (PoolCore poolCore : link._poolList.values()) {
-                    if (poolCore instanceof Pool) {
-                        Pool pool = (Pool) poolCore;
-                        LOGGER.debug("Pool: {} can read from tape? : {}", pool,
-                              pool.canReadFromTape());
-                        if (((type == DirectionType.READ && pool.canRead())
-                              || (type == DirectionType.CACHE && pool.canReadFromTape()
-                              && poolCanStageFile(pool, fileAttributes))
-                              || (type == DirectionType.WRITE && pool.canWrite())
-                              || (type == DirectionType.P2P && pool.canWriteForP2P()))
-                              && (_allPoolsActive || pool.isActive())) {
-                            if (exclude.test(pool.getName())) {
-                                LOGGER.debug(
-                                      "Qualifying pool {} is on excluded host {}; skipping.",
-                                      pool.getName(),
-                                      pool.getCanonicalHostName());
-                            } else {
-                                resultList.add(pool.getName());
-                            }
-                        }
+            for (Pool pool : levels[i].getPools()) {
+                LOGGER.debug("Pool: {} can read from tape? : {}", pool, pool.canReadFromTape());
+                if (((type == DirectionType.READ && pool.canRead())
+                      || (type == DirectionType.CACHE && pool.canReadFromTape()
+                      && poolCanStageFile(pool, fileAttributes))
+                      || (type == DirectionType.WRITE && pool.canWrite())
+                      || (type == DirectionType.P2P && pool.canWriteForP2P()))
+                      && (_allPoolsActive || pool.isActive())) {
+                    if (exclude.test(pool.getName())) {
+                        LOGGER.debug("Qualifying pool {} is on excluded host {}; skipping.",
+                              pool.getName(),
+                              pool.getCanonicalHostName());
                     } else {
-                        for (Pool pool : ((PGroup) poolCore)._poolList.values()) {
-                            LOGGER.debug("Pool: {} can read from tape? : {}", pool,
-                                  pool.canReadFromTape());
-                            if (((type == DirectionType.READ && pool.canRead())
-                                  || (type == DirectionType.CACHE && pool.canReadFromTape()
-                                  && poolCanStageFile(pool, fileAttributes))
-                                  || (type == DirectionType.WRITE && pool.canWrite())
-                                  || (type == DirectionType.P2P && pool.canWriteForP2P()))
-                                  && (_allPoolsActive || pool.isActive())) {
-                                if (exclude.test(pool.getName())) {
-                                    LOGGER.debug(
-                                          "Qualifying pool {} is on excluded host {}; skipping.",
-                                          pool.getName(),
-                                          pool.getCanonicalHostName());
-                                } else {
-                                    resultList.add(pool.getName());
-                                }
-                            }
-                        }
+                        resultList.add(pool.getName());
                     }
                 }
             }
-            result[i] = new PoolPreferenceLevel(resultList, tag);
+            result[i] = new PoolPreferenceLevel(resultList, levels[i].getTag());
         }
 
         return result;
@@ -1177,7 +985,7 @@ public class PoolSelectionUnitV2
                           "Syntax error, no such mode: " + mode);
             }
         } finally {
-            wunlock();
+            wunlockPoolState();
         }
     }
 
@@ -1289,18 +1097,23 @@ public class PoolSelectionUnitV2
 
     public String setRegex(String onOff) {
         String retVal;
-        switch (onOff) {
-            case "on":
-                _useRegex = true;
-                retVal = "regex turned on";
-                break;
-            case "off":
-                _useRegex = false;
-                retVal = "regex turned off";
-                break;
-            default:
-                throw new IllegalArgumentException(
-                      "please set regex either on or off");
+        wlock();
+        try {
+            switch (onOff) {
+                case "on":
+                    _useRegex = true;
+                    retVal = "regex turned on";
+                    break;
+                case "off":
+                    _useRegex = false;
+                    retVal = "regex turned off";
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                          "please set regex either on or off");
+            }
+        } finally {
+            wunlock();
         }
         return retVal;
     }
@@ -1356,7 +1169,7 @@ public class PoolSelectionUnitV2
             }
             return poolCountDescriptionFor(count) + " updated";
         } finally {
-            wunlock();
+            wunlockPoolState();
         }
     }
 
@@ -2460,7 +2273,7 @@ public class PoolSelectionUnitV2
             }
 
         } finally {
-            wunlock();
+            wunlockPoolState();
         }
     }
 
@@ -2668,6 +2481,15 @@ public class PoolSelectionUnitV2
     }
 
     protected void wunlock() {
+        _matcher = null;
+        _psuWriteLock.unlock();
+    }
+
+    /**
+     * Releases the write lock after a change that only affects the state of pools, but not the
+     * setup, thus keeping the compiled snapshot used by the select path.
+     */
+    private void wunlockPoolState() {
         _psuWriteLock.unlock();
     }
 
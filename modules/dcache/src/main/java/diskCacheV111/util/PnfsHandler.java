@@ -7,6 +7,7 @@ import static org.dcache.namespace.FileType.LINK;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import diskCacheV111.namespace.NameSpaceProvider.Link;
+import diskCacheV111.vehicles.Message;
 import diskCacheV111.vehicles.PnfsAddCacheLocationMessage;
 import diskCacheV111.vehicles.PnfsClearCacheLocationMessage;
 import diskCacheV111.vehicles.PnfsCreateEntryMessage;
@@ -47,6 +48,7 @@ import org.dcache.util.ChecksumType;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsCreateSymLinkMessage;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributesBatch;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsSetFileAttributes;
 import org.slf4j.Logger;
@@ -193,6 +195,16 @@ public class PnfsHandler implements CellMessageSender {
         send(msg);
     }
 
+    /**
+     * Sends a notification to a particular PnfsManager instance, typically the one that sent an
+     * earlier reply. No failure is reported if the message could not be delivered.
+     */
+    public void notify(CellPath destination, Message msg) {
+        checkState(_cellStub != null, "Missing endpoint");
+        msg.setReplyRequired(false);
+        _cellStub.notify(destination, msg);
+    }
+
     public void clearCacheLocation(PnfsId id) {
         clearCacheLocation(id, false);
     }
@@ -486,6 +498,20 @@ public class PnfsHandler implements CellMessageSender {
         return request(new PnfsGetFileAttributes(pnfsid, attr)).getFileAttributes();
     }
 
+    /**
+     * Get file attributes of several files in a single request. The PnfsManager is free to
+     * return fewer attributes than requested. Files that do not exist or whose attributes may not
+     * be read are not included in the result.
+     *
+     * @param pnfsids
+     * @param attr    array of requested attributes.
+     * @return requested attributes by PnfsId
+     */
+    public Map<PnfsId, FileAttributes> getFileAttributes(Collection<PnfsId> pnfsids,
+          Set<FileAttribute> attr) throws CacheException {
+        return request(new PnfsGetFileAttributesBatch(pnfsids, attr)).getFileAttributes();
+    }
+
     /**
      * Get file attributes. The PnfsManager is free to return fewer attributes than requested. If
      * <code>attr</code> is an empty array, file existence if checked.
@@ -24,6 +24,7 @@ import diskCacheV111.vehicles.PnfsRemoveLabelsMessage;
 import diskCacheV111.vehicles.PnfsWriteExtendedAttributesMessage;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.security.auth.Subject;
 import org.dcache.auth.attributes.Restrictions;
@@ -176,6 +177,13 @@ public class RemoteNameSpaceProvider implements NameSpaceProvider {
         return pnfs.getFileAttributes(id, attr);
     }
 
+    @Override
+    public Map<PnfsId, FileAttributes> getFileAttributes(Subject subject,
+          Collection<PnfsId> ids, Set<FileAttribute> attr) throws CacheException {
+        PnfsHandler pnfs = new PnfsHandler(_pnfs, subject, Restrictions.none());
+        return pnfs.getFileAttributes(ids, attr);
+    }
+
     @Override
     public FileAttributes setFileAttributes(Subject subject, PnfsId id,
           FileAttributes attr, Set<FileAttribute> acquire) throws CacheException {
@@ -197,6 +205,20 @@ public class RemoteNameSpaceProvider implements NameSpaceProvider {
         }
     }
 
+    @Override
+    public void list(Subject subject, String path, Glob glob, String startAfter,
+          Range<Integer> range, Set<FileAttribute> attrs, ListHandler handler)
+          throws CacheException {
+        try (DirectoryStream stream = _handler.list(subject, Restrictions.none(),
+              FsPath.create(path), glob, startAfter, range, attrs)) {
+            for (DirectoryEntry entry : stream) {
+                handler.addEntry(entry.getName(), entry.getFileAttributes());
+            }
+        } catch (InterruptedException e) {
+            throw new TimeoutCacheException(e.getMessage());
+        }
+    }
+
     @Override
     public void listVirtualDirectory(Subject subject, String path,
                      Range<Integer> range, Set<FileAttribute> attrs, ListHandler handler)
@@ -21,7 +21,9 @@ import dmg.cells.nucleus.CDC;
 import eu.emi.security.authn.x509.CrlCheckingMode;
 import eu.emi.security.authn.x509.OCSPCheckingMode;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
 import org.dcache.ssl.CanlContextFactory;
 import org.springframework.beans.factory.annotation.Required;
@@ -33,6 +35,10 @@ abstract class AbstractSslContextFactory<C> implements Callable<C> {
     protected Path serverCaPath;
     protected CrlCheckingMode crlCheckingMode;
     protected OCSPCheckingMode ocspCheckingMode;
+    protected long sessionCacheSize;
+    protected long sessionTimeout;
+    protected TimeUnit sessionTimeoutUnit = TimeUnit.SECONDS;
+    protected List<String> applicationProtocols = List.of();
 
     private final Class type;
 
@@ -65,6 +71,22 @@ abstract class AbstractSslContextFactory<C> implements Callable<C> {
         this.ocspCheckingMode = ocspCheckingMode;
     }
 
+    public void setSessionCacheSize(long sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    public void setSessionTimeout(long sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
+    public void setSessionTimeoutUnit(TimeUnit sessionTimeoutUnit) {
+        this.sessionTimeoutUnit = sessionTimeoutUnit;
+    }
+
+    public void setApplicationProtocols(List<String> applicationProtocols) {
+        this.applicationProtocols = applicationProtocols;
+    }
+
     private Callable<C> contextHolder;
 
     @PostConstruct
@@ -75,6 +97,9 @@ abstract class AbstractSslContextFactory<C> implements Callable<C> {
               .withOcspCheckingMode(ocspCheckingMode)
               .withCertificatePath(serverCertificatePath)
               .withKeyPath(serverKeyPath)
+              .withSessionCacheSize(sessionCacheSize)
+              .withSessionTimeout(sessionTimeout, sessionTimeoutUnit)
+              .withApplicationProtocols(applicationProtocols)
               .withLazy(false)
               .withLoggingContext(new CDC()::restore)
               .withLoggingContext(new CDC()::restore)
@@ -21,6 +21,7 @@ import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpResponseStatus.PARTIAL_CONTENT;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.dcache.util.Checksums.TO_RFC3230;
 import static org.dcache.util.StringMarkup.percentEncode;
 import static org.dcache.util.StringMarkup.quotedString;
@@ -66,8 +67,10 @@ import java.net.http.HttpHeaders;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -127,6 +130,12 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
      */
     private final boolean _useZeroCopy;
 
+    /**
+     * Time in milliseconds for which a mover serving range requests is kept alive after the last
+     * client released it.
+     */
+    private final long _lingerTimeout;
+
     /**
      * The file being uploaded. Even though we only keep the file open for the processing of a
      * single HTTP message, that one message may have been split into several chunks. Hence we have
@@ -157,10 +166,11 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
     }
 
     public HttpPoolRequestHandler(NettyTransferService<HttpProtocolInfo> server, int chunkSize,
-          boolean useZeroCopy) {
+          boolean useZeroCopy, long lingerTimeout) {
         _server = server;
         _chunkSize = chunkSize;
         _useZeroCopy = useZeroCopy;
+        _lingerTimeout = lingerTimeout;
     }
 
     private static Optional<String> wantDigest(HttpRequest request) {
@@ -288,13 +298,49 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
                   ? errors.errorForUpload : errors.errorForDownload;
             if (possibleError.isPresent()) {
                 file.release(possibleError.get());
-            } else {
+            } else if (file == _writeChannel) {
                 file.release();
+            } else {
+                file.releaseLingering(_lingerTimeout, MILLISECONDS);
             }
         }
         _files.clear();
     }
 
+    /**
+     * Releases a file that was opened for a range request. Clients fetching several ranges in
+     * parallel open one connection per range; the mover lingers so that connections attaching
+     * after others have finished continue to be served by the same mover.
+     */
+    private void releaseRangeRead(NettyTransferService<HttpProtocolInfo>.NettyMoverChannel file) {
+        if (_files.remove(file)) {
+            file.releaseLingering(_lingerTimeout, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sorts the ranges and merges those that overlap or are adjacent, as permitted by RFC 7233,
+     * section 4.1. This avoids reading the same data twice and the overhead of separate parts
+     * for ranges that form a contiguous block.
+     */
+    static List<HttpByteRange> coalesce(List<HttpByteRange> ranges) {
+        List<HttpByteRange> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(HttpByteRange::getLower));
+        List<HttpByteRange> result = new ArrayList<>(sorted.size());
+        HttpByteRange current = sorted.get(0);
+        for (HttpByteRange range : sorted.subList(1, sorted.size())) {
+            if (range.getLower() <= current.getUpper() + 1) {
+                current = new HttpByteRange(current.getLower(),
+                      Math.max(current.getUpper(), range.getUpper()));
+            } else {
+                result.add(current);
+                current = range;
+            }
+        }
+        result.add(current);
+        return result;
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         LOGGER.debug("HTTP connection from {} closed", ctx.channel().remoteAddress());
@@ -390,6 +436,10 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
      * <p>
      * Finds the correct mover channel using the UUID in the GET. Range queries are supported. The
      * file will be sent to the remote peer in chunks to avoid server side memory issues.
+     * <p>
+     * Requests on several connections using the same UUID share the mover, allowing clients to
+     * fetch ranges of the file in parallel. Overlapping and adjacent ranges of a multi-range
+     * request are coalesced.
      */
     @Override
     protected ChannelFuture doOnGet(ChannelHandlerContext context,
@@ -412,6 +462,9 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
 
             fileSize = file.size();
             ranges = parseHttpRange(request, 0, fileSize - 1);
+            if (ranges != null && ranges.size() > 1) {
+                ranges = coalesce(ranges);
+            }
         } catch (Redirect e) {
             return context.writeAndFlush(e.createResponse());
         } catch (HttpException e) {
@@ -445,7 +498,11 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
             // Release the file immediately after supplying all of the file's content.  We're
             // assuming that the client will not make further requests against this URL.  This is
             // done to send the DoorTransferFinishedMessage in a timely fashion.
-            writeAndFlush.addListener(f -> file.release());
+            writeAndFlush.addListener(f -> {
+                if (_files.remove(file)) {
+                    file.release();
+                }
+            });
 
             return writeAndFlush;
         } else if (ranges.size() == 1) {
@@ -461,7 +518,7 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
 
             var writeAndFlush = context.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
             if (stopMover) {
-                writeAndFlush.addListener(f -> file.release());
+                writeAndFlush.addListener(f -> releaseRangeRead(file));
             }
             return writeAndFlush;
         } else {
@@ -496,7 +553,7 @@ public class HttpPoolRequestHandler extends HttpRequestHandler {
 
             var writeAndFlush =  context.writeAndFlush(new DefaultLastHttpContent(endMarker));
             if (stopMover) {
-                writeAndFlush.addListener(f -> file.release());
+                writeAndFlush.addListener(f -> releaseRangeRead(file));
             }
             return writeAndFlush;
         }
@@ -0,0 +1,88 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.http;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics about the cost of setting up connections and requests of an HTTP transfer service.
+ * <p>
+ * The setup time of a request is the time from having decoded the request headers until the
+ * response headers are written, i.e. the time needed to locate and open the mover and to
+ * prepare the response. It is only recorded for GET and HEAD requests, as the response to an
+ * upload is only sent once all data has been received.
+ */
+public class HttpSetupStatistics {
+
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder http2Connections = new LongAdder();
+    private final LongAdder handshakes = new LongAdder();
+    private final LongAdder resumedHandshakes = new LongAdder();
+    private final LongAdder handshakeNanos = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder requestsOnReusedConnections = new LongAdder();
+    private final LongAdder setupNanos = new LongAdder();
+    private final LongAccumulator maxSetupNanos = new LongAccumulator(Long::max, 0);
+
+    public void connectionAccepted() {
+        connections.increment();
+    }
+
+    public void http2Negotiated() {
+        http2Connections.increment();
+    }
+
+    public void handshakeCompleted(long nanos, boolean isResumed) {
+        handshakes.increment();
+        handshakeNanos.add(nanos);
+        if (isResumed) {
+            resumedHandshakes.increment();
+        }
+    }
+
+    public void requestSetUp(long nanos, boolean isOnReusedConnection) {
+        requests.increment();
+        setupNanos.add(nanos);
+        maxSetupNanos.accumulate(nanos);
+        if (isOnReusedConnection) {
+            requestsOnReusedConnections.increment();
+        }
+    }
+
+    private static double averageMillis(long nanos, long count) {
+        return count == 0 ? 0 : nanos / (count * 1_000_000.0);
+    }
+
+    public void getInfo(PrintWriter pw) {
+        long handshakeCount = handshakes.sum();
+        long requestCount = requests.sum();
+        pw.printf("   Connections: %d (%d HTTP/2)\n", connections.sum(), http2Connections.sum());
+        if (handshakeCount > 0) {
+            pw.printf("   TLS handshakes: %d (%d resumed), average %.2f ms\n", handshakeCount,
+                  resumedHandshakes.sum(), averageMillis(handshakeNanos.sum(), handshakeCount));
+        }
+        pw.printf("   Requests: %d (%d on reused connections)\n", requestCount,
+              requestsOnReusedConnections.sum());
+        pw.printf("   Request setup time: average %.2f ms, max %.2f ms\n",
+              averageMillis(setupNanos.sum(), requestCount),
+              TimeUnit.NANOSECONDS.toMicros(maxSetupNanos.get()) / 1000.0);
+    }
+}
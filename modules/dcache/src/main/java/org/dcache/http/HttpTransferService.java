@@ -30,20 +30,30 @@ import diskCacheV111.vehicles.HttpDoorUrlInfoMessage;
 import diskCacheV111.vehicles.HttpProtocolInfo;
 import dmg.cells.nucleus.CellAddressCore;
 import dmg.cells.nucleus.CellPath;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.cors.CorsConfigBuilder;
 import io.netty.handler.codec.http.cors.CorsHandler;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
 
+import java.io.PrintWriter;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.dcache.pool.movers.NettyMover;
 import org.dcache.pool.movers.NettyTransferService;
 import org.slf4j.Logger;
@@ -73,6 +83,10 @@ public class HttpTransferService extends NettyTransferService<HttpProtocolInfo>
 
     private int chunkSize;
     private ImmutableMap<String, String> customHeaders;
+    private long lingerTimeout;
+    private TimeUnit lingerTimeoutUnit;
+
+    private final HttpSetupStatistics setupStatistics = new HttpSetupStatistics();
 
     public HttpTransferService() {
         super("http");
@@ -95,6 +109,38 @@ public class HttpTransferService extends NettyTransferService<HttpProtocolInfo>
         this.chunkSize = chunkSize;
     }
 
+    public long getLingerTimeout() {
+        return lingerTimeout;
+    }
+
+    @Required
+    public void setLingerTimeout(long lingerTimeout) {
+        this.lingerTimeout = lingerTimeout;
+    }
+
+    public TimeUnit getLingerTimeoutUnit() {
+        return lingerTimeoutUnit;
+    }
+
+    @Required
+    public void setLingerTimeoutUnit(TimeUnit lingerTimeoutUnit) {
+        this.lingerTimeoutUnit = lingerTimeoutUnit;
+    }
+
+    @Required
+    public void setClientIdleTimeout(long timeout) {
+        clientIdleTimeout = timeout;
+    }
+
+    @Required
+    public void setClientIdleTimeoutUnit(TimeUnit unit) {
+        clientIdleTimeoutUnit = unit;
+    }
+
+    protected HttpSetupStatistics getSetupStatistics() {
+        return setupStatistics;
+    }
+
     @Required
     public void setCustomHeaders(ImmutableMap<String, String> headers) {
         customHeaders = headers;
@@ -147,6 +193,11 @@ public class HttpTransferService extends NettyTransferService<HttpProtocolInfo>
     @Override
     protected void initChannel(Channel ch) throws Exception {
         super.initChannel(ch);
+        setupStatistics.connectionAccepted();
+        if (clientIdleTimeout > 0) {
+            ch.pipeline().addLast("idle", new IdleStateHandler(0, 0, clientIdleTimeout,
+                  clientIdleTimeoutUnit));
+        }
         addChannelHandlers(ch.pipeline());
     }
 
@@ -167,6 +218,35 @@ public class HttpTransferService extends NettyTransferService<HttpProtocolInfo>
         }
         pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
         pipeline.addLast("keepalive", new KeepAliveHandler());
+        pipeline.addLast("setup-time", new RequestSetupTimeHandler(setupStatistics, false));
+
+        if (!customHeaders.isEmpty()) {
+            pipeline.addLast("custom-headers", new CustomResponseHeadersHandler(customHeaders));
+        }
+
+        pipeline.addLast("cors", new CorsHandler(corsConfigBuilder().build()));
+
+        pipeline.addLast("transfer", new HttpPoolRequestHandler(this, chunkSize, canZeroCopy(),
+              lingerTimeoutUnit.toMillis(lingerTimeout)));
+    }
+
+    /**
+     * Adds the handlers for a single HTTP/2 stream. Each stream carries one request, which is
+     * handled just like a request received over HTTP/1.1, except that the stream rather than the
+     * connection is closed once the request is done.
+     *
+     * @param isConnectionReused whether other streams of the same connection preceded this one
+     */
+    protected void addStreamHandlers(ChannelPipeline pipeline, boolean isConnectionReused) {
+        pipeline.addLast("codec", new Http2StreamFrameToHttpObjectCodec(true));
+        pipeline.addLast("content", CONTENT_WRAPPER);
+
+        if (LOGGER.isDebugEnabled()) {
+            pipeline.addLast("logger", new LoggingHandler());
+        }
+        pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
+        pipeline.addLast("setup-time",
+              new RequestSetupTimeHandler(setupStatistics, isConnectionReused));
 
         if (!customHeaders.isEmpty()) {
             pipeline.addLast("custom-headers", new CustomResponseHeadersHandler(customHeaders));
@@ -174,6 +254,30 @@ public class HttpTransferService extends NettyTransferService<HttpProtocolInfo>
 
         pipeline.addLast("cors", new CorsHandler(corsConfigBuilder().build()));
 
-        pipeline.addLast("transfer", new HttpPoolRequestHandler(this, chunkSize, canZeroCopy()));
+        // HTTP/2 frames cannot carry file regions
+        pipeline.addLast("transfer", new HttpPoolRequestHandler(this, chunkSize, false,
+              lingerTimeoutUnit.toMillis(lingerTimeout)));
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        super.getInfo(pw);
+        setupStatistics.getInfo(pw);
+    }
+
+    private static final ContentWrapper CONTENT_WRAPPER = new ContentWrapper();
+
+    /**
+     * Wraps the raw buffers written by HttpPoolRequestHandler, such as chunks of a file or the
+     * boundaries of a multipart response, in HttpContent as expected by the HTTP/2 stream codec.
+     * The HTTP/1.1 encoder accepts raw buffers directly.
+     */
+    @Sharable
+    private static class ContentWrapper extends MessageToMessageEncoder<ByteBuf> {
+
+        @Override
+        protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+            out.add(new DefaultHttpContent(msg.retain()));
+        }
     }
 }
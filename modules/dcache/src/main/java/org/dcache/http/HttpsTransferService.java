@@ -21,10 +21,20 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.net.InetAddresses;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.vehicles.HttpProtocolInfo;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http.cors.CorsConfigBuilder;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.timeout.IdleStateEvent;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -34,6 +44,8 @@ import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.net.ssl.SSLEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,10 +58,26 @@ public class HttpsTransferService extends HttpTransferService {
 
     private Callable<SslContext> _sslContext;
 
+    private boolean _isHttp2Enabled;
+
+    private int _maxConcurrentStreams;
+
     public void setSslContext(Callable<SslContext> sslContext) {
         _sslContext = sslContext;
     }
 
+    /**
+     * Whether clients may select HTTP/2 during the TLS handshake. The SSL context must offer
+     * the h2 protocol through ALPN for clients to do so.
+     */
+    public void setHttp2Enabled(boolean isEnabled) {
+        _isHttp2Enabled = isEnabled;
+    }
+
+    public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+        _maxConcurrentStreams = maxConcurrentStreams;
+    }
+
     /**
      * Obtain the hostname or IP address from a URL.  Unlike URI#getHost, this method returns any
      * IPv6 address without the square brackets.
@@ -108,7 +136,72 @@ public class HttpsTransferService extends HttpTransferService {
     protected void addChannelHandlers(ChannelPipeline pipeline) throws Exception {
         SSLEngine engine = _sslContext.call().newEngine(pipeline.channel().alloc());
         engine.setWantClientAuth(false);
-        pipeline.addLast("ssl", new SslHandler(engine));
-        super.addChannelHandlers(pipeline);
+        SslHandler sslHandler = new SslHandler(engine);
+        pipeline.addLast("ssl", sslHandler);
+
+        long startTime = System.nanoTime();
+        long startSecond = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        sslHandler.handshakeFuture().addListener(f -> {
+            if (f.isSuccess()) {
+                /* A resumed session was created before the connection was accepted. Some
+                 * providers only record the creation time to the second, so a session resumed
+                 * within the second it was created is counted as new.
+                 */
+                long created = TimeUnit.MILLISECONDS.toSeconds(
+                      engine.getSession().getCreationTime());
+                getSetupStatistics().handshakeCompleted(System.nanoTime() - startTime,
+                      created < startSecond);
+            }
+        });
+
+        if (_isHttp2Enabled) {
+            pipeline.addLast("alpn",
+                  new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+                      @Override
+                      protected void configurePipeline(ChannelHandlerContext ctx,
+                            String protocol) throws Exception {
+                          if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                              addHttp2Handlers(ctx.pipeline());
+                          } else {
+                              HttpsTransferService.super.addChannelHandlers(ctx.pipeline());
+                          }
+                      }
+                  });
+        } else {
+            super.addChannelHandlers(pipeline);
+        }
+    }
+
+    /**
+     * Configures a connection on which the client selected HTTP/2. Each stream of the connection
+     * is served by its own set of handlers, see {@link #addStreamHandlers}.
+     */
+    private void addHttp2Handlers(ChannelPipeline pipeline) {
+        getSetupStatistics().http2Negotiated();
+        AtomicBoolean hasStreams = new AtomicBoolean();
+        pipeline.addLast("http2", Http2FrameCodecBuilder.forServer()
+              .initialSettings(Http2Settings.defaultSettings()
+                    .maxConcurrentStreams(_maxConcurrentStreams))
+              .build());
+        pipeline.addLast("multiplex",
+              new Http2MultiplexHandler(new ChannelInitializer<Http2StreamChannel>() {
+                  @Override
+                  protected void initChannel(Http2StreamChannel ch) {
+                      addStreamHandlers(ch.pipeline(), hasStreams.getAndSet(true));
+                  }
+              }));
+        pipeline.addLast("idle-close", new ChannelInboundHandlerAdapter() {
+            @Override
+            public void userEventTriggered(ChannelHandlerContext ctx, Object evt)
+                  throws Exception {
+                if (evt instanceof IdleStateEvent) {
+                    LOGGER.info("HTTP/2 connection from {} is idle; disconnecting.",
+                          ctx.channel().remoteAddress());
+                    ctx.close();
+                } else {
+                    super.userEventTriggered(ctx, evt);
+                }
+            }
+        });
     }
 }
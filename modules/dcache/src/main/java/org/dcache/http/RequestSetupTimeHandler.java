@@ -0,0 +1,81 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.http;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Records the time from receiving a request until its response headers are written in {@link
+ * HttpSetupStatistics}.
+ * <p>
+ * Responses are matched to requests in the order the requests were received, as mandated for
+ * pipelined HTTP/1.1 requests.
+ */
+public class RequestSetupTimeHandler extends ChannelDuplexHandler {
+
+    private static final long NOT_TIMED = -1;
+
+    private final HttpSetupStatistics _statistics;
+    private final Deque<Long> _inflight = new ArrayDeque<>();
+    private boolean _isConnectionReused;
+
+    /**
+     * @param statistics         where to record setup times
+     * @param isConnectionReused whether the channel carries requests of a connection that
+     *                           already served other requests, as for all but the first HTTP/2
+     *                           stream of a connection
+     */
+    public RequestSetupTimeHandler(HttpSetupStatistics statistics, boolean isConnectionReused) {
+        _statistics = statistics;
+        _isConnectionReused = isConnectionReused;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpMethod method = ((HttpRequest) msg).method();
+            boolean isTimed = method.equals(HttpMethod.GET) || method.equals(HttpMethod.HEAD);
+            _inflight.offerLast(isTimed ? System.nanoTime() : NOT_TIMED);
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+          throws Exception {
+        if (msg instanceof HttpResponse
+              && !((HttpResponse) msg).status().equals(HttpResponseStatus.CONTINUE)) {
+            Long start = _inflight.pollFirst();
+            if (start != null && start != NOT_TIMED) {
+                _statistics.requestSetUp(System.nanoTime() - start, _isConnectionReused);
+            }
+            if (start != null) {
+                _isConnectionReused = true;
+            }
+        }
+        super.write(ctx, msg, promise);
+    }
+}
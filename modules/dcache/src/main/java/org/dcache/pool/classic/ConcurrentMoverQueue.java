@@ -0,0 +1,253 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.pool.classic.MoverRequestScheduler.Order;
+import org.dcache.pool.classic.MoverRequestScheduler.PrioritizedRequest;
+import org.dcache.util.IoPrioritizable;
+import org.dcache.util.IoPriority;
+
+/**
+ * A lock-free {@link MoverQueue}.
+ * <p>
+ * Requests are queued in one concurrent deque per {@link IoPriority}. The next request is taken
+ * from the front of the non-empty deque with the highest priority. In FIFO order new requests are
+ * added to the back of their deque, in LIFO order to the front. Job slots and queued requests are
+ * counted with atomic counters, so neither submission, dispatch nor the queue statistics take a
+ * lock.
+ * <p>
+ * Since submitting a request and releasing a job slot are not atomic with respect to each other,
+ * both sides recheck the other after their own update: a submitter that queued a request polls for
+ * a free slot, and a releaser that found the queue empty polls again if a request was queued in the
+ * meantime. Thus no request is left queued while a job slot is free.
+ */
+class ConcurrentMoverQueue implements MoverQueue {
+
+    private static final IoPriority[] PRIORITIES = IoPriority.values();
+
+    /**
+     * Queued requests by priority.
+     */
+    private final List<ConcurrentLinkedDeque<PrioritizedRequest>> _queues;
+
+    /**
+     * Number of queued requests.
+     */
+    private final AtomicInteger _queued = new AtomicInteger();
+
+    /**
+     * Number of job slots in use.
+     */
+    private final AtomicInteger _active = new AtomicInteger();
+
+    private volatile int _maxActive;
+
+    private volatile Order _order;
+
+    ConcurrentMoverQueue(Order order, int maxJobs) {
+        checkArgument(maxJobs >= 0);
+        _order = order;
+        _maxActive = maxJobs;
+        _queues = new ArrayList<>(PRIORITIES.length);
+        for (int i = 0; i < PRIORITIES.length; i++) {
+            _queues.add(new ConcurrentLinkedDeque<>());
+        }
+    }
+
+    private ConcurrentLinkedDeque<PrioritizedRequest> queueOf(PrioritizedRequest request) {
+        return _queues.get(request.getPriority().ordinal());
+    }
+
+    private boolean tryAcquire() {
+        int active;
+        do {
+            active = _active.get();
+            if (active >= _maxActive) {
+                return false;
+            }
+        } while (!_active.compareAndSet(active, active + 1));
+        return true;
+    }
+
+    private void release() {
+        _active.decrementAndGet();
+    }
+
+    private boolean isEmpty() {
+        for (ConcurrentLinkedDeque<PrioritizedRequest> queue : _queues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PrioritizedRequest pollQueue() {
+        for (int i = _queues.size() - 1; i >= 0; i--) {
+            PrioritizedRequest request = _queues.get(i).pollFirst();
+            if (request != null) {
+                _queued.decrementAndGet();
+                return request;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean submit(PrioritizedRequest request) {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (_order == Order.FIFO) {
+            queueOf(request).offerLast(request);
+        } else {
+            queueOf(request).offerFirst(request);
+        }
+        _queued.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public PrioritizedRequest nextOrRelease() {
+        PrioritizedRequest request = pollQueue();
+        if (request != null) {
+            return request;
+        }
+        release();
+        return poll();
+    }
+
+    @Override
+    public PrioritizedRequest poll() {
+        while (tryAcquire()) {
+            PrioritizedRequest request = pollQueue();
+            if (request != null) {
+                return request;
+            }
+            release();
+            if (isEmpty()) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(PrioritizedRequest request) {
+        if (queueOf(request).remove(request)) {
+            _queued.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void drainTo(Collection<? super PrioritizedRequest> requests) {
+        PrioritizedRequest request;
+        while ((request = pollQueue()) != null) {
+            requests.add(request);
+        }
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (_active.get() > 0) {
+            if (deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return true;
+    }
+
+    @Override
+    public int getQueueSize() {
+        /* The counter is updated after the deques, so it may briefly be negative.
+         */
+        return Math.max(0, _queued.get());
+    }
+
+    @Override
+    public int getActiveJobs() {
+        return _active.get();
+    }
+
+    @Override
+    public int getMaxActiveJobs() {
+        return _maxActive;
+    }
+
+    @Override
+    public void setMaxActiveJobs(int maxJobs) {
+        checkArgument(maxJobs >= 0);
+        _maxActive = maxJobs;
+    }
+
+    @Override
+    public Order getOrder() {
+        return _order;
+    }
+
+    /**
+     * Changes the order of the queue. Requests queued before the change are reordered; while
+     * this happens, concurrent calls may not see them.
+     */
+    @Override
+    public synchronized void setOrder(Order order) {
+        if (order == _order) {
+            return;
+        }
+        _order = order;
+
+        Comparator<IoPrioritizable> comparator =
+              Comparator.comparingLong(IoPrioritizable::getCreateTime);
+        if (order == Order.LIFO) {
+            comparator = comparator.reversed();
+        }
+
+        for (ConcurrentLinkedDeque<PrioritizedRequest> queue : _queues) {
+            List<PrioritizedRequest> requests = new ArrayList<>();
+            PrioritizedRequest request;
+            while ((request = queue.pollFirst()) != null) {
+                requests.add(request);
+            }
+            requests.sort(comparator);
+
+            /* Requests submitted concurrently are newer than the ones being
+             * reordered and were added according to the new order.
+             */
+            if (order == Order.FIFO) {
+                for (int i = requests.size() - 1; i >= 0; i--) {
+                    queue.offerFirst(requests.get(i));
+                }
+            } else {
+                requests.forEach(queue::offerLast);
+            }
+        }
+    }
+}
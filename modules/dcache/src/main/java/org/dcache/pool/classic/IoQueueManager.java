@@ -34,6 +34,7 @@ import org.dcache.pool.FaultEvent;
 import org.dcache.pool.FaultListener;
 import org.dcache.pool.classic.MoverRequestScheduler.Order;
 import org.dcache.pool.classic.MoverRequestScheduler.PrioritizedRequest;
+import org.dcache.pool.classic.MoverRequestScheduler.QueueType;
 import org.dcache.util.IoPriority;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +75,11 @@ public class IoQueueManager
      */
     private final AtomicInteger counter = new AtomicInteger();
 
+    /**
+     * Queue implementation used by all mover queues.
+     */
+    private final QueueType queueType;
+
     /**
      * Default queue used when named queue does not exist.
      */
@@ -91,13 +97,22 @@ public class IoQueueManager
 
 
     public IoQueueManager() {
+        this(QueueType.LOCKING);
+    }
+
+    public IoQueueManager(String queueType) {
+        this(QueueType.valueOf(queueType.toUpperCase()));
+    }
+
+    public IoQueueManager(QueueType queueType) {
+        this.queueType = queueType;
         defaultQueue = createQueue(DEFAULT_QUEUE, Order.LIFO);
         p2pQueue = createQueue(P2P_QUEUE_NAME, Order.LIFO);
     }
 
     @Override
     public CellSetupProvider mock() {
-        IoQueueManager mock = new IoQueueManager();
+        IoQueueManager mock = new IoQueueManager(queueType);
         mock.setQueues(propertyQueues);
         return mock;
     }
@@ -181,7 +196,7 @@ public class IoQueueManager
             LOGGER.info("Creating queue: {}", name);
 
             int id = counter.getAndIncrement();
-            queue = new MoverRequestScheduler(name, id, order);
+            queue = new MoverRequestScheduler(name, id, order, queueType);
             queue.addFaultListener(this);
             queuesById.put(id, queue);
             queuesByName.put(name, queue);
@@ -0,0 +1,147 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.classic.MoverRequestScheduler.Order;
+import org.dcache.pool.classic.MoverRequestScheduler.PrioritizedRequest;
+import org.dcache.util.AdjustableSemaphore;
+import org.dcache.util.IoPrioritizable;
+
+/**
+ * A {@link MoverQueue} backed by a single priority queue and a semaphore of job slots. Taking and
+ * releasing job slots is serialized by the monitor of the queue.
+ */
+class LockingMoverQueue implements MoverQueue {
+
+    /**
+     * Number of free job slots.
+     */
+    private final AdjustableSemaphore _semaphore = new AdjustableSemaphore();
+
+    /**
+     * Current queue order.
+     */
+    private Order _order;
+
+    /**
+     * Queued movers.
+     */
+    private BlockingQueue<PrioritizedRequest> _queue;
+
+    LockingMoverQueue(Order order, int maxJobs) {
+        _order = order;
+        _queue = createQueue(order);
+        _semaphore.setMaxPermits(maxJobs);
+    }
+
+    private static PriorityBlockingQueue<PrioritizedRequest> createQueue(Order order) {
+        /* PriorityBlockingQueue returns the least elements first, that is, the
+         * the highest priority requests have to be first in the ordering.
+         */
+        Comparator<IoPrioritizable> comparator =
+              order == Order.FIFO
+                    ? Comparator
+                    .comparing(IoPrioritizable::getPriority)
+                    .reversed()
+                    .thenComparingLong(IoPrioritizable::getCreateTime)
+                    : Comparator
+                          .comparing(IoPrioritizable::getPriority)
+                          .thenComparingLong(IoPrioritizable::getCreateTime)
+                          .reversed();
+
+        return new PriorityBlockingQueue<>(16, comparator);
+    }
+
+    @Override
+    public synchronized boolean submit(PrioritizedRequest request) {
+        if (_semaphore.tryAcquire()) {
+            return true;
+        }
+        _queue.add(request);
+        return false;
+    }
+
+    @Override
+    public synchronized PrioritizedRequest nextOrRelease() {
+        PrioritizedRequest request = _queue.poll();
+        if (request == null) {
+            _semaphore.release();
+        }
+        return request;
+    }
+
+    @Override
+    public PrioritizedRequest poll() {
+        return _semaphore.tryAcquire() ? nextOrRelease() : null;
+    }
+
+    @Override
+    public synchronized boolean remove(PrioritizedRequest request) {
+        return _queue.remove(request);
+    }
+
+    @Override
+    public synchronized void drainTo(Collection<? super PrioritizedRequest> requests) {
+        _queue.drainTo(requests);
+    }
+
+    @Override
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        return _semaphore.tryAcquire(_semaphore.getMaxPermits(), timeout, unit);
+    }
+
+    @Override
+    public synchronized int getQueueSize() {
+        return _queue.size();
+    }
+
+    @Override
+    public int getActiveJobs() {
+        return _semaphore.getUsedPermits();
+    }
+
+    @Override
+    public int getMaxActiveJobs() {
+        return _semaphore.getMaxPermits();
+    }
+
+    @Override
+    public synchronized void setMaxActiveJobs(int maxJobs) {
+        _semaphore.setMaxPermits(maxJobs);
+    }
+
+    @Override
+    public synchronized Order getOrder() {
+        return _order;
+    }
+
+    @Override
+    public synchronized void setOrder(Order order) {
+        if (order != _order) {
+            PriorityBlockingQueue<PrioritizedRequest> queue = createQueue(order);
+            _queue.drainTo(queue);
+            _queue = queue;
+            _order = order;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.dcache.pool.classic.MoverRequestScheduler.Order;
+import org.dcache.pool.classic.MoverRequestScheduler.PrioritizedRequest;
+
+/**
+ * The queued requests and the job slots of a {@link MoverRequestScheduler}.
+ * <p>
+ * A job slot is held by every request that has been sent to execution. A request that cannot get
+ * a job slot on submission is queued until a slot becomes free.
+ */
+interface MoverQueue {
+
+    /**
+     * Adds a request. Returns true if the caller acquired a job slot and must send the request to
+     * execution; otherwise the request was queued.
+     */
+    boolean submit(PrioritizedRequest request);
+
+    /**
+     * Returns the next queued request or releases a job slot. If a non-null value is returned, the
+     * caller must send the request to execution. Should only be called by a caller that currently
+     * holds a job slot.
+     */
+    @Nullable
+    PrioritizedRequest nextOrRelease();
+
+    /**
+     * Acquires a free job slot and returns the next queued request. Returns null if there either is
+     * no free job slot or no queued request. If a non-null value is returned, the caller must send
+     * the request to execution.
+     */
+    @Nullable
+    PrioritizedRequest poll();
+
+    /**
+     * Removes a queued request. Returns true if the request was queued.
+     */
+    boolean remove(PrioritizedRequest request);
+
+    /**
+     * Removes all queued requests and adds them to the given collection.
+     */
+    void drainTo(Collection<? super PrioritizedRequest> requests);
+
+    /**
+     * Waits until all job slots have been released. Returns false if the timeout expired first.
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException;
+
+    int getQueueSize();
+
+    int getActiveJobs();
+
+    int getMaxActiveJobs();
+
+    /**
+     * Sets the number of job slots. The caller must {@link #poll} for requests that may be started
+     * in newly available job slots.
+     */
+    void setMaxActiveJobs(int maxJobs);
+
+    Order getOrder();
+
+    /**
+     * Changes the order of the queue. The caller must {@link #poll} for requests that may have
+     * been missed while the queue was reordered.
+     */
+    void setOrder(Order order);
+}
@@ -27,11 +27,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -43,7 +43,6 @@ import org.dcache.pool.movers.Mover;
 import org.dcache.pool.movers.json.MoverData;
 import org.dcache.pool.repository.FileStore;
 import org.dcache.pool.repository.OutOfDiskException;
-import org.dcache.util.AdjustableSemaphore;
 import org.dcache.util.IoPrioritizable;
 import org.dcache.util.IoPriority;
 import org.slf4j.Logger;
@@ -104,9 +103,9 @@ public class MoverRequestScheduler {
           new CopyOnWriteArrayList<>();
 
     /**
-     * Number of free job slots.
+     * Queued movers and job slots.
      */
-    private final AdjustableSemaphore _semaphore = new AdjustableSemaphore();
+    private final MoverQueue _queue;
 
     /**
      * JTM timeout since last activity.
@@ -118,38 +117,57 @@ public class MoverRequestScheduler {
      */
     private long _total = DEFAULT_TOTAL;
 
-    /**
-     * Current queue order.
-     */
-    private Order _order;
-
-    /**
-     * Queued movers.
-     */
-    private BlockingQueue<PrioritizedRequest> _queue;
-
     /**
      * Job id generator
      */
-    private int _nextId;
+    private final AtomicInteger _nextId = new AtomicInteger();
 
     /**
      * True when scheduler has been terminated.
      */
     private volatile boolean _isShutdown;
 
-    private boolean _loggedQueuingMovers;
+    private final AtomicBoolean _loggedQueuingMovers = new AtomicBoolean();
 
     public enum Order {
         FIFO, LIFO
     }
 
+    /**
+     * Implementation of the queue of movers waiting for a job slot.
+     */
+    public enum QueueType {
+        /**
+         * A single priority queue; submission and dispatch are serialized by a lock.
+         */
+        LOCKING {
+            @Override
+            MoverQueue createQueue(Order order, int maxJobs) {
+                return new LockingMoverQueue(order, maxJobs);
+            }
+        },
+
+        /**
+         * Lock-free queues per priority with atomic job counters.
+         */
+        CONCURRENT {
+            @Override
+            MoverQueue createQueue(Order order, int maxJobs) {
+                return new ConcurrentMoverQueue(order, maxJobs);
+            }
+        };
+
+        abstract MoverQueue createQueue(Order order, int maxJobs);
+    }
+
     public MoverRequestScheduler(String name, int queueId, Order order) {
+        this(name, queueId, order, QueueType.LOCKING);
+    }
+
+    public MoverRequestScheduler(String name, int queueId, Order order, QueueType queueType) {
         _name = name;
         _queueId = queueId;
-        _order = order;
-        _queue = createQueue(order);
-        _semaphore.setMaxPermits(2);
+        _queue = queueType.createQueue(order, 2);
     }
 
     public void addFaultListener(FaultListener listener) {
@@ -160,35 +178,13 @@ public class MoverRequestScheduler {
         _faultListeners.remove(listener);
     }
 
-    private PriorityBlockingQueue<PrioritizedRequest> createQueue(Order order) {
-        /* PriorityBlockingQueue returns the least elements first, that is, the
-         * the highest priority requests have to be first in the ordering.
-         */
-        Comparator<IoPrioritizable> comparator =
-              order == Order.FIFO
-                    ? Comparator
-                    .comparing(IoPrioritizable::getPriority)
-                    .reversed()
-                    .thenComparingLong(IoPrioritizable::getCreateTime)
-                    : Comparator
-                          .comparing(IoPrioritizable::getPriority)
-                          .thenComparingLong(IoPrioritizable::getCreateTime)
-                          .reversed();
-
-        return new PriorityBlockingQueue<>(16, comparator);
-    }
-
     public Order getOrder() {
-        return _order;
+        return _queue.getOrder();
     }
 
-    public synchronized void setOrder(Order order) {
-        if (order != _order) {
-            PriorityBlockingQueue<PrioritizedRequest> queue = createQueue(order);
-            _queue.drainTo(queue);
-            _queue = queue;
-            _order = order;
-        }
+    public void setOrder(Order order) {
+        _queue.setOrder(order);
+        startQueued();
     }
 
     /**
@@ -227,9 +223,14 @@ public class MoverRequestScheduler {
                     /* There was a free slot in the queue so we submit directly to execution.
                      */
                     sendToExecution(request);
-                } else if (_semaphore.getMaxPermits() <= 0) {
-                    LOGGER.warn("A task was added to queue '{}', however the queue is not " +
-                          "configured to execute any tasks.", _name);
+                } else {
+                    if (_queue.getMaxActiveJobs() <= 0) {
+                        LOGGER.warn("A task was added to queue '{}', however the queue is not " +
+                              "configured to execute any tasks.", _name);
+                    }
+                    /* A job slot may have been released while the request was queued.
+                     */
+                    startQueued();
                 }
             }
 
@@ -256,19 +257,17 @@ public class MoverRequestScheduler {
      * @param request
      * @return
      */
-    private synchronized boolean submit(PrioritizedRequest request) {
-        if (_jobs.put(request.getId(), request) != null) {
+    private boolean submit(PrioritizedRequest request) {
+        if (_jobs.putIfAbsent(request.getId(), request) != null) {
             throw new RuntimeException(
                   "Duplicate mover id detected. Please report to support@dcache.org.");
         }
 
-        if (_semaphore.tryAcquire()) {
+        if (_queue.submit(request)) {
             return true;
         } else {
-            _queue.add(request);
-            if (!_loggedQueuingMovers) {
+            if (!_loggedQueuingMovers.get() && _loggedQueuingMovers.compareAndSet(false, true)) {
                 LOGGER.warn("Mover queue \"{}\" is now queuing movers", _name);
-                _loggedQueuingMovers = true;
             }
             return false;
         }
@@ -281,29 +280,31 @@ public class MoverRequestScheduler {
      *
      * @return
      */
-    private synchronized PrioritizedRequest nextOrRelease() {
-        PrioritizedRequest request = _queue.poll();
+    private PrioritizedRequest nextOrRelease() {
+        PrioritizedRequest request = _queue.nextOrRelease();
         if (request == null) {
-            _semaphore.release();
-
             /* We now have (at least) one "mover slot" free.  Therefore, the
              * pool will accept the next mover (for this queue) without queuing.
              */
-            if (_loggedQueuingMovers) {
+            if (_loggedQueuingMovers.get() && _loggedQueuingMovers.compareAndSet(true, false)) {
                 LOGGER.warn("Next mover on mover queue \"{}\" will not be queued", _name);
-                _loggedQueuingMovers = false;
             }
         }
         return request;
     }
 
-    private synchronized int nextId() {
-        if (_nextId == 0x00FFFFFF) {
-            _nextId = 0;
-        } else {
-            _nextId++;
+    /**
+     * Sends queued jobs to execution for as long as there are free job slots.
+     */
+    private void startQueued() {
+        PrioritizedRequest request;
+        while ((request = _queue.poll()) != null) {
+            sendToExecution(request);
         }
-        return _nextId;
+    }
+
+    private int nextId() {
+        return _nextId.updateAndGet(id -> id == 0x00FFFFFF ? 0 : id + 1);
     }
 
     /**
@@ -311,8 +312,8 @@ public class MoverRequestScheduler {
      *
      * @return number of running jobs.
      */
-    public synchronized int getActiveJobs() {
-        return _jobs.size() - _queue.size();
+    public int getActiveJobs() {
+        return _queue.getActiveJobs();
     }
 
     /**
@@ -365,7 +366,7 @@ public class MoverRequestScheduler {
      * @return maximal number of jobs.
      */
     public int getMaxActiveJobs() {
-        return _semaphore.getMaxPermits();
+        return _queue.getMaxActiveJobs();
     }
 
     /**
@@ -375,13 +376,8 @@ public class MoverRequestScheduler {
      * @param maxJobs
      */
     public void setMaxActiveJobs(int maxJobs) {
-        synchronized (this) {
-            _semaphore.setMaxPermits(maxJobs);
-        }
-        PrioritizedRequest request;
-        while (_semaphore.tryAcquire() && (request = nextOrRelease()) != null) {
-            sendToExecution(request);
-        }
+        _queue.setMaxActiveJobs(maxJobs);
+        startQueued();
     }
 
     /**
@@ -389,25 +385,19 @@ public class MoverRequestScheduler {
      *
      * @return number of pending requests.
      */
-    public synchronized int getQueueSize() {
-        return _queue.size();
+    public int getQueueSize() {
+        return _queue.getQueueSize();
     }
 
     /**
      * @return object containing queue name and statistics.
      */
     public NamedPoolQueueInfo getQueueInfo() {
-        int jobs;
-        int queued;
-        int writes;
-        int max_active;
-        synchronized (this) {
-            jobs = _jobs.size();
-            writes = (int) _jobs.values().stream().filter(PrioritizedRequest::isWrite).count();
-            queued = _queue.size();
-            max_active = _semaphore.getMaxPermits();
-        }
-        int active = jobs - queued;
+        int jobs = _jobs.size();
+        int writes = (int) _jobs.values().stream().filter(PrioritizedRequest::isWrite).count();
+        int queued = _queue.getQueueSize();
+        int active = _queue.getActiveJobs();
+        int max_active = _queue.getMaxActiveJobs();
         int reads = jobs - writes;
         return new NamedPoolQueueInfo(_name, active, max_active, queued, reads, writes);
     }
@@ -432,7 +422,7 @@ public class MoverRequestScheduler {
      * @param explanation A reason to log
      * @return true if a job was killed, false otherwise
      */
-    public synchronized boolean cancel(int id, @Nullable String explanation) {
+    public boolean cancel(int id, @Nullable String explanation) {
         boolean killed = false;
         PrioritizedRequest request = _jobs.get(id);
         if (request != null) {
@@ -493,7 +483,7 @@ public class MoverRequestScheduler {
         toBeCancelled.forEach(this::postprocessWithoutJobSlot);
 
         LOGGER.info("Waiting for movers on queue '{}' to finish", _name);
-        if (!_semaphore.tryAcquire(_semaphore.getMaxPermits(), 2, TimeUnit.SECONDS)) {
+        if (!_queue.awaitIdle(2, TimeUnit.SECONDS)) {
             // This is often due to a mover not reacting to interrupt or the transfer
             // doing a lengthy checksum calculation during post processing.
             String versions =
@@ -660,12 +650,16 @@ public class MoverRequestScheduler {
 
         private final String _doorUniqueId;
 
-        private IoRequestState _state;
+        /**
+         * Current state. Modified while holding the monitor of the request, but may be read
+         * without it.
+         */
+        private volatile IoRequestState _state;
 
         /**
          * Transfer start time.
          */
-        private long _startTime;
+        private volatile long _startTime;
 
         private Cancellable _cancellable;
 
@@ -739,12 +733,12 @@ public class MoverRequestScheduler {
         }
 
         @Override
-        public synchronized String toString() {
+        public String toString() {
             return _state + " : " + _mover.toString() + " si={" + _mover.getFileAttributes()
                   .getStorageClass() + "}";
         }
 
-        public synchronized IoJobInfo toJobInfo() {
+        public IoJobInfo toJobInfo() {
             return new IoJobInfo(_submitTime, _startTime, _state.toString(), _id,
                   _mover.getPathToDoor().getDestinationAddress().toString(), _mover.getClientId(),
                   _mover.getFileAttributes().getPnfsId(), _mover.getBytesTransferred(),
@@ -753,7 +747,7 @@ public class MoverRequestScheduler {
                   _mover.remoteConnections());
         }
 
-        public synchronized MoverData toMoverData() {
+        public MoverData toMoverData() {
             MoverData data = new MoverData();
             data.setPnfsId(_mover.getFileAttributes().getPnfsId().toString());
             data.setQueue(_mover.getQueueName());
@@ -18,6 +18,7 @@
 package org.dcache.pool.classic;
 
 import com.google.common.base.Splitter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.vehicles.ProtocolInfo;
 import diskCacheV111.vehicles.RemoteHttpDataTransferProtocolInfo;
@@ -40,6 +41,8 @@ import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -96,6 +99,12 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
     @Value("${pool.mover.http-tpc.connections.max-idle.unit}")
     private TimeUnit maxIdleUnits;
 
+    @Value("${pool.mover.http-tpc.streams}")
+    private int streams;
+
+    @Value("#{ byteSizeParser.parse('${pool.mover.http-tpc.streams.min-size}') }")
+    private long minStripeSize;
+
     private static final RedirectStrategy DROP_AUTHORIZATION_HEADER = new DefaultRedirectStrategy() {
 
         @Override
@@ -128,6 +137,9 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
     private X509TrustManager trustManager;
     private CloseableHttpClient sharedClient;
 
+    private final ExecutorService stripeExecutor = Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder().setNameFormat("http-tpc-stream-%d").setDaemon(true).build());
+
     @Override
     protected MoverProtocol createMoverProtocol(ProtocolInfo info) throws Exception {
         if (!(info instanceof RemoteHttpDataTransferProtocolInfo)) {
@@ -145,7 +157,8 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
                 SSLContext context = buildSSLContext(credential.getKeyManager());
                 CloseableHttpClient client = createClient(context);
 
-                return new RemoteHttpDataTransferProtocol(client) {
+                return new RemoteHttpDataTransferProtocol(client, streams, minStripeSize,
+                      stripeExecutor) {
                     @Override
                     protected void afterTransfer() {
                         super.afterTransfer();
@@ -159,7 +172,8 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
             }
         }
 
-        return new RemoteHttpDataTransferProtocol(sharedClient);
+        return new RemoteHttpDataTransferProtocol(sharedClient, streams, minStripeSize,
+              stripeExecutor);
     }
 
     @PostConstruct
@@ -171,6 +185,10 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
                 "'pool.mover.http-tpc.connections.max-per-endpoint' must be greater than zero");
         checkArgument(maxIdle > 0,
                 "'pool.mover.http-tpc.connections.max-idle' must be greater than zero");
+        checkArgument(streams > 0,
+                "'pool.mover.http-tpc.streams' must be greater than zero");
+        checkArgument(minStripeSize > 0,
+                "'pool.mover.http-tpc.streams.min-size' must be greater than zero");
 
         FileSystem defaultFileSystem = FileSystems.getDefault();
 
@@ -223,6 +241,7 @@ public class RemoteHttpTransferService extends SecureRemoteTransferService {
     public void shutdown() {
         super.shutdown();
         onShutdownTasks.forEach(Runnable::run);
+        stripeExecutor.shutdownNow();
 
         if (sharedClient != null) {
             try {
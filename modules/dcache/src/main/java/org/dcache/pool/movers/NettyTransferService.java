@@ -59,8 +59,10 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import org.dcache.cells.CellStub;
 import org.dcache.pool.classic.Cancellable;
@@ -174,6 +176,17 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
 
     private TransferLifeCycle transferLifeCycle;
 
+    /**
+     * Number of times a client attached to a mover that was already in use by another client.
+     */
+    private final LongAdder sharedOpens = new LongAdder();
+
+    /**
+     * Number of times a client attached to a mover that was lingering after its last client
+     * released it.
+     */
+    private final LongAdder lingerReattachments = new LongAdder();
+
     public NettyTransferService(String name) {
         this.name = name;
     }
@@ -535,6 +548,37 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
             return closeFuture;
         }
 
+        /**
+         * Releases the file like {@link #release()}, except that the mover is kept alive for the
+         * given time once no client has the file open. A client acquiring the file within that
+         * time, such as another connection of a client fetching ranges of the file in parallel,
+         * continues to use this mover rather than finding the transfer gone.
+         */
+        public void releaseLingering(long delay, TimeUnit unit) {
+            if (delay <= 0) {
+                release();
+                return;
+            }
+            int generation = sync.onLingeringClose();
+            if (generation >= 0) {
+                try {
+                    timeoutScheduler.schedule(() -> {
+                        try (CDC ignored = cdc.restore()) {
+                            if (sync.onLingerExpired(generation)) {
+                                completionHandler.completed(null, null);
+                            }
+                        }
+                    }, delay, unit);
+                } catch (RejectedExecutionException e) {
+                    try (CDC ignored = cdc.restore()) {
+                        if (sync.onLingerExpired(generation)) {
+                            completionHandler.completed(null, null);
+                        }
+                    }
+                }
+            }
+        }
+
         public void release(Throwable t) {
             try (CDC ignored = cdc.restore()) {
                 if (sync.onFailure()) {
@@ -572,6 +616,13 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
             private boolean isExclusive;
             private boolean isClosed;
 
+            /**
+             * Incremented whenever the file is acquired or starts lingering, thus identifying
+             * the period during which a scheduled linger expiry is still valid.
+             */
+            private int generation;
+            private boolean isLingering;
+
             public boolean isExclusive() {
                 return isExclusive;
             }
@@ -580,12 +631,37 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
                 if (isExclusive || isClosed) {
                     return false;
                 }
+                if (isLingering) {
+                    isLingering = false;
+                    lingerReattachments.increment();
+                } else if (open > 0) {
+                    sharedOpens.increment();
+                }
                 isExclusive = exclusive;
                 open++;
+                generation = (generation + 1) & Integer.MAX_VALUE;
                 timeout.cancel(false);
                 return true;
             }
 
+            /**
+             * @return the generation to pass to {@link #onLingerExpired} once the linger time
+             * has passed, or -1 if other clients still have the file open or it was closed.
+             */
+            synchronized int onLingeringClose() {
+                open--;
+                if (open > 0 || isClosed) {
+                    return -1;
+                }
+                isLingering = true;
+                generation = (generation + 1) & Integer.MAX_VALUE;
+                return generation;
+            }
+
+            synchronized boolean onLingerExpired(int lingerGeneration) {
+                return isLingering && generation == lingerGeneration && close();
+            }
+
             synchronized boolean onClose() {
                 open--;
                 return open <= 0 && close();
@@ -611,6 +687,7 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
             private boolean close() {
                 if (!isClosed) {
                     isClosed = true;
+                    isLingering = false;
                     timeout.cancel(false);
                     return true;
                 }
@@ -645,5 +722,7 @@ public abstract class NettyTransferService<P extends ProtocolInfo>
         CellInfoProvider.super.getInfo(pw);
         var endpoint = getServerAddress();
         pw.printf("   Listening on: %s:%d\n", InetAddresses.toUriString(endpoint.getAddress()), endpoint.getPort());
+        pw.printf("   Shared opens: %d\n", sharedOpens.sum());
+        pw.printf("   Linger reattachments: %d\n", lingerReattachments.sum());
     }
 }
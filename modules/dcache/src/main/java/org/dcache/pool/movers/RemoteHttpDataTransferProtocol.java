@@ -1,5 +1,6 @@
 package org.dcache.pool.movers;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.padStart;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static diskCacheV111.util.ThirdPartyTransferFailedCacheException.checkThirdPartyTransferSuccessful;
@@ -14,16 +15,22 @@ import static org.dcache.util.Strings.describeSize;
 import static org.dcache.util.Strings.toThreeSigFig;
 import static org.dcache.util.TimeUtils.describeDuration;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.ThirdPartyTransferFailedCacheException;
 import diskCacheV111.vehicles.ProtocolInfo;
 import diskCacheV111.vehicles.RemoteHttpDataTransferProtocolInfo;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
@@ -35,6 +42,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -68,6 +78,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static java.util.Objects.requireNonNull;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -192,10 +203,17 @@ public class RemoteHttpDataTransferProtocol implements MoverProtocol,
      */
     private static final int MAX_REDIRECTIONS = 20;
 
+    /**
+     * The size of the buffer used when copying a stripe of data into the file.
+     */
+    private static final int STRIPE_BUFFER_SIZE = MiB.toBytes(1);
+
     private static final String AUTH_BEARER = "Bearer ";
 
     private static final String WANT_DIGEST_VALUE = Checksums.buildGenericWantDigest();
     private static final Pattern MATCH_HEXADECIMAL = Pattern.compile("[0-9a-f]+");
+    private static final Pattern CONTENT_RANGE =
+          Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)", Pattern.CASE_INSENSITIVE);
 
     private static final Map<String,ChecksumType> OC_CHECKSUM_TYPE = Map.of(
         "MD5", ChecksumType.MD5_TYPE,
@@ -214,8 +232,42 @@ public class RemoteHttpDataTransferProtocol implements MoverProtocol,
 
     private InetSocketAddress _localEndpoint;
 
+    /**
+     * The maximum number of concurrent GET requests used to fetch a file.
+     */
+    private final int _streams;
+
+    /**
+     * The minimum number of bytes fetched by each of the concurrent GET requests.
+     */
+    private final long _minStripeSize;
+
+    private final ExecutorService _executor;
+
     public RemoteHttpDataTransferProtocol(CloseableHttpClient client) {
+        this(client, 1, Long.MAX_VALUE, MoreExecutors.newDirectExecutorService());
+    }
+
+    public RemoteHttpDataTransferProtocol(CloseableHttpClient client, int streams,
+          long minStripeSize, ExecutorService executor) {
+        checkArgument(streams > 0, "streams must be greater than zero");
         _client = requireNonNull(client);
+        _streams = streams;
+        _minStripeSize = minStripeSize;
+        _executor = requireNonNull(executor);
+    }
+
+    /**
+     * Thrown if the remote server answers a GET request for a byte range with data other than
+     * the requested range.
+     */
+    private static class RangeMismatchException extends ThirdPartyTransferFailedCacheException {
+
+        private static final long serialVersionUID = 1L;
+
+        RangeMismatchException(String message) {
+            super(message);
+        }
     }
 
     private static void checkThat(boolean isOk, String message) throws CacheException {
@@ -392,7 +444,18 @@ public class RemoteHttpDataTransferProtocol implements MoverProtocol,
                       && response.getStatusLine().getStatusCode() < 300 && length > -1) {
                     _expectedTransferSize = length;
                 }
-                entity.writeTo(Channels.newOutputStream(_channel));
+                int stripes = stripeCount(response, length);
+                if (stripes > 1) {
+                    try {
+                        receiveStriped(info, context, response, length, stripes, deadline);
+                    } catch (RangeMismatchException e) {
+                        LOGGER.warn("Fetching {} with a single GET request: {}", info.getUri(),
+                              e.getMessage());
+                        receiveWhole(info, context, length, deadline);
+                    }
+                } else {
+                    entity.writeTo(Channels.newOutputStream(_channel));
+                }
             } catch (SocketTimeoutException e) {
                 String message = "socket timeout on GET (received "
                       + describeSize(_channel.getBytesTransferred()) + " of data; "
@@ -435,6 +498,220 @@ public class RemoteHttpDataTransferProtocol implements MoverProtocol,
         }
     }
 
+    /**
+     * Returns the number of stripes in which the file described by the response is to be
+     * fetched.  The file is fetched in several stripes only if more than one stream per transfer
+     * is configured, the remote server announced support for byte ranges, and each stripe is at
+     * least the minimum stripe size.
+     */
+    private int stripeCount(HttpResponse response, long length) {
+        if (_streams < 2 || length < 2 * _minStripeSize
+              || response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+            return 1;
+        }
+        String acceptRanges = headerValue(response, "Accept-Ranges");
+        if (acceptRanges == null || !acceptRanges.trim().equalsIgnoreCase("bytes")) {
+            return 1;
+        }
+        return (int) Math.min(_streams, length / Math.max(1, _minStripeSize));
+    }
+
+    /**
+     * Fetch the file in several stripes concurrently.  The first stripe is read from the
+     * response of the initial GET request; each of the other stripes is fetched with a GET
+     * request for the corresponding byte range.  Data is written to the file at the stripe's
+     * offset, so stripes may arrive in any order.  If the remote server answers a range request
+     * with anything but the requested range, a {@link RangeMismatchException} is thrown.
+     */
+    private void receiveStriped(RemoteHttpDataTransferProtocolInfo info,
+          HttpClientContext context, CloseableHttpResponse response, long length, int stripes,
+          long deadline) throws IOException, InterruptedException,
+          ThirdPartyTransferFailedCacheException {
+        List<URI> redirections = context.getRedirectLocations();
+        URI location = redirections == null || redirections.isEmpty()
+              ? info.getUri()
+              : redirections.get(redirections.size() - 1);
+        Set<HeaderFlags> flags = location.equals(info.getUri())
+              ? INITIAL_REQUEST
+              : REDIRECTED_REQUEST;
+
+        List<Range<Long>> ranges = splitIntoStripes(length, stripes);
+        List<HttpGet> requests = new ArrayList<>(stripes - 1);
+        List<Future<?>> tasks = new ArrayList<>(stripes - 1);
+        boolean isSuccessful = false;
+        try {
+            for (Range<Long> range : ranges.subList(1, ranges.size())) {
+                long start = range.lowerEndpoint();
+                long end = range.upperEndpoint();
+                HttpGet get = buildRangeRequest(info, location, flags, start, end, deadline);
+                requests.add(get);
+                tasks.add(_executor.submit(() -> {
+                    receiveRange(get, start, end, length);
+                    return null;
+                }));
+            }
+
+            try {
+                writeAt(response.getEntity().getContent(), 0,
+                      ranges.get(0).upperEndpoint() + 1);
+            } finally {
+                // Closing the response discards the connection, rather than reading the
+                // remaining content.
+                response.close();
+            }
+
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    Throwables.throwIfInstanceOf(cause, IOException.class);
+                    Throwables.throwIfInstanceOf(cause, ThirdPartyTransferFailedCacheException.class);
+                    Throwables.throwIfUnchecked(cause);
+                    throw new RuntimeException(cause);
+                }
+            }
+            isSuccessful = true;
+        } finally {
+            if (!isSuccessful) {
+                requests.forEach(HttpGet::abort);
+                tasks.forEach(t -> t.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Split a file of the given length into the given number of stripes.  All stripes have the
+     * same size, except for the last stripe, which also holds the remainder.  Each stripe is
+     * returned as the closed range of byte offsets it covers.
+     */
+    static List<Range<Long>> splitIntoStripes(long length, int stripes) {
+        checkArgument(stripes > 0 && length >= stripes,
+              "cannot split %s bytes into %s stripes", length, stripes);
+        long stripeSize = length / stripes;
+        List<Range<Long>> ranges = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            long start = i * stripeSize;
+            long end = i == stripes - 1 ? length - 1 : start + stripeSize - 1;
+            ranges.add(Range.closed(start, end));
+        }
+        return ranges;
+    }
+
+    private HttpGet buildRangeRequest(RemoteHttpDataTransferProtocolInfo info, URI location,
+          Set<HeaderFlags> flags, long start, long end, long deadline) {
+        HttpGet get = new HttpGet(location);
+        get.addHeader("Range", "bytes=" + start + "-" + end);
+        addHeadersToRequest(info, get, flags);
+
+        int timeLeftBeforeDeadline = (int) (deadline - System.currentTimeMillis());
+        int socketTimeout = Math.max(SOCKET_TIMEOUT, timeLeftBeforeDeadline);
+
+        get.setConfig(RequestConfig.custom()
+              .setConnectTimeout(CONNECTION_TIMEOUT)
+              .setSocketTimeout(socketTimeout)
+              .setRedirectsEnabled(false)
+              .build());
+        return get;
+    }
+
+    /**
+     * Fetch the whole file with a single GET request, overwriting whatever stripes were already
+     * written.
+     */
+    private void receiveWhole(RemoteHttpDataTransferProtocolInfo info, HttpClientContext context,
+          long length, long deadline) throws IOException, InterruptedException,
+          ThirdPartyTransferFailedCacheException {
+        try (CloseableHttpResponse response = doGet(info, context, deadline)) {
+            HttpEntity entity = response.getEntity();
+            checkThirdPartyTransferSuccessful(entity != null, "GET response contains no content");
+            checkThirdPartyTransferSuccessful(entity.getContentLength() == length,
+                  "file size changed from %d to %d bytes", length, entity.getContentLength());
+            try (InputStream in = entity.getContent()) {
+                writeAt(in, 0, length);
+            }
+        }
+    }
+
+    private void receiveRange(HttpGet get, long start, long end, long length)
+          throws IOException, ThirdPartyTransferFailedCacheException {
+        try (CloseableHttpResponse response = _client.execute(get)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            String reason = response.getStatusLine().getReasonPhrase();
+            if (statusCode != HttpStatus.SC_PARTIAL_CONTENT && statusCode / 100 == 2) {
+                throw new RangeMismatchException(String.format(
+                      "GET for bytes %d-%d answered with %d %s", start, end, statusCode, reason));
+            }
+            checkThirdPartyTransferSuccessful(statusCode == HttpStatus.SC_PARTIAL_CONTENT,
+                  "rejected GET for bytes %d-%d: %d %s", start, end, statusCode, reason);
+
+            String contentRange = headerValue(response, "Content-Range");
+            if (!isContentRange(contentRange, start, end, length)) {
+                throw new RangeMismatchException(String.format(
+                      "GET for bytes %d-%d answered with Content-Range %s", start, end,
+                      contentRange));
+            }
+
+            HttpEntity entity = response.getEntity();
+            checkThirdPartyTransferSuccessful(entity != null,
+                  "GET response for bytes %d-%d contains no content", start, end);
+            long contentLength = entity.getContentLength();
+            if (contentLength >= 0 && contentLength != end - start + 1) {
+                throw new RangeMismatchException(String.format(
+                      "GET for bytes %d-%d answered with %d bytes", start, end, contentLength));
+            }
+
+            try (InputStream in = entity.getContent()) {
+                writeAt(in, start, end - start + 1);
+            } catch (EOFException e) {
+                throw new RangeMismatchException(String.format(
+                      "GET for bytes %d-%d answered with short body: %s", start, end,
+                      e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Whether the value of a Content-Range header describes exactly the given byte range of a
+     * file of the given length.  A missing header does not match.
+     */
+    static boolean isContentRange(String value, long start, long end, long length) {
+        if (value == null) {
+            return false;
+        }
+        Matcher m = CONTENT_RANGE.matcher(value.trim());
+        if (!m.matches()) {
+            return false;
+        }
+        try {
+            return Long.parseLong(m.group(1)) == start && Long.parseLong(m.group(2)) == end
+                  && (m.group(3).equals("*") || Long.parseLong(m.group(3)) == length);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Write exactly {@code count} bytes from the stream to the file, starting at the given
+     * position.
+     */
+    private void writeAt(InputStream in, long position, long count) throws IOException {
+        byte[] buffer = new byte[STRIPE_BUFFER_SIZE];
+        long remaining = count;
+        while (remaining > 0) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                throw new EOFException("connection closed after " + (count - remaining)
+                      + " of " + count + " bytes");
+            }
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, n);
+            while (data.hasRemaining()) {
+                position += _channel.write(data, position);
+            }
+            remaining -= n;
+        }
+    }
+
     private Optional<InetSocketAddress> remoteAddress() {
         HttpContext context = getContext();
         if (context == null) {
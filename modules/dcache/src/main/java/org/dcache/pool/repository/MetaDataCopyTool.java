@@ -7,6 +7,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.EnumSet;
+import org.dcache.pool.repository.meta.file.FileMetaDataRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,19 +65,22 @@ public class MetaDataCopyTool {
                     System.err.println("Failed to load " + id);
                     System.exit(1);
                 }
-                toStore.create(id, EnumSet.noneOf(Repository.OpenFlags.class)).update(
-                      "copying existing entry", r -> {
-                          /* NOTE: We do not copy the last access time, as this is currently stored
-                           * as the last modification time on the data file. If we at some point move
-                           * the last access time into the meta data, this has to be updated here.
-                           */
-                          r.setState(entry.getState());
-                          for (StickyRecord s : entry.stickyRecords()) {
-                              r.setSticky(s.owner(), s.expire(), true);
-                          }
-                          r.setFileAttributes(entry.getFileAttributes());
-                          return null;
-                      });
+                ReplicaRecord copy = toStore.create(id, EnumSet.noneOf(Repository.OpenFlags.class));
+                copy.update("copying existing entry", r -> {
+                    r.setState(entry.getState());
+                    for (StickyRecord s : entry.stickyRecords()) {
+                        r.setSticky(s.owner(), s.expire(), true);
+                    }
+                    r.setFileAttributes(entry.getFileAttributes());
+                    return null;
+                });
+                /* FileMetaDataRepository stores the last access time as the last modification
+                 * time of the data file, which is not touched by this tool. The other stores
+                 * keep it in the meta data.
+                 */
+                if (!(toStore instanceof FileMetaDataRepository)) {
+                    copy.setLastAccessTime(entry.getLastAccessTime());
+                }
                 count++;
             }
         }
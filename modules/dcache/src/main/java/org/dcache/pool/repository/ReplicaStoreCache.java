@@ -81,32 +81,52 @@ public class ReplicaStoreCache
      * removes itself from _entries.
      * <p>
      * The point from which the condition in item 1 is true is marked by assertions in the code.
+     * <p>
+     * Once a record has been loaded or created, looking up the Monitor and reading its state does
+     * not acquire the monitor lock. Readers thus never block behind a slow update of the same
+     * record; they observe the state from before the update until the update completes.
      */
     private class Monitor implements ReplicaRecord {
 
         private final PnfsId _id;
-        private ReplicaRecord _record;
+        private volatile ReplicaRecord _record;
+
+        /**
+         * The state of _record, cached to allow it to be read without locking. Null if an update
+         * of the record failed, in which case the state is read from the record.
+         */
+        private volatile ReplicaState _state;
 
         private Monitor(PnfsId id) {
             _id = id;
         }
 
-        private synchronized ReplicaRecord get()
+        private ReplicaRecord get()
+              throws CacheException {
+            if (_record != null && _entries.get(_id) == this) {
+                return this;
+            }
+            return load();
+        }
+
+        private synchronized ReplicaRecord load()
               throws CacheException {
             if (_entries.get(_id) != this) {
                 return null;
             }
             assert _entries.get(_id) == this;
             if (_record == null) {
-                _record = _inner.get(_id);
-                if (_record == null) {
+                ReplicaRecord record = _inner.get(_id);
+                if (record == null) {
                     _entries.remove(_id, this);
                     return null;
                 }
-                CacheEntry entry = new CacheEntryImpl(_record);
+                CacheEntry entry = new CacheEntryImpl(record);
                 _stateChangeListener.stateChanged(
                       new StateChangeEvent("loading CacheEntry", entry, entry, NEW,
-                            _record.getState()));
+                            entry.getState()));
+                _state = entry.getState();
+                _record = record;
             }
             return this;
         }
@@ -119,7 +139,9 @@ public class ReplicaStoreCache
             assert _entries.get(_id) == this;
             try {
                 checkState(!_isClosed);
-                _record = _inner.create(_id, flags);
+                ReplicaRecord record = _inner.create(_id, flags);
+                _state = record.getState();
+                _record = record;
             } catch (DuplicateEntryException e) {
                 throw e;
             } catch (RuntimeException | CacheException e) {
@@ -135,11 +157,13 @@ public class ReplicaStoreCache
             try {
                 CacheEntry entry = new CacheEntryImpl(_record);
                 _record.update(why, r -> r.setState(DESTROYED));
+                _state = DESTROYED;
                 _inner.remove(_id);
                 _entries.remove(_id);
                 _stateChangeListener.stateChanged(
                       new StateChangeEvent(why, entry, entry, entry.getState(), DESTROYED));
             } catch (DiskErrorCacheException | RuntimeException e) {
+                _state = null;
                 _faultListener.faultOccurred(
                       new FaultEvent("repository", FaultAction.DEAD, "Internal repository error",
                             e));
@@ -185,6 +209,10 @@ public class ReplicaStoreCache
 
         @Override
         public ReplicaState getState() {
+            ReplicaState state = _state;
+            if (state != null) {
+                return state;
+            }
             try {
                 return _record.getState();
             } catch (RuntimeException e) {
@@ -355,6 +383,7 @@ public class ReplicaStoreCache
                                     if (r.getState() != state) {
                                         CacheEntry oldEntry = new CacheEntryImpl(_record);
                                         r.setState(state);
+                                        _state = state;
                                         CacheEntry newEntry = new CacheEntryImpl(_record);
                                         _stateChangeListener.stateChanged(
                                               new StateChangeEvent(why, oldEntry, newEntry,
@@ -385,13 +414,15 @@ public class ReplicaStoreCache
                                     return r.getLinkCount();
                                 }
                             }));
-                if (_record.getLinkCount() == 0 && _record.getState() == ReplicaState.REMOVED) {
+                _state = _record.getState();
+                if (_record.getLinkCount() == 0 && _state == ReplicaState.REMOVED) {
                     destroy("Idle replica marked REMOVED");
                 }
                 return result;
             } catch (IllegalArgumentException | IllegalStateException e) {
                 throw e;
             } catch (RuntimeException | DiskErrorCacheException e) {
+                _state = null;
                 FaultEvent event = new FaultEvent("repository", FaultAction.DEAD,
                       "Internal repository error", e);
                 _faultListener.faultOccurred(event);
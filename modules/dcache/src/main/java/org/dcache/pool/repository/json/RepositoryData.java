@@ -73,8 +73,14 @@ public class RepositoryData implements Serializable {
     private String label;
     private String state;
     private Integer initializationProgress;
+    private Integer loadedFiles;
+    private Double loadRate;
     private Integer files;
     private String filesException;
+    private Long preciousFiles;
+    private Long cachedFiles;
+    private Long stickyFiles;
+    private Long removableFiles;
     private String totalDiskSpace;
     private Long freeDiskSpace;
     private Long usedDiskSpace;
@@ -117,6 +123,22 @@ public class RepositoryData implements Serializable {
         return filesException;
     }
 
+    public Long getPreciousFiles() {
+        return preciousFiles;
+    }
+
+    public Long getCachedFiles() {
+        return cachedFiles;
+    }
+
+    public Long getStickyFiles() {
+        return stickyFiles;
+    }
+
+    public Long getRemovableFiles() {
+        return removableFiles;
+    }
+
     public Long getFreeDiskSpace() {
         return freeDiskSpace;
     }
@@ -129,6 +151,14 @@ public class RepositoryData implements Serializable {
         return initializationProgress;
     }
 
+    public Integer getLoadedFiles() {
+        return loadedFiles;
+    }
+
+    public Double getLoadRate() {
+        return loadRate;
+    }
+
     public String getLabel() {
         return label;
     }
@@ -190,7 +220,14 @@ public class RepositoryData implements Serializable {
         if (initializationProgress != null) {
             pw.append(" (").append(
                   String.valueOf(initializationProgress)).append(
-                  "% done)");
+                  "% done");
+            if (loadedFiles != null) {
+                pw.append(", ").append(String.valueOf(loadedFiles)).append(" files checked");
+            }
+            if (loadRate != null) {
+                pw.append(String.format(", %.0f files/s", loadRate));
+            }
+            pw.append(")");
         }
         pw.println();
 
@@ -199,6 +236,12 @@ public class RepositoryData implements Serializable {
         } else if (filesException != null) {
             pw.println("Files : " + filesException);
         }
+        if (preciousFiles != null) {
+            pw.println("    Precious : " + preciousFiles);
+            pw.println("    Cached   : " + cachedFiles);
+            pw.println("    Sticky   : " + stickyFiles);
+            pw.println("    Removable: " + removableFiles);
+        }
 
         pw.println("Disk space");
         pw.println("    Total    : " + totalDiskSpace);
@@ -247,6 +290,22 @@ public class RepositoryData implements Serializable {
         this.filesException = filesException;
     }
 
+    public void setPreciousFiles(Long preciousFiles) {
+        this.preciousFiles = preciousFiles;
+    }
+
+    public void setCachedFiles(Long cachedFiles) {
+        this.cachedFiles = cachedFiles;
+    }
+
+    public void setStickyFiles(Long stickyFiles) {
+        this.stickyFiles = stickyFiles;
+    }
+
+    public void setRemovableFiles(Long removableFiles) {
+        this.removableFiles = removableFiles;
+    }
+
     public void setFreeDiskSpace(Long freeDiskSpace) {
         this.freeDiskSpace = freeDiskSpace;
     }
@@ -259,6 +318,14 @@ public class RepositoryData implements Serializable {
         this.initializationProgress = initializationProgress;
     }
 
+    public void setLoadedFiles(Integer loadedFiles) {
+        this.loadedFiles = loadedFiles;
+    }
+
+    public void setLoadRate(Double loadRate) {
+        this.loadRate = loadRate;
+    }
+
     public void setLabel(String label) {
         this.label = label;
     }
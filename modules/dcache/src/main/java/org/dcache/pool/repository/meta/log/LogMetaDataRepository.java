@@ -0,0 +1,913 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.log;
+
+import static java.util.Arrays.asList;
+import static org.dcache.util.Exceptions.messageOrClassName;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskErrorCacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.pool.repository.DuplicateEntryException;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.FileStoreState;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore;
+import org.dcache.pool.repository.StickyRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ReplicaStore keeping the meta data of all replicas in compact binary records.
+ * <p>
+ * Every modification is appended to a memory mapped log (see {@link ReplicaLog}) in the 'meta-log'
+ * subdirectory of the pool directory: state changes, including sticky flags, size and times, are
+ * written as one fixed layout record, access time updates as an even smaller record. Storage info
+ * is kept as serialized object in the log and is only deserialized when requested.
+ * <p>
+ * The current state of all replicas is held in primitive arrays indexed by a slot number; the
+ * records returned by this store are flyweights holding little more than the PNFS ID. The state
+ * is periodically checkpointed to an index file, such that on startup only the tail of the log
+ * has to be replayed. Checkpoints triggered by updates are written by a background thread from a
+ * copy of the state, such that updates are not blocked by the disk I/O. Superseded records are
+ * dropped by rewriting the log on startup once it has grown considerably larger than the live
+ * data.
+ * <p>
+ * The log is written through the page cache. As with asynchronous commits in other stores, the
+ * most recent updates may be lost if the host crashes; the log is forced to disk whenever the
+ * index is checkpointed and when the store is closed.
+ */
+public class LogMetaDataRepository implements ReplicaStore {
+
+    private static final Logger LOGGER =
+          LoggerFactory.getLogger("logger.org.dcache.repository");
+
+    private static final String DIRECTORY_NAME = "meta-log";
+    private static final String LOG_NAME = "replicas.log";
+    private static final String INDEX_NAME = "replicas.index";
+
+    private static final int INDEX_MAGIC = 0x64634958;
+    private static final int INDEX_VERSION = 1;
+
+    private static final byte RECORD_STATE = 1;
+    private static final byte RECORD_ACCESS = 2;
+    private static final byte RECORD_ATTRIBUTES = 3;
+    private static final byte RECORD_REMOVE = 4;
+
+    /**
+     * Minimum number of records appended before the index is checkpointed. Beyond this, the index
+     * is checkpointed once the number of records appended since the last checkpoint exceeds the
+     * number of replicas, keeping the amortized cost of an update constant.
+     */
+    private static final int MIN_CHECKPOINT_INTERVAL = 100_000;
+
+    /**
+     * Encoding of replica states in records. The position in the array is the persistent code
+     * and must not change.
+     */
+    private static final ReplicaState[] STATES = {
+          ReplicaState.NEW, ReplicaState.FROM_CLIENT, ReplicaState.FROM_POOL,
+          ReplicaState.FROM_STORE, ReplicaState.BROKEN, ReplicaState.CACHED,
+          ReplicaState.PRECIOUS, ReplicaState.REMOVED, ReplicaState.DESTROYED
+    };
+
+    private static final StickyRecord[] NO_STICKY = {};
+    private static final StickyRecord[] SYSTEM_STICKY = {new StickyRecord(-1)};
+
+    private final FileStore _fileStore;
+    private final Path _dir;
+    private final boolean _readOnly;
+
+    private final ExecutorService _checkpointExecutor;
+
+    private ReplicaLog _log;
+
+    @GuardedBy("this")
+    private final Map<PnfsId, Integer> _slots = new HashMap<>();
+    @GuardedBy("this")
+    private PnfsId[] _ids = new PnfsId[0];
+    @GuardedBy("this")
+    private byte[] _states = new byte[0];
+    @GuardedBy("this")
+    private long[] _sizes = new long[0];
+    @GuardedBy("this")
+    private long[] _creationTimes = new long[0];
+    @GuardedBy("this")
+    private long[] _accessTimes = new long[0];
+    @GuardedBy("this")
+    private long[] _attributes = new long[0];
+    @GuardedBy("this")
+    private StickyRecord[][] _sticky = new StickyRecord[0][];
+    @GuardedBy("this")
+    private int[] _freeSlots = new int[0];
+    @GuardedBy("this")
+    private int _freeCount;
+    @GuardedBy("this")
+    private int _slotCount;
+    @GuardedBy("this")
+    private long _appendsSinceCheckpoint;
+    @GuardedBy("this")
+    private boolean _isCheckpointScheduled;
+
+    public LogMetaDataRepository(FileStore fileStore, Path baseDir, String poolName)
+          throws IOException {
+        this(fileStore, baseDir, poolName, false);
+    }
+
+    public LogMetaDataRepository(FileStore fileStore, Path baseDir, String poolName,
+          boolean readOnly) throws IOException {
+        _fileStore = fileStore;
+        _readOnly = readOnly;
+        _dir = baseDir.resolve(DIRECTORY_NAME);
+        _checkpointExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+              .setNameFormat("meta-log-checkpoint-" + poolName).setDaemon(true).build());
+        if (!Files.exists(_dir)) {
+            if (readOnly) {
+                throw new FileNotFoundException(
+                      "No such directory and not allowed to create it: " + _dir);
+            }
+            Files.createDirectory(_dir);
+        } else if (!Files.isDirectory(_dir)) {
+            throw new FileNotFoundException("No such directory: " + _dir);
+        }
+    }
+
+    @Override
+    public synchronized void init() throws CacheException {
+        try {
+            Stopwatch watch = Stopwatch.createStarted();
+            _log = ReplicaLog.open(_dir.resolve(LOG_NAME), _readOnly);
+            long from = readIndex();
+            long records = _log.replay(from, this::apply);
+            LOGGER.info("Loaded meta data of {} replicas from {} ({} log records) in {}.",
+                  _slots.size(), _dir, records, watch);
+
+            if (!_readOnly && isCompactionDue()) {
+                watch.reset().start();
+                compact();
+                LOGGER.info("Compacted {} in {}.", _log.getFile(), watch);
+            } else if (!_readOnly && records > 0) {
+                checkpoint();
+            }
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to load meta data from " + _dir + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public Set<PnfsId> index(IndexOption... options) throws CacheException {
+        List<IndexOption> indexOptions = asList(options);
+
+        if (indexOptions.contains(IndexOption.META_ONLY)) {
+            synchronized (this) {
+                return new HashSet<>(_slots.keySet());
+            }
+        }
+
+        try {
+            Stopwatch watch = Stopwatch.createStarted();
+            Set<PnfsId> files = _fileStore.index();
+            LOGGER.info("Indexed {} entries in {} in {}.", files.size(), _fileStore, watch);
+
+            if (indexOptions.contains(IndexOption.ALLOW_REPAIR)) {
+                synchronized (this) {
+                    for (PnfsId id : new HashSet<>(_slots.keySet())) {
+                        if (!files.contains(id)) {
+                            LOGGER.warn("Removing redundant meta data for {}.", id);
+                            removeRecord(id);
+                        }
+                    }
+                }
+            }
+            return files;
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Meta data lookup failed and a pool restart is required: "
+                        + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public ReplicaRecord get(PnfsId id) throws CacheException {
+        synchronized (this) {
+            if (_slots.containsKey(id)) {
+                return new LogReplicaRecord(this, id);
+            }
+        }
+        if (_readOnly || !_fileStore.contains(id)) {
+            return null;
+        }
+
+        /* The data file exists without meta data. Return a broken record to trigger recovery. */
+        long creationTime = System.currentTimeMillis();
+        long accessTime = creationTime;
+        try {
+            BasicFileAttributes attributes = _fileStore.getFileAttributeView(id).readAttributes();
+            creationTime = attributes.creationTime().toMillis();
+            accessTime = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read attributes of {}: {}", id, messageOrClassName(e));
+        }
+        synchronized (this) {
+            if (!_slots.containsKey(id)) {
+                try {
+                    writeState(id, ReplicaState.BROKEN, 0, creationTime, accessTime, NO_STICKY);
+                } catch (IOException e) {
+                    throw new DiskErrorCacheException(
+                          "Failed to create meta data for " + id + ": " + messageOrClassName(e), e);
+                }
+            }
+            return new LogReplicaRecord(this, id);
+        }
+    }
+
+    @Override
+    public ReplicaRecord create(PnfsId id, Set<? extends OpenOption> flags)
+          throws CacheException {
+        try {
+            if (_fileStore.contains(id)) {
+                throw new DuplicateEntryException(id);
+            }
+            synchronized (this) {
+                if (_slots.containsKey(id)) {
+                    removeRecord(id);
+                }
+                if (flags.contains(StandardOpenOption.CREATE)) {
+                    _fileStore.create(id);
+                }
+                long now = System.currentTimeMillis();
+                writeState(id, ReplicaState.NEW, 0, now, now, NO_STICKY);
+            }
+            return new LogReplicaRecord(this, id);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to create new entry " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public void remove(PnfsId id) throws CacheException {
+        try {
+            _fileStore.remove(id);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to remove " + id + ": " + messageOrClassName(e), e);
+        }
+        synchronized (this) {
+            if (_slots.containsKey(id)) {
+                removeRecord(id);
+            }
+        }
+    }
+
+    @Override
+    public synchronized FileStoreState isOk() {
+        if (_fileStore.isOk() == FileStoreState.FAILED) {
+            return FileStoreState.FAILED;
+        }
+        Path tmp = _dir.resolve(".repository_is_ok");
+        try {
+            Files.deleteIfExists(tmp);
+            Files.createFile(tmp);
+            return FileStoreState.OK;
+        } catch (IOException e) {
+            if (e.getMessage().contains("Read-only file system")) {
+                LOGGER.error("Filesystem in read-only mode {}: {}", tmp, messageOrClassName(e));
+                return FileStoreState.READ_ONLY;
+            } else {
+                LOGGER.error("Failed to touch {}: {}", tmp, messageOrClassName(e));
+                return FileStoreState.FAILED;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        /* Must not hold the lock while waiting, as background checkpoints acquire it. */
+        _checkpointExecutor.shutdown();
+        try {
+            _checkpointExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (_log != null) {
+                try {
+                    if (!_readOnly) {
+                        checkpoint();
+                    }
+                    _log.close();
+                } catch (IOException e) {
+                    LOGGER.error("Failed to close {}: {}", _log.getFile(),
+                          messageOrClassName(e));
+                }
+                _log = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[data=%s;meta=%s]", _fileStore, _dir);
+    }
+
+    @Override
+    public long getFreeSpace() {
+        try {
+            return _fileStore.getFreeSpace();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to query free space: {}", e.toString());
+            return 0;
+        }
+    }
+
+    @Override
+    public long getTotalSpace() {
+        try {
+            return _fileStore.getTotalSpace();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to query total space: {}", e.toString());
+            return 0;
+        }
+    }
+
+    FileStore getFileStore() {
+        return _fileStore;
+    }
+
+    /* Accessors used by LogReplicaRecord. A record may outlive the removal of its meta data;
+     * such a record appears destroyed and without attributes.
+     */
+
+    synchronized ReplicaState getState(PnfsId id) {
+        Integer slot = _slots.get(id);
+        return slot == null ? ReplicaState.DESTROYED : STATES[_states[slot]];
+    }
+
+    synchronized long getSize(PnfsId id) {
+        Integer slot = _slots.get(id);
+        return slot == null ? 0 : _sizes[slot];
+    }
+
+    synchronized long getCreationTime(PnfsId id) {
+        Integer slot = _slots.get(id);
+        return slot == null ? 0 : _creationTimes[slot];
+    }
+
+    synchronized long getAccessTime(PnfsId id) {
+        Integer slot = _slots.get(id);
+        return slot == null ? 0 : _accessTimes[slot];
+    }
+
+    synchronized StickyRecord[] getStickyRecords(PnfsId id) {
+        Integer slot = _slots.get(id);
+        return slot == null ? NO_STICKY : _sticky[slot];
+    }
+
+    StorageInfo getStorageInfo(PnfsId id) throws CacheException {
+        byte[] bytes;
+        synchronized (this) {
+            Integer slot = _slots.get(id);
+            long offset = slot == null ? -1 : _attributes[slot];
+            if (offset < 0) {
+                return null;
+            }
+            try {
+                ByteBuffer payload = _log.read(offset);
+                skipHeader(payload);
+                bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+            } catch (IOException e) {
+                throw new DiskErrorCacheException(
+                      "Failed to read meta data of " + id + ": " + messageOrClassName(e), e);
+            }
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (StorageInfo) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException | IOException e) {
+            LOGGER.warn("Failed to read storage info of {}: {}", id, e.toString());
+            return null;
+        }
+    }
+
+    synchronized void setAccessTime(PnfsId id, long time) throws CacheException {
+        Integer slot = _slots.get(id);
+        if (slot == null) {
+            return;
+        }
+        try {
+            ByteBuffer record = newRecord(RECORD_ACCESS, id, Long.BYTES);
+            record.putLong(time).flip();
+            append(record);
+            _accessTimes[slot] = time;
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to set access time of " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    /**
+     * Persists the result of an update of a replica.
+     *
+     * @param storageInfo the new storage info, or null if unmodified
+     * @param removeStorageInfo whether the storage info is to be removed
+     */
+    synchronized void commit(PnfsId id, ReplicaState state, long size, long creationTime,
+          long accessTime, StickyRecord[] sticky, StorageInfo storageInfo,
+          boolean removeStorageInfo) throws CacheException {
+        Integer slot = _slots.get(id);
+        if (slot == null) {
+            throw new CacheException("Meta data of " + id + " has been removed");
+        }
+        try {
+            if (storageInfo != null || removeStorageInfo) {
+                byte[] bytes = storageInfo == null ? new byte[0] : serialize(storageInfo);
+                ByteBuffer record = newRecord(RECORD_ATTRIBUTES, id, bytes.length);
+                long offset = append(record.put(bytes).flip());
+                _attributes[slot] = storageInfo == null ? -1 : offset;
+            }
+            if (STATES[_states[slot]] != state || _sizes[slot] != size
+                  || _creationTimes[slot] != creationTime || _accessTimes[slot] != accessTime
+                  || !Arrays.equals(_sticky[slot], sticky)) {
+                writeState(id, state, size, creationTime, accessTime, sticky);
+            }
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to update meta data of " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    private static byte[] serialize(StorageInfo storageInfo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(storageInfo);
+        }
+        return bytes.toByteArray();
+    }
+
+    @GuardedBy("this")
+    private void removeRecord(PnfsId id) throws CacheException {
+        try {
+            append(newRecord(RECORD_REMOVE, id, 0).flip());
+            freeSlot(id);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to remove meta data of " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    @GuardedBy("this")
+    private void writeState(PnfsId id, ReplicaState state, long size, long creationTime,
+          long accessTime, StickyRecord[] sticky) throws IOException {
+        append(newStateRecord(id, state, size, creationTime, accessTime, sticky));
+        setState(allocateSlot(id), state, size, creationTime, accessTime, sticky);
+    }
+
+    private static ByteBuffer newStateRecord(PnfsId id, ReplicaState state, long size,
+          long creationTime, long accessTime, StickyRecord[] sticky) {
+        int length = 1 + 3 * Long.BYTES + Short.BYTES;
+        byte[][] owners = new byte[sticky.length][];
+        for (int i = 0; i < sticky.length; i++) {
+            owners[i] = sticky[i].owner().getBytes(StandardCharsets.UTF_8);
+            length += Short.BYTES + owners[i].length + Long.BYTES;
+        }
+        ByteBuffer record = newRecord(RECORD_STATE, id, length);
+        record.put(encode(state)).putLong(size).putLong(creationTime).putLong(accessTime)
+              .putShort((short) sticky.length);
+        for (int i = 0; i < sticky.length; i++) {
+            record.putShort((short) owners[i].length).put(owners[i]).putLong(sticky[i].expire());
+        }
+        return record.flip();
+    }
+
+    @GuardedBy("this")
+    private long append(ByteBuffer record) throws IOException {
+        long offset = _log.append(record);
+        _appendsSinceCheckpoint++;
+        if (_appendsSinceCheckpoint > Math.max(MIN_CHECKPOINT_INTERVAL, _slots.size())
+              && !_isCheckpointScheduled && !_checkpointExecutor.isShutdown()) {
+            _isCheckpointScheduled = true;
+            _checkpointExecutor.execute(this::checkpointInBackground);
+        }
+        return offset;
+    }
+
+    private static ByteBuffer newRecord(byte type, PnfsId id, int length) {
+        byte[] bytes = HexFormat.of().parseHex(id.toString());
+        return ByteBuffer.allocate(2 + bytes.length + length)
+              .put(type).put((byte) bytes.length).put(bytes);
+    }
+
+    private static byte encode(ReplicaState state) {
+        for (byte i = 0; i < STATES.length; i++) {
+            if (STATES[i] == state) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown state: " + state);
+    }
+
+    private static PnfsId readId(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.get()];
+        buffer.get(bytes);
+        return new PnfsId(HexFormat.of().formatHex(bytes));
+    }
+
+    private static void skipHeader(ByteBuffer payload) {
+        payload.get();
+        payload.position(payload.position() + 1 + payload.get());
+    }
+
+    private static StickyRecord[] readSticky(ByteBuffer buffer) {
+        int count = buffer.getShort();
+        if (count == 0) {
+            return NO_STICKY;
+        }
+        StickyRecord[] sticky = new StickyRecord[count];
+        for (int i = 0; i < count; i++) {
+            byte[] owner = new byte[buffer.getShort()];
+            buffer.get(owner);
+            sticky[i] = new StickyRecord(new String(owner, StandardCharsets.UTF_8),
+                  buffer.getLong());
+        }
+        return normalize(sticky);
+    }
+
+    /**
+     * Returns a shared instance for the common cases to avoid an array per replica.
+     */
+    static StickyRecord[] normalize(StickyRecord[] sticky) {
+        if (sticky.length == 0) {
+            return NO_STICKY;
+        }
+        if (Arrays.equals(sticky, SYSTEM_STICKY)) {
+            return SYSTEM_STICKY;
+        }
+        return sticky;
+    }
+
+    /**
+     * Applies a record read from the log to the in-memory state.
+     */
+    @GuardedBy("this")
+    private void apply(long offset, ByteBuffer payload) {
+        byte type = payload.get();
+        PnfsId id = readId(payload);
+        Integer slot = _slots.get(id);
+        switch (type) {
+        case RECORD_STATE:
+            ReplicaState state = STATES[payload.get()];
+            long size = payload.getLong();
+            long creationTime = payload.getLong();
+            long accessTime = payload.getLong();
+            setState(allocateSlot(id), state, size, creationTime, accessTime,
+                  readSticky(payload));
+            break;
+        case RECORD_ACCESS:
+            if (slot != null) {
+                _accessTimes[slot] = payload.getLong();
+            }
+            break;
+        case RECORD_ATTRIBUTES:
+            if (slot != null) {
+                _attributes[slot] = payload.hasRemaining() ? offset : -1;
+            }
+            break;
+        case RECORD_REMOVE:
+            if (slot != null) {
+                freeSlot(id);
+            }
+            break;
+        default:
+            LOGGER.warn("Ignoring unknown record type {} in {}.", type, _log.getFile());
+        }
+    }
+
+    @GuardedBy("this")
+    private void setState(int slot, ReplicaState state, long size, long creationTime,
+          long accessTime, StickyRecord[] sticky) {
+        _states[slot] = encode(state);
+        _sizes[slot] = size;
+        _creationTimes[slot] = creationTime;
+        _accessTimes[slot] = accessTime;
+        _sticky[slot] = normalize(sticky);
+    }
+
+    @GuardedBy("this")
+    private int allocateSlot(PnfsId id) {
+        Integer existing = _slots.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int slot;
+        if (_freeCount > 0) {
+            slot = _freeSlots[--_freeCount];
+        } else {
+            if (_slotCount == _ids.length) {
+                int capacity = Math.max(1024, _ids.length + (_ids.length >> 1));
+                _ids = Arrays.copyOf(_ids, capacity);
+                _states = Arrays.copyOf(_states, capacity);
+                _sizes = Arrays.copyOf(_sizes, capacity);
+                _creationTimes = Arrays.copyOf(_creationTimes, capacity);
+                _accessTimes = Arrays.copyOf(_accessTimes, capacity);
+                _attributes = Arrays.copyOf(_attributes, capacity);
+                _sticky = Arrays.copyOf(_sticky, capacity);
+            }
+            slot = _slotCount++;
+        }
+        _ids[slot] = id;
+        _attributes[slot] = -1;
+        _sticky[slot] = NO_STICKY;
+        _slots.put(id, slot);
+        return slot;
+    }
+
+    @GuardedBy("this")
+    private void freeSlot(PnfsId id) {
+        int slot = _slots.remove(id);
+        _ids[slot] = null;
+        _sticky[slot] = null;
+        if (_freeCount == _freeSlots.length) {
+            _freeSlots = Arrays.copyOf(_freeSlots, Math.max(64, _freeSlots.length * 2));
+        }
+        _freeSlots[_freeCount++] = slot;
+    }
+
+    /**
+     * Reads the checkpointed index, if it exists and belongs to the current log.
+     *
+     * @return the position in the log from which to replay
+     */
+    @GuardedBy("this")
+    private long readIndex() throws IOException {
+        Path file = _dir.resolve(INDEX_NAME);
+        if (!Files.exists(file)) {
+            return ReplicaLog.HEADER_SIZE;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+              new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                LOGGER.warn("Ignoring {} of unknown format.", file);
+                return ReplicaLog.HEADER_SIZE;
+            }
+            if (in.readLong() != _log.getGeneration()) {
+                LOGGER.warn("Ignoring {}, as it does not match {}.", file, _log.getFile());
+                return ReplicaLog.HEADER_SIZE;
+            }
+            long position = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] id = new byte[in.readByte()];
+                in.readFully(id);
+                int slot = allocateSlot(new PnfsId(HexFormat.of().formatHex(id)));
+                _states[slot] = in.readByte();
+                _sizes[slot] = in.readLong();
+                _creationTimes[slot] = in.readLong();
+                _accessTimes[slot] = in.readLong();
+                _attributes[slot] = in.readLong();
+                StickyRecord[] sticky = new StickyRecord[in.readShort()];
+                for (int j = 0; j < sticky.length; j++) {
+                    sticky[j] = new StickyRecord(in.readUTF(), in.readLong());
+                }
+                _sticky[slot] = normalize(sticky);
+            }
+            int expected = (int) crc.getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("checksum mismatch");
+            }
+            return position;
+        } catch (EOFException | RuntimeException e) {
+            LOGGER.warn("Ignoring corrupted {}: {}", file, e.toString());
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable {}: {}", file, messageOrClassName(e));
+        }
+        clear();
+        return ReplicaLog.HEADER_SIZE;
+    }
+
+    @GuardedBy("this")
+    private void clear() {
+        _slots.clear();
+        _slotCount = 0;
+        _freeCount = 0;
+        Arrays.fill(_ids, null);
+        Arrays.fill(_sticky, null);
+    }
+
+    /**
+     * Writes the in-memory state to the index file. The log is forced to disk first, as the
+     * index must not refer to records that could still be lost.
+     */
+    @GuardedBy("this")
+    private void checkpoint() throws IOException {
+        _log.force();
+        writeIndex(new IndexSnapshot());
+        _appendsSinceCheckpoint = 0;
+    }
+
+    /**
+     * Checkpoints a copy of the in-memory state without holding the lock while writing to disk.
+     */
+    private void checkpointInBackground() {
+        IndexSnapshot snapshot;
+        Runnable force;
+        synchronized (this) {
+            _isCheckpointScheduled = false;
+            if (_log == null) {
+                return;
+            }
+            snapshot = new IndexSnapshot();
+            force = _log.forcer();
+            _appendsSinceCheckpoint = 0;
+        }
+        try {
+            force.run();
+            writeIndex(snapshot);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to checkpoint {}: {}", _dir, messageOrClassName(e));
+        }
+    }
+
+    /**
+     * Copy of the in-memory state and the log position it corresponds to. Must be created
+     * while holding the lock.
+     */
+    private class IndexSnapshot {
+
+        private final long generation;
+        private final long position;
+        private final int count;
+        private final PnfsId[] ids;
+        private final byte[] states;
+        private final long[] sizes;
+        private final long[] creationTimes;
+        private final long[] accessTimes;
+        private final long[] attributes;
+        private final StickyRecord[][] sticky;
+
+        IndexSnapshot() {
+            generation = _log.getGeneration();
+            position = _log.getPosition();
+            count = _slots.size();
+            ids = Arrays.copyOf(_ids, _slotCount);
+            states = Arrays.copyOf(_states, _slotCount);
+            sizes = Arrays.copyOf(_sizes, _slotCount);
+            creationTimes = Arrays.copyOf(_creationTimes, _slotCount);
+            accessTimes = Arrays.copyOf(_accessTimes, _slotCount);
+            attributes = Arrays.copyOf(_attributes, _slotCount);
+            sticky = Arrays.copyOf(_sticky, _slotCount);
+        }
+    }
+
+    /**
+     * Writes the index and forces it to disk before it replaces the previous index, as after a
+     * crash the log is only replayed from the position recorded in the index.
+     */
+    private void writeIndex(IndexSnapshot index) throws IOException {
+        Path tmp = _dir.resolve(INDEX_NAME + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+              DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel)), crc))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(index.generation);
+            out.writeLong(index.position);
+            out.writeInt(index.count);
+            for (int slot = 0; slot < index.ids.length; slot++) {
+                if (index.ids[slot] != null) {
+                    byte[] id = HexFormat.of().parseHex(index.ids[slot].toString());
+                    out.writeByte(id.length);
+                    out.write(id);
+                    out.writeByte(index.states[slot]);
+                    out.writeLong(index.sizes[slot]);
+                    out.writeLong(index.creationTimes[slot]);
+                    out.writeLong(index.accessTimes[slot]);
+                    out.writeLong(index.attributes[slot]);
+                    out.writeShort(index.sticky[slot].length);
+                    for (StickyRecord sticky : index.sticky[slot]) {
+                        out.writeUTF(sticky.owner());
+                        out.writeLong(sticky.expire());
+                    }
+                }
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, _dir.resolve(INDEX_NAME), StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns whether the log is more than twice the size of a freshly written log.
+     */
+    @GuardedBy("this")
+    private boolean isCompactionDue() throws IOException {
+        long live = 0;
+        for (int slot = 0; slot < _slotCount; slot++) {
+            if (_ids[slot] != null) {
+                live += 64 + _sticky[slot].length * 32L;
+                if (_attributes[slot] >= 0) {
+                    live += 8 + _log.read(_attributes[slot]).remaining();
+                }
+            }
+        }
+        return _log.getPosition() - ReplicaLog.HEADER_SIZE > 2 * live + ReplicaLog.SEGMENT_SIZE;
+    }
+
+    /**
+     * Rewrites the log with only the current records of all replicas.
+     */
+    @GuardedBy("this")
+    private void compact() throws IOException {
+        Path file = _log.getFile();
+        Path tmp = _dir.resolve(LOG_NAME + ".tmp");
+        long[] attributes = new long[_attributes.length];
+        long end;
+        try (ReplicaLog log = ReplicaLog.create(tmp)) {
+            for (int slot = 0; slot < _slotCount; slot++) {
+                PnfsId id = _ids[slot];
+                if (id != null) {
+                    /* The state record comes first, as replay ignores the attributes of
+                     * replicas without state. */
+                    log.append(newStateRecord(id, STATES[_states[slot]], _sizes[slot],
+                          _creationTimes[slot], _accessTimes[slot], _sticky[slot]));
+                    attributes[slot] = _attributes[slot] < 0
+                          ? -1 : log.append(_log.read(_attributes[slot]));
+                }
+            }
+            end = log.getPosition();
+        }
+
+        _log.close();
+        _log = null;
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        _attributes = attributes;
+        _log = ReplicaLog.open(file, false);
+        _log.replay(end, (offset, payload) -> {
+        });
+        checkpoint();
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.log;
+
+import static org.dcache.pool.repository.ReplicaState.CACHED;
+import static org.dcache.pool.repository.ReplicaState.DESTROYED;
+import static org.dcache.pool.repository.ReplicaState.PRECIOUS;
+import static org.dcache.pool.repository.ReplicaState.REMOVED;
+
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskErrorCacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.StorageInfo;
+import diskCacheV111.vehicles.StorageInfos;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.StickyRecord;
+import org.dcache.vehicles.FileAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ReplicaRecord of a {@link LogMetaDataRepository}.
+ * <p>
+ * The record does not hold any meta data itself; all accessors read the current state from the
+ * store. Updates are staged and persisted by the store as a whole once the update succeeded.
+ */
+class LogReplicaRecord implements ReplicaRecord {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogReplicaRecord.class);
+
+    private final LogMetaDataRepository _store;
+    private final PnfsId _pnfsId;
+    private int _linkCount;
+
+    LogReplicaRecord(LogMetaDataRepository store, PnfsId pnfsId) {
+        _store = store;
+        _pnfsId = pnfsId;
+    }
+
+    @Override
+    public PnfsId getPnfsId() {
+        return _pnfsId;
+    }
+
+    @Override
+    public long getReplicaSize() {
+        ReplicaState state = _store.getState(_pnfsId);
+        if (state == CACHED || state == PRECIOUS) {
+            return _store.getSize(_pnfsId);
+        }
+        try {
+            return readFileSize();
+        } catch (IOException e) {
+            LOGGER.error("Failed to read file size: {}", e.toString());
+            return 0;
+        }
+    }
+
+    private long readFileSize() throws IOException {
+        try {
+            return _store.getFileStore().getFileAttributeView(_pnfsId).readAttributes().size();
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public FileAttributes getFileAttributes() throws CacheException {
+        FileAttributes attributes = FileAttributes.ofPnfsId(_pnfsId);
+        StorageInfo storageInfo = _store.getStorageInfo(_pnfsId);
+        if (storageInfo != null) {
+            StorageInfos.injectInto(storageInfo, attributes);
+        }
+        return attributes;
+    }
+
+    @Override
+    public ReplicaState getState() {
+        return _store.getState(_pnfsId);
+    }
+
+    @Override
+    public URI getReplicaUri() {
+        return _store.getFileStore().get(_pnfsId);
+    }
+
+    @Override
+    public RepositoryChannel openChannel(Set<? extends OpenOption> mode) throws IOException {
+        return _store.getFileStore().openDataChannel(_pnfsId, mode);
+    }
+
+    @Override
+    public long getCreationTime() {
+        return _store.getCreationTime(_pnfsId);
+    }
+
+    @Override
+    public long getLastAccessTime() {
+        return _store.getAccessTime(_pnfsId);
+    }
+
+    @Override
+    public void setLastAccessTime(long time) throws CacheException {
+        _store.setAccessTime(_pnfsId, time);
+    }
+
+    @Override
+    public synchronized int decrementLinkCount() {
+        if (_linkCount <= 0) {
+            throw new IllegalStateException("Link count is already zero");
+        }
+        _linkCount--;
+        return _linkCount;
+    }
+
+    @Override
+    public synchronized int incrementLinkCount() {
+        ReplicaState state = getState();
+        if (state == REMOVED || state == DESTROYED) {
+            throw new IllegalStateException("Entry is marked as removed");
+        }
+        _linkCount++;
+        return _linkCount;
+    }
+
+    @Override
+    public synchronized int getLinkCount() {
+        return _linkCount;
+    }
+
+    @Override
+    public boolean isSticky() {
+        return _store.getStickyRecords(_pnfsId).length > 0;
+    }
+
+    @Override
+    public Collection<StickyRecord> removeExpiredStickyFlags() throws CacheException {
+        return update("removing expired sticky",
+              r -> ((UpdatableRecordImpl) r).removeExpiredStickyFlags());
+    }
+
+    @Override
+    public Collection<StickyRecord> stickyRecords() {
+        return List.of(_store.getStickyRecords(_pnfsId));
+    }
+
+    @Override
+    public synchronized <T> T update(String why, Update<T> update) throws CacheException {
+        UpdatableRecordImpl record = new UpdatableRecordImpl();
+        T result = update.apply(record);
+        record.save();
+        return result;
+    }
+
+    /**
+     * Collects modifications of an update, which are only written to the store if the update
+     * succeeds.
+     */
+    private class UpdatableRecordImpl implements UpdatableRecord {
+
+        private ReplicaState _state = _store.getState(_pnfsId);
+        private long _size = _store.getSize(_pnfsId);
+        private long _creationTime = _store.getCreationTime(_pnfsId);
+        private long _accessTime = _store.getAccessTime(_pnfsId);
+        private StickyRecord[] _sticky = _store.getStickyRecords(_pnfsId);
+        private FileAttributes _attributes;
+
+        @Override
+        public boolean setSticky(String owner, long expire, boolean overwrite)
+              throws CacheException {
+            if (_state == REMOVED) {
+                throw new CacheException("Entry in removed state");
+            }
+            for (StickyRecord r : _sticky) {
+                if (r.owner().equals(owner) && (r.expire() == expire
+                      || !overwrite && r.isValidAt(expire))) {
+                    return false;
+                }
+            }
+            List<StickyRecord> sticky = new ArrayList<>(_sticky.length + 1);
+            Arrays.stream(_sticky).filter(r -> !r.owner().equals(owner)).forEach(sticky::add);
+            sticky.add(new StickyRecord(owner, expire));
+            _sticky = sticky.toArray(StickyRecord[]::new);
+            return true;
+        }
+
+        private Collection<StickyRecord> removeExpiredStickyFlags() {
+            long now = System.currentTimeMillis();
+            List<StickyRecord> removed = new ArrayList<>();
+            List<StickyRecord> kept = new ArrayList<>();
+            for (StickyRecord r : _sticky) {
+                (r.isValidAt(now) ? kept : removed).add(r);
+            }
+            if (!removed.isEmpty()) {
+                _sticky = kept.toArray(StickyRecord[]::new);
+            }
+            return removed;
+        }
+
+        @Override
+        public Void setState(ReplicaState state) throws CacheException {
+            if (_state != state) {
+                if (_state.isMutable() && !state.isMutable()) {
+                    try {
+                        _size = readFileSize();
+                    } catch (IOException e) {
+                        throw new DiskErrorCacheException("Failed to query file size: " + e, e);
+                    }
+                }
+                _state = state;
+            }
+            return null;
+        }
+
+        @Override
+        public Void setFileAttributes(FileAttributes attributes) {
+            _attributes = attributes;
+            if (attributes.isDefined(FileAttribute.ACCESS_TIME)
+                  && attributes.isDefined(FileAttribute.CREATION_TIME)) {
+                _accessTime = attributes.getAccessTime();
+                _creationTime = attributes.getCreationTime();
+            }
+            return null;
+        }
+
+        @Override
+        public FileAttributes getFileAttributes() throws CacheException {
+            return _attributes != null
+                  ? _attributes : LogReplicaRecord.this.getFileAttributes();
+        }
+
+        @Override
+        public ReplicaState getState() {
+            return _state;
+        }
+
+        @Override
+        public int getLinkCount() {
+            return LogReplicaRecord.this.getLinkCount();
+        }
+
+        private void save() throws CacheException {
+            StorageInfo storageInfo = null;
+            if (_attributes != null && _attributes.isDefined(FileAttribute.STORAGEINFO)) {
+                storageInfo = StorageInfos.extractFrom(_attributes);
+                /* Replicas whose data file is not available, e.g. when migrating meta data,
+                 * fall back to the size recorded in the storage info.
+                 */
+                if (!_state.isMutable() && _size == 0) {
+                    _size = storageInfo.getLegacySize();
+                }
+            }
+            _store.commit(_pnfsId, _state, _size, _creationTime, _accessTime,
+                  LogMetaDataRepository.normalize(_sticky), storageInfo, _attributes != null);
+        }
+    }
+}
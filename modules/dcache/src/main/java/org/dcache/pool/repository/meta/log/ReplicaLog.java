@@ -0,0 +1,334 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.log;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of binary records stored in a memory mapped file.
+ * <p>
+ * The file starts with a header identifying the log, followed by records. Each record consists of
+ * the length of the payload, the CRC32 checksum of the payload, and the payload itself. The file
+ * is mapped in segments of fixed size and records never cross a segment boundary. A record with a
+ * length of zero marks the end of the log, a negative length marks the end of a segment.
+ * <p>
+ * Records are identified by the offset of their payload within the file. A torn or corrupted
+ * record at the end of the log, e.g. after a crash, ends the log; subsequent appends overwrite
+ * it.
+ * <p>
+ * The class is not thread safe, except for the action returned by {@link #forcer}.
+ */
+class ReplicaLog implements Closeable {
+
+    static final int SEGMENT_SIZE = 64 << 20;
+
+    private static final int MAGIC = 0x64634c47;
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+
+    /**
+     * Callback for records read by {@link #replay}.
+     */
+    interface RecordVisitor {
+
+        void visit(long offset, ByteBuffer payload) throws IOException;
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final long generation;
+    private long position;
+
+    private ReplicaLog(Path file, FileChannel channel, boolean readOnly, long generation,
+          long position) {
+        this.file = file;
+        this.channel = channel;
+        this.readOnly = readOnly;
+        this.generation = generation;
+        this.position = position;
+    }
+
+    /**
+     * Opens the log stored in {@code file}. If the file does not exist, an empty log is created.
+     * <p>
+     * The returned log is positioned at the start of the log. Call {@link #replay} to read
+     * existing records and to position the log for appends.
+     */
+    static ReplicaLog open(Path file, boolean readOnly) throws IOException {
+        if (!Files.exists(file)) {
+            if (readOnly) {
+                throw new NoSuchFileException(file.toString(), null,
+                      "No such file and not allowed to create it");
+            }
+            return create(file);
+        }
+        FileChannel channel = readOnly
+              ? FileChannel.open(file, StandardOpenOption.READ)
+              : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a replica log");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of " + file);
+            }
+            ReplicaLog log = new ReplicaLog(file, channel, readOnly, header.getLong(),
+                  HEADER_SIZE);
+            log.map();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new empty log in {@code file}, replacing any existing file.
+     */
+    static ReplicaLog create(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+        try {
+            long generation = ThreadLocalRandom.current().nextLong();
+            ReplicaLog log = new ReplicaLog(file, channel, false, generation, HEADER_SIZE);
+            log.map();
+            log.segments.get(0).duplicate()
+                  .putInt(MAGIC).putInt(VERSION).putLong(generation);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void map() throws IOException {
+        if (readOnly) {
+            long size = channel.size();
+            for (long start = 0; start < size; start += SEGMENT_SIZE) {
+                segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start,
+                      Math.min(SEGMENT_SIZE, size - start)));
+            }
+        } else {
+            long size = Math.max(channel.size(), 1);
+            for (long start = 0; start < size; start += SEGMENT_SIZE) {
+                mapSegment();
+            }
+        }
+    }
+
+    /**
+     * Maps the next segment. The blocks of the segment are allocated before mapping it, as
+     * running out of disk space while writing to a mapped file crashes the JVM rather than
+     * causing an IOException.
+     */
+    private void mapSegment() throws IOException {
+        long start = (long) segments.size() * SEGMENT_SIZE;
+        long end = start + SEGMENT_SIZE;
+        long size = channel.size();
+        if (size < end) {
+            ByteBuffer zeros = ByteBuffer.allocate(1 << 20);
+            for (long pos = Math.max(size, start); pos < end; ) {
+                zeros.clear().limit((int) Math.min(zeros.capacity(), end - pos));
+                pos += channel.write(zeros, pos);
+            }
+        }
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns an identifier of this log. Every log gets a new random generation when it is
+     * created.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the offset at which the next record will be appended.
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Reads all records starting at {@code from} and positions the log after the last valid
+     * record.
+     *
+     * @return the number of records read
+     */
+    long replay(long from, RecordVisitor visitor) throws IOException {
+        checkArgument(from >= HEADER_SIZE, "Position is within the header");
+        long count = 0;
+        position = from;
+        CRC32 crc = new CRC32();
+        while (true) {
+            int index = (int) (position / SEGMENT_SIZE);
+            if (index >= segments.size()) {
+                break;
+            }
+            ByteBuffer segment = segments.get(index);
+            int offset = (int) (position % SEGMENT_SIZE);
+            if (segment.limit() - offset < RECORD_HEADER_SIZE) {
+                position = nextSegment();
+                continue;
+            }
+            int length = segment.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                position = nextSegment();
+                continue;
+            }
+            if (length <= 0 || length > segment.limit() - offset - RECORD_HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer payload = segment.slice(offset + RECORD_HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+                break;
+            }
+            visitor.visit(position + RECORD_HEADER_SIZE, payload);
+            position += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+        return count;
+    }
+
+    private long nextSegment() {
+        return (position / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param payload the payload of the record, from its position to its limit
+     * @return the offset of the payload of the appended record
+     */
+    long append(ByteBuffer payload) throws IOException {
+        if (readOnly) {
+            throw new ReadOnlyFileSystemException();
+        }
+        int length = payload.remaining();
+        if (length == 0 || length > SEGMENT_SIZE - RECORD_HEADER_SIZE) {
+            throw new IOException("Invalid record length: " + length);
+        }
+
+        int offset = (int) (position % SEGMENT_SIZE);
+        if (SEGMENT_SIZE - offset < RECORD_HEADER_SIZE + length) {
+            if (SEGMENT_SIZE - offset >= RECORD_HEADER_SIZE) {
+                segments.get((int) (position / SEGMENT_SIZE)).putInt(offset, END_OF_SEGMENT);
+            }
+            position = nextSegment();
+            offset = 0;
+        }
+        int index = (int) (position / SEGMENT_SIZE);
+        if (index == segments.size()) {
+            mapSegment();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer segment = segments.get(index);
+        segment.put(offset + RECORD_HEADER_SIZE, payload, payload.position(), length);
+        segment.putInt(offset + 4, (int) crc.getValue());
+        /* Length is written last, as a zero length marks the end of the log. */
+        segment.putInt(offset, length);
+        /* Make sure the log ends here even if an old torn record follows. */
+        int end = offset + RECORD_HEADER_SIZE + length;
+        if (end <= SEGMENT_SIZE - 4) {
+            segment.putInt(end, 0);
+        }
+
+        long recordOffset = position + RECORD_HEADER_SIZE;
+        position += RECORD_HEADER_SIZE + length;
+        return recordOffset;
+    }
+
+    /**
+     * Returns a read-only view of the payload of the record at {@code offset}.
+     */
+    ByteBuffer read(long offset) throws IOException {
+        int index = (int) (offset / SEGMENT_SIZE);
+        int start = (int) (offset % SEGMENT_SIZE);
+        if (offset >= position || index >= segments.size() || start < RECORD_HEADER_SIZE) {
+            throw new IOException("No record at offset " + offset + " of " + file);
+        }
+        ByteBuffer segment = segments.get(index);
+        int length = segment.getInt(start - RECORD_HEADER_SIZE);
+        if (length <= 0 || length > segment.limit() - start) {
+            throw new IOException("Corrupted record at offset " + offset + " of " + file);
+        }
+        return segment.slice(start, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes all appended records to the storage device.
+     */
+    void force() {
+        forcer().run();
+    }
+
+    /**
+     * Returns an action writing the records appended so far to the storage device. Unlike the
+     * other methods, the action may be run by another thread while records are appended.
+     */
+    Runnable forcer() {
+        if (readOnly) {
+            return () -> {
+            };
+        }
+        List<MappedByteBuffer> mapped = List.copyOf(segments);
+        return () -> mapped.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        segments.clear();
+        channel.close();
+    }
+}
@@ -5,12 +5,14 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 import static org.dcache.namespace.FileAttribute.PNFSID;
 import static org.dcache.namespace.FileAttribute.STORAGEINFO;
+import static org.dcache.pool.repository.ReplicaState.CACHED;
 import static org.dcache.pool.repository.ReplicaState.NEW;
 import static org.dcache.pool.repository.ReplicaState.PRECIOUS;
 import static org.dcache.pool.repository.ReplicaState.REMOVED;
 import static org.dcache.util.ByteUnit.GiB;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.DiskErrorCacheException;
 import diskCacheV111.util.DiskSpace;
@@ -30,34 +32,29 @@ import dmg.util.command.Argument;
 import dmg.util.command.Command;
 import java.io.PrintWriter;
 import java.nio.file.OpenOption;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionService;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Future;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.pool.FaultAction;
 import org.dcache.pool.FaultEvent;
@@ -107,7 +104,6 @@ public class ReplicaRepository
      *
      * The following order must be observed when synchronizing:
      *
-     *  - this
      *  - _stateLock
      *  - entries (only one)
      *  - _account
@@ -144,16 +140,19 @@ public class ReplicaRepository
           Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     /**
-     * Threads pool size to scan the repository to check metadata.
+     * Number of replicas in each state.
      */
-    private Integer scanThreads;
+    private final ReplicaStateCounters _counters = new ReplicaStateCounters();
+
+    /**
+     * Number of replicas checked by a single task when loading the repository in parallel.
+     */
+    private static final int LOAD_BATCH_SIZE = 256;
 
     /**
-     * workQueue attributes to scan the repository to check metadata.
+     * Threads pool size to scan the repository to check metadata.
      */
-    private int _workQueueCapacity = 10000;
-    private long _workQueuekeepAliveTime = 60;
-    private TimeUnit _workQueueTimeUnit = TimeUnit.SECONDS;
+    private Integer scanThreads;
 
     /**
      * Executor for periodic tasks.
@@ -191,14 +190,26 @@ public class ReplicaRepository
     private State _state = State.UNINITIALIZED;
 
     /**
-     * Lock for the field changes.
+     * Lock for the field changes. The read lock is taken by every repository operation, while the
+     * write lock is only taken on lifecycle and configuration changes; the lock is striped to avoid
+     * contention between concurrent readers.
      */
-    private final ReadWriteLock _stateLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock _stateLock = new StripedReadWriteLock();
 
     /**
-     * Initialization progress between 0 and 1.
+     * Number of replicas checked so far while loading the repository.
      */
-    private volatile float _initializationProgress;
+    private final AtomicInteger _loadedFiles = new AtomicInteger();
+
+    /**
+     * Number of replicas to check while loading the repository.
+     */
+    private volatile int _filesToLoad;
+
+    /**
+     * Time when loading the repository started.
+     */
+    private final Stopwatch _loadWatch = Stopwatch.createUnstarted();
 
     /**
      * Shared repository account object for tracking space.
@@ -380,6 +391,7 @@ public class ReplicaRepository
                 @Override
                 public void stateChanged(StateChangeEvent event) {
                     PnfsId id = event.getPnfsId();
+                    _counters.stateChanged(event);
                     if (event.getOldState() != NEW || event.getNewState() != REMOVED) {
                         if (event.getOldState() == NEW) {
                             long size = event.getNewEntry().getReplicaSize();
@@ -440,6 +452,7 @@ public class ReplicaRepository
 
                 @Override
                 public void stickyChanged(StickyChangeEvent event) {
+                    _counters.stickyChanged(event);
                     updateRemovable(event.getNewEntry());
                     _stateChangeListeners.stickyChanged(event);
                     scheduleExpirationTask(event.getNewEntry());
@@ -528,10 +541,72 @@ public class ReplicaRepository
         if (_state != State.LOADING) {
             throw new IllegalStateException("Repository was closed during loading.");
         }
+        _loadedFiles.incrementAndGet();
 
         return id;
     }
 
+    /**
+     * Checks the meta data of a range of replicas, splitting the range among the threads of the
+     * scan pool.
+     */
+    private class LoadTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final PnfsId[] _ids;
+        private final int _from;
+        private final int _to;
+
+        LoadTask(PnfsId[] ids, int from, int to) {
+            _ids = ids;
+            _from = from;
+            _to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (_to - _from > LOAD_BATCH_SIZE) {
+                int middle = (_from + _to) >>> 1;
+                invokeAll(new LoadTask(_ids, _from, middle), new LoadTask(_ids, middle, _to));
+            } else {
+                try {
+                    for (int i = _from; i < _to; i++) {
+                        loadRecord(_ids[i]);
+                    }
+                } catch (CacheException | InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }
+    }
+
+    private void loadInParallel(PnfsId[] ids)
+          throws CacheException, InterruptedException {
+        ForkJoinPool scanPool = new ForkJoinPool(scanThreads, pool -> {
+            ForkJoinWorkerThread thread =
+                  ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("repository-scan-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            scanPool.submit(new LoadTask(ids, 0, ids.length)).get();
+        } catch (ExecutionException e) {
+            /* The fork-join framework may wrap the original exception in
+             * a copy of the exception thrown by the task.
+             */
+            for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                Throwables.throwIfInstanceOf(t, CacheException.class);
+                Throwables.throwIfInstanceOf(t, InterruptedException.class);
+                Throwables.throwIfInstanceOf(t, IllegalStateException.class);
+            }
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        } finally {
+            scanPool.shutdownNow();
+        }
+    }
+
     @Override
     public void load()
           throws CacheException, IllegalStateException,
@@ -541,67 +616,23 @@ public class ReplicaRepository
                   "Can only load repository after initialization and only once.");
         }
 
-        Stopwatch watch = Stopwatch.createStarted();
         try {
             LOGGER.warn("Reading inventory from {}.", _store);
             _store.init();
 
-            Collection<PnfsId> ids = _store.index();
-            int fileCount = ids.size();
-
-            LOGGER.info("Checking meta data for {} files with {} threads.", fileCount, scanThreads);
-            int cnt = 0;
+            PnfsId[] ids = _store.index().toArray(PnfsId[]::new);
+            _filesToLoad = ids.length;
+            _loadWatch.start();
 
+            LOGGER.info("Checking meta data for {} files with {} threads.", ids.length, scanThreads);
             if (scanThreads == 1) {
                 for (PnfsId id : ids) {
                     loadRecord(id);
-                    _initializationProgress = ((float) ++cnt) / fileCount;
                 }
             } else {
-                BlockingQueue<Runnable> workQueue = new ArrayBlockingQueue<Runnable>(
-                      _workQueueCapacity);
-                ThreadPoolExecutor scanExecutor = new ThreadPoolExecutor(1, scanThreads,
-                      _workQueuekeepAliveTime, _workQueueTimeUnit, workQueue);
-                CompletionService<PnfsId> completionService = new ExecutorCompletionService<PnfsId>(
-                      scanExecutor);
-                Set<Future<PnfsId>> futures = new HashSet<Future<PnfsId>>();
-
-                for (PnfsId id : ids) {
-
-                    ArrayList<Future<PnfsId>> completedFutures = new ArrayList<Future<PnfsId>>();
-                    while (true) {
-                        try {
-                            futures.add(completionService.submit(() -> {
-                                return loadRecord(id);
-                            }));
-                            break;
-                        } catch (RejectedExecutionException e) {
-                            completedFutures.add(completionService.take());
-                        }
-                    }
-
-                    while (completedFutures.size() > 0 || (futures.size() + cnt == fileCount
-                          && futures.size() > 0)) {
-
-                        Future<PnfsId> future = completionService.poll();
-                        if (future != null) {
-                            completedFutures.add(future);
-                        }
-                        if (completedFutures.size() > 0) {
-                            future = completedFutures.remove(0);
-                            futures.remove(future);
-                            try {
-                                future.get();
-                                _initializationProgress = ((float) ++cnt) / fileCount;
-                            } catch (ExecutionException e) {
-                                throw new RuntimeException(e);
-                            }
-                        }
-                    }
-                }
-                scanExecutor.shutdown();
+                loadInParallel(ids);
             }
-            LOGGER.debug("Checked meta data for {} % of the files.", _initializationProgress);
+            LOGGER.debug("Checked meta data for {} files.", _loadedFiles.get());
 
             _stateLock.writeLock().lock();
             try {
@@ -619,7 +650,7 @@ public class ReplicaRepository
         }
 
         loadComplete.complete(null);
-        LOGGER.info("Done generating inventory in {}", watch);
+        LOGGER.info("Done generating inventory in {}", _loadWatch.stop());
     }
 
     @Override
@@ -768,13 +799,11 @@ public class ReplicaRepository
         try {
             checkInitialized();
 
-            ReplicaRecord entry = getReplicaRecord(id);
-            synchronized (entry) {
-                if (entry.getState() == NEW) {
-                    throw new FileNotInCacheException("File is incomplete");
-                }
-                return new CacheEntryImpl(entry);
+            CacheEntry entry = new CacheEntryImpl(getReplicaRecord(id));
+            if (entry.getState() == NEW) {
+                throw new FileNotInCacheException("File is incomplete");
             }
+            return entry;
         } finally {
             _stateLock.readLock().unlock();
         }
@@ -975,8 +1004,16 @@ public class ReplicaRepository
         pw.println("    margin: " + _sweeper.getMargin());
     }
 
+    /**
+     * Returns the number of replicas in each state. The counters may be read without
+     * synchronization.
+     */
+    public ReplicaStateCounters getReplicaStateCounters() {
+        return _counters;
+    }
+
     @Override
-    public synchronized RepositoryData getDataObject() {
+    public RepositoryData getDataObject() {
         RepositoryData info = new RepositoryData();
         info.setLabel("Repository");
 
@@ -984,7 +1021,14 @@ public class ReplicaRepository
         try {
             info.setState(_state.name());
             if (_state == State.LOADING) {
-                info.setInitializationProgress((int) (_initializationProgress * 100));
+                int loaded = _loadedFiles.get();
+                int total = _filesToLoad;
+                info.setInitializationProgress(total == 0 ? 0 : (int) (100L * loaded / total));
+                info.setLoadedFiles(loaded);
+                long elapsed = _loadWatch.elapsed(TimeUnit.MILLISECONDS);
+                if (elapsed > 0) {
+                    info.setLoadRate(loaded * 1000.0 / elapsed);
+                }
             }
             try {
                 if (_state == State.OPEN ||
@@ -995,6 +1039,10 @@ public class ReplicaRepository
             } catch (CacheException e) {
                 info.setFilesException(e.getMessage());
             }
+            info.setPreciousFiles(_counters.getCount(PRECIOUS));
+            info.setCachedFiles(_counters.getCount(CACHED));
+            info.setStickyFiles(_counters.getStickyCount());
+            info.setRemovableFiles((long) _removable.size());
 
             SpaceRecord space = getSpaceRecord();
 
@@ -0,0 +1,94 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.v5;
+
+import static org.dcache.pool.repository.ReplicaState.DESTROYED;
+import static org.dcache.pool.repository.ReplicaState.NEW;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StateChangeEvent;
+import org.dcache.pool.repository.StickyChangeEvent;
+
+/**
+ * Lock-free counters of the number of replicas in each state and of the number of sticky
+ * replicas.
+ * <p>
+ * The counters are maintained from the state change events of the repository. Since events for a
+ * particular replica are generated sequentially, the counters are exact once all in-flight
+ * modifications have completed. Replicas in the NEW and DESTROYED states are not counted.
+ */
+public class ReplicaStateCounters {
+
+    private final LongAdder[] _states = new LongAdder[ReplicaState.values().length];
+
+    private final LongAdder _sticky = new LongAdder();
+
+    ReplicaStateCounters() {
+        for (int i = 0; i < _states.length; i++) {
+            _states[i] = new LongAdder();
+        }
+    }
+
+    private static boolean isCounted(ReplicaState state) {
+        return state != NEW && state != DESTROYED;
+    }
+
+    void stateChanged(StateChangeEvent event) {
+        ReplicaState oldState = event.getOldState();
+        ReplicaState newState = event.getNewState();
+        if (isCounted(oldState)) {
+            _states[oldState.ordinal()].decrement();
+            if (event.getOldEntry().isSticky()) {
+                _sticky.decrement();
+            }
+        }
+        if (isCounted(newState)) {
+            _states[newState.ordinal()].increment();
+            if (event.getNewEntry().isSticky()) {
+                _sticky.increment();
+            }
+        }
+    }
+
+    void stickyChanged(StickyChangeEvent event) {
+        if (isCounted(event.getNewEntry().getState())) {
+            boolean wasSticky = event.getOldEntry().isSticky();
+            boolean isSticky = event.getNewEntry().isSticky();
+            if (!wasSticky && isSticky) {
+                _sticky.increment();
+            } else if (wasSticky && !isSticky) {
+                _sticky.decrement();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of replicas in the given state.
+     */
+    public long getCount(ReplicaState state) {
+        return _states[state.ordinal()].sum();
+    }
+
+    /**
+     * Returns the number of replicas with at least one sticky flag.
+     */
+    public long getStickyCount() {
+        return _sticky.sum();
+    }
+}
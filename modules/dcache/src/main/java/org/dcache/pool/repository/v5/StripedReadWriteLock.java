@@ -0,0 +1,187 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.v5;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A read-write lock optimized for read locks that are taken very frequently by many threads and
+ * write locks that are taken rarely.
+ * <p>
+ * The lock consists of several independent {@link ReentrantReadWriteLock} stripes. A reader only
+ * locks the stripe assigned to the current thread, so readers on different stripes never touch
+ * the same lock word. A writer locks all stripes in a fixed order, which excludes all readers.
+ * <p>
+ * Read and write locks are reentrant and a thread holding the write lock may acquire the read
+ * lock. Conditions are not supported.
+ */
+class StripedReadWriteLock implements ReadWriteLock {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final ReentrantReadWriteLock[] _stripes;
+    private final int _mask;
+
+    private final Lock _readLock = new ReadLock();
+    private final Lock _writeLock = new WriteLock();
+
+    StripedReadWriteLock() {
+        this(Math.min(MAX_STRIPES, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    StripedReadWriteLock(int concurrency) {
+        checkArgument(concurrency > 0, "Concurrency must be positive");
+        int stripes = Integer.highestOneBit(concurrency - 1) << 1;
+        _stripes = new ReentrantReadWriteLock[Math.max(1, stripes)];
+        for (int i = 0; i < _stripes.length; i++) {
+            _stripes[i] = new ReentrantReadWriteLock();
+        }
+        _mask = _stripes.length - 1;
+    }
+
+    int getStripeCount() {
+        return _stripes.length;
+    }
+
+    private ReentrantReadWriteLock.ReadLock stripe() {
+        long id = Thread.currentThread().getId();
+        return _stripes[(int) (id ^ (id >>> 16)) & _mask].readLock();
+    }
+
+    @Override
+    public Lock readLock() {
+        return _readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return _writeLock;
+    }
+
+    private class ReadLock implements Lock {
+
+        @Override
+        public void lock() {
+            stripe().lock();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            stripe().lockInterruptibly();
+        }
+
+        @Override
+        public boolean tryLock() {
+            return stripe().tryLock();
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return stripe().tryLock(time, unit);
+        }
+
+        @Override
+        public void unlock() {
+            stripe().unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+    }
+
+    private class WriteLock implements Lock {
+
+        @Override
+        public void lock() {
+            for (ReentrantReadWriteLock stripe : _stripes) {
+                stripe.writeLock().lock();
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            int locked = 0;
+            try {
+                for (ReentrantReadWriteLock stripe : _stripes) {
+                    stripe.writeLock().lockInterruptibly();
+                    locked++;
+                }
+            } catch (InterruptedException e) {
+                unlock(locked);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean tryLock() {
+            int locked = 0;
+            for (ReentrantReadWriteLock stripe : _stripes) {
+                if (!stripe.writeLock().tryLock()) {
+                    unlock(locked);
+                    return false;
+                }
+                locked++;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(time);
+            int locked = 0;
+            try {
+                for (ReentrantReadWriteLock stripe : _stripes) {
+                    if (!stripe.writeLock().tryLock(deadline - System.nanoTime(),
+                          TimeUnit.NANOSECONDS)) {
+                        unlock(locked);
+                        return false;
+                    }
+                    locked++;
+                }
+            } catch (InterruptedException e) {
+                unlock(locked);
+                throw e;
+            }
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            unlock(_stripes.length);
+        }
+
+        private void unlock(int stripes) {
+            for (int i = stripes - 1; i >= 0; i--) {
+                _stripes[i].writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("Conditions are not supported");
+        }
+    }
+}
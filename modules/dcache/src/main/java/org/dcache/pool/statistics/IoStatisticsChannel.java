@@ -212,7 +212,12 @@ public class IoStatisticsChannel extends ForwardingRepositoryChannel {
         try {
             long startTime = System.nanoTime();
             long transferred = channel.transferTo(position, count, target);
-            reads.accept(concurrency, count, transferred, startTime);
+            /* Zero-copy transfers are called repeatedly with the remainder of the region
+             * and are limited by the socket rather than the file, so only the transferred
+             * bytes count as requested.
+             */
+            reads.accept(concurrency, Math.max(transferred, 0), Math.max(transferred, 0),
+                  startTime);
             return transferred;
         } finally {
             readCompleted();
@@ -0,0 +1,237 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encoding of a block of archive records.
+ * <p>
+ * Records are stored column by column so that similar values are adjacent, which lets the
+ * subsequent deflate compression exploit the redundancy between records. String columns are
+ * dictionary encoded within the block; numeric columns are stored as variable length integers,
+ * timestamps as the difference to the previous record.
+ */
+class ArchiveBlock {
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Strings are truncated to this length to stay within the limits of modified UTF-8.
+     */
+    private static final int MAX_STRING_LENGTH = 16384;
+    private static final ArchiveRecord.Kind[] KINDS = ArchiveRecord.Kind.values();
+
+    private static final List<Function<ArchiveRecord, String>> STRING_COLUMNS = List.of(
+          r -> r.cellName, r -> r.transaction, r -> r.initiator, r -> r.pnfsId, r -> r.path,
+          r -> r.owner, r -> r.client, r -> r.fqan, r -> r.storageClass, r -> r.errorMessage);
+
+    private ArchiveBlock() {
+    }
+
+    static byte[] encode(List<ArchiveRecord> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() * 32);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE), BUFFER_SIZE))) {
+            out.writeByte(VERSION);
+            writeVarLong(out, records.size());
+
+            long previous = 0;
+            for (ArchiveRecord record : records) {
+                writeVarLong(out, zigzag(record.timestamp - previous));
+                previous = record.timestamp;
+            }
+            for (ArchiveRecord record : records) {
+                out.writeByte(record.kind.ordinal());
+            }
+            for (Function<ArchiveRecord, String> column : STRING_COLUMNS) {
+                writeStrings(out, records, column);
+            }
+            writeLongs(out, records, r -> r.errorCode);
+            writeLongs(out, records, r -> r.uid);
+            writeLongs(out, records, r -> r.gid);
+            writeLongs(out, records, r -> r.fileSize);
+            writeLongs(out, records, r -> r.transferSize);
+            writeLongs(out, records, r -> r.connectionTime);
+            writeLongs(out, records, r -> r.queuedTime);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<ArchiveRecord> decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+              new InflaterInputStream(new ByteArrayInputStream(data)), BUFFER_SIZE))) {
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported archive block version " + version);
+            }
+            int count = (int) readVarLong(in);
+            List<ArchiveRecord> records = new ArrayList<>(count);
+
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                ArchiveRecord record = new ArchiveRecord();
+                previous += unzigzag(readVarLong(in));
+                record.timestamp = previous;
+                records.add(record);
+            }
+            for (ArchiveRecord record : records) {
+                record.kind = KINDS[in.readUnsignedByte()];
+            }
+            String[][] strings = new String[STRING_COLUMNS.size()][];
+            for (int c = 0; c < strings.length; c++) {
+                strings[c] = readStrings(in, count);
+            }
+            for (int i = 0; i < count; i++) {
+                ArchiveRecord record = records.get(i);
+                record.cellName = strings[0][i];
+                record.transaction = strings[1][i];
+                record.initiator = strings[2][i];
+                record.pnfsId = strings[3][i];
+                record.path = strings[4][i];
+                record.owner = strings[5][i];
+                record.client = strings[6][i];
+                record.fqan = strings[7][i];
+                record.storageClass = strings[8][i];
+                record.errorMessage = strings[9][i];
+            }
+            for (ArchiveRecord record : records) {
+                record.errorCode = (int) unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.uid = (int) unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.gid = (int) unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.fileSize = unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.transferSize = unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.connectionTime = unzigzag(readVarLong(in));
+            }
+            for (ArchiveRecord record : records) {
+                record.queuedTime = unzigzag(readVarLong(in));
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Writes a dictionary of the distinct values of the column followed by the dictionary index
+     * of each record's value. Index 0 denotes null.
+     */
+    private static void writeStrings(DataOutputStream out, List<ArchiveRecord> records,
+          Function<ArchiveRecord, String> column) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] indices = new int[records.size()];
+        for (int i = 0; i < indices.length; i++) {
+            String value = column.apply(records.get(i));
+            if (value != null) {
+                if (value.length() > MAX_STRING_LENGTH) {
+                    value = value.substring(0, MAX_STRING_LENGTH);
+                }
+                Integer index = dictionary.get(value);
+                if (index == null) {
+                    values.add(value);
+                    index = values.size();
+                    dictionary.put(value, index);
+                }
+                indices[i] = index;
+            }
+        }
+        writeVarLong(out, values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+        for (int index : indices) {
+            writeVarLong(out, index);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in, int count) throws IOException {
+        int size = (int) readVarLong(in);
+        String[] dictionary = new String[size + 1];
+        for (int i = 1; i <= size; i++) {
+            dictionary[i] = in.readUTF();
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = dictionary[(int) readVarLong(in)];
+        }
+        return values;
+    }
+
+    private static void writeLongs(DataOutputStream out, List<ArchiveRecord> records,
+          ToLongFunction<ArchiveRecord> column) throws IOException {
+        for (ArchiveRecord record : records) {
+            writeVarLong(out, zigzag(column.applyAsLong(record)));
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
@@ -0,0 +1,106 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.archive;
+
+import com.google.common.hash.BloomFilter;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+import org.dcache.services.billing.archive.ArchiveRecord.Kind;
+
+/**
+ * Selects records from a {@link BillingArchive}.
+ * <p>
+ * A query is restricted to a time range and optionally to the records of a file, a client host
+ * or an owner. The bounds of the time range are inclusive.
+ */
+public class ArchiveQuery {
+
+    private long since = Long.MIN_VALUE;
+    private long until = Long.MAX_VALUE;
+    private String pnfsId;
+    private String client;
+    private String owner;
+    private Set<Kind> kinds = EnumSet.allOf(Kind.class);
+
+    public ArchiveQuery since(Instant since) {
+        this.since = since == null ? Long.MIN_VALUE : since.toEpochMilli();
+        return this;
+    }
+
+    public ArchiveQuery until(Instant until) {
+        this.until = until == null ? Long.MAX_VALUE : until.toEpochMilli();
+        return this;
+    }
+
+    public ArchiveQuery pnfsId(String pnfsId) {
+        this.pnfsId = pnfsId;
+        return this;
+    }
+
+    public ArchiveQuery client(String client) {
+        this.client = client;
+        return this;
+    }
+
+    public ArchiveQuery owner(String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    public ArchiveQuery kinds(Kind first, Kind... rest) {
+        this.kinds = EnumSet.of(first, rest);
+        return this;
+    }
+
+    /**
+     * Whether records in the given time range may match.
+     */
+    boolean overlaps(long min, long max) {
+        return min <= until && max >= since;
+    }
+
+    /**
+     * Whether records with the given keys may match.
+     */
+    boolean mightMatch(BloomFilter<CharSequence> keys) {
+        return (pnfsId == null || keys.mightContain(pnfsIdKey(pnfsId)))
+              && (client == null || keys.mightContain(clientKey(client)))
+              && (owner == null || keys.mightContain(ownerKey(owner)));
+    }
+
+    boolean matches(ArchiveRecord record) {
+        return record.timestamp >= since && record.timestamp <= until
+              && kinds.contains(record.kind)
+              && (pnfsId == null || pnfsId.equals(record.pnfsId))
+              && (client == null || client.equals(record.client))
+              && (owner == null || owner.equals(record.owner));
+    }
+
+    static String pnfsIdKey(String pnfsId) {
+        return "p:" + pnfsId;
+    }
+
+    static String clientKey(String client) {
+        return "c:" + client;
+    }
+
+    static String ownerKey(String owner) {
+        return "o:" + owner;
+    }
+}
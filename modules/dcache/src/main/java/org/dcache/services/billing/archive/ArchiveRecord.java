@@ -0,0 +1,300 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.archive;
+
+import diskCacheV111.vehicles.DoorRequestInfoMessage;
+import diskCacheV111.vehicles.InfoMessage;
+import diskCacheV111.vehicles.InfoMessageVisitor;
+import diskCacheV111.vehicles.IpProtocolInfo;
+import diskCacheV111.vehicles.MoverInfoMessage;
+import diskCacheV111.vehicles.PnfsFileInfoMessage;
+import diskCacheV111.vehicles.PoolHitInfoMessage;
+import diskCacheV111.vehicles.RemoveFileInfoMessage;
+import diskCacheV111.vehicles.StorageInfo;
+import diskCacheV111.vehicles.StorageInfoMessage;
+import diskCacheV111.vehicles.WarningPnfsFileInfoMessage;
+import java.time.Instant;
+import java.util.Objects;
+import javax.security.auth.Subject;
+import org.dcache.auth.Subjects;
+
+/**
+ * A single billing record as stored in the {@link BillingArchive}.
+ * <p>
+ * The record holds the union of the fields of the billing messages that are archived. Fields
+ * that do not apply to a particular kind of record are null or -1.
+ */
+public class ArchiveRecord {
+
+    public enum Kind {
+        /**
+         * A pool transferred a file to a client.
+         */
+        READ,
+        /**
+         * A pool received a new file from a client.
+         */
+        WRITE,
+        /**
+         * A pool transferred a file to another pool.
+         */
+        P2P,
+        /**
+         * A file was flushed to tape.
+         */
+        STORE,
+        /**
+         * A file was restored from tape.
+         */
+        RESTORE,
+        /**
+         * A file was deleted.
+         */
+        REMOVE,
+        /**
+         * A door completed a request of a client.
+         */
+        REQUEST
+    }
+
+    long timestamp;
+    Kind kind;
+    String cellName;
+    String transaction;
+    String initiator;
+    String pnfsId;
+    String path;
+    String owner;
+    String client;
+    String fqan;
+    String storageClass;
+    String errorMessage;
+    int errorCode;
+    int uid = -1;
+    int gid = -1;
+    long fileSize;
+    long transferSize;
+    long connectionTime;
+    long queuedTime;
+
+    ArchiveRecord() {
+    }
+
+    /**
+     * Returns the archive record for a billing message, or null if the message is not archived.
+     */
+    public static ArchiveRecord of(InfoMessage message) {
+        Converter converter = new Converter();
+        message.accept(converter);
+        return converter.record;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getCellName() {
+        return cellName;
+    }
+
+    public String getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * The transaction of the door request that caused a transfer.
+     */
+    public String getInitiator() {
+        return initiator;
+    }
+
+    public String getPnfsId() {
+        return pnfsId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * The client host of a transfer or door request.
+     */
+    public String getClient() {
+        return client;
+    }
+
+    public String getFqan() {
+        return fqan;
+    }
+
+    public String getStorageClass() {
+        return storageClass;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public int getUid() {
+        return uid;
+    }
+
+    public int getGid() {
+        return gid;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public long getTransferSize() {
+        return transferSize;
+    }
+
+    public long getConnectionTime() {
+        return connectionTime;
+    }
+
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Instant.ofEpochMilli(timestamp)).append(' ').append(kind)
+              .append(" [").append(cellName).append("] ").append(pnfsId);
+        append(sb, "path", path);
+        append(sb, "owner", owner);
+        append(sb, "client", client);
+        append(sb, "transaction", transaction);
+        append(sb, "initiator", initiator);
+        append(sb, "storageClass", storageClass);
+        if (kind != Kind.REQUEST && kind != Kind.REMOVE) {
+            sb.append(" size=").append(kind == Kind.STORE || kind == Kind.RESTORE
+                  ? fileSize : transferSize);
+            sb.append(" time=").append(connectionTime);
+        }
+        sb.append(" {").append(errorCode).append(':').append(Objects.toString(errorMessage, ""))
+              .append('}');
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String name, String value) {
+        if (value != null) {
+            sb.append(' ').append(name).append('=').append(value);
+        }
+    }
+
+    /**
+     * Maps billing messages to archive records.
+     */
+    private static class Converter implements InfoMessageVisitor {
+
+        private ArchiveRecord record;
+
+        private ArchiveRecord create(Kind kind, InfoMessage message) {
+            record = new ArchiveRecord();
+            record.kind = kind;
+            record.timestamp = message.getTimestamp();
+            record.cellName = Objects.toString(message.getCellAddress(), null);
+            record.transaction = message.getTransaction();
+            record.errorCode = message.getResultCode();
+            record.errorMessage = message.getMessage();
+            record.queuedTime = message.getTimeQueued();
+            if (message instanceof PnfsFileInfoMessage) {
+                PnfsFileInfoMessage fileInfo = (PnfsFileInfoMessage) message;
+                record.pnfsId = Objects.toString(fileInfo.getPnfsId(), null);
+                record.path = fileInfo.getBillingPath();
+                record.fileSize = fileInfo.getFileSize();
+                StorageInfo storageInfo = fileInfo.getStorageInfo();
+                if (storageInfo != null) {
+                    record.storageClass =
+                          storageInfo.getStorageClass() + "@" + storageInfo.getHsm();
+                }
+            }
+            Subject subject = message.getSubject();
+            if (subject != null) {
+                record.owner = Subjects.getDn(subject);
+                if (record.owner == null) {
+                    record.owner = Subjects.getUserName(subject);
+                }
+                long[] uids = Subjects.getUids(subject);
+                record.uid = uids.length > 0 ? (int) uids[0] : -1;
+                long[] gids = Subjects.getGids(subject);
+                record.gid = gids.length > 0 ? (int) gids[0] : -1;
+                record.fqan = Objects.toString(Subjects.getPrimaryFqan(subject), null);
+            }
+            return record;
+        }
+
+        @Override
+        public void visit(DoorRequestInfoMessage message) {
+            ArchiveRecord record = create(Kind.REQUEST, message);
+            record.client = message.getClient();
+            record.connectionTime = message.getTransactionDuration();
+        }
+
+        @Override
+        public void visit(MoverInfoMessage message) {
+            Kind kind = message.isP2P() ? Kind.P2P
+                  : message.isFileCreated() ? Kind.WRITE : Kind.READ;
+            ArchiveRecord record = create(kind, message);
+            record.initiator = message.getInitiator();
+            record.transferSize = message.getDataTransferred();
+            record.connectionTime = message.getConnectionTime();
+            if (message.getProtocolInfo() instanceof IpProtocolInfo) {
+                record.client = ((IpProtocolInfo) message.getProtocolInfo())
+                      .getSocketAddress().getAddress().getHostAddress();
+            }
+        }
+
+        @Override
+        public void visit(PoolHitInfoMessage message) {
+        }
+
+        @Override
+        public void visit(RemoveFileInfoMessage message) {
+            create(Kind.REMOVE, message);
+        }
+
+        @Override
+        public void visit(StorageInfoMessage message) {
+            Kind kind = message.getMessageType().equals(StorageInfoMessage.RESTORE_MSG_TYPE)
+                  ? Kind.RESTORE : Kind.STORE;
+            ArchiveRecord record = create(kind, message);
+            record.connectionTime = message.getTransferTime();
+        }
+
+        @Override
+        public void visit(WarningPnfsFileInfoMessage message) {
+        }
+    }
+}
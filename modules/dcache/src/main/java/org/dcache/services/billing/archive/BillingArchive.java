@@ -0,0 +1,616 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.archive;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import diskCacheV111.vehicles.InfoMessage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only, block compressed archive of billing records.
+ * <p>
+ * Records are collected in memory and written in blocks of up to {@code blockSize} records to
+ * one data file per day. For every block an entry is appended to the index file of that day,
+ * holding the position of the block, the time range of its records and a Bloom filter of the
+ * pnfsids, client hosts and owners occurring in it.
+ * <p>
+ * A query only considers the files of the days overlapping the requested time range, and of
+ * those only decompresses the blocks whose time range overlaps and whose Bloom filter may contain
+ * the requested keys. Index files are cached in memory, thus answering a query typically requires
+ * reading just the few blocks that contain matching records. Records not yet written to disk are
+ * included in query results.
+ * <p>
+ * Completed blocks are written by a dedicated thread, so appending a record never waits for
+ * disk I/O. Records are collected per day: when the first record of a new day arrives, the block
+ * of the previous day is kept open for records arriving late, and is only written once it is
+ * full, older than the maximum block age, or yet another day begins.
+ * <p>
+ * A block is written before its index entry, so a crash can at worst leave unreferenced data at
+ * the end of a data file. Records that were not yet written are lost.
+ */
+public class BillingArchive {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BillingArchive.class);
+
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+          DateTimeFormatter.ofPattern("uuuu.MM.dd");
+    private static final Pattern DATA_FILE_PATTERN =
+          Pattern.compile("^archive-(\\d\\d\\d\\d\\.\\d\\d\\.\\d\\d)\\.data$");
+    private static final String DATA_SUFFIX = ".data";
+    private static final String INDEX_SUFFIX = ".index";
+
+    /**
+     * Maximum number of days for which records are collected at the same time.
+     */
+    private static final int MAX_OPEN_DAYS = 2;
+
+    private Path directory;
+    private ZoneId zone = ZoneId.systemDefault();
+    private int blockSize = 4096;
+    private double fpp = 0.01;
+    private long maxBlockAge = 5;
+    private TimeUnit maxBlockAgeUnit = TimeUnit.MINUTES;
+    private long indexCacheSize = 256L << 20;
+
+    private Cache<Path, Index> indexes;
+
+    /**
+     * Index files that were checked for incomplete entries since startup. Only accessed by the
+     * writer thread.
+     */
+    private final Set<Path> repairedIndexes = new HashSet<>();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("billing-archive-writer").build());
+
+    /**
+     * Held while a block is written. Taken by queries to see a consistent state of blocks
+     * on disk and in memory.
+     */
+    private final Lock writeLock = new ReentrantLock();
+
+    /**
+     * Blocks still collecting records, by day.
+     */
+    private final TreeMap<LocalDate, PendingBlock> pending = new TreeMap<>();
+
+    /**
+     * Complete blocks waiting to be written, in the order in which they were completed.
+     */
+    private final List<PendingBlock> sealed = new ArrayList<>();
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public void setDirectory(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public void setZone(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public void setBlockSize(int blockSize) {
+        checkArgument(blockSize > 0, "Block size must be positive");
+        this.blockSize = blockSize;
+    }
+
+    public void setFalsePositiveProbability(double fpp) {
+        checkArgument(fpp > 0 && fpp < 1, "False positive probability must be in (0;1)");
+        this.fpp = fpp;
+    }
+
+    public void setMaxBlockAge(long maxBlockAge) {
+        this.maxBlockAge = maxBlockAge;
+    }
+
+    public void setMaxBlockAgeUnit(TimeUnit maxBlockAgeUnit) {
+        this.maxBlockAgeUnit = maxBlockAgeUnit;
+    }
+
+    public void setIndexCacheSize(long indexCacheSize) {
+        this.indexCacheSize = indexCacheSize;
+    }
+
+    public void init() {
+        indexes = CacheBuilder.newBuilder()
+              .maximumWeight(indexCacheSize)
+              .weigher((Path path, Index index) -> index.weight)
+              .recordStats()
+              .build();
+    }
+
+    /**
+     * Writes any pending records and releases resources.
+     */
+    public void close() {
+        flush();
+        writer.shutdown();
+        indexes.invalidateAll();
+    }
+
+    /**
+     * Adds the billing message to the archive unless it is of a type that is not archived.
+     */
+    public void append(InfoMessage message) {
+        ArchiveRecord record = ArchiveRecord.of(message);
+        if (record != null) {
+            append(record);
+        }
+    }
+
+    synchronized void append(ArchiveRecord record) {
+        LocalDate day = dayOf(record.timestamp);
+        PendingBlock block = pending.computeIfAbsent(day, PendingBlock::new);
+        block.records.add(record);
+        records.increment();
+        if (block.records.size() >= blockSize) {
+            seal(block);
+        }
+        while (pending.size() > MAX_OPEN_DAYS) {
+            seal(pending.firstEntry().getValue());
+        }
+    }
+
+    /**
+     * Writes the pending blocks whose oldest record was added longer ago than the maximum block
+     * age. Meant to be called periodically to bound the number of records lost in a crash when
+     * records arrive at a slow pace.
+     */
+    public synchronized void flushExpired() {
+        long now = System.nanoTime();
+        long maxAge = maxBlockAgeUnit.toNanos(maxBlockAge);
+        for (PendingBlock block : new ArrayList<>(pending.values())) {
+            if (now - block.since >= maxAge) {
+                seal(block);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending records and waits until all blocks are on disk.
+     */
+    public synchronized void flush() {
+        for (PendingBlock block : new ArrayList<>(pending.values())) {
+            seal(block);
+        }
+        try {
+            while (!sealed.isEmpty()) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Closes the block for further records and submits it to the writer thread.
+     */
+    private void seal(PendingBlock block) {
+        pending.remove(block.day);
+        sealed.add(block);
+        try {
+            writer.execute(() -> write(block));
+        } catch (RejectedExecutionException e) {
+            sealed.remove(block);
+            failures.increment();
+            LOGGER.warn("Failed to write {} records to billing archive: archive is closed.",
+                  block.records.size());
+        }
+    }
+
+    /**
+     * Writes the records of a sealed block to disk. Called by the writer thread only.
+     */
+    private void write(PendingBlock pendingBlock) {
+        Path dataFile = dataFile(pendingBlock.day);
+        Path indexFile = indexFile(pendingBlock.day);
+        writeLock.lock();
+        try {
+            Files.createDirectories(directory);
+            byte[] block = ArchiveBlock.encode(pendingBlock.records);
+            long offset;
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                offset = channel.size();
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            BlockSummary summary = BlockSummary.of(offset, block.length, pendingBlock.records,
+                  fpp);
+            if (repairedIndexes.add(indexFile)) {
+                repair(indexFile);
+            }
+            try (OutputStream out = Files.newOutputStream(indexFile, StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                out.write(summary.toBytes());
+            }
+            blocks.increment();
+            bytes.add(block.length);
+        } catch (IOException e) {
+            failures.increment();
+            LOGGER.warn("Failed to write {} records to billing archive [{}]: {}",
+                  pendingBlock.records.size(), dataFile, e.toString());
+        } finally {
+            synchronized (this) {
+                sealed.remove(pendingBlock);
+                notifyAll();
+            }
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Passes all records matching the query to the consumer. Records of the same day are passed
+     * in the order in which they were added to the archive, with days in ascending order.
+     */
+    public void query(ArchiveQuery query, Consumer<ArchiveRecord> consumer) throws IOException {
+        Map<LocalDate, List<ArchiveRecord>> unwritten = new HashMap<>();
+        Map<LocalDate, Long> unwrittenOffsets = new HashMap<>();
+        writeLock.lock();
+        try {
+            synchronized (this) {
+                for (PendingBlock block : Iterables.concat(sealed, pending.values())) {
+                    List<ArchiveRecord> records =
+                          unwritten.computeIfAbsent(block.day, day -> new ArrayList<>());
+                    for (ArchiveRecord record : block.records) {
+                        if (query.matches(record)) {
+                            records.add(record);
+                        }
+                    }
+                }
+            }
+            /* No block is being written while holding the lock, thus the records collected
+             * above will be written behind the current end of the data files. */
+            for (LocalDate day : unwritten.keySet()) {
+                unwrittenOffsets.put(day, sizeOf(dataFile(day)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        SortedSet<LocalDate> days = new TreeSet<>();
+        days(query).forEach(days::add);
+        unwritten.forEach((day, records) -> {
+            if (!records.isEmpty()) {
+                days.add(day);
+            }
+        });
+
+        for (LocalDate day : days) {
+            Path dataFile = dataFile(day);
+            Long unwrittenOffset = unwrittenOffsets.get(day);
+            List<BlockSummary> candidates = new ArrayList<>();
+            for (BlockSummary block : getIndex(indexFile(day))) {
+                if (unwrittenOffset != null && block.offset >= unwrittenOffset) {
+                    /* Written after the unwritten records were collected above. */
+                    continue;
+                }
+                if (query.overlaps(block.minTime, block.maxTime) && query.mightMatch(block.keys)) {
+                    candidates.add(block);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+                    for (BlockSummary block : candidates) {
+                        for (ArchiveRecord record : ArchiveBlock.decode(read(channel, block))) {
+                            if (query.matches(record)) {
+                                consumer.accept(record);
+                            }
+                        }
+                    }
+                }
+            }
+            unwritten.getOrDefault(day, Collections.emptyList()).forEach(consumer);
+        }
+    }
+
+    public List<ArchiveRecord> query(ArchiveQuery query) throws IOException {
+        List<ArchiveRecord> result = new ArrayList<>();
+        query(query, result::add);
+        return result;
+    }
+
+    public void getInfo(PrintWriter pw) {
+        pw.format("%20s : %d records in %d blocks (%d bytes), %d failed\n", "Archive",
+              records.sum(), blocks.sum(), bytes.sum(), failures.sum());
+        synchronized (this) {
+            int unwritten = 0;
+            for (PendingBlock block : Iterables.concat(sealed, pending.values())) {
+                unwritten += block.records.size();
+            }
+            pw.format("%20s : %d\n", "Unwritten records", unwritten);
+        }
+        pw.format("%20s : %d files, %s\n", "Archive index cache", indexes.size(),
+              indexes.stats());
+    }
+
+    /**
+     * Returns the days of the archive files that may contain records matching the query, in
+     * ascending order.
+     */
+    private Iterable<LocalDate> days(ArchiveQuery query) throws IOException {
+        TreeMap<LocalDate, Path> days = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = DATA_FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    try {
+                        LocalDate day = LocalDate.parse(matcher.group(1), FILE_DATE_FORMAT);
+                        long start = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                        long end = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                        if (query.overlaps(start, end - 1)) {
+                            days.put(day, file);
+                        }
+                    } catch (DateTimeParseException ignored) {
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+        return days.keySet();
+    }
+
+    /**
+     * Truncates an incomplete entry at the end of an index file, left behind if dCache was
+     * killed while writing it, so that further entries can be appended.
+     */
+    private static void repair(Path file) throws IOException {
+        Index index = Index.read(file);
+        if (sizeOf(file) > index.size) {
+            LOGGER.warn("Removing incomplete entry at end of billing archive index [{}].", file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(index.size);
+            }
+        }
+    }
+
+    private List<BlockSummary> getIndex(Path file) throws IOException {
+        long size = sizeOf(file);
+        Index index = indexes.getIfPresent(file);
+        if (index == null || index.size != size) {
+            index = Index.read(file);
+            indexes.put(file, index);
+        }
+        return index.blocks;
+    }
+
+    private static byte[] read(FileChannel channel, BlockSummary block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, block.offset + buffer.position()) < 0) {
+                throw new EOFException("Billing archive block at " + block.offset
+                      + " is truncated");
+            }
+        }
+        return buffer.array();
+    }
+
+    private LocalDate dayOf(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    private Path dataFile(LocalDate day) {
+        return directory.resolve("archive-" + FILE_DATE_FORMAT.format(day) + DATA_SUFFIX);
+    }
+
+    private Path indexFile(LocalDate day) {
+        return directory.resolve("archive-" + FILE_DATE_FORMAT.format(day) + INDEX_SUFFIX);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Records of one day not yet written to disk.
+     */
+    private static class PendingBlock {
+
+        final LocalDate day;
+        final List<ArchiveRecord> records = new ArrayList<>();
+        final long since = System.nanoTime();
+
+        PendingBlock(LocalDate day) {
+            this.day = day;
+        }
+    }
+
+    /**
+     * The block summaries of an index file.
+     */
+    private static class Index {
+
+        final long size;
+        final List<BlockSummary> blocks;
+        final int weight;
+
+        Index(long size, List<BlockSummary> blocks) {
+            this.size = size;
+            this.blocks = blocks;
+            this.weight = (int) Math.min(size, Integer.MAX_VALUE);
+        }
+
+        static Index read(Path file) throws IOException {
+            List<BlockSummary> blocks = new ArrayList<>();
+            long size = 0;
+            try (DataInputStream in = new DataInputStream(
+                  new BufferedInputStream(Files.newInputStream(file)))) {
+                while (true) {
+                    BlockSummary block = BlockSummary.read(in);
+                    if (block == null) {
+                        break;
+                    }
+                    blocks.add(block);
+                    size += block.serializedSize;
+                }
+            } catch (NoSuchFileException e) {
+                return new Index(0, Collections.emptyList());
+            }
+            return new Index(size, blocks);
+        }
+    }
+
+    /**
+     * The index entry of a block.
+     */
+    private static class BlockSummary {
+
+        final long offset;
+        final int length;
+        final int count;
+        final long minTime;
+        final long maxTime;
+        final BloomFilter<CharSequence> keys;
+        final int serializedSize;
+
+        BlockSummary(long offset, int length, int count, long minTime, long maxTime,
+              BloomFilter<CharSequence> keys, int serializedSize) {
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.keys = keys;
+            this.serializedSize = serializedSize;
+        }
+
+        static BlockSummary of(long offset, int length, List<ArchiveRecord> records,
+              double fpp) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            Set<String> keys = new HashSet<>();
+            for (ArchiveRecord record : records) {
+                min = Math.min(min, record.timestamp);
+                max = Math.max(max, record.timestamp);
+                if (record.pnfsId != null) {
+                    keys.add(ArchiveQuery.pnfsIdKey(record.pnfsId));
+                }
+                if (record.client != null) {
+                    keys.add(ArchiveQuery.clientKey(record.client));
+                }
+                if (record.owner != null) {
+                    keys.add(ArchiveQuery.ownerKey(record.owner));
+                }
+            }
+            BloomFilter<CharSequence> filter =
+                  BloomFilter.create(Funnels.stringFunnel(UTF_8), Math.max(keys.size(), 1), fpp);
+            keys.forEach(filter::put);
+            return new BlockSummary(offset, length, records.size(), min, max, filter, 0);
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bloom = new ByteArrayOutputStream();
+            keys.writeTo(bloom);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(bloom.size() + 36);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(offset);
+            out.writeInt(length);
+            out.writeInt(count);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            out.writeInt(bloom.size());
+            bloom.writeTo(out);
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Reads the next entry of an index file, returning null at the end of the file or if
+         * the entry is incomplete.
+         */
+        static BlockSummary read(DataInputStream in) throws IOException {
+            try {
+                long offset = in.readLong();
+                int length = in.readInt();
+                int count = in.readInt();
+                long minTime = in.readLong();
+                long maxTime = in.readLong();
+                int bloomSize = in.readInt();
+                byte[] bloom = new byte[bloomSize];
+                in.readFully(bloom);
+                BloomFilter<CharSequence> keys = BloomFilter.readFrom(
+                      new ByteArrayInputStream(bloom), Funnels.stringFunnel(UTF_8));
+                return new BlockSummary(offset, length, count, minTime, maxTime, keys,
+                      36 + bloomSize);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -1,14 +1,8 @@
 package org.dcache.services.billing.cells;
 
-import static java.nio.file.StandardOpenOption.APPEND;
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
-import static java.nio.file.StandardOpenOption.WRITE;
-
 import com.google.common.base.CaseFormat;
-import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
-import diskCacheV111.cells.DateRenderer;
 import diskCacheV111.vehicles.InfoMessage;
 import diskCacheV111.vehicles.MoverInfoMessage;
 import diskCacheV111.vehicles.PnfsFileInfoMessage;
@@ -27,7 +21,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
@@ -41,11 +34,12 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.dcache.cells.CellStub;
 import org.dcache.notification.BillingMessageSerializerVisitor;
-import org.dcache.services.billing.text.StringTemplateInfoMessageVisitor;
+import org.dcache.services.billing.archive.BillingArchive;
+import org.dcache.services.billing.text.InfoMessageFormatter;
 import org.dcache.util.Args;
-import org.dcache.util.Slf4jSTErrorListener;
 import org.dcache.vehicles.billing.BillingDataRequestMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,9 +48,6 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.stringtemplate.v4.ST;
-import org.stringtemplate.v4.STGroup;
-import org.stringtemplate.v4.compiler.STException;
 
 /**
  * This class is responsible for the processing of messages from other domains regarding transfers
@@ -77,7 +68,6 @@ public final class BillingCell
     private final SimpleDateFormat _directoryNameFormat =
           new SimpleDateFormat("yyyy" + File.separator + "MM");
 
-    private final STGroup _templateGroup = new STGroup('$', '$');
     private final Map<String, String> _formats = new HashMap<>();
 
     private final Map<String, int[]> _map = Maps.newHashMap();
@@ -92,6 +82,8 @@ public final class BillingCell
      * Injected
      */
     private CellStub _poolManagerStub;
+    private BillingFileWriter _textWriter;
+    private BillingArchive _archive;
     private Path _logsDir;
     private boolean _enableText;
     private boolean _enableKafka;
@@ -101,17 +93,16 @@ public final class BillingCell
     private Consumer<String> _kafkaSender = (s) -> {
     };
 
-    public BillingCell() {
-        _templateGroup.registerRenderer(Date.class, new DateRenderer());
-        _templateGroup.setListener(new Slf4jSTErrorListener(LOGGER));
-    }
-
-
     @Autowired(required = false)
     public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
         _kafkaSender = kafkaTemplate::sendDefault;
     }
 
+    @Autowired(required = false)
+    public void setArchive(BillingArchive archive) {
+        _archive = archive;
+    }
+
     @Override
     public void setEnvironment(final Map<String, Object> environment) {
         Replaceable replaceable = name -> {
@@ -147,6 +138,12 @@ public final class BillingCell
             pw.format("%20s : %6d / %d\n",
                   entry.getKey(), values[0], values[1]);
         }
+        if (_enableText) {
+            _textWriter.getInfo(pw);
+        }
+        if (_archive != null) {
+            _archive.getInfo(pw);
+        }
     }
 
     @PostConstruct
@@ -155,6 +152,20 @@ public final class BillingCell
             String ext = getFilenameExtension(new Date());
             appendHeaders(getBillingPath(ext));
             appendHeaders(getErrorPath(ext));
+
+            if (_jsonFormat) {
+                _textWriter.start(this::formatJson, this::getFormatHeaders);
+            } else {
+                _textWriter.start(new InfoMessageFormatter(_formats)::format,
+                      this::getFormatHeaders);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (_enableText) {
+            _textWriter.shutdown();
         }
     }
 
@@ -199,15 +210,13 @@ public final class BillingCell
         }
 
         if (_enableText) {
-            String output = getFormattedMessage(info);
-            if (!output.isEmpty()) {
-                String ext = getFilenameExtension(new Date(info.getTimestamp()));
-                log(getBillingPath(ext), output);
+            String ext = getFilenameExtension(new Date(info.getTimestamp()));
+            _textWriter.write(info, getBillingPath(ext),
+                  info.getResultCode() != 0 ? getErrorPath(ext) : null);
+        }
 
-                if (info.getResultCode() != 0) {
-                    log(getErrorPath(ext), output);
-                }
-            }
+        if (_archive != null) {
+            _archive.append(info);
         }
     }
 
@@ -223,23 +232,11 @@ public final class BillingCell
         LOGGER.info(msg.toString());
     }
 
-    private String getFormattedMessage(InfoMessage msg) {
-        if (_jsonFormat) {
-            BillingMessageSerializerVisitor visitor = new BillingMessageSerializerVisitor();
-            msg.accept(visitor);
-            return new String(visitor.getData(), StandardCharsets.UTF_8);
-        }
-        String format = _formats.get(msg.getClass().getSimpleName());
-        if (!Strings.isNullOrEmpty(format)) {
-            try {
-                ST template = new ST(_templateGroup, format);
-                msg.accept(new StringTemplateInfoMessageVisitor(template));
-                return template.render();
-            } catch (STException e) {
-                LOGGER.error("Unable to render format '{}'.", format);
-            }
-        }
-        return "";
+    private boolean formatJson(InfoMessage msg, StringBuilder out) {
+        BillingMessageSerializerVisitor visitor = new BillingMessageSerializerVisitor();
+        msg.accept(visitor);
+        out.append(new String(visitor.getData(), StandardCharsets.UTF_8));
+        return true;
     }
 
     public Object[][] ac_get_billing_info(Args args) {
@@ -356,35 +353,10 @@ public final class BillingCell
         } else {
             Date now = new Date();
             _currentDbFile = _logsDir.resolve(_directoryNameFormat.format(now));
-            try {
-                Files.createDirectories(_currentDbFile);
-            } catch (IOException e) {
-                LOGGER.error("Failed to create directory {}: {}", _currentDbFile, e.toString());
-            }
             return _fileNameFormat.format(now);
         }
     }
 
-    private void log(Path path, String output) {
-        byte[] outputBytes = (output + "\n").getBytes(StandardCharsets.UTF_8);
-        try {
-            try {
-                Files.write(path, outputBytes, WRITE, APPEND);
-            } catch (NoSuchFileException f) {
-                String outputWithHeader = getFormatHeaders() + output + '\n';
-                try {
-                    Files.write(path, outputWithHeader.getBytes(StandardCharsets.UTF_8),
-                          WRITE, CREATE_NEW);
-                } catch (FileAlreadyExistsException e) {
-                    // Lost the race, so try appending again
-                    Files.write(path, outputBytes, WRITE, APPEND);
-                }
-            }
-        } catch (IOException e) {
-            LOGGER.warn("Can't write billing [{}] : {}", path, e.toString());
-        }
-    }
-
     private String getFormatHeaders() {
         if (_jsonFormat) {
             return "";
@@ -467,6 +439,11 @@ public final class BillingCell
         _poolManagerStub = poolManagerStub;
     }
 
+    @Required
+    public void setTextWriter(BillingFileWriter textWriter) {
+        _textWriter = textWriter;
+    }
+
     @Required
     public void setLogsDir(File dir) {
         if (!dir.isDirectory()) {
@@ -0,0 +1,489 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.cells;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import diskCacheV111.vehicles.InfoMessage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends billing records to the billing text files.
+ * <p>
+ * Records are queued and written by a dedicated thread.  The thread takes all records queued at
+ * the time, up to a maximum batch size, renders them into a direct buffer of the target file and
+ * writes each buffer with a single system call (group commit).  Depending on the sync policy,
+ * the files are forced to disk after each batch, periodically, or never.  While the queue is
+ * full, the threads queueing records are blocked until the writer catches up.  Optionally,
+ * records arriving while the queue is full are dropped instead, so that a slow disk cannot stall
+ * the billing cell; dropped records are counted and logged.
+ * <p>
+ * The files are kept open between batches.  A file that has not been written to for a while is
+ * closed, which takes care of the files of previous days.  A file that was moved or deleted, for
+ * instance by logrotate, is detected and reopened.
+ */
+public class BillingFileWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BillingFileWriter.class);
+
+    private static final int MAX_OPEN_FILES = 4;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(1);
+    private static final long ROTATION_CHECK_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final long POLL_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    public enum SyncPolicy {
+        /**
+         * Leave it to the operating system to write data to disk.
+         */
+        NEVER,
+
+        /**
+         * Force data to disk after each batch of records.
+         */
+        COMMIT,
+
+        /**
+         * Force data to disk at a fixed interval.
+         */
+        PERIODIC
+    }
+
+    /**
+     * Renders a billing record.
+     */
+    @FunctionalInterface
+    public interface Formatter {
+
+        /**
+         * Appends the rendered message to {@code out}.
+         *
+         * @return false if the message is not to be logged
+         */
+        boolean format(InfoMessage message, StringBuilder out);
+    }
+
+    private static class Record {
+
+        private final InfoMessage message;
+        private final Path billingFile;
+        private final Path errorFile;
+
+        Record(InfoMessage message, Path billingFile, Path errorFile) {
+            this.message = message;
+            this.billingFile = billingFile;
+            this.errorFile = errorFile;
+        }
+    }
+
+    private class OpenFile {
+
+        private final Path path;
+        private final FileChannel channel;
+        private final Object fileKey;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        private boolean isSynced = true;
+        private long lastUsed;
+        private long lastChecked;
+
+        OpenFile(Path path, long now) throws IOException {
+            this.path = path;
+            Files.createDirectories(path.getParent());
+            FileChannel channel;
+            boolean isNew;
+            try {
+                channel = FileChannel.open(path, WRITE, CREATE_NEW);
+                isNew = true;
+            } catch (FileAlreadyExistsException e) {
+                channel = FileChannel.open(path, WRITE, APPEND);
+                isNew = false;
+            }
+            this.channel = channel;
+            try {
+                fileKey = fileKeyOf(path);
+                if (isNew) {
+                    append(headers.get());
+                }
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            lastUsed = now;
+            lastChecked = now;
+        }
+
+        void append(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            encoder.reset();
+            while (encoder.encode(chars, buffer, true).isOverflow()) {
+                flush();
+            }
+            while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                buffer.clear();
+            }
+            isSynced = false;
+        }
+
+        void sync() throws IOException {
+            if (!isSynced) {
+                channel.force(false);
+                isSynced = true;
+            }
+        }
+
+        /**
+         * Returns whether the file at {@code path} is no longer the file this channel writes to.
+         */
+        boolean isReplaced(long now) {
+            if (now - lastChecked < ROTATION_CHECK_INTERVAL) {
+                return false;
+            }
+            lastChecked = now;
+            try {
+                Object key = fileKeyOf(path);
+                return key != null && !key.equals(fileKey);
+            } catch (NoSuchFileException e) {
+                return true;
+            } catch (IOException e) {
+                LOGGER.debug("Failed to stat {}: {}", path, e.toString());
+                return false;
+            }
+        }
+
+        void close() {
+            try (FileChannel ignored = channel) {
+                if (buffer.position() > 0) {
+                    flush();
+                }
+                if (syncPolicy != SyncPolicy.NEVER) {
+                    sync();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Can't write billing [{}] : {}", path, e.toString());
+            }
+        }
+    }
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /*
+     * Only accessed by the writer thread.
+     */
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder();
+    private final Map<Path, OpenFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long lastSync = System.nanoTime();
+    private long reportedDropped;
+
+    private BlockingQueue<Record> queue;
+    private volatile Thread thread;
+    private volatile boolean isStopping;
+
+    private Formatter formatter;
+    private Supplier<String> headers;
+
+    private int maxQueueSize = 100_000;
+    private boolean isDroppingWhenFull;
+    private int maxBatchSize = 1000;
+    private int bufferSize = 64 * 1024;
+    private SyncPolicy syncPolicy = SyncPolicy.NEVER;
+    private long syncPeriod = 1;
+    private TimeUnit syncPeriodUnit = TimeUnit.SECONDS;
+
+    public void setMaxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize > 0, "Queue size must be positive");
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Whether records are dropped rather than waiting for room in a full queue.
+     */
+    public void setDropWhenFull(boolean isDroppingWhenFull) {
+        this.isDroppingWhenFull = isDroppingWhenFull;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "Batch size must be positive");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        checkArgument(bufferSize >= 1024, "Buffer must be at least 1 KiB");
+        this.bufferSize = bufferSize;
+    }
+
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = Objects.requireNonNull(syncPolicy);
+    }
+
+    public void setSyncPeriod(long period) {
+        checkArgument(period > 0, "Sync period must be positive");
+        this.syncPeriod = period;
+    }
+
+    public void setSyncPeriodUnit(TimeUnit unit) {
+        this.syncPeriodUnit = Objects.requireNonNull(unit);
+    }
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param formatter renders the records
+     * @param headers   supplies the text written at the beginning of a new file
+     */
+    public synchronized void start(Formatter formatter, Supplier<String> headers) {
+        checkState(thread == null, "Writer already started");
+        this.formatter = Objects.requireNonNull(formatter);
+        this.headers = Objects.requireNonNull(headers);
+        queue = new LinkedBlockingQueue<>(maxQueueSize);
+        thread = new Thread(this::run, "billing-writer");
+        thread.start();
+    }
+
+    /**
+     * Writes the records still queued, closes all files and stops the writer thread.
+     */
+    public synchronized void shutdown() {
+        if (thread != null) {
+            isStopping = true;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Queues a record.  If the queue is full, blocks until there is room or, if so configured,
+     * drops the record.  The record is also dropped if the writer thread is no longer running.
+     *
+     * @param billingFile the file to which the record is appended
+     * @param errorFile   a second file to which the record is appended, or null
+     */
+    public void write(InfoMessage message, Path billingFile, Path errorFile) {
+        Record record = new Record(message, billingFile, errorFile);
+        if (isDroppingWhenFull) {
+            if (!queue.offer(record)) {
+                dropped.increment();
+            }
+            return;
+        }
+
+        try {
+            while (!queue.offer(record, POLL_INTERVAL, TimeUnit.NANOSECONDS)) {
+                Thread writer = thread;
+                if (writer == null || !writer.isAlive()) {
+                    dropped.increment();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void getInfo(PrintWriter pw) {
+        pw.format("%20s : %d records in %d batches, %d failed, %d dropped\n", "Text file writer",
+              records.sum(), batches.sum(), failures.sum(), dropped.sum());
+        pw.format("%20s : %d\n", "Queued records", queue == null ? 0 : queue.size());
+    }
+
+    private void run() {
+        List<Record> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (true) {
+                Record record = queue.poll(Math.min(syncPeriodUnit.toNanos(syncPeriod),
+                      POLL_INTERVAL), TimeUnit.NANOSECONDS);
+                if (record != null) {
+                    batch.add(record);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    write(batch);
+                    batch.clear();
+                } else if (isStopping) {
+                    break;
+                }
+                maintain(System.nanoTime());
+            }
+        } catch (InterruptedException e) {
+            queue.drainTo(batch);
+            write(batch);
+        } catch (RuntimeException e) {
+            LOGGER.error("Billing file writer failed. Please report this to "
+                  + "support@dcache.org.", e);
+        } finally {
+            files.values().forEach(OpenFile::close);
+            files.clear();
+        }
+    }
+
+    private void write(List<Record> batch) {
+        long now = System.nanoTime();
+        for (Record record : batch) {
+            line.setLength(0);
+            try {
+                if (formatter.format(record.message, line)) {
+                    line.append('\n');
+                    append(record.billingFile, now);
+                    if (record.errorFile != null) {
+                        append(record.errorFile, now);
+                    }
+                }
+            } catch (RuntimeException e) {
+                failures.increment();
+                LOGGER.error("Failed to write billing record {}. Please report this to "
+                      + "support@dcache.org.", record.message, e);
+            }
+        }
+
+        Iterator<OpenFile> iterator = files.values().iterator();
+        while (iterator.hasNext()) {
+            OpenFile file = iterator.next();
+            try {
+                if (file.buffer.position() > 0) {
+                    file.flush();
+                }
+                if (syncPolicy == SyncPolicy.COMMIT) {
+                    file.sync();
+                }
+            } catch (IOException e) {
+                fail(file.path, e);
+                iterator.remove();
+                file.close();
+            }
+        }
+        records.add(batch.size());
+        batches.increment();
+    }
+
+    private void append(Path path, long now) {
+        OpenFile file = files.get(path);
+        try {
+            if (file != null && file.isReplaced(now)) {
+                files.remove(path);
+                file.close();
+                file = null;
+            }
+            if (file == null) {
+                file = new OpenFile(path, now);
+                files.put(path, file);
+                evictEldest();
+            }
+            file.lastUsed = now;
+            file.append(line);
+        } catch (IOException e) {
+            fail(path, e);
+            if (file != null) {
+                files.remove(path);
+                file.close();
+            }
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<OpenFile> iterator = files.values().iterator();
+        while (files.size() > MAX_OPEN_FILES) {
+            OpenFile eldest = iterator.next();
+            iterator.remove();
+            eldest.close();
+        }
+    }
+
+    private void maintain(long now) {
+        boolean isSyncDue = syncPolicy == SyncPolicy.PERIODIC
+              && now - lastSync >= syncPeriodUnit.toNanos(syncPeriod);
+        Iterator<OpenFile> iterator = files.values().iterator();
+        while (iterator.hasNext()) {
+            OpenFile file = iterator.next();
+            if (now - file.lastUsed >= IDLE_TIMEOUT) {
+                iterator.remove();
+                file.close();
+            } else if (isSyncDue) {
+                try {
+                    file.sync();
+                } catch (IOException e) {
+                    fail(file.path, e);
+                    iterator.remove();
+                    file.close();
+                }
+            }
+        }
+        if (isSyncDue) {
+            lastSync = now;
+        }
+
+        long total = dropped.sum();
+        if (total > reportedDropped) {
+            LOGGER.warn("Dropped {} billing records as the queue was full.",
+                  total - reportedDropped);
+            reportedDropped = total;
+        }
+    }
+
+    private void fail(Path path, IOException e) {
+        failures.increment();
+        LOGGER.warn("Can't write billing [{}] : {}", path, e.toString());
+    }
+
+    private static Object fileKeyOf(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+}
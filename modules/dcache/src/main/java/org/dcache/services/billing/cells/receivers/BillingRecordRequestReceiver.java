@@ -120,12 +120,21 @@ package org.dcache.services.billing.cells.receivers;
 
 import diskCacheV111.util.PnfsId;
 import dmg.cells.nucleus.CellMessageReceiver;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.dcache.services.billing.archive.ArchiveQuery;
+import org.dcache.services.billing.archive.ArchiveRecord;
+import org.dcache.services.billing.archive.ArchiveRecord.Kind;
+import org.dcache.services.billing.archive.BillingArchive;
 import org.dcache.services.billing.db.IBillingInfoAccess;
 import org.dcache.services.billing.db.data.RecordEntry;
 import org.dcache.services.billing.db.data.StorageRecord;
@@ -134,10 +143,14 @@ import org.dcache.util.FieldSort;
 import org.dcache.vehicles.billing.RecordRequestMessage;
 import org.dcache.vehicles.billing.StorageRecordRequestMessage;
 import org.dcache.vehicles.billing.TransferRecordRequestMessage;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * <p>Serves up record data for a given file.  An optional date range
  * can be used to limit the search.</p>
+ *
+ * <p>Records are read from the database if available, otherwise from
+ * the billing archive.</p>
  */
 public final class BillingRecordRequestReceiver implements CellMessageReceiver {
 
@@ -227,6 +240,7 @@ public final class BillingRecordRequestReceiver implements CellMessageReceiver {
     }
 
     private IBillingInfoAccess access;
+    private BillingArchive archive;
 
     public TransferRecordRequestMessage messageArrived(
           TransferRecordRequestMessage request) {
@@ -242,10 +256,15 @@ public final class BillingRecordRequestReceiver implements CellMessageReceiver {
         this.access = access;
     }
 
+    @Autowired(required = false)
+    public void setArchive(BillingArchive archive) {
+        this.archive = archive;
+    }
+
     private <R extends RecordEntry & Comparable<R>, M extends RecordRequestMessage<R>>
     M process(M request, Class<R> clzz) {
 
-        if (access == null) {
+        if (access == null && archive == null) {
             request.setFailed(-1,
                   "No database connection; "
                         + "cannot provide record data.");
@@ -262,16 +281,27 @@ public final class BillingRecordRequestReceiver implements CellMessageReceiver {
 
         request.clearReply();
 
-        StringBuilder query = new StringBuilder();
-        StringBuilder params = new StringBuilder();
-        List<Object> values = new ArrayList<>();
-
-        request.buildDAOQuery(query, params, values);
-
-        Collection<R> result = access.get(clzz,
-              query.toString(),
-              params.toString(),
-              values.toArray());
+        Collection<R> result;
+        if (access != null) {
+            StringBuilder query = new StringBuilder();
+            StringBuilder params = new StringBuilder();
+            List<Object> values = new ArrayList<>();
+
+            request.buildDAOQuery(query, params, values);
+
+            result = access.get(clzz,
+                  query.toString(),
+                  params.toString(),
+                  values.toArray());
+        } else {
+            try {
+                result = queryArchive(request, clzz);
+            } catch (IOException e) {
+                request.setFailed(-1,
+                      "Failed to read billing archive: " + e.getMessage());
+                return request;
+            }
+        }
 
         Comparator<R> sorter = FieldSort.getSorter(request.sortList(),
               nextComparator(clzz));
@@ -293,4 +323,77 @@ public final class BillingRecordRequestReceiver implements CellMessageReceiver {
 
         return request;
     }
+
+    /**
+     * Reads the records from the archive.  As in the database views,
+     * transfers are joined with the door request that initiated them.
+     */
+    private <R extends RecordEntry> Collection<R> queryArchive(
+          RecordRequestMessage<R> request, Class<R> clzz) throws IOException {
+        ArchiveQuery query = new ArchiveQuery()
+              .pnfsId(request.getPnfsId().toString())
+              .since(toInstant(request.getAfter()))
+              .until(toInstant(request.getBefore()));
+        Kind kind = Kind.valueOf(request.getType().name());
+
+        if (clzz.isAssignableFrom(StorageRecord.class)) {
+            return archive.query(query.kinds(kind)).stream()
+                  .map(r -> clzz.cast(toStorageRecord(r)))
+                  .collect(Collectors.toList());
+        }
+
+        Map<String, ArchiveRecord> doorRequests = new HashMap<>();
+        List<ArchiveRecord> transfers = new ArrayList<>();
+        archive.query(query.kinds(kind, Kind.REQUEST), r -> {
+            if (r.getKind() != Kind.REQUEST) {
+                transfers.add(r);
+            } else if (r.getTransaction() != null) {
+                doorRequests.put(r.getTransaction(), r);
+            }
+        });
+        return transfers.stream()
+              .map(r -> clzz.cast(toTransferRecord(r,
+                    doorRequests.get(r.getInitiator()))))
+              .collect(Collectors.toList());
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
+    }
+
+    private static StorageRecord toStorageRecord(ArchiveRecord r) {
+        StorageRecord record = new StorageRecord();
+        record.setType(r.getKind().name());
+        record.setDateStamp(new Date(r.getTimestamp()));
+        record.setCellName(r.getCellName());
+        record.setConnectionTime(r.getConnectionTime());
+        record.setQueuedTime(r.getQueuedTime());
+        record.setErrorCode(r.getErrorCode());
+        record.setErrorMessage(r.getErrorMessage());
+        record.setPnfsId(r.getPnfsId());
+        return record;
+    }
+
+    private static TransferRecord toTransferRecord(ArchiveRecord r,
+          ArchiveRecord door) {
+        TransferRecord record = new TransferRecord();
+        record.setType(r.getKind().name());
+        record.setDateStamp(new Date(r.getTimestamp()));
+        record.setCellName(r.getCellName());
+        record.setInitiator(r.getInitiator());
+        record.setClient(r.getClient());
+        record.setTransferSize(r.getTransferSize());
+        record.setErrorCode(r.getErrorCode());
+        record.setErrorMessage(r.getErrorMessage());
+        record.setPnfsId(r.getPnfsId());
+        if (door != null) {
+            record.setConnectionTime(door.getConnectionTime());
+            record.setQueuedTime(door.getQueuedTime());
+            record.setMappedUid(door.getUid());
+            record.setMappedGid(door.getGid());
+            record.setFqan(door.getFqan());
+            record.setOwner(door.getOwner());
+        }
+        return record;
+    }
 }
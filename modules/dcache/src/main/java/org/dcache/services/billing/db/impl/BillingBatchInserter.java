@@ -0,0 +1,531 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.db.impl;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.data.DoorRequestData;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PnfsBaseInfo;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Inserts batches of billing records and maintains the hourly and daily aggregate tables in
+ * the same transaction.
+ * <p>
+ * The records of a batch are grouped by table and streamed to the database with a single COPY
+ * per table. Connections that do not support COPY fall back to batched INSERT statements.
+ * <p>
+ * The aggregates of a batch are summed per minute, the finest granularity at which the hours
+ * and days of all time zones begin, and then merged into {@code billing_hourly} and the daily
+ * tables. Hours and days are thus delimited in the time zone of the database session, exactly
+ * as the queries that used to compute these aggregates from the fine-grained tables did.
+ */
+public class BillingBatchInserter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BillingBatchInserter.class);
+
+    private static final DateTimeFormatter COPY_TIMESTAMP =
+          DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSxxx").withZone(ZoneOffset.UTC);
+
+    private static final List<Table<?>> TABLES = List.of(
+          new Table<>("billinginfo", MoverData.class,
+                List.of("connectiontime", "fullsize", "storageclass", "transfersize", "isnew",
+                      "client", "protocol", "initiator", "p2p", "owner", "mappeduid",
+                      "mappedgid", "fqan"),
+                d -> new Object[]{d.getConnectionTime(), d.getFullSize(), d.getStorageClass(),
+                      d.getTransferSize(), d.getIsNew(), d.getClient(), d.getProtocol(),
+                      d.getInitiator(), d.isP2p(), d.getOwner(), d.getMappedUID(),
+                      d.getMappedGID(), d.getFqan()}),
+          new Table<>("storageinfo", StorageData.class,
+                List.of("connectiontime", "fullsize", "storageclass", "queuedtime"),
+                d -> new Object[]{d.getConnectionTime(), d.getFullSize(), d.getStorageClass(),
+                      d.getQueuedTime()}),
+          new Table<>("doorinfo", DoorRequestData.class,
+                List.of("connectiontime", "owner", "mappeduid", "mappedgid", "client", "path",
+                      "queuedtime", "fqan"),
+                d -> new Object[]{d.getConnectionTime(), d.getOwner(), d.getMappedUID(),
+                      d.getMappedGID(), d.getClient(), d.getPath(), d.getQueuedTime(),
+                      d.getFqan()}),
+          new Table<>("hitinfo", PoolHitData.class,
+                List.of("filecached"),
+                d -> new Object[]{d.getFileCached()}));
+
+    private static final String UPSERT_HOURLY =
+          "INSERT INTO billing_hourly AS t (date, read_count, read_size, read_transferred,"
+                + " write_count, write_size, write_transferred, p2p_count, p2p_size,"
+                + " p2p_transferred, transfer_count, transfer_time_min, transfer_time_max,"
+                + " transfer_time_total, store_count, store_size, restore_count, restore_size,"
+                + " cached_count, notcached_count)"
+                + " SELECT date_trunc('hour', to_timestamp(m)), sum(rc), sum(rs), sum(rt),"
+                + " sum(wc), sum(ws), sum(wt), sum(pc), sum(ps), sum(pt), sum(tc), min(tl),"
+                + " max(th), sum(tt), sum(sc), sum(ss), sum(hc), sum(hs), sum(cc), sum(nc)"
+                + " FROM unnest(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                + " AS v(m, rc, rs, rt, wc, ws, wt, pc, ps, pt, tc, tl, th, tt, sc, ss, hc, hs,"
+                + " cc, nc)"
+                + " GROUP BY 1 ORDER BY 1"
+                + " ON CONFLICT (date) DO UPDATE SET"
+                + " read_count = t.read_count + EXCLUDED.read_count,"
+                + " read_size = t.read_size + EXCLUDED.read_size,"
+                + " read_transferred = t.read_transferred + EXCLUDED.read_transferred,"
+                + " write_count = t.write_count + EXCLUDED.write_count,"
+                + " write_size = t.write_size + EXCLUDED.write_size,"
+                + " write_transferred = t.write_transferred + EXCLUDED.write_transferred,"
+                + " p2p_count = t.p2p_count + EXCLUDED.p2p_count,"
+                + " p2p_size = t.p2p_size + EXCLUDED.p2p_size,"
+                + " p2p_transferred = t.p2p_transferred + EXCLUDED.p2p_transferred,"
+                + " transfer_count = t.transfer_count + EXCLUDED.transfer_count,"
+                + " transfer_time_min = LEAST(t.transfer_time_min, EXCLUDED.transfer_time_min),"
+                + " transfer_time_max = GREATEST(t.transfer_time_max, EXCLUDED.transfer_time_max),"
+                + " transfer_time_total = t.transfer_time_total + EXCLUDED.transfer_time_total,"
+                + " store_count = t.store_count + EXCLUDED.store_count,"
+                + " store_size = t.store_size + EXCLUDED.store_size,"
+                + " restore_count = t.restore_count + EXCLUDED.restore_count,"
+                + " restore_size = t.restore_size + EXCLUDED.restore_size,"
+                + " cached_count = t.cached_count + EXCLUDED.cached_count,"
+                + " notcached_count = t.notcached_count + EXCLUDED.notcached_count";
+
+    private static final String UPSERT_TRANSFERS_DAILY =
+          "INSERT INTO %s AS t (date, count, size, transferred)"
+                + " SELECT date(to_timestamp(m))::timestamp, sum(c), sum(s), sum(x)"
+                + " FROM unnest(?, ?, ?, ?) AS v(m, c, s, x)"
+                + " GROUP BY 1 HAVING sum(c) > 0 ORDER BY 1"
+                + " ON CONFLICT (date) DO UPDATE SET count = t.count + EXCLUDED.count,"
+                + " size = t.size + EXCLUDED.size,"
+                + " transferred = t.transferred + EXCLUDED.transferred";
+
+    private static final String UPSERT_TIME_DAILY =
+          "INSERT INTO billinginfo_tm_daily AS t (date, count, minimum, maximum, average)"
+                + " SELECT date(to_timestamp(m))::timestamp, sum(c), coalesce(min(l), 0),"
+                + " coalesce(max(h), 0), round(sum(x) / sum(c))"
+                + " FROM unnest(?, ?, ?, ?, ?) AS v(m, c, l, h, x)"
+                + " GROUP BY 1 HAVING sum(c) > 0 ORDER BY 1"
+                + " ON CONFLICT (date) DO UPDATE SET count = t.count + EXCLUDED.count,"
+                + " minimum = CASE WHEN t.count = 0 THEN EXCLUDED.minimum"
+                + " ELSE LEAST(t.minimum, EXCLUDED.minimum) END,"
+                + " maximum = GREATEST(t.maximum, EXCLUDED.maximum),"
+                + " average = round((t.average * t.count + EXCLUDED.average * EXCLUDED.count)"
+                + "::numeric / (t.count + EXCLUDED.count))";
+
+    private static final String UPSERT_STORAGE_DAILY =
+          "INSERT INTO %s AS t (date, count, size)"
+                + " SELECT date(to_timestamp(m))::timestamp, sum(c), sum(s)"
+                + " FROM unnest(?, ?, ?) AS v(m, c, s)"
+                + " GROUP BY 1 HAVING sum(c) > 0 ORDER BY 1"
+                + " ON CONFLICT (date) DO UPDATE SET count = t.count + EXCLUDED.count,"
+                + " size = t.size + EXCLUDED.size";
+
+    private static final String UPSERT_HITS_DAILY =
+          "INSERT INTO hitinfo_daily AS t (date, count, notcached, cached)"
+                + " SELECT date(to_timestamp(m))::timestamp, sum(c) + sum(n), sum(n), sum(c)"
+                + " FROM unnest(?, ?, ?) AS v(m, c, n)"
+                + " GROUP BY 1 HAVING sum(c) + sum(n) > 0 ORDER BY 1"
+                + " ON CONFLICT (date) DO UPDATE SET count = t.count + EXCLUDED.count,"
+                + " notcached = t.notcached + EXCLUDED.notcached,"
+                + " cached = t.cached + EXCLUDED.cached";
+
+    private final DataSource dataSource;
+
+    public BillingBatchInserter(DataSource dataSource) {
+        this.dataSource = requireNonNull(dataSource);
+    }
+
+    /**
+     * Inserts the records and updates the aggregates in a single transaction.
+     */
+    public void insert(Collection<IHistogramData> data) throws SQLException {
+        Rollup rollup = new Rollup();
+        data.forEach(rollup::add);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                boolean canCopy = connection.isWrapperFor(PGConnection.class);
+                for (Table<?> table : TABLES) {
+                    if (canCopy) {
+                        table.copy(connection, data);
+                    } else {
+                        table.insert(connection, data);
+                    }
+                }
+                rollup.merge(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the representation of a value in the text format of COPY.
+     */
+    static String toCopyText(Object value) {
+        if (value == null) {
+            return "\\N";
+        }
+        if (value instanceof Date) {
+            return COPY_TIMESTAMP.format(((Date) value).toInstant());
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "t" : "f";
+        }
+        String s = value.toString();
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fine-grained table holding one type of record.
+     */
+    private static class Table<T extends PnfsBaseInfo> {
+
+        private static final List<String> BASE_COLUMNS = List.of("datestamp", "cellname",
+              "action", "transaction", "pnfsid", "errorcode", "errormessage");
+
+        private final String name;
+        private final Class<T> type;
+        private final List<String> columns;
+        private final Function<T, Object[]> values;
+
+        Table(String name, Class<T> type, List<String> columns, Function<T, Object[]> values) {
+            this.name = name;
+            this.type = type;
+            this.columns = new ArrayList<>(BASE_COLUMNS);
+            this.columns.addAll(columns);
+            this.values = values;
+        }
+
+        private List<Object[]> rows(Collection<IHistogramData> data) {
+            return data.stream()
+                  .filter(type::isInstance)
+                  .map(type::cast)
+                  .map(this::row)
+                  .collect(Collectors.toList());
+        }
+
+        private Object[] row(T d) {
+            Object[] specific = values.apply(d);
+            Object[] row = new Object[BASE_COLUMNS.size() + specific.length];
+            row[0] = d.getDateStamp();
+            row[1] = d.getCellName();
+            row[2] = d.getAction();
+            row[3] = d.getTransaction();
+            row[4] = d.getPfsID();
+            row[5] = d.getErrorCode();
+            row[6] = d.getErrorMessage();
+            System.arraycopy(specific, 0, row, BASE_COLUMNS.size(), specific.length);
+            return row;
+        }
+
+        void copy(Connection connection, Collection<IHistogramData> data) throws SQLException {
+            List<Object[]> rows = rows(data);
+            if (rows.isEmpty()) {
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    text.append(i == 0 ? "" : "\t").append(toCopyText(row[i]));
+                }
+                text.append('\n');
+            }
+            String sql = "COPY " + name + " (" + String.join(", ", columns) + ") FROM STDIN";
+            try {
+                long copied = connection.unwrap(PGConnection.class).getCopyAPI()
+                      .copyIn(sql, new StringReader(text.toString()));
+                LOGGER.trace("copied {} rows into {}", copied, name);
+            } catch (IOException e) {
+                throw new SQLException("Failed to copy rows into " + name + ": "
+                      + e.getMessage(), e);
+            }
+        }
+
+        void insert(Connection connection, Collection<IHistogramData> data) throws SQLException {
+            List<Object[]> rows = rows(data);
+            if (rows.isEmpty()) {
+                return;
+            }
+            String sql = "INSERT INTO " + name + " (" + String.join(", ", columns)
+                  + ") VALUES (" + String.join(", ", columns.stream().map(c -> "?")
+                  .collect(Collectors.toList())) + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        Object value = row[i];
+                        if (value instanceof Date) {
+                            statement.setTimestamp(i + 1,
+                                  new Timestamp(((Date) value).getTime()));
+                        } else if (value == null) {
+                            statement.setNull(i + 1, Types.NULL);
+                        } else {
+                            statement.setObject(i + 1, value);
+                        }
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Aggregates of a batch of records, summed per minute.
+     */
+    static class Rollup {
+
+        static final int READ_COUNT = 0;
+        static final int READ_SIZE = 1;
+        static final int READ_TRANSFERRED = 2;
+        static final int WRITE_COUNT = 3;
+        static final int WRITE_SIZE = 4;
+        static final int WRITE_TRANSFERRED = 5;
+        static final int P2P_COUNT = 6;
+        static final int P2P_SIZE = 7;
+        static final int P2P_TRANSFERRED = 8;
+
+        /*
+         * Connection times of all transfers, which the hourly aggregates are based on.
+         */
+        static final int TRANSFER_COUNT = 9;
+        static final int TRANSFER_TIME_MIN = 10;
+        static final int TRANSFER_TIME_MAX = 11;
+        static final int TRANSFER_TIME_TOTAL = 12;
+
+        /*
+         * Connection times of transfers other than pool to pool transfers, which the daily
+         * aggregates are based on.
+         */
+        static final int CLIENT_COUNT = 13;
+        static final int CLIENT_TIME_MIN = 14;
+        static final int CLIENT_TIME_MAX = 15;
+        static final int CLIENT_TIME_TOTAL = 16;
+
+        static final int STORE_COUNT = 17;
+        static final int STORE_SIZE = 18;
+        static final int RESTORE_COUNT = 19;
+        static final int RESTORE_SIZE = 20;
+        static final int CACHED_COUNT = 21;
+        static final int NOTCACHED_COUNT = 22;
+
+        private static final int SIZE = 23;
+
+        private final Map<Long, long[]> minutes = new TreeMap<>();
+
+        void add(IHistogramData data) {
+            if (!(data instanceof PnfsBaseInfo)
+                  || !Integer.valueOf(0).equals(((PnfsBaseInfo) data).getErrorCode())) {
+                return;
+            }
+            if (data instanceof MoverData) {
+                add((MoverData) data);
+            } else if (data instanceof StorageData) {
+                add((StorageData) data);
+            } else if (data instanceof PoolHitData) {
+                add((PoolHitData) data);
+            }
+        }
+
+        private void add(MoverData data) {
+            long[] minute = minute(data);
+            long size = nullToZero(data.getFullSize());
+            long transferred = nullToZero(data.getTransferSize());
+            boolean isP2p = Boolean.TRUE.equals(data.isP2p());
+            if (isP2p) {
+                minute[P2P_COUNT]++;
+                minute[P2P_SIZE] += size;
+                minute[P2P_TRANSFERRED] += transferred;
+            } else if (Boolean.TRUE.equals(data.getIsNew())) {
+                minute[WRITE_COUNT]++;
+                minute[WRITE_SIZE] += size;
+                minute[WRITE_TRANSFERRED] += transferred;
+            } else if (Boolean.FALSE.equals(data.getIsNew())) {
+                minute[READ_COUNT]++;
+                minute[READ_SIZE] += size;
+                minute[READ_TRANSFERRED] += transferred;
+            }
+            Long time = data.getConnectionTime();
+            addTime(minute, TRANSFER_COUNT, time);
+            if (!isP2p) {
+                addTime(minute, CLIENT_COUNT, time);
+            }
+        }
+
+        private void add(StorageData data) {
+            long[] minute = minute(data);
+            if ("store".equals(data.getAction())) {
+                minute[STORE_COUNT]++;
+                minute[STORE_SIZE] += nullToZero(data.getFullSize());
+            } else if ("restore".equals(data.getAction())) {
+                minute[RESTORE_COUNT]++;
+                minute[RESTORE_SIZE] += nullToZero(data.getFullSize());
+            }
+        }
+
+        private void add(PoolHitData data) {
+            if (Boolean.TRUE.equals(data.getFileCached())) {
+                minute(data)[CACHED_COUNT]++;
+            } else if (Boolean.FALSE.equals(data.getFileCached())) {
+                minute(data)[NOTCACHED_COUNT]++;
+            }
+        }
+
+        /*
+         * The slots following the count hold minimum, maximum and total.
+         */
+        private static void addTime(long[] minute, int count, Long time) {
+            minute[count]++;
+            if (time != null) {
+                minute[count + 1] = Math.min(minute[count + 1], time);
+                minute[count + 2] = Math.max(minute[count + 2], time);
+                minute[count + 3] += time;
+            }
+        }
+
+        private long[] minute(PnfsBaseInfo data) {
+            Date date = data.getDateStamp();
+            long millis = date == null ? System.currentTimeMillis() : date.getTime();
+            return minutes.computeIfAbsent(TimeUnit.MILLISECONDS.toMinutes(millis), m -> {
+                long[] minute = new long[SIZE];
+                minute[TRANSFER_TIME_MIN] = Long.MAX_VALUE;
+                minute[TRANSFER_TIME_MAX] = Long.MIN_VALUE;
+                minute[CLIENT_TIME_MIN] = Long.MAX_VALUE;
+                minute[CLIENT_TIME_MAX] = Long.MIN_VALUE;
+                return minute;
+            });
+        }
+
+        private static long nullToZero(Long value) {
+            return value == null ? 0 : value;
+        }
+
+        boolean isEmpty() {
+            return minutes.isEmpty();
+        }
+
+        /**
+         * Returns the given aggregate per minute, using null for unknown minima and maxima.
+         */
+        Long[] values(int index) {
+            return minutes.values().stream()
+                  .map(minute -> minute[index])
+                  .map(v -> v == Long.MAX_VALUE || v == Long.MIN_VALUE ? null : v)
+                  .toArray(Long[]::new);
+        }
+
+        /**
+         * Returns the start of each minute in seconds since the epoch.
+         */
+        Long[] seconds() {
+            return minutes.keySet().stream()
+                  .map(TimeUnit.MINUTES::toSeconds)
+                  .toArray(Long[]::new);
+        }
+
+        void merge(Connection connection) throws SQLException {
+            if (isEmpty()) {
+                return;
+            }
+            execute(connection, UPSERT_HOURLY, READ_COUNT, READ_SIZE, READ_TRANSFERRED,
+                  WRITE_COUNT, WRITE_SIZE, WRITE_TRANSFERRED, P2P_COUNT, P2P_SIZE,
+                  P2P_TRANSFERRED, TRANSFER_COUNT, TRANSFER_TIME_MIN, TRANSFER_TIME_MAX,
+                  TRANSFER_TIME_TOTAL, STORE_COUNT, STORE_SIZE, RESTORE_COUNT, RESTORE_SIZE,
+                  CACHED_COUNT, NOTCACHED_COUNT);
+            execute(connection, String.format(UPSERT_TRANSFERS_DAILY, "billinginfo_rd_daily"),
+                  READ_COUNT, READ_SIZE, READ_TRANSFERRED);
+            execute(connection, String.format(UPSERT_TRANSFERS_DAILY, "billinginfo_wr_daily"),
+                  WRITE_COUNT, WRITE_SIZE, WRITE_TRANSFERRED);
+            execute(connection, String.format(UPSERT_TRANSFERS_DAILY, "billinginfo_p2p_daily"),
+                  P2P_COUNT, P2P_SIZE, P2P_TRANSFERRED);
+            execute(connection, UPSERT_TIME_DAILY,
+                  CLIENT_COUNT, CLIENT_TIME_MIN, CLIENT_TIME_MAX, CLIENT_TIME_TOTAL);
+            execute(connection, String.format(UPSERT_STORAGE_DAILY, "storageinfo_rd_daily"),
+                  RESTORE_COUNT, RESTORE_SIZE);
+            execute(connection, String.format(UPSERT_STORAGE_DAILY, "storageinfo_wr_daily"),
+                  STORE_COUNT, STORE_SIZE);
+            execute(connection, UPSERT_HITS_DAILY, CACHED_COUNT, NOTCACHED_COUNT);
+        }
+
+        private void execute(Connection connection, String sql, int... indices)
+              throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                List<Array> arrays = new ArrayList<>();
+                try {
+                    arrays.add(connection.createArrayOf("int8", seconds()));
+                    for (int index : indices) {
+                        arrays.add(connection.createArrayOf("int8", values(index)));
+                    }
+                    for (int i = 0; i < arrays.size(); i++) {
+                        statement.setArray(i + 1, arrays.get(i));
+                    }
+                    statement.executeUpdate();
+                } finally {
+                    for (Array array : arrays) {
+                        array.free();
+                    }
+                }
+            }
+        }
+    }
+}
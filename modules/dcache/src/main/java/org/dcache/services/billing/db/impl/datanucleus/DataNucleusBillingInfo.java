@@ -59,6 +59,7 @@ documents or software obtained from this server.
  */
 package org.dcache.services.billing.db.impl.datanucleus;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
@@ -74,6 +75,7 @@ import org.dcache.services.billing.db.IBillingInfoAccess;
 import org.dcache.services.billing.db.data.IHistogramData;
 import org.dcache.services.billing.db.exceptions.RetryException;
 import org.dcache.services.billing.db.impl.AbstractBillingInfoAccess;
+import org.dcache.services.billing.db.impl.BillingBatchInserter;
 import org.springframework.beans.factory.annotation.Required;
 
 /**
@@ -111,10 +113,24 @@ public class DataNucleusBillingInfo extends AbstractBillingInfoAccess {
     private PersistenceManagerFactory pmf;
     private long truncationCutoff;
     private TimeUnit truncationCutoffUnit;
+    private BillingBatchInserter batchInserter;
 
+    /**
+     * Records are inserted using the batch inserter if one is configured; it also maintains the
+     * aggregate tables.  Otherwise they are persisted through DataNucleus.
+     */
     @Override
     public void commit(Collection<IHistogramData> data)
           throws RetryException {
+        if (batchInserter != null) {
+            try {
+                batchInserter.insert(data);
+            } catch (SQLException e) {
+                throw new RetryException(e);
+            }
+            return;
+        }
+
         PersistenceManager insertManager = pmf.getPersistenceManager();
         Transaction tx = insertManager.currentTransaction();
         try {
@@ -258,6 +274,10 @@ public class DataNucleusBillingInfo extends AbstractBillingInfoAccess {
         this.pmf = pmf;
     }
 
+    public void setBatchInserter(BillingBatchInserter batchInserter) {
+        this.batchInserter = batchInserter;
+    }
+
     @Required
     public void setTruncationCutoff(long truncationCutoff) {
         this.truncationCutoff = truncationCutoff;
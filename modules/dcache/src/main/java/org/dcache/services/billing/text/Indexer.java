@@ -41,9 +41,11 @@ import java.io.PipedWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -61,12 +63,16 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.logging.LogManager;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.dcache.boot.LayoutBuilder;
+import org.dcache.services.billing.archive.ArchiveQuery;
+import org.dcache.services.billing.archive.ArchiveRecord;
+import org.dcache.services.billing.archive.BillingArchive;
 import org.dcache.util.Args;
 import org.dcache.util.configuration.ConfigurationProperties;
 import org.slf4j.Logger;
@@ -82,6 +88,7 @@ public class Indexer {
     private static final String BILLING_TEXT_FLAT_DIR = "billing.text.flat-dir";
     private static final String BILLING_TEXT_DIR = "billing.text.dir";
     private static final String BILLING_TEXT_FORMAT_PREFIX = "billing.parser.format!";
+    private static final String BILLING_ARCHIVE_DIR = "billing.archive.dir";
     private static final String BZ2 = "bz2";
     private static final int PIPE_SIZE = KiB.toBytes(2);
 
@@ -178,6 +185,35 @@ public class Indexer {
                     find(searchTerms, filesWithPossibleMatch, out);
                 }
             }
+        } else if (args.hasOption("query")) {
+            BillingArchive archive = new BillingArchive();
+            archive.setDirectory(
+                  args.getOption("archive", configuration.getValue(BILLING_ARCHIVE_DIR)));
+            archive.init();
+
+            ZoneId zone = ZoneId.systemDefault();
+            ArchiveQuery query = new ArchiveQuery()
+                  .client(args.getOption("client"))
+                  .owner(args.getOption("owner"));
+            if (args.hasOption("since")) {
+                query.since(LocalDate.parse(args.getOption("since"), CLI_DATE_FORMAT)
+                      .atStartOfDay(zone).toInstant());
+            }
+            if (args.hasOption("until")) {
+                query.until(LocalDate.parse(args.getOption("until"), CLI_DATE_FORMAT)
+                      .atStartOfDay(zone).toInstant().minusMillis(1));
+            }
+
+            try (ArchiveOutput out = args.hasOption("json")
+                  ? new JsonArchiveOutput(System.out) : System.out::println) {
+                if (args.argc() == 0) {
+                    archive.query(query, out);
+                } else {
+                    for (String pnfsid : args.getArguments()) {
+                        archive.query(query.pnfsId(pnfsid), out);
+                    }
+                }
+            }
         } else if (args.hasOption("all")) {
             for (File file : SORTED_FILE_TREE_TRAVERSER.preOrderTraversal(dir).filter(isFile())) {
                 Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
@@ -439,6 +475,13 @@ public class Indexer {
         out.println(
               "          of billing files that might contain the search term. If no search term");
         out.println("          is provided, all entries are output.");
+        out.println(
+              "   -query [-json] [-archive=DIR] [-since=DATE] [-until=DATE] [-client=HOST] [-owner=OWNER] [PNFSID]...");
+        out.println(
+              "          Output records of the billing archive for PNFSID. Optionally only");
+        out.println(
+              "          records of the given client host or owner are output. If no pnfsid");
+        out.println("          is provided, records of all files are output.");
         out.println("   -index [-fpp=PROP] FILE...");
         out.println("          Create index for FILE.");
         out.println("   -yesterday [-compress] [-fpp=PROP] [-dir=BASE] [-flat=BOOL]");
@@ -447,6 +490,9 @@ public class Indexer {
         out.println("          after indexing it.");
         out.println("");
         out.println("OPTIONS:");
+        out.println("   -archive=DIR");
+        out.println("          Directory of the billing archive. Default is taken from dCache");
+        out.println("          configuration.");
         out.println("   -dir=BASE");
         out.println("          Base directory for billing files. Default is taken from dCache");
         out.println("          configuration.");
@@ -703,4 +749,64 @@ public class Indexer {
 
         void write(LocalDate date, String line) throws IOException;
     }
+
+    private interface ArchiveOutput extends Consumer<ArchiveRecord>, Closeable {
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Writes archive records as a JSON array.
+     */
+    private static class JsonArchiveOutput implements ArchiveOutput {
+
+        private final PrintStream out;
+        private final JsonWriter writer;
+
+        JsonArchiveOutput(PrintStream out) throws IOException {
+            this.out = out;
+            writer = new JsonWriter(new OutputStreamWriter(out, UTF_8));
+            writer.setIndent("  ");
+            writer.beginArray();
+        }
+
+        @Override
+        public void accept(ArchiveRecord record) {
+            try {
+                writer.beginObject();
+                writer.name("date").value(ISO8601_FORMAT.format(
+                      Instant.ofEpochMilli(record.getTimestamp()).atZone(ZoneId.systemDefault())));
+                writer.name("type").value(record.getKind().name());
+                writer.name("cellName").value(record.getCellName());
+                writer.name("pnfsid").value(record.getPnfsId());
+                writer.name("path").value(record.getPath());
+                writer.name("owner").value(record.getOwner());
+                writer.name("uid").value(record.getUid());
+                writer.name("gid").value(record.getGid());
+                writer.name("fqan").value(record.getFqan());
+                writer.name("client").value(record.getClient());
+                writer.name("transaction").value(record.getTransaction());
+                writer.name("initiator").value(record.getInitiator());
+                writer.name("storageClass").value(record.getStorageClass());
+                writer.name("fileSize").value(record.getFileSize());
+                writer.name("transferSize").value(record.getTransferSize());
+                writer.name("connectionTime").value(record.getConnectionTime());
+                writer.name("queuingTime").value(record.getQueuedTime());
+                writer.name("errorCode").value(record.getErrorCode());
+                writer.name("errorMessage").value(record.getErrorMessage());
+                writer.endObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.endArray();
+            writer.flush();
+            out.println();
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.services.billing.text;
+
+import com.google.common.io.CharStreams;
+import diskCacheV111.cells.DateRenderer;
+import diskCacheV111.vehicles.InfoMessage;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import org.dcache.util.Slf4jSTErrorListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stringtemplate.v4.AutoIndentWriter;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+import org.stringtemplate.v4.compiler.STException;
+
+/**
+ * Renders InfoMessages using the StringTemplate formats of the billing text files.
+ * <p>
+ * Each format is compiled once, when the formatter is created.  Rendering a message only
+ * instantiates the compiled template and writes the result to a caller supplied buffer, so no
+ * intermediate strings are created.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public class InfoMessageFormatter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InfoMessageFormatter.class);
+
+    private final STGroup group = new STGroup('$', '$');
+
+    /**
+     * @param formats the format of each message type, keyed by the simple class name of the
+     *                message
+     */
+    public InfoMessageFormatter(Map<String, String> formats) {
+        group.registerRenderer(Date.class, new DateRenderer());
+        group.setListener(new Slf4jSTErrorListener(LOGGER));
+        formats.forEach((type, format) -> {
+            if (!format.isEmpty()) {
+                try {
+                    /* Like templates created from a string, the attributes are declared
+                     * as they are added by StringTemplateInfoMessageVisitor.
+                     */
+                    group.defineTemplate(type, format).hasFormalArgs = false;
+                } catch (STException e) {
+                    LOGGER.error("Unable to compile format '{}'.", format);
+                }
+            }
+        });
+    }
+
+    /**
+     * Appends the rendered message to the given buffer.
+     *
+     * @return false if no format is defined for messages of this type
+     */
+    public boolean format(InfoMessage message, StringBuilder out) {
+        String type = message.getClass().getSimpleName();
+        ST template = group.getInstanceOf(type);
+        if (template == null) {
+            return false;
+        }
+        int length = out.length();
+        try {
+            message.accept(new StringTemplateInfoMessageVisitor(template));
+            template.write(new AutoIndentWriter(CharStreams.asWriter(out)));
+            return true;
+        } catch (IOException | STException e) {
+            LOGGER.error("Unable to render format of {}.", type);
+            out.setLength(length);
+            return false;
+        }
+    }
+}
@@ -3,11 +3,17 @@ package org.dcache.util;
 import static org.dcache.util.MathUtils.addWithInfinity;
 import static org.dcache.util.MathUtils.subWithInfinity;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsHandler;
 import diskCacheV111.util.TimeoutCacheException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.security.auth.Subject;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.util.TimeUtils.TimeUnitFormat;
@@ -19,6 +25,7 @@ public class RedirectedTransfer<T> extends Transfer {
 
     private boolean _isRedirected;
     private T _redirectObject;
+    private final SettableFuture<T> _redirectFuture = SettableFuture.create();
 
     public RedirectedTransfer(PnfsHandler pnfs, Subject namespaceSubject,
           Restriction restriction, Subject subject, FsPath path) {
@@ -37,6 +44,16 @@ public class RedirectedTransfer<T> extends Transfer {
         _isRedirected = true;
         _redirectObject = object;
         notifyAll();
+        _redirectFuture.set(object);
+    }
+
+    @Override
+    public synchronized void finished(CacheException error) {
+        super.finished(error);
+        if (!_isRedirected) {
+            _redirectFuture.setException(error != null
+                  ? error : new CacheException("Mover finished without redirect"));
+        }
     }
 
     /**
@@ -88,4 +105,33 @@ public class RedirectedTransfer<T> extends Transfer {
           throws CacheException, InterruptedException {
         return waitForRedirect(unit.toMillis(timeout));
     }
+
+    /**
+     * Returns a future for the redirect of the mover of this transfer. Unlike {@link
+     * #waitForRedirect}, no thread is blocked while waiting. Relies on the redirect being
+     * injected into the transfer through the <code>redirect</code> method.
+     * <p>
+     * The future fails with a CacheException if the mover failed or finished without a redirect,
+     * and with a TimeoutCacheException if no redirect was received within the timeout.
+     *
+     * @param timeout  The timeout
+     * @param unit     The unit of the timeout
+     * @param executor Executor used to schedule the timeout
+     */
+    public ListenableFuture<T> redirectAsync(long timeout, TimeUnit unit,
+          ScheduledExecutorService executor) {
+        setStatus("Mover " + getPool() + "/" + getMoverId() + ": Waiting for redirect");
+        ListenableFuture<T> future = Futures.catchingAsync(
+              Futures.withTimeout(Futures.nonCancellationPropagating(_redirectFuture),
+                    timeout, unit, executor),
+              TimeoutException.class,
+              e -> {
+                  StringBuilder sb = new StringBuilder("No redirect from mover on pool ")
+                        .append(getPool()).append(" after ");
+                  TimeUtils.appendDuration(sb, timeout, unit, TimeUnitFormat.SHORT);
+                  return Futures.immediateFailedFuture(new TimeoutCacheException(sb.toString()));
+              }, MoreExecutors.directExecutor());
+        future.addListener(() -> setStatus(null), MoreExecutors.directExecutor());
+        return future;
+    }
 }
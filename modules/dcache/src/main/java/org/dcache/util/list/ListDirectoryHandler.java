@@ -4,7 +4,9 @@ import com.google.common.collect.Range;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsHandler;
+import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
+import dmg.cells.nucleus.CellPath;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -21,6 +23,7 @@ import org.dcache.namespace.FileAttribute;
 import org.dcache.util.CacheExceptionFactory;
 import org.dcache.util.Glob;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsListDirectoryAckMessage;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +37,11 @@ import org.slf4j.LoggerFactory;
  * consequence that a ListDirectoryHandler cannot be used from the Cells messages thread. Any
  * attempt to do so will cause the message thread to block, as the replies cannot be delivered to
  * the ListDirectoryHandler.
+ * <p>
+ * Replies are flow controlled: PnfsManager sends at most a window of replies ahead of those
+ * consumed by the stream, and closing a stream before it was fully read cancels the listing.
+ * Memory used by a listing is thus bounded independently of the size of the directory, and no
+ * further entries are produced for a client that went away.
  */
 public class ListDirectoryHandler
       implements CellMessageReceiver, DirectoryListSource {
@@ -41,14 +49,50 @@ public class ListDirectoryHandler
     private static final Logger LOGGER =
           LoggerFactory.getLogger(ListDirectoryHandler.class);
 
+    /**
+     * Default number of replies PnfsManager may send ahead of the consumer.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    /**
+     * Minimum number of replies queued for a stream before the listing is aborted.  A flow
+     * controlled PnfsManager never sends more than the window plus the final reply ahead of the
+     * consumer; the bound protects the door from PnfsManagers without flow control.
+     */
+    static final int MAX_QUEUED_REPLIES = 256;
+
+    /**
+     * Thrown if PnfsManager does not support listing the entries after a name.  Such a
+     * PnfsManager predates this feature and drops the name from its replies; it lists the
+     * directory from the start instead.
+     */
+    public static class StartAfterNotSupportedException extends CacheException {
+
+        private static final long serialVersionUID = 1L;
+
+        public StartAfterNotSupportedException(String path) {
+            super(CacheException.SERVICE_UNAVAILABLE, "PnfsManager does not support listing "
+                  + path + " after a name; it needs to be upgraded.");
+        }
+    }
+
     private final PnfsHandler _pnfs;
     private final Map<UUID, Stream> _replies =
           new ConcurrentHashMap<>();
+    private int _window = DEFAULT_WINDOW;
 
     public ListDirectoryHandler(PnfsHandler pnfs) {
         _pnfs = pnfs;
     }
 
+    /**
+     * Sets the maximum number of replies that PnfsManager may send ahead of the consumer of a
+     * listing. Zero disables flow control.
+     */
+    public void setWindow(int window) {
+        _window = window;
+    }
+
     /**
      * Sends a directory list request to PnfsManager. The result is provided as a stream of
      * directory entries.
@@ -86,15 +130,42 @@ public class ListDirectoryHandler
     list(Subject subject, Restriction restriction, FsPath path, Glob pattern,
           Range<Integer> range, Set<FileAttribute> attributes)
           throws InterruptedException, CacheException {
+        return list(subject, restriction, path, pattern, null, range, attributes);
+    }
+
+    /**
+     * Sends a directory list request for the entries with a name greater than {@code startAfter}
+     * to PnfsManager. The entries are provided in order of their names as a stream of directory
+     * entries, allowing a listing to be continued after the last entry received. The range is
+     * relative to the first entry after {@code startAfter}.
+     * <p>
+     * The method blocks until the first set of directory entries have been received from the
+     * server. Errors while iterating over the stream end the iteration; they are available from
+     * {@link Stream#checkComplete}.
+     * <p>
+     * A PnfsManager that does not support listing after a name is detected by its first reply,
+     * which is then reported as a {@link StartAfterNotSupportedException}.  An empty name lists
+     * all entries except "." and "..", allowing such a PnfsManager to be detected on the first
+     * request of a listing.
+     *
+     * @param startAfter name after which the listing starts; null to list from the start of the
+     *                   directory, including "." and ".."
+     */
+    public Stream
+    list(Subject subject, Restriction restriction, FsPath path, Glob pattern, String startAfter,
+          Range<Integer> range, Set<FileAttribute> attributes)
+          throws InterruptedException, CacheException {
         String dir = path.toString();
         PnfsListDirectoryMessage msg =
               new PnfsListDirectoryMessage(dir, pattern, range, attributes);
         UUID uuid = msg.getUUID();
         boolean success = false;
-        Stream stream = new Stream(dir, uuid);
+        Stream stream = new Stream(dir, uuid, startAfter);
         try {
             msg.setSubject(subject);
             msg.setRestriction(restriction);
+            msg.setWindow(_window);
+            msg.setStartAfter(startAfter);
             _replies.put(uuid, stream);
             _pnfs.send(msg);
             stream.waitForMoreEntries();
@@ -147,19 +218,29 @@ public class ListDirectoryHandler
      * Callback for delivery of replies from PnfsManager. PnfsListDirectoryMessage have to be routed
      * to this message.
      */
+    public void messageArrived(CellMessage envelope, PnfsListDirectoryMessage reply) {
+        deliver(envelope.getSourcePath().revert(), reply);
+    }
+
+    /**
+     * Delivers a reply of unknown origin. Such replies are not acknowledged.
+     */
     public void messageArrived(PnfsListDirectoryMessage reply) {
+        deliver(null, reply);
+    }
+
+    private void deliver(CellPath source, PnfsListDirectoryMessage reply) {
         if (reply.isReply()) {
-            try {
-                UUID uuid = reply.getUUID();
-                Stream stream = _replies.get(uuid);
-                if (stream != null) {
-                    stream.put(reply);
-                } else {
-                    LOGGER.warn(
-                          "Received list result for an unknown request. Directory listing was possibly incomplete.");
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            UUID uuid = reply.getUUID();
+            Stream stream = _replies.get(uuid);
+            if (stream != null) {
+                stream.put(source, reply);
+            } else if (reply.getWindow() > 0) {
+                /* Replies that were in flight when the stream was closed. */
+                LOGGER.debug("Discarding list result for closed request {}.", uuid);
+            } else {
+                LOGGER.warn(
+                      "Received list result for an unknown request. Directory listing was possibly incomplete.");
             }
         }
     }
@@ -169,32 +250,85 @@ public class ListDirectoryHandler
      * of DirectoryEntries.
      * <p>
      * The stream acts as its own iterator, and multiple iterators are not supported.
+     * <p>
+     * The number of replies queued for the stream is bounded.  If more replies arrive than
+     * fit into the queue, the listing is aborted rather than blocking the thread delivering
+     * the replies.
      */
     public class Stream
           implements DirectoryStream, Iterator<DirectoryEntry> {
 
         private final BlockingQueue<PnfsListDirectoryMessage> _queue =
-              new LinkedBlockingQueue<>();
+              new LinkedBlockingQueue<>(Math.max(_window + 1, MAX_QUEUED_REPLIES));
         private final UUID _uuid;
         private final String _path;
+        private final String _startAfter;
         private boolean _isFinal;
         private Iterator<DirectoryEntry> _iterator;
         private int _count;
         private int _total;
+        private int _acknowledged;
+        private volatile boolean _isOverflowed;
+
+        /**
+         * The error that ended the iteration before the listing was complete, if any.
+         */
+        private CacheException _failure;
+
+        /**
+         * The PnfsManager instance serving the listing, if known.
+         */
+        private volatile CellPath _source;
 
         public Stream(String path, UUID uuid) {
+            this(path, uuid, null);
+        }
+
+        public Stream(String path, UUID uuid, String startAfter) {
             _path = path;
             _uuid = uuid;
+            _startAfter = startAfter;
         }
 
         @Override
         public void close() {
             _replies.remove(_uuid);
+            CellPath source = _source;
+            if (!_isFinal && source != null) {
+                _pnfs.notify(source, PnfsListDirectoryAckMessage.cancel(_uuid));
+            }
+        }
+
+        private void put(CellPath source, PnfsListDirectoryMessage msg) {
+            if (source != null && msg.getWindow() > 0) {
+                _source = source;
+            }
+            if (!_queue.offer(msg)) {
+                LOGGER.warn("Aborting listing of {} as too many replies are queued.", _path);
+                _isOverflowed = true;
+                _queue.clear();
+                close();
+            }
+        }
+
+        /**
+         * Acknowledges consumed replies once half of the window has been consumed, so that
+         * PnfsManager can produce more entries while the remaining replies are consumed.
+         */
+        private void acknowledge(int window) {
+            CellPath source = _source;
+            if (source != null && !_isFinal && _count - _acknowledged >= Math.max(1, window / 2)) {
+                _acknowledged = _count;
+                _pnfs.notify(source, PnfsListDirectoryAckMessage.acknowledge(_uuid, _count));
+            }
         }
 
-        private void put(PnfsListDirectoryMessage msg)
-              throws InterruptedException {
-            _queue.put(msg);
+        private void checkOverflow() throws CacheException {
+            if (_isOverflowed) {
+                _isFinal = true;
+                throw new CacheException(CacheException.RESOURCE,
+                      "Too many directory list replies queued.");
+            }
         }
 
         private void waitForMoreEntries()
@@ -204,8 +338,10 @@ public class ListDirectoryHandler
                 return;
             }
 
+            checkOverflow();
             PnfsListDirectoryMessage msg =
                   _queue.poll(_pnfs.getPnfsTimeout(), TimeUnit.MILLISECONDS);
+            checkOverflow();
             if (msg == null) {
                 throw new CacheException(CacheException.TIMEOUT,
                       "Timeout during directory listing.");
@@ -220,9 +356,19 @@ public class ListDirectoryHandler
             }
 
             if (msg.getReturnCode() != 0) {
+                /* An error reply terminates the listing. */
+                _isFinal = true;
                 throw CacheExceptionFactory.exceptionOf(msg);
             }
 
+            if (_startAfter != null && msg.getStartAfter() == null) {
+                /* Listed from the start by a PnfsManager that ignores the name. */
+                _isFinal = true;
+                throw new StartAfterNotSupportedException(_path);
+            }
+
+            acknowledge(msg.getWindow());
+
             _iterator = msg.getEntries().iterator();
 
             /* If the message is empty, then the iterator has no next
@@ -250,6 +396,7 @@ public class ListDirectoryHandler
                 }
             } catch (CacheException e) {
                 LOGGER.error("Listing of {} incomplete: {}", _path, e.getMessage());
+                _failure = e;
                 return false;
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -272,6 +419,15 @@ public class ListDirectoryHandler
         public void remove() {
             throw new UnsupportedOperationException();
         }
+
+        /**
+         * Throws the error that ended the iteration before all entries were received, if any.
+         */
+        public void checkComplete() throws CacheException {
+            if (_failure != null) {
+                throw _failure;
+            }
+        }
     }
 
 }
@@ -379,6 +379,57 @@ public class PoolSelectionUnitV2Test {
         assertNoPoolsReturned();
     }
 
+    @Test
+    public void testThatDisabledPoolIsNotSelected() {
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 127.0.0.1 */*");
+        assertThatPoolsAre(TAPE_POOLS);
+
+        psu.setPoolDisabled("testpool03-5");
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 127.0.0.1 */*");
+        assertThatPoolsAre(Set.of("testpool08-5", "testpool09-5", "testpool04-7", "testpool04-5"));
+
+        psu.setPoolEnabled("testpool03-5");
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 127.0.0.1 */*");
+        assertThatPoolsAre(TAPE_POOLS);
+    }
+
+    @Test
+    public void testThatPoolAddedAfterMatchIsSelected() {
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 127.0.0.1 */*");
+        assertThatPoolsAre(TAPE_POOLS);
+
+        psu.createPool("testpool10-5", false, false, false);
+        psu.getPool("testpool10-5").setPoolMode(new PoolV2Mode(PoolV2Mode.ENABLED));
+        psu.getPool("testpool10-5").setActive(true);
+        psu.addToPoolGroup("tape-group", "testpool10-5");
+
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 127.0.0.1 */*");
+        Set<String> pools = new HashSet<>(TAPE_POOLS);
+        pools.add("testpool10-5");
+        assertThatPoolsAre(pools);
+    }
+
+    @Test
+    public void testThatMostSpecificNetUnitIsMatched() throws Exception {
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 10.1.2.3 */*");
+        assertThatPoolsAre(TAPE_POOLS);
+
+        commandInterpreter.command(new Args("psu create unit -net 10.0.0.0/8"));
+        commandInterpreter.command(new Args("psu create unit -net 10.1.0.0/16"));
+        commandInterpreter.command(new Args("psu addto ugroup world-net 10.0.0.0/8"));
+        commandInterpreter.command(new Args("psu create ugroup campus-net"));
+        commandInterpreter.command(new Args("psu addto ugroup campus-net 10.1.0.0/16"));
+        commandInterpreter.command(new Args("psu create link campus-link any-protocol tape campus-net"));
+        commandInterpreter.command(new Args("psu set link campus-link -readpref=20"));
+        commandInterpreter.command(new Args("psu addto link campus-link persistent-tape-group"));
+
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 10.1.2.3 */*");
+        assertThatPoolsAre(Set.of("testpool03-8", "testpool04-8", "testpool08-8", "testpool09-8"));
+
+        whenMatchIsCalledWith("read -storageClass=tape.dcache-devel-test -hsm=enstore 10.2.3.4 */*");
+        assertThatPoolsAre(TAPE_POOLS);
+    }
+
     private void assertNoPoolsReturned() {
         assertNotNull(levels);
         assertEquals("wrong number of preference levels", 0, levels.length);
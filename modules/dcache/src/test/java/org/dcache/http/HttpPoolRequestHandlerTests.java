@@ -31,9 +31,13 @@ import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ArrayListMultimap;
@@ -76,6 +80,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import org.dcache.pool.movers.ChecksumChannel;
 import org.dcache.pool.movers.NettyTransferService;
 import org.dcache.pool.repository.FileRepositoryChannel;
@@ -109,6 +114,7 @@ public class HttpPoolRequestHandlerTests {
     private static final String CONTENT_DISPOSITION = "Content-Disposition";
 
     private static final int SOME_CHUNK_SIZE = 4096;
+    private static final long SOME_LINGER_TIMEOUT = 2000;
 
     private HttpPoolRequestHandler _handler;
     private NettyTransferService<HttpProtocolInfo> _server;
@@ -120,7 +126,8 @@ public class HttpPoolRequestHandlerTests {
     @Before
     public void setup() {
         _server = mock(NettyTransferService.class);
-        _handler = new HttpPoolRequestHandler(_server, SOME_CHUNK_SIZE, false);
+        _handler = new HttpPoolRequestHandler(_server, SOME_CHUNK_SIZE, false,
+              SOME_LINGER_TIMEOUT);
         _channel = new EmbeddedChannel(_handler);
         _files = Maps.newHashMap();
         _additionalWrites = new ArrayList<>();
@@ -392,6 +399,93 @@ public class HttpPoolRequestHandlerTests {
               line("--__AAAAAAAAAAAAAAAA__--"));
     }
 
+    @Test
+    public void shouldCoalesceOverlappingRangesIntoSingleRange()
+          throws Exception {
+        givenPoolHas(file("/path/to/file").withSize(1024));
+        givenDoorHasOrganisedReadOf(file("/path/to/file").with(SOME_UUID));
+
+        whenClientMakes(a(GET).withHeader("Range", "bytes=100-199,0-99,150-299")
+              .forUri("/path/to/file?dcache-http-uuid=" + SOME_UUID));
+
+        assertThat(_response.status(), is(PARTIAL_CONTENT));
+        assertThat(_response, hasHeader(CONTENT_LENGTH, "300"));
+        assertThat(_response, hasHeader(CONTENT_RANGE, "bytes 0-299/1024"));
+
+        assertThat(_additionalWrites, hasSize(2));
+        assertThat(_additionalWrites.get(0),
+              isPartialRead("/path/to/file", 0, 299));
+        assertThat(_additionalWrites.get(1), instanceOf(LastHttpContent.class));
+    }
+
+    @Test
+    public void shouldCoalesceAdjacentRangesOfMultipartResponse()
+          throws Exception {
+        givenPoolHas(file("/path/to/file").withSize(1024));
+        givenDoorHasOrganisedReadOf(file("/path/to/file").with(SOME_UUID));
+
+        whenClientMakes(a(GET).withHeader("Range", "bytes=1023-1023,0-0,1-1")
+              .forUri("/path/to/file?dcache-http-uuid=" + SOME_UUID));
+
+        assertThat(_response.status(), is(PARTIAL_CONTENT));
+        assertThat(_additionalWrites, hasSize(5));
+        assertThat(_additionalWrites.get(0), isMultipart().
+              emptyLine().
+              line("--__AAAAAAAAAAAAAAAA__").
+              line("Content-Range: bytes 0-1/1024").
+              emptyLine());
+        assertThat(_additionalWrites.get(1),
+              isPartialRead("/path/to/file", 0, 1));
+        assertThat(_additionalWrites.get(3),
+              isPartialRead("/path/to/file", 1023, 1023));
+    }
+
+    @Test
+    public void shouldLingerAfterRangeRequestWithConnectionClose()
+          throws Exception {
+        givenPoolHas(file("/path/to/file").withSize(1024));
+        NettyTransferService<HttpProtocolInfo>.NettyMoverChannel channel =
+              givenDoorHasOrganisedReadOf(file("/path/to/file").with(SOME_UUID));
+
+        whenClientMakes(a(GET).withHeader("Range", "bytes=0-499")
+              .withHeader("Connection", "close")
+              .forUri("/path/to/file?dcache-http-uuid=" + SOME_UUID));
+        _channel.close();
+
+        verify(channel).releaseLingering(SOME_LINGER_TIMEOUT, TimeUnit.MILLISECONDS);
+        verify(channel, never()).release();
+    }
+
+    @Test
+    public void shouldLingerAfterRangeRequestWhenConnectionIsClosed()
+          throws Exception {
+        givenPoolHas(file("/path/to/file").withSize(1024));
+        NettyTransferService<HttpProtocolInfo>.NettyMoverChannel channel =
+              givenDoorHasOrganisedReadOf(file("/path/to/file").with(SOME_UUID));
+
+        whenClientMakes(a(GET).withHeader("Range", "bytes=0-499")
+              .forUri("/path/to/file?dcache-http-uuid=" + SOME_UUID));
+        verify(channel, never()).releaseLingering(anyLong(), any());
+
+        _channel.close();
+
+        verify(channel).releaseLingering(SOME_LINGER_TIMEOUT, TimeUnit.MILLISECONDS);
+        verify(channel, never()).release();
+    }
+
+    @Test
+    public void shouldReleaseWholeFileReadOnlyOnce() throws Exception {
+        givenPoolHas(file("/path/to/file").withSize(1024));
+        NettyTransferService<HttpProtocolInfo>.NettyMoverChannel channel =
+              givenDoorHasOrganisedReadOf(file("/path/to/file").with(SOME_UUID));
+
+        whenClientMakes(a(GET).forUri("/path/to/file?dcache-http-uuid=" + SOME_UUID));
+        _channel.close();
+
+        verify(channel, times(1)).release();
+        verify(channel, never()).releaseLingering(anyLong(), any());
+    }
+
     @Test
     public void shouldRejectDeleteRequests() throws Exception {
         whenClientMakes(a(DELETE).forUri("/path/to/file"));
@@ -503,8 +597,8 @@ public class HttpPoolRequestHandlerTests {
         _files.put(file.getPath(), file);
     }
 
-    private void givenDoorHasOrganisedReadOf(final FileInfo file)
-          throws URISyntaxException, IOException {
+    private NettyTransferService<HttpProtocolInfo>.NettyMoverChannel givenDoorHasOrganisedReadOf(
+          final FileInfo file) throws URISyntaxException, IOException {
         String path = file.getPath();
 
         file.withSize(sizeOfFile(file));
@@ -523,6 +617,7 @@ public class HttpPoolRequestHandlerTests {
         given(channel.getFileAttributes()).willReturn(file.getFileAttributes());
         given(channel.release()).willReturn(Futures.immediateFuture(null));
         given(_server.openFile(eq(file.getUuid()), anyBoolean())).willReturn(channel);
+        return channel;
     }
 
     private void givenDoorHasOrganisedWriteOf(final FileInfo file)
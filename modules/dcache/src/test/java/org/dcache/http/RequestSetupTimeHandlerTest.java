@@ -0,0 +1,71 @@
+package org.dcache.http;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
+import static io.netty.handler.codec.http.HttpResponseStatus.CREATED;
+import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestSetupTimeHandlerTest {
+
+    private HttpSetupStatistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = new HttpSetupStatistics();
+    }
+
+    @Test
+    public void shouldRecordSetupOfRequestsOnSameConnection() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+              new RequestSetupTimeHandler(statistics, false));
+
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.GET, "/a"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, OK));
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.HEAD, "/b"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, OK));
+
+        assertThat(info(), containsString("Requests: 2 (1 on reused connections)"));
+    }
+
+    @Test
+    public void shouldNotRecordSetupOfUploads() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+              new RequestSetupTimeHandler(statistics, false));
+
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.PUT, "/a"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, CREATED));
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.GET, "/a"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, OK));
+
+        assertThat(info(), containsString("Requests: 1 (1 on reused connections)"));
+    }
+
+    @Test
+    public void shouldCountStreamOfReusedConnectionAsReused() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+              new RequestSetupTimeHandler(statistics, true));
+
+        channel.writeInbound(new DefaultHttpRequest(HTTP_1_1, HttpMethod.GET, "/a"));
+        channel.writeOutbound(new DefaultFullHttpResponse(HTTP_1_1, OK));
+
+        assertThat(info(), containsString("Requests: 1 (1 on reused connections)"));
+    }
+
+    private String info() {
+        StringWriter writer = new StringWriter();
+        statistics.getInfo(new PrintWriter(writer));
+        return writer.toString();
+    }
+}
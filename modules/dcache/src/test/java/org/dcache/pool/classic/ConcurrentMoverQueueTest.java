@@ -0,0 +1,192 @@
+package org.dcache.pool.classic;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.pool.classic.MoverRequestScheduler.Order;
+import org.dcache.pool.classic.MoverRequestScheduler.PrioritizedRequest;
+import org.dcache.pool.movers.Mover;
+import org.dcache.util.IoPriority;
+import org.junit.Test;
+
+public class ConcurrentMoverQueueTest {
+
+    private int _nextId;
+
+    private PrioritizedRequest request(IoPriority priority) {
+        int id = _nextId++;
+        return new PrioritizedRequest(id, "door-" + id, mock(Mover.class), priority);
+    }
+
+    @Test
+    public void shouldAcquireSlotsUntilLimitReached() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 2);
+
+        assertThat(queue.submit(request(IoPriority.REGULAR)), is(true));
+        assertThat(queue.submit(request(IoPriority.REGULAR)), is(true));
+        assertThat(queue.submit(request(IoPriority.REGULAR)), is(false));
+
+        assertThat(queue.getActiveJobs(), is(2));
+        assertThat(queue.getQueueSize(), is(1));
+    }
+
+    @Test
+    public void shouldDispatchInFifoOrder() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 0);
+        PrioritizedRequest first = request(IoPriority.REGULAR);
+        PrioritizedRequest second = request(IoPriority.REGULAR);
+        queue.submit(first);
+        queue.submit(second);
+
+        queue.setMaxActiveJobs(1);
+
+        assertThat(queue.poll(), is(sameInstance(first)));
+        assertThat(queue.nextOrRelease(), is(sameInstance(second)));
+        assertThat(queue.nextOrRelease(), is(nullValue()));
+        assertThat(queue.getActiveJobs(), is(0));
+    }
+
+    @Test
+    public void shouldDispatchInLifoOrder() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.LIFO, 0);
+        PrioritizedRequest first = request(IoPriority.REGULAR);
+        PrioritizedRequest second = request(IoPriority.REGULAR);
+        queue.submit(first);
+        queue.submit(second);
+
+        queue.setMaxActiveJobs(1);
+
+        assertThat(queue.poll(), is(sameInstance(second)));
+        assertThat(queue.nextOrRelease(), is(sameInstance(first)));
+    }
+
+    @Test
+    public void shouldDispatchHigherPriorityFirst() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 0);
+        PrioritizedRequest low = request(IoPriority.LOW);
+        PrioritizedRequest regular = request(IoPriority.REGULAR);
+        PrioritizedRequest high = request(IoPriority.HIGH);
+        queue.submit(low);
+        queue.submit(regular);
+        queue.submit(high);
+
+        List<PrioritizedRequest> drained = new ArrayList<>();
+        queue.drainTo(drained);
+
+        assertThat(drained, contains(high, regular, low));
+        assertThat(queue.getQueueSize(), is(0));
+    }
+
+    @Test
+    public void shouldReorderQueuedRequestsWhenOrderChanges() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 0);
+        PrioritizedRequest first = request(IoPriority.REGULAR);
+        PrioritizedRequest second = request(IoPriority.REGULAR);
+        PrioritizedRequest third = request(IoPriority.REGULAR);
+        queue.submit(first);
+        queue.submit(second);
+
+        queue.setOrder(Order.LIFO);
+        queue.submit(third);
+
+        List<PrioritizedRequest> drained = new ArrayList<>();
+        queue.drainTo(drained);
+
+        assertThat(drained, contains(third, second, first));
+    }
+
+    @Test
+    public void shouldRemoveQueuedRequest() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 0);
+        PrioritizedRequest request = request(IoPriority.REGULAR);
+        queue.submit(request);
+
+        assertThat(queue.remove(request), is(true));
+        assertThat(queue.remove(request), is(false));
+        assertThat(queue.getQueueSize(), is(0));
+    }
+
+    @Test
+    public void shouldNotExceedMaxActiveJobs() {
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.FIFO, 1);
+        queue.submit(request(IoPriority.REGULAR));
+
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.getActiveJobs(), is(1));
+    }
+
+    @Test
+    public void shouldRunAllRequestsUnderConcurrentSubmission() throws Exception {
+        int threads = 8;
+        int requestsPerThread = 2_000;
+        int maxActive = 3;
+        ConcurrentMoverQueue queue = new ConcurrentMoverQueue(Order.LIFO, maxActive);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(threads);
+
+        /* Emulates the scheduler: a thread that acquires a slot runs the
+         * request and then keeps running queued requests until it releases
+         * the slot.
+         */
+        class Worker implements Runnable {
+            private final List<PrioritizedRequest> requests = new ArrayList<>();
+
+            void run(PrioritizedRequest request) {
+                while (request != null) {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    completed.incrementAndGet();
+                    running.decrementAndGet();
+                    request = queue.nextOrRelease();
+                }
+            }
+
+            @Override
+            public void run() {
+                try {
+                    for (PrioritizedRequest request : requests) {
+                        if (queue.submit(request)) {
+                            run(request);
+                        } else {
+                            run(queue.poll());
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        }
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker();
+            for (int j = 0; j < requestsPerThread; j++) {
+                worker.requests.add(request(IoPriority.values()[j % 3]));
+            }
+            workers.add(new Thread(worker));
+        }
+        workers.forEach(Thread::start);
+
+        assertThat(done.await(30, TimeUnit.SECONDS), is(true));
+        assertThat(failures.isEmpty(), is(true));
+        assertThat(completed.get(), is(equalTo(threads * requestsPerThread)));
+        assertThat(maxRunning.get() <= maxActive, is(true));
+        assertThat(queue.getQueueSize(), is(0));
+        assertThat(queue.getActiveJobs(), is(0));
+    }
+}
@@ -51,6 +51,20 @@ public class MoverRequestSchedulerTest {
         assertEquals(0, scheduler.numberOfRequestsFor(pnfsId));
     }
 
+    @Test
+    public void shouldQueueMoversBeyondMaxActiveWithConcurrentQueue() throws Exception {
+        scheduler = new MoverRequestScheduler("test-queue", 0, MoverRequestScheduler.Order.FIFO,
+              MoverRequestScheduler.QueueType.CONCURRENT);
+
+        addMover(pnfsId, false);
+        addMover(pnfsId, false);
+        addMover(pnfsId, false);
+
+        assertEquals(2, scheduler.getActiveJobs());
+        assertEquals(1, scheduler.getQueueSize());
+        assertEquals(3, scheduler.numberOfRequestsFor(pnfsId));
+    }
+
     private void addMover(PnfsId pnfsId, boolean isP2P) throws Exception {
         Mover mover = mock(Mover.class);
         FileAttributes attributes = new FileAttributes();
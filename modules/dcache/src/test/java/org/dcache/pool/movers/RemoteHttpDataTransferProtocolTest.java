@@ -0,0 +1,354 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.movers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import diskCacheV111.util.ThirdPartyTransferFailedCacheException;
+import diskCacheV111.vehicles.RemoteHttpDataTransferProtocolInfo;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RemoteHttpDataTransferProtocolTest {
+
+    private static final EnumSet<StandardOpenOption> WRITE = EnumSet.of(
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private CloseableHttpClient client;
+    private byte[] data;
+    private Path file;
+
+    /**
+     * The requests made to the remote server.
+     */
+    private List<HttpGet> requests;
+
+    /**
+     * The value of the Range header of each request; "-" if the request has no Range header.
+     */
+    private List<String> ranges;
+
+    private boolean isAcceptingRanges;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        client = mock(CloseableHttpClient.class);
+        data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 13);
+        }
+        file = folder.newFile().toPath();
+        requests = Collections.synchronizedList(new ArrayList<>());
+        ranges = Collections.synchronizedList(new ArrayList<>());
+        isAcceptingRanges = true;
+
+        given(client.execute(any(HttpUriRequest.class), any(HttpContext.class)))
+              .willAnswer(i -> serve(i.getArgument(0)));
+        given(client.execute(any(HttpUriRequest.class)))
+              .willAnswer(i -> serve(i.getArgument(0)));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldSplitIntoStripesOfEqualSize() {
+        assertThat(RemoteHttpDataTransferProtocol.splitIntoStripes(300, 3),
+              contains(Range.closed(0L, 99L), Range.closed(100L, 199L),
+                    Range.closed(200L, 299L)));
+    }
+
+    @Test
+    public void shouldAddRemainderToLastStripe() {
+        assertThat(RemoteHttpDataTransferProtocol.splitIntoStripes(302, 3),
+              contains(Range.closed(0L, 99L), Range.closed(100L, 199L),
+                    Range.closed(200L, 301L)));
+    }
+
+    @Test
+    public void shouldSplitIntoSingleStripe() {
+        assertThat(RemoteHttpDataTransferProtocol.splitIntoStripes(300, 1),
+              contains(Range.closed(0L, 299L)));
+    }
+
+    @Test
+    public void shouldSplitIntoSingleByteStripes() {
+        assertThat(RemoteHttpDataTransferProtocol.splitIntoStripes(3, 3),
+              contains(Range.closed(0L, 0L), Range.closed(1L, 1L), Range.closed(2L, 2L)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMoreStripesThanBytes() {
+        RemoteHttpDataTransferProtocol.splitIntoStripes(2, 3);
+    }
+
+    @Test
+    public void shouldFetchFileInRanges() throws Exception {
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges, containsInAnyOrder("-", "bytes=2500-4999", "bytes=5000-7499",
+              "bytes=7500-9999"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldLimitStreamsByMinimumStripeSize() throws Exception {
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 4000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges, containsInAnyOrder("-", "bytes=5000-9999"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldNotFetchRangesOfSmallFile() throws Exception {
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 6000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges, contains("-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldNotFetchRangesIfServerDoesNotAcceptRanges() throws Exception {
+        isAcceptingRanges = false;
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges, contains("-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldNotFetchRangesWithSingleStream() throws Exception {
+        RemoteHttpDataTransferProtocol protocol = new RemoteHttpDataTransferProtocol(client);
+
+        receive(protocol);
+
+        assertThat(ranges, contains("-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldAbortOtherRangesIfRangeFails() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        given(client.execute(any(HttpUriRequest.class))).willAnswer(i -> {
+            HttpGet get = i.getArgument(0);
+            requests.add(get);
+            String range = get.getFirstHeader("Range").getValue();
+            ranges.add(range);
+            if (range.equals("bytes=2500-4999")) {
+                return new Response(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            }
+            never.await();
+            throw new IOException("request was not aborted");
+        });
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        try {
+            receive(protocol);
+            fail("Transfer succeeded although a range failed");
+        } catch (ThirdPartyTransferFailedCacheException expected) {
+        }
+
+        List<HttpGet> notAborted = new ArrayList<>(requests);
+        notAborted.removeIf(r -> r.getFirstHeader("Range") == null || r.isAborted());
+        assertThat(notAborted, is(empty()));
+    }
+
+    @Test
+    public void shouldFetchWholeFileIfServerIgnoresRange() throws Exception {
+        given(client.execute(any(HttpUriRequest.class))).willAnswer(i -> {
+            Response response = new Response(HttpStatus.SC_OK);
+            response.setEntity(new ByteArrayEntity(data));
+            return response;
+        });
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges, contains("-", "-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldFetchWholeFileIfContentRangeDoesNotMatch() throws Exception {
+        given(client.execute(any(HttpUriRequest.class))).willAnswer(i -> {
+            HttpGet get = i.getArgument(0);
+            ranges.add(get.getFirstHeader("Range").getValue());
+            Response response = new Response(HttpStatus.SC_PARTIAL_CONTENT);
+            response.addHeader("Content-Range", "bytes 0-2499/10000");
+            response.setEntity(new ByteArrayEntity(data, 0, 2500));
+            return response;
+        });
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges.subList(ranges.size() - 1, ranges.size()), contains("-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldFetchWholeFileIfRangeIsShort() throws Exception {
+        given(client.execute(any(HttpUriRequest.class))).willAnswer(i -> {
+            HttpGet get = i.getArgument(0);
+            String range = get.getFirstHeader("Range").getValue();
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            Response response = new Response(HttpStatus.SC_PARTIAL_CONTENT);
+            response.addHeader("Content-Range",
+                  "bytes " + bounds[0] + "-" + bounds[1] + "/" + data.length);
+            response.setEntity(new InputStreamEntity(
+                  new ByteArrayInputStream(data, Integer.parseInt(bounds[0]), 10)));
+            return response;
+        });
+        RemoteHttpDataTransferProtocol protocol =
+              new RemoteHttpDataTransferProtocol(client, 4, 1000, executor);
+
+        receive(protocol);
+
+        assertThat(ranges.subList(ranges.size() - 1, ranges.size()), contains("-"));
+        assertThat(Files.readAllBytes(file), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldMatchContentRangeOfRequestedBytes() {
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange("bytes 100-199/300", 100, 199,
+              300), is(true));
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange("bytes 100-199/*", 100, 199,
+              300), is(true));
+    }
+
+    @Test
+    public void shouldNotMatchContentRangeOfOtherBytes() {
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange("bytes 0-99/300", 100, 199,
+              300), is(false));
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange("bytes 100-199/400", 100, 199,
+              300), is(false));
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange("bytes */300", 100, 199,
+              300), is(false));
+        assertThat(RemoteHttpDataTransferProtocol.isContentRange(null, 100, 199, 300),
+              is(false));
+    }
+
+    private void receive(RemoteHttpDataTransferProtocol protocol) throws Exception {
+        RemoteHttpDataTransferProtocolInfo info = new RemoteHttpDataTransferProtocolInfo(
+              "RemoteHttpDataTransfer", 1, 1, new InetSocketAddress(0),
+              "http://example.org/file", false, ImmutableMap.of(), List.of());
+        protocol.acceptIntegrityChecker(c -> {
+        });
+        try (RepositoryChannel channel = new FileRepositoryChannel(file, WRITE)) {
+            protocol.runIO(new FileAttributes(), channel, info, WRITE);
+        }
+    }
+
+    private CloseableHttpResponse serve(HttpGet get) {
+        requests.add(get);
+        if (get.getFirstHeader("Range") == null) {
+            ranges.add("-");
+            Response response = new Response(HttpStatus.SC_OK);
+            if (isAcceptingRanges) {
+                response.addHeader("Accept-Ranges", "bytes");
+            }
+            response.setEntity(new InputStreamEntity(new ByteArrayInputStream(data),
+                  data.length));
+            return response;
+        }
+
+        String range = get.getFirstHeader("Range").getValue();
+        ranges.add(range);
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = Integer.parseInt(bounds[1]);
+        Response response = new Response(HttpStatus.SC_PARTIAL_CONTENT);
+        response.addHeader("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+        response.setEntity(new ByteArrayEntity(data, start, end - start + 1));
+        return response;
+    }
+
+    private static class Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+        Response(int status) {
+            super(HttpVersion.HTTP_1_1, status, "");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.dcache.pool.repository;
+
+import static org.dcache.pool.repository.ReplicaState.CACHED;
+import static org.dcache.pool.repository.ReplicaState.PRECIOUS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.mock;
+import static org.mockito.BDDMockito.times;
+import static org.mockito.BDDMockito.verify;
+
+import diskCacheV111.util.PnfsId;
+import org.dcache.pool.FaultEvent;
+import org.dcache.pool.FaultListener;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaStoreCacheTest {
+
+    private static final PnfsId ID = new PnfsId("000000000000000000000000000000000001");
+
+    private ReplicaRecord record;
+    private FaultListener faultListener;
+    private ReplicaStoreCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        ReplicaStore inner = mock(ReplicaStore.class);
+        record = mock(ReplicaRecord.class);
+        faultListener = mock(FaultListener.class);
+        given(inner.get(ID)).willReturn(record);
+        given(record.getState()).willReturn(CACHED);
+        cache = new ReplicaStoreCache(inner, mock(StateChangeListener.class), faultListener);
+    }
+
+    @Test
+    public void shouldReadStateOfLoadedRecord() throws Exception {
+        assertThat(cache.get(ID).getState(), is(CACHED));
+    }
+
+    @Test
+    public void shouldReportFaultWhenReadingStateAfterFailedUpdate() throws Exception {
+        ReplicaRecord cached = cache.get(ID);
+        given(record.update(anyString(), any())).willThrow(new RuntimeException("disk failure"));
+        given(record.getState()).willThrow(new IllegalStateException("corrupt record"));
+
+        try {
+            cached.update("test", r -> r.setState(PRECIOUS));
+            fail("Update did not fail");
+        } catch (RuntimeException expected) {
+        }
+        try {
+            cached.getState();
+            fail("Reading the state did not fail");
+        } catch (IllegalStateException expected) {
+        }
+
+        verify(faultListener, times(2)).faultOccurred(any(FaultEvent.class));
+    }
+}
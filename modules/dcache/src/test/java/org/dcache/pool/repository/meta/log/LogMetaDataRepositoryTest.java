@@ -0,0 +1,226 @@
+package org.dcache.pool.repository.meta.log;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+import org.dcache.pool.repository.FlatFileStore;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore;
+import org.dcache.pool.repository.StickyRecord;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogMetaDataRepositoryTest {
+
+    private static final PnfsId ID1 = new PnfsId("0000C9B4E3768770452E8B1B8E0232584872");
+    private static final PnfsId ID2 = new PnfsId("000000000002");
+
+    private Path dir;
+    private FlatFileStore fileStore;
+    private LogMetaDataRepository store;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("log-meta");
+        fileStore = new FlatFileStore(dir);
+        store = open();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(f -> f.delete());
+        }
+    }
+
+    private LogMetaDataRepository open() throws Exception {
+        LogMetaDataRepository repository = new LogMetaDataRepository(fileStore, dir, "pool");
+        repository.init();
+        return repository;
+    }
+
+    private void reopen() throws Exception {
+        store.close();
+        store = open();
+    }
+
+    private ReplicaRecord createPrecious(PnfsId id, byte[] data) throws Exception {
+        ReplicaRecord record = store.create(id,
+              EnumSet.of(StandardOpenOption.CREATE));
+        Files.write(Path.of(record.getReplicaUri()), data);
+        FileAttributes attributes = FileAttributes.ofPnfsId(id);
+        attributes.setStorageInfo(new GenericStorageInfo("osm", "test:disk"));
+        attributes.setSize(data.length);
+        attributes.setAccessLatency(StorageInfo.DEFAULT_ACCESS_LATENCY);
+        attributes.setRetentionPolicy(StorageInfo.DEFAULT_RETENTION_POLICY);
+        record.update("test", r -> {
+            r.setFileAttributes(attributes);
+            r.setSticky("owner", -1, true);
+            return r.setState(ReplicaState.PRECIOUS);
+        });
+        return record;
+    }
+
+    @Test
+    public void shouldPersistReplicaMetaData() throws Exception {
+        createPrecious(ID1, new byte[17]);
+        store.get(ID1).setLastAccessTime(4711);
+
+        reopen();
+
+        ReplicaRecord record = store.get(ID1);
+        assertThat(record, is(notNullValue()));
+        assertThat(record.getState(), is(ReplicaState.PRECIOUS));
+        assertThat(record.getReplicaSize(), is(17L));
+        assertThat(record.getLastAccessTime(), is(4711L));
+        assertThat(record.stickyRecords(), contains(new StickyRecord("owner", -1)));
+        assertThat(record.getFileAttributes().getStorageInfo().getStorageClass(),
+              is(equalTo("test:disk")));
+    }
+
+    @Test
+    public void shouldReplayLogWithoutIndex() throws Exception {
+        createPrecious(ID1, new byte[3]);
+        createPrecious(ID2, new byte[5]);
+        store.remove(ID2);
+        store.close();
+        store = null;
+        Files.delete(dir.resolve("meta-log").resolve("replicas.index"));
+
+        store = open();
+
+        assertThat(store.index(ReplicaStore.IndexOption.META_ONLY), contains(ID1));
+        assertThat(store.get(ID1).getReplicaSize(), is(3L));
+        assertThat(store.get(ID2), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotPersistFailedUpdate() throws Exception {
+        ReplicaRecord record = createPrecious(ID1, new byte[1]);
+
+        try {
+            record.update("test", r -> {
+                r.setState(ReplicaState.CACHED);
+                throw new IllegalStateException("failure");
+            });
+        } catch (IllegalStateException expected) {
+        }
+
+        assertThat(record.getState(), is(ReplicaState.PRECIOUS));
+        reopen();
+        assertThat(store.get(ID1).getState(), is(ReplicaState.PRECIOUS));
+    }
+
+    @Test
+    public void shouldRemoveExpiredStickyFlags() throws Exception {
+        ReplicaRecord record = createPrecious(ID1, new byte[1]);
+        record.update("test", r -> r.setSticky("expired", 1, true));
+
+        assertThat(record.removeExpiredStickyFlags(),
+              contains(new StickyRecord("expired", 1)));
+
+        reopen();
+        assertThat(store.get(ID1).stickyRecords(), contains(new StickyRecord("owner", -1)));
+    }
+
+    @Test
+    public void shouldRemoveOrphanedMetaDataWhenRepairing() throws Exception {
+        createPrecious(ID1, new byte[1]);
+        createPrecious(ID2, new byte[1]);
+        Files.delete(Path.of(fileStore.get(ID2)));
+
+        assertThat(store.index(ReplicaStore.IndexOption.ALLOW_REPAIR), contains(ID1));
+        assertThat(store.index(ReplicaStore.IndexOption.META_ONLY), contains(ID1));
+    }
+
+    @Test
+    public void shouldReturnBrokenRecordForDataWithoutMetaData() throws Exception {
+        Files.write(Path.of(fileStore.create(ID1)), new byte[1]);
+
+        assertThat(store.get(ID1).getState(), is(ReplicaState.BROKEN));
+    }
+
+    @Test
+    public void shouldOpenCopyReadOnly() throws Exception {
+        createPrecious(ID1, new byte[1]);
+        createPrecious(ID2, new byte[2]);
+        store.close();
+        store = null;
+
+        try (LogMetaDataRepository copy = new LogMetaDataRepository(fileStore, dir, "pool",
+              true)) {
+            copy.init();
+            assertThat(copy.index(ReplicaStore.IndexOption.META_ONLY),
+                  containsInAnyOrder(ID1, ID2));
+            assertThat(copy.get(ID2).getReplicaSize(), is(2L));
+        }
+    }
+
+    @Test
+    public void shouldCompactLogOnStartup() throws Exception {
+        createPrecious(ID1, new byte[1]);
+        ReplicaRecord record = createPrecious(ID2, new byte[2]);
+        for (int i = 0; i < 2_500_000; i++) {
+            record.setLastAccessTime(i);
+        }
+        long size = Files.size(dir.resolve("meta-log").resolve("replicas.log"));
+
+        reopen();
+
+        assertThat(Files.size(dir.resolve("meta-log").resolve("replicas.log")) < size, is(true));
+        assertThat(store.get(ID2).getLastAccessTime(), is(2_499_999L));
+        assertThat(store.get(ID1).getFileAttributes().getStorageInfo().getStorageClass(),
+              is(equalTo("test:disk")));
+        reopen();
+        assertThat(store.get(ID2).getLastAccessTime(), is(2_499_999L));
+        assertThat(store.get(ID2).getReplicaSize(), is(2L));
+    }
+
+    @Test
+    public void shouldReplayCompactedLogWithoutIndex() throws Exception {
+        createPrecious(ID1, new byte[1]);
+        ReplicaRecord record = createPrecious(ID2, new byte[2]);
+        for (int i = 0; i < 2_500_000; i++) {
+            record.setLastAccessTime(i);
+        }
+        reopen();
+        store.close();
+        store = null;
+        Files.delete(dir.resolve("meta-log").resolve("replicas.index"));
+
+        store = open();
+
+        assertThat(store.get(ID1).getFileAttributes().getStorageInfo().getStorageClass(),
+              is(equalTo("test:disk")));
+        assertThat(store.get(ID2).getFileAttributes().getStorageInfo().getStorageClass(),
+              is(equalTo("test:disk")));
+        assertThat(store.get(ID2).getLastAccessTime(), is(2_499_999L));
+    }
+
+    @Test
+    public void shouldStartEmpty() throws Exception {
+        assertThat(store.index(ReplicaStore.IndexOption.META_ONLY), is(empty()));
+    }
+}
@@ -0,0 +1,131 @@
+package org.dcache.pool.repository.v5;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskErrorCacheException;
+import diskCacheV111.util.DiskSpace;
+import diskCacheV111.util.PnfsHandler;
+import diskCacheV111.util.PnfsId;
+import dmg.cells.nucleus.CellAddressCore;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.dcache.pool.repository.Account;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore;
+import org.dcache.pool.repository.SpaceSweeperPolicy;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaRepositoryLoadTest {
+
+    private final Map<PnfsId, ReplicaRecord> records = new HashMap<>();
+    private ReplicaStore store;
+    private ReplicaRepository repository;
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        store = mock(ReplicaStore.class);
+        when(store.index(any())).thenAnswer(i -> records.keySet());
+        when(store.get(any())).thenAnswer(i -> records.get(i.<PnfsId>getArgument(0)));
+        when(store.getTotalSpace()).thenReturn(1L << 40);
+        when(store.getFreeSpace()).thenReturn(1L << 40);
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+
+        repository = new ReplicaRepository();
+        repository.setCellAddress(new CellAddressCore("pool", "test"));
+        repository.setPnfsHandler(mock(PnfsHandler.class));
+        repository.setAccount(new Account());
+        repository.setReplicaStore(store);
+        repository.setExecutor(executor);
+        repository.setSpaceSweeperPolicy(mock(SpaceSweeperPolicy.class));
+        repository.setMaxDiskSpace(new DiskSpace(1L << 30));
+    }
+
+    @After
+    public void tearDown() {
+        repository.shutdown();
+        executor.shutdown();
+    }
+
+    private void givenReplicas(int count, ReplicaState state) {
+        for (int i = 0; i < count; i++) {
+            PnfsId id = new PnfsId(String.format("%024X", records.size() + 1));
+            ReplicaRecord record = mock(ReplicaRecord.class);
+            when(record.getPnfsId()).thenReturn(id);
+            when(record.getState()).thenReturn(state);
+            when(record.stickyRecords()).thenReturn(Collections.emptyList());
+            try {
+                when(record.getFileAttributes()).thenReturn(FileAttributes.ofPnfsId(id));
+            } catch (CacheException e) {
+                throw new RuntimeException(e);
+            }
+            records.put(id, record);
+        }
+    }
+
+    private void load(int threads) throws Exception {
+        repository.setScanThreads(threads);
+        repository.init();
+        repository.load();
+    }
+
+    @Test
+    public void shouldLoadAllReplicasSequentially() throws Exception {
+        givenReplicas(1000, ReplicaState.CACHED);
+
+        load(1);
+
+        assertThat(repository.getState(), is(ReplicaRepository.State.OPEN));
+        assertThat(repository.getReplicaStateCounters().getCount(ReplicaState.CACHED),
+              is(1000L));
+    }
+
+    @Test
+    public void shouldLoadAllReplicasInParallel() throws Exception {
+        givenReplicas(1000, ReplicaState.CACHED);
+        givenReplicas(1000, ReplicaState.PRECIOUS);
+
+        load(4);
+
+        assertThat(repository.getState(), is(ReplicaRepository.State.OPEN));
+        assertTrue(repository.waitForLoad().isDone());
+        assertThat(repository.getReplicaStateCounters().getCount(ReplicaState.CACHED),
+              is(1000L));
+        assertThat(repository.getReplicaStateCounters().getCount(ReplicaState.PRECIOUS),
+              is(1000L));
+    }
+
+    @Test
+    public void shouldFailLoadingInParallelIfReplicaCannotBeRead() throws Exception {
+        givenReplicas(1000, ReplicaState.CACHED);
+        PnfsId broken = records.keySet().iterator().next();
+        when(store.get(broken)).thenThrow(new DiskErrorCacheException("disk is on fire"));
+
+        try {
+            load(4);
+            fail("Expected load to fail");
+        } catch (DiskErrorCacheException e) {
+            assertThat(e.getMessage(), containsString("disk is on fire"));
+        }
+
+        assertThat(repository.getState(), is(ReplicaRepository.State.FAILED));
+        assertThat(repository.waitForLoad().isCompletedExceptionally(), equalTo(true));
+    }
+}
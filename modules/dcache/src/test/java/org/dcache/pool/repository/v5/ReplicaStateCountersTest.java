@@ -0,0 +1,106 @@
+package org.dcache.pool.repository.v5;
+
+import static org.dcache.pool.repository.ReplicaState.CACHED;
+import static org.dcache.pool.repository.ReplicaState.DESTROYED;
+import static org.dcache.pool.repository.ReplicaState.FROM_CLIENT;
+import static org.dcache.pool.repository.ReplicaState.NEW;
+import static org.dcache.pool.repository.ReplicaState.PRECIOUS;
+import static org.dcache.pool.repository.ReplicaState.REMOVED;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.dcache.pool.repository.CacheEntry;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StateChangeEvent;
+import org.dcache.pool.repository.StickyChangeEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReplicaStateCountersTest {
+
+    private ReplicaStateCounters counters;
+
+    @Before
+    public void setUp() {
+        counters = new ReplicaStateCounters();
+    }
+
+    private static CacheEntry entry(ReplicaState state, boolean sticky) {
+        CacheEntry entry = mock(CacheEntry.class);
+        when(entry.getState()).thenReturn(state);
+        when(entry.isSticky()).thenReturn(sticky);
+        return entry;
+    }
+
+    private void stateChanged(ReplicaState from, boolean wasSticky, ReplicaState to,
+          boolean isSticky) {
+        counters.stateChanged(new StateChangeEvent("test", entry(from, wasSticky),
+              entry(to, isSticky), from, to));
+    }
+
+    private void stickyChanged(ReplicaState state, boolean wasSticky, boolean isSticky) {
+        counters.stickyChanged(new StickyChangeEvent("test", entry(state, wasSticky),
+              entry(state, isSticky)));
+    }
+
+    @Test
+    public void shouldCountLoadedReplicas() {
+        stateChanged(NEW, false, PRECIOUS, false);
+        stateChanged(NEW, false, CACHED, true);
+        stateChanged(NEW, false, CACHED, false);
+
+        assertEquals(1, counters.getCount(PRECIOUS));
+        assertEquals(2, counters.getCount(CACHED));
+        assertEquals(1, counters.getStickyCount());
+    }
+
+    @Test
+    public void shouldTrackReplicaThroughItsLifetime() {
+        stateChanged(NEW, false, FROM_CLIENT, false);
+        assertEquals(1, counters.getCount(FROM_CLIENT));
+
+        stickyChanged(FROM_CLIENT, false, true);
+        stateChanged(FROM_CLIENT, true, PRECIOUS, true);
+        assertEquals(0, counters.getCount(FROM_CLIENT));
+        assertEquals(1, counters.getCount(PRECIOUS));
+        assertEquals(1, counters.getStickyCount());
+
+        stateChanged(PRECIOUS, true, CACHED, true);
+        stickyChanged(CACHED, true, false);
+        assertEquals(0, counters.getCount(PRECIOUS));
+        assertEquals(1, counters.getCount(CACHED));
+        assertEquals(0, counters.getStickyCount());
+
+        stateChanged(CACHED, false, REMOVED, false);
+        stateChanged(REMOVED, false, DESTROYED, false);
+        assertEquals(0, counters.getCount(CACHED));
+        assertEquals(0, counters.getCount(REMOVED));
+        assertEquals(0, counters.getCount(DESTROYED));
+    }
+
+    @Test
+    public void shouldReleaseStickyOfDestroyedReplica() {
+        stateChanged(NEW, false, CACHED, true);
+        stateChanged(CACHED, true, REMOVED, true);
+        stateChanged(REMOVED, true, DESTROYED, true);
+
+        assertEquals(0, counters.getStickyCount());
+    }
+
+    @Test
+    public void shouldIgnoreStickyChangeWithoutEffect() {
+        stateChanged(NEW, false, CACHED, true);
+        stickyChanged(CACHED, true, true);
+
+        assertEquals(1, counters.getStickyCount());
+    }
+
+    @Test
+    public void shouldIgnoreReplicasRemovedBeforeCreation() {
+        stateChanged(NEW, false, REMOVED, false);
+        stateChanged(REMOVED, false, DESTROYED, false);
+
+        assertEquals(0, counters.getCount(REMOVED));
+    }
+}
@@ -0,0 +1,89 @@
+package org.dcache.pool.repository.v5;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import org.junit.Test;
+
+public class StripedReadWriteLockTest {
+
+    private static boolean tryLockFromOtherThread(Lock lock) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            boolean locked = lock.tryLock();
+            if (locked) {
+                lock.unlock();
+            }
+            return locked;
+        }).get();
+    }
+
+    @Test
+    public void shouldRoundStripesToPowerOfTwo() {
+        assertEquals(1, new StripedReadWriteLock(1).getStripeCount());
+        assertEquals(4, new StripedReadWriteLock(3).getStripeCount());
+        assertEquals(8, new StripedReadWriteLock(8).getStripeCount());
+    }
+
+    @Test
+    public void shouldAllowConcurrentReaders() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.readLock().lock();
+        try {
+            assertTrue(tryLockFromOtherThread(lock.readLock()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Test
+    public void shouldExcludeWriterWhileReading() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.readLock().lock();
+        try {
+            assertFalse(tryLockFromOtherThread(lock.writeLock()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        assertTrue(tryLockFromOtherThread(lock.writeLock()));
+    }
+
+    @Test
+    public void shouldExcludeReadersWhileWriting() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.writeLock().lock();
+        try {
+            assertFalse(tryLockFromOtherThread(lock.readLock()));
+            assertFalse(tryLockFromOtherThread(lock.writeLock()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        assertTrue(tryLockFromOtherThread(lock.readLock()));
+    }
+
+    @Test
+    public void shouldAllowWriterToRead() {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.writeLock().lock();
+        try {
+            lock.readLock().lock();
+            lock.readLock().unlock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Test
+    public void shouldReleaseAcquiredStripesWhenTryLockFails() throws Exception {
+        StripedReadWriteLock lock = new StripedReadWriteLock(4);
+        lock.readLock().lock();
+        try {
+            assertFalse(tryLockFromOtherThread(lock.writeLock()));
+            assertTrue(tryLockFromOtherThread(lock.readLock()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
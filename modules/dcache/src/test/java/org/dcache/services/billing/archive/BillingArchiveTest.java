@@ -0,0 +1,220 @@
+package org.dcache.services.billing.archive;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.MoverInfoMessage;
+import diskCacheV111.vehicles.PoolHitInfoMessage;
+import dmg.cells.nucleus.CellAddressCore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.dcache.services.billing.archive.ArchiveRecord.Kind;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BillingArchiveTest {
+
+    private static final long DAY = 24 * 3600 * 1000L;
+    private static final long START = Instant.parse("2026-10-16T00:00:00Z").toEpochMilli();
+
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    private BillingArchive archive;
+
+    @Before
+    public void setup() {
+        archive = newArchive();
+    }
+
+    @After
+    public void tearDown() {
+        archive.close();
+    }
+
+    @Test
+    public void shouldFindUnwrittenRecords() throws Exception {
+        archive.append(aRecord(START, Kind.READ, "0001", "host-a", "alice"));
+
+        assertThat(pnfsIdsOf(archive.query(new ArchiveQuery())), contains("0001"));
+        assertThat(Files.list(dir.getRoot().toPath()).count(), is(0L));
+    }
+
+    @Test
+    public void shouldFindRecordsOfFileInWrittenBlocks() throws Exception {
+        for (int i = 0; i < 95; i++) {
+            archive.append(aRecord(START + i, Kind.READ, "000" + (i % 10), "host-a", "alice"));
+        }
+
+        List<ArchiveRecord> records = archive.query(new ArchiveQuery().pnfsId("0003"));
+
+        assertThat(records, hasSize(10));
+        assertThat(timestampsOf(records), contains(3L, 13L, 23L, 33L, 43L, 53L, 63L, 73L, 83L,
+              93L));
+    }
+
+    @Test
+    public void shouldRestrictToTimeRange() throws Exception {
+        for (int day = 0; day < 3; day++) {
+            for (int i = 0; i < 15; i++) {
+                archive.append(aRecord(START + day * DAY + i * 1000, Kind.WRITE, "0001",
+                      "host-a", "alice"));
+            }
+        }
+
+        List<ArchiveRecord> records = archive.query(new ArchiveQuery()
+              .since(Instant.ofEpochMilli(START + DAY + 5000))
+              .until(Instant.ofEpochMilli(START + 2 * DAY + 2000)));
+
+        assertThat(records, hasSize(13));
+        assertThat(records.get(0).getTimestamp(), is(START + DAY + 5000));
+        assertThat(records.get(12).getTimestamp(), is(START + 2 * DAY + 2000));
+        archive.flush();
+        assertThat(Files.exists(dir.getRoot().toPath().resolve("archive-2026.10.17.data")),
+              is(true));
+    }
+
+    @Test
+    public void shouldKeepLateRecordsInFileOfTheirDay() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            archive.append(aRecord(START + DAY - 100 + i, Kind.READ, "000" + i, "host-a",
+                  "alice"));
+        }
+        archive.append(aRecord(START + DAY + 1, Kind.READ, "0007", "host-a", "alice"));
+        archive.append(aRecord(START + DAY - 1, Kind.READ, "0006", "host-a", "alice"));
+
+        assertThat(pnfsIdsOf(archive.query(new ArchiveQuery())),
+              contains("0001", "0002", "0003", "0004", "0005", "0006", "0007"));
+
+        archive.close();
+        archive = newArchive();
+
+        assertThat(pnfsIdsOf(archive.query(new ArchiveQuery()
+                    .until(Instant.ofEpochMilli(START + DAY - 1)))),
+              contains("0001", "0002", "0003", "0004", "0005", "0006"));
+        assertThat(Files.exists(dir.getRoot().toPath().resolve("archive-2026.10.17.data")),
+              is(true));
+    }
+
+    @Test
+    public void shouldFindRecordsByClientOwnerAndKind() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            archive.append(aRecord(START + i, i % 2 == 0 ? Kind.READ : Kind.REQUEST, "0001",
+                  "host-" + (i % 3), "user-" + (i % 5)));
+        }
+
+        assertThat(archive.query(new ArchiveQuery().client("host-1")), hasSize(10));
+        assertThat(archive.query(new ArchiveQuery().owner("user-4")), hasSize(6));
+        assertThat(archive.query(new ArchiveQuery().client("host-0").owner("user-0")),
+              hasSize(2));
+        assertThat(archive.query(new ArchiveQuery().owner("user-0").kinds(Kind.REQUEST)),
+              hasSize(3));
+        assertThat(archive.query(new ArchiveQuery().owner("nobody")), is(empty()));
+    }
+
+    @Test
+    public void shouldReadArchiveOfPreviousInstance() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            archive.append(aRecord(START + i, Kind.STORE, "000" + (i % 5), null, null));
+        }
+        archive.close();
+
+        archive = newArchive();
+
+        List<ArchiveRecord> records = archive.query(new ArchiveQuery().pnfsId("0002"));
+        assertThat(records, hasSize(5));
+        assertThat(records.get(0).getKind(), is(Kind.STORE));
+        assertThat(records.get(0).getClient(), is(nullValue()));
+        assertThat(records.get(0).getCellName(), is("pool@domain"));
+        assertThat(records.get(0).getTransferSize(), is(2L << 20));
+    }
+
+    @Test
+    public void shouldAppendAfterIncompleteIndexEntry() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            archive.append(aRecord(START + i, Kind.READ, "0001", "host-a", "alice"));
+        }
+        archive.close();
+        Path index = dir.getRoot().toPath().resolve("archive-2026.10.16.index");
+        Files.write(index, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        archive = newArchive();
+        for (int i = 10; i < 20; i++) {
+            archive.append(aRecord(START + i, Kind.READ, "0001", "host-a", "alice"));
+        }
+
+        assertThat(archive.query(new ArchiveQuery().pnfsId("0001")), hasSize(20));
+    }
+
+    @Test
+    public void shouldConvertMoverInfoMessage() {
+        MoverInfoMessage message = new MoverInfoMessage(new CellAddressCore("pool", "domain"),
+              new PnfsId("000000000000000000000000000000000001"));
+        message.setFileCreated(true);
+        message.setInitiator("door:webdav@dCacheDomain:1");
+        message.setResult(10000, "failed");
+
+        ArchiveRecord record = ArchiveRecord.of(message);
+
+        assertThat(record.getKind(), is(Kind.WRITE));
+        assertThat(record.getPnfsId(), is(equalTo("000000000000000000000000000000000001")));
+        assertThat(record.getCellName(), is("pool@domain"));
+        assertThat(record.getInitiator(), is("door:webdav@dCacheDomain:1"));
+        assertThat(record.getErrorCode(), is(10000));
+        assertThat(record.getErrorMessage(), is("failed"));
+    }
+
+    @Test
+    public void shouldNotArchivePoolHits() {
+        PoolHitInfoMessage message = new PoolHitInfoMessage(
+              new CellAddressCore("pool", "domain"),
+              new PnfsId("000000000000000000000000000000000001"));
+
+        assertThat(ArchiveRecord.of(message), is(nullValue()));
+    }
+
+    private BillingArchive newArchive() {
+        BillingArchive archive = new BillingArchive();
+        archive.setDirectory(dir.getRoot().getPath());
+        archive.setZone(ZoneOffset.UTC);
+        archive.setBlockSize(10);
+        archive.init();
+        return archive;
+    }
+
+    private static ArchiveRecord aRecord(long timestamp, Kind kind, String pnfsId, String client,
+          String owner) {
+        ArchiveRecord record = new ArchiveRecord();
+        record.timestamp = timestamp;
+        record.kind = kind;
+        record.cellName = "pool@domain";
+        record.pnfsId = pnfsId;
+        record.client = client;
+        record.owner = owner;
+        record.transferSize = 2L << 20;
+        record.connectionTime = 1500;
+        return record;
+    }
+
+    private static List<String> pnfsIdsOf(List<ArchiveRecord> records) {
+        return records.stream().map(ArchiveRecord::getPnfsId).collect(Collectors.toList());
+    }
+
+    private static List<Long> timestampsOf(List<ArchiveRecord> records) {
+        return records.stream().map(r -> r.getTimestamp() - START).collect(Collectors.toList());
+    }
+}
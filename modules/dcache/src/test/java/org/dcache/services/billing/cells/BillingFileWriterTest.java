@@ -0,0 +1,240 @@
+package org.dcache.services.billing.cells;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.InfoMessage;
+import diskCacheV111.vehicles.WarningPnfsFileInfoMessage;
+import dmg.cells.nucleus.CellAddressCore;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BillingFileWriterTest {
+
+    @Rule
+    public TemporaryFolder dir = new TemporaryFolder();
+
+    private BillingFileWriter writer;
+    private Path billing;
+    private Path errors;
+
+    @Before
+    public void setup() {
+        writer = new BillingFileWriter();
+        writer.setBufferSize(1024);
+        billing = dir.getRoot().toPath().resolve("2026/10/billing-2026.10.18");
+        errors = dir.getRoot().toPath().resolve("2026/10/billing-error-2026.10.18");
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    public void shouldWriteHeaderToNewFile() throws Exception {
+        givenStartedWriter();
+
+        writer.write(aMessage("first"), billing, null);
+        writer.write(aMessage("second"), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("## header", "first", "second"));
+    }
+
+    @Test
+    public void shouldAppendToExistingFileWithoutHeader() throws Exception {
+        Files.createDirectories(billing.getParent());
+        Files.write(billing, "old\n".getBytes(StandardCharsets.UTF_8));
+        givenStartedWriter();
+
+        writer.write(aMessage("new"), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("old", "new"));
+    }
+
+    @Test
+    public void shouldWriteToErrorFile() throws Exception {
+        givenStartedWriter();
+
+        writer.write(aMessage("ok"), billing, null);
+        writer.write(aMessage("failed"), billing, errors);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("## header", "ok", "failed"));
+        assertThat(Files.readAllLines(errors), contains("## header", "failed"));
+    }
+
+    @Test
+    public void shouldWriteRecordsLargerThanBuffer() throws Exception {
+        givenStartedWriter();
+        String large = "x".repeat(5000);
+
+        writer.write(aMessage(large), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("## header", large));
+    }
+
+    @Test
+    public void shouldWriteAllQueuedRecordsOnShutdown() throws Exception {
+        writer.setMaxBatchSize(10);
+        givenStartedWriter();
+
+        for (int i = 0; i < 1000; i++) {
+            writer.write(aMessage("record " + i), billing, null);
+        }
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), hasSize(1001));
+    }
+
+    @Test
+    public void shouldSkipMessagesWithoutFormat() throws Exception {
+        writer.start((m, out) -> false, () -> "## header\n");
+
+        writer.write(aMessage("ignored"), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.exists(billing), is(false));
+    }
+
+    @Test
+    public void shouldReopenMovedFile() throws Exception {
+        givenStartedWriter();
+        writer.write(aMessage("first"), billing, null);
+        awaitLines(billing, 2);
+        Path rotated = billing.resolveSibling("billing-2026.10.18.1");
+        Files.move(billing, rotated);
+        Thread.sleep(1_100);
+
+        writer.write(aMessage("second"), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(rotated), contains("## header", "first"));
+        assertThat(Files.readAllLines(billing), contains("## header", "second"));
+    }
+
+    @Test
+    public void shouldContinueAfterFormatterFailure() throws Exception {
+        writer.start((m, out) -> {
+            if (m.getMessage().equals("bad")) {
+                throw new IllegalStateException("cannot format");
+            }
+            out.append(m.getMessage());
+            return true;
+        }, () -> "## header\n");
+
+        writer.write(aMessage("first"), billing, null);
+        writer.write(aMessage("bad"), billing, null);
+        writer.write(aMessage("second"), billing, null);
+        awaitLines(billing, 3);
+        writer.write(aMessage("bad"), billing, null);
+        writer.write(aMessage("third"), billing, null);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("## header", "first", "second", "third"));
+        assertThat(info(), containsString("2 failed"));
+    }
+
+    @Test
+    public void shouldWaitForRoomWhenQueueIsFull() throws Exception {
+        CountDownLatch formatting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.setMaxQueueSize(1);
+        writer.start((m, out) -> {
+            formatting.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            out.append(m.getMessage());
+            return true;
+        }, () -> "## header\n");
+
+        writer.write(aMessage("first"), billing, null);
+        assertThat(formatting.await(5, TimeUnit.SECONDS), is(true));
+        writer.write(aMessage("second"), billing, null);
+        CompletableFuture<Void> third = CompletableFuture.runAsync(
+              () -> writer.write(aMessage("third"), billing, null));
+        Thread.sleep(100);
+        assertThat(third.isDone(), is(false));
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing),
+              contains("## header", "first", "second", "third"));
+        assertThat(info(), containsString("0 dropped"));
+    }
+
+    @Test
+    public void shouldDropRecordsWhenQueueIsFullIfEnabled() throws Exception {
+        CountDownLatch formatting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer.setMaxQueueSize(1);
+        writer.setDropWhenFull(true);
+        writer.start((m, out) -> {
+            formatting.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            out.append(m.getMessage());
+            return true;
+        }, () -> "## header\n");
+
+        writer.write(aMessage("first"), billing, null);
+        assertThat(formatting.await(5, TimeUnit.SECONDS), is(true));
+        writer.write(aMessage("second"), billing, null);
+        writer.write(aMessage("third"), billing, null);
+        release.countDown();
+        writer.shutdown();
+
+        assertThat(Files.readAllLines(billing), contains("## header", "first", "second"));
+        assertThat(info(), containsString("1 dropped"));
+    }
+
+    private String info() {
+        StringWriter info = new StringWriter();
+        writer.getInfo(new PrintWriter(info));
+        return info.toString();
+    }
+
+    private void givenStartedWriter() {
+        writer.start((m, out) -> {
+            out.append(m.getMessage());
+            return true;
+        }, () -> "## header\n");
+    }
+
+    private static InfoMessage aMessage(String text) {
+        return new WarningPnfsFileInfoMessage("door", new CellAddressCore("door"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"), 0, text);
+    }
+
+    private static void awaitLines(Path path, int count)
+          throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(path) || Files.readAllLines(path).size() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for " + path);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
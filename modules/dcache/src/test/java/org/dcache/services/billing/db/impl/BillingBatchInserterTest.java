@@ -0,0 +1,170 @@
+package org.dcache.services.billing.db.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.dcache.services.billing.db.impl.BillingBatchInserter.Rollup;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class BillingBatchInserterTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long T0 = 1_700_000_040_000L;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private BillingBatchInserter inserter;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createArrayOf(anyString(), any()))
+              .thenReturn(mock(Array.class));
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        inserter = new BillingBatchInserter(dataSource);
+    }
+
+    @Test
+    public void shouldEncodeValuesForCopy() {
+        assertThat(BillingBatchInserter.toCopyText(null), is(equalTo("\\N")));
+        assertThat(BillingBatchInserter.toCopyText(true), is(equalTo("t")));
+        assertThat(BillingBatchInserter.toCopyText(42L), is(equalTo("42")));
+        assertThat(BillingBatchInserter.toCopyText("a\tb\nc\\d\re"),
+              is(equalTo("a\\tb\\nc\\\\d\\re")));
+        assertThat(BillingBatchInserter.toCopyText(new Date(0)),
+              is(equalTo("1970-01-01 00:00:00.000+00:00")));
+    }
+
+    @Test
+    public void shouldSumAggregatesPerMinute() {
+        Rollup rollup = new Rollup();
+        rollup.add(mover(T0, false, false, 100, 10));
+        rollup.add(mover(T0 + 1000, false, false, 200, 30));
+        rollup.add(mover(T0 + MINUTE, true, false, 50, 20));
+        rollup.add(mover(T0 + MINUTE, false, true, 70, 5));
+
+        assertThat(rollup.seconds(), arrayContaining(T0 / 1000, (T0 + MINUTE) / 1000));
+        assertThat(rollup.values(Rollup.READ_COUNT), arrayContaining(2L, 0L));
+        assertThat(rollup.values(Rollup.READ_SIZE), arrayContaining(300L, 0L));
+        assertThat(rollup.values(Rollup.WRITE_COUNT), arrayContaining(0L, 1L));
+        assertThat(rollup.values(Rollup.P2P_COUNT), arrayContaining(0L, 1L));
+        assertThat(rollup.values(Rollup.TRANSFER_COUNT), arrayContaining(2L, 2L));
+        assertThat(rollup.values(Rollup.TRANSFER_TIME_MIN), arrayContaining(10L, 5L));
+        assertThat(rollup.values(Rollup.CLIENT_COUNT), arrayContaining(2L, 1L));
+        assertThat(rollup.values(Rollup.CLIENT_TIME_MIN), arrayContaining(10L, 20L));
+        assertThat(rollup.values(Rollup.CLIENT_TIME_MAX), arrayContaining(30L, 20L));
+        assertThat(rollup.values(Rollup.CLIENT_TIME_TOTAL), arrayContaining(40L, 20L));
+    }
+
+    @Test
+    public void shouldIgnoreFailedRecordsInAggregates() {
+        Rollup rollup = new Rollup();
+        MoverData failed = mover(T0, false, false, 100, 10);
+        failed.setErrorCode(10001);
+
+        rollup.add(failed);
+
+        assertThat(rollup.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldAggregateStorageAndHits() {
+        Rollup rollup = new Rollup();
+        rollup.add(storage(T0, "store", 10));
+        rollup.add(storage(T0, "restore", 20));
+        rollup.add(hit(T0, true));
+        rollup.add(hit(T0, false));
+        rollup.add(hit(T0, false));
+
+        assertThat(rollup.values(Rollup.STORE_SIZE), arrayContaining(10L));
+        assertThat(rollup.values(Rollup.RESTORE_SIZE), arrayContaining(20L));
+        assertThat(rollup.values(Rollup.CACHED_COUNT), arrayContaining(1L));
+        assertThat(rollup.values(Rollup.NOTCACHED_COUNT), arrayContaining(2L));
+        assertThat(rollup.values(Rollup.TRANSFER_TIME_MIN)[0], is(nullValue()));
+    }
+
+    @Test
+    public void shouldInsertInBatchesWithoutCopy() throws Exception {
+        List<IHistogramData> data = List.of(mover(T0, false, false, 1, 1),
+              mover(T0, true, false, 1, 1));
+
+        inserter.insert(data);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(connection, times(9)).prepareStatement(sql.capture());
+        assertThat(sql.getAllValues().get(0), startsWith("INSERT INTO billinginfo ("));
+        assertThat(sql.getAllValues().get(1), startsWith("INSERT INTO billing_hourly"));
+        verify(statement, times(2)).addBatch();
+        verify(statement).executeBatch();
+        verify(connection).commit();
+    }
+
+    @Test
+    public void shouldRollbackOnFailure() throws Exception {
+        doThrow(new SQLException("failed")).when(statement).executeBatch();
+
+        try {
+            inserter.insert(List.of(mover(T0, false, false, 1, 1)));
+            throw new AssertionError("insert did not fail");
+        } catch (SQLException expected) {
+        }
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    private static MoverData mover(long time, boolean isNew, boolean isP2p, long size,
+          long connectionTime) {
+        MoverData data = new MoverData();
+        data.setDateStamp(new Date(time));
+        data.setIsNew(isNew);
+        data.setP2p(isP2p);
+        data.setFullSize(size);
+        data.setTransferSize(size);
+        data.setConnectionTime(connectionTime);
+        return data;
+    }
+
+    private static StorageData storage(long time, String action, long size) {
+        StorageData data = new StorageData();
+        data.setDateStamp(new Date(time));
+        data.setAction(action);
+        data.setFullSize(size);
+        return data;
+    }
+
+    private static PoolHitData hit(long time, boolean isCached) {
+        PoolHitData data = new PoolHitData();
+        data.setDateStamp(new Date(time));
+        data.setFileCached(isCached);
+        return data;
+    }
+}
@@ -0,0 +1,93 @@
+package org.dcache.services.billing.text;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import diskCacheV111.cells.DateRenderer;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.InfoMessage;
+import diskCacheV111.vehicles.RemoveFileInfoMessage;
+import diskCacheV111.vehicles.WarningPnfsFileInfoMessage;
+import dmg.cells.nucleus.CellAddressCore;
+import java.util.Date;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+
+public class InfoMessageFormatterTest {
+
+    private static final String REMOVE_FORMAT =
+          "$date$ [$cellType$:$cellName$:$type$] [$pnfsid$,$filesize$] [$path$] $if(storage)$$storage.storageClass$@$storage.hsm$$else$<Unknown>$endif$ {$rc$:\"$message$\"}";
+    private static final String WARNING_FORMAT =
+          "$date$ [$cellType$:$cellName$:$type$] {$rc$:\"$message$\"}";
+
+    private InfoMessageFormatter formatter;
+
+    @Before
+    public void setup() {
+        formatter = new InfoMessageFormatter(Map.of(
+              "RemoveFileInfoMessage", REMOVE_FORMAT,
+              "WarningPnfsFileInfoMessage", WARNING_FORMAT,
+              "MoverInfoMessage", ""));
+    }
+
+    @Test
+    public void shouldRenderLikeUncompiledTemplate() {
+        InfoMessage message = new RemoveFileInfoMessage(new CellAddressCore("pool1", "domain"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"));
+
+        StringBuilder out = new StringBuilder();
+
+        assertThat(formatter.format(message, out), is(true));
+        assertThat(out.toString(), is(equalTo(render(REMOVE_FORMAT, message))));
+    }
+
+    @Test
+    public void shouldRenderRepeatedly() {
+        InfoMessage first = new WarningPnfsFileInfoMessage("door", new CellAddressCore("door1"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"), 10006, "first");
+        InfoMessage second = new WarningPnfsFileInfoMessage("door", new CellAddressCore("door2"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"), 0, "second");
+
+        StringBuilder out = new StringBuilder();
+        formatter.format(first, out);
+        out.setLength(0);
+        formatter.format(second, out);
+
+        assertThat(out.toString(), is(equalTo(render(WARNING_FORMAT, second))));
+    }
+
+    @Test
+    public void shouldAppendToExistingContent() {
+        InfoMessage message = new WarningPnfsFileInfoMessage("door", new CellAddressCore("door1"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"), 0, "msg");
+
+        StringBuilder out = new StringBuilder("prefix ");
+        formatter.format(message, out);
+
+        assertThat(out.toString(), is(equalTo("prefix " + render(WARNING_FORMAT, message))));
+    }
+
+    @Test
+    public void shouldNotRenderMessageWithEmptyFormat() {
+        InfoMessage message = new WarningPnfsFileInfoMessage("door", new CellAddressCore("door1"),
+              new PnfsId("0000B706DD4045F346F2B90F882B706DA807"), 0, "msg");
+        formatter = new InfoMessageFormatter(Map.of("WarningPnfsFileInfoMessage", ""));
+
+        StringBuilder out = new StringBuilder();
+
+        assertThat(formatter.format(message, out), is(false));
+        assertThat(out.length(), is(0));
+    }
+
+    private static String render(String format, InfoMessage message) {
+        STGroup group = new STGroup('$', '$');
+        group.registerRenderer(Date.class, new DateRenderer());
+        ST template = new ST(group, format);
+        message.accept(new StringTemplateInfoMessageVisitor(template));
+        return template.render();
+    }
+}
@@ -0,0 +1,86 @@
+package org.dcache.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.FsPath;
+import diskCacheV111.util.PnfsHandler;
+import diskCacheV111.util.TimeoutCacheException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.Subject;
+import org.dcache.auth.attributes.Restrictions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RedirectedTransferTest {
+
+    private ScheduledExecutorService executor;
+    private RedirectedTransfer<String> transfer;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        transfer = new RedirectedTransfer<>(mock(PnfsHandler.class), new Subject(),
+              Restrictions.none(), FsPath.create("/file"));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCompleteOnRedirect() throws Exception {
+        ListenableFuture<String> future = transfer.redirectAsync(1, TimeUnit.MINUTES, executor);
+
+        transfer.redirect("pool");
+
+        assertThat(future.get(1, TimeUnit.SECONDS), is(equalTo("pool")));
+    }
+
+    @Test
+    public void shouldCompleteIfRedirectedBeforeWaiting() throws Exception {
+        transfer.redirect("pool");
+
+        ListenableFuture<String> future = transfer.redirectAsync(1, TimeUnit.MINUTES, executor);
+
+        assertThat(future.get(1, TimeUnit.SECONDS), is(equalTo("pool")));
+    }
+
+    @Test
+    public void shouldFailIfMoverFinishesWithoutRedirect() throws Exception {
+        ListenableFuture<String> future = transfer.redirectAsync(1, TimeUnit.MINUTES, executor);
+
+        transfer.finished(new CacheException(CacheException.FILE_NOT_IN_REPOSITORY, "gone"));
+
+        assertThat(causeOf(future), instanceOf(CacheException.class));
+        assertThat(((CacheException) causeOf(future)).getRc(),
+              is(CacheException.FILE_NOT_IN_REPOSITORY));
+    }
+
+    @Test
+    public void shouldFailWithTimeoutIfNoRedirectArrives() throws Exception {
+        ListenableFuture<String> future = transfer.redirectAsync(10, TimeUnit.MILLISECONDS,
+              executor);
+
+        assertThat(causeOf(future), instanceOf(TimeoutCacheException.class));
+    }
+
+    private static Throwable causeOf(ListenableFuture<?> future) throws Exception {
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            throw new AssertionError("Future did not fail");
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+}
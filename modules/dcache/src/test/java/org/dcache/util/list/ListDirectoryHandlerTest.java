@@ -0,0 +1,259 @@
+package org.dcache.util.list;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.Range;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.FsPath;
+import diskCacheV111.util.PnfsHandler;
+import diskCacheV111.vehicles.Message;
+import diskCacheV111.vehicles.PnfsMessage;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellPath;
+import dmg.cells.nucleus.SerializationHandler;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.security.auth.Subject;
+import org.dcache.auth.attributes.Restrictions;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.vehicles.PnfsListDirectoryAckMessage;
+import org.dcache.vehicles.PnfsListDirectoryMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ListDirectoryHandlerTest {
+
+    private static final CellPath PNFS_MANAGER = new CellPath("PnfsManager@dCacheDomain");
+
+    private PnfsHandler _pnfs;
+    private ListDirectoryHandler _handler;
+    private PnfsListDirectoryMessage _request;
+    private List<PnfsListDirectoryMessage> _initialReplies;
+    private boolean _ignoresStartAfter;
+
+    @Before
+    public void setUp() {
+        _pnfs = mock(PnfsHandler.class);
+        given(_pnfs.getPnfsTimeout()).willReturn(TimeUnit.SECONDS.toMillis(10));
+        _handler = new ListDirectoryHandler(_pnfs);
+        _handler.setWindow(4);
+        _initialReplies = new ArrayList<>();
+        willAnswer(i -> {
+            _request = i.getArgument(0);
+            for (PnfsListDirectoryMessage reply : _initialReplies) {
+                PnfsListDirectoryMessage copy = withUuidOf(_request, reply);
+                if (_ignoresStartAfter) {
+                    copy.setStartAfter(null);
+                }
+                deliver(copy);
+            }
+            return null;
+        }).given(_pnfs).send(any(PnfsMessage.class));
+    }
+
+    @Test
+    public void shouldAcknowledgeConsumedReplies() throws Exception {
+        givenReplies(4);
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream stream = list()) {
+            for (DirectoryEntry entry : stream) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names, contains("entry-0", "entry-1", "entry-2", "entry-3"));
+        verify(_pnfs).notify(any(CellPath.class), argThat(m -> isAcknowledgement(m, 2)));
+        verify(_pnfs, never()).notify(any(CellPath.class), argThat(this::isCancellation));
+    }
+
+    @Test
+    public void shouldCancelListingWhenClosedEarly() throws Exception {
+        givenReplies(2, false);
+
+        try (DirectoryStream stream = list()) {
+            stream.iterator().next();
+        }
+
+        verify(_pnfs).notify(any(CellPath.class), argThat(this::isCancellation));
+    }
+
+    @Test
+    public void shouldNotAcknowledgeWithoutFlowControl() throws Exception {
+        _handler.setWindow(0);
+        givenReplies(4);
+
+        try (DirectoryStream stream = list()) {
+            for (DirectoryEntry entry : stream) {
+            }
+        }
+
+        verify(_pnfs, never()).notify(any(CellPath.class), any(Message.class));
+    }
+
+    @Test
+    public void shouldAbortListingWhenTooManyRepliesAreQueued() throws Exception {
+        givenReplies(ListDirectoryHandler.MAX_QUEUED_REPLIES + 1, false);
+
+        try {
+            list();
+            fail("Listing was not aborted");
+        } catch (CacheException e) {
+            assertThat(e.getRc(), is(CacheException.RESOURCE));
+        }
+        verify(_pnfs).notify(any(CellPath.class), argThat(this::isCancellation));
+    }
+
+    @Test
+    public void shouldRequestEntriesAfterName() throws Exception {
+        givenReplies(1);
+
+        try (DirectoryStream stream = _handler.list(new Subject(), Restrictions.none(),
+              FsPath.create("/dir"), null, "entry-5", Range.all(),
+              EnumSet.noneOf(FileAttribute.class))) {
+            for (DirectoryEntry entry : stream) {
+            }
+        }
+
+        assertThat(_request.getStartAfter(), is("entry-5"));
+    }
+
+    @Test
+    public void shouldDetectPnfsManagerIgnoringName() throws Exception {
+        _ignoresStartAfter = true;
+        givenReplies(2);
+
+        try {
+            _handler.list(new Subject(), Restrictions.none(), FsPath.create("/dir"), null, "",
+                  Range.all(), EnumSet.noneOf(FileAttribute.class));
+            fail("PnfsManager ignoring the name was not detected");
+        } catch (ListDirectoryHandler.StartAfterNotSupportedException expected) {
+        }
+    }
+
+    @Test
+    public void shouldListFromStartWithPnfsManagerIgnoringName() throws Exception {
+        _ignoresStartAfter = true;
+        givenReplies(2);
+
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream stream = list()) {
+            for (DirectoryEntry entry : stream) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names, contains("entry-0", "entry-1"));
+    }
+
+    @Test
+    public void shouldReportIncompleteListing() throws Exception {
+        given(_pnfs.getPnfsTimeout()).willReturn(10L);
+        givenReplies(2, false);
+
+        List<String> names = new ArrayList<>();
+        ListDirectoryHandler.Stream stream = _handler.list(new Subject(), Restrictions.none(),
+              FsPath.create("/dir"), null, null, Range.all(), EnumSet.noneOf(FileAttribute.class));
+        try (stream) {
+            for (DirectoryEntry entry : stream) {
+                names.add(entry.getName());
+            }
+        }
+
+        assertThat(names, contains("entry-0", "entry-1"));
+        try {
+            stream.checkComplete();
+            fail("Incomplete listing was not reported");
+        } catch (CacheException e) {
+            assertThat(e.getRc(), is(CacheException.TIMEOUT));
+        }
+    }
+
+    @Test
+    public void shouldNotReportCompleteListing() throws Exception {
+        givenReplies(2);
+
+        ListDirectoryHandler.Stream stream = _handler.list(new Subject(), Restrictions.none(),
+              FsPath.create("/dir"), null, null, Range.all(), EnumSet.noneOf(FileAttribute.class));
+        try (stream) {
+            for (DirectoryEntry entry : stream) {
+            }
+        }
+
+        stream.checkComplete();
+        assertThat(_request.getStartAfter(), is(nullValue()));
+    }
+
+    private DirectoryStream list() throws Exception {
+        return _handler.list(new Subject(), Restrictions.none(), FsPath.create("/dir"), null,
+              Range.all());
+    }
+
+    private void givenReplies(int count) {
+        givenReplies(count, true);
+    }
+
+    /**
+     * Prepares {@code count} replies with one entry each, which are delivered when the request is
+     * sent.
+     */
+    private void givenReplies(int count, boolean isComplete) {
+        for (int i = 0; i < count; i++) {
+            PnfsListDirectoryMessage reply = new PnfsListDirectoryMessage("/dir", null,
+                  Range.all(), null);
+            reply.addEntry("entry-" + i, null);
+            if (isComplete && i == count - 1) {
+                reply.setSucceeded(count);
+            }
+            _initialReplies.add(reply);
+        }
+    }
+
+    /**
+     * Returns a copy of {@code request}, as returned by PnfsManager, with the entries and state of
+     * {@code reply}.
+     */
+    private static PnfsListDirectoryMessage withUuidOf(PnfsListDirectoryMessage request,
+          PnfsListDirectoryMessage reply) {
+        PnfsListDirectoryMessage copy = (PnfsListDirectoryMessage)
+              new CellMessage(PNFS_MANAGER, request)
+                    .encodeWith(SerializationHandler.Serializer.JOS).decode().getMessageObject();
+        copy.setEntries(new ArrayList<>(reply.getEntries()));
+        if (reply.isFinal()) {
+            copy.setSucceeded(reply.getMessageCount());
+        }
+        copy.setReply();
+        return copy;
+    }
+
+    private void deliver(PnfsListDirectoryMessage reply) {
+        CellMessage envelope = new CellMessage(new CellPath("door@doorDomain"), reply);
+        envelope.getSourcePath().add(PNFS_MANAGER);
+        _handler.messageArrived(envelope, reply);
+    }
+
+    private boolean isAcknowledgement(Message message, int count) {
+        return message instanceof PnfsListDirectoryAckMessage
+              && !((PnfsListDirectoryAckMessage) message).isCancelled()
+              && ((PnfsListDirectoryAckMessage) message).getAcknowledged() == count
+              && ((PnfsListDirectoryAckMessage) message).getUUID().equals(_request.getUUID());
+    }
+
+    private boolean isCancellation(Message message) {
+        return message instanceof PnfsListDirectoryAckMessage
+              && ((PnfsListDirectoryAckMessage) message).isCancelled();
+    }
+}
@@ -1,7 +1,7 @@
 /*
  * dCache - http://www.dcache.org/
  *
- * Copyright (C) 2018-2024 Deutsches Elektronen-Synchrotron
+ * Copyright (C) 2018-2026 Deutsches Elektronen-Synchrotron
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Affero General Public License as
@@ -35,6 +35,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.http.client.HttpClient;
 import org.dcache.gplazma.oidc.helpers.ReasonBearingMissingNode;
 import org.slf4j.Logger;
@@ -64,12 +66,23 @@ public class IdentityProvider {
     private final HttpClient client;
     private final Duration cacheDurationWhenSuccessful;
     private final List<String> suppress;
+    private final Executor refresher;
 
     private Instant nextDiscoveryFetch = Instant.now();
     private JsonNode discoveryDocument = MissingNode.getInstance();
+    private boolean isRefreshing;
 
     public IdentityProvider(String name, URI endpoint, Profile profile, HttpClient client,
             Duration discoveryCacheDuration, List<String> suppress) {
+        this(name, endpoint, profile, client, discoveryCacheDuration, suppress, null);
+    }
+
+    /**
+     * @param refresher executor on which an expired discovery document is refreshed in the
+     *                  background or null to refresh it by the thread requesting the document
+     */
+    public IdentityProvider(String name, URI endpoint, Profile profile, HttpClient client,
+            Duration discoveryCacheDuration, List<String> suppress, Executor refresher) {
         checkArgument(!name.isEmpty(), "Empty name not allowed");
         this.name = name;
         this.issuer = requireNonNull(endpoint);
@@ -80,6 +93,7 @@ public class IdentityProvider {
               withTrailingSlash(issuer.getPath()) + ".well-known/openid-configuration");
         cacheDurationWhenSuccessful = requireNonNull(discoveryCacheDuration);
         this.suppress = requireNonNull(suppress);
+        this.refresher = refresher;
     }
 
     private static String withTrailingSlash(String path) {
@@ -117,21 +131,59 @@ public class IdentityProvider {
      * If the document is obtained successfully then the result is cached for a configurable period.
      * If there was a problem then the document is cached for a hard-coded, shorter period.
      * <p>
+     * If a refresher is configured, an expired document that was obtained successfully is still
+     * returned while the document is fetched again in the background.
+     * <p>
      * @return the root node of the configuration document
      */
     public synchronized JsonNode discoveryDocument() {
         Instant now = Instant.now();
         if (now.isAfter(nextDiscoveryFetch)) {
-            try {
-                discoveryDocument = HttpClientUtils.readJson(client, configuration);
+            if (refresher == null || discoveryDocument.isMissingNode()) {
+                fetchDiscoveryDocument(now);
+            } else if (!isRefreshing) {
+                isRefreshing = true;
+                try {
+                    refresher.execute(this::refreshDiscoveryDocument);
+                } catch (RejectedExecutionException e) {
+                    isRefreshing = false;
+                    fetchDiscoveryDocument(now);
+                }
+            }
+        }
+        return discoveryDocument;
+    }
+
+    private void refreshDiscoveryDocument() {
+        JsonNode document;
+        try {
+            document = HttpClientUtils.readJson(client, configuration);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to refresh discovery document for {}: {}", name, e.toString());
+            document = null;
+        }
+
+        synchronized (this) {
+            isRefreshing = false;
+            Instant now = Instant.now();
+            if (document != null) {
+                discoveryDocument = document;
                 nextDiscoveryFetch = now.plus(cacheDurationWhenSuccessful);
-            } catch (IOException e) {
-                LOGGER.warn("Failed to fetch discovery document for {}: {}", name, e.toString());
-                discoveryDocument = new ReasonBearingMissingNode(e.toString());
+            } else {
                 nextDiscoveryFetch = now.plus(CACHE_DURATION_WHEN_UNSUCCESSFUL);
             }
         }
-        return discoveryDocument;
+    }
+
+    private void fetchDiscoveryDocument(Instant now) {
+        try {
+            discoveryDocument = HttpClientUtils.readJson(client, configuration);
+            nextDiscoveryFetch = now.plus(cacheDurationWhenSuccessful);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to fetch discovery document for {}: {}", name, e.toString());
+            discoveryDocument = new ReasonBearingMissingNode(e.toString());
+            nextDiscoveryFetch = now.plus(CACHE_DURATION_WHEN_UNSUCCESSFUL);
+        }
     }
 
     @Override
@@ -5,6 +5,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.net.InternetDomainName;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -21,6 +22,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -68,21 +72,33 @@ public class OidcAuthPlugin implements GPlazmaAuthenticationPlugin {
 
     private final TokenProcessor tokenProcessor;
     private final Set<String> audienceTargets;
+    private final ExecutorService refresher;
 
     public OidcAuthPlugin(Properties properties) {
-        this(properties, buildProcessor(properties));
+        this(properties, Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("oidc-refresh-%d").setDaemon(true).build()));
+    }
+
+    private OidcAuthPlugin(Properties properties, ExecutorService refresher) {
+        this(properties, buildProcessor(properties, refresher), refresher);
     }
 
     @VisibleForTesting
     OidcAuthPlugin(Properties properties, TokenProcessor processor) {
+        this(properties, processor, null);
+    }
+
+    private OidcAuthPlugin(Properties properties, TokenProcessor processor,
+            ExecutorService refresher) {
         tokenProcessor = processor;
+        this.refresher = refresher;
 
         String targets = properties.getProperty(OIDC_ALLOWED_AUDIENCES);
         audienceTargets = Set.copyOf(new Args(targets).getArguments());
     }
 
     private static IdentityProvider createIdentityProvider(String name, String description,
-            HttpClient client, Duration discoveryCacheDuration) {
+            HttpClient client, Duration discoveryCacheDuration, Executor refresher) {
         checkArgument(!name.isEmpty(), "Empty name not allowed");
 
         Args args = new Args(description);
@@ -99,7 +115,7 @@ public class OidcAuthPlugin implements GPlazmaAuthenticationPlugin {
                 .collect(Collectors.toList());
 
             var idp = new IdentityProvider(name, issuer, profile, client, discoveryCacheDuration,
-                suppress);
+                suppress, refresher);
             if (idp.isSuppressed(SUPPRESS_AUDIENCE_TOKEN)) {
                 LOG.warn("Audience (\"aud\") checking is suppressed for OP {}.  This makes dCache "
                     + "compatible with behaviour before version 8.2.0, but it also violates RFC "
@@ -125,18 +141,22 @@ public class OidcAuthPlugin implements GPlazmaAuthenticationPlugin {
     @Override
     public void stop() {
         tokenProcessor.shutdown();
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
     }
 
-    private static TokenProcessor buildProcessor(Properties properties) {
+    private static TokenProcessor buildProcessor(Properties properties, Executor refresher) {
         Duration discoveryCacheDuration = asDuration(properties, DISCOVERY_CACHE_REFRESH);
 
         JsonHttpClient client = buildClientFromProperties(properties);
         Set<IdentityProvider> providers =
-            buildProviders(properties, client.getClient(), discoveryCacheDuration);
+            buildProviders(properties, client.getClient(), discoveryCacheDuration, refresher);
         checkArgument(!providers.isEmpty(), "No OIDC providers configured");
 
         var queryUserInfo = new QueryUserInfoEndpoint(properties, client, providers);
-        var offlineVerification = new OfflineJwtVerification(properties, client.getClient(), providers);
+        var offlineVerification = new OfflineJwtVerification(properties, client.getClient(),
+                providers, refresher);
 
         return ChainedTokenProcessor
                 .tryWith(offlineVerification)
@@ -156,13 +176,18 @@ public class OidcAuthPlugin implements GPlazmaAuthenticationPlugin {
     @VisibleForTesting
     static Set<IdentityProvider> buildProviders(Properties properties, HttpClient client,
             Duration discoveryCacheDuration) {
+        return buildProviders(properties, client, discoveryCacheDuration, null);
+    }
+
+    private static Set<IdentityProvider> buildProviders(Properties properties, HttpClient client,
+            Duration discoveryCacheDuration, Executor refresher) {
         return properties.stringPropertyNames().stream()
               .filter(n -> n.startsWith(OIDC_PROVIDER_PREFIX))
               .map(n -> {
                   try {
                       String name = n.substring(OIDC_PROVIDER_PREFIX.length());
                       return createIdentityProvider(name, properties.getProperty(n), client,
-                              discoveryCacheDuration);
+                              discoveryCacheDuration, refresher);
                   } catch (IllegalArgumentException e) {
                       throw new IllegalArgumentException(
                             "Bad OIDC provider " + n + ": " + e.getMessage());
@@ -44,7 +44,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.UUID;
-import java.util.function.Supplier;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import org.apache.http.client.HttpClient;
 import org.dcache.gplazma.AuthenticationException;
@@ -77,13 +77,18 @@ public class Issuer {
     // steps are successful and one (or more) of the array items are malformed
     // then we will cache the result for <tt>withSuccessFor</tt> duration.
     // This behaviour may be suboptimal.
-    private final Supplier<Result<Map<String, Result<PublicKey,String>>,String>> keys =
-            MemoizeResultWithExpiry.memorize(this::readJwksDocument)
-                    .whenFailureFor(Duration.ofMinutes(1))
-                    .whenSuccessFor(Duration.ofHours(6))
-                    .build();
+    private final MemoizeResultWithExpiry<Result<Map<String, Result<PublicKey,String>>,String>> keys;
 
     public Issuer(HttpClient client, IdentityProvider provider, int tokenHistory) {
+        this(client, provider, tokenHistory, null);
+    }
+
+    /**
+     * @param refresher executor on which the public keys are refreshed in the background or null
+     *                  to refresh them while verifying a token
+     */
+    public Issuer(HttpClient client, IdentityProvider provider, int tokenHistory,
+            Executor refresher) {
         this.provider = requireNonNull(provider);
         this.client = requireNonNull(client);
         previousJtis = tokenHistory > 0 ? EvictingQueue.create(tokenHistory) : null;
@@ -94,6 +99,19 @@ public class Issuer {
                 + "process requests with such tokens and dCache generating high load for the OP.",
                 provider.getName());
         }
+        keys = MemoizeResultWithExpiry.memorize(this::readJwksDocument)
+                .whenFailureFor(Duration.ofMinutes(1))
+                .whenSuccessFor(Duration.ofHours(6))
+                .refreshingOn(refresher)
+                .build();
+    }
+
+    /**
+     * Start fetching the issuer's public keys in the background, so that verifying the first
+     * token does not have to wait for them.
+     */
+    public void prefetchKeys() {
+        keys.prefetch();
     }
 
     public boolean isOfflineSuppressed() {
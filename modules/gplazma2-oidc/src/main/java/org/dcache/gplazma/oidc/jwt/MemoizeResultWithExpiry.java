@@ -1,6 +1,6 @@
 /* dCache - http://www.dcache.org/
  *
- * Copyright (C) 2019 - 2024 Deutsches Elektronen-Synchrotron
+ * Copyright (C) 2019 - 2026 Deutsches Elektronen-Synchrotron
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Affero General Public License as
@@ -19,39 +19,117 @@ package org.dcache.gplazma.oidc.jwt;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Supplier;
 import org.dcache.util.Result;
 
 /**
  * Provide access to a Result, obtained from some supplier where the value is cached for a configurable
  * duration.  The cached duration may be different depending on whether the Result is successful.
+ * <p>
+ * If an executor is configured, expired values are refreshed in the background.  While a
+ * successful value is being refreshed, it continues to be served (stale-while-revalidate).  Should
+ * the refresh fail, the stale value is kept for at most another success duration, with the
+ * refresh being retried after the failure duration.  Without an executor, an expired value is
+ * refreshed by the calling thread.
  */
 public class MemoizeResultWithExpiry<C extends Result<?, ?>> implements Supplier<C> {
 
     private final Supplier<C> supplier;
     private final Duration whenSuccess;
     private final Duration whenFailure;
+    private final Executor executor;
 
     private C value;
     private Instant nextCheck;
+    private Instant staleUntil;
+    private CompletableFuture<C> refreshing;
 
     public MemoizeResultWithExpiry(Supplier<C> supplier, Duration whenSuccess,
           Duration whenFailure) {
+        this(supplier, whenSuccess, whenFailure, null);
+    }
+
+    public MemoizeResultWithExpiry(Supplier<C> supplier, Duration whenSuccess,
+          Duration whenFailure, Executor executor) {
         this.supplier = supplier;
         this.whenFailure = whenFailure;
         this.whenSuccess = whenSuccess;
+        this.executor = executor;
     }
 
     @Override
-    public synchronized C get() {
+    public C get() {
+        CompletableFuture<C> pending;
+        synchronized (this) {
+            Instant now = Instant.now();
+            if (nextCheck != null && !now.isAfter(nextCheck)) {
+                return value;
+            }
+
+            if (executor == null) {
+                value = supplier.get();
+                Duration cacheDuration = (value == null || value.isFailure())
+                      ? whenFailure : whenSuccess;
+                nextCheck = now.plus(cacheDuration);
+                return value;
+            }
+
+            pending = refresh();
+            if (isServableWhileRefreshing(now)) {
+                return value;
+            }
+        }
+        return pending.join();
+    }
+
+    /**
+     * Starts fetching the value in the background, if no fresh value is cached.  Does nothing if
+     * no executor is configured.
+     */
+    public synchronized void prefetch() {
+        if (executor != null && (nextCheck == null || Instant.now().isAfter(nextCheck))) {
+            refresh();
+        }
+    }
+
+    private boolean isServableWhileRefreshing(Instant now) {
+        return value != null && value.isSuccessful() && now.isBefore(staleUntil);
+    }
+
+    private CompletableFuture<C> refresh() {
+        if (refreshing == null) {
+            CompletableFuture<C> future;
+            try {
+                future = CompletableFuture.supplyAsync(supplier, executor);
+            } catch (RejectedExecutionException e) {
+                future = CompletableFuture.completedFuture(supplier.get());
+            }
+            refreshing = future;
+            future.whenComplete((result, error) -> refreshed(result));
+        }
+        return refreshing;
+    }
+
+    private synchronized void refreshed(C result) {
+        refreshing = null;
+        if (result == null) {
+            return;
+        }
+
         Instant now = Instant.now();
-        if (nextCheck == null || now.isAfter(nextCheck)) {
-            value = supplier.get();
-            Duration cacheDuration = (value == null || value.isFailure())
-                  ? whenFailure : whenSuccess;
-            nextCheck = now.plus(cacheDuration);
+        if (result.isSuccessful()) {
+            value = result;
+            nextCheck = now.plus(whenSuccess);
+            staleUntil = nextCheck.plus(whenSuccess);
+        } else if (isServableWhileRefreshing(now)) {
+            nextCheck = now.plus(whenFailure);
+        } else {
+            value = result;
+            nextCheck = now.plus(whenFailure);
         }
-        return value;
     }
 
     public static <C extends Result<?, ?>> Builder memorize(Supplier<C> supplier) {
@@ -63,6 +141,7 @@ public class MemoizeResultWithExpiry<C extends Result<?, ?>> implements Supplier
         private final Supplier<C> supplier;
         private Duration whenSuccess;
         private Duration whenFailure;
+        private Executor executor;
 
         public Builder(Supplier<C> supplier) {
             this.supplier = supplier;
@@ -78,8 +157,13 @@ public class MemoizeResultWithExpiry<C extends Result<?, ?>> implements Supplier
             return this;
         }
 
+        public Builder refreshingOn(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
         public MemoizeResultWithExpiry build() {
-            return new MemoizeResultWithExpiry(supplier, whenSuccess, whenFailure);
+            return new MemoizeResultWithExpiry(supplier, whenSuccess, whenFailure, executor);
         }
     }
 }
@@ -1,6 +1,6 @@
 /* dCache - http://www.dcache.org/
  *
- * Copyright (C) 2022 Deutsches Elektronen-Synchrotron
+ * Copyright (C) 2022 - 2026 Deutsches Elektronen-Synchrotron
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU Affero General Public License as
@@ -17,14 +17,27 @@
  */
 package org.dcache.gplazma.oidc.jwt;
 
+import static org.dcache.gplazma.oidc.PropertiesUtils.asDuration;
+import static org.dcache.gplazma.oidc.PropertiesUtils.asIntOrDefault;
+import static org.dcache.gplazma.util.Preconditions.checkAuthentication;
+
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.http.client.HttpClient;
 import org.dcache.gplazma.AuthenticationException;
@@ -33,32 +46,83 @@ import org.dcache.gplazma.oidc.IdentityProvider;
 import org.dcache.gplazma.oidc.TokenProcessor;
 import org.dcache.gplazma.oidc.UnableToProcess;
 import org.dcache.gplazma.util.JsonWebToken;
-
-import static org.dcache.gplazma.oidc.PropertiesUtils.asIntOrDefault;
-import static org.dcache.gplazma.util.Preconditions.checkAuthentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class implements the offline verification of JWTs.
+ * <p>
+ * Verifying the signature of a JWT is comparatively expensive.  Tokens that were successfully
+ * verified are therefore cached, identified by a hash of the token, until they expire or, at the
+ * latest, for a configurable lifetime.  The cache is disabled if the token history is used to
+ * detect replayed tokens, as this requires each use of a token to be checked.
  */
 public class OfflineJwtVerification implements TokenProcessor {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(OfflineJwtVerification.class);
+
+    private static final String TOKEN_HISTORY = "gplazma.oidc.token-history";
+    private static final String VERIFIED_CACHE_SIZE = "gplazma.oidc.verified-jwt-cache.size";
+    private static final String VERIFIED_CACHE_LIFETIME = "gplazma.oidc.verified-jwt-cache.lifetime";
+
     private final Map<String, Issuer> issuersByEndpoint;
+    private final Cache<HashCode, VerifiedToken> verifiedTokens;
+    private final Clock clock;
 
     public OfflineJwtVerification(Properties properties, HttpClient client,
             Set<IdentityProvider> providers) {
-        this(properties, asIntOrDefault(properties, "gplazma.oidc.token-history", 0), client, providers);
+        this(properties, client, providers, null);
+    }
+
+    /**
+     * @param refresher executor on which the public keys of the issuers are fetched in the
+     *                  background or null to fetch them while verifying a token
+     */
+    public OfflineJwtVerification(Properties properties, HttpClient client,
+            Set<IdentityProvider> providers, Executor refresher) {
+        this(properties, asIntOrDefault(properties, TOKEN_HISTORY, 0), client, providers,
+                refresher);
     }
 
     private OfflineJwtVerification(Properties properties, int history, HttpClient client,
-            Set<IdentityProvider> providers) {
-        this(properties, providers.stream()
-                .map(p -> new Issuer(client, p, history))
-                .collect(Collectors.toList()));
+            Set<IdentityProvider> providers, Executor refresher) {
+        this(properties, history, providers.stream()
+                .map(p -> new Issuer(client, p, history, refresher))
+                .collect(Collectors.toList()), Clock.systemUTC());
+        if (refresher != null) {
+            issuersByEndpoint.values().stream()
+                    .filter(i -> !i.isOfflineSuppressed())
+                    .forEach(Issuer::prefetchKeys);
+        }
     }
 
     @VisibleForTesting
-    OfflineJwtVerification(Properties properties, Collection<Issuer> issuers) {
+    OfflineJwtVerification(Properties properties, Collection<Issuer> issuers, Clock clock) {
+        this(properties, 0, issuers, clock);
+    }
+
+    private OfflineJwtVerification(Properties properties, int history,
+            Collection<Issuer> issuers, Clock clock) {
+        this.clock = clock;
         issuersByEndpoint = issuers.stream().collect(Collectors.toMap(Issuer::getEndpoint, i -> i));
+
+        int cacheSize = asIntOrDefault(properties, VERIFIED_CACHE_SIZE, 0);
+        if (cacheSize > 0 && history > 0) {
+            LOGGER.info("Not caching verified JWTs as the token history is enabled.");
+            cacheSize = 0;
+        }
+        verifiedTokens = cacheSize > 0
+                ? CacheBuilder.newBuilder()
+                        .maximumSize(cacheSize)
+                        .expireAfterWrite(asDuration(properties, VERIFIED_CACHE_LIFETIME))
+                        .ticker(new Ticker() {
+                            @Override
+                            public long read() {
+                                return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                            }
+                        })
+                        .build()
+                : null;
     }
 
     @Override
@@ -67,6 +131,18 @@ public class OfflineJwtVerification implements TokenProcessor {
             throw new UnableToProcess("token not JWT");
         }
 
+        HashCode key = null;
+        if (verifiedTokens != null) {
+            key = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+            VerifiedToken verified = verifiedTokens.getIfPresent(key);
+            if (verified != null) {
+                if (verified.isValid(clock.instant())) {
+                    return verified.result;
+                }
+                verifiedTokens.invalidate(key);
+            }
+        }
+
         try {
             var jwt = checkValid(new JsonWebToken(token));
 
@@ -76,14 +152,19 @@ public class OfflineJwtVerification implements TokenProcessor {
                 throw new UnableToProcess("offline suppressed");
             }
 
-            return new ExtractResult(issuer.getIdentityProvider(), jwt.getPayloadMap());
+            var result = new ExtractResult(issuer.getIdentityProvider(), jwt.getPayloadMap());
+            if (key != null) {
+                verifiedTokens.put(key,
+                        new VerifiedToken(result, jwt.getPayloadInstant("exp").orElse(null)));
+            }
+            return result;
         } catch (IOException e) {
             throw new UnableToProcess(e.getMessage());
         }
     }
 
     private JsonWebToken checkValid(JsonWebToken token) throws AuthenticationException {
-        Instant now = Instant.now();
+        Instant now = clock.instant();
 
         Optional<Instant> exp = token.getPayloadInstant("exp");
         checkAuthentication(!exp.isPresent() || now.isBefore(exp.get()),
@@ -107,4 +188,22 @@ public class OfflineJwtVerification implements TokenProcessor {
 
         return issuer;
     }
+
+    /**
+     * The outcome of verifying a token.
+     */
+    private static class VerifiedToken {
+
+        private final ExtractResult result;
+        private final Instant expiry;
+
+        VerifiedToken(ExtractResult result, Instant expiry) {
+            this.result = result;
+            this.expiry = expiry;
+        }
+
+        boolean isValid(Instant now) {
+            return expiry == null || now.isBefore(expiry);
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.oidc.jwt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.util.Result;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MemoizeResultWithExpiryTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private Result<String, String> nextResult;
+
+    @Before
+    public void setup() {
+        nextResult = Result.success("first");
+    }
+
+    @Test
+    public void shouldFetchSynchronouslyWithoutExecutor() {
+        var memo = new MemoizeResultWithExpiry<>(this::fetch, Duration.ofMinutes(1),
+                Duration.ofMinutes(1));
+
+        assertThat(memo.get().getSuccess(), is(equalTo(Optional.of("first"))));
+        assertThat(memo.get().getSuccess(), is(equalTo(Optional.of("first"))));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void shouldPrefetchOnExecutor() {
+        var memo = new MemoizeResultWithExpiry<>(this::fetch, Duration.ofMinutes(1),
+                Duration.ofMinutes(1), tasks::add);
+
+        memo.prefetch();
+
+        assertThat(tasks, hasSize(1));
+        assertThat(calls.get(), is(0));
+
+        runTasks();
+
+        assertThat(memo.get().getSuccess(), is(equalTo(Optional.of("first"))));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void shouldServeStaleValueWhileRefreshing() {
+        var memo = new MemoizeResultWithExpiry<>(this::fetch, Duration.ofMillis(50),
+                Duration.ofMillis(50), tasks::add);
+        memo.prefetch();
+        runTasks();
+        nextResult = Result.success("second");
+        sleep(60);
+
+        var stale = memo.get();
+
+        assertThat(stale.getSuccess(), is(equalTo(Optional.of("first"))));
+        assertThat(tasks, hasSize(1));
+
+        runTasks();
+
+        assertThat(memo.get().getSuccess(), is(equalTo(Optional.of("second"))));
+    }
+
+    @Test
+    public void shouldKeepStaleValueIfRefreshFails() {
+        var memo = new MemoizeResultWithExpiry<>(this::fetch, Duration.ofMillis(50),
+                Duration.ofMinutes(1), tasks::add);
+        memo.prefetch();
+        runTasks();
+        nextResult = Result.failure("broken");
+        sleep(60);
+
+        memo.get();
+        runTasks();
+
+        assertThat(memo.get().getSuccess(), is(equalTo(Optional.of("first"))));
+    }
+
+    private Result<String, String> fetch() {
+        calls.incrementAndGet();
+        return nextResult;
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
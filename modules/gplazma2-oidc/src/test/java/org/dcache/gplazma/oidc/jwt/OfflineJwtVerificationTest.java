@@ -20,7 +20,11 @@ package org.dcache.gplazma.oidc.jwt;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -36,10 +40,15 @@ import org.mockito.BDDMockito;
 
 import static com.google.common.base.Preconditions.checkState;
 import static java.time.temporal.ChronoUnit.MINUTES;
+import static java.time.temporal.ChronoUnit.SECONDS;
 import static org.dcache.gplazma.oidc.MockIdentityProviderBuilder.anIp;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class OfflineJwtVerificationTest {
 
@@ -49,12 +58,14 @@ public class OfflineJwtVerificationTest {
     private OfflineJwtVerification verification;
     private String jwt;
     private IdentityProvider identityProvider;
+    private TestClock clock;
 
     @Before
     public void setup() {
         verification = null;
         jwt = null;
         identityProvider = null;
+        clock = new TestClock(Instant.now());
     }
 
     @Test(expected=UnableToProcess.class)
@@ -236,6 +247,107 @@ public class OfflineJwtVerificationTest {
         verification.extract(jwt);
     }
 
+    @Test
+    public void shouldVerifyCachedTokenOnlyOnce() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        Issuer issuer = anIssuer().withIp(identityProvider).build();
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withVerifiedJwtCacheSize(10)
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("exp", Instant.now().plus(5, MINUTES))
+            .withPayloadClaim("sub", "paul"));
+
+        verification.extract(jwt);
+        ExtractResult result = verification.extract(jwt);
+
+        assertThat(result.idp(), is(sameInstance(identityProvider)));
+        assertThat(result.claims(), hasEntry("sub", jsonString("paul")));
+        verify(issuer, times(1)).checkIssued(any());
+    }
+
+    @Test
+    public void shouldVerifyTokenEachTimeWithoutCache() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        Issuer issuer = anIssuer().withIp(identityProvider).build();
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("exp", Instant.now().plus(5, MINUTES))
+            .withPayloadClaim("sub", "paul"));
+
+        verification.extract(jwt);
+        verification.extract(jwt);
+
+        verify(issuer, times(2)).checkIssued(any());
+    }
+
+    @Test(expected=AuthenticationException.class)
+    public void shouldRejectCachedTokenOnceExpired() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withVerifiedJwtCacheSize(10)
+            .withIssuer(anIssuer().withIp(identityProvider)));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("exp", clock.instant().plus(2, SECONDS))
+            .withPayloadClaim("sub", "paul"));
+        verification.extract(jwt);
+
+        clock.advance(Duration.ofSeconds(3));
+
+        verification.extract(jwt);
+    }
+
+    @Test
+    public void shouldVerifyCachedTokenAgainAfterCacheLifetime() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        Issuer issuer = anIssuer().withIp(identityProvider).build();
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withVerifiedJwtCacheSize(10)
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+        verification.extract(jwt);
+
+        clock.advance(Duration.ofMinutes(6));
+        verification.extract(jwt);
+
+        verify(issuer, times(2)).checkIssued(any());
+    }
+
+    @Test
+    public void shouldNotCacheTokenWhenOfflineSuppressed() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        Issuer issuer = anIssuer().withIp(identityProvider).withOfflineSuppressed().build();
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withVerifiedJwtCacheSize(10)
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                verification.extract(jwt);
+                fail("Token of offline suppressed issuer was processed");
+            } catch (UnableToProcess e) {
+                // expected
+            }
+        }
+
+        verify(issuer, times(2)).checkIssued(any());
+        verify(issuer, times(2)).isOfflineSuppressed();
+    }
+
     private JsonNode jsonString(String json) throws JsonProcessingException {
         return mapper.readTree("\"" + json + "\"");
     }
@@ -245,7 +357,7 @@ public class OfflineJwtVerificationTest {
     }
 
     private void given(OfflineJwtVerificationBuilder builder) {
-        verification = builder.build();
+        verification = builder.build(clock);
     }
 
     private void given(JwtFactory.Builder builder) {
@@ -312,13 +424,54 @@ public class OfflineJwtVerificationTest {
             return this;
         }
 
+        public OfflineJwtVerificationBuilder withVerifiedJwtCacheSize(int size) {
+            properties.setProperty("gplazma.oidc.verified-jwt-cache.size", String.valueOf(size));
+            properties.setProperty("gplazma.oidc.verified-jwt-cache.lifetime", "5");
+            properties.setProperty("gplazma.oidc.verified-jwt-cache.lifetime.unit", "MINUTES");
+            return this;
+        }
+
         public OfflineJwtVerificationBuilder withIssuer(MockIssuerBuilder builder) {
-            issuers.add(builder.build());
+            return withIssuer(builder.build());
+        }
+
+        public OfflineJwtVerificationBuilder withIssuer(Issuer issuer) {
+            issuers.add(issuer);
             return this;
         }
 
-        public OfflineJwtVerification build() {
-            return new OfflineJwtVerification(properties, issuers);
+        public OfflineJwtVerification build(Clock clock) {
+            return new OfflineJwtVerification(properties, issuers, clock);
+        }
+    }
+
+    /**
+     * A clock that only advances when told to.
+     */
+    private static class TestClock extends Clock {
+        private Instant now;
+
+        TestClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
         }
     }
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import javax.security.auth.Subject;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.gplazma.configuration.Configuration;
@@ -32,6 +33,7 @@ import org.dcache.gplazma.monitor.LoggingLoginMonitor;
 import org.dcache.gplazma.monitor.LoginMonitor;
 import org.dcache.gplazma.monitor.LoginMonitor.Result;
 import org.dcache.gplazma.monitor.LoginResult;
+import org.dcache.gplazma.monitor.PluginLatencyMonitor;
 import org.dcache.gplazma.monitor.RecordingLoginMonitor;
 import org.dcache.gplazma.plugins.GPlazmaAccountPlugin;
 import org.dcache.gplazma.plugins.GPlazmaAuthenticationPlugin;
@@ -74,6 +76,10 @@ public class GPlazma {
 
     private Setup setup;
 
+    private Executor pluginExecutor;
+
+    private final PluginLatencyMonitor pluginLatencyMonitor = new PluginLatencyMonitor();
+
     private final List<LoginObserver> loginObservers = new CopyOnWriteArrayList();
     private final List<ReloadObserver> reloadObservers = new CopyOnWriteArrayList();
 
@@ -113,6 +119,26 @@ public class GPlazma {
         }
     }
 
+    /**
+     * Sets the executor used to call independent plugins concurrently.  If no executor is set,
+     * plugins are called sequentially.
+     */
+    public void setPluginExecutor(Executor executor) {
+        synchronized (configurationLoadingStrategy) {
+            pluginExecutor = executor;
+            if (setup != null) {
+                setup.setExecutor(executor);
+            }
+        }
+    }
+
+    /**
+     * Returns the monitor recording the time taken by each plugin during logins.
+     */
+    public PluginLatencyMonitor getPluginLatencyMonitor() {
+        return pluginLatencyMonitor;
+    }
+
     public void setObservers(Iterable<Object> observers) {
         loginObservers.clear();
         reloadObservers.clear();
@@ -132,7 +158,7 @@ public class GPlazma {
         RecordingLoginMonitor record = new RecordingLoginMonitor();
         LoginResult result = record.getResult();
         LoginMonitor combined = CombinedLoginMonitor.of(record,
-              LOGGING_LOGIN_MONITOR);
+              LOGGING_LOGIN_MONITOR, pluginLatencyMonitor);
 
         try {
             LoginReply reply = login(subject, combined);
@@ -267,6 +293,7 @@ public class GPlazma {
             validationStrategy = ValidationStrategyFactory.getInstance().newValidationStrategy();
 
             Setup newSetup = buildSetup();
+            newSetup.setExecutor(pluginExecutor);
             try {
                 newSetup.start();
             } catch (GPlazmaInternalException e) {
@@ -438,6 +465,13 @@ public class GPlazma {
             manager.addListener(this, MoreExecutors.directExecutor());
         }
 
+        void setExecutor(Executor executor) {
+            authStrategy.setExecutor(executor);
+            mapStrategy.setExecutor(executor);
+            accountStrategy.setExecutor(executor);
+            sessionStrategy.setExecutor(executor);
+        }
+
         @Override
         public void failure(Service service) {
             failure = service.failureCause();
@@ -3,6 +3,7 @@ package org.dcache.gplazma.monitor;
 import java.security.Principal;
 import java.util.Set;
 import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 
 /**
  * This class provides a mechanism to combine multiple LoginMonitor monitors so that all monitors
@@ -160,4 +161,12 @@ public class CombinedLoginMonitor implements LoginMonitor {
             monitor.validationResult(result, error);
         }
     }
+
+    @Override
+    public void pluginCompleted(ConfigurationItemType phase, String name,
+          ConfigurationItemControl control, Result result, long elapsedNanos) {
+        for (LoginMonitor monitor : _inner) {
+            monitor.pluginCompleted(phase, name, control, result, elapsedNanos);
+        }
+    }
 }
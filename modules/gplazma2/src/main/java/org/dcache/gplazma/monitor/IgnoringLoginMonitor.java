@@ -3,6 +3,7 @@ package org.dcache.gplazma.monitor;
 import java.security.Principal;
 import java.util.Set;
 import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 
 /**
  * This is a LoginMonitor that ignores all input.
@@ -108,4 +109,10 @@ public class IgnoringLoginMonitor implements LoginMonitor {
     public void validationResult(Result result, String error) {
         // ignored
     }
+
+    @Override
+    public void pluginCompleted(ConfigurationItemType phase, String name,
+          ConfigurationItemControl control, Result result, long elapsedNanos) {
+        // ignored
+    }
 }
@@ -3,6 +3,7 @@ package org.dcache.gplazma.monitor;
 import java.security.Principal;
 import java.util.Set;
 import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 
 /**
  * A class that implements LoginMonitor will be provided with the progress of a login request.
@@ -91,4 +92,11 @@ public interface LoginMonitor {
      * Feedback about final validation step
      */
     void validationResult(Result result, String error);
+
+    /*
+     * Feedback about the time taken by each plugin; reported after the
+     * corresponding PluginEnds call.
+     */
+    void pluginCompleted(ConfigurationItemType phase, String name,
+          ConfigurationItemControl control, Result result, long elapsedNanos);
 }
@@ -0,0 +1,136 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.monitor;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
+
+/**
+ * This class collects the time taken by each plugin in histograms, one for each plugin and phase.
+ * <p>
+ * Buckets grow exponentially in width, the first bucket holding calls that took less than 100
+ * microseconds.  The monitor is thread-safe and is meant to be shared between all logins.
+ */
+public class PluginLatencyMonitor extends IgnoringLoginMonitor {
+
+    private static final int BUCKETS = 20;
+    private static final long FIRST_BUCKET_MICROS = 100;
+
+    private final Map<String, Histogram> _histograms = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void pluginCompleted(ConfigurationItemType phase, String name,
+          ConfigurationItemControl control, Result result, long elapsedNanos) {
+        _histograms.computeIfAbsent(phase + " " + name, k -> new Histogram())
+              .record(result, elapsedNanos);
+    }
+
+    /**
+     * Discards all recorded latencies.
+     */
+    public void reset() {
+        _histograms.clear();
+    }
+
+    /**
+     * Returns the number of calls recorded for the plugin with the given name in the given phase.
+     */
+    public long getCount(ConfigurationItemType phase, String name) {
+        Histogram histogram = _histograms.get(phase + " " + name);
+        return histogram == null ? 0 : histogram.count();
+    }
+
+    public void print(PrintWriter pw) {
+        if (_histograms.isEmpty()) {
+            pw.println("No plugin has been called.");
+            return;
+        }
+        pw.printf("%-30s %10s %8s %12s %12s %12s %12s\n", "PLUGIN", "CALLS", "FAILED",
+              "MEAN [ms]", "P50 [ms]", "P99 [ms]", "MAX [ms]");
+        _histograms.forEach((name, histogram) -> histogram.print(pw, name));
+    }
+
+    private static int bucketOf(long nanos) {
+        long slots = TimeUnit.NANOSECONDS.toMicros(nanos) / FIRST_BUCKET_MICROS;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(slots));
+    }
+
+    /**
+     * Upper bound of the given bucket in milliseconds.
+     */
+    private static double upperBoundOf(int bucket) {
+        return (FIRST_BUCKET_MICROS << bucket) / 1000.0;
+    }
+
+    private static class Histogram {
+
+        private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder _failed = new LongAdder();
+        private final LongAdder _total = new LongAdder();
+        private final LongAccumulator _max = new LongAccumulator(Math::max, 0);
+
+        void record(Result result, long nanos) {
+            _buckets.incrementAndGet(bucketOf(nanos));
+            _total.add(nanos);
+            _max.accumulate(nanos);
+            if (result == Result.FAIL) {
+                _failed.increment();
+            }
+        }
+
+        long count() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += _buckets.get(i);
+            }
+            return count;
+        }
+
+        /**
+         * Returns the upper bound, in milliseconds, of the bucket holding the given quantile.
+         */
+        double quantile(long count, double quantile) {
+            long rank = (long) Math.ceil(count * quantile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                seen += _buckets.get(i);
+                if (seen >= rank) {
+                    return upperBoundOf(i);
+                }
+            }
+            return _max.get() / 1_000_000.0;
+        }
+
+        void print(PrintWriter pw, String name) {
+            long count = count();
+            if (count == 0) {
+                return;
+            }
+            pw.printf("%-30s %10d %8d %12.2f %12.2f %12.2f %12.2f\n", name, count, _failed.sum(),
+                  _total.sum() / 1_000_000.0 / count, quantile(count, 0.5),
+                  quantile(count, 0.99), _max.get() / 1_000_000.0);
+        }
+    }
+}
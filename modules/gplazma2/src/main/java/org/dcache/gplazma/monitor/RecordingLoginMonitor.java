@@ -4,6 +4,7 @@ import java.security.Principal;
 import java.util.HashSet;
 import java.util.Set;
 import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 import org.dcache.gplazma.monitor.LoginResult.AccountPhaseResult;
 import org.dcache.gplazma.monitor.LoginResult.AccountPluginResult;
 import org.dcache.gplazma.monitor.LoginResult.AuthPhaseResult;
@@ -184,4 +185,10 @@ public class RecordingLoginMonitor implements LoginMonitor {
     public LoginResult getResult() {
         return _result;
     }
+
+    @Override
+    public void pluginCompleted(ConfigurationItemType phase, String name,
+          ConfigurationItemControl control, Result result, long elapsedNanos) {
+        // ignored
+    }
 }
@@ -3,10 +3,11 @@ package org.dcache.gplazma.strategies;
 import java.security.Principal;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.dcache.gplazma.AuthenticationException;
 import org.dcache.gplazma.SessionID;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 import org.dcache.gplazma.monitor.LoginMonitor;
-import org.dcache.gplazma.monitor.LoginMonitor.Result;
 import org.dcache.gplazma.plugins.GPlazmaAccountPlugin;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
 import org.slf4j.Logger;
@@ -24,6 +25,13 @@ public class DefaultAccountStrategy implements AccountStrategy {
 
     private volatile PAMStyleStrategy<GPlazmaAccountPlugin> pamStyleAccountStrategy;
 
+    private volatile Executor executor;
+
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     @Override
     public void setPlugins(List<GPlazmaPluginService<GPlazmaAccountPlugin>> plugins) {
         pamStyleAccountStrategy = new PAMStyleStrategy<>(plugins);
@@ -47,24 +55,54 @@ public class DefaultAccountStrategy implements AccountStrategy {
     public void account(final LoginMonitor monitor,
           final Set<Principal> authorizedPrincipals)
           throws AuthenticationException {
-        pamStyleAccountStrategy.callPlugins(service -> {
-            monitor.accountPluginBegins(service.getName(), service.getControl(),
-                  authorizedPrincipals);
+        pamStyleAccountStrategy.callPlugins(new PluginCaller<>() {
+            @Override
+            public void call(GPlazmaPluginService<GPlazmaAccountPlugin> service)
+                  throws AuthenticationException {
+                monitor.accountPluginBegins(service.getName(), service.getControl(),
+                      authorizedPrincipals);
+
+                GPlazmaAccountPlugin plugin = service.getPlugin();
 
-            GPlazmaAccountPlugin plugin = service.getPlugin();
+                PluginInvocation invocation = new PluginInvocation();
+                try {
+                    invocation.invoke(() -> plugin.account(authorizedPrincipals));
+                } finally {
+                    completed(service, invocation);
+                }
+            }
+
+            @Override
+            public Fork<GPlazmaAccountPlugin> fork() {
+                ForkedSet<Principal> forkedPrincipals = new ForkedSet<>(authorizedPrincipals);
+                PluginInvocation invocation = new PluginInvocation();
+
+                return new Fork<>() {
+                    @Override
+                    public void call(GPlazmaPluginService<GPlazmaAccountPlugin> service)
+                          throws AuthenticationException {
+                        invocation.invoke(
+                              () -> service.getPlugin().account(forkedPrincipals.get()));
+                    }
+
+                    @Override
+                    public void merge(GPlazmaPluginService<GPlazmaAccountPlugin> service) {
+                        monitor.accountPluginBegins(service.getName(), service.getControl(),
+                              authorizedPrincipals);
+                        forkedPrincipals.merge();
+                        completed(service, invocation);
+                    }
+                };
+            }
 
-            Result result = Result.FAIL;
-            String error = null;
-            try {
-                plugin.account(authorizedPrincipals);
-                result = Result.SUCCESS;
-            } catch (AuthenticationException e) {
-                error = e.getMessage();
-                throw e;
-            } finally {
+            private void completed(GPlazmaPluginService<GPlazmaAccountPlugin> service,
+                  PluginInvocation invocation) {
                 monitor.accountPluginEnds(service.getName(), service.getControl(),
-                      result, error, authorizedPrincipals);
+                      invocation.getResult(), invocation.getError(), authorizedPrincipals);
+                monitor.pluginCompleted(ConfigurationItemType.ACCOUNT, service.getName(),
+                      service.getControl(), invocation.getResult(),
+                      invocation.getElapsedNanos());
             }
-        });
+        }, executor);
     }
 }
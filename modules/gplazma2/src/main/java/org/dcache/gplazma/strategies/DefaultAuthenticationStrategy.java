@@ -1,15 +1,18 @@
 package org.dcache.gplazma.strategies;
 
 import java.security.Principal;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.dcache.auth.attributes.Restriction;
 import org.dcache.gplazma.AuthenticationException;
 import org.dcache.gplazma.SessionID;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 import org.dcache.gplazma.monitor.LoginMonitor;
-import org.dcache.gplazma.monitor.LoginMonitor.Result;
 import org.dcache.gplazma.plugins.GPlazmaAuthenticationPlugin;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
+import org.dcache.util.AppendOnlySet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +28,13 @@ public class DefaultAuthenticationStrategy implements AuthenticationStrategy {
 
     private volatile PAMStyleStrategy<GPlazmaAuthenticationPlugin> pamStyleAuthentiationStrategy;
 
+    private volatile Executor executor;
+
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     @Override
     public void setPlugins(List<GPlazmaPluginService<GPlazmaAuthenticationPlugin>> plugins) {
         pamStyleAuthentiationStrategy = new PAMStyleStrategy<>(plugins);
@@ -48,27 +58,66 @@ public class DefaultAuthenticationStrategy implements AuthenticationStrategy {
           final Set<Principal> identifiedPrincipals,
           final Set<Restriction> restrictionStore)
           throws AuthenticationException {
-        pamStyleAuthentiationStrategy.callPlugins(service -> {
-            monitor.authPluginBegins(service.getName(), service.getControl(),
-                  publicCredential, privateCredential,
-                  identifiedPrincipals);
+        pamStyleAuthentiationStrategy.callPlugins(new PluginCaller<>() {
+            @Override
+            public void call(GPlazmaPluginService<GPlazmaAuthenticationPlugin> service)
+                  throws AuthenticationException {
+                monitor.authPluginBegins(service.getName(), service.getControl(),
+                      publicCredential, privateCredential,
+                      identifiedPrincipals);
+
+                GPlazmaAuthenticationPlugin plugin = service.getPlugin();
 
-            GPlazmaAuthenticationPlugin plugin = service.getPlugin();
+                PluginInvocation invocation = new PluginInvocation();
+                try {
+                    invocation.invoke(() -> plugin.authenticate(publicCredential,
+                          privateCredential, identifiedPrincipals, restrictionStore));
+                } finally {
+                    completed(service, invocation);
+                }
+            }
+
+            @Override
+            public Fork<GPlazmaAuthenticationPlugin> fork() {
+                ForkedSet<Object> forkedPublic = new ForkedSet<>(publicCredential);
+                ForkedSet<Object> forkedPrivate = new ForkedSet<>(privateCredential);
+                ForkedSet<Principal> forkedPrincipals = new ForkedSet<>(identifiedPrincipals);
+                ForkedSet<Restriction> forkedRestrictions = new ForkedSet<>(restrictionStore,
+                      new AppendOnlySet<>(new HashSet<>(restrictionStore)));
+                PluginInvocation invocation = new PluginInvocation();
+
+                return new Fork<>() {
+                    @Override
+                    public void call(GPlazmaPluginService<GPlazmaAuthenticationPlugin> service)
+                          throws AuthenticationException {
+                        invocation.invoke(() -> service.getPlugin().authenticate(
+                              forkedPublic.get(), forkedPrivate.get(), forkedPrincipals.get(),
+                              forkedRestrictions.get()));
+                    }
 
-            Result result = Result.FAIL;
-            String error = null;
-            try {
-                plugin.authenticate(publicCredential, privateCredential,
-                      identifiedPrincipals, restrictionStore);
-                result = Result.SUCCESS;
-            } catch (AuthenticationException e) {
-                error = e.getMessage();
-                throw e;
-            } finally {
+                    @Override
+                    public void merge(GPlazmaPluginService<GPlazmaAuthenticationPlugin> service) {
+                        monitor.authPluginBegins(service.getName(), service.getControl(),
+                              publicCredential, privateCredential,
+                              identifiedPrincipals);
+                        forkedPublic.merge();
+                        forkedPrivate.merge();
+                        forkedPrincipals.merge();
+                        forkedRestrictions.merge();
+                        completed(service, invocation);
+                    }
+                };
+            }
+
+            private void completed(GPlazmaPluginService<GPlazmaAuthenticationPlugin> service,
+                  PluginInvocation invocation) {
                 monitor.authPluginEnds(service.getName(), service.getControl(),
-                      result, error, publicCredential, privateCredential,
-                      identifiedPrincipals);
+                      invocation.getResult(), invocation.getError(), publicCredential,
+                      privateCredential, identifiedPrincipals);
+                monitor.pluginCompleted(ConfigurationItemType.AUTHENTICATION, service.getName(),
+                      service.getControl(), invocation.getResult(),
+                      invocation.getElapsedNanos());
             }
-        });
+        }, executor);
     }
 }
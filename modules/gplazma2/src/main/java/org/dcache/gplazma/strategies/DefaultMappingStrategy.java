@@ -3,9 +3,10 @@ package org.dcache.gplazma.strategies;
 import java.security.Principal;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.dcache.gplazma.AuthenticationException;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 import org.dcache.gplazma.monitor.LoginMonitor;
-import org.dcache.gplazma.monitor.LoginMonitor.Result;
 import org.dcache.gplazma.plugins.GPlazmaMappingPlugin;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
 import org.slf4j.Logger;
@@ -23,6 +24,13 @@ public class DefaultMappingStrategy implements MappingStrategy {
 
     private volatile PAMStyleStrategy<GPlazmaMappingPlugin> pamStyleMappingStrategy;
 
+    private volatile Executor executor;
+
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     @Override
     public void setPlugins(List<GPlazmaPluginService<GPlazmaMappingPlugin>> plugins) {
         pamStyleMappingStrategy = new PAMStyleStrategy<>(plugins);
@@ -46,23 +54,52 @@ public class DefaultMappingStrategy implements MappingStrategy {
     public void map(final LoginMonitor monitor,
           final Set<Principal> principals)
           throws AuthenticationException {
-        pamStyleMappingStrategy.callPlugins(service -> {
-            monitor.mapPluginBegins(service.getName(), service.getControl(), principals);
+        pamStyleMappingStrategy.callPlugins(new PluginCaller<>() {
+            @Override
+            public void call(GPlazmaPluginService<GPlazmaMappingPlugin> service)
+                  throws AuthenticationException {
+                monitor.mapPluginBegins(service.getName(), service.getControl(), principals);
+
+                GPlazmaMappingPlugin plugin = service.getPlugin();
 
-            GPlazmaMappingPlugin plugin = service.getPlugin();
+                PluginInvocation invocation = new PluginInvocation();
+                try {
+                    invocation.invoke(() -> plugin.map(principals));
+                } finally {
+                    completed(service, invocation);
+                }
+            }
+
+            @Override
+            public Fork<GPlazmaMappingPlugin> fork() {
+                ForkedSet<Principal> forkedPrincipals = new ForkedSet<>(principals);
+                PluginInvocation invocation = new PluginInvocation();
+
+                return new Fork<>() {
+                    @Override
+                    public void call(GPlazmaPluginService<GPlazmaMappingPlugin> service)
+                          throws AuthenticationException {
+                        invocation.invoke(() -> service.getPlugin().map(forkedPrincipals.get()));
+                    }
+
+                    @Override
+                    public void merge(GPlazmaPluginService<GPlazmaMappingPlugin> service) {
+                        monitor.mapPluginBegins(service.getName(), service.getControl(),
+                              principals);
+                        forkedPrincipals.merge();
+                        completed(service, invocation);
+                    }
+                };
+            }
 
-            Result result = Result.FAIL;
-            String error = null;
-            try {
-                plugin.map(principals);
-                result = Result.SUCCESS;
-            } catch (AuthenticationException e) {
-                error = e.getMessage();
-                throw e;
-            } finally {
-                monitor.mapPluginEnds(service.getName(), service.getControl(), result,
-                      error, principals);
+            private void completed(GPlazmaPluginService<GPlazmaMappingPlugin> service,
+                  PluginInvocation invocation) {
+                monitor.mapPluginEnds(service.getName(), service.getControl(),
+                      invocation.getResult(), invocation.getError(), principals);
+                monitor.pluginCompleted(ConfigurationItemType.MAPPING, service.getName(),
+                      service.getControl(), invocation.getResult(),
+                      invocation.getElapsedNanos());
             }
-        });
+        }, executor);
     }
 }
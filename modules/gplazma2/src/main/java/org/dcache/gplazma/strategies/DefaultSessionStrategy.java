@@ -3,10 +3,11 @@ package org.dcache.gplazma.strategies;
 import java.security.Principal;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import org.dcache.gplazma.AuthenticationException;
 import org.dcache.gplazma.SessionID;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
 import org.dcache.gplazma.monitor.LoginMonitor;
-import org.dcache.gplazma.monitor.LoginMonitor.Result;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
 import org.dcache.gplazma.plugins.GPlazmaSessionPlugin;
 import org.slf4j.Logger;
@@ -24,9 +25,16 @@ public class DefaultSessionStrategy implements SessionStrategy {
 
     private volatile PAMStyleStrategy<GPlazmaSessionPlugin> pamStyleSessionStrategy;
 
+    private volatile Executor executor;
+
     /**
      * @param plugins
      */
+    @Override
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     @Override
     public void setPlugins(List<GPlazmaPluginService<GPlazmaSessionPlugin>> plugins) {
         pamStyleSessionStrategy = new PAMStyleStrategy<>(plugins);
@@ -51,23 +59,57 @@ public class DefaultSessionStrategy implements SessionStrategy {
     public void session(final LoginMonitor monitor,
           final Set<Principal> authorizedPrincipals,
           final Set<Object> attrib) throws AuthenticationException {
-        pamStyleSessionStrategy.callPlugins(service -> {
-            monitor.sessionPluginBegins(service.getName(), service.getControl(),
-                  authorizedPrincipals, attrib);
+        pamStyleSessionStrategy.callPlugins(new PluginCaller<>() {
+            @Override
+            public void call(GPlazmaPluginService<GPlazmaSessionPlugin> service)
+                  throws AuthenticationException {
+                monitor.sessionPluginBegins(service.getName(), service.getControl(),
+                      authorizedPrincipals, attrib);
+
+                GPlazmaSessionPlugin plugin = service.getPlugin();
+
+                PluginInvocation invocation = new PluginInvocation();
+                try {
+                    invocation.invoke(() -> plugin.session(authorizedPrincipals, attrib));
+                } finally {
+                    completed(service, invocation);
+                }
+            }
+
+            @Override
+            public Fork<GPlazmaSessionPlugin> fork() {
+                ForkedSet<Principal> forkedPrincipals = new ForkedSet<>(authorizedPrincipals);
+                ForkedSet<Object> forkedAttributes = new ForkedSet<>(attrib);
+                PluginInvocation invocation = new PluginInvocation();
+
+                return new Fork<>() {
+                    @Override
+                    public void call(GPlazmaPluginService<GPlazmaSessionPlugin> service)
+                          throws AuthenticationException {
+                        invocation.invoke(() -> service.getPlugin().session(
+                              forkedPrincipals.get(), forkedAttributes.get()));
+                    }
+
+                    @Override
+                    public void merge(GPlazmaPluginService<GPlazmaSessionPlugin> service) {
+                        monitor.sessionPluginBegins(service.getName(), service.getControl(),
+                              authorizedPrincipals, attrib);
+                        forkedPrincipals.merge();
+                        forkedAttributes.merge();
+                        completed(service, invocation);
+                    }
+                };
+            }
 
-            GPlazmaSessionPlugin plugin = service.getPlugin();
-            String error = null;
-            Result result = Result.FAIL;
-            try {
-                plugin.session(authorizedPrincipals, attrib);
-                result = Result.SUCCESS;
-            } catch (AuthenticationException e) {
-                error = e.getMessage();
-                throw e;
-            } finally {
+            private void completed(GPlazmaPluginService<GPlazmaSessionPlugin> service,
+                  PluginInvocation invocation) {
                 monitor.sessionPluginEnds(service.getName(), service.getControl(),
-                      result, error, authorizedPrincipals, attrib);
+                      invocation.getResult(), invocation.getError(), authorizedPrincipals,
+                      attrib);
+                monitor.pluginCompleted(ConfigurationItemType.SESSION, service.getName(),
+                      service.getControl(), invocation.getResult(),
+                      invocation.getElapsedNanos());
             }
-        });
+        }, executor);
     }
 }
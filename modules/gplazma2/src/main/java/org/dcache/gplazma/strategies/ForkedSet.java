@@ -0,0 +1,59 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.strategies;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A private copy of a set that a plugin modifies while being called concurrently with other
+ * plugins.  Elements added to or removed from the copy are later applied to the shared set.
+ */
+class ForkedSet<E> {
+
+    private final Set<E> shared;
+    private final Set<E> before;
+    private final Set<E> copy;
+
+    ForkedSet(Set<E> shared) {
+        this(shared, new HashSet<>(shared));
+    }
+
+    ForkedSet(Set<E> shared, Set<E> copy) {
+        this.shared = shared;
+        this.before = new HashSet<>(shared);
+        this.copy = copy;
+    }
+
+    Set<E> get() {
+        return copy;
+    }
+
+    void merge() {
+        Set<E> removed = new HashSet<>(before);
+        removed.removeAll(copy);
+        if (!removed.isEmpty()) {
+            shared.removeAll(removed);
+        }
+        for (E e : copy) {
+            if (!before.contains(e)) {
+                shared.add(e);
+            }
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package org.dcache.gplazma.strategies;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
 
 public interface GPlazmaStrategy<T extends GPlazmaPlugin> {
 
     void setPlugins(List<GPlazmaPluginService<T>> plugins);
+
+    /**
+     * Sets the executor used to call independent plugins concurrently.  If no executor is set,
+     * plugins are called sequentially by the thread performing the login.  Strategies that do
+     * not support concurrent calls may ignore the executor.
+     */
+    default void setExecutor(Executor executor) {
+    }
 }
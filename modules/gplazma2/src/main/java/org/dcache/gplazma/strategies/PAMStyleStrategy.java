@@ -1,12 +1,20 @@
 package org.dcache.gplazma.strategies;
 
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static org.dcache.gplazma.configuration.ConfigurationItemControl.OPTIONAL;
 import static org.dcache.gplazma.configuration.ConfigurationItemControl.SUFFICIENT;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import org.dcache.gplazma.AuthenticationException;
 import org.dcache.gplazma.configuration.ConfigurationItemControl;
 import org.dcache.gplazma.plugins.GPlazmaPlugin;
+import org.dcache.gplazma.strategies.PluginCaller.Fork;
 import org.dcache.util.NDC;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,54 +89,212 @@ public class PAMStyleStrategy<T extends GPlazmaPlugin> {
           throws AuthenticationException {
         AuthenticationException firstRequiredPluginException = null;
         for (GPlazmaPluginService<T> pluginElement : pluginElements) {
-            ConfigurationItemControl control = pluginElement.getControl();
-            NDC ndc = NDC.cloneNdc();
-
             try {
-                NDC.push(pluginElement.getName());
+                call(caller, pluginElement);
 
-                try {
-                    caller.call(pluginElement);
-                } catch (RuntimeException e) {
-                    logger.error("Bug in plugin: ", e);
-                    throw new AuthenticationException("bug in plugin " +
-                          pluginElement.getName() + ": " + e.getMessage());
+                if (pluginElement.getControl() == SUFFICIENT) {
+                    return;
+                }
+            } catch (AuthenticationException currentPluginException) {
+                firstRequiredPluginException = onFailure(pluginElement, currentPluginException,
+                      firstRequiredPluginException);
+            }
+        }
+
+        throwIfFailed(firstRequiredPluginException);
+    }
+
+    /**
+     * Like {@link #callPlugins(PluginCaller)}, but calls consecutive OPTIONAL and SUFFICIENT
+     * plugins concurrently using the given executor.  REQUIRED and REQUISITE plugins are still
+     * called one after the other, as their results decide whether later plugins are called.
+     * <p>
+     * Concurrently called plugins see the state of the login as it was before the first of them
+     * was called, not each other's results.  The outcome thus differs from calling the plugins
+     * sequentially if a plugin depends on the results of a preceding plugin of the same group;
+     * such configurations must not use concurrent calls.  The results are applied, and the
+     * controls evaluated, in the order of the configuration.  Once a SUFFICIENT plugin succeeds
+     * and all plugins before it have been applied, the results of the remaining plugins are
+     * discarded and their calls cancelled; these plugins may nevertheless have been called,
+     * unlike when calling the plugins sequentially.
+     * <p>
+     * Plugins are called sequentially if the executor is null or the caller does not support
+     * concurrent calls.
+     */
+    public void callPlugins(PluginCaller<T> caller, Executor executor)
+          throws AuthenticationException {
+        if (executor == null) {
+            callPlugins(caller);
+            return;
+        }
+
+        AuthenticationException firstRequiredPluginException = null;
+        int size = pluginElements.size();
+        int i = 0;
+        while (i < size) {
+            int end = i + 1;
+            while (end < size && isConcurrent(pluginElements.get(end - 1))
+                  && isConcurrent(pluginElements.get(end))) {
+                end++;
+            }
+
+            if (end - i > 1) {
+                List<Fork<T>> forks = new ArrayList<>(end - i);
+                for (int j = i; j < end; j++) {
+                    forks.add(caller.fork());
                 }
+                if (!forks.contains(null)) {
+                    if (callConcurrently(pluginElements.subList(i, end), forks, executor)) {
+                        return;
+                    }
+                    i = end;
+                    continue;
+                }
+                end = i + 1;
+            }
 
-                logger.debug("{} plugin completed", control.name());
+            GPlazmaPluginService<T> pluginElement = pluginElements.get(i);
+            try {
+                call(caller, pluginElement);
 
-                if (control == SUFFICIENT) {
+                if (pluginElement.getControl() == SUFFICIENT) {
                     return;
                 }
             } catch (AuthenticationException currentPluginException) {
-                logger.debug("{} plugin failed: {}", control.name(),
-                      currentPluginException.getMessage());
-
-                switch (control) {
-                    case SUFFICIENT:
-                    case OPTIONAL:
-                        break;
-
-                    case REQUIRED:
-                        if (firstRequiredPluginException == null) {
-                            firstRequiredPluginException = currentPluginException;
-                        }
-                        break;
-
-                    case REQUISITE:
-                        if (firstRequiredPluginException != null) {
-                            throw firstRequiredPluginException;
-                        }
-                        throw currentPluginException;
-
-                    default:
-                        //do nothing
-                }
-            } finally {
+                firstRequiredPluginException = onFailure(pluginElement, currentPluginException,
+                      firstRequiredPluginException);
+            }
+            i = end;
+        }
+
+        throwIfFailed(firstRequiredPluginException);
+    }
+
+    private static boolean isConcurrent(GPlazmaPluginService<?> pluginElement) {
+        ConfigurationItemControl control = pluginElement.getControl();
+        return control == OPTIONAL || control == SUFFICIENT;
+    }
+
+    /**
+     * Calls a group of OPTIONAL and SUFFICIENT plugins concurrently.  The first plugin is called
+     * on the current thread.
+     *
+     * @return true if a SUFFICIENT plugin succeeded
+     */
+    private boolean callConcurrently(List<GPlazmaPluginService<T>> group, List<Fork<T>> forks,
+          Executor executor) throws AuthenticationException {
+        NDC ndc = NDC.cloneNdc();
+        List<ListenableFutureTask<Void>> tasks = new ArrayList<>(group.size());
+        for (int j = 1; j < group.size(); j++) {
+            GPlazmaPluginService<T> pluginElement = group.get(j);
+            Fork<T> fork = forks.get(j);
+            ListenableFutureTask<Void> task = ListenableFutureTask.create(() -> {
                 NDC.set(ndc);
+                try {
+                    call(fork::call, pluginElement);
+                } finally {
+                    NDC.clear();
+                }
+                return null;
+            });
+            tasks.add(task);
+            executor.execute(task);
+        }
+
+        try {
+            for (int j = 0; j < group.size(); j++) {
+                GPlazmaPluginService<T> pluginElement = group.get(j);
+                boolean isSuccessful;
+                try {
+                    if (j == 0) {
+                        call(forks.get(0)::call, pluginElement);
+                    } else {
+                        getUninterruptibly(tasks.get(j - 1));
+                    }
+                    isSuccessful = true;
+                } catch (AuthenticationException e) {
+                    isSuccessful = false;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    Throwables.throwIfUnchecked(cause);
+                    if (!(cause instanceof AuthenticationException)) {
+                        throw new RuntimeException(cause);
+                    }
+                    isSuccessful = false;
+                }
+
+                forks.get(j).merge(pluginElement);
+
+                if (isSuccessful && pluginElement.getControl() == SUFFICIENT) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            tasks.forEach(t -> t.cancel(true));
+        }
+    }
+
+    private void call(PluginCaller<T> caller, GPlazmaPluginService<T> pluginElement)
+          throws AuthenticationException {
+        ConfigurationItemControl control = pluginElement.getControl();
+        NDC ndc = NDC.cloneNdc();
+
+        try {
+            NDC.push(pluginElement.getName());
+
+            try {
+                caller.call(pluginElement);
+            } catch (RuntimeException e) {
+                logger.error("Bug in plugin: ", e);
+                throw new AuthenticationException("bug in plugin " +
+                      pluginElement.getName() + ": " + e.getMessage());
             }
+
+            logger.debug("{} plugin completed", control.name());
+        } catch (AuthenticationException e) {
+            logger.debug("{} plugin failed: {}", control.name(), e.getMessage());
+            throw e;
+        } finally {
+            NDC.set(ndc);
+        }
+    }
+
+    /**
+     * Applies the control of a failed plugin.
+     *
+     * @return the first exception of a failed REQUIRED plugin
+     * @throws AuthenticationException if the plugin is REQUISITE
+     */
+    private static AuthenticationException onFailure(GPlazmaPluginService<?> pluginElement,
+          AuthenticationException currentPluginException,
+          AuthenticationException firstRequiredPluginException)
+          throws AuthenticationException {
+        switch (pluginElement.getControl()) {
+            case SUFFICIENT:
+            case OPTIONAL:
+                break;
+
+            case REQUIRED:
+                if (firstRequiredPluginException == null) {
+                    firstRequiredPluginException = currentPluginException;
+                }
+                break;
+
+            case REQUISITE:
+                if (firstRequiredPluginException != null) {
+                    throw firstRequiredPluginException;
+                }
+                throw currentPluginException;
+
+            default:
+                //do nothing
         }
+        return firstRequiredPluginException;
+    }
 
+    private static void throwIfFailed(AuthenticationException firstRequiredPluginException)
+          throws AuthenticationException {
         if (firstRequiredPluginException != null) {
             logger.info(
                   "all session plugins ran, at least one required failed, throwing exception : {}",
@@ -13,4 +13,34 @@ public interface PluginCaller<T extends GPlazmaPlugin> {
      * @throws AuthenticationException
      */
     void call(GPlazmaPluginService<T> plugin) throws AuthenticationException;
+
+    /**
+     * Creates a Fork for calling a single plugin concurrently with other plugins.  The fork
+     * captures the current state of the login, which the plugin then modifies in isolation.
+     *
+     * @return a new Fork or null if this caller does not support concurrent calls
+     */
+    default Fork<T> fork() {
+        return null;
+    }
+
+    /**
+     * A private copy of the state of a login on which a plugin may be called concurrently with
+     * other plugins.  The changes made by the plugin are applied to the shared state of the
+     * login by {@link #merge}.
+     */
+    interface Fork<T extends GPlazmaPlugin> {
+
+        /**
+         * Calls the plugin on the private copy.  This method may be called on any thread and
+         * must not access the shared state of the login.
+         */
+        void call(GPlazmaPluginService<T> plugin) throws AuthenticationException;
+
+        /**
+         * Applies the changes made by the plugin to the shared state of the login.  Called on
+         * the thread performing the login after {@link #call} has completed.
+         */
+        void merge(GPlazmaPluginService<T> plugin);
+    }
 }
@@ -0,0 +1,65 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.strategies;
+
+import org.dcache.gplazma.AuthenticationException;
+import org.dcache.gplazma.monitor.LoginMonitor.Result;
+
+/**
+ * The outcome and duration of calling a single plugin, as reported to the LoginMonitor.
+ */
+class PluginInvocation {
+
+    /**
+     * The call of the plugin's method.
+     */
+    @FunctionalInterface
+    interface PluginCall {
+
+        void call() throws AuthenticationException;
+    }
+
+    private Result result = Result.FAIL;
+    private String error;
+    private long elapsedNanos;
+
+    void invoke(PluginCall call) throws AuthenticationException {
+        long start = System.nanoTime();
+        try {
+            call.call();
+            result = Result.SUCCESS;
+        } catch (AuthenticationException e) {
+            error = e.getMessage();
+            throw e;
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    Result getResult() {
+        return result;
+    }
+
+    String getError() {
+        return error;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
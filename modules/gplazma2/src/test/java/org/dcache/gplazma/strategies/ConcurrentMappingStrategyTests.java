@@ -0,0 +1,252 @@
+package org.dcache.gplazma.strategies;
+
+import static org.dcache.gplazma.configuration.ConfigurationItemControl.OPTIONAL;
+import static org.dcache.gplazma.configuration.ConfigurationItemControl.REQUIRED;
+import static org.dcache.gplazma.configuration.ConfigurationItemControl.SUFFICIENT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.dcache.auth.GidPrincipal;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.auth.UserNamePrincipal;
+import org.dcache.gplazma.AuthenticationException;
+import org.dcache.gplazma.configuration.ConfigurationItemControl;
+import org.dcache.gplazma.configuration.ConfigurationItemType;
+import org.dcache.gplazma.monitor.CombinedLoginMonitor;
+import org.dcache.gplazma.monitor.IgnoringLoginMonitor;
+import org.dcache.gplazma.monitor.PluginLatencyMonitor;
+import org.dcache.gplazma.plugins.GPlazmaMappingPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentMappingStrategyTests {
+
+    private ExecutorService executor;
+    private MappingStrategy strategy;
+    private PluginLatencyMonitor latencyMonitor;
+    private OrderRecordingMonitor orderMonitor;
+    private Set<Principal> principals;
+
+    @Before
+    public void setup() throws Exception {
+        executor = Executors.newCachedThreadPool();
+        strategy = StrategyFactory.getInstance().newMappingStrategy();
+        strategy.setExecutor(executor);
+        latencyMonitor = new PluginLatencyMonitor();
+        orderMonitor = new OrderRecordingMonitor();
+        principals = new HashSet<>();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCallOptionalPluginsConcurrently() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        givenPlugins(
+              plugin("uid", OPTIONAL, new AwaitingPlugin(latch, new UidPrincipal(1))),
+              plugin("gid", OPTIONAL, new AwaitingPlugin(latch, new GidPrincipal(1, true))));
+
+        map();
+
+        assertThat(principals, containsInAnyOrder(new UidPrincipal(1),
+              new GidPrincipal(1, true)));
+    }
+
+    @Test
+    public void shouldNotifyMonitorInConfigurationOrder() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        givenPlugins(
+              plugin("slow", OPTIONAL, new AwaitingPlugin(latch, new UidPrincipal(1))),
+              plugin("fast", OPTIONAL, (GPlazmaMappingPlugin) p -> latch.countDown()));
+
+        map();
+
+        assertThat(orderMonitor.ended, contains("slow", "fast"));
+        assertThat(latencyMonitor.getCount(ConfigurationItemType.MAPPING, "slow"), is(1L));
+        assertThat(latencyMonitor.getCount(ConfigurationItemType.MAPPING, "fast"), is(1L));
+    }
+
+    @Test
+    public void shouldStopAfterSuccessfulSufficientPlugin() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+        givenPlugins(
+              plugin("uid", SUFFICIENT, new AddingPlugin(new UidPrincipal(1))),
+              plugin("blocked", OPTIONAL, p -> {
+                  try {
+                      never.await();
+                  } catch (InterruptedException e) {
+                      throw new AuthenticationException("interrupted");
+                  }
+                  p.add(new GidPrincipal(1, true));
+              }));
+
+        map();
+
+        assertThat(principals, contains(new UidPrincipal(1)));
+        assertThat(orderMonitor.ended, contains("uid"));
+    }
+
+    @Test
+    public void shouldApplyOptionalPluginsBeforeSuccessfulSufficientPlugin() throws Exception {
+        givenPlugins(
+              plugin("uid", OPTIONAL, new AddingPlugin(new UidPrincipal(1))),
+              plugin("fail", SUFFICIENT, new FailingPlugin()),
+              plugin("gid", SUFFICIENT, new AddingPlugin(new GidPrincipal(1, true))),
+              plugin("user", OPTIONAL, new AddingPlugin(new UserNamePrincipal("user"))));
+
+        map();
+
+        assertThat(principals, containsInAnyOrder(new UidPrincipal(1),
+              new GidPrincipal(1, true)));
+        assertThat(orderMonitor.ended, contains("uid", "fail", "gid"));
+    }
+
+    @Test
+    public void shouldThrowFirstRequiredFailureAfterCallingLaterPlugins() throws Exception {
+        AuthenticationException failure = new AuthenticationException("required failed");
+        givenPlugins(
+              plugin("required", REQUIRED, p -> {
+                  throw failure;
+              }),
+              plugin("uid", OPTIONAL, new AddingPlugin(new UidPrincipal(1))),
+              plugin("gid", OPTIONAL, new AddingPlugin(new GidPrincipal(1, true))));
+
+        try {
+            map();
+            fail("Expected AuthenticationException");
+        } catch (AuthenticationException e) {
+            assertThat(e, is(equalTo(failure)));
+        }
+
+        assertThat(principals, containsInAnyOrder(new UidPrincipal(1),
+              new GidPrincipal(1, true)));
+    }
+
+    @Test
+    public void shouldIgnoreBugInOptionalPlugin() throws Exception {
+        givenPlugins(
+              plugin("bug", OPTIONAL, p -> {
+                  throw new RuntimeException("bug");
+              }),
+              plugin("uid", OPTIONAL, new AddingPlugin(new UidPrincipal(1))));
+
+        map();
+
+        assertThat(principals, contains(new UidPrincipal(1)));
+    }
+
+    @Test
+    public void shouldApplyRemovedPrincipals() throws Exception {
+        principals.add(new UserNamePrincipal("user"));
+        givenPlugins(
+              plugin("remove", OPTIONAL, p -> p.remove(new UserNamePrincipal("user"))),
+              plugin("uid", OPTIONAL, new AddingPlugin(new UidPrincipal(1))));
+
+        map();
+
+        assertThat(principals, not(hasItem(new UserNamePrincipal("user"))));
+        assertThat(principals, contains(new UidPrincipal(1)));
+    }
+
+    @Test
+    public void shouldPassResultsOfRequiredPluginToLaterPlugins() throws Exception {
+        List<Principal> seen = new ArrayList<>();
+        givenPlugins(
+              plugin("uid", REQUIRED, new AddingPlugin(new UidPrincipal(1))),
+              plugin("gid", OPTIONAL, p -> seen.addAll(p)),
+              plugin("user", OPTIONAL, new AddingPlugin(new UserNamePrincipal("user"))));
+
+        map();
+
+        assertThat(seen, contains(new UidPrincipal(1)));
+    }
+
+    private void givenPlugins(GPlazmaPluginService<GPlazmaMappingPlugin>... plugins) {
+        strategy.setPlugins(Arrays.asList(plugins));
+    }
+
+    private void map() throws AuthenticationException {
+        strategy.map(CombinedLoginMonitor.of(latencyMonitor, orderMonitor), principals);
+    }
+
+    private static GPlazmaPluginService<GPlazmaMappingPlugin> plugin(String name,
+          ConfigurationItemControl control, GPlazmaMappingPlugin plugin) {
+        return new GPlazmaPluginService<>(plugin, name, control);
+    }
+
+    private static class OrderRecordingMonitor extends IgnoringLoginMonitor {
+
+        private final List<String> ended = new ArrayList<>();
+
+        @Override
+        public void mapPluginEnds(String name, ConfigurationItemControl control, Result result,
+              String error, Set<Principal> principals) {
+            ended.add(name);
+        }
+    }
+
+    private static class AddingPlugin implements GPlazmaMappingPlugin {
+
+        private final Principal principal;
+
+        AddingPlugin(Principal principal) {
+            this.principal = principal;
+        }
+
+        @Override
+        public void map(Set<Principal> principals) throws AuthenticationException {
+            principals.add(principal);
+        }
+    }
+
+    private static class AwaitingPlugin extends AddingPlugin {
+
+        private final CountDownLatch latch;
+
+        AwaitingPlugin(CountDownLatch latch, Principal principal) {
+            super(principal);
+            this.latch = latch;
+        }
+
+        @Override
+        public void map(Set<Principal> principals) throws AuthenticationException {
+            latch.countDown();
+            try {
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    throw new AuthenticationException("plugins were not called concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new AuthenticationException("interrupted");
+            }
+            super.map(principals);
+        }
+    }
+
+    private static class FailingPlugin implements GPlazmaMappingPlugin {
+
+        @Override
+        public void map(Set<Principal> principals) throws AuthenticationException {
+            throw new AuthenticationException("failed");
+        }
+    }
+}
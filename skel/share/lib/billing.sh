@@ -27,3 +27,9 @@ billing_find()
 {
     billing_indexer -find "$@"
 }
+
+# Query billing archive
+billing_query()
+{
+    billing_indexer -query "$@"
+}